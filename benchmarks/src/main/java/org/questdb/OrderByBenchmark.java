@@ -0,0 +1,132 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package org.questdb;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolUtils;
+import io.questdb.std.Files;
+import io.questdb.std.Misc;
+import io.questdb.std.str.Path;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderByBenchmark {
+    private static final String ROOT = System.getProperty("java.io.tmpdir") + Files.SEPARATOR + "order-by-benchmark";
+
+    @Param({"false", "true"})
+    public boolean parallel;
+    @Param({"10000000"})
+    public int size;
+    @Param({"8"})
+    public int workerCount;
+    private CairoEngine engine;
+    private RecordCursorFactory factory;
+    private WorkerPool pool;
+    private SqlExecutionContext sqlExecutionContext;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(OrderByBenchmark.class.getSimpleName())
+                .warmupIterations(2)
+                .measurementIterations(5)
+                .forks(0)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws SqlException {
+        try (Path path = new Path()) {
+            Files.mkdirs(path.of(ROOT).slash$(), 509);
+        }
+        final boolean parallelSortEnabled = parallel;
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(ROOT) {
+            @Override
+            public boolean isSqlParallelSortEnabled() {
+                return parallelSortEnabled;
+            }
+        };
+        engine = new CairoEngine(configuration);
+        pool = new WorkerPool(() -> workerCount);
+        WorkerPoolUtils.setupQueryJobs(pool, engine, null);
+        pool.start();
+
+        sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount, workerCount)
+                .with(
+                        configuration.getFactoryProvider().getSecurityContextFactory().getRootContext(),
+                        null,
+                        null,
+                        -1,
+                        null
+                );
+        engine.ddl("drop table if exists trades", sqlExecutionContext);
+        engine.ddl(
+                "create table trades as (" +
+                        "select rnd_symbol(100, 4, 4, 0) sym, rnd_double() price, timestamp_sequence(0, 1000) ts" +
+                        " from long_sequence(" + size + ")" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+        factory = engine.select("select * from trades order by price desc", sqlExecutionContext);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SqlException {
+        factory = Misc.free(factory);
+        engine.ddl("drop table trades", sqlExecutionContext);
+        pool.halt();
+        engine = Misc.free(engine);
+    }
+
+    @Benchmark
+    public void testOrderBy(Blackhole bh) throws SqlException {
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            final Record record = cursor.getRecord();
+            while (cursor.hasNext()) {
+                bh.consume(record.getDouble(1));
+            }
+        }
+    }
+}
@@ -136,6 +136,10 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_getPosixFadvSequential(JNIEnv *
     return POSIX_FADV_SEQUENTIAL;
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_getPosixFadvWillNeed(JNIEnv *e, jclass cls) {
+    return POSIX_FADV_WILLNEED;
+}
+
 JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0
         (JNIEnv *e, jclass cls, jlong address, jlong len, jint advise) {
     void *memAddr = (void *) address;
@@ -150,6 +154,14 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_getPosixMadvSequential(JNIEnv *
     return POSIX_MADV_SEQUENTIAL;
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_getMadvCold(JNIEnv *e, jclass cls) {
+#ifdef MADV_COLD
+    return MADV_COLD;
+#else
+    return -1;
+#endif
+}
+
 JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_getFileSystemStatus
         (JNIEnv *e, jclass cl, jlong lpszName) {
     struct statfs sb;
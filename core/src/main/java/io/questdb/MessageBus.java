@@ -136,4 +136,10 @@ public interface MessageBus extends Closeable {
     RingQueue<WalTxnNotificationTask> getWalTxnNotificationQueue();
 
     MCSequence getWalTxnNotificationSubSequence();
+
+    MPSequence getWindowShardPubSeq();
+
+    RingQueue<WindowShardTask> getWindowShardQueue();
+
+    MCSequence getWindowShardSubSeq();
 }
@@ -87,6 +87,9 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence walTxnNotificationPubSequence;
     private final RingQueue<WalTxnNotificationTask> walTxnNotificationQueue;
     private final MCSequence walTxnNotificationSubSequence;
+    private final MPSequence windowShardPubSeq;
+    private final RingQueue<WindowShardTask> windowShardQueue;
+    private final MCSequence windowShardSubSeq;
 
     public MessageBusImpl(@NotNull CairoConfiguration configuration) {
         try {
@@ -191,6 +194,12 @@ public class MessageBusImpl implements MessageBus {
             this.groupByMergeShardSubSeq = new MCSequence(groupByMergeShardQueue.getCycle());
             groupByMergeShardPubSeq.then(groupByMergeShardSubSeq).then(groupByMergeShardPubSeq);
 
+            // window shard tasks are published in the same fashion as group by merge shard tasks, so share the capacity
+            this.windowShardQueue = new RingQueue<>(WindowShardTask::new, configuration.getGroupByMergeShardQueueCapacity());
+            this.windowShardPubSeq = new MPSequence(windowShardQueue.getCycle());
+            this.windowShardSubSeq = new MCSequence(windowShardQueue.getCycle());
+            windowShardPubSeq.then(windowShardSubSeq).then(windowShardPubSeq);
+
             this.queryCacheEventPubSeq = new MPSequence(configuration.getQueryCacheEventQueueCapacity());
             this.queryCacheEventSubSeq = new MCSequence(configuration.getQueryCacheEventQueueCapacity());
             queryCacheEventPubSeq.then(queryCacheEventSubSeq).then(queryCacheEventPubSeq);
@@ -488,4 +497,19 @@ public class MessageBusImpl implements MessageBus {
     public MCSequence getWalTxnNotificationSubSequence() {
         return walTxnNotificationSubSequence;
     }
+
+    @Override
+    public MPSequence getWindowShardPubSeq() {
+        return windowShardPubSeq;
+    }
+
+    @Override
+    public RingQueue<WindowShardTask> getWindowShardQueue() {
+        return windowShardQueue;
+    }
+
+    @Override
+    public MCSequence getWindowShardSubSeq() {
+        return windowShardSubSeq;
+    }
 }
@@ -29,6 +29,7 @@ import io.questdb.cairo.wal.WalMetrics;
 import io.questdb.cutlass.http.processors.JsonQueryMetrics;
 import io.questdb.cutlass.line.LineMetrics;
 import io.questdb.cutlass.pgwire.PGWireMetrics;
+import io.questdb.griffin.engine.cache.QueryResultCacheMetrics;
 import io.questdb.metrics.*;
 import io.questdb.std.MemoryTag;
 import io.questdb.std.Os;
@@ -44,6 +45,7 @@ public class Metrics implements Scrapable {
     private final LineMetrics line;
     private final MetricsRegistry metricsRegistry;
     private final PGWireMetrics pgWire;
+    private final QueryResultCacheMetrics queryResultCache;
     private final Runtime runtime = Runtime.getRuntime();
     private final VirtualLongGauge.StatProvider jvmFreeMemRef = runtime::freeMemory;
     private final VirtualLongGauge.StatProvider jvmMaxMemRef = runtime::maxMemory;
@@ -57,6 +59,7 @@ public class Metrics implements Scrapable {
         this.gcMetrics = new GCMetrics();
         this.jsonQuery = new JsonQueryMetrics(metricsRegistry);
         this.pgWire = new PGWireMetrics(metricsRegistry);
+        this.queryResultCache = new QueryResultCacheMetrics(metricsRegistry);
         this.line = new LineMetrics(metricsRegistry);
         this.healthCheck = new HealthMetricsImpl(metricsRegistry);
         this.tableWriter = new TableWriterMetrics(metricsRegistry);
@@ -98,6 +101,10 @@ public class Metrics implements Scrapable {
         return pgWire;
     }
 
+    public QueryResultCacheMetrics queryResultCache() {
+        return queryResultCache;
+    }
+
     @Override
     public void scrapeIntoPrometheus(@NotNull BorrowableUtf8Sink sink) {
         metricsRegistry.scrapeIntoPrometheus(sink);
@@ -228,10 +228,14 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int o3PartitionPurgeListCapacity;
     private final int o3PartitionQueueCapacity;
     private final long o3PartitionSplitMinSize;
+    private final long partitionCompressionAge;
+    private final long partitionCompressionInterval;
+    private final long partitionDecompressionBufferPoolSize;
     private final int o3PurgeDiscoveryQueueCapacity;
     private final boolean o3QuickSortEnabled;
     private final int parallelIndexThreshold;
     private final boolean parallelIndexingEnabled;
+    private final boolean partitionStatsEnabled;
     private final boolean pgEnabled;
     private final PGWireConfiguration pgWireConfiguration = new PropPGWireConfiguration();
     private final String posthogApiKey;
@@ -312,14 +316,25 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlMaxNegativeLimit;
     private final int sqlMaxSymbolNotEqualsCount;
     private final int sqlModelPoolCapacity;
+    private final int sqlPageFrameIOURingCapacity;
     private final int sqlPageFrameMaxRows;
     private final int sqlPageFrameMinRows;
+    private final long sqlPageFrameReadAheadBudget;
+    private final boolean sqlPageFrameReadAheadEnabled;
+    private final int sqlPageFrameReadAheadFrames;
     private final boolean sqlParallelFilterEnabled;
     private final boolean sqlParallelFilterPreTouchEnabled;
     private final boolean sqlParallelGroupByEnabled;
+    private final boolean sqlParallelAsOfJoinEnabled;
+    private final boolean sqlParallelHashJoinEnabled;
+    private final boolean sqlParallelSampleByFillEnabled;
+    private final boolean sqlParallelSortEnabled;
+    private final boolean sqlParallelWindowEnabled;
     private final int sqlParallelWorkStealingThreshold;
     private final int sqlQueryRegistryPoolSize;
     private final int sqlRenameTableModelPoolCapacity;
+    private final long sqlResultCacheCapacity;
+    private final long sqlResultCacheMaxEntrySize;
     private final boolean sqlSampleByDefaultAlignment;
     private final int sqlSampleByIndexSearchPageSize;
     private final int sqlSmallMapKeyCapacity;
@@ -343,6 +358,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlWindowTreeKeyMaxPages;
     private final int sqlWindowTreeKeyPageSize;
     private final int sqlWithClauseModelPoolCapacity;
+    private final double symbolRehashLoadFactor;
     private final int systemO3ColumnMemorySize;
     private final String systemTableNamePrefix;
     private final long systemWalWriterDataAppendPageSize;
@@ -382,10 +398,12 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long walPurgeInterval;
     private final int walPurgeWaitBeforeDelete;
     private final int walRecreateDistressedSequencerAttempts;
+    private final boolean walSegmentCompressionEnabled;
     private final long walSegmentRolloverRowCount;
     private final double walSquashUncommittedRowsMultiplier;
     private final boolean walSupported;
     private final int walTxnNotificationQueueCapacity;
+    private final int walWriterBatchRowCount;
     private final long walWriterDataAppendPageSize;
     private final long walWriterEventAppendPageSize;
     private final int walWriterPoolMaxSegments;
@@ -603,6 +621,7 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.walSupported = getBoolean(properties, env, PropertyKey.CAIRO_WAL_SUPPORTED, true);
         walApplyEnabled = getBoolean(properties, env, PropertyKey.CAIRO_WAL_APPLY_ENABLED, true);
         this.walSegmentRolloverRowCount = getLong(properties, env, PropertyKey.CAIRO_WAL_SEGMENT_ROLLOVER_ROW_COUNT, 200_000);
+        this.walSegmentCompressionEnabled = getBoolean(properties, env, PropertyKey.CAIRO_WAL_SEGMENT_COMPRESSION_ENABLED, false);
         this.walSegmentRolloverSize = getLong(properties, env, PropertyKey.CAIRO_WAL_SEGMENT_ROLLOVER_SIZE, 0);  // disabled by default.
         if ((this.walSegmentRolloverSize != 0) && (this.walSegmentRolloverSize < 1024)) {  // 1KiB segments minimum
             throw CairoException.critical(0).put("cairo.wal.segment.rollover.size must be 0 (disabled) or >= 1024 (1KiB)");
@@ -940,6 +959,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.createAsSelectRetryCount = getInt(properties, env, PropertyKey.CAIRO_CREATE_AS_SELECT_RETRY_COUNT, 5);
             this.defaultSymbolCacheFlag = getBoolean(properties, env, PropertyKey.CAIRO_DEFAULT_SYMBOL_CACHE_FLAG, true);
             this.defaultSymbolCapacity = getInt(properties, env, PropertyKey.CAIRO_DEFAULT_SYMBOL_CAPACITY, 256);
+            this.symbolRehashLoadFactor = getDouble(properties, env, PropertyKey.CAIRO_SYMBOL_REHASH_LOAD_FACTOR, "1.0");
             this.fileOperationRetryCount = getInt(properties, env, PropertyKey.CAIRO_FILE_OPERATION_RETRY_COUNT, 30);
             this.idleCheckInterval = getLong(properties, env, PropertyKey.CAIRO_IDLE_CHECK_INTERVAL, 5 * 60 * 1000L);
             this.inactiveReaderMaxOpenPartitions = getInt(properties, env, PropertyKey.CAIRO_INACTIVE_READER_MAX_OPEN_PARTITIONS, 128);
@@ -951,6 +971,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.parallelIndexThreshold = getInt(properties, env, PropertyKey.CAIRO_PARALLEL_INDEX_THRESHOLD, 100000);
             this.readerPoolMaxSegments = getInt(properties, env, PropertyKey.CAIRO_READER_POOL_MAX_SEGMENTS, 10);
             this.walWriterPoolMaxSegments = getInt(properties, env, PropertyKey.CAIRO_WAL_WRITER_POOL_MAX_SEGMENTS, 10);
+            this.walWriterBatchRowCount = getInt(properties, env, PropertyKey.CAIRO_WAL_WRITER_BATCH_ROW_COUNT, 1024);
             this.spinLockTimeout = getLong(properties, env, PropertyKey.CAIRO_SPIN_LOCK_TIMEOUT, 1_000);
             this.sqlCharacterStoreCapacity = getInt(properties, env, PropertyKey.CAIRO_CHARACTER_STORE_CAPACITY, 1024);
             this.sqlCharacterStoreSequencePoolCapacity = getInt(properties, env, PropertyKey.CAIRO_CHARACTER_STORE_SEQUENCE_POOL_CAPACITY, 64);
@@ -981,6 +1002,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlSortValueMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_MAX_PAGES, Integer.MAX_VALUE);
             this.workStealTimeoutNanos = getLong(properties, env, PropertyKey.CAIRO_WORK_STEAL_TIMEOUT_NANOS, 10_000);
             this.parallelIndexingEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARALLEL_INDEXING_ENABLED, true);
+            this.partitionStatsEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARTITION_STATS_ENABLED, false);
             this.sqlJoinMetadataPageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_JOIN_METADATA_PAGE_SIZE, 16384);
             this.sqlJoinMetadataMaxResizes = getIntSize(properties, env, PropertyKey.CAIRO_SQL_JOIN_METADATA_MAX_RESIZES, Integer.MAX_VALUE);
             int sqlWindowColumnPoolCapacity = getInt(properties, env, PropertyKey.CAIRO_SQL_ANALYTIC_COLUMN_POOL_CAPACITY, 64);
@@ -1030,6 +1052,12 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlDistinctTimestampLoadFactor = getDouble(properties, env, PropertyKey.CAIRO_SQL_DISTINCT_TIMESTAMP_LOAD_FACTOR, "0.5");
             this.sqlPageFrameMinRows = getInt(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_MIN_ROWS, 100_000);
             this.sqlPageFrameMaxRows = getInt(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, 1_000_000);
+            this.sqlPageFrameIOURingCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_IOURING_CAPACITY, 32));
+            this.sqlPageFrameReadAheadEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_READ_AHEAD_ENABLED, false);
+            this.sqlPageFrameReadAheadFrames = getInt(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_READ_AHEAD_FRAMES, 4);
+            this.sqlPageFrameReadAheadBudget = getLongSize(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_READ_AHEAD_BUDGET, 64 * Numbers.SIZE_1MB);
+            this.sqlResultCacheCapacity = getLongSize(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_CAPACITY, 0);
+            this.sqlResultCacheMaxEntrySize = getLongSize(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_MAX_ENTRY_SIZE, 16 * Numbers.SIZE_1MB);
 
             this.sqlJitMode = getSqlJitMode(properties, env);
             this.sqlJitIRMemoryPageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_JIT_IR_MEMORY_PAGE_SIZE, 8 * 1024);
@@ -1147,6 +1175,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.cairoMaxCrashFiles = getInt(properties, env, PropertyKey.CAIRO_MAX_CRASH_FILES, 100);
             this.o3LastPartitionMaxSplits = Math.max(1, getInt(properties, env, PropertyKey.CAIRO_O3_LAST_PARTITION_MAX_SPLITS, 20));
             this.o3PartitionSplitMinSize = getLongSize(properties, env, PropertyKey.CAIRO_O3_PARTITION_SPLIT_MIN_SIZE, 50 * Numbers.SIZE_1MB);
+            this.partitionCompressionAge = getLong(properties, env, PropertyKey.CAIRO_PARTITION_COMPRESSION_AGE, 0);
+            this.partitionCompressionInterval = getLong(properties, env, PropertyKey.CAIRO_PARTITION_COMPRESSION_INTERVAL, 60_000);
+            this.partitionDecompressionBufferPoolSize = getLongSize(properties, env, PropertyKey.CAIRO_PARTITION_DECOMPRESSION_BUFFER_POOL_SIZE, Numbers.SIZE_1GB);
 
             parseBindTo(properties, env, PropertyKey.LINE_UDP_BIND_TO, "0.0.0.0:9009", (a, p) -> {
                 this.lineUdpBindIPV4Address = a;
@@ -1307,6 +1338,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             boolean defaultParallelSqlEnabled = sharedWorkerCount >= 4;
             this.sqlParallelFilterEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_ENABLED, defaultParallelSqlEnabled);
             this.sqlParallelGroupByEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_ENABLED, defaultParallelSqlEnabled);
+            this.sqlParallelAsOfJoinEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_ASOF_JOIN_ENABLED, defaultParallelSqlEnabled);
+            this.sqlParallelHashJoinEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_HASH_JOIN_ENABLED, defaultParallelSqlEnabled);
+            this.sqlParallelSampleByFillEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_SAMPLE_BY_FILL_ENABLED, defaultParallelSqlEnabled);
+            this.sqlParallelSortEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_SORT_ENABLED, defaultParallelSqlEnabled);
+            this.sqlParallelWindowEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_WINDOW_ENABLED, defaultParallelSqlEnabled);
             this.sqlParallelWorkStealingThreshold = getInt(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD, 16);
             this.metricsEnabled = getBoolean(properties, env, PropertyKey.METRICS_ENABLED, false);
             this.writerAsyncCommandBusyWaitTimeout = getLong(properties, env, PropertyKey.CAIRO_WRITER_ALTER_BUSY_WAIT_TIMEOUT, 500);
@@ -2419,6 +2455,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexThreshold;
         }
 
+        @Override
+        public long getPartitionCompressionAge() {
+            return partitionCompressionAge;
+        }
+
+        @Override
+        public long getPartitionCompressionInterval() {
+            return partitionCompressionInterval;
+        }
+
+        @Override
+        public long getPartitionDecompressionBufferPoolSize() {
+            return partitionDecompressionBufferPoolSize;
+        }
+
         @Override
         public long getPartitionO3SplitMinSize() {
             return o3PartitionSplitMinSize;
@@ -2674,6 +2725,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlModelPoolCapacity;
         }
 
+        @Override
+        public int getSqlPageFrameIOURingCapacity() {
+            return sqlPageFrameIOURingCapacity;
+        }
+
         @Override
         public int getSqlPageFrameMaxRows() {
             return sqlPageFrameMaxRows;
@@ -2684,11 +2740,31 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlPageFrameMinRows;
         }
 
+        @Override
+        public long getSqlPageFrameReadAheadBudget() {
+            return sqlPageFrameReadAheadBudget;
+        }
+
+        @Override
+        public int getSqlPageFrameReadAheadFrames() {
+            return sqlPageFrameReadAheadFrames;
+        }
+
         @Override
         public int getSqlParallelWorkStealingThreshold() {
             return sqlParallelWorkStealingThreshold;
         }
 
+        @Override
+        public long getSqlResultCacheCapacity() {
+            return sqlResultCacheCapacity;
+        }
+
+        @Override
+        public long getSqlResultCacheMaxEntrySize() {
+            return sqlResultCacheMaxEntrySize;
+        }
+
         @Override
         public int getSqlSmallMapKeyCapacity() {
             return sqlSmallMapKeyCapacity;
@@ -2779,6 +2855,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlStrFunctionBufferMaxSize;
         }
 
+        @Override
+        public double getSymbolRehashLoadFactor() {
+            return symbolRehashLoadFactor;
+        }
+
         @Override
         public long getSystemDataAppendPageSize() {
             return systemWriterDataAppendPageSize;
@@ -2918,6 +2999,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return walTxnNotificationQueueCapacity;
         }
 
+        @Override
+        public int getWalWriterBatchRowCount() {
+            return walWriterBatchRowCount;
+        }
+
         @Override
         public int getWalWriterPoolMaxSegments() {
             return walWriterPoolMaxSegments;
@@ -2993,6 +3079,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isPartitionStatsEnabled() {
+            return partitionStatsEnabled;
+        }
+
         @Override
         public boolean isReadOnlyInstance() {
             return isReadOnlyInstance;
@@ -3008,6 +3099,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlJitDebugEnabled;
         }
 
+        @Override
+        public boolean isSqlPageFrameReadAheadEnabled() {
+            return sqlPageFrameReadAheadEnabled;
+        }
+
         @Override
         public boolean isSqlParallelFilterEnabled() {
             return sqlParallelFilterEnabled;
@@ -3023,6 +3119,31 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlParallelGroupByEnabled;
         }
 
+        @Override
+        public boolean isSqlParallelAsOfJoinEnabled() {
+            return sqlParallelAsOfJoinEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelHashJoinEnabled() {
+            return sqlParallelHashJoinEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelSampleByFillEnabled() {
+            return sqlParallelSampleByFillEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelSortEnabled() {
+            return sqlParallelSortEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelWindowEnabled() {
+            return sqlParallelWindowEnabled;
+        }
+
         @Override
         public boolean isTableTypeConversionEnabled() {
             return tableTypeConversionEnabled;
@@ -3033,6 +3154,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return walApplyEnabled;
         }
 
+        @Override
+        public boolean isWalSegmentCompressionEnabled() {
+            return walSegmentCompressionEnabled;
+        }
+
         public boolean isWalSupported() {
             return walSupported;
         }
@@ -28,6 +28,8 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.FlushQueryCacheJob;
+import io.questdb.cairo.compress.PartitionCompressionJob;
+import io.questdb.cairo.mv.MatViewRefreshJob;
 import io.questdb.cairo.security.ReadOnlySecurityContextFactory;
 import io.questdb.cairo.security.SecurityContextFactory;
 import io.questdb.cairo.wal.ApplyWal2TableJob;
@@ -332,12 +334,22 @@ public class ServerMain implements Closeable {
                             sharedPool.assign(walPurgeJob);
                             sharedPool.freeOnExit(walPurgeJob);
 
+                            final MatViewRefreshJob matViewRefreshJob = new MatViewRefreshJob(engine);
+                            sharedPool.assign(matViewRefreshJob);
+                            sharedPool.freeOnExit(matViewRefreshJob);
+
                             // wal apply job in the shared pool when there is no dedicated pool
                             if (walApplyEnabled && !config.getWalApplyPoolConfiguration().isEnabled()) {
                                 setupWalApplyJob(sharedPool, engine, sharedPool.getWorkerCount());
                             }
                         }
 
+                        if (cairoConfig.getPartitionCompressionAge() > 0) {
+                            final PartitionCompressionJob partitionCompressionJob = new PartitionCompressionJob(engine);
+                            sharedPool.assign(partitionCompressionJob);
+                            sharedPool.freeOnExit(partitionCompressionJob);
+                        }
+
                         // text import
                         CopyJob.assignToPool(engine.getMessageBus(), sharedPool);
                         if (cairoConfig.getSqlCopyInputRoot() != null) {
@@ -372,6 +384,9 @@ public class ServerMain implements Closeable {
                     WorkerPoolManager.Requester.WAL_APPLY
             );
             setupWalApplyJob(walApplyWorkerPool, engine, workerPoolManager.getSharedWorkerCount());
+            // WAL apply workers that are not busy with other tables help to
+            // copy columns and partitions of the transaction being applied
+            WorkerPoolUtils.setupWriterTaskJobs(walApplyWorkerPool, engine.getMessageBus());
         }
 
         // http
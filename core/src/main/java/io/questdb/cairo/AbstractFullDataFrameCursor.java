@@ -28,14 +28,21 @@ import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.cairo.sql.StaticSymbolTable;
 import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
 public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
     protected final FullTableDataFrame frame = new FullTableDataFrame();
     protected int partitionHi;
     protected int partitionIndex;
+    protected PartitionStatsFilter partitionStatsFilter;
     protected TableReader reader;
 
+    @Override
+    public boolean canSkipRows(int partitionIndex, long rowLo, long rowHi) {
+        return partitionStatsFilter != null && partitionStatsFilter.canSkip(reader, partitionIndex, rowLo, rowHi);
+    }
+
     @Override
     public void close() {
         reader = Misc.free(reader);
@@ -57,9 +64,14 @@ public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
     }
 
     public DataFrameCursor of(TableReader reader) {
+        return of(reader, null);
+    }
+
+    public DataFrameCursor of(TableReader reader, @Nullable PartitionStatsFilter partitionStatsFilter) {
         partitionHi = reader.getPartitionCount();
         toTop();
         this.reader = reader;
+        this.partitionStatsFilter = partitionStatsFilter;
         return this;
     }
 
@@ -77,6 +89,10 @@ public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
         return reader.size();
     }
 
+    protected boolean canSkipPartition(int partitionIndex) {
+        return partitionStatsFilter != null && partitionStatsFilter.canSkip(reader, partitionIndex);
+    }
+
     protected class FullTableDataFrame implements DataFrame {
         protected int partitionIndex;
         protected long rowHi;
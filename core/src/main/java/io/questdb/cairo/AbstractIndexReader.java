@@ -85,6 +85,16 @@ public abstract class AbstractIndexReader implements BitmapIndexReader {
         return valueMem.size();
     }
 
+    /**
+     * Catches up with the index writer via already open files. Unlike {@link #of}, this
+     * works when the index files have been removed from the disk while the reader still uses them.
+     */
+    public void growToFileSize() {
+        keyMem.growToFileSize();
+        valueMem.growToFileSize();
+        updateKeyCount();
+    }
+
     @Override
     public boolean isOpen() {
         return keyMem.getFd() != -1;
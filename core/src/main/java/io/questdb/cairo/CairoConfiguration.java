@@ -298,6 +298,20 @@ public interface CairoConfiguration {
 
     int getParallelIndexThreshold();
 
+    /**
+     * Returns the age, in milliseconds, after which sealed partitions are converted to the
+     * compressed format by the background job. Zero disables the conversion.
+     */
+    long getPartitionCompressionAge();
+
+    long getPartitionCompressionInterval();
+
+    /**
+     * Returns the limit, in bytes, on native memory used by decompressed columns of compressed
+     * partitions. The limit is shared by all readers of the engine.
+     */
+    long getPartitionDecompressionBufferPoolSize();
+
     long getPartitionO3SplitMinSize();
 
     int getPartitionPurgeListCapacity();
@@ -434,12 +448,39 @@ public interface CairoConfiguration {
 
     int getSqlModelPoolCapacity();
 
+    /**
+     * Number of io_uring ops that may be in flight when page frames are advised to be read
+     * ahead, each op covers up to 1MiB. Used when io_uring is enabled and available.
+     */
+    int getSqlPageFrameIOURingCapacity();
+
     int getSqlPageFrameMaxRows();
 
     int getSqlPageFrameMinRows();
 
+    /**
+     * Maximum number of bytes of page frames that are advised to be read ahead and not yet
+     * collected. Frames larger than the budget are not advised.
+     */
+    long getSqlPageFrameReadAheadBudget();
+
+    /**
+     * Number of page frames past the dispatched ones that are advised to be read ahead.
+     */
+    int getSqlPageFrameReadAheadFrames();
+
     int getSqlParallelWorkStealingThreshold();
 
+    /**
+     * Off-heap memory, in bytes, the query result cache may hold. Zero disables the cache.
+     */
+    long getSqlResultCacheCapacity();
+
+    /**
+     * Results larger than this number of bytes are not cached.
+     */
+    long getSqlResultCacheMaxEntrySize();
+
     int getSqlSmallMapKeyCapacity();
 
     long getSqlSmallMapPageSize();
@@ -476,6 +517,14 @@ public interface CairoConfiguration {
 
     int getStrFunctionMaxBufferLength();
 
+    /**
+     * Symbol count to symbol capacity ratio that triggers rehashing of the symbol table into
+     * larger capacity on commit. Zero or negative value disables the rehashing.
+     *
+     * @return symbol table load factor
+     */
+    double getSymbolRehashLoadFactor();
+
     long getSystemDataAppendPageSize();
 
     int getSystemO3ColumnMemorySize();
@@ -550,6 +599,8 @@ public interface CairoConfiguration {
 
     int getWalTxnNotificationQueueCapacity();
 
+    int getWalWriterBatchRowCount();
+
     int getWalWriterPoolMaxSegments();
 
     int getWindowColumnPoolCapacity();
@@ -580,6 +631,12 @@ public interface CairoConfiguration {
 
     boolean isParallelIndexingEnabled();
 
+    /**
+     * When enabled, {@link TableWriter} maintains per-partition min/max statistics of fixed-size
+     * numeric columns and table scans skip partitions that cannot satisfy the filter.
+     */
+    boolean isPartitionStatsEnabled();
+
     boolean isReadOnlyInstance();
 
     /**
@@ -591,16 +648,40 @@ public interface CairoConfiguration {
 
     boolean isSqlJitDebugEnabled();
 
+    /**
+     * When enabled, parallel queries advise the kernel to read ahead column files of the page
+     * frames that are about to be dispatched, and mark pages of collected frames as cold, so
+     * that large scans don't push the hot working set out of page cache.
+     */
+    boolean isSqlPageFrameReadAheadEnabled();
+
     boolean isSqlParallelFilterEnabled();
 
     boolean isSqlParallelFilterPreTouchEnabled();
 
     boolean isSqlParallelGroupByEnabled();
 
+    boolean isSqlParallelAsOfJoinEnabled();
+
+    boolean isSqlParallelHashJoinEnabled();
+
+    boolean isSqlParallelSampleByFillEnabled();
+
+    boolean isSqlParallelSortEnabled();
+
+    boolean isSqlParallelWindowEnabled();
+
     boolean isTableTypeConversionEnabled();
 
     boolean isWalApplyEnabled();
 
+    /**
+     * When enabled, WalWriter compresses column data of each commit into frame files of the
+     * segment and discards the raw column bytes, so that committed WAL data is written to disk
+     * compressed. Applies to segments created after the setting is changed.
+     */
+    boolean isWalSegmentCompressionEnabled();
+
     boolean isWalSupported();
 
     boolean isWriterMixedIOEnabled();
@@ -505,6 +505,21 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getParallelIndexThreshold();
     }
 
+    @Override
+    public long getPartitionCompressionAge() {
+        return getDelegate().getPartitionCompressionAge();
+    }
+
+    @Override
+    public long getPartitionCompressionInterval() {
+        return getDelegate().getPartitionCompressionInterval();
+    }
+
+    @Override
+    public long getPartitionDecompressionBufferPoolSize() {
+        return getDelegate().getPartitionDecompressionBufferPoolSize();
+    }
+
     @Override
     public long getPartitionO3SplitMinSize() {
         return getDelegate().getPartitionO3SplitMinSize();
@@ -760,6 +775,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getSqlModelPoolCapacity();
     }
 
+    @Override
+    public int getSqlPageFrameIOURingCapacity() {
+        return getDelegate().getSqlPageFrameIOURingCapacity();
+    }
+
     @Override
     public int getSqlPageFrameMaxRows() {
         return getDelegate().getSqlPageFrameMaxRows();
@@ -770,11 +790,31 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getSqlPageFrameMinRows();
     }
 
+    @Override
+    public long getSqlPageFrameReadAheadBudget() {
+        return getDelegate().getSqlPageFrameReadAheadBudget();
+    }
+
+    @Override
+    public int getSqlPageFrameReadAheadFrames() {
+        return getDelegate().getSqlPageFrameReadAheadFrames();
+    }
+
     @Override
     public int getSqlParallelWorkStealingThreshold() {
         return getDelegate().getSqlParallelWorkStealingThreshold();
     }
 
+    @Override
+    public long getSqlResultCacheCapacity() {
+        return getDelegate().getSqlResultCacheCapacity();
+    }
+
+    @Override
+    public long getSqlResultCacheMaxEntrySize() {
+        return getDelegate().getSqlResultCacheMaxEntrySize();
+    }
+
     @Override
     public int getSqlSmallMapKeyCapacity() {
         return getDelegate().getSqlSmallMapKeyCapacity();
@@ -865,6 +905,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getStrFunctionMaxBufferLength();
     }
 
+    @Override
+    public double getSymbolRehashLoadFactor() {
+        return getDelegate().getSymbolRehashLoadFactor();
+    }
+
     @Override
     public long getSystemDataAppendPageSize() {
         return getDelegate().getSystemDataAppendPageSize();
@@ -1005,6 +1050,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getWalTxnNotificationQueueCapacity();
     }
 
+    @Override
+    public int getWalWriterBatchRowCount() {
+        return getDelegate().getWalWriterBatchRowCount();
+    }
+
     @Override
     public int getWalWriterPoolMaxSegments() {
         return getDelegate().getWalWriterPoolMaxSegments();
@@ -1080,6 +1130,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isParallelIndexingEnabled();
     }
 
+    @Override
+    public boolean isPartitionStatsEnabled() {
+        return getDelegate().isPartitionStatsEnabled();
+    }
+
     @Override
     public boolean isReadOnlyInstance() {
         return getDelegate().isReadOnlyInstance();
@@ -1095,6 +1150,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isSqlJitDebugEnabled();
     }
 
+    @Override
+    public boolean isSqlPageFrameReadAheadEnabled() {
+        return getDelegate().isSqlPageFrameReadAheadEnabled();
+    }
+
     @Override
     public boolean isSqlParallelFilterEnabled() {
         return getDelegate().isSqlParallelFilterEnabled();
@@ -1110,6 +1170,31 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isSqlParallelGroupByEnabled();
     }
 
+    @Override
+    public boolean isSqlParallelAsOfJoinEnabled() {
+        return getDelegate().isSqlParallelAsOfJoinEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return getDelegate().isSqlParallelHashJoinEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelSampleByFillEnabled() {
+        return getDelegate().isSqlParallelSampleByFillEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelSortEnabled() {
+        return getDelegate().isSqlParallelSortEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelWindowEnabled() {
+        return getDelegate().isSqlParallelWindowEnabled();
+    }
+
     @Override
     public boolean isTableTypeConversionEnabled() {
         return getDelegate().isTableTypeConversionEnabled();
@@ -1120,6 +1205,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isWalApplyEnabled();
     }
 
+    @Override
+    public boolean isWalSegmentCompressionEnabled() {
+        return getDelegate().isWalSegmentCompressionEnabled();
+    }
+
     public boolean isWalSupported() {
         return getDelegate().isWalSupported();
     }
@@ -29,6 +29,7 @@ import io.questdb.MessageBusImpl;
 import io.questdb.Metrics;
 import io.questdb.Telemetry;
 import io.questdb.cairo.mig.EngineMigration;
+import io.questdb.cairo.mv.MatViewGraph;
 import io.questdb.cairo.pool.*;
 import io.questdb.cairo.security.AllowAllSecurityContext;
 import io.questdb.cairo.sql.*;
@@ -37,6 +38,7 @@ import io.questdb.cairo.wal.*;
 import io.questdb.cairo.wal.seq.TableSequencerAPI;
 import io.questdb.cutlass.text.CopyContext;
 import io.questdb.griffin.*;
+import io.questdb.griffin.engine.cache.QueryResultCache;
 import io.questdb.griffin.engine.ops.UpdateOperation;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
@@ -75,9 +77,11 @@ public class CairoEngine implements Closeable, WriterSource {
     private final ConcurrentHashMap<TableToken> createTableLock = new ConcurrentHashMap<>();
     private final EngineMaintenanceJob engineMaintenanceJob;
     private final FunctionFactoryCache ffCache;
+    private final MatViewGraph matViewGraph;
     private final MessageBusImpl messageBus;
     private final Metrics metrics;
     private final QueryRegistry queryRegistry;
+    private final QueryResultCache queryResultCache;
     private final ReaderPool readerPool;
     private final SqlExecutionContext rootExecutionContext;
     private final SequencerMetadataPool sequencerMetadataPool;
@@ -128,6 +132,7 @@ public class CairoEngine implements Closeable, WriterSource {
             this.tableIdGenerator = new IDGenerator(configuration, TableUtils.TAB_INDEX_FILE_NAME);
             this.snapshotAgent = new DatabaseSnapshotAgentImpl(this);
             this.queryRegistry = new QueryRegistry(configuration);
+            this.queryResultCache = new QueryResultCache(configuration, metrics.queryResultCache());
             this.rootExecutionContext = new SqlExecutionContextImpl(this, 1)
                     .with(AllowAllSecurityContext.INSTANCE);
 
@@ -141,6 +146,8 @@ public class CairoEngine implements Closeable, WriterSource {
                     ? new TableNameRegistryRO(configuration, tableFlagResolver)
                     : new TableNameRegistryRW(configuration, tableFlagResolver);
             tableNameRegistry.reload();
+            this.matViewGraph = new MatViewGraph(configuration);
+            loadMatViews();
 
             this.sqlCompilerPool = new SqlCompilerPool(this);
         } catch (Throwable th) {
@@ -281,6 +288,7 @@ public class CairoEngine implements Closeable, WriterSource {
         boolean b4 = sequencerMetadataPool.releaseAll();
         boolean b5 = walWriterPool.releaseAll();
         boolean b6 = tableMetadataPool.releaseAll();
+        queryResultCache.clear();
         return b1 & b2 & b3 & b4 & b5 & b6;
     }
 
@@ -299,6 +307,7 @@ public class CairoEngine implements Closeable, WriterSource {
         Misc.free(telemetryWal);
         Misc.free(tableNameRegistry);
         Misc.free(snapshotAgent);
+        Misc.free(queryResultCache);
     }
 
     @TestOnly
@@ -482,6 +491,10 @@ public class CairoEngine implements Closeable, WriterSource {
         return getSequencerMetadata(tableToken, desiredVersion);
     }
 
+    public MatViewGraph getMatViewGraph() {
+        return matViewGraph;
+    }
+
     public MessageBus getMessageBus() {
         return messageBus;
     }
@@ -499,6 +512,10 @@ public class CairoEngine implements Closeable, WriterSource {
         return queryRegistry;
     }
 
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
     public TableReader getReader(CharSequence tableName) {
         TableToken tableToken = verifyTableNameForRead(tableName);
         // Do not call getReader(TableToken tableToken), it will do unnecessary token verification
@@ -798,6 +815,7 @@ public class CairoEngine implements Closeable, WriterSource {
         // Convert tables to WAL/non-WAL, if necessary.
         final ObjList<TableToken> convertedTables = TableConverter.convertTables(configuration, tableSequencerAPI, tableFlagResolver);
         tableNameRegistry.reload(convertedTables);
+        loadMatViews();
     }
 
     public String lockAll(TableToken tableToken, String lockReason, boolean ignoreSnapshots) {
@@ -887,6 +905,7 @@ public class CairoEngine implements Closeable, WriterSource {
 
     public void notifyDropped(TableToken tableToken) {
         tableNameRegistry.dropTable(tableToken);
+        matViewGraph.dropView(tableToken);
     }
 
     public void notifyWalTxnCommitted(@NotNull TableToken tableToken) {
@@ -985,6 +1004,7 @@ public class CairoEngine implements Closeable, WriterSource {
     @TestOnly
     public void reloadTableNames(@Nullable ObjList<TableToken> convertedTables) {
         tableNameRegistry.reload(convertedTables);
+        loadMatViews();
     }
 
     public void removeTableToken(TableToken tableToken) {
@@ -1358,6 +1378,12 @@ public class CairoEngine implements Closeable, WriterSource {
         }
     }
 
+    private void loadMatViews() {
+        final ObjHashSet<TableToken> tableTokens = new ObjHashSet<>();
+        tableNameRegistry.getTableTokens(tableTokens, false);
+        matViewGraph.load(tableTokens);
+    }
+
     private TableToken rename0(Path fromPath, TableToken fromTableToken, Path toPath, CharSequence toTableName) {
 
         // !!! we do not care what is inside the path1 & path2, we will reset them anyway
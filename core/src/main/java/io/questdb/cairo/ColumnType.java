@@ -220,6 +220,13 @@ public final class ColumnType {
         return (columnType & TYPE_FLAG_GEO_HASH) != 0;
     }
 
+    /**
+     * Symbol columns are indexed by symbol key, INT and LONG columns by value hash.
+     */
+    public static boolean isIndexable(int columnType) {
+        return columnType == SYMBOL || columnType == INT || columnType == LONG;
+    }
+
     public static boolean isInt(int columnType) {
         return columnType == ColumnType.INT;
     }
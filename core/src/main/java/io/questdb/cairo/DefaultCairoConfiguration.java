@@ -504,6 +504,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 100000;
     }
 
+    @Override
+    public long getPartitionCompressionAge() {
+        return 0;
+    }
+
+    @Override
+    public long getPartitionCompressionInterval() {
+        return 60_000;
+    }
+
+    @Override
+    public long getPartitionDecompressionBufferPoolSize() {
+        return Numbers.SIZE_1GB;
+    }
+
     @Override
     public long getPartitionO3SplitMinSize() {
         return 50 * Numbers.SIZE_1MB;
@@ -761,6 +776,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024;
     }
 
+    @Override
+    public int getSqlPageFrameIOURingCapacity() {
+        return 32;
+    }
+
     @Override
     public int getSqlPageFrameMaxRows() {
         return 1_000_000;
@@ -771,11 +791,31 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1_000;
     }
 
+    @Override
+    public long getSqlPageFrameReadAheadBudget() {
+        return 64 * Numbers.SIZE_1MB;
+    }
+
+    @Override
+    public int getSqlPageFrameReadAheadFrames() {
+        return 4;
+    }
+
     @Override
     public int getSqlParallelWorkStealingThreshold() {
         return 16;
     }
 
+    @Override
+    public long getSqlResultCacheCapacity() {
+        return 0;
+    }
+
+    @Override
+    public long getSqlResultCacheMaxEntrySize() {
+        return 16 * Numbers.SIZE_1MB;
+    }
+
     @Override
     public int getSqlSmallMapKeyCapacity() {
         return 64;
@@ -866,6 +906,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024 * 1024;
     }
 
+    @Override
+    public double getSymbolRehashLoadFactor() {
+        return 1.0;
+    }
+
     @Override
     public long getSystemDataAppendPageSize() {
         return 256 * 1024;
@@ -1001,6 +1046,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 4096;
     }
 
+    @Override
+    public int getWalWriterBatchRowCount() {
+        return 1024;
+    }
+
     @Override
     public int getWalWriterPoolMaxSegments() {
         return 5;
@@ -1080,6 +1130,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isPartitionStatsEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isReadOnlyInstance() {
         return false;
@@ -1095,6 +1150,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return false;
     }
 
+    @Override
+    public boolean isSqlPageFrameReadAheadEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isSqlParallelFilterEnabled() {
         return true;
@@ -1110,6 +1170,31 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSqlParallelAsOfJoinEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelSampleByFillEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelSortEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelWindowEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isTableTypeConversionEnabled() {
         return true;
@@ -1120,6 +1205,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isWalSegmentCompressionEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isWalSupported() {
         return true;
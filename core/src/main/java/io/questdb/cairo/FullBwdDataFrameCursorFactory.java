@@ -28,22 +28,30 @@ import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
 
 public class FullBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
     private final FullBwdDataFrameCursor cursor = new FullBwdDataFrameCursor();
 
     private FullFwdDataFrameCursor fwdCursor;
+    private PartitionStatsFilter partitionStatsFilter;
 
     public FullBwdDataFrameCursorFactory(TableToken tableToken, long metadataVersion, GenericRecordMetadata metadata) {
         super(tableToken, metadataVersion, metadata);
     }
 
+    @Override
+    public void close() {
+        super.close();
+        partitionStatsFilter = Misc.free(partitionStatsFilter);
+    }
+
     @Override
     public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) {
         final TableReader reader = getReader(executionContext);
         try {
             if (order == ORDER_DESC || order == ORDER_ANY) {
-                return cursor.of(reader);
+                return cursor.of(reader, partitionStatsFilter);
             }
 
             // Create forward scanning cursor when needed. Factory requesting forward cursor must
@@ -51,7 +59,7 @@ public class FullBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
             if (fwdCursor == null) {
                 fwdCursor = new FullFwdDataFrameCursor();
             }
-            return fwdCursor.of(reader);
+            return fwdCursor.of(reader, partitionStatsFilter);
         } catch (Throwable th) {
             Misc.free(reader);
             throw th;
@@ -68,6 +76,13 @@ public class FullBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
         return false;
     }
 
+    /**
+     * Sets the filter used to skip partitions that cannot match. The factory takes ownership of the filter.
+     */
+    public void setPartitionStatsFilter(@Nullable PartitionStatsFilter partitionStatsFilter) {
+        this.partitionStatsFilter = partitionStatsFilter;
+    }
+
     @Override
     public void toPlan(PlanSink sink) {
         if (sink.getOrder() == ORDER_ASC) {
@@ -28,21 +28,29 @@ import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
 
 public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
     private final FullFwdDataFrameCursor cursor = new FullFwdDataFrameCursor();
     private FullBwdDataFrameCursor bwdCursor;
+    private PartitionStatsFilter partitionStatsFilter;
 
     public FullFwdDataFrameCursorFactory(TableToken tableToken, long tableVersion, GenericRecordMetadata metadata) {
         super(tableToken, tableVersion, metadata);
     }
 
+    @Override
+    public void close() {
+        super.close();
+        partitionStatsFilter = Misc.free(partitionStatsFilter);
+    }
+
     @Override
     public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) {
         final TableReader reader = getReader(executionContext);
         try {
             if (order == ORDER_ASC || order == ORDER_ANY) {
-                return cursor.of(reader);
+                return cursor.of(reader, partitionStatsFilter);
             }
 
             // Create backward scanning cursor when needed. Factory requesting backward cursor must
@@ -50,7 +58,7 @@ public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
             if (bwdCursor == null) {
                 bwdCursor = new FullBwdDataFrameCursor();
             }
-            return bwdCursor.of(reader);
+            return bwdCursor.of(reader, partitionStatsFilter);
         } catch (Throwable th) {
             Misc.free(reader);
             throw th;
@@ -67,6 +75,13 @@ public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
         return false;
     }
 
+    /**
+     * Sets the filter used to skip partitions that cannot match. The factory takes ownership of the filter.
+     */
+    public void setPartitionStatsFilter(@Nullable PartitionStatsFilter partitionStatsFilter) {
+        this.partitionStatsFilter = partitionStatsFilter;
+    }
+
     @Override
     public void toPlan(PlanSink sink) {
         if (sink.getOrder() == ORDER_DESC) {
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+/**
+ * Indexes INT and LONG columns into the bitmap index by hashing column values into
+ * as many keys as the index capacity of the column, see {@link TableUtils#toHashIndexKey(long, int)}. Unlike the symbol
+ * index, index lookups return a superset of matching rows, so they must be followed by
+ * a filter on the column value.
+ */
+public class HashColumnIndexer implements ColumnIndexer, Mutable {
+
+    private static final long SEQUENCE_OFFSET;
+    private final int bufferSize;
+    private final BitmapIndexWriter writer;
+    private long buffer;
+    private long columnTop;
+    private int columnType;
+    private volatile boolean distressed = false;
+    private int fd = -1;
+    private FilesFacade ff;
+    private int keyCount;
+    @SuppressWarnings({"FieldCanBeLocal", "FieldMayBeFinal"})
+    private volatile long sequence = 0L;
+
+    public HashColumnIndexer(CairoConfiguration configuration) {
+        writer = new BitmapIndexWriter(configuration);
+        bufferSize = 4096 * 1024;
+        buffer = Unsafe.malloc(bufferSize, MemoryTag.NATIVE_INDEX_READER);
+    }
+
+    @Override
+    public void clear() {
+        writer.clear();
+    }
+
+    @Override
+    public void close() {
+        releaseIndexWriter();
+        if (buffer != 0) {
+            fd = -1;
+            Unsafe.free(buffer, bufferSize, MemoryTag.NATIVE_INDEX_READER);
+            buffer = 0;
+        }
+    }
+
+    @Override
+    public void configureFollowerAndWriter(
+            Path path,
+            CharSequence name,
+            long columnNameTxn,
+            MemoryMA columnMem,
+            long columnTop
+    ) {
+        this.columnTop = columnTop;
+        try {
+            this.writer.of(path, name, columnNameTxn);
+            this.ff = columnMem.getFilesFacade();
+            // we don't own the fd, it comes from column mem
+            this.fd = columnMem.getFd();
+        } catch (Throwable e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void configureWriter(Path path, CharSequence name, long columnNameTxn, long columnTop) {
+        this.columnTop = columnTop;
+        try {
+            this.writer.of(path, name, columnNameTxn);
+        } catch (Throwable e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void distress() {
+        distressed = true;
+    }
+
+    @Override
+    public int getFd() {
+        return fd;
+    }
+
+    @Override
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public BitmapIndexWriter getWriter() {
+        return writer;
+    }
+
+    @Override
+    public void index(FilesFacade ff, int dataColumnFd, long loRow, long hiRow) {
+        // while we may have to read column starting with zero offset
+        // index values have to be adjusted to partition-level row id
+        writer.rollbackConditionally(loRow);
+
+        final int shl = ColumnType.pow2SizeOf(columnType);
+        long lo = Math.max(loRow, columnTop);
+        while (lo < hiRow) {
+            long fileOffset = (lo - columnTop) << shl;
+            long bytesToRead = Math.min(bufferSize, (hiRow - lo) << shl);
+            long read = ff.read(dataColumnFd, buffer, bytesToRead, fileOffset);
+            if (read < 1) {
+                throw CairoException.critical(ff.errno()).put("could not read column during indexing [fd=").put(dataColumnFd)
+                        .put(", fileOffset=").put(fileOffset)
+                        .put(", bytesToRead=").put(bytesToRead)
+                        .put(']');
+            }
+            long pHi = buffer + read;
+            if (shl == 2) {
+                for (long p = buffer; p < pHi; p += Integer.BYTES, lo++) {
+                    writer.add(TableUtils.toHashIndexKey(Unsafe.getUnsafe().getInt(p), keyCount), lo);
+                }
+            } else {
+                for (long p = buffer; p < pHi; p += Long.BYTES, lo++) {
+                    writer.add(TableUtils.toHashIndexKey(Unsafe.getUnsafe().getLong(p), keyCount), lo);
+                }
+            }
+        }
+        writer.setMaxValue(hiRow - 1);
+    }
+
+    @Override
+    public boolean isDistressed() {
+        return distressed;
+    }
+
+    public HashColumnIndexer of(int columnType, int keyCount) {
+        assert ColumnType.tagOf(columnType) == ColumnType.INT || ColumnType.tagOf(columnType) == ColumnType.LONG;
+        assert keyCount == Numbers.ceilPow2(keyCount);
+        this.columnType = columnType;
+        this.keyCount = keyCount;
+        return this;
+    }
+
+    @Override
+    public void refreshSourceAndIndex(long loRow, long hiRow) {
+        index(ff, fd, loRow, hiRow);
+    }
+
+    @Override
+    public void releaseIndexWriter() {
+        Misc.free(writer);
+    }
+
+    @Override
+    public void rollback(long maxRow) {
+        this.writer.rollbackValues(maxRow);
+    }
+
+    @Override
+    public void sync(boolean async) {
+        writer.sync(async);
+    }
+
+    @Override
+    public boolean tryLock(long expectedSequence) {
+        return Unsafe.cas(this, SEQUENCE_OFFSET, expectedSequence, expectedSequence + 1);
+    }
+
+    static {
+        SEQUENCE_OFFSET = Unsafe.getFieldOffset(HashColumnIndexer.class, "sequence");
+    }
+}
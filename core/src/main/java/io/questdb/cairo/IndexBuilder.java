@@ -41,12 +41,14 @@ import io.questdb.std.str.Path;
 public class IndexBuilder extends RebuildColumnBase {
     private static final Log LOG = LogFactory.getLog(IndexBuilder.class);
     private final MemoryMAR ddlMem;
+    private final HashColumnIndexer hashIndexer;
     private final SymbolColumnIndexer indexer;
 
     public IndexBuilder(CairoConfiguration configuration) {
         super(configuration);
         ddlMem = Vm.getMARInstance(configuration.getCommitMode());
         indexer = new SymbolColumnIndexer(configuration);
+        hashIndexer = new HashColumnIndexer(configuration);
         unsupportedColumnMessage = "Column is not indexed";
     }
 
@@ -57,12 +59,14 @@ public class IndexBuilder extends RebuildColumnBase {
         // but we reuse Java object after memory is closed (method of() will reopen memory)
         ddlMem.close();
         indexer.clear();
+        hashIndexer.clear();
     }
 
     @Override
     public void close() {
         super.close();
         Misc.free(indexer);
+        Misc.free(hashIndexer);
     }
 
     private void createIndexFiles(FilesFacade ff, CharSequence columnName, int indexValueBlockCapacity, int plen, long columnNameTxn) {
@@ -126,6 +130,7 @@ public class IndexBuilder extends RebuildColumnBase {
             FilesFacade ff,
             ColumnVersionReader columnVersionReader,
             int columnWriterIndex,
+            int columnType,
             CharSequence columnName,
             long partitionNameTxn,
             long partitionSize,
@@ -148,15 +153,17 @@ public class IndexBuilder extends RebuildColumnBase {
 
                     if (partitionSize > columnTop) {
                         LOG.info().$("indexing [path=").$(path).I$();
-                        createIndexFiles(ff, columnName, indexValueBlockCapacity, plen, columnNameTxn);
+                        createIndexFiles(ff, columnName, TableUtils.getIndexValueBlockCapacity(columnType, indexValueBlockCapacity), plen, columnNameTxn);
                         TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn);
                         int columnDataFd = TableUtils.openRO(ff, path, LOG);
+                        final ColumnIndexer columnIndexer = ColumnType.isSymbol(columnType) ? indexer : hashIndexer.of(columnType, indexValueBlockCapacity);
                         try {
-                            indexer.configureWriter(path.trimTo(plen), columnName, columnNameTxn, columnTop);
-                            indexer.index(ff, columnDataFd, columnTop, partitionSize);
+                            columnIndexer.configureWriter(path.trimTo(plen), columnName, columnNameTxn, columnTop);
+                            columnIndexer.index(ff, columnDataFd, columnTop, partitionSize);
                         } finally {
                             ff.close(columnDataFd);
                             indexer.clear();
+                            hashIndexer.clear();
                         }
                     }
                 } else {
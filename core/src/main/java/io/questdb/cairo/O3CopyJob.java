@@ -208,6 +208,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
         copyTail(
                 columnCounter,
                 partCounter,
+                columnType,
                 timestampMergeIndexAddr,
                 timestampMergeIndexSize,
                 srcDataFixFd,
@@ -472,6 +473,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
     private static void copyTail(
             AtomicInteger columnCounter,
             @Nullable AtomicInteger partCounter,
+            int columnType,
             long timestampMergeIndexAddr,
             long timestampMergeIndexSize,
             int srcDataFixFd,
@@ -509,6 +511,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             if (indexBlockCapacity > -1) {
                 updateIndex(
                         columnCounter,
+                        columnType,
                         timestampMergeIndexAddr,
                         timestampMergeIndexSize,
                         srcDataFixFd,
@@ -732,6 +735,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
 
     private static void updateIndex(
             AtomicInteger columnCounter,
+            int columnType,
             long timestampMergeIndexAddr,
             long timestampMergeIndexSize,
             int srcDataFixFd,
@@ -759,13 +763,14 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
     ) {
         // dstKFd & dstVFd are closed by the indexer
         try {
-            long row = dstIndexOffset / Integer.BYTES;
+            final int shl = ColumnType.pow2SizeOf(Math.abs(columnType));
+            long row = dstIndexOffset >> shl;
             boolean closed = !indexWriter.isOpen();
             if (closed) {
-                indexWriter.of(tableWriter.getConfiguration(), dstKFd, dstVFd, row == 0, indexBlockCapacity);
+                indexWriter.of(tableWriter.getConfiguration(), dstKFd, dstVFd, row == 0, TableUtils.getIndexValueBlockCapacity(Math.abs(columnType), indexBlockCapacity));
             }
             try {
-                updateIndex(dstFixAddr, dstFixSize, indexWriter, dstIndexOffset / Integer.BYTES, dstIndexAdjust);
+                updateIndex(columnType, indexBlockCapacity, dstFixAddr, dstFixSize, indexWriter, row, dstIndexAdjust);
                 indexWriter.commit();
             } finally {
                 if (closed) {
@@ -805,11 +810,30 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
         }
     }
 
-    private static void updateIndex(long dstFixAddr, long dstFixSize, BitmapIndexWriter w, long row, long rowAdjust) {
+    private static void updateIndex(int columnType, int indexBlockCapacity, long dstFixAddr, long dstFixSize, BitmapIndexWriter w, long row, long rowAdjust) {
         w.rollbackConditionally(row + rowAdjust);
-        final long count = dstFixSize / Integer.BYTES;
-        for (; row < count; row++) {
-            w.add(TableUtils.toIndexKey(Unsafe.getUnsafe().getInt(dstFixAddr + row * Integer.BYTES)), row + rowAdjust);
+        switch (ColumnType.tagOf(Math.abs(columnType))) {
+            case ColumnType.SYMBOL: {
+                final long count = dstFixSize / Integer.BYTES;
+                for (; row < count; row++) {
+                    w.add(TableUtils.toIndexKey(Unsafe.getUnsafe().getInt(dstFixAddr + row * Integer.BYTES)), row + rowAdjust);
+                }
+                break;
+            }
+            case ColumnType.INT: {
+                final long count = dstFixSize / Integer.BYTES;
+                for (; row < count; row++) {
+                    w.add(TableUtils.toHashIndexKey(Unsafe.getUnsafe().getInt(dstFixAddr + row * Integer.BYTES), indexBlockCapacity), row + rowAdjust);
+                }
+                break;
+            }
+            default: {
+                final long count = dstFixSize / Long.BYTES;
+                for (; row < count; row++) {
+                    w.add(TableUtils.toHashIndexKey(Unsafe.getUnsafe().getLong(dstFixAddr + row * Long.BYTES), indexBlockCapacity), row + rowAdjust);
+                }
+                break;
+            }
         }
         w.setMaxValue(row + rowAdjust);
     }
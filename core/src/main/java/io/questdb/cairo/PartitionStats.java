@@ -0,0 +1,539 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+/**
+ * Min/max values and null counts of fixed-size numeric columns in a single partition.
+ * <p>
+ * Statistics are stored in the {@link TableUtils#PARTITION_STATS_FILE_NAME} file inside
+ * the partition directory. The file starts with the column count, followed by one
+ * {@link #ENTRY_SIZE} entry per writer column index:
+ * <pre>
+ * rowCount | columnNameTxn | columnTop | columnType | min | max | nullCount | reserved
+ * </pre>
+ * An entry describes the first rowCount rows of the column version identified by
+ * columnNameTxn and columnTop. Readers must only trust an entry when all three
+ * match their view of the partition. Min and max of FLOAT and DOUBLE columns are
+ * stored as double bits, for other types they are stored as longs. Min and max are
+ * undefined when all rows are null.
+ * <p>
+ * Entries are followed by block statistics of each column in writer column index order.
+ * A column with rowCount rows has ceil(rowCount / {@link #BLOCK_ROW_COUNT}) blocks of
+ * {@link #BLOCK_SIZE} bytes, each describing {@link #BLOCK_ROW_COUNT} consecutive rows
+ * of the partition:
+ * <pre>
+ * min | max | nullCount
+ * </pre>
+ * Block statistics let readers skip page frames, rather than whole partitions.
+ * <p>
+ * The file is written to a temporary file first and then renamed, so that readers
+ * always observe a complete set of entries.
+ */
+public class PartitionStats implements QuietCloseable {
+    public static final int BLOCK_ROW_COUNT_SHIFT = 16;
+    public static final long BLOCK_ROW_COUNT = 1L << BLOCK_ROW_COUNT_SHIFT;
+    public static final int BLOCK_SIZE = 3 * Long.BYTES;
+    public static final int ENTRY_SIZE = 8 * Long.BYTES;
+    public static final int HEADER_SIZE = Long.BYTES;
+    private static final int BLOCK_LONGS = 3;
+    private static final int COLUMN_NAME_TXN_OFFSET = 1;
+    private static final int COLUMN_TOP_OFFSET = 2;
+    private static final int COLUMN_TYPE_OFFSET = 3;
+    private static final int ENTRY_LONGS = 8;
+    private static final Log LOG = LogFactory.getLog(PartitionStats.class);
+    private static final int MAX_OFFSET = 5;
+    private static final int MIN_OFFSET = 4;
+    private static final int NULL_COUNT_OFFSET = 6;
+    private static final int ROW_COUNT_OFFSET = 0;
+    private final ObjList<LongList> columnBlocks = new ObjList<>();
+    private final LongList entries = new LongList();
+    private final Path tmpPath = new Path();
+    private long bufAddr;
+    private long bufSize;
+    private long partitionNameTxn = -1;
+    private long partitionTimestamp = Long.MIN_VALUE;
+    // min and max bits and null count of the last scanned slice of rows
+    private long sliceMax;
+    private long sliceMin;
+    private long sliceNullCount;
+
+    public static long getBlockCount(long rowCount) {
+        return rowCount < 1 ? 0 : ((rowCount - 1) >> BLOCK_ROW_COUNT_SHIFT) + 1;
+    }
+
+    public static boolean isFloatingPoint(int columnType) {
+        final short tag = ColumnType.tagOf(columnType);
+        return tag == ColumnType.FLOAT || tag == ColumnType.DOUBLE;
+    }
+
+    public static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (bufAddr != 0) {
+            bufAddr = Unsafe.free(bufAddr, bufSize, MemoryTag.NATIVE_DEFAULT);
+            bufSize = 0;
+        }
+        entries.clear();
+        clearBlocks();
+        invalidate();
+        Misc.free(tmpPath);
+    }
+
+    public double getBlockMaxDouble(int columnIndex, int blockIndex) {
+        return Double.longBitsToDouble(getBlockMaxLong(columnIndex, blockIndex));
+    }
+
+    public long getBlockMaxLong(int columnIndex, int blockIndex) {
+        return columnBlocks.getQuick(columnIndex).getQuick(blockIndex * BLOCK_LONGS + 1);
+    }
+
+    public double getBlockMinDouble(int columnIndex, int blockIndex) {
+        return Double.longBitsToDouble(getBlockMinLong(columnIndex, blockIndex));
+    }
+
+    public long getBlockMinLong(int columnIndex, int blockIndex) {
+        return columnBlocks.getQuick(columnIndex).getQuick(blockIndex * BLOCK_LONGS);
+    }
+
+    public long getBlockNullCount(int columnIndex, int blockIndex) {
+        return columnBlocks.getQuick(columnIndex).getQuick(blockIndex * BLOCK_LONGS + 2);
+    }
+
+    public int getColumnCount() {
+        return entries.size() / ENTRY_LONGS;
+    }
+
+    public double getMaxDouble(int columnIndex) {
+        return Double.longBitsToDouble(getMaxLong(columnIndex));
+    }
+
+    public long getMaxLong(int columnIndex) {
+        return entries.getQuick(columnIndex * ENTRY_LONGS + MAX_OFFSET);
+    }
+
+    public double getMinDouble(int columnIndex) {
+        return Double.longBitsToDouble(getMinLong(columnIndex));
+    }
+
+    public long getMinLong(int columnIndex) {
+        return entries.getQuick(columnIndex * ENTRY_LONGS + MIN_OFFSET);
+    }
+
+    public long getNullCount(int columnIndex) {
+        return entries.getQuick(columnIndex * ENTRY_LONGS + NULL_COUNT_OFFSET);
+    }
+
+    public long getRowCount(int columnIndex) {
+        return entries.getQuick(columnIndex * ENTRY_LONGS + ROW_COUNT_OFFSET);
+    }
+
+    /**
+     * Drops the in-memory identity of the partition, so that the next {@link #of(long, long, int, boolean)}
+     * call starts from scratch.
+     */
+    public void invalidate() {
+        partitionTimestamp = Long.MIN_VALUE;
+        partitionNameTxn = -1;
+    }
+
+    /**
+     * Checks that the entry describes exactly rowCount rows of the given column version.
+     */
+    public boolean isValid(int columnIndex, int columnType, long columnNameTxn, long columnTop, long rowCount) {
+        if (columnIndex >= getColumnCount()) {
+            return false;
+        }
+        final int base = columnIndex * ENTRY_LONGS;
+        return entries.getQuick(base + ROW_COUNT_OFFSET) == rowCount
+                && entries.getQuick(base + COLUMN_NAME_TXN_OFFSET) == columnNameTxn
+                && entries.getQuick(base + COLUMN_TOP_OFFSET) == columnTop
+                && entries.getQuick(base + COLUMN_TYPE_OFFSET) == columnType;
+    }
+
+    /**
+     * Prepares the instance to collect statistics for the given partition version. Entries
+     * accumulated for the same partition version are kept unless reset is requested, which
+     * allows the writer to extend them with newly appended rows.
+     */
+    public void of(long partitionTimestamp, long partitionNameTxn, int columnCount, boolean reset) {
+        if (reset || this.partitionTimestamp != partitionTimestamp || this.partitionNameTxn != partitionNameTxn) {
+            entries.clear();
+            clearBlocks();
+            this.partitionTimestamp = partitionTimestamp;
+            this.partitionNameTxn = partitionNameTxn;
+        }
+        for (int i = getColumnCount(); i < columnCount; i++) {
+            entries.add(-1, -1, -1, ColumnType.UNDEFINED, 0, 0, 0, 0);
+            getBlocks(i).clear();
+        }
+    }
+
+    /**
+     * Reads statistics from the partition directory.
+     *
+     * @param ff   files facade
+     * @param path path to the partition directory, it is restored before the method returns
+     * @return false when the file is missing or malformed
+     */
+    public boolean read(FilesFacade ff, Path path) {
+        invalidate();
+        entries.clear();
+        clearBlocks();
+        final int plen = path.size();
+        final int fd = ff.openRO(path.concat(TableUtils.PARTITION_STATS_FILE_NAME).$());
+        path.trimTo(plen);
+        if (fd < 0) {
+            return false;
+        }
+        try {
+            final long fileSize = ff.length(fd);
+            if (fileSize < HEADER_SIZE) {
+                return false;
+            }
+            ensureBuffer(fileSize);
+            if (ff.read(fd, bufAddr, fileSize, 0) != fileSize) {
+                return false;
+            }
+            final long columnCount = Unsafe.getUnsafe().getLong(bufAddr);
+            if (columnCount < 0 || columnCount > (fileSize - HEADER_SIZE) / ENTRY_SIZE) {
+                return false;
+            }
+            final long entriesSize = HEADER_SIZE + columnCount * ENTRY_SIZE;
+            long blocksSize = 0;
+            for (int i = 0; i < columnCount; i++) {
+                blocksSize += getBlockCount(Unsafe.getUnsafe().getLong(bufAddr + HEADER_SIZE + (long) i * ENTRY_SIZE)) * BLOCK_SIZE;
+            }
+            if (entriesSize + blocksSize != fileSize) {
+                return false;
+            }
+            for (long p = bufAddr + HEADER_SIZE, lim = bufAddr + entriesSize; p < lim; p += Long.BYTES) {
+                entries.add(Unsafe.getUnsafe().getLong(p));
+            }
+            long p = bufAddr + entriesSize;
+            for (int i = 0; i < columnCount; i++) {
+                final LongList blocks = getBlocks(i);
+                for (long lim = p + getBlockCount(getRowCount(i)) * BLOCK_SIZE; p < lim; p += Long.BYTES) {
+                    blocks.add(Unsafe.getUnsafe().getLong(p));
+                }
+            }
+            return true;
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    /**
+     * Brings the column entry up to date with rowCount rows of the partition. When the entry
+     * already describes a prefix of the same column version, only the remaining rows are
+     * scanned, otherwise the entry is rebuilt from the first row.
+     *
+     * @param path      path to the partition directory, it is restored before the method returns
+     * @param columnTop column top in the partition or -1 when the column does not exist in the partition
+     * @param rowCount  number of committed rows in the partition
+     */
+    public void update(
+            FilesFacade ff,
+            Path path,
+            CharSequence columnName,
+            int columnIndex,
+            int columnType,
+            long columnNameTxn,
+            long columnTop,
+            long rowCount
+    ) {
+        final int base = columnIndex * ENTRY_LONGS;
+        final LongList blocks = columnBlocks.getQuick(columnIndex);
+        long lo = entries.getQuick(base + ROW_COUNT_OFFSET);
+        if (lo < 0
+                || lo > rowCount
+                || entries.getQuick(base + COLUMN_NAME_TXN_OFFSET) != columnNameTxn
+                || entries.getQuick(base + COLUMN_TOP_OFFSET) != columnTop
+                || entries.getQuick(base + COLUMN_TYPE_OFFSET) != columnType
+        ) {
+            lo = 0;
+            // the entry stays invalid until the scan below completes
+            entries.setQuick(base + ROW_COUNT_OFFSET, -1);
+            entries.setQuick(base + COLUMN_NAME_TXN_OFFSET, columnNameTxn);
+            entries.setQuick(base + COLUMN_TOP_OFFSET, columnTop);
+            entries.setQuick(base + COLUMN_TYPE_OFFSET, columnType);
+            resetStats(entries, base + MIN_OFFSET, columnType);
+            blocks.clear();
+        }
+
+        if (lo == rowCount) {
+            return;
+        }
+
+        // rows before the column top read as nulls, which are zeroes for BYTE and SHORT
+        final long top = columnTop < 0 ? rowCount : Math.min(columnTop, rowCount);
+        final int shl = ColumnType.pow2SizeOf(columnType);
+        final long mapSize = (rowCount - top) << shl;
+        int fd = -1;
+        long addr = 0;
+        try {
+            if (top < rowCount) {
+                final int plen = path.size();
+                try {
+                    fd = TableUtils.openRO(ff, TableUtils.dFile(path, columnName, columnNameTxn), LOG);
+                } finally {
+                    path.trimTo(plen);
+                }
+                if (ff.length(fd) < mapSize) {
+                    throw CairoException.critical(0).put("column file is shorter than partition [column=").put(columnName)
+                            .put(", expectedSize=").put(mapSize)
+                            .put(", actualSize=").put(ff.length(fd))
+                            .put(']');
+                }
+                addr = TableUtils.mapRO(ff, fd, mapSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+
+            // the last block of the previous update is extended, further blocks are appended
+            while (lo < rowCount) {
+                final int blockBase = (int) (lo >> BLOCK_ROW_COUNT_SHIFT) * BLOCK_LONGS;
+                final long hi = Math.min(rowCount, ((lo >> BLOCK_ROW_COUNT_SHIFT) + 1) << BLOCK_ROW_COUNT_SHIFT);
+                if (blockBase == blocks.size()) {
+                    blocks.extendAndSet(blockBase + BLOCK_LONGS - 1, 0);
+                    resetStats(blocks, blockBase, columnType);
+                }
+                if (lo < top) {
+                    scanTop(columnType, Math.min(hi, top) - lo);
+                    acceptSlice(base, blocks, blockBase, columnType);
+                }
+                if (hi > top) {
+                    final long sliceLo = Math.max(lo, top);
+                    scanColumn(columnType, addr + ((sliceLo - top) << shl), hi - sliceLo);
+                    acceptSlice(base, blocks, blockBase, columnType);
+                }
+                lo = hi;
+            }
+        } finally {
+            if (addr != 0) {
+                ff.munmap(addr, mapSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+            if (fd > -1) {
+                ff.close(fd);
+            }
+        }
+        entries.setQuick(base + ROW_COUNT_OFFSET, rowCount);
+    }
+
+    /**
+     * Writes entries of the given number of columns to the partition directory.
+     *
+     * @param path path to the partition directory, it is restored before the method returns
+     */
+    public void write(FilesFacade ff, Path path, int columnCount) {
+        final long entriesSize = HEADER_SIZE + (long) columnCount * ENTRY_SIZE;
+        long fileSize = entriesSize;
+        for (int i = 0; i < columnCount; i++) {
+            fileSize += getBlockCount(getRowCount(i)) * BLOCK_SIZE;
+        }
+        ensureBuffer(fileSize);
+        Unsafe.getUnsafe().putLong(bufAddr, columnCount);
+        for (int i = 0, n = columnCount * ENTRY_LONGS; i < n; i++) {
+            Unsafe.getUnsafe().putLong(bufAddr + HEADER_SIZE + (long) i * Long.BYTES, entries.getQuick(i));
+        }
+        long p = bufAddr + entriesSize;
+        for (int i = 0; i < columnCount; i++) {
+            final LongList blocks = columnBlocks.getQuick(i);
+            for (int j = 0, n = (int) getBlockCount(getRowCount(i)) * BLOCK_LONGS; j < n; j++, p += Long.BYTES) {
+                Unsafe.getUnsafe().putLong(p, blocks.getQuick(j));
+            }
+        }
+
+        tmpPath.of(path).concat(TableUtils.PARTITION_STATS_FILE_NAME).put(".tmp");
+        final int fd = TableUtils.openRW(ff, tmpPath.$(), LOG, CairoConfiguration.O_NONE);
+        try {
+            if (ff.write(fd, bufAddr, fileSize, 0) != fileSize || !ff.truncate(fd, fileSize)) {
+                throw CairoException.critical(ff.errno()).put("could not write [file=").put(tmpPath).put(']');
+            }
+        } finally {
+            ff.close(fd);
+        }
+
+        final int plen = path.size();
+        try {
+            if (ff.rename(tmpPath.$(), path.concat(TableUtils.PARTITION_STATS_FILE_NAME).$()) != Files.FILES_RENAME_OK) {
+                throw CairoException.critical(ff.errno()).put("could not rename [from=").put(tmpPath).put(", to=").put(path).put(']');
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    private static void acceptSlice(LongList stats, int minIndex, int columnType, long min, long max, long nullCount) {
+        if (isFloatingPoint(columnType)) {
+            stats.setQuick(minIndex, Double.doubleToRawLongBits(Math.min(Double.longBitsToDouble(stats.getQuick(minIndex)), Double.longBitsToDouble(min))));
+            stats.setQuick(minIndex + 1, Double.doubleToRawLongBits(Math.max(Double.longBitsToDouble(stats.getQuick(minIndex + 1)), Double.longBitsToDouble(max))));
+        } else {
+            stats.setQuick(minIndex, Math.min(stats.getQuick(minIndex), min));
+            stats.setQuick(minIndex + 1, Math.max(stats.getQuick(minIndex + 1), max));
+        }
+        stats.setQuick(minIndex + 2, stats.getQuick(minIndex + 2) + nullCount);
+    }
+
+    // min, max and null count are stored next to each other, both in entries and in blocks
+    private static void resetStats(LongList stats, int minIndex, int columnType) {
+        if (isFloatingPoint(columnType)) {
+            stats.setQuick(minIndex, Double.doubleToRawLongBits(Double.POSITIVE_INFINITY));
+            stats.setQuick(minIndex + 1, Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY));
+        } else {
+            stats.setQuick(minIndex, Long.MAX_VALUE);
+            stats.setQuick(minIndex + 1, Long.MIN_VALUE);
+        }
+        stats.setQuick(minIndex + 2, 0);
+    }
+
+    private void acceptSlice(int base, LongList blocks, int blockBase, int columnType) {
+        acceptSlice(entries, base + MIN_OFFSET, columnType, sliceMin, sliceMax, sliceNullCount);
+        acceptSlice(blocks, blockBase, columnType, sliceMin, sliceMax, sliceNullCount);
+    }
+
+    private void clearBlocks() {
+        for (int i = 0, n = columnBlocks.size(); i < n; i++) {
+            columnBlocks.getQuick(i).clear();
+        }
+    }
+
+    private void ensureBuffer(long size) {
+        if (size > bufSize) {
+            bufAddr = Unsafe.realloc(bufAddr, bufSize, size, MemoryTag.NATIVE_DEFAULT);
+            bufSize = size;
+        }
+    }
+
+    private LongList getBlocks(int columnIndex) {
+        LongList blocks = columnBlocks.getQuiet(columnIndex);
+        if (blocks == null) {
+            blocks = new LongList();
+            columnBlocks.extendAndSet(columnIndex, blocks);
+        }
+        return blocks;
+    }
+
+    private void scanColumn(int columnType, long lo, long count) {
+        sliceNullCount = 0;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE: {
+                long min = Byte.MAX_VALUE;
+                long max = Byte.MIN_VALUE;
+                for (long p = lo, lim = lo + count; p < lim; p++) {
+                    final byte v = Unsafe.getUnsafe().getByte(p);
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+                sliceMin = min;
+                sliceMax = max;
+                break;
+            }
+            case ColumnType.SHORT:
+                sliceMin = Vect.minShort(lo, count);
+                sliceMax = Vect.maxShort(lo, count);
+                break;
+            case ColumnType.INT: {
+                final long nonNullCount = Vect.countInt(lo, count);
+                sliceMin = nonNullCount > 0 ? Vect.minInt(lo, count) : Long.MAX_VALUE;
+                sliceMax = nonNullCount > 0 ? Vect.maxInt(lo, count) : Long.MIN_VALUE;
+                sliceNullCount = count - nonNullCount;
+                break;
+            }
+            case ColumnType.FLOAT: {
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                long nullCount = 0;
+                for (long p = lo, lim = lo + (count << 2); p < lim; p += Float.BYTES) {
+                    final float v = Unsafe.getUnsafe().getFloat(p);
+                    if (v != v) {
+                        nullCount++;
+                    } else {
+                        min = Math.min(min, v);
+                        max = Math.max(max, v);
+                    }
+                }
+                sliceMin = Double.doubleToRawLongBits(min);
+                sliceMax = Double.doubleToRawLongBits(max);
+                sliceNullCount = nullCount;
+                break;
+            }
+            case ColumnType.DOUBLE: {
+                final long nonNullCount = Vect.countDouble(lo, count);
+                sliceMin = Double.doubleToRawLongBits(nonNullCount > 0 ? Vect.minDouble(lo, count) : Double.POSITIVE_INFINITY);
+                sliceMax = Double.doubleToRawLongBits(nonNullCount > 0 ? Vect.maxDouble(lo, count) : Double.NEGATIVE_INFINITY);
+                sliceNullCount = count - nonNullCount;
+                break;
+            }
+            default: {
+                // LONG, DATE and TIMESTAMP
+                final long nonNullCount = Vect.countLong(lo, count);
+                sliceMin = nonNullCount > 0 ? Vect.minLong(lo, count) : Long.MAX_VALUE;
+                sliceMax = nonNullCount > 0 ? Vect.maxLong(lo, count) : Long.MIN_VALUE;
+                sliceNullCount = count - nonNullCount;
+                break;
+            }
+        }
+    }
+
+    private void scanTop(int columnType, long count) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+                sliceMin = 0;
+                sliceMax = 0;
+                sliceNullCount = 0;
+                break;
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                sliceMin = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+                sliceMax = Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+                sliceNullCount = count;
+                break;
+            default:
+                sliceMin = Long.MAX_VALUE;
+                sliceMax = Long.MIN_VALUE;
+                sliceNullCount = count;
+                break;
+        }
+    }
+}
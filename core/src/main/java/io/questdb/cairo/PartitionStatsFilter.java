@@ -0,0 +1,259 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+/**
+ * Conjunction of "column op constant" predicates that is checked against {@link PartitionStats}
+ * of a partition before the partition is opened. A partition is skipped when min/max
+ * statistics prove that no row of the partition satisfies at least one of the predicates.
+ * Block statistics are checked the same way for row ranges of a partition, which lets
+ * page frame cursors skip frames of partitions that cannot be skipped as a whole.
+ * <p>
+ * Predicates must mirror the SQL comparison semantics: a null never satisfies a comparison
+ * with a non-null constant and floating point equality tolerates {@link Numbers#DOUBLE_TOLERANCE}.
+ */
+public class PartitionStatsFilter implements QuietCloseable {
+    public static final int OP_EQ = 0;
+    public static final int OP_GE = 1;
+    public static final int OP_GT = 2;
+    public static final int OP_LE = 3;
+    public static final int OP_LT = 4;
+    private final IntList columnTypes = new IntList();
+    private final DoubleList doubleValues = new DoubleList();
+    private final FilesFacade ff;
+    private final IntList floatingPointFlags = new IntList();
+    private final LongList longValues = new LongList();
+    private final IntList ops = new IntList();
+    private final Path path = new Path();
+    private final CharSequence root;
+    private final PartitionStats stats = new PartitionStats();
+    private final IntList validPredicates = new IntList();
+    private final IntList writerIndexes = new IntList();
+    // identity of the partition version held by stats, statistics are read once per partition
+    private long statsPartitionNameTxn = -1;
+    private long statsPartitionTimestamp = Long.MIN_VALUE;
+    private long statsRowCount = -1;
+    private TableToken statsTableToken;
+
+    public PartitionStatsFilter(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+    }
+
+    public void add(int writerIndex, int columnType, int op, long value) {
+        writerIndexes.add(writerIndex);
+        columnTypes.add(columnType);
+        ops.add(op);
+        floatingPointFlags.add(0);
+        longValues.add(value);
+        doubleValues.add(value);
+    }
+
+    public void add(int writerIndex, int columnType, int op, double value) {
+        writerIndexes.add(writerIndex);
+        columnTypes.add(columnType);
+        ops.add(op);
+        floatingPointFlags.add(1);
+        longValues.add(0);
+        doubleValues.add(value);
+    }
+
+    /**
+     * @return true when statistics of the partition prove that none of its rows satisfy the filter.
+     * The partition is not opened by this method.
+     */
+    public boolean canSkip(TableReader reader, int partitionIndex) {
+        if (!readStats(reader, partitionIndex)) {
+            return false;
+        }
+        for (int i = 0, n = ops.size(); i < n; i++) {
+            final int writerIndex = writerIndexes.getQuick(i);
+            if (
+                    isValid(reader, i)
+                            && cannotMatch(
+                            i,
+                            stats.getMinLong(writerIndex),
+                            stats.getMaxLong(writerIndex),
+                            stats.getNullCount(writerIndex),
+                            statsRowCount
+                    )
+            ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true when block statistics prove that none of the partition rows in the
+     * [rowLo, rowHi) range satisfy the filter. Each block overlapping the range has to be
+     * ruled out by at least one of the predicates.
+     */
+    public boolean canSkip(TableReader reader, int partitionIndex, long rowLo, long rowHi) {
+        if (rowLo >= rowHi || !readStats(reader, partitionIndex) || rowHi > statsRowCount) {
+            return false;
+        }
+        validPredicates.clear();
+        for (int i = 0, n = ops.size(); i < n; i++) {
+            if (isValid(reader, i)) {
+                validPredicates.add(i);
+            }
+        }
+        if (validPredicates.size() == 0) {
+            return false;
+        }
+
+        final int blockLo = (int) (rowLo >> PartitionStats.BLOCK_ROW_COUNT_SHIFT);
+        final int blockHi = (int) ((rowHi - 1) >> PartitionStats.BLOCK_ROW_COUNT_SHIFT);
+        for (int b = blockLo; b <= blockHi; b++) {
+            final long blockRowCount = Math.min(statsRowCount, (long) (b + 1) << PartitionStats.BLOCK_ROW_COUNT_SHIFT)
+                    - ((long) b << PartitionStats.BLOCK_ROW_COUNT_SHIFT);
+            boolean blockSkipped = false;
+            for (int i = 0, n = validPredicates.size(); i < n && !blockSkipped; i++) {
+                final int predicateIndex = validPredicates.getQuick(i);
+                final int writerIndex = writerIndexes.getQuick(predicateIndex);
+                blockSkipped = cannotMatch(
+                        predicateIndex,
+                        stats.getBlockMinLong(writerIndex, b),
+                        stats.getBlockMaxLong(writerIndex, b),
+                        stats.getBlockNullCount(writerIndex, b),
+                        blockRowCount
+                );
+            }
+            if (!blockSkipped) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(path);
+        Misc.free(stats);
+    }
+
+    public int size() {
+        return ops.size();
+    }
+
+    /**
+     * @param min min value, double bits for FLOAT and DOUBLE columns
+     * @param max max value, double bits for FLOAT and DOUBLE columns
+     */
+    private boolean cannotMatch(int predicateIndex, long min, long max, long nullCount, long rowCount) {
+        if (nullCount >= rowCount) {
+            // nulls do not satisfy comparisons with non-null constants
+            return true;
+        }
+
+        final int columnType = columnTypes.getQuick(predicateIndex);
+        if (floatingPointFlags.getQuick(predicateIndex) == 0 && !PartitionStats.isFloatingPoint(columnType)) {
+            final long value = longValues.getQuick(predicateIndex);
+            switch (ops.getQuick(predicateIndex)) {
+                case OP_EQ:
+                    return value < min || value > max;
+                case OP_GE:
+                    return max < value;
+                case OP_GT:
+                    return max <= value;
+                case OP_LE:
+                    return min > value;
+                default:
+                    return min >= value;
+            }
+        }
+
+        final double minValue;
+        final double maxValue;
+        if (PartitionStats.isFloatingPoint(columnType)) {
+            minValue = Double.longBitsToDouble(min);
+            maxValue = Double.longBitsToDouble(max);
+        } else {
+            minValue = min;
+            maxValue = max;
+        }
+        final double value = doubleValues.getQuick(predicateIndex);
+        // values within tolerance of the constant compare as equal
+        switch (ops.getQuick(predicateIndex)) {
+            case OP_EQ:
+                return minValue - value > Numbers.DOUBLE_TOLERANCE || value - maxValue > Numbers.DOUBLE_TOLERANCE;
+            case OP_GE:
+                return value - maxValue > Numbers.DOUBLE_TOLERANCE;
+            case OP_GT:
+                return maxValue <= value;
+            case OP_LE:
+                return minValue - value > Numbers.DOUBLE_TOLERANCE;
+            default:
+                return minValue >= value;
+        }
+    }
+
+    private boolean isValid(TableReader reader, int predicateIndex) {
+        final ColumnVersionReader columnVersionReader = reader.getColumnVersionReader();
+        final int writerIndex = writerIndexes.getQuick(predicateIndex);
+        return stats.isValid(
+                writerIndex,
+                columnTypes.getQuick(predicateIndex),
+                columnVersionReader.getColumnNameTxn(statsPartitionTimestamp, writerIndex),
+                columnVersionReader.getColumnTop(statsPartitionTimestamp, writerIndex),
+                statsRowCount
+        );
+    }
+
+    private boolean readStats(TableReader reader, int partitionIndex) {
+        final TxReader txFile = reader.getTxFile();
+        final long rowCount = txFile.getPartitionSize(partitionIndex);
+        if (rowCount < 1) {
+            return false;
+        }
+
+        final long partitionTimestamp = txFile.getPartitionTimestampByIndex(partitionIndex);
+        final long partitionNameTxn = txFile.getPartitionNameTxn(partitionIndex);
+        if (
+                statsPartitionTimestamp == partitionTimestamp
+                        && statsPartitionNameTxn == partitionNameTxn
+                        && statsRowCount == rowCount
+                        && reader.getTableToken().equals(statsTableToken)
+        ) {
+            return true;
+        }
+
+        statsTableToken = null;
+        path.of(root).concat(reader.getTableToken());
+        TableUtils.setPathForPartition(path, reader.getPartitionedBy(), partitionTimestamp, partitionNameTxn);
+        if (!stats.read(ff, path)) {
+            return false;
+        }
+        statsTableToken = reader.getTableToken();
+        statsPartitionTimestamp = partitionTimestamp;
+        statsPartitionNameTxn = partitionNameTxn;
+        statsRowCount = rowCount;
+        return true;
+    }
+}
@@ -126,6 +126,7 @@ public abstract class RebuildColumnBase implements Closeable, Mutable {
                 // this may not be needed, because table writer's column index is the same
                 // as metadata writers' index.
                 columnIndex,
+                metadata.getColumnType(columnIndex),
                 columnName,
                 partitionNameTxn,
                 partitionSize,
@@ -161,6 +162,7 @@ public abstract class RebuildColumnBase implements Closeable, Mutable {
                 ff,
                 columnVersionReader,
                 metadata.getWriterIndex(columnIndex),
+                metadata.getColumnType(columnIndex),
                 metadata.getColumnName(columnIndex),
                 partitionNameTxn,
                 partitionSize,
@@ -352,6 +354,7 @@ public abstract class RebuildColumnBase implements Closeable, Mutable {
             FilesFacade ff,
             ColumnVersionReader columnVersionReader,
             int columnWriterIndex,
+            int columnType,
             CharSequence columnName,
             long partitionNameTxn,
             long partitionSize,
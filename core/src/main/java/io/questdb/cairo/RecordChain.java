@@ -150,6 +150,13 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         return recordB;
     }
 
+    /**
+     * Returns number of bytes taken by the records appended so far.
+     */
+    public long getUsedHeapSize() {
+        return varAppendOffset;
+    }
+
     @Override
     public boolean hasNext() {
         if (nextRecordOffset != -1) {
@@ -161,6 +168,14 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         return false;
     }
 
+    /**
+     * Returns a new record instance that can be positioned with {@link #recordAt(Record, long)}.
+     * Records over fixed-size columns can be read by multiple threads as long as nothing is appended to the chain.
+     */
+    public Record newRecord() {
+        return new RecordChainRecord();
+    }
+
     public void of(long nextRecordOffset) {
         this.nextRecordOffset = nextRecordOffset;
     }
@@ -484,12 +499,19 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
 
         @Override
         public CharSequence getSymA(int col) {
-            return symbolTableResolver.getSymbolTable(col).valueOf(getInt(col));
+            if (symbolTableResolver != null) {
+                return symbolTableResolver.getSymbolTable(col).valueOf(getInt(col));
+            }
+            // without resolver the symbol was copied as string
+            return getStrA(col);
         }
 
         @Override
         public CharSequence getSymB(int col) {
-            return symbolTableResolver.getSymbolTable(col).valueBOf(getInt(col));
+            if (symbolTableResolver != null) {
+                return symbolTableResolver.getSymbolTable(col).valueBOf(getInt(col));
+            }
+            return getStrB(col);
         }
 
         @Override
@@ -46,6 +46,7 @@ public class RecoverVarIndex extends RebuildColumnBase {
             FilesFacade ff,
             ColumnVersionReader columnVersionReader,
             int columnWriterIndex,
+            int columnType,
             CharSequence columnName,
 
             long partitionNameTxn,
@@ -123,6 +123,15 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
         return SymbolTable.VALUE_IS_NULL;
     }
 
+    /**
+     * @return true when writer has rehashed symbols into new files, and these files
+     * will no longer grow. Reader should be reopened with the new column name txn
+     * to see symbols added after the rehash.
+     */
+    public boolean isSealed() {
+        return offsetMem.getInt(SymbolMapWriter.HEADER_SEALED_COUNT) > 0;
+    }
+
     public boolean needsReopen(long columnNameTxn) {
         return this.columnNameTxn != columnNameTxn;
     }
@@ -195,6 +204,12 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
 
     @Override
     public void updateSymbolCount(int symbolCount) {
+        // writer could have rehashed symbols into new files, these files don't grow past the sealed count
+        // and could have been already purged, so we must not reopen them by name
+        final boolean sealed = isSealed();
+        if (sealed) {
+            symbolCount = Math.min(symbolCount, offsetMem.getInt(SymbolMapWriter.HEADER_SEALED_COUNT));
+        }
         if (symbolCount > this.symbolCount) {
             this.symbolCount = symbolCount;
             this.maxOffset = SymbolMapWriter.keyToOffset(symbolCount);
@@ -208,7 +223,11 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
             this.symbolCount = symbolCount;
         }
         // Refresh index reader to avoid memory remapping on keyOf() calls.
-        this.indexReader.of(configuration, path, columnNameSink, columnNameTxn, 0);
+        if (sealed) {
+            this.indexReader.growToFileSize();
+        } else {
+            this.indexReader.of(configuration, path, columnNameSink, columnNameTxn, 0);
+        }
     }
 
     @Override
@@ -44,6 +44,8 @@ public class SymbolMapWriter implements Closeable, MapWriter {
     public static final int HEADER_CACHE_ENABLED = 4;
     public static final int HEADER_CAPACITY = 0;
     public static final int HEADER_NULL_FLAG = 8;
+    // symbol count at which the files were superseded by rehashed copy, 0 while the files are live
+    public static final int HEADER_SEALED_COUNT = 12;
     public static final int HEADER_SIZE = 64;
     private static final Log LOG = LogFactory.getLog(SymbolMapWriter.class);
     private final CharSequenceIntHashMap cache;
@@ -99,6 +101,10 @@ public class SymbolMapWriter implements Closeable, MapWriter {
             assert symbolCapacity > 0;
             final boolean useCache = offsetMem.getBool(HEADER_CACHE_ENABLED);
             this.offsetMem.jumpTo(keyToOffset(symbolCount) + Long.BYTES);
+            // the files could have been sealed by rehash that was never committed
+            if (offsetMem.getInt(HEADER_SEALED_COUNT) != 0) {
+                offsetMem.putInt(HEADER_SEALED_COUNT, 0);
+            }
 
             // index writer is used to identify attempts to store duplicate symbol value
             // symbol table index stores int keys and long values, e.g. value = key * 2 storage size
@@ -237,6 +243,14 @@ public class SymbolMapWriter implements Closeable, MapWriter {
         }
     }
 
+    /**
+     * Marks the files as superseded by rehashed copy. Readers that still use these files
+     * don't look past the sealed symbol count, symbols added later go to the new files only.
+     */
+    public void seal() {
+        offsetMem.putInt(HEADER_SEALED_COUNT, getSymbolCount());
+    }
+
     @Override
     public void setSymbolIndexInTxWriter(int symbolIndexInTxWriter) {
         this.symbolIndexInTxWriter = symbolIndexInTxWriter;
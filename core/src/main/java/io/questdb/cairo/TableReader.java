@@ -25,6 +25,9 @@
 package io.questdb.cairo;
 
 import io.questdb.MessageBus;
+import io.questdb.cairo.compress.ColumnCompressor;
+import io.questdb.cairo.compress.DecompressedMemoryCMR;
+import io.questdb.cairo.compress.DecompressionBufferPool;
 import io.questdb.cairo.sql.StaticSymbolTable;
 import io.questdb.cairo.sql.SymbolTableSource;
 import io.questdb.cairo.vm.NullMemoryMR;
@@ -55,11 +58,14 @@ public class TableReader implements Closeable, SymbolTableSource {
     private final MillisecondClock clock;
     private final ColumnVersionReader columnVersionReader;
     private final CairoConfiguration configuration;
+    private final DecompressionBufferPool.Owner decompressionBufferOwner = new DecompressionBufferPool.Owner();
+    private final DecompressionBufferPool decompressionBufferPool;
     private final FilesFacade ff;
     private final int maxOpenPartitions;
     private final MessageBus messageBus;
     private final TableReaderMetadata metadata;
     private final LongList openPartitionInfo;
+    private final boolean ownsDecompressionBufferPool;
     private final int partitionBy;
     private final Path path;
     private final TableReaderRecordCursor recordCursor = new TableReaderRecordCursor();
@@ -92,6 +98,15 @@ public class TableReader implements Closeable, SymbolTableSource {
             CairoConfiguration configuration,
             TableToken tableToken,
             @Nullable MessageBus messageBus
+    ) {
+        this(configuration, tableToken, messageBus, null);
+    }
+
+    public TableReader(
+            CairoConfiguration configuration,
+            TableToken tableToken,
+            @Nullable MessageBus messageBus,
+            @Nullable DecompressionBufferPool decompressionBufferPool
     ) {
         this.configuration = configuration;
         this.clock = configuration.getMillisecondClock();
@@ -99,6 +114,13 @@ public class TableReader implements Closeable, SymbolTableSource {
         this.ff = configuration.getFilesFacade();
         this.tableToken = tableToken;
         this.messageBus = messageBus;
+        if (decompressionBufferPool != null) {
+            this.decompressionBufferPool = decompressionBufferPool;
+            this.ownsDecompressionBufferPool = false;
+        } else {
+            this.decompressionBufferPool = new DecompressionBufferPool(configuration.getPartitionDecompressionBufferPoolSize());
+            this.ownsDecompressionBufferPool = true;
+        }
         try {
             this.path = new Path();
             this.path.of(configuration.getRoot()).concat(this.tableToken.getDirName());
@@ -178,6 +200,9 @@ public class TableReader implements Closeable, SymbolTableSource {
             Misc.free(txFile);
             Misc.free(todoMem);
             freeColumns();
+            if (ownsDecompressionBufferPool) {
+                Misc.free(decompressionBufferPool);
+            }
             freeTempMem();
             Misc.free(txnScoreboard);
             Misc.free(path);
@@ -334,6 +359,7 @@ public class TableReader implements Closeable, SymbolTableSource {
     }
 
     public void goActive() {
+        decompressionBufferPool.pin(decompressionBufferOwner);
         reload();
     }
 
@@ -359,6 +385,8 @@ public class TableReader implements Closeable, SymbolTableSource {
                 }
             }
         }
+        // decompressed columns of an idle reader can be evicted to make room for other readers
+        decompressionBufferPool.unpin(decompressionBufferOwner);
     }
 
     public boolean isActive() {
@@ -836,15 +864,31 @@ public class TableReader implements Closeable, SymbolTableSource {
             @Nullable MemoryMR mem,
             long columnSize
     ) {
-        if (mem != null && mem != NullMemoryMR.INSTANCE) {
+        if (mem != null && mem != NullMemoryMR.INSTANCE && !(mem instanceof DecompressedMemoryCMR)) {
             mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
         } else {
+            Misc.free(mem);
             mem = Vm.getMRInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_READER, true);
             columns.setQuick(primaryIndex, mem);
         }
         return mem;
     }
 
+    private void openDecompressedMemory(
+            Path path,
+            ObjList<MemoryMR> columns,
+            int primaryIndex,
+            @Nullable MemoryMR mem,
+            long columnSize
+    ) {
+        if (!(mem instanceof DecompressedMemoryCMR)) {
+            Misc.free(mem);
+            mem = new DecompressedMemoryCMR(decompressionBufferPool, decompressionBufferOwner);
+            columns.setQuick(primaryIndex, mem);
+        }
+        mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
+    }
+
     private long openPartition0(int partitionIndex) {
         final int offset = partitionIndex * PARTITIONS_SLOT_SIZE;
         final boolean isReopen = openPartitionInfo.getQuick(offset + PARTITIONS_SLOT_OFFSET_SIZE) > -1L;
@@ -1016,6 +1060,10 @@ public class TableReader implements Closeable, SymbolTableSource {
             }
             return;
         }
+        if (!truncateHappened && txFile.getColumnVersion() != prevColumnVersion) {
+            // symbol maps could have been rehashed into files with new column name txn
+            reopenSymbolMapReaders();
+        }
         reconcileOpenPartitionsFrom(0, truncateHappened);
     }
 
@@ -1092,6 +1140,16 @@ public class TableReader implements Closeable, SymbolTableSource {
                         TableUtils.dFile(path.trimTo(plen), name, columnTxn);
                         openOrCreateMemory(path, columns, primaryIndex, dataMem, dataSize);
                     }
+                } else if (ColumnCompressor.isCompressible(columnType) && txFile.isPartitionCompressedByPartitionTimestamp(partitionTimestamp)) {
+                    TableUtils.zFile(path.trimTo(plen), name, columnTxn);
+                    openDecompressedMemory(
+                            path,
+                            columns,
+                            primaryIndex,
+                            dataMem,
+                            columnRowCount << ColumnType.pow2SizeOf(columnType)
+                    );
+                    Misc.free(columns.getAndSetQuick(secondaryIndex, null));
                 } else {
                     TableUtils.dFile(path.trimTo(plen), name, columnTxn);
                     openOrCreateMemory(
@@ -1274,6 +1332,19 @@ public class TableReader implements Closeable, SymbolTableSource {
         symbolMapReaders.setQuick(columnIndex, reader);
     }
 
+    private void reopenSymbolMapReaders() {
+        for (int i = 0; i < columnCount; i++) {
+            final SymbolMapReader reader = symbolMapReaders.getQuick(i);
+            if (reader instanceof SymbolMapReaderImpl) {
+                final long columnNameTxn = columnVersionReader.getDefaultColumnNameTxn(metadata.getWriterIndex(i));
+                if (((SymbolMapReaderImpl) reader).needsReopen(columnNameTxn)) {
+                    final int symbolCount = txFile.getSymbolValueCount(metadata.getDenseSymbolIndex(i));
+                    ((SymbolMapReaderImpl) reader).of(configuration, path, metadata.getColumnName(i), columnNameTxn, symbolCount);
+                }
+            }
+        }
+    }
+
     private void reshuffleColumns(int columnCount, TableReaderMetadataTransitionIndex transitionIndex) {
         LOG.debug().$("reshuffling columns file list [table=").utf8(tableToken.getTableName()).I$();
         int iterateCount = Math.max(columnCount, this.columnCount);
@@ -62,6 +62,9 @@ public final class TableUtils {
     public static final long ESTIMATED_VAR_COL_SIZE = 28;
     public static final String FILE_SUFFIX_D = ".d";
     public static final String FILE_SUFFIX_I = ".i";
+    public static final String FILE_SUFFIX_Z = ".z";
+    // value block capacity of hash index files; index capacity of INT and LONG columns is their hash key count
+    public static final int HASH_INDEX_VALUE_BLOCK_CAPACITY = 256;
     public static final int INITIAL_TXN = 0;
     public static final int LONGS_PER_TX_ATTACHED_PARTITION = 4;
     public static final int LONGS_PER_TX_ATTACHED_PARTITION_MSB = Numbers.msb(LONGS_PER_TX_ATTACHED_PARTITION);
@@ -100,6 +103,7 @@ public final class TableUtils {
     public static final String META_SWAP_FILE_NAME = "_meta.swp";
     public static final int MIN_INDEX_VALUE_BLOCK_SIZE = Numbers.ceilPow2(4);
     public static final int NULL_LEN = -1;
+    public static final String PARTITION_STATS_FILE_NAME = "_stats";
     public static final String SNAPSHOT_META_FILE_NAME = "_snapshot";
     public static final String SNAPSHOT_META_FILE_NAME_TXT = "_snapshot.txt";
     public static final String SYMBOL_KEY_REMAP_FILE_SUFFIX = ".r";
@@ -163,6 +167,8 @@ public final class TableUtils {
     public static final int TX_RECORD_HEADER_SIZE = (int) TX_OFFSET_MAP_WRITER_COUNT_32 + Integer.BYTES;
     public static final String UPGRADE_FILE_NAME = "_upgrade.d";
     static final int COLUMN_VERSION_FILE_HEADER_SIZE = 40;
+    static final int MAX_SYMBOL_CAPACITY = Numbers.ceilPow2(Integer.MAX_VALUE);
+    static final int MAX_SYMBOL_CAPACITY_CACHED = Numbers.ceilPow2(30_000_000);
     static final int META_FLAG_BIT_INDEXED = 1;
     static final int META_FLAG_BIT_SEQUENTIAL = 1 << 1;
     static final int META_FLAG_BIT_SYMBOL_CACHE = META_FLAG_BIT_SEQUENTIAL << 1;
@@ -172,8 +178,6 @@ public final class TableUtils {
     private static final int EMPTY_TABLE_LAG_CHECKSUM = calculateTxnLagChecksum(0, 0, 0, Long.MAX_VALUE, Long.MIN_VALUE, 0);
     private static final Log LOG = LogFactory.getLog(TableUtils.class);
     private static final int MAX_INDEX_VALUE_BLOCK_SIZE = Numbers.ceilPow2(8 * 1024 * 1024);
-    private static final int MAX_SYMBOL_CAPACITY = Numbers.ceilPow2(Integer.MAX_VALUE);
-    private static final int MAX_SYMBOL_CAPACITY_CACHED = Numbers.ceilPow2(30_000_000);
     private static final int MIN_SYMBOL_CAPACITY = 2;
 
     private TableUtils() {
@@ -639,6 +643,19 @@ public final class TableUtils {
         return type;
     }
 
+    /**
+     * Returns value block capacity of the bitmap index files of a column. Symbol columns use index
+     * capacity as is. INT and LONG columns hash their values into as many keys as the index capacity
+     * of the column, so their value blocks are of a fixed size instead.
+     *
+     * @param columnType    type of the indexed column
+     * @param indexCapacity index capacity of the column from table metadata
+     * @return number of values per index value block
+     */
+    public static int getIndexValueBlockCapacity(int columnType, int indexCapacity) {
+        return ColumnType.isSymbol(columnType) ? indexCapacity : HASH_INDEX_VALUE_BLOCK_CAPACITY;
+    }
+
     public static int getInt(MemoryMR metaMem, long memSize, long offset) {
         if (memSize < offset + Integer.BYTES) {
             throw CairoException.critical(0).put("File is too small, size=").put(memSize).put(", required=").put(offset + Integer.BYTES);
@@ -1553,6 +1570,10 @@ public final class TableUtils {
         }
     }
 
+    public static int toHashIndexKey(long value, int keyCount) {
+        return Hash.hashLong32(value) & (keyCount - 1);
+    }
+
     public static int toIndexKey(int symbolKey) {
         return symbolKey == SymbolTable.VALUE_IS_NULL ? 0 : symbolKey + 1;
     }
@@ -1604,8 +1625,8 @@ public final class TableUtils {
                 }
 
                 if (isColumnIndexed(metaMem, i)) {
-                    if (!ColumnType.isSymbol(type)) {
-                        throw validationException(metaMem).put("Index flag is only supported for SYMBOL").put(" at [").put(i).put(']');
+                    if (!ColumnType.isIndexable(type)) {
+                        throw validationException(metaMem).put("Index flag is only supported for SYMBOL, INT and LONG").put(" at [").put(i).put(']');
                     }
 
                     if (getIndexBlockCapacity(metaMem, i) < 2) {
@@ -1736,6 +1757,14 @@ public final class TableUtils {
         }
     }
 
+    public static LPSZ zFile(Path path, CharSequence columnName, long columnTxn) {
+        path.concat(columnName).put(FILE_SUFFIX_Z);
+        if (columnTxn > COLUMN_NAME_TXN_NONE) {
+            path.put('.').put(columnTxn);
+        }
+        return path.$();
+    }
+
     private static int exists(FilesFacade ff, Path path) {
         if (ff.exists(path)) { // it can also be a file, for example created with touch
             if (ff.exists(path.concat(TXN_FILE_NAME).$())) {
@@ -26,6 +26,7 @@ package io.questdb.cairo;
 
 import io.questdb.MessageBus;
 import io.questdb.Metrics;
+import io.questdb.cairo.compress.ColumnCompressor;
 import io.questdb.cairo.frm.Frame;
 import io.questdb.cairo.frm.FrameAlgebra;
 import io.questdb.cairo.frm.file.PartitionFrameFactory;
@@ -86,6 +87,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     public static final int PARTITION_SINK_SIZE_LONGS = 8;
     public static final int PARTITION_SINK_COL_TOP_OFFSET = PARTITION_SINK_SIZE_LONGS * Long.BYTES;
     public static final int TIMESTAMP_MERGE_ENTRY_BYTES = Long.BYTES * 2;
+    private static final ObjectFactory<MemoryCMOR> GET_DECOMPRESSED_MEMORY_CMOR = WalDecompressedMemoryCMOR::new;
     private static final ObjectFactory<MemoryCMOR> GET_MEMORY_CMOR = Vm::getMemoryCMOR;
     private static final long IGNORE = -1L;
     private static final Log LOG = LogFactory.getLog(TableWriter.class);
@@ -153,6 +155,9 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final DateFormat partitionDirFmt;
     private final PartitionFrameFactory partitionFrameFactory;
     private final LongList partitionRemoveCandidates = new LongList();
+    private final PartitionStats partitionStats;
+    // timestamps of partitions written by O3 since the last commit
+    private final LongList partitionStatsTimestamps = new LongList();
     private final Path path;
     private final AtomicLong physicallyWrittenRowsSinceLastCommit = new AtomicLong();
     private final int rootLen;
@@ -162,7 +167,9 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final TxReader slaveTxReader;
     private final DatabaseSnapshotAgent snapshotAgent;
     private final ObjList<MapWriter> symbolMapWriters;
-    private final IntList symbolRewriteMap = new IntList();
+    // clean symbol count of the WAL symbol columns that have to be remapped, -1 when column is not remapped
+    private final IntList symbolRewriteCleanCounts = new IntList();
+    private final ObjList<IntList> symbolRewriteMaps = new ObjList<>();
     private final MemoryMARW todoMem = Vm.getMARWInstance();
     private final TxWriter txWriter;
     private final TxnScoreboard txnScoreboard;
@@ -171,6 +178,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final Uuid uuid = new Uuid();
     private final LowerCaseCharSequenceIntHashMap validationMap = new LowerCaseCharSequenceIntHashMap();
     private final WeakClosableObjectPool<MemoryCMOR> walColumnMemoryPool;
+    private final WeakClosableObjectPool<MemoryCMOR> walDecompressedColumnMemoryPool;
     private final LongObjHashMap<IntList> walFdCache = new LongObjHashMap<>();
     private final WeakClosableObjectPool<IntList> walFdCacheListPool = new WeakClosableObjectPool<>(IntList::new, 5, true);
     private final LongObjHashMap.LongObjConsumer<IntList> walFdCloseCachedFdAction;
@@ -219,18 +227,23 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private long o3RowCount;
     private MemoryMAT o3TimestampMem;
     private MemoryARW o3TimestampMemCpy;
+    private long partitionStatsLastTimestamp = Long.MIN_VALUE;
     private long partitionTimestampHi;
     private boolean performRecovery;
     private boolean processingQueue;
     private PurgingOperator purgingOperator;
+    // WAL segment being remapped by column tasks, used in error messages only
+    private Path remapWalPath;
     private boolean removeDirOnCancelRow = true;
     private int rowAction = ROW_ACTION_OPEN_PARTITION;
+    private SymbolMapUtil symbolMapUtil;
     private TableToken tableToken;
     private final ColumnTaskHandler cthAppendWalColumnToLastPartition = this::cthAppendWalColumnToLastPartition;
     private final ColumnTaskHandler cthO3SortColumnRef = this::cthO3SortColumn;
     private final ColumnTaskHandler cthMergeWalColumnWithLag = this::cthMergeWalColumnWithLag;
     private final ColumnTaskHandler cthO3MoveUncommittedRef = this::cthO3MoveUncommitted;
     private final ColumnTaskHandler cthO3ShiftColumnInLagToTopRef = this::cthO3ShiftColumnInLagToTop;
+    private final ColumnTaskHandler cthRemapWalSymbolColumnRef = this::cthRemapWalSymbolColumn;
     private long tempMem16b = Unsafe.malloc(16, MemoryTag.NATIVE_TABLE_WRITER);
     private LongConsumer timestampSetter;
     private long todoTxn;
@@ -270,6 +283,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         this.fileOperationRetryCount = configuration.getFileOperationRetryCount();
         this.tableToken = tableToken;
         this.o3QuickSortEnabled = configuration.isO3QuickSortEnabled();
+        this.partitionStats = configuration.isPartitionStatsEnabled() ? new PartitionStats() : null;
         try {
             this.path = new Path().of(root).concat(tableToken);
             this.other = new Path().of(root).concat(tableToken);
@@ -355,6 +369,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             configureAppendPosition();
             purgeUnusedPartitions();
             minSplitPartitionTimestamp = findMinSplitPartitionTimestamp();
+            partitionStatsLastTimestamp = getLastPartitionStatsTimestamp();
             clearTodoLog();
             this.slaveTxReader = new TxReader(ff);
             commandQueue = new RingQueue<>(
@@ -372,6 +387,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             // Some wal specific initialization
             if (metadata.isWalEnabled()) {
                 walColumnMemoryPool = new WeakClosableObjectPool<>(GET_MEMORY_CMOR, configuration.getWalMaxSegmentFileDescriptorsCache(), true);
+                walDecompressedColumnMemoryPool = new WeakClosableObjectPool<>(GET_DECOMPRESSED_MEMORY_CMOR, configuration.getWalMaxSegmentFileDescriptorsCache(), true);
                 walFdCloseCachedFdAction = (key, fdList) -> {
                     for (int i = 0, n = fdList.size(); i < n; i++) {
                         ff.close(fdList.getQuick(i));
@@ -381,6 +397,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 };
             } else {
                 walColumnMemoryPool = null;
+                walDecompressedColumnMemoryPool = null;
                 walFdCloseCachedFdAction = null;
             }
         } catch (Throwable e) {
@@ -590,16 +607,20 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             throw CairoException.invalidMetadataRecoverable("column is already indexed", columnName);
         }
 
+        if (hasCompressedPartitions()) {
+            throw CairoException.invalidMetadataRecoverable("cannot create index, table has compressed partitions", columnName);
+        }
+
         final int existingType = getColumnType(metaMem, columnIndex);
         LOG.info().$("adding index to '").utf8(columnName).$("' [").$(ColumnType.nameOf(existingType)).$(", path=").$(path).I$();
 
-        if (!ColumnType.isSymbol(existingType)) {
+        if (!ColumnType.isIndexable(existingType)) {
             LOG.error().$("cannot create index for [column='").utf8(columnName).$(", type=").$(ColumnType.nameOf(existingType)).$(", path=").$(path).I$();
-            throw CairoException.invalidMetadataRecoverable("cannot create index, column type is not SYMBOL", columnName);
+            throw CairoException.invalidMetadataRecoverable("cannot create index, column type is not SYMBOL, INT or LONG", columnName);
         }
 
-        final SymbolColumnIndexer indexer = new SymbolColumnIndexer(configuration);
-        writeIndex(columnName, indexValueBlockSize, columnIndex, indexer);
+        final ColumnIndexer indexer = createColumnIndexer(existingType, indexValueBlockSize);
+        writeIndex(columnName, existingType, indexValueBlockSize, columnIndex, indexer);
         // set index flag in metadata and  create new _meta.swp
         metaSwapIndex = copyMetadataAndSetIndexAttrs(columnIndex, true, indexValueBlockSize);
 
@@ -855,6 +876,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     .put(tableToken.getTableName()).put(", column=").put(columnName).put(']');
         }
 
+        if (hasCompressedPartitions()) {
+            throw CairoException.nonCritical().put("cannot change column type, table has compressed partitions [table=")
+                    .put(tableToken.getTableName()).put(", column=").put(columnName).put(']');
+        }
+
         ConvertOperatorImpl convertOperator = getConvertOperator();
         try {
             commit();
@@ -910,8 +936,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 // index must be created before column is initialised because
                 // it uses primary column object as temporary tool
                 if (isIndexed) {
-                    SymbolColumnIndexer indexer = (SymbolColumnIndexer) indexers.get(columnIndex);
-                    writeIndex(columnName, indexValueBlockCapacity, columnIndex, indexer);
+                    ColumnIndexer indexer = indexers.get(columnIndex);
+                    writeIndex(columnName, newType, indexValueBlockCapacity, columnIndex, indexer);
                     // add / remove indexers
                     indexers.extendAndSet(columnIndex, indexer);
                     populateDenseIndexerList();
@@ -1062,10 +1088,12 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             txWriter.commit(denseSymbolMapWriters);
 
             squashSplitPartitions(minSplitPartitionTimestamp, txWriter.maxTimestamp, configuration.getO3LastPartitionMaxSplits());
+            updatePartitionStats();
 
             // Bookmark masterRef to track how many rows is in uncommitted state
             committedMasterRef = masterRef;
             processPartitionRemoveCandidates();
+            rehashSymbolMapWriters();
 
             metrics.tableWriter().incrementCommits();
             metrics.tableWriter().addCommittedRows(rowsAdded);
@@ -1081,6 +1109,72 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return 0L;
     }
 
+    @Override
+    public boolean compressPartition(long timestamp) {
+        // Should be checked by SQL compiler
+        assert metadata.getTimestampIndex() > -1;
+        assert PartitionBy.isPartitioned(partitionBy);
+
+        if (inTransaction()) {
+            LOG.info()
+                    .$("committing open transaction before applying compress partition command [table=")
+                    .utf8(tableToken.getTableName())
+                    .$(", partition=").$ts(timestamp)
+                    .I$();
+            commit();
+        }
+
+        timestamp = txWriter.getLogicalPartitionTimestamp(timestamp);
+        if (timestamp == txWriter.getLogicalPartitionTimestamp(txWriter.getMaxTimestamp())) {
+            throw CairoException.partitionManipulationRecoverable()
+                    .put("cannot compress active partition [table=").put(tableToken.getTableName())
+                    .put(", partitionTimestamp=").ts(timestamp)
+                    .put(']');
+        }
+
+        int partitionIndex = txWriter.getPartitionIndex(timestamp);
+        if (partitionIndex < 0) {
+            return false;
+        }
+        if (txWriter.isPartitionCompressed(partitionIndex)) {
+            return true;
+        }
+        if (txWriter.isPartitionReadOnly(partitionIndex)) {
+            throw CairoException.partitionManipulationRecoverable()
+                    .put("cannot compress read-only partition [table=").put(tableToken.getTableName())
+                    .put(", partitionTimestamp=").ts(timestamp)
+                    .put(']');
+        }
+        rewritePartitionFormat(partitionIndex, timestamp, true);
+        return true;
+    }
+
+    public boolean decompressPartition(long timestamp) {
+        // Should be checked by SQL compiler
+        assert metadata.getTimestampIndex() > -1;
+        assert PartitionBy.isPartitioned(partitionBy);
+
+        if (inTransaction()) {
+            LOG.info()
+                    .$("committing open transaction before applying decompress partition command [table=")
+                    .utf8(tableToken.getTableName())
+                    .$(", partition=").$ts(timestamp)
+                    .I$();
+            commit();
+        }
+
+        timestamp = txWriter.getLogicalPartitionTimestamp(timestamp);
+        int partitionIndex = txWriter.getPartitionIndex(timestamp);
+        if (partitionIndex < 0) {
+            return false;
+        }
+        if (!txWriter.isPartitionCompressed(partitionIndex)) {
+            return true;
+        }
+        rewritePartitionFormat(partitionIndex, timestamp, false);
+        return true;
+    }
+
     public void destroy() {
         // Closes all the files and makes this instance unusable e.g. it cannot return to the pool on close.
         LOG.info().$("closing table files [table=").utf8(tableToken.getTableName())
@@ -1114,6 +1208,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             return AttachDetachStatus.DETACH_ERR_MISSING_PARTITION;
         }
 
+        if (txWriter.isPartitionCompressed(partitionIndex)) {
+            // attach expects native column files, the partition has to be converted back first
+            return AttachDetachStatus.DETACH_ERR_COMPRESSED;
+        }
+
         // To detach the partition, squash it into single folder if required
         squashPartitionForce(partitionIndex);
 
@@ -1993,6 +2092,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
 
         closeActivePartition(false);
         processPartitionRemoveCandidates();
+        partitionStatsLastTimestamp = Long.MIN_VALUE;
 
         LOG.info().$("removed all partitions (soft truncated) [name=").utf8(tableToken.getTableName()).I$();
     }
@@ -2137,7 +2237,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             clearTodoLog();
 
             // rename column files has to be done after _todo is removed
-            hardLinkAndPurgeColumnFiles(currentName, index, newName, type);
+            hardLinkAndPurgeColumnFiles(currentName, index, newName, type, true);
         } catch (CairoException e) {
             throwDistressException(e);
         }
@@ -2180,6 +2280,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             try {
                 LOG.info().$("tx rollback [name=").utf8(tableToken.getTableName()).I$();
                 partitionRemoveCandidates.clear();
+                partitionStatsTimestamps.clear();
+                if (partitionStats != null) {
+                    partitionStats.invalidate();
+                }
                 o3CommitBatchTimestampMin = Long.MAX_VALUE;
                 if ((masterRef & 1) != 0) {
                     masterRef++;
@@ -2550,7 +2654,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
 
         // add column objects
-        configureColumn(columnType, isIndexed, columnCount);
+        configureColumn(columnType, isIndexed, indexValueBlockCapacity, columnCount);
         if (isIndexed) {
             populateDenseIndexerList();
         }
@@ -2702,13 +2806,13 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         txWriter.setLagRowCount(txWriter.getLagRowCount() - lagRowCount);
         txWriter.setMaxTimestamp(maxTimestamp);
         if (indexCount > 0) {
-            // To index correctly, we need to set append offset of symbol columns first.
-            // So that re-indexing can read symbol values to the correct limits.
+            // To index correctly, we need to set append offset of indexed columns first.
+            // So that re-indexing can read column values to the correct limits.
             final long newTransientRowCount = txWriter.getTransientRowCount();
-            final int shl = ColumnType.pow2SizeOf(ColumnType.SYMBOL);
             for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
-                if (metadata.getColumnType(i) == ColumnType.SYMBOL && metadata.isColumnIndexed(i)) {
-                    getPrimaryColumn(i).jumpTo(newTransientRowCount << shl);
+                final int columnType = metadata.getColumnType(i);
+                if (columnType > 0 && metadata.isColumnIndexed(i)) {
+                    getPrimaryColumn(i).jumpTo(newTransientRowCount << ColumnType.pow2SizeOf(columnType));
                 }
             }
             updateIndexesParallel(initialTransientRowCount, newTransientRowCount);
@@ -2993,7 +3097,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 }
 
                 // check column is / was indexed
-                if (ColumnType.isSymbol(tableColType)) {
+                if (ColumnType.isIndexable(tableColType)) {
                     boolean isIndexedNow = metadata.isColumnIndexed(colIdx);
                     boolean wasIndexedAtDetached = attachMetadata.isColumnIndexed(detColIdx);
                     int indexValueBlockCapacityNow = metadata.getIndexValueBlockCapacity(colIdx);
@@ -3188,7 +3292,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 MemoryCMOR mappedColumnMem = walMappedColumns.getQuick(col);
                 if (mappedColumnMem != null) {
                     Misc.free(mappedColumnMem);
-                    walColumnMemoryPool.push(mappedColumnMem);
+                    getWalColumnMemoryPool(mappedColumnMem).push(mappedColumnMem);
                 }
             }
         } else {
@@ -3207,7 +3311,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     if (fds != null) {
                         fds.add(fd);
                     }
-                    walColumnMemoryPool.push(mappedColumnMem);
+                    getWalColumnMemoryPool(mappedColumnMem).push(mappedColumnMem);
                 }
             }
         }
@@ -3290,10 +3394,12 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
 
             // Check if partitions are split into too many pieces and merge few of them back.
             squashSplitPartitions(minSplitPartitionTimestamp, txWriter.getMaxTimestamp(), configuration.getO3LastPartitionMaxSplits());
+            updatePartitionStats();
 
             // Bookmark masterRef to track how many rows is in uncommitted state
             this.committedMasterRef = masterRef;
             processPartitionRemoveCandidates();
+            rehashSymbolMapWriters();
 
             metrics.tableWriter().incrementCommits();
             metrics.tableWriter().addCommittedRows(rowsAdded);
@@ -3332,7 +3438,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         activeNullSetters = nullSetters;
     }
 
-    private void configureColumn(int type, boolean indexFlag, int index) {
+    private void configureColumn(int type, boolean indexFlag, int indexValueBlockCapacity, int index) {
         final MemoryMA dataMem;
         final MemoryMA auxMem;
         final MemoryCARW o3DataMem1;
@@ -3371,7 +3477,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         configureNullSetters(o3NullSetters2, type, o3DataMem2, o3AuxMem2);
 
         if (indexFlag && type > 0) {
-            indexers.extendAndSet(index, new SymbolColumnIndexer(configuration));
+            indexers.extendAndSet(index, createColumnIndexer(type, indexValueBlockCapacity));
         }
         rowValueIsNotNull.add(0);
     }
@@ -3381,7 +3487,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         int dedupColCount = 0;
         for (int i = 0; i < columnCount; i++) {
             int type = metadata.getColumnType(i);
-            configureColumn(type, metadata.isColumnIndexed(i), i);
+            configureColumn(type, metadata.isColumnIndexed(i), metadata.getIndexValueBlockCapacity(i), i);
 
             if (type > -1) {
                 if (ColumnType.isSymbol(type)) {
@@ -3530,10 +3636,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
      * append index data. Therefore, it must be called before primary column is initialized.
      *
      * @param columnName              column name
-     * @param indexValueBlockCapacity approximate number of values per index key
+     * @param columnType              column type, INT and LONG columns get hash index files
+     * @param indexValueBlockCapacity index capacity of the column, see {@link TableUtils#getIndexValueBlockCapacity(int, int)}
      * @param plen                    path length. This is used to trim shared path object to.
      */
-    private void createIndexFiles(CharSequence columnName, long columnNameTxn, int indexValueBlockCapacity, int plen, boolean force) {
+    private void createIndexFiles(CharSequence columnName, int columnType, long columnNameTxn, int indexValueBlockCapacity, int plen, boolean force) {
         try {
             keyFileName(path.trimTo(plen), columnName, columnNameTxn);
 
@@ -3545,7 +3652,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             try {
                 ddlMem.smallFile(ff, path, MemoryTag.MMAP_TABLE_WRITER);
                 ddlMem.truncate();
-                BitmapIndexWriter.initKeyMemory(ddlMem, indexValueBlockCapacity);
+                BitmapIndexWriter.initKeyMemory(ddlMem, TableUtils.getIndexValueBlockCapacity(columnType, indexValueBlockCapacity));
             } catch (CairoException e) {
                 // looks like we could not create key file properly
                 // lets not leave half-baked file sitting around
@@ -3574,6 +3681,13 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private ColumnIndexer createColumnIndexer(int columnType, int indexValueBlockCapacity) {
+        if (ColumnType.isSymbol(columnType)) {
+            return new SymbolColumnIndexer(configuration);
+        }
+        return new HashColumnIndexer(configuration).of(columnType, indexValueBlockCapacity);
+    }
+
     private void createSymbolMapWriter(CharSequence name, long columnNameTxn, int symbolCapacity, boolean symbolCacheFlag) {
         MapWriter.createSymbolMapFiles(ff, ddlMem, path, name, columnNameTxn, symbolCapacity, symbolCacheFlag);
         SymbolMapWriter w = new SymbolMapWriter(
@@ -4255,6 +4369,35 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void cthRemapWalSymbolColumn(
+            int columnIndex,
+            int columnType,
+            int timestampColumnIndex,
+            long rowLo,
+            long rowHi,
+            long ignore2,
+            long ignore3,
+            long ignore4
+    ) {
+        if (o3ErrorCount.get() > 0 || symbolRewriteCleanCounts.getQuick(columnIndex) < 0) {
+            return;
+        }
+        try {
+            remapWalSymbolColumn(columnIndex, rowLo, rowHi, remapWalPath);
+        } catch (Throwable th) {
+            handleColumnTaskException(
+                    "could not remap WAL symbols",
+                    columnIndex,
+                    columnType,
+                    rowLo,
+                    rowHi,
+                    IGNORE,
+                    IGNORE,
+                    th
+            );
+        }
+    }
+
     private long deduplicateSortedIndex(long longIndexLength, long indexSrcAddr, long indexDstAddr, long tempIndexAddr, long lagRows) {
         LOG.info().$("WAL dedup sorted commit index [table=").$(tableToken).$(", totalRows=").$(longIndexLength).$(", lagRows=").$(lagRows).I$();
         int dedupKeyIndex = 0;
@@ -4381,6 +4524,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         Misc.free(slaveTxReader);
         Misc.free(commandQueue);
         Misc.free(dedupColumnCommitAddresses);
+        Misc.free(partitionStats);
         closeWalFiles();
         updateOperatorImpl = Misc.free(updateOperatorImpl);
         convertOperatorImpl = Misc.free(convertOperatorImpl);
@@ -4433,6 +4577,14 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 prevTimestamp = 0L; // meaningless
             } else {
                 final int prevIndex = index - 1;
+                if (txWriter.isPartitionCompressed(prevIndex)) {
+                    // the previous partition would become the active one and has to be appendable
+                    throw CairoException.partitionManipulationRecoverable()
+                            .put("cannot drop active partition, previous partition is compressed, convert it to native first [table=")
+                            .put(tableToken.getTableName())
+                            .put(", partitionTimestamp=").ts(timestamp)
+                            .put(']');
+                }
                 prevTimestamp = txWriter.getPartitionTimestampByIndex(prevIndex);
                 newTransientRowCount = txWriter.getPartitionSize(prevIndex);
                 try {
@@ -4691,6 +4843,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return convertOperatorImpl;
     }
 
+    private long getLastPartitionStatsTimestamp() {
+        final int partitionCount = txWriter.getPartitionCount();
+        return partitionCount > 0 ? txWriter.getPartitionTimestampByIndex(partitionCount - 1) : Long.MIN_VALUE;
+    }
+
     private long getO3RowCount0() {
         return (masterRef - o3MasterRef + 1) / 2;
     }
@@ -4722,6 +4879,17 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return columns.getQuick(getSecondaryColumnIndex(column));
     }
 
+    private SymbolMapUtil getSymbolMapUtil() {
+        if (symbolMapUtil == null) {
+            symbolMapUtil = new SymbolMapUtil();
+        }
+        return symbolMapUtil;
+    }
+
+    private WeakClosableObjectPool<MemoryCMOR> getWalColumnMemoryPool(MemoryCMOR mem) {
+        return mem instanceof WalDecompressedMemoryCMOR ? walDecompressedColumnMemoryPool : walColumnMemoryPool;
+    }
+
     private long getWalMaxLagRows() {
         return Math.min(
                 Math.max(0L, (long) configuration.getWalSquashUncommittedRowsMultiplier() * metadata.getMaxUncommittedRows()),
@@ -4764,7 +4932,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
-    private void hardLinkAndPurgeColumnFiles(CharSequence columnName, int columnIndex, CharSequence newName, int columnType) {
+    private void hardLinkAndPurgeColumnFiles(CharSequence columnName, int columnIndex, CharSequence newName, int columnType, boolean linkSymbolIndex) {
         try {
             PurgingOperator purgingOperator = getPurgingOperator();
             long newColumnNameTxn = getTxn();
@@ -4789,11 +4957,14 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             }
 
             if (ColumnType.isSymbol(columnType)) {
-                // Link .o, .c, .k, .v symbol files in the table root folder
-                linkFile(ff, offsetFileName(path.trimTo(rootLen), columnName, defaultColumnNameTxn), offsetFileName(other.trimTo(rootLen), newName, newColumnNameTxn));
+                // Link .c symbol file in the table root folder
                 linkFile(ff, charFileName(path.trimTo(rootLen), columnName, defaultColumnNameTxn), charFileName(other.trimTo(rootLen), newName, newColumnNameTxn));
-                linkFile(ff, keyFileName(path.trimTo(rootLen), columnName, defaultColumnNameTxn), keyFileName(other.trimTo(rootLen), newName, newColumnNameTxn));
-                linkFile(ff, valueFileName(path.trimTo(rootLen), columnName, defaultColumnNameTxn), valueFileName(other.trimTo(rootLen), newName, newColumnNameTxn));
+                if (linkSymbolIndex) {
+                    // Link .o, .k, .v symbol files, otherwise caller creates them from scratch
+                    linkFile(ff, offsetFileName(path.trimTo(rootLen), columnName, defaultColumnNameTxn), offsetFileName(other.trimTo(rootLen), newName, newColumnNameTxn));
+                    linkFile(ff, keyFileName(path.trimTo(rootLen), columnName, defaultColumnNameTxn), keyFileName(other.trimTo(rootLen), newName, newColumnNameTxn));
+                    linkFile(ff, valueFileName(path.trimTo(rootLen), columnName, defaultColumnNameTxn), valueFileName(other.trimTo(rootLen), newName, newColumnNameTxn));
+                }
                 purgingOperator.add(columnIndex, defaultColumnNameTxn, PurgingOperator.TABLE_ROOT_PARTITION, -1L);
             }
             long columnAddedPartition = columnVersionWriter.getColumnTopPartitionTimestamp(columnIndex);
@@ -4809,9 +4980,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         setPathForPartition(other, partitionBy, partitionTimestamp, partitionNameTxn);
         int plen = path.size();
         linkFile(ff, dFile(path.trimTo(plen), columnName, columnNameTxn), dFile(other.trimTo(plen), newName, newColumnNameTxn));
+        // compressed partitions keep fixed-size columns in .z files instead of .d
+        linkFile(ff, zFile(path.trimTo(plen), columnName, columnNameTxn), zFile(other.trimTo(plen), newName, newColumnNameTxn));
         if (ColumnType.isVarSize(columnType)) {
             linkFile(ff, iFile(path.trimTo(plen), columnName, columnNameTxn), iFile(other.trimTo(plen), newName, newColumnNameTxn));
-        } else if (ColumnType.isSymbol(columnType) && metadata.isColumnIndexed(columnIndex)) {
+        } else if (metadata.isColumnIndexed(columnIndex)) {
             linkFile(ff, keyFileName(path.trimTo(plen), columnName, columnNameTxn), keyFileName(other.trimTo(plen), newName, newColumnNameTxn));
             linkFile(ff, valueFileName(path.trimTo(plen), columnName, columnNameTxn), valueFileName(other.trimTo(plen), newName, newColumnNameTxn));
         }
@@ -4820,7 +4993,16 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         purgingOperator.add(columnIndex, columnNameTxn, partitionTimestamp, partitionNameTxn);
     }
 
-    private void indexHistoricPartitions(SymbolColumnIndexer indexer, CharSequence columnName, int indexValueBlockSize, int columnIndex) {
+    private boolean hasCompressedPartitions() {
+        for (int i = 0, n = txWriter.getPartitionCount(); i < n; i++) {
+            if (txWriter.isPartitionCompressed(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void indexHistoricPartitions(ColumnIndexer indexer, CharSequence columnName, int columnType, int indexValueBlockSize, int columnIndex) {
         long ts = this.txWriter.getMaxTimestamp();
         if (ts > Numbers.LONG_NULL) {
             try {
@@ -4841,7 +5023,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                             path.trimTo(plen);
                             LOG.info().$("indexing [path=").$(path).I$();
 
-                            createIndexFiles(columnName, columnNameTxn, indexValueBlockSize, plen, true);
+                            createIndexFiles(columnName, columnType, columnNameTxn, indexValueBlockSize, plen, true);
                             final long partitionSize = txWriter.getPartitionRowCountByTimestamp(timestamp);
                             final long columnTop = columnVersionWriter.getColumnTop(timestamp, columnIndex);
 
@@ -4864,10 +5046,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
-    private void indexLastPartition(SymbolColumnIndexer indexer, CharSequence columnName, long columnNameTxn, int columnIndex, int indexValueBlockSize) {
+    private void indexLastPartition(ColumnIndexer indexer, CharSequence columnName, int columnType, long columnNameTxn, int columnIndex, int indexValueBlockSize) {
         final int plen = path.size();
 
-        createIndexFiles(columnName, columnNameTxn, indexValueBlockSize, plen, true);
+        createIndexFiles(columnName, columnType, columnNameTxn, indexValueBlockSize, plen, true);
 
         final long lastPartitionTs = txWriter.getLastPartitionTimestamp();
         final long columnTop = columnVersionWriter.getColumnTopQuick(lastPartitionTs, columnIndex);
@@ -4949,6 +5131,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             fds = walFdCache.valueAt(key);
         }
 
+        // committed column data of compressed segments is read from frame files
+        final WeakClosableObjectPool<MemoryCMOR> columnMemoryPool = WalColumnCompressor.isCompressedSegment(ff, walPath)
+                ? walDecompressedColumnMemoryPool
+                : walColumnMemoryPool;
         try {
             int file = 0;
             for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
@@ -4958,8 +5144,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     int sizeBitsPow2 = ColumnType.getWalDataColumnShl(columnType, columnIndex == timestampIndex);
 
                     if (ColumnType.isVarSize(columnType)) {
-                        MemoryCMOR auxMem = walColumnMemoryPool.pop();
-                        MemoryCMOR dataMem = walColumnMemoryPool.pop();
+                        MemoryCMOR auxMem = columnMemoryPool.pop();
+                        MemoryCMOR dataMem = columnMemoryPool.pop();
 
                         walMappedColumns.add(dataMem);
                         walMappedColumns.add(auxMem);
@@ -4997,7 +5183,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                                 CairoConfiguration.O_NONE
                         );
                     } else {
-                        MemoryCMOR primary = walColumnMemoryPool.pop();
+                        MemoryCMOR primary = columnMemoryPool.pop();
                         walMappedColumns.add(primary);
                         walMappedColumns.add(null);
 
@@ -5318,6 +5504,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
 
                 txWriter.minTimestamp = Math.min(timestampMin, txWriter.minTimestamp);
                 int partitionIndexRaw = txWriter.findAttachedPartitionRawIndexByLoTimestamp(partitionTimestamp);
+                partitionStatsTimestamps.add(partitionTimestamp);
 
                 final long newPartitionTimestamp = partitionTimestamp;
                 final int newPartitionIndex = partitionIndexRaw;
@@ -5327,6 +5514,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     // The new partition overlaps in time with the previous one.
                     partitionTimestamp = txWriter.getPartitionTimestampByTimestamp(partitionTimestamp);
                     partitionIndexRaw = txWriter.findAttachedPartitionRawIndexByLoTimestamp(partitionTimestamp);
+                    partitionStatsTimestamps.add(partitionTimestamp);
                 }
 
                 if (partitionTimestamp == lastPartitionTimestamp && newPartitionTimestamp == partitionTimestamp) {
@@ -5515,6 +5703,70 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void o3DecompressPartition(int partitionIndex, long partitionTimestamp) {
+        final long partitionSize = txWriter.getPartitionSize(partitionIndex);
+        setPathForPartition(path.trimTo(rootLen), partitionBy, partitionTimestamp, txWriter.getPartitionNameTxn(partitionIndex));
+        final int plen = path.size();
+        final int olen = other.of(path).size();
+        try (ColumnCompressor compressor = new ColumnCompressor(ff, configuration.getCommitMode())) {
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = metadata.getColumnType(i);
+                if (columnType < 0 || !ColumnCompressor.isCompressible(columnType)) {
+                    continue;
+                }
+                final long columnTop = columnVersionWriter.getColumnTop(partitionTimestamp, i);
+                if (columnTop < 0 || partitionSize - columnTop < 1) {
+                    continue;
+                }
+                final CharSequence columnName = metadata.getColumnName(i);
+                final long columnNameTxn = columnVersionWriter.getColumnNameTxn(partitionTimestamp, i);
+                compressor.decompress(
+                        zFile(path.trimTo(plen), columnName, columnNameTxn),
+                        dFile(other.trimTo(olen), columnName, columnNameTxn)
+                );
+            }
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+        txWriter.setPartitionCompressed(partitionIndex, false);
+        // readers reload the partition table only when its version changes
+        txWriter.bumpPartitionTableVersion();
+        LOG.info().$("decompressed partition for o3 [table=").$(tableToken)
+                .$(", partition=").$(formatPartitionForTimestamp(partitionTimestamp, txWriter.getPartitionNameTxn(partitionIndex)))
+                .$(", rows=").$(partitionSize)
+                .I$();
+    }
+
+    // O3 rows cannot be merged into compressed column files, so compressed partitions that receive
+    // rows are restored to native column files next to the compressed ones. The compressed files
+    // stay for readers of the previous transactions, the O3 commit publishes the native format.
+    private void o3DecompressPartitions(long sortedTimestampsAddr, long rowLo, long rowHi, long o3TimestampMin, long o3TimestampMax) {
+        int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(txWriter.getPartitionTimestampByTimestamp(o3TimestampMin));
+        if (partitionIndex < 0) {
+            partitionIndex = -partitionIndex - 1;
+        }
+        try {
+            for (int n = txWriter.getPartitionCount(); partitionIndex < n; partitionIndex++) {
+                final long partitionTimestamp = txWriter.getPartitionTimestampByIndex(partitionIndex);
+                if (partitionTimestamp > o3TimestampMax) {
+                    break;
+                }
+                if (!txWriter.isPartitionCompressed(partitionIndex)) {
+                    continue;
+                }
+                // find the first O3 row at or after the partition timestamp
+                final long row = Vect.boundedBinarySearchIndexT(sortedTimestampsAddr, partitionTimestamp - 1, rowLo, rowHi - 1, BinarySearch.SCAN_DOWN) + 1;
+                if (row < rowHi && getTimestampIndexValue(sortedTimestampsAddr, row) < txWriter.getNextPartitionTimestamp(partitionTimestamp)) {
+                    o3DecompressPartition(partitionIndex, partitionTimestamp);
+                }
+            }
+        } catch (Throwable th) {
+            o3InError = true;
+            throw th;
+        }
+    }
+
     private long o3MoveUncommitted() {
         final long committedRowCount = txWriter.unsafeCommittedFixedRowCount() + txWriter.unsafeCommittedTransientRowCount();
         final long rowsAdded = txWriter.getRowCount() - committedRowCount;
@@ -5663,7 +5915,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             // index must be created before column is initialised because
             // it uses primary column object as temporary tool
             if (indexFlag) {
-                createIndexFiles(name, columnNameTxn, indexValueBlockCapacity, plen, true);
+                createIndexFiles(name, columnType, columnNameTxn, indexValueBlockCapacity, plen, true);
             }
 
             openColumnFiles(name, columnNameTxn, columnIndex, plen);
@@ -5718,7 +5970,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     if (indexer != null) {
                         // we have to create files before columns are open
                         // because we are reusing MAMemoryImpl object from columns list
-                        createIndexFiles(name, columnNameTxn, metadata.getIndexValueBlockCapacity(i), plen, txWriter.getTransientRowCount() < 1);
+                        createIndexFiles(name, metadata.getColumnType(i), columnNameTxn, metadata.getIndexValueBlockCapacity(i), plen, txWriter.getTransientRowCount() < 1);
                     }
 
                     openColumnFiles(name, columnNameTxn, i, plen);
@@ -5877,6 +6129,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             boolean flattenTimestamp,
             long rowLo
     ) {
+        o3DecompressPartitions(sortedTimestampsAddr, rowLo, srcOooMax, o3TimestampMin, o3TimestampMax);
         o3ErrorCount.set(0);
         lastErrno = 0;
         partitionRemoveCandidates.clear();
@@ -6492,6 +6745,88 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         removeSymbolMapWriter(index);
     }
 
+    private boolean rehashSymbolMapWriter(int columnIndex, SymbolMapWriter writer, double loadFactor) {
+        final int symbolCount = writer.getSymbolCount();
+        final int symbolCapacity = writer.getSymbolCapacity();
+        final int maxSymbolCapacity = writer.isCached() ? TableUtils.MAX_SYMBOL_CAPACITY_CACHED : TableUtils.MAX_SYMBOL_CAPACITY;
+        int newSymbolCapacity = symbolCapacity;
+        while (symbolCount > newSymbolCapacity * loadFactor && newSymbolCapacity < maxSymbolCapacity) {
+            newSymbolCapacity <<= 1;
+        }
+        if (newSymbolCapacity == symbolCapacity) {
+            return false;
+        }
+
+        final CharSequence columnName = metadata.getColumnName(columnIndex);
+        final int symbolIndexInTxWriter = denseSymbolMapWriters.indexOf(writer);
+        final boolean nullFlag = writer.getNullFlag();
+        LOG.info().$("rehashing symbol map [table=").utf8(tableToken.getTableName())
+                .$(", column=").utf8(columnName)
+                .$(", symbolCount=").$(symbolCount)
+                .$(", capacity=").$(symbolCapacity)
+                .$(", newCapacity=").$(newSymbolCapacity)
+                .I$();
+
+        // Column files are linked under the new column name txn and the old ones are purged
+        // when readers release them. Symbol values (.c) are shared with the old files,
+        // offsets (.o) and the hash index (.k, .v) are rebuilt for the new capacity.
+        hardLinkAndPurgeColumnFiles(columnName, columnIndex, columnName, ColumnType.SYMBOL, false);
+        final long columnNameTxn = columnVersionWriter.getDefaultColumnNameTxn(columnIndex);
+        try {
+            MapWriter.createSymbolMapFiles(ff, ddlMem, path.trimTo(rootLen), columnName, columnNameTxn, newSymbolCapacity, writer.isCached());
+            getSymbolMapUtil().rebuildSymbolFiles(configuration, path.trimTo(rootLen), columnName, columnNameTxn, symbolCount, newSymbolCapacity);
+        } finally {
+            path.trimTo(rootLen);
+        }
+
+        // readers of the old column name txn must not look for new symbols in the old files
+        writer.seal();
+        final SymbolMapWriter newWriter = new SymbolMapWriter(
+                configuration,
+                path.trimTo(rootLen),
+                columnName,
+                columnNameTxn,
+                symbolCount,
+                symbolIndexInTxWriter,
+                txWriter
+        );
+        newWriter.updateNullFlag(nullFlag);
+        symbolMapWriters.setQuick(columnIndex, newWriter);
+        denseSymbolMapWriters.setQuick(symbolIndexInTxWriter, newWriter);
+        Misc.free(writer);
+        return true;
+    }
+
+    /**
+     * Rehashes symbol maps, which symbol count outgrew their capacity by the configured load factor,
+     * into files with a larger capacity. The new files are recorded in the column version file
+     * and committed as a separate transaction, readers keep using the old files until they reload.
+     */
+    private void rehashSymbolMapWriters() {
+        final double loadFactor = configuration.getSymbolRehashLoadFactor();
+        if (loadFactor <= 0) {
+            return;
+        }
+
+        for (int i = 0, n = symbolMapWriters.size(); i < n; i++) {
+            final MapWriter writer = symbolMapWriters.getQuick(i);
+            if (writer instanceof SymbolMapWriter && writer.getSymbolCount() > writer.getSymbolCapacity() * loadFactor) {
+                try {
+                    if (!rehashSymbolMapWriter(i, (SymbolMapWriter) writer, loadFactor)) {
+                        continue;
+                    }
+                } catch (CairoException e) {
+                    throwDistressException(e);
+                }
+                // each column is committed separately, so that it gets unique column name txn
+                columnVersionWriter.commit();
+                txWriter.setColumnVersion(columnVersionWriter.getVersion());
+                txWriter.commit(denseSymbolMapWriters);
+                finishColumnPurge();
+            }
+        }
+    }
+
     private void releaseIndexerWriters() {
         for (int i = 0, n = denseIndexers.size(); i < n; i++) {
             ColumnIndexer indexer = denseIndexers.getQuick(i);
@@ -6518,6 +6853,33 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void remapWalSymbolColumn(int columnIndex, long rowLo, long rowHi, Path walPath) {
+        final int primaryColumnIndex = getPrimaryColumnIndex(columnIndex);
+        final MemoryCR o3SymbolColumn = o3Columns.getQuick(primaryColumnIndex);
+        final MemoryCARW symbolColumnDest = o3MemColumns1.get(primaryColumnIndex);
+        final IntList symbolRewriteMap = symbolRewriteMaps.getQuick(columnIndex);
+        final int cleanSymbolCount = symbolRewriteCleanCounts.getQuick(columnIndex);
+        for (long rowId = rowLo; rowId < rowHi; rowId++) {
+            int symKey = o3SymbolColumn.getInt(rowId << 2);
+            assert (symKey >= 0 || symKey == SymbolTable.VALUE_IS_NULL);
+            if (symKey >= cleanSymbolCount) {
+                int newKey = symbolRewriteMap.getQuick(symKey - cleanSymbolCount);
+                if (newKey < 0) {
+                    // This symbol was not mapped in WAL
+                    // WAL is invalid
+                    throw CairoException.critical(0).put("WAL symbol key not mapped [columnIndex=").put(columnIndex)
+                            .put(", columnKey=").put(symKey)
+                            .put(", walPath=").put(walPath)
+                            .put(", walRowId=").put(rowId)
+                            .put(']');
+                }
+                symKey = newKey;
+            }
+            symbolColumnDest.putInt((rowId - rowLo) << 2, symKey);
+        }
+        symbolColumnDest.shiftAddressRight(rowLo << 2);
+    }
+
     private ReadOnlyObjList<? extends MemoryCR> remapWalSymbols(
             SymbolMapDiffCursor symbolMapDiffCursor,
             long rowLo,
@@ -6526,6 +6888,9 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     ) {
         o3ColumnOverrides.clear();
         if (symbolMapDiffCursor != null) {
+            symbolRewriteCleanCounts.setAll(columnCount, -1);
+            int remapColumnIndex = -1;
+            int remapColumnCount = 0;
             SymbolMapDiff symbolMapDiff;
             while ((symbolMapDiff = symbolMapDiffCursor.nextSymbolMapDiff()) != null) {
                 int columnIndex = symbolMapDiff.getColumnIndex();
@@ -6541,11 +6906,15 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                             .put(", walPath=").put(walPath)
                             .put(']');
                 }
+                IntList symbolRewriteMap = symbolRewriteMaps.getQuiet(columnIndex);
+                if (symbolRewriteMap == null) {
+                    symbolRewriteMap = new IntList();
+                    symbolRewriteMaps.extendAndSet(columnIndex, symbolRewriteMap);
+                }
                 boolean identical = createWalSymbolMapping(symbolMapDiff, columnIndex, symbolRewriteMap);
 
                 if (!identical) {
                     int primaryColumnIndex = getPrimaryColumnIndex(columnIndex);
-                    MemoryCR o3SymbolColumn = o3Columns.getQuick(primaryColumnIndex);
                     final MemoryCARW symbolColumnDest;
 
                     // Column is read-only mapped memory, so we need to take in RAM column and remap values into it
@@ -6559,27 +6928,22 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     symbolColumnDest.jumpTo((rowHi - rowLo) << 2);
 
                     o3ColumnOverrides.setQuick(primaryColumnIndex, symbolColumnDest);
-                    final int cleanSymbolCount = symbolMapDiff.getCleanSymbolCount();
-                    for (long rowId = rowLo; rowId < rowHi; rowId++) {
-
-                        int symKey = o3SymbolColumn.getInt(rowId << 2);
-                        assert (symKey >= 0 || symKey == SymbolTable.VALUE_IS_NULL);
-                        if (symKey >= cleanSymbolCount) {
-                            int newKey = symbolRewriteMap.getQuick(symKey - cleanSymbolCount);
-                            if (newKey < 0) {
-                                // This symbol was not mapped in WAL
-                                // WAL is invalid
-                                throw CairoException.critical(0).put("WAL symbol key not mapped [columnIndex=").put(columnIndex)
-                                        .put(", columnKey=").put(symKey)
-                                        .put(", walPath=").put(walPath)
-                                        .put(", walRowId=").put(rowId)
-                                        .put(']');
-                            }
-                            symKey = newKey;
-                        }
-                        symbolColumnDest.putInt((rowId - rowLo) << 2, symKey);
-                    }
-                    symbolColumnDest.shiftAddressRight(rowLo << 2);
+                    symbolRewriteCleanCounts.setQuick(columnIndex, symbolMapDiff.getCleanSymbolCount());
+                    remapColumnIndex = columnIndex;
+                    remapColumnCount++;
+                }
+            }
+
+            // Symbol maps have to be updated one by one, as they are read from the WAL sequentially,
+            // but the destination memory is already sized, so the rows can be remapped in parallel.
+            if (remapColumnCount == 1) {
+                remapWalSymbolColumn(remapColumnIndex, rowLo, rowHi, walPath);
+            } else if (remapColumnCount > 1) {
+                remapWalPath = walPath;
+                try {
+                    dispatchColumnTasks(rowLo, rowHi, IGNORE, IGNORE, IGNORE, cthRemapWalSymbolColumnRef);
+                } finally {
+                    remapWalPath = null;
                 }
             }
         }
@@ -6755,6 +7119,12 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void removePartitionStats(long partitionTimestamp, long partitionNameTxn) {
+        setPathForPartition(path.trimTo(rootLen), partitionBy, partitionTimestamp, partitionNameTxn);
+        ff.removeQuiet(path.concat(PARTITION_STATS_FILE_NAME).$());
+        path.trimTo(rootLen);
+    }
+
     private void removeSymbolMapFilesQuiet(CharSequence name, long columnNamTxn) {
         try {
             removeFileOrLog(ff, offsetFileName(path.trimTo(rootLen), name, columnNamTxn));
@@ -7017,6 +7387,96 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void rewritePartitionFormat(int partitionIndex, long partitionTimestamp, boolean compress) {
+        if (snapshotAgent.isInProgress()) {
+            throw CairoException.nonCritical()
+                    .put("cannot rewrite partition, snapshot in progress [table=").put(tableToken.getTableName())
+                    .put(", partitionTimestamp=").ts(partitionTimestamp)
+                    .put(']');
+        }
+
+        // compressed files are written next to the links of the other partition files,
+        // so the partition has to be in a single folder
+        squashPartitionForce(partitionIndex);
+        partitionIndex = txWriter.getPartitionIndex(partitionTimestamp);
+
+        final long partitionSize = txWriter.getPartitionSize(partitionIndex);
+        final long partitionNameTxn = txWriter.getPartitionNameTxn(partitionIndex);
+        setPathForPartition(path.trimTo(rootLen), partitionBy, partitionTimestamp, partitionNameTxn);
+        setPathForPartition(other.trimTo(rootLen), partitionBy, partitionTimestamp, txWriter.txn);
+        createDirsOrFail(ff, other.slash$(), configuration.getMkDirMode());
+        final int plen = path.size();
+        final int olen = other.size();
+        try (ColumnCompressor compressor = new ColumnCompressor(ff, configuration.getCommitMode())) {
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = metadata.getColumnType(i);
+                if (columnType < 0) {
+                    continue;
+                }
+                final long columnTop = columnVersionWriter.getColumnTop(partitionTimestamp, i);
+                if (columnTop < 0) {
+                    // column does not exist in the partition
+                    continue;
+                }
+                final CharSequence columnName = metadata.getColumnName(i);
+                final long columnNameTxn = columnVersionWriter.getColumnNameTxn(partitionTimestamp, i);
+                final long columnRowCount = partitionSize - columnTop;
+                if (columnRowCount > 0 && ColumnCompressor.isCompressible(columnType)) {
+                    if (compress) {
+                        final long columnSize = columnRowCount << ColumnType.pow2SizeOf(columnType);
+                        final int fd = TableUtils.openRO(ff, dFile(path.trimTo(plen), columnName, columnNameTxn), LOG);
+                        long addr = 0;
+                        try {
+                            addr = TableUtils.mapRO(ff, fd, columnSize, MemoryTag.MMAP_TABLE_WRITER);
+                            compressor.compress(addr, columnRowCount, columnType, zFile(other.trimTo(olen), columnName, columnNameTxn));
+                        } finally {
+                            if (addr != 0) {
+                                ff.munmap(addr, columnSize, MemoryTag.MMAP_TABLE_WRITER);
+                            }
+                            ff.close(fd);
+                        }
+                    } else {
+                        compressor.decompress(
+                                zFile(path.trimTo(plen), columnName, columnNameTxn),
+                                dFile(other.trimTo(olen), columnName, columnNameTxn)
+                        );
+                    }
+                } else {
+                    linkFile(ff, dFile(path.trimTo(plen), columnName, columnNameTxn), dFile(other.trimTo(olen), columnName, columnNameTxn));
+                    if (ColumnType.isVarSize(columnType)) {
+                        linkFile(ff, iFile(path.trimTo(plen), columnName, columnNameTxn), iFile(other.trimTo(olen), columnName, columnNameTxn));
+                    }
+                }
+                if (metadata.isColumnIndexed(i)) {
+                    linkFile(ff, keyFileName(path.trimTo(plen), columnName, columnNameTxn), keyFileName(other.trimTo(olen), columnName, columnNameTxn));
+                    linkFile(ff, valueFileName(path.trimTo(plen), columnName, columnNameTxn), valueFileName(other.trimTo(olen), columnName, columnNameTxn));
+                }
+            }
+        } catch (Throwable th) {
+            LOG.error().$("could not rewrite partition [path=").$(other.trimTo(olen).$())
+                    .$(", compress=").$(compress)
+                    .$(", error=").$(th)
+                    .I$();
+            ff.unlinkOrRemove(other, LOG);
+            throw th;
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+
+        txWriter.updatePartitionSizeAndTxnByRawIndex(partitionIndex * LONGS_PER_TX_ATTACHED_PARTITION, partitionSize);
+        txWriter.setPartitionCompressed(partitionIndex, compress);
+        // readers reload the partition table only when its version changes
+        txWriter.bumpPartitionTableVersion();
+        partitionRemoveCandidates.add(partitionTimestamp, partitionNameTxn);
+        txWriter.commit(denseSymbolMapWriters);
+        processPartitionRemoveCandidates();
+        LOG.info().$(compress ? "compressed partition [table=" : "decompressed partition [table=").$(tableToken)
+                .$(", partition=").$(formatPartitionForTimestamp(partitionTimestamp, txWriter.getPartitionNameTxn(partitionIndex)))
+                .$(", rows=").$(partitionSize)
+                .I$();
+    }
+
     private void rollbackIndexes() {
         final long maxRow = txWriter.getTransientRowCount() - 1;
         for (int i = 0, n = denseIndexers.size(); i < n; i++) {
@@ -7485,7 +7945,9 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         } else {
             // truncate columns, we cannot remove them
             truncateColumns();
+            removePartitionStats(TxReader.DEFAULT_PARTITION_TIMESTAMP, -1L);
         }
+        partitionStatsLastTimestamp = Long.MIN_VALUE;
 
         txWriter.resetTimestamp();
         columnVersionWriter.truncate();
@@ -7727,6 +8189,87 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    /**
+     * Brings partition statistics up to date after a commit. Partitions written by O3 are
+     * scanned in full, partitions appended in order since the previous commit are extended
+     * incrementally when the writer still holds their statistics in memory. Statistics are
+     * advisory, a failure to maintain them does not fail the commit.
+     */
+    private void updatePartitionStats() {
+        if (partitionStats == null) {
+            // statistics are not maintained, but partitions rewritten in place must not keep stale ones
+            for (int i = 0, n = partitionStatsTimestamps.size(); i < n; i++) {
+                final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(partitionStatsTimestamps.getQuick(i));
+                if (partitionIndex > -1) {
+                    removePartitionStats(txWriter.getPartitionTimestampByIndex(partitionIndex), txWriter.getPartitionNameTxn(partitionIndex));
+                }
+            }
+            partitionStatsTimestamps.clear();
+            return;
+        }
+        try {
+            final int partitionCount = txWriter.getPartitionCount();
+            int lo = partitionStatsLastTimestamp == Long.MIN_VALUE ? 0 : txWriter.findAttachedPartitionIndexByLoTimestamp(partitionStatsLastTimestamp);
+            if (lo < 0) {
+                lo = -lo - 1;
+            }
+            // the last partition of the previous commit may have been dropped since
+            lo = Math.min(lo, partitionCount - 1);
+            // partitions written in order go first, so that the last partition of the previous
+            // commit is extended before the in-memory statistics are reused for another partition
+            for (int i = lo; i < partitionCount; i++) {
+                updatePartitionStats(i, partitionStatsTimestamps.indexOf(txWriter.getPartitionTimestampByIndex(i)) > -1);
+            }
+            for (int i = 0, n = partitionStatsTimestamps.size(); i < n; i++) {
+                final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(partitionStatsTimestamps.getQuick(i));
+                if (partitionIndex > -1 && partitionIndex < lo) {
+                    updatePartitionStats(partitionIndex, true);
+                }
+            }
+        } catch (CairoException e) {
+            partitionStats.invalidate();
+            LOG.error().$("could not update partition stats [table=").utf8(tableToken.getTableName())
+                    .$(", msg=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .I$();
+        } finally {
+            partitionStatsTimestamps.clear();
+            partitionStatsLastTimestamp = getLastPartitionStatsTimestamp();
+            path.trimTo(rootLen);
+        }
+    }
+
+    private void updatePartitionStats(int partitionIndex, boolean rewritten) {
+        final int partitionCount = txWriter.getPartitionCount();
+        final long rowCount = partitionIndex == partitionCount - 1
+                ? txWriter.getTransientRowCount()
+                : txWriter.getPartitionSize(partitionIndex);
+        if (rowCount < 1 || txWriter.isPartitionCompressed(partitionIndex)) {
+            return;
+        }
+
+        final long partitionTimestamp = txWriter.getPartitionTimestampByIndex(partitionIndex);
+        final long partitionNameTxn = txWriter.getPartitionNameTxn(partitionIndex);
+        partitionStats.of(partitionTimestamp, partitionNameTxn, columnCount, rewritten);
+        setPathForPartition(path.trimTo(rootLen), partitionBy, partitionTimestamp, partitionNameTxn);
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (columnType > 0 && i != metadata.getTimestampIndex() && PartitionStats.isSupported(columnType)) {
+                partitionStats.update(
+                        ff,
+                        path,
+                        metadata.getColumnName(i),
+                        i,
+                        columnType,
+                        columnVersionWriter.getColumnNameTxn(partitionTimestamp, i),
+                        columnVersionWriter.getColumnTop(partitionTimestamp, i),
+                        rowCount
+                );
+            }
+        }
+        partitionStats.write(ff, path, columnCount);
+    }
+
     private void validateSwapMeta(CharSequence columnName) {
         try {
             try {
@@ -7776,7 +8319,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         ddlMem.skip(16);
     }
 
-    private void writeIndex(@NotNull CharSequence columnName, int indexValueBlockSize, int columnIndex, SymbolColumnIndexer indexer) {
+    private void writeIndex(@NotNull CharSequence columnName, int columnType, int indexValueBlockSize, int columnIndex, ColumnIndexer indexer) {
         // create indexer
         final long columnNameTxn = columnVersionWriter.getColumnNameTxn(txWriter.getLastPartitionTimestamp(), columnIndex);
         try {
@@ -7789,18 +8332,18 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 // This piece of code is unbelievably fragile!
                 if (PartitionBy.isPartitioned(partitionBy)) {
                     // run indexer for the whole table
-                    indexHistoricPartitions(indexer, columnName, indexValueBlockSize, columnIndex);
+                    indexHistoricPartitions(indexer, columnName, columnType, indexValueBlockSize, columnIndex);
                     long timestamp = txWriter.getLastPartitionTimestamp();
                     if (timestamp != Numbers.LONG_NULL) {
                         path.trimTo(rootLen);
                         setStateForTimestamp(path, timestamp);
                         // create index in last partition
-                        indexLastPartition(indexer, columnName, columnNameTxn, columnIndex, indexValueBlockSize);
+                        indexLastPartition(indexer, columnName, columnType, columnNameTxn, columnIndex, indexValueBlockSize);
                     }
                 } else {
                     setStateForTimestamp(path, 0);
                     // create index in last partition
-                    indexLastPartition(indexer, columnName, columnNameTxn, columnIndex, indexValueBlockSize);
+                    indexLastPartition(indexer, columnName, columnType, columnNameTxn, columnIndex, indexValueBlockSize);
                 }
             } finally {
                 path.trimTo(rootLen);
@@ -128,6 +128,19 @@ public interface TableWriterAPI extends Closeable {
 
     void ic(long o3MaxLag);
 
+    /**
+     * Returns a row that the writer is free to stage and append in bulk with the rows that
+     * follow it. Staged rows become part of the transaction the same way as regular rows.
+     * Callers must only write fixed-size column values to the row, rows with variable-size
+     * column values have to be appended with {@link #newRow(long)}.
+     *
+     * @param timestamp designated timestamp of the row
+     * @return row to be populated and appended
+     */
+    default TableWriter.Row newBatchRow(long timestamp) {
+        return newRow(timestamp);
+    }
+
     TableWriter.Row newRow();
 
     TableWriter.Row newRow(long timestamp);
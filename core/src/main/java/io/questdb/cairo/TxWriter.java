@@ -363,6 +363,21 @@ public final class TxWriter extends TxReader implements Closeable, Mutable, Symb
         }
     }
 
+    /**
+     * Marks partition as stored in the compressed format. Compressed partitions are
+     * also read-only, see {@link #setPartitionReadOnly(int, boolean)}.
+     */
+    public void setPartitionCompressed(int partitionIndex, boolean isCompressed) {
+        int offset = partitionIndex * LONGS_PER_TX_ATTACHED_PARTITION + PARTITION_MASKED_SIZE_OFFSET;
+        long maskedSize = attachedPartitions.getQuick(offset);
+        if (isCompressed) {
+            maskedSize |= 1L << PARTITION_MASK_COMPRESSED_BIT_OFFSET;
+        } else {
+            maskedSize &= ~(1L << PARTITION_MASK_COMPRESSED_BIT_OFFSET);
+        }
+        attachedPartitions.setQuick(offset, updatePartitionIsReadOnly(maskedSize, isCompressed));
+    }
+
     public void setPartitionReadOnly(int partitionIndex, boolean isReadOnly) {
         setPartitionReadOnlyByRawIndex(partitionIndex * LONGS_PER_TX_ATTACHED_PARTITION, isReadOnly);
     }
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.compress;
+
+import io.questdb.std.Unsafe;
+
+/**
+ * Frame-of-reference bit packing for 32-bit integers, used for SYMBOL keys. Symbol
+ * keys are dense, so a block of keys needs only as many bits as the number of
+ * distinct values in the block's key range.
+ */
+final class BitPackedIntCodec {
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private BitPackedIntCodec() {
+    }
+
+    static void decode(long src, int count, long dst, BitReader reader) {
+        final int min = Unsafe.getUnsafe().getInt(src);
+        final int width = Unsafe.getUnsafe().getInt(src + Integer.BYTES);
+        reader.of(src + HEADER_SIZE);
+        for (int i = 0; i < count; i++) {
+            Unsafe.getUnsafe().putInt(dst + ((long) i << 2), (int) (min + reader.read(width)));
+        }
+    }
+
+    static long encode(long src, int count, long dst, BitWriter writer) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            final int value = Unsafe.getUnsafe().getInt(src + ((long) i << 2));
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        final int width = 64 - Long.numberOfLeadingZeros((long) max - min);
+        Unsafe.getUnsafe().putInt(dst, min);
+        Unsafe.getUnsafe().putInt(dst + Integer.BYTES, width);
+        if (width == 0) {
+            return HEADER_SIZE;
+        }
+        writer.of(dst + HEADER_SIZE);
+        for (int i = 0; i < count; i++) {
+            writer.write((long) Unsafe.getUnsafe().getInt(src + ((long) i << 2)) - min, width);
+        }
+        return HEADER_SIZE + writer.finish();
+    }
+
+    static long maxEncodedSize(int count) {
+        return HEADER_SIZE + (long) count * Integer.BYTES + Long.BYTES;
+    }
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.compress;
+
+import io.questdb.std.Unsafe;
+
+/**
+ * Reads values written by {@link BitWriter}.
+ */
+final class BitReader {
+    private int bitsLeft;
+    private long address;
+    private long word;
+
+    static long mask(int width) {
+        return width == 64 ? -1L : (1L << width) - 1;
+    }
+
+    void of(long address) {
+        this.address = address;
+        this.word = 0;
+        this.bitsLeft = 0;
+    }
+
+    long read(int width) {
+        if (width == 0) {
+            return 0;
+        }
+        if (bitsLeft == 0) {
+            word = Unsafe.getUnsafe().getLong(address);
+            address += Long.BYTES;
+            bitsLeft = 64;
+        }
+        if (width <= bitsLeft) {
+            final long value = word & mask(width);
+            word = width < 64 ? word >>> width : 0;
+            bitsLeft -= width;
+            return value;
+        }
+        // the value spans two words
+        final long lo = word;
+        final int loBits = bitsLeft;
+        final int hiBits = width - loBits;
+        word = Unsafe.getUnsafe().getLong(address);
+        address += Long.BYTES;
+        final long value = lo | ((word & mask(hiBits)) << loBits);
+        word >>>= hiBits;
+        bitsLeft = 64 - hiBits;
+        return value;
+    }
+}
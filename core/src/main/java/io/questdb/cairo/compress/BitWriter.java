@@ -0,0 +1,79 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.compress;
+
+import io.questdb.std.Unsafe;
+
+/**
+ * Appends values of arbitrary bit width to native memory. Bits are packed LSB first
+ * into 64-bit little-endian words, so the output is always a whole number of words.
+ */
+final class BitWriter {
+    private long address;
+    private int bitCount;
+    private long start;
+    private long word;
+
+    /**
+     * Flushes the pending word and returns the number of bytes written since {@link #of(long)}.
+     */
+    long finish() {
+        if (bitCount > 0) {
+            Unsafe.getUnsafe().putLong(address, word);
+            address += Long.BYTES;
+            word = 0;
+            bitCount = 0;
+        }
+        return address - start;
+    }
+
+    void of(long address) {
+        this.start = address;
+        this.address = address;
+        this.word = 0;
+        this.bitCount = 0;
+    }
+
+    /**
+     * Writes the low width bits of the value. Bits above the width must be zero.
+     */
+    void write(long value, int width) {
+        if (width == 0) {
+            return;
+        }
+        word |= value << bitCount;
+        final int free = 64 - bitCount;
+        if (width >= free) {
+            Unsafe.getUnsafe().putLong(address, word);
+            address += Long.BYTES;
+            // shift by 64 is a no-op in Java, hence the guard
+            word = free < 64 ? value >>> free : 0;
+            bitCount = width - free;
+        } else {
+            bitCount += width;
+        }
+    }
+}
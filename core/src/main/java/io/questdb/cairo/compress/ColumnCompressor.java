@@ -0,0 +1,306 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.compress;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.CommitMode;
+import io.questdb.cairo.TableUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Converts fixed-size column files of cold partitions to and from the compressed
+ * format. A compressed column file has the following layout:
+ * <pre>
+ * int  format version
+ * int  codec
+ * long row count
+ * int  rows per block
+ * int  block count
+ * long[block count + 1] file offsets of the blocks, the last one is the file size
+ * blocks
+ * </pre>
+ * Blocks are encoded independently, see {@link DeltaForCodec}, {@link BitPackedIntCodec}
+ * and {@link XorDoubleCodec} for the block formats.
+ */
+public class ColumnCompressor implements QuietCloseable {
+    public static final int BLOCK_ROWS = 64 * 1024;
+    static final int CODEC_BIT_PACKED_INT = 2;
+    static final int CODEC_DELTA_FOR = 1;
+    static final int CODEC_XOR_DOUBLE = 3;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final Log LOG = LogFactory.getLog(ColumnCompressor.class);
+    private final int commitMode;
+    private final FilesFacade ff;
+    private final BitReader reader = new BitReader();
+    private final BitWriter writer = new BitWriter();
+    private long scratch;
+    private long scratchSize;
+
+    public ColumnCompressor(FilesFacade ff, int commitMode) {
+        this.ff = ff;
+        this.commitMode = commitMode;
+    }
+
+    /**
+     * Returns the codec for the column type or -1 when the type is stored uncompressed.
+     */
+    public static int getCodec(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return CODEC_DELTA_FOR;
+            case ColumnType.SYMBOL:
+                return CODEC_BIT_PACKED_INT;
+            case ColumnType.DOUBLE:
+                return CODEC_XOR_DOUBLE;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Validates the header of a mapped compressed column file and returns the size of the
+     * decompressed column.
+     */
+    public static long getDecompressedSize(long address, long fileSize) {
+        if (fileSize < HEADER_SIZE) {
+            throw invalidFile(fileSize);
+        }
+        final int version = Unsafe.getUnsafe().getInt(address);
+        final int codec = Unsafe.getUnsafe().getInt(address + Integer.BYTES);
+        final long rowCount = Unsafe.getUnsafe().getLong(address + 2 * Integer.BYTES);
+        final int blockRows = Unsafe.getUnsafe().getInt(address + 2 * Integer.BYTES + Long.BYTES);
+        final int blockCount = Unsafe.getUnsafe().getInt(address + 3 * Integer.BYTES + Long.BYTES);
+        if (
+                version != FORMAT_VERSION
+                        || codec < CODEC_DELTA_FOR || codec > CODEC_XOR_DOUBLE
+                        || rowCount < 0 || blockRows < 1 || blockCount < 0
+                        || (rowCount + blockRows - 1) / blockRows != blockCount
+                        || HEADER_SIZE + (blockCount + 1L) * Long.BYTES > fileSize
+                        || Unsafe.getUnsafe().getLong(address + HEADER_SIZE + (long) blockCount * Long.BYTES) != fileSize
+        ) {
+            throw invalidFile(fileSize);
+        }
+        return rowCount << valueSizeShift(codec);
+    }
+
+    public static boolean isCompressible(int columnType) {
+        return getCodec(columnType) != -1;
+    }
+
+    @Override
+    public void close() {
+        if (scratch != 0) {
+            scratch = Unsafe.free(scratch, scratchSize, MemoryTag.NATIVE_DEFAULT);
+            scratchSize = 0;
+        }
+    }
+
+    /**
+     * Compresses column values into a new file.
+     *
+     * @param address    address of the column values
+     * @param rowCount   number of values
+     * @param columnType column type, must be compressible
+     * @param path       path of the compressed file
+     * @return size of the compressed file
+     */
+    public long compress(long address, long rowCount, int columnType, LPSZ path) {
+        final int codec = getCodec(columnType);
+        assert codec != -1;
+        final int shift = valueSizeShift(codec);
+        final int blockCount = (int) ((rowCount + BLOCK_ROWS - 1) / BLOCK_ROWS);
+        final long indexSize = (blockCount + 1L) * Long.BYTES;
+        ensureScratch(Math.max(maxEncodedSize(codec, BLOCK_ROWS), HEADER_SIZE + indexSize));
+
+        final int fd = TableUtils.openRW(ff, path, LOG, CairoConfiguration.O_NONE);
+        try {
+            if (!ff.truncate(fd, 0)) {
+                throw CairoException.critical(ff.errno()).put("could not truncate [file=").put(path).put(']');
+            }
+            // the block offsets are collected in the file itself and written last
+            final long indexOffset = HEADER_SIZE;
+            long offset = indexOffset + indexSize;
+            final long blockOffsets = Unsafe.malloc(indexSize, MemoryTag.NATIVE_DEFAULT);
+            try {
+                for (int i = 0; i < blockCount; i++) {
+                    final long lo = (long) i * BLOCK_ROWS;
+                    final int count = (int) Math.min(BLOCK_ROWS, rowCount - lo);
+                    final long len = encodeBlock(codec, address + (lo << shift), count, scratch);
+                    Unsafe.getUnsafe().putLong(blockOffsets + (long) i * Long.BYTES, offset);
+                    write(fd, scratch, len, offset, path);
+                    offset += len;
+                }
+                Unsafe.getUnsafe().putLong(blockOffsets + (long) blockCount * Long.BYTES, offset);
+
+                Unsafe.getUnsafe().putInt(scratch, FORMAT_VERSION);
+                Unsafe.getUnsafe().putInt(scratch + Integer.BYTES, codec);
+                Unsafe.getUnsafe().putLong(scratch + 2 * Integer.BYTES, rowCount);
+                Unsafe.getUnsafe().putInt(scratch + 2 * Integer.BYTES + Long.BYTES, BLOCK_ROWS);
+                Unsafe.getUnsafe().putInt(scratch + 3 * Integer.BYTES + Long.BYTES, blockCount);
+                Unsafe.getUnsafe().copyMemory(blockOffsets, scratch + HEADER_SIZE, indexSize);
+                write(fd, scratch, HEADER_SIZE + indexSize, 0, path);
+            } finally {
+                Unsafe.free(blockOffsets, indexSize, MemoryTag.NATIVE_DEFAULT);
+            }
+            if (commitMode != CommitMode.NOSYNC) {
+                ff.fsync(fd);
+            }
+            return offset;
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    /**
+     * Restores the column file from its compressed copy.
+     *
+     * @param srcPath path of the compressed file
+     * @param dstPath path of the column file to create
+     * @return size of the column file
+     */
+    public long decompress(LPSZ srcPath, LPSZ dstPath) {
+        final int srcFd = TableUtils.openRO(ff, srcPath, LOG);
+        long srcAddr = 0;
+        long srcSize = 0;
+        int dstFd = -1;
+        long dstAddr = 0;
+        long dstSize = 0;
+        try {
+            srcSize = ff.length(srcFd);
+            srcAddr = TableUtils.mapRO(ff, srcFd, srcSize, MemoryTag.MMAP_TABLE_WRITER);
+            dstSize = getDecompressedSize(srcAddr, srcSize);
+            dstFd = TableUtils.openRW(ff, dstPath, LOG, CairoConfiguration.O_NONE);
+            if (dstSize > 0) {
+                dstAddr = TableUtils.mapRW(ff, dstFd, dstSize, MemoryTag.MMAP_TABLE_WRITER);
+                decompress(srcAddr, dstAddr, reader);
+                if (commitMode != CommitMode.NOSYNC) {
+                    ff.msync(dstAddr, dstSize, commitMode == CommitMode.ASYNC);
+                }
+            }
+            return dstSize;
+        } finally {
+            if (dstAddr != 0) {
+                ff.munmap(dstAddr, dstSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+            if (dstFd != -1) {
+                ff.close(dstFd);
+            }
+            if (srcAddr != 0) {
+                ff.munmap(srcAddr, srcSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+            ff.close(srcFd);
+        }
+    }
+
+    private static long encodeBlock(int codec, long src, int count, long dst, BitWriter writer) {
+        switch (codec) {
+            case CODEC_DELTA_FOR:
+                return DeltaForCodec.encode(src, count, dst, writer);
+            case CODEC_BIT_PACKED_INT:
+                return BitPackedIntCodec.encode(src, count, dst, writer);
+            default:
+                return XorDoubleCodec.encode(src, count, dst, writer);
+        }
+    }
+
+    private static CairoException invalidFile(long fileSize) {
+        return CairoException.critical(0).put("invalid compressed column file [size=").put(fileSize).put(']');
+    }
+
+    private static long maxEncodedSize(int codec, int count) {
+        switch (codec) {
+            case CODEC_DELTA_FOR:
+                return DeltaForCodec.maxEncodedSize(count);
+            case CODEC_BIT_PACKED_INT:
+                return BitPackedIntCodec.maxEncodedSize(count);
+            default:
+                return XorDoubleCodec.maxEncodedSize(count);
+        }
+    }
+
+    private static int valueSizeShift(int codec) {
+        return codec == CODEC_BIT_PACKED_INT ? 2 : 3;
+    }
+
+    private long encodeBlock(int codec, long src, int count, long dst) {
+        final long len = encodeBlock(codec, src, count, dst, writer);
+        assert len <= maxEncodedSize(codec, count);
+        return len;
+    }
+
+    private void ensureScratch(long size) {
+        if (scratchSize < size) {
+            scratch = Unsafe.realloc(scratch, scratchSize, size, MemoryTag.NATIVE_DEFAULT);
+            scratchSize = size;
+        }
+    }
+
+    private void write(int fd, long address, long len, long offset, LPSZ path) {
+        if (ff.write(fd, address, len, offset) != len) {
+            throw CairoException.critical(ff.errno()).put("could not write compressed column [file=").put(path).put(']');
+        }
+    }
+
+    /**
+     * Decodes all blocks of a mapped compressed column file, previously validated with
+     * {@link #getDecompressedSize(long, long)}, to the destination address.
+     */
+    static void decompress(long address, long dst, BitReader reader) {
+        final int codec = Unsafe.getUnsafe().getInt(address + Integer.BYTES);
+        final long rowCount = Unsafe.getUnsafe().getLong(address + 2 * Integer.BYTES);
+        final int blockRows = Unsafe.getUnsafe().getInt(address + 2 * Integer.BYTES + Long.BYTES);
+        final int blockCount = Unsafe.getUnsafe().getInt(address + 3 * Integer.BYTES + Long.BYTES);
+        final int shift = valueSizeShift(codec);
+        for (int i = 0; i < blockCount; i++) {
+            final long lo = (long) i * blockRows;
+            final int count = (int) Math.min(blockRows, rowCount - lo);
+            final long blockAddr = address + Unsafe.getUnsafe().getLong(address + HEADER_SIZE + (long) i * Long.BYTES);
+            final long blockDst = dst + (lo << shift);
+            switch (codec) {
+                case CODEC_DELTA_FOR:
+                    DeltaForCodec.decode(blockAddr, count, blockDst, reader);
+                    break;
+                case CODEC_BIT_PACKED_INT:
+                    BitPackedIntCodec.decode(blockAddr, count, blockDst, reader);
+                    break;
+                default:
+                    XorDoubleCodec.decode(blockAddr, count, blockDst, reader);
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.compress;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.vm.AbstractMemoryCR;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Read-only column memory of a compressed partition. The compressed file is decoded
+ * as a whole into a buffer taken from the reader's {@link DecompressionBufferPool}
+ * when the partition is opened, and the buffer goes back to the pool on close.
+ * The file descriptor is kept open, same as for mapped column files.
+ */
+public class DecompressedMemoryCMR extends AbstractMemoryCR implements MemoryCMR {
+    private static final Log LOG = LogFactory.getLog(DecompressedMemoryCMR.class);
+    private final DecompressionBufferPool bufferPool;
+    private final DecompressionBufferPool.Owner owner;
+    private final BitReader reader = new BitReader();
+    private int fd = -1;
+
+    public DecompressedMemoryCMR(DecompressionBufferPool bufferPool, DecompressionBufferPool.Owner owner) {
+        super(true);
+        this.bufferPool = bufferPool;
+        this.owner = owner;
+    }
+
+    @Override
+    public long addressOf(long offset) {
+        if (pageAddress == 0) {
+            decompress();
+        }
+        return super.addressOf(offset);
+    }
+
+    @Override
+    public void close() {
+        clear();
+        if (pageAddress != 0) {
+            bufferPool.free(this, pageAddress);
+            pageAddress = 0;
+        }
+        size = 0;
+        if (ff != null && ff.close(fd)) {
+            LOG.debug().$("closed [fd=").$(fd).I$();
+        }
+        fd = -1;
+    }
+
+    @Override
+    public int detachFdClose() {
+        final int fd = this.fd;
+        this.fd = -1;
+        close();
+        return fd;
+    }
+
+    @Override
+    public void extend(long newSize) {
+        if (newSize > size) {
+            // compressed partitions are read-only, their columns never grow
+            throw CairoException.critical(0).put("cannot extend decompressed column [size=").put(size)
+                    .put(", newSize=").put(newSize)
+                    .put(']');
+        }
+    }
+
+    @Override
+    public int getFd() {
+        return fd;
+    }
+
+    public DecompressionBufferPool.Owner getOwner() {
+        return owner;
+    }
+
+    @Override
+    public long getPageAddress(int pageIndex) {
+        if (pageAddress == 0) {
+            decompress();
+        }
+        return pageAddress;
+    }
+
+    @Override
+    public int getPageCount() {
+        return size > 0 ? 1 : 0;
+    }
+
+    @Override
+    public boolean isMapped(long offset, long len) {
+        return offset + len <= size;
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag, long opts, int madviseOpts) {
+        close();
+        this.ff = ff;
+        fd = TableUtils.openRO(ff, name, LOG);
+        long fileAddr = 0;
+        long fileSize = 0;
+        try {
+            fileSize = ff.length(fd);
+            if (fileSize < 0) {
+                throw CairoException.critical(ff.errno()).put("could not get length: ").put(name);
+            }
+            fileAddr = TableUtils.mapRO(ff, fd, fileSize, MemoryTag.MMAP_TABLE_READER);
+            final long decompressedSize = ColumnCompressor.getDecompressedSize(fileAddr, fileSize);
+            if (decompressedSize < size) {
+                throw CairoException.critical(0).put("compressed column is too short [file=").put(name)
+                        .put(", size=").put(decompressedSize)
+                        .put(", expectedSize=").put(size)
+                        .put(']');
+            }
+            // the column is decompressed on first access
+            this.size = decompressedSize;
+            LOG.debug().$("open [file=").$(name).$(", fd=").$(fd).$(", size=").$(decompressedSize).I$();
+        } catch (Throwable th) {
+            close();
+            throw th;
+        } finally {
+            if (fileAddr != 0) {
+                ff.munmap(fileAddr, fileSize, MemoryTag.MMAP_TABLE_READER);
+            }
+        }
+    }
+
+    private synchronized void decompress() {
+        if (pageAddress != 0 || size == 0) {
+            return;
+        }
+        final long fileSize = ff.length(fd);
+        if (fileSize < 0) {
+            throw CairoException.critical(ff.errno()).put("could not get length [fd=").put(fd).put(']');
+        }
+        final long fileAddr = TableUtils.mapRO(ff, fd, fileSize, MemoryTag.MMAP_TABLE_READER);
+        try {
+            final long address = bufferPool.allocate(this, size);
+            try {
+                ColumnCompressor.decompress(fileAddr, address, reader);
+            } catch (Throwable th) {
+                bufferPool.free(this, address);
+                throw th;
+            }
+            // the buffer has to be filled before other threads can see its address
+            Unsafe.getUnsafe().storeFence();
+            pageAddress = address;
+            LOG.debug().$("decompressed [fd=").$(fd).$(", size=").$(size).I$();
+        } finally {
+            ff.munmap(fileAddr, fileSize, MemoryTag.MMAP_TABLE_READER);
+        }
+    }
+
+    // called by the buffer pool, under its lock, once the owner is not in use
+    long evict() {
+        final long address = pageAddress;
+        pageAddress = 0;
+        return address;
+    }
+}
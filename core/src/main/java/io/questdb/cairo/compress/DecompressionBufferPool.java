@@ -0,0 +1,122 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.compress;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+
+/**
+ * Engine-wide budget for native buffers of decompressed columns. Columns are decompressed
+ * lazily, when first touched, and {@link #allocate(DecompressedMemoryCMR, long)} keeps the
+ * total within the pool size by evicting the least recently decompressed columns of readers
+ * that are not in use. A reader pins its columns while it is active, so that buffers of a
+ * running query are never evicted. When nothing can be evicted the allocation fails rather
+ * than exceeding the budget.
+ * <p>
+ * Thread-safe, the pool is shared by all readers of the engine.
+ */
+public class DecompressionBufferPool implements QuietCloseable {
+    // decompressed columns, least recently decompressed first
+    private final ObjList<DecompressedMemoryCMR> columns = new ObjList<>();
+    private final long maxSize;
+    private long usedBytes;
+
+    public DecompressionBufferPool(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public synchronized long allocate(DecompressedMemoryCMR column, long size) {
+        int i = 0;
+        while (usedBytes + size > maxSize && i < columns.size()) {
+            final DecompressedMemoryCMR candidate = columns.getQuick(i);
+            if (candidate.getOwner().pinned) {
+                i++;
+            } else {
+                columns.remove(i);
+                usedBytes -= candidate.size();
+                Unsafe.free(candidate.evict(), candidate.size(), MemoryTag.NATIVE_TABLE_READER);
+            }
+        }
+        if (usedBytes + size > maxSize) {
+            throw CairoException.nonCritical().setOutOfMemory(true)
+                    .put("decompression buffer pool is exhausted [size=").put(size)
+                    .put(", usedBytes=").put(usedBytes)
+                    .put(", maxSize=").put(maxSize)
+                    .put(']');
+        }
+        final long address = Unsafe.malloc(size, MemoryTag.NATIVE_TABLE_READER);
+        usedBytes += size;
+        columns.add(column);
+        return address;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (int i = columns.size() - 1; i > -1; i--) {
+            final DecompressedMemoryCMR column = columns.getQuick(i);
+            if (!column.getOwner().pinned) {
+                columns.remove(i);
+                usedBytes -= column.size();
+                Unsafe.free(column.evict(), column.size(), MemoryTag.NATIVE_TABLE_READER);
+            }
+        }
+    }
+
+    public synchronized void free(DecompressedMemoryCMR column, long address) {
+        final int index = columns.indexOf(column);
+        if (index > -1) {
+            columns.remove(index);
+            usedBytes -= column.size();
+            Unsafe.free(address, column.size(), MemoryTag.NATIVE_TABLE_READER);
+        }
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized void pin(Owner owner) {
+        owner.pinned = true;
+    }
+
+    public synchronized void unpin(Owner owner) {
+        owner.pinned = false;
+    }
+
+    /**
+     * Columns of a single reader, pinned while the reader is in use.
+     */
+    public static class Owner {
+        private boolean pinned = true;
+    }
+}
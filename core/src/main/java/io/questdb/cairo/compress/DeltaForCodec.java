@@ -0,0 +1,100 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.compress;
+
+import io.questdb.std.Unsafe;
+
+/**
+ * Delta encoding with frame-of-reference bit packing for 64-bit integers, i.e. LONG,
+ * DATE and TIMESTAMP columns. A block stores the first value, the minimum delta
+ * and the bit width, followed by the packed differences between each delta and
+ * the minimum. Monotonic timestamps with a regular interval pack into a few bits
+ * per row. Arithmetic wraps around, so nulls and extreme values round-trip.
+ */
+final class DeltaForCodec {
+    private static final int HEADER_SIZE = 2 * Long.BYTES + 2 * Integer.BYTES;
+
+    private DeltaForCodec() {
+    }
+
+    static void decode(long src, int count, long dst, BitReader reader) {
+        long value = Unsafe.getUnsafe().getLong(src);
+        final long minDelta = Unsafe.getUnsafe().getLong(src + Long.BYTES);
+        final int width = Unsafe.getUnsafe().getInt(src + 2 * Long.BYTES);
+        Unsafe.getUnsafe().putLong(dst, value);
+        if (width == 0) {
+            for (int i = 1; i < count; i++) {
+                value += minDelta;
+                Unsafe.getUnsafe().putLong(dst + ((long) i << 3), value);
+            }
+        } else {
+            reader.of(src + HEADER_SIZE);
+            for (int i = 1; i < count; i++) {
+                value += minDelta + reader.read(width);
+                Unsafe.getUnsafe().putLong(dst + ((long) i << 3), value);
+            }
+        }
+    }
+
+    static long encode(long src, int count, long dst, BitWriter writer) {
+        final long first = Unsafe.getUnsafe().getLong(src);
+        long minDelta = Long.MAX_VALUE;
+        long maxDelta = Long.MIN_VALUE;
+        long prev = first;
+        for (int i = 1; i < count; i++) {
+            final long value = Unsafe.getUnsafe().getLong(src + ((long) i << 3));
+            final long delta = value - prev;
+            minDelta = Math.min(minDelta, delta);
+            maxDelta = Math.max(maxDelta, delta);
+            prev = value;
+        }
+        if (count < 2) {
+            minDelta = maxDelta = 0;
+        }
+        // the range is unsigned, maxDelta - minDelta may not fit into a signed long
+        final int width = 64 - Long.numberOfLeadingZeros(maxDelta - minDelta);
+
+        Unsafe.getUnsafe().putLong(dst, first);
+        Unsafe.getUnsafe().putLong(dst + Long.BYTES, minDelta);
+        Unsafe.getUnsafe().putInt(dst + 2 * Long.BYTES, width);
+        Unsafe.getUnsafe().putInt(dst + 2 * Long.BYTES + Integer.BYTES, 0);
+        if (width == 0) {
+            return HEADER_SIZE;
+        }
+        writer.of(dst + HEADER_SIZE);
+        prev = first;
+        for (int i = 1; i < count; i++) {
+            final long value = Unsafe.getUnsafe().getLong(src + ((long) i << 3));
+            writer.write(value - prev - minDelta, width);
+            prev = value;
+        }
+        return HEADER_SIZE + writer.finish();
+    }
+
+    static long maxEncodedSize(int count) {
+        return HEADER_SIZE + (long) count * Long.BYTES + Long.BYTES;
+    }
+}
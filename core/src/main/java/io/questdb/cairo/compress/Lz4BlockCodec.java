@@ -0,0 +1,253 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.compress;
+
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * Byte-oriented LZ77 codec that writes LZ4 block format. Each sequence is a token with
+ * 4 bits of literal length and 4 bits of match length - 4, extra length bytes when a
+ * nibble is 15, literals and a 2-byte little-endian match offset. The last sequence
+ * has literals only. Matches are found with a single-entry hash table of 4-byte
+ * prefixes, which favours speed over ratio, same as the reference "fast" level.
+ * <p>
+ * Both sides work on native memory. The encoder output must have room for
+ * {@link #maxCompressedSize(long)} bytes, the decoder checks all offsets and
+ * returns -1 on malformed input.
+ */
+public final class Lz4BlockCodec {
+    public static final long HASH_TABLE_SIZE;
+    private static final int HASH_LOG = 12;
+    private static final int LAST_LITERALS = 5;
+    private static final int MAX_DISTANCE = 0xffff;
+    private static final int MF_LIMIT = 12;
+    private static final int MIN_MATCH = 4;
+    private static final int SKIP_TRIGGER = 6;
+
+    private Lz4BlockCodec() {
+    }
+
+    /**
+     * Compresses src into dst.
+     *
+     * @param src       address of the input
+     * @param len       input length, must be under 2GiB
+     * @param dst       output address, must have room for {@link #maxCompressedSize(long)} bytes
+     * @param hashTable scratch memory of {@link #HASH_TABLE_SIZE} bytes
+     * @return compressed length
+     */
+    public static long compress(long src, long len, long dst, long hashTable) {
+        assert len < Integer.MAX_VALUE;
+        long op = dst;
+        int anchor = 0;
+        if (len >= MF_LIMIT + 1) {
+            Vect.memset(hashTable, HASH_TABLE_SIZE, 0);
+            final int mfLimit = (int) len - MF_LIMIT;
+            final int matchLimit = (int) len - LAST_LITERALS;
+            int pos = 1;
+            int searchCount = 1 << SKIP_TRIGGER;
+            while (pos < mfLimit) {
+                final int sequence = Unsafe.getUnsafe().getInt(src + pos);
+                final long slot = hashTable + ((long) hash(sequence) << 2);
+                int candidate = Unsafe.getUnsafe().getInt(slot);
+                Unsafe.getUnsafe().putInt(slot, pos);
+                if (candidate >= pos || pos - candidate > MAX_DISTANCE || Unsafe.getUnsafe().getInt(src + candidate) != sequence) {
+                    // step grows on incompressible input
+                    pos += searchCount++ >>> SKIP_TRIGGER;
+                    continue;
+                }
+                searchCount = 1 << SKIP_TRIGGER;
+
+                while (pos > anchor && candidate > 0 && Unsafe.getUnsafe().getByte(src + pos - 1) == Unsafe.getUnsafe().getByte(src + candidate - 1)) {
+                    pos--;
+                    candidate--;
+                }
+                final int matchLen = MIN_MATCH + matchLength(src + pos + MIN_MATCH, src + candidate + MIN_MATCH, matchLimit - pos - MIN_MATCH);
+                op = writeSequence(op, src + anchor, pos - anchor, pos - candidate, matchLen);
+                pos += matchLen;
+                anchor = pos;
+                if (pos - 2 < mfLimit) {
+                    Unsafe.getUnsafe().putInt(hashTable + ((long) hash(Unsafe.getUnsafe().getInt(src + pos - 2)) << 2), pos - 2);
+                }
+            }
+        }
+        return writeLastLiterals(op, src + anchor, (int) len - anchor) - dst;
+    }
+
+    /**
+     * Decompresses LZ4 block from src into dst.
+     *
+     * @param src    address of the compressed block
+     * @param srcLen compressed length
+     * @param dst    output address
+     * @param dstLen capacity of the output
+     * @return decompressed length or -1 when input is malformed or does not fit the output
+     */
+    public static long decompress(long src, long srcLen, long dst, long dstLen) {
+        long ip = src;
+        final long ipEnd = src + srcLen;
+        long op = dst;
+        final long opEnd = dst + dstLen;
+        while (ip < ipEnd) {
+            final int token = Unsafe.getUnsafe().getByte(ip++) & 0xff;
+            long literalLen = token >>> 4;
+            if (literalLen == 15) {
+                int b;
+                do {
+                    if (ip == ipEnd) {
+                        return -1;
+                    }
+                    b = Unsafe.getUnsafe().getByte(ip++) & 0xff;
+                    literalLen += b;
+                } while (b == 255);
+            }
+            if (literalLen > ipEnd - ip || literalLen > opEnd - op) {
+                return -1;
+            }
+            Vect.memcpy(op, ip, literalLen);
+            ip += literalLen;
+            op += literalLen;
+            if (ip == ipEnd) {
+                // last sequence has no match
+                break;
+            }
+
+            if (ipEnd - ip < 2) {
+                return -1;
+            }
+            final int offset = (Unsafe.getUnsafe().getByte(ip) & 0xff) | ((Unsafe.getUnsafe().getByte(ip + 1) & 0xff) << 8);
+            ip += 2;
+            if (offset == 0 || offset > op - dst) {
+                return -1;
+            }
+            long matchLen = token & 15;
+            if (matchLen == 15) {
+                int b;
+                do {
+                    if (ip == ipEnd) {
+                        return -1;
+                    }
+                    b = Unsafe.getUnsafe().getByte(ip++) & 0xff;
+                    matchLen += b;
+                } while (b == 255);
+            }
+            matchLen += MIN_MATCH;
+            if (matchLen > opEnd - op) {
+                return -1;
+            }
+            copyMatch(op, op - offset, matchLen, offset);
+            op += matchLen;
+        }
+        return op - dst;
+    }
+
+    public static long maxCompressedSize(long len) {
+        return len + len / 255 + 16;
+    }
+
+    private static void copyMatch(long op, long match, long len, int offset) {
+        if (offset >= len) {
+            Vect.memcpy(op, match, len);
+        } else if (offset >= Long.BYTES) {
+            // overlapping copy repeats the pattern, each word is read at least 8 bytes behind the write
+            long i = 0;
+            for (; i + Long.BYTES <= len; i += Long.BYTES) {
+                Unsafe.getUnsafe().putLong(op + i, Unsafe.getUnsafe().getLong(match + i));
+            }
+            for (; i < len; i++) {
+                Unsafe.getUnsafe().putByte(op + i, Unsafe.getUnsafe().getByte(match + i));
+            }
+        } else {
+            for (long i = 0; i < len; i++) {
+                Unsafe.getUnsafe().putByte(op + i, Unsafe.getUnsafe().getByte(match + i));
+            }
+        }
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static int matchLength(long p, long match, int limit) {
+        int len = 0;
+        while (len + Long.BYTES <= limit) {
+            final long diff = Unsafe.getUnsafe().getLong(p + len) ^ Unsafe.getUnsafe().getLong(match + len);
+            if (diff != 0) {
+                return len + (Long.numberOfTrailingZeros(diff) >>> 3);
+            }
+            len += Long.BYTES;
+        }
+        while (len < limit && Unsafe.getUnsafe().getByte(p + len) == Unsafe.getUnsafe().getByte(match + len)) {
+            len++;
+        }
+        return len;
+    }
+
+    private static long writeLastLiterals(long op, long literals, int literalLen) {
+        op = writeLength(op, literalLen, literalLen << 4);
+        Vect.memcpy(op, literals, literalLen);
+        return op + literalLen;
+    }
+
+    // writes token with the literal length nibble and the extra length bytes, returns position after them
+    private static long writeLength(long op, int len, int token) {
+        if (len >= 15) {
+            Unsafe.getUnsafe().putByte(op++, (byte) ((token & 0x0f) | 0xf0));
+            len -= 15;
+            while (len >= 255) {
+                Unsafe.getUnsafe().putByte(op++, (byte) 255);
+                len -= 255;
+            }
+            Unsafe.getUnsafe().putByte(op++, (byte) len);
+        } else {
+            Unsafe.getUnsafe().putByte(op++, (byte) token);
+        }
+        return op;
+    }
+
+    private static long writeSequence(long op, long literals, int literalLen, int offset, int matchLen) {
+        final int matchCode = matchLen - MIN_MATCH;
+        op = writeLength(op, literalLen, (literalLen << 4) | Math.min(matchCode, 15));
+        Vect.memcpy(op, literals, literalLen);
+        op += literalLen;
+        Unsafe.getUnsafe().putByte(op++, (byte) offset);
+        Unsafe.getUnsafe().putByte(op++, (byte) (offset >>> 8));
+        if (matchCode >= 15) {
+            int len = matchCode - 15;
+            while (len >= 255) {
+                Unsafe.getUnsafe().putByte(op++, (byte) 255);
+                len -= 255;
+            }
+            Unsafe.getUnsafe().putByte(op++, (byte) len);
+        }
+        return op;
+    }
+
+    static {
+        HASH_TABLE_SIZE = (long) Integer.BYTES << HASH_LOG;
+    }
+}
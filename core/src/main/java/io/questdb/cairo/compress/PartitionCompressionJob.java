@@ -0,0 +1,170 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.compress;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.EntryUnavailableException;
+import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.TxReader;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.FlyweightMessageContainer;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjHashSet;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Periodically compresses sealed partitions whose time range ended longer than the
+ * configured age ago. The active partition is never compressed. Partitions are converted
+ * with ALTER TABLE ... CONVERT PARTITION TO COMPRESSED, so WAL tables get the conversion
+ * applied in order with the rest of their transactions.
+ */
+public class PartitionCompressionJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionCompressionJob.class);
+    private final long age;
+    private final MicrosecondClock clock;
+    private final CairoEngine engine;
+    private final long interval;
+    private final StringSink sql = new StringSink();
+    private final ObjHashSet<TableToken> tableTokens = new ObjHashSet<>();
+    private long lastRun;
+    private SqlExecutionContextImpl sqlExecutionContext;
+
+    public PartitionCompressionJob(CairoEngine engine) {
+        this.engine = engine;
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.age = configuration.getPartitionCompressionAge() * 1000;
+        this.interval = configuration.getPartitionCompressionInterval() * 1000;
+        this.clock = configuration.getMicrosecondClock();
+        this.lastRun = clock.getTicks();
+        this.sqlExecutionContext = new SqlExecutionContextImpl(engine, 1);
+        this.sqlExecutionContext.with(
+                configuration.getFactoryProvider().getSecurityContextFactory().getRootContext(),
+                new BindVariableServiceImpl(configuration),
+                null
+        );
+    }
+
+    @Override
+    public void close() {
+        sqlExecutionContext = Misc.free(sqlExecutionContext);
+    }
+
+    /**
+     * Compresses all eligible partitions regardless of the run interval.
+     *
+     * @return true if any partition was compressed
+     */
+    public boolean compressPartitions() {
+        final long cutoff = clock.getTicks() - age;
+        boolean useful = false;
+        tableTokens.clear();
+        engine.getTableTokens(tableTokens, false);
+        for (int i = 0, n = tableTokens.size(); i < n; i++) {
+            final TableToken tableToken = tableTokens.get(i);
+            if (!tableToken.isSystem()) {
+                useful |= compressTable(tableToken, cutoff);
+            }
+        }
+        return useful;
+    }
+
+    private boolean compressTable(TableToken tableToken, long cutoff) {
+        try {
+            sql.clear();
+            try (TableReader reader = engine.getReader(tableToken)) {
+                final int partitionBy = reader.getPartitionedBy();
+                if (!PartitionBy.isPartitioned(partitionBy) || reader.getMetadata().getTimestampIndex() < 0) {
+                    return false;
+                }
+                final TxReader txFile = reader.getTxFile();
+                final PartitionBy.PartitionCeilMethod ceilMethod = PartitionBy.getPartitionCeilMethod(partitionBy);
+                final long activePartitionTimestamp = txFile.getLogicalPartitionTimestamp(txFile.getMaxTimestamp());
+                long lastPartitionTimestamp = Long.MIN_VALUE;
+                for (int i = 0, n = txFile.getPartitionCount(); i < n; i++) {
+                    final long partitionTimestamp = txFile.getLogicalPartitionTimestamp(txFile.getPartitionTimestampByIndex(i));
+                    if (partitionTimestamp == activePartitionTimestamp || ceilMethod.ceil(partitionTimestamp) > cutoff) {
+                        break;
+                    }
+                    // split partitions share the logical timestamp, list each partition once
+                    if (partitionTimestamp == lastPartitionTimestamp || txFile.isPartitionCompressed(i) || txFile.isPartitionReadOnly(i)) {
+                        continue;
+                    }
+                    lastPartitionTimestamp = partitionTimestamp;
+                    if (sql.length() == 0) {
+                        sql.put("alter table \"").put(tableToken.getTableName()).put("\" convert partition to compressed list ");
+                    } else {
+                        sql.put(',');
+                    }
+                    sql.put('\'');
+                    PartitionBy.setSinkForPartition(sql, partitionBy, partitionTimestamp);
+                    sql.put('\'');
+                }
+            }
+            if (sql.length() == 0) {
+                return false;
+            }
+            try (SqlCompiler compiler = engine.getSqlCompiler()) {
+                CairoEngine.ddl(compiler, sql, sqlExecutionContext, null);
+            }
+            LOG.info().$("compressed partitions [table=").utf8(tableToken.getTableName()).$(", sql=").$(sql).I$();
+            return true;
+        } catch (EntryUnavailableException e) {
+            // the table is busy, try again on the next run
+            return false;
+        } catch (SqlException | CairoException e) {
+            LOG.error().$("could not compress partitions [table=").utf8(tableToken.getTableName())
+                    .$(", error=").$(((FlyweightMessageContainer) e).getFlyweightMessage())
+                    .I$();
+            return false;
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        if (age <= 0) {
+            return false;
+        }
+        final long now = clock.getTicks();
+        if (now - lastRun < interval) {
+            return false;
+        }
+        lastRun = now;
+        return compressPartitions();
+    }
+}
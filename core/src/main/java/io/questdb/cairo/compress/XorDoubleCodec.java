@@ -0,0 +1,99 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.compress;
+
+import io.questdb.std.Unsafe;
+
+/**
+ * XOR encoding for DOUBLE columns, as described in the Gorilla paper. Each value is
+ * XOR-ed with the previous one. Repeated values take a single bit, and values that
+ * differ only in a few mantissa bits store just the meaningful bits of the XOR.
+ * <p>
+ * Control bits: 0 - same value; 1,0 - meaningful bits fit into the previous window;
+ * 1,1 - new window, followed by 6 bits of leading zeros and 6 bits of length - 1.
+ * Values are stored as raw bits, so NaN round-trips unchanged.
+ */
+final class XorDoubleCodec {
+
+    private XorDoubleCodec() {
+    }
+
+    static void decode(long src, int count, long dst, BitReader reader) {
+        reader.of(src);
+        long prev = reader.read(64);
+        Unsafe.getUnsafe().putLong(dst, prev);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (reader.read(1) != 0) {
+                if (reader.read(1) != 0) {
+                    leading = (int) reader.read(6);
+                    trailing = 64 - leading - (int) reader.read(6) - 1;
+                }
+                prev ^= reader.read(64 - leading - trailing) << trailing;
+            }
+            Unsafe.getUnsafe().putLong(dst + ((long) i << 3), prev);
+        }
+    }
+
+    static long encode(long src, int count, long dst, BitWriter writer) {
+        writer.of(dst);
+        long prev = Unsafe.getUnsafe().getLong(src);
+        writer.write(prev, 64);
+        int prevLeading = -1;
+        int prevTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            final long bits = Unsafe.getUnsafe().getLong(src + ((long) i << 3));
+            final long xor = bits ^ prev;
+            if (xor == 0) {
+                writer.write(0, 1);
+            } else {
+                final int leading = Long.numberOfLeadingZeros(xor);
+                final int trailing = Long.numberOfTrailingZeros(xor);
+                writer.write(1, 1);
+                if (prevLeading > -1 && leading >= prevLeading && trailing >= prevTrailing) {
+                    writer.write(0, 1);
+                    writer.write(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+                } else {
+                    final int length = 64 - leading - trailing;
+                    writer.write(1, 1);
+                    writer.write(leading, 6);
+                    writer.write(length - 1, 6);
+                    writer.write(xor >>> trailing, length);
+                    prevLeading = leading;
+                    prevTrailing = trailing;
+                }
+            }
+            prev = bits;
+        }
+        return writer.finish();
+    }
+
+    static long maxEncodedSize(int count) {
+        // 64 bits for the first value and at most 78 bits for each of the others
+        return 2 * Long.BYTES + (long) count * 10;
+    }
+}
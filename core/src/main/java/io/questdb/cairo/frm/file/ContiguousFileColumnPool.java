@@ -92,7 +92,7 @@ public class ContiguousFileColumnPool implements FrameColumnPool, Closeable {
                 return column;
             }
 
-            if (columnType == ColumnType.SYMBOL) {
+            if (ColumnType.isIndexable(columnType)) {
                 if (canWrite && isIndexed) {
                     ContiguousFileIndexedFrameColumn indexedColumn = getIndexedColumn();
                     indexedColumn.ofRW(partitionPath, columnName, columnTxn, columnType, indexBlockCapacity, columnTop, columnIndex, isEmpty);
@@ -29,11 +29,13 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.frm.FrameColumn;
+import io.questdb.std.Numbers;
 import io.questdb.std.Unsafe;
 import io.questdb.std.str.Path;
 
 public class ContiguousFileIndexedFrameColumn extends ContiguousFileFixFrameColumn {
     private final BitmapIndexWriter indexWriter;
+    private int indexBlockCapacity;
 
     public ContiguousFileIndexedFrameColumn(CairoConfiguration configuration) {
         super(configuration);
@@ -53,8 +55,22 @@ public class ContiguousFileIndexedFrameColumn extends ContiguousFileFixFrameColu
             long mappedAddress = TableUtils.mapAppendColumnBuffer(ff, fd, (appendOffsetRowCount - getColumnTop()) << shl, size << shl, false, MEMORY_TAG);
             try {
                 indexWriter.rollbackConditionally(appendOffsetRowCount);
-                for (long i = 0; i < size; i++) {
-                    indexWriter.add(TableUtils.toIndexKey(Unsafe.getUnsafe().getInt(mappedAddress + (i << shl))), appendOffsetRowCount + i);
+                switch (ColumnType.tagOf(getColumnType())) {
+                    case ColumnType.INT:
+                        for (long i = 0; i < size; i++) {
+                            indexWriter.add(TableUtils.toHashIndexKey(Unsafe.getUnsafe().getInt(mappedAddress + (i << shl)), indexBlockCapacity), appendOffsetRowCount + i);
+                        }
+                        break;
+                    case ColumnType.LONG:
+                        for (long i = 0; i < size; i++) {
+                            indexWriter.add(TableUtils.toHashIndexKey(Unsafe.getUnsafe().getLong(mappedAddress + (i << shl)), indexBlockCapacity), appendOffsetRowCount + i);
+                        }
+                        break;
+                    default:
+                        for (long i = 0; i < size; i++) {
+                            indexWriter.add(TableUtils.toIndexKey(Unsafe.getUnsafe().getInt(mappedAddress + (i << shl))), appendOffsetRowCount + i);
+                        }
+                        break;
                 }
                 indexWriter.setMaxValue(appendOffsetRowCount + size - 1);
                 indexWriter.commit();
@@ -68,8 +84,20 @@ public class ContiguousFileIndexedFrameColumn extends ContiguousFileFixFrameColu
     public void appendNulls(long rowCount, long sourceColumnTop, int commitMode) {
         super.appendNulls(rowCount, sourceColumnTop, commitMode);
         indexWriter.rollbackConditionally(rowCount);
+        final int nullKey;
+        switch (ColumnType.tagOf(getColumnType())) {
+            case ColumnType.INT:
+                nullKey = TableUtils.toHashIndexKey(Numbers.INT_NULL, indexBlockCapacity);
+                break;
+            case ColumnType.LONG:
+                nullKey = TableUtils.toHashIndexKey(Numbers.LONG_NULL, indexBlockCapacity);
+                break;
+            default:
+                nullKey = 0;
+                break;
+        }
         for (long i = 0; i < sourceColumnTop; i++) {
-            indexWriter.add(0, rowCount + i);
+            indexWriter.add(nullKey, rowCount + i);
         }
         indexWriter.setMaxValue(rowCount + sourceColumnTop - 1);
         indexWriter.commit();
@@ -92,7 +120,8 @@ public class ContiguousFileIndexedFrameColumn extends ContiguousFileFixFrameColu
             boolean isEmpty
     ) {
         super.ofRW(partitionPath, columnName, columnTxn, columnType, columnTop, columnIndex);
-        indexWriter.of(partitionPath, columnName, columnTxn, isEmpty ? indexBlockCapacity : 0);
+        this.indexBlockCapacity = indexBlockCapacity;
+        indexWriter.of(partitionPath, columnName, columnTxn, isEmpty ? TableUtils.getIndexValueBlockCapacity(columnType, indexBlockCapacity) : 0);
     }
 
     @Override
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryA;
+import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.std.Chars;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Definition of a materialized view, i.e. a SAMPLE BY query over a single WAL base table.
+ * The definition keeps the position of the base table reference in the query text, so that
+ * the refresh job can restrict the query to the time buckets touched by new transactions.
+ */
+public class MatViewDefinition {
+    public static final String MAT_VIEW_FILE_NAME = "_mv";
+    private static final int FORMAT_VERSION = 1;
+    private final boolean baseTableAliased;
+    private final String baseTableName;
+    private final int baseTableNameHi;
+    private final int baseTableNameLo;
+    private final String samplingInterval;
+    private final String viewSql;
+    private boolean invalid;
+    private long pendingBaseSeqTxn = -1;
+    private long pendingMaxTimestamp = Long.MIN_VALUE;
+    private long pendingMinTimestamp = Long.MAX_VALUE;
+    private TableToken viewToken;
+
+    public MatViewDefinition(
+            String baseTableName,
+            String viewSql,
+            int baseTableNameLo,
+            int baseTableNameHi,
+            boolean baseTableAliased,
+            String samplingInterval
+    ) {
+        this.baseTableName = baseTableName;
+        this.viewSql = viewSql;
+        this.baseTableNameLo = baseTableNameLo;
+        this.baseTableNameHi = baseTableNameHi;
+        this.baseTableAliased = baseTableAliased;
+        this.samplingInterval = samplingInterval;
+    }
+
+    public static MatViewDefinition read(MemoryR mem, TableToken viewToken) {
+        long offset = 0;
+        final int version = mem.getInt(offset);
+        if (version != FORMAT_VERSION) {
+            return null;
+        }
+        offset += Integer.BYTES;
+        final String baseTableName = Chars.toString(mem.getStrA(offset));
+        offset += Vm.getStorageLength(baseTableName);
+        final String viewSql = Chars.toString(mem.getStrA(offset));
+        offset += Vm.getStorageLength(viewSql);
+        final String samplingInterval = Chars.toString(mem.getStrA(offset));
+        offset += Vm.getStorageLength(samplingInterval);
+        final int baseTableNameLo = mem.getInt(offset);
+        offset += Integer.BYTES;
+        final int baseTableNameHi = mem.getInt(offset);
+        offset += Integer.BYTES;
+        final boolean baseTableAliased = mem.getBool(offset);
+        final MatViewDefinition definition = new MatViewDefinition(
+                baseTableName,
+                viewSql,
+                baseTableNameLo,
+                baseTableNameHi,
+                baseTableAliased,
+                samplingInterval
+        );
+        definition.setViewToken(viewToken);
+        return definition;
+    }
+
+    public String getBaseTableName() {
+        return baseTableName;
+    }
+
+    public String getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    public TableToken getViewToken() {
+        return viewToken;
+    }
+
+    public boolean isInvalid() {
+        return invalid;
+    }
+
+    public void setViewToken(TableToken viewToken) {
+        this.viewToken = viewToken;
+    }
+
+    /**
+     * Appends the view query restricted to the given designated timestamp range of
+     * the base table. The range bounds are bind variables $1 (inclusive) and $2
+     * (exclusive).
+     */
+    public void toRefreshSql(CharSink<?> sink, CharSequence baseTimestampColumnName) {
+        sink.put(viewSql, 0, baseTableNameLo)
+                .put('(')
+                .put(viewSql, baseTableNameLo, baseTableNameHi)
+                .put(" where \"").put(baseTimestampColumnName).put("\" >= $1 and \"").put(baseTimestampColumnName).put("\" < $2)");
+        if (!baseTableAliased) {
+            // keep the qualified column references valid
+            sink.put(' ').put(viewSql, baseTableNameLo, baseTableNameHi);
+        }
+        sink.put(viewSql, baseTableNameHi, viewSql.length());
+    }
+
+    public void write(MemoryA mem) {
+        mem.putInt(FORMAT_VERSION);
+        mem.putStr(baseTableName);
+        mem.putStr(viewSql);
+        mem.putStr(samplingInterval);
+        mem.putInt(baseTableNameLo);
+        mem.putInt(baseTableNameHi);
+        mem.putBool(baseTableAliased);
+    }
+
+    // Guarded by MatViewGraph's lock.
+    boolean addPendingRange(long minTimestamp, long maxTimestamp, long baseSeqTxn) {
+        final boolean wasPending = pendingBaseSeqTxn != -1;
+        pendingMinTimestamp = Math.min(pendingMinTimestamp, minTimestamp);
+        pendingMaxTimestamp = Math.max(pendingMaxTimestamp, maxTimestamp);
+        pendingBaseSeqTxn = Math.max(pendingBaseSeqTxn, baseSeqTxn);
+        return !wasPending;
+    }
+
+    // Guarded by MatViewGraph's lock.
+    void invalidate() {
+        invalid = true;
+        pendingMinTimestamp = Long.MAX_VALUE;
+        pendingMaxTimestamp = Long.MIN_VALUE;
+        pendingBaseSeqTxn = -1;
+    }
+
+    // Guarded by MatViewGraph's lock.
+    void takePendingRange(MatViewRefreshTask task) {
+        task.of(this, pendingMinTimestamp, pendingMaxTimestamp, pendingBaseSeqTxn);
+        pendingMinTimestamp = Long.MAX_VALUE;
+        pendingMaxTimestamp = Long.MIN_VALUE;
+        pendingBaseSeqTxn = -1;
+    }
+}
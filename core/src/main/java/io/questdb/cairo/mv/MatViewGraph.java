@@ -0,0 +1,223 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+/**
+ * Keeps materialized view definitions grouped by their base table and collects
+ * designated timestamp ranges of the base table transactions applied from WAL.
+ * The ranges are consumed by {@link MatViewRefreshJob}.
+ */
+public class MatViewGraph {
+    private static final Log LOG = LogFactory.getLog(MatViewGraph.class);
+    private final CairoConfiguration configuration;
+    private final ObjList<MatViewDefinition> pendingRefreshes = new ObjList<>();
+    private final CharSequenceObjHashMap<MatViewDefinition> viewsByDirName = new CharSequenceObjHashMap<>();
+    private final CharSequenceObjHashMap<ObjList<MatViewDefinition>> viewsByBaseTable = new CharSequenceObjHashMap<>();
+    private volatile int viewCount;
+
+    public MatViewGraph(CairoConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public synchronized void addView(MatViewDefinition definition) {
+        final TableToken viewToken = definition.getViewToken();
+        final int index = viewsByDirName.keyIndex(viewToken.getDirName());
+        if (index < 0) {
+            return;
+        }
+        viewsByDirName.putAt(index, viewToken.getDirName(), definition);
+        ObjList<MatViewDefinition> views = viewsByBaseTable.get(definition.getBaseTableName());
+        if (views == null) {
+            views = new ObjList<>();
+            viewsByBaseTable.put(definition.getBaseTableName(), views);
+        }
+        views.add(definition);
+        viewCount = viewsByDirName.size();
+    }
+
+    /**
+     * Persists the definition in the view table directory and registers the view.
+     */
+    public void createView(MatViewDefinition definition) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (
+                Path path = new Path();
+                MemoryMARW mem = Vm.getMARWInstance()
+        ) {
+            path.of(configuration.getRoot()).concat(definition.getViewToken()).concat(MatViewDefinition.MAT_VIEW_FILE_NAME).$();
+            mem.smallFile(ff, path, MemoryTag.MMAP_DEFAULT);
+            mem.jumpTo(0);
+            definition.write(mem);
+            mem.sync(false);
+            mem.close(true, Vm.TRUNCATE_TO_POINTER);
+        }
+        addView(definition);
+    }
+
+    public synchronized void dropView(TableToken viewToken) {
+        final int index = viewsByDirName.keyIndex(viewToken.getDirName());
+        if (index > -1) {
+            return;
+        }
+        final MatViewDefinition definition = viewsByDirName.valueAt(index);
+        viewsByDirName.removeAt(index);
+        final ObjList<MatViewDefinition> views = viewsByBaseTable.get(definition.getBaseTableName());
+        if (views != null) {
+            views.remove(definition);
+            if (views.size() == 0) {
+                viewsByBaseTable.remove(definition.getBaseTableName());
+            }
+        }
+        pendingRefreshes.remove(definition);
+        viewCount = viewsByDirName.size();
+    }
+
+    public synchronized int getPendingRefreshCount() {
+        return pendingRefreshes.size();
+    }
+
+    public synchronized MatViewDefinition getView(TableToken viewToken) {
+        return viewsByDirName.get(viewToken.getDirName());
+    }
+
+    /**
+     * Stops refreshing the view. The pending ranges are dropped and the new base table
+     * transactions are ignored until the view definitions are reloaded.
+     */
+    public synchronized void invalidateView(MatViewDefinition definition) {
+        definition.invalidate();
+        pendingRefreshes.remove(definition);
+    }
+
+    /**
+     * Loads view definitions from the given tables, replacing the known ones.
+     */
+    public synchronized void load(ObjHashSet<TableToken> tableTokens) {
+        viewsByDirName.clear();
+        viewsByBaseTable.clear();
+        pendingRefreshes.clear();
+        viewCount = 0;
+
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (
+                Path path = new Path();
+                MemoryCMR mem = Vm.getCMRInstance()
+        ) {
+            for (int i = 0, n = tableTokens.size(); i < n; i++) {
+                final TableToken tableToken = tableTokens.get(i);
+                if (!tableToken.isWal()) {
+                    continue;
+                }
+                path.of(configuration.getRoot()).concat(tableToken).concat(MatViewDefinition.MAT_VIEW_FILE_NAME).$();
+                if (!ff.exists(path)) {
+                    continue;
+                }
+                try {
+                    mem.smallFile(ff, path, MemoryTag.MMAP_DEFAULT);
+                    final MatViewDefinition definition = MatViewDefinition.read(mem, tableToken);
+                    if (definition != null) {
+                        addView(definition);
+                    } else {
+                        LOG.error().$("unsupported materialized view definition [view=").utf8(tableToken.getTableName()).I$();
+                    }
+                } catch (CairoException e) {
+                    LOG.error().$("could not read materialized view definition [view=").utf8(tableToken.getTableName())
+                            .$(", error=").$(e.getFlyweightMessage())
+                            .I$();
+                } finally {
+                    mem.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Called once WAL transactions are applied to a base table. Marks the given designated
+     * timestamp range dirty in all views of the table.
+     *
+     * @param baseTableToken base table token
+     * @param minTimestamp   min designated timestamp of the applied rows
+     * @param maxTimestamp   max designated timestamp of the applied rows
+     * @param baseSeqTxn     last applied base table transaction
+     */
+    public void notifyBaseTableCommitted(TableToken baseTableToken, long minTimestamp, long maxTimestamp, long baseSeqTxn) {
+        if (viewCount == 0) {
+            return;
+        }
+        synchronized (this) {
+            final ObjList<MatViewDefinition> views = viewsByBaseTable.get(baseTableToken.getTableName());
+            if (views != null) {
+                for (int i = 0, n = views.size(); i < n; i++) {
+                    final MatViewDefinition definition = views.getQuick(i);
+                    if (!definition.isInvalid() && definition.addPendingRange(minTimestamp, maxTimestamp, baseSeqTxn)) {
+                        pendingRefreshes.add(definition);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest pending refresh, if any.
+     *
+     * @param task task to populate
+     * @return true if the task was populated, false if there are no pending refreshes
+     */
+    public synchronized boolean pollRefresh(MatViewRefreshTask task) {
+        if (pendingRefreshes.size() == 0) {
+            return false;
+        }
+        final MatViewDefinition definition = pendingRefreshes.getQuick(0);
+        pendingRefreshes.remove(0);
+        definition.takePendingRange(task);
+        return true;
+    }
+
+    /**
+     * Puts back a refresh that could not be completed, so that it is retried later.
+     */
+    public synchronized void retryRefresh(MatViewRefreshTask task) {
+        final MatViewDefinition definition = task.getDefinition();
+        if (viewsByDirName.get(definition.getViewToken().getDirName()) != definition || definition.isInvalid()) {
+            // the view was dropped or invalidated in the meantime
+            return;
+        }
+        if (definition.addPendingRange(task.getMinTimestamp(), task.getMaxTimestamp(), task.getBaseSeqTxn())) {
+            pendingRefreshes.add(definition);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableToken;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Misc;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Re-aggregates time buckets of materialized views touched by the base table transactions.
+ * The view query is executed over the dirty designated timestamp range, rounded to whole
+ * buckets, and the result is inserted into the view table. Since the view table deduplicates
+ * on the timestamp and the key columns, the new rows replace the old ones on WAL apply.
+ */
+public class MatViewRefreshJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(MatViewRefreshJob.class);
+    private final BindVariableServiceImpl bindVariableService;
+    private final CairoEngine engine;
+    private final MatViewGraph graph;
+    private final StringSink sql = new StringSink();
+    private final MatViewRefreshTask task = new MatViewRefreshTask();
+    private SqlExecutionContextImpl sqlExecutionContext;
+
+    public MatViewRefreshJob(CairoEngine engine) {
+        this.engine = engine;
+        this.graph = engine.getMatViewGraph();
+        this.bindVariableService = new BindVariableServiceImpl(engine.getConfiguration());
+        this.sqlExecutionContext = new SqlExecutionContextImpl(engine, 1);
+        this.sqlExecutionContext.with(
+                engine.getConfiguration().getFactoryProvider().getSecurityContextFactory().getRootContext(),
+                bindVariableService,
+                null
+        );
+    }
+
+    @Override
+    public void close() {
+        sqlExecutionContext = Misc.free(sqlExecutionContext);
+    }
+
+    private boolean refresh(MatViewRefreshTask task) {
+        final MatViewDefinition definition = task.getDefinition();
+        final TableToken viewToken = definition.getViewToken();
+        if (engine.getTableTokenIfExists(viewToken.getTableName()) != viewToken) {
+            // the view was dropped or renamed, forget about it
+            graph.dropView(viewToken);
+            return true;
+        }
+        final TableToken baseTableToken = engine.getTableTokenIfExists(definition.getBaseTableName());
+        if (baseTableToken == null) {
+            LOG.info().$("base table is dropped, skipping materialized view refresh [view=").utf8(viewToken.getTableName())
+                    .$(", base=").utf8(definition.getBaseTableName())
+                    .I$();
+            return true;
+        }
+
+        try {
+            try (TableReader reader = engine.getReader(baseTableToken)) {
+                if (reader.getTxFile().getSeqTxn() < task.getBaseSeqTxn()) {
+                    // some of the rows are still in the WAL lag, wait for them to be committed
+                    graph.retryRefresh(task);
+                    return false;
+                }
+                final int timestampIndex = reader.getMetadata().getTimestampIndex();
+                if (timestampIndex < 0) {
+                    LOG.error().$("base table has no designated timestamp [view=").utf8(viewToken.getTableName()).I$();
+                    return true;
+                }
+                sql.clear();
+                sql.put("insert into \"").put(viewToken.getTableName()).put("\" ");
+                definition.toRefreshSql(sql, reader.getMetadata().getColumnName(timestampIndex));
+            }
+
+            final TimestampSampler sampler = TimestampSamplerFactory.getInstance(definition.getSamplingInterval(), 0);
+            sampler.setStart(0);
+            final long lo = sampler.round(task.getMinTimestamp());
+            final long hi = sampler.nextTimestamp(sampler.round(task.getMaxTimestamp()));
+
+            bindVariableService.clear();
+            bindVariableService.setTimestamp(0, lo);
+            bindVariableService.setTimestamp(1, hi);
+            try (SqlCompiler compiler = engine.getSqlCompiler()) {
+                CairoEngine.insert(compiler, sql, sqlExecutionContext);
+            }
+            LOG.info().$("refreshed materialized view [view=").utf8(viewToken.getTableName())
+                    .$(", from=").$ts(lo)
+                    .$(", to=").$ts(hi)
+                    .I$();
+        } catch (SqlException e) {
+            // the view query no longer compiles against the base table, e.g. a column was dropped,
+            // retrying would fail the same way
+            LOG.error().$("could not refresh materialized view, invalidating [view=").utf8(viewToken.getTableName())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            graph.invalidateView(definition);
+        } catch (CairoException e) {
+            LOG.error().$("could not refresh materialized view, will retry [view=").utf8(viewToken.getTableName())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            graph.retryRefresh(task);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    protected boolean runSerially() {
+        boolean useful = false;
+        // the ranges put back for retry are picked up on the next run
+        for (int i = 0, n = graph.getPendingRefreshCount(); i < n && graph.pollRefresh(task); i++) {
+            useful |= refresh(task);
+        }
+        return useful;
+    }
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.mv;
+
+/**
+ * Designated timestamp range of the base table that has to be re-aggregated into
+ * a materialized view.
+ */
+public class MatViewRefreshTask {
+    private long baseSeqTxn;
+    private MatViewDefinition definition;
+    private long maxTimestamp;
+    private long minTimestamp;
+
+    /**
+     * Returns the base table transaction that must be visible to readers before
+     * the range can be re-aggregated.
+     */
+    public long getBaseSeqTxn() {
+        return baseSeqTxn;
+    }
+
+    public MatViewDefinition getDefinition() {
+        return definition;
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public void of(MatViewDefinition definition, long minTimestamp, long maxTimestamp, long baseSeqTxn) {
+        this.definition = definition;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.baseSeqTxn = baseSeqTxn;
+    }
+}
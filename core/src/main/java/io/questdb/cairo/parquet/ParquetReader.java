@@ -0,0 +1,1109 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.VarcharTypeDriver;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.datetime.millitime.Dates;
+import io.questdb.std.str.DirectUtf8String;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Utf8s;
+
+/**
+ * Reads Parquet files, both the ones produced by {@link ParquetWriter} and by other engines,
+ * such as Spark. The file is memory-mapped and {@link #of(LPSZ)} parses the footer only;
+ * column chunks are then decoded one at a time into the native column layout used by page
+ * frames, see {@link #decodeColumnChunk(int, int, MemoryCARW, MemoryCARW)}.
+ * <p>
+ * Only flat schemas are supported. Pages may be uncompressed or Snappy-compressed and their
+ * values PLAIN or dictionary-encoded. Min/max statistics of numeric and temporal column chunks
+ * are exposed in QuestDB units, so that callers can skip row groups.
+ */
+public class ParquetReader implements QuietCloseable {
+    private static final int CHUNK_CODEC = 2;
+    private static final int CHUNK_MAX_PTR = 5;
+    private static final int CHUNK_MAX_SIZE = 6;
+    private static final int CHUNK_MIN_PTR = 3;
+    private static final int CHUNK_MIN_SIZE = 4;
+    private static final int CHUNK_OFFSET = 0;
+    private static final int CHUNK_SIZE = 1;
+    private static final int CHUNK_SLOT_SIZE = 7;
+    private static final int CONVERSION_DAYS_TO_MILLIS = 1;
+    private static final int CONVERSION_DECIMAL = 2;
+    private static final int CONVERSION_INT96 = 3;
+    private static final int CONVERSION_NANOS_TO_MICROS = 4;
+    private static final int CONVERSION_NONE = 0;
+    private static final int CONVERSION_UNSIGNED = 5;
+    private static final long JULIAN_DAY_OF_EPOCH = 2440588;
+    private static final Log LOG = LogFactory.getLog(ParquetReader.class);
+    private static final int MAGIC = 0x31524150; // "PAR1" in little-endian
+    private final LongList chunks = new LongList();
+    private final IntList columnConversions = new IntList();
+    private final ObjList<String> columnNames = new ObjList<>();
+    private final IntList columnOptional = new IntList();
+    private final IntList columnScales = new IntList();
+    private final IntList columnTypes = new IntList();
+    private final RleBitPackedDecoder defLevels = new RleBitPackedDecoder();
+    private final RleBitPackedDecoder dictKeys = new RleBitPackedDecoder();
+    private final MemoryCARW dictMem;
+    // address and size pairs of byte array dictionary values
+    private final LongList dictValues = new LongList();
+    private final FilesFacade ff;
+    private final MemoryCARW pageMem;
+    private final IntList physicalTypes = new IntList();
+    private final LongList rowGroupRowCounts = new LongList();
+    private final ThriftCompactReader thrift = new ThriftCompactReader();
+    private final IntList typeLengths = new IntList();
+    private final DirectUtf8String utf8View = new DirectUtf8String();
+    private int boolBit;
+    private long dictAddr;
+    private int dictCount;
+    private int fd = -1;
+    private long fileAddr;
+    private long fileSize;
+    // page header fields
+    private int pageDefLevelsSize;
+    private int pageDictValueCount;
+    private int pageEncoding;
+    private boolean pageIsCompressed;
+    private int pageRepLevelsSize;
+    private int pageSize;
+    private int pageType;
+    private int pageUncompressedSize;
+    private int pageValueCount;
+    private long rowCount;
+    private long valueHi;
+    private long valuePtr;
+
+    public ParquetReader(FilesFacade ff) {
+        this.ff = ff;
+        try {
+            this.pageMem = Vm.getCARWInstance(1024 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+            this.dictMem = Vm.getCARWInstance(64 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    @Override
+    public void close() {
+        closeFile();
+        Misc.free(pageMem);
+        Misc.free(dictMem);
+    }
+
+    /**
+     * Decodes column chunk of the row group and appends the values to the data and, for
+     * var-size columns, aux memory. The layout is the same as the one of table column
+     * files, i.e. the memory can be used as a page frame. The memory should hold a single
+     * column chunk.
+     */
+    public void decodeColumnChunk(int rowGroupIndex, int columnIndex, MemoryCARW dataMem, MemoryCARW auxMem) {
+        final int slot = (rowGroupIndex * getColumnCount() + columnIndex) * CHUNK_SLOT_SIZE;
+        final int codec = (int) chunks.getQuick(slot + CHUNK_CODEC);
+        final long chunkRowCount = rowGroupRowCounts.getQuick(rowGroupIndex);
+        final boolean optional = columnOptional.getQuick(columnIndex) == 1;
+        final long hi = fileAddr + chunks.getQuick(slot + CHUNK_OFFSET) + chunks.getQuick(slot + CHUNK_SIZE);
+        long p = fileAddr + chunks.getQuick(slot + CHUNK_OFFSET);
+        long rows = 0;
+        dictCount = -1;
+        while (rows < chunkRowCount) {
+            if (p >= hi) {
+                throw chunkError("column chunk is truncated", rowGroupIndex, columnIndex);
+            }
+            readPageHeader(p, hi);
+            final long bodyLo = thrift.getPosition();
+            final long bodyHi = bodyLo + pageSize;
+            if (pageSize < 0 || bodyHi > hi) {
+                throw chunkError("page is out of column chunk bounds", rowGroupIndex, columnIndex);
+            }
+            switch (pageType) {
+                case ParquetConstants.PAGE_TYPE_DICTIONARY_PAGE: {
+                    final long lo = decompress(codec, bodyLo, bodyHi, pageUncompressedSize, dictMem);
+                    loadDictionary(columnIndex, lo, lo + pageUncompressedSize);
+                    break;
+                }
+                case ParquetConstants.PAGE_TYPE_DATA_PAGE: {
+                    final long lo = decompress(codec, bodyLo, bodyHi, pageUncompressedSize, pageMem);
+                    final long pageHi = lo + pageUncompressedSize;
+                    long valuesLo = lo;
+                    if (optional) {
+                        // v1 pages prefix definition levels with their byte length
+                        if (pageHi - lo < Integer.BYTES) {
+                            throw chunkError("data page is truncated", rowGroupIndex, columnIndex);
+                        }
+                        final int defLevelsSize = Unsafe.getUnsafe().getInt(lo);
+                        valuesLo = lo + Integer.BYTES + defLevelsSize;
+                        if (defLevelsSize < 0 || valuesLo > pageHi) {
+                            throw chunkError("data page is truncated", rowGroupIndex, columnIndex);
+                        }
+                        defLevels.of(lo + Integer.BYTES, valuesLo, 1);
+                    }
+                    decodeValues(columnIndex, valuesLo, pageHi, optional, dataMem, auxMem);
+                    rows += pageValueCount;
+                    break;
+                }
+                case ParquetConstants.PAGE_TYPE_DATA_PAGE_V2: {
+                    // v2 pages keep levels uncompressed in front of the values
+                    final int levelsSize = pageRepLevelsSize + pageDefLevelsSize;
+                    if (pageRepLevelsSize != 0) {
+                        throw chunkError("repeated values are not supported", rowGroupIndex, columnIndex);
+                    }
+                    if (pageDefLevelsSize < 0 || levelsSize > pageSize) {
+                        throw chunkError("data page is truncated", rowGroupIndex, columnIndex);
+                    }
+                    if (optional) {
+                        defLevels.of(bodyLo, bodyLo + pageDefLevelsSize, 1);
+                    }
+                    final int valuesSize = pageUncompressedSize - levelsSize;
+                    final long lo = pageIsCompressed
+                            ? decompress(codec, bodyLo + levelsSize, bodyHi, valuesSize, pageMem)
+                            : bodyLo + levelsSize;
+                    decodeValues(columnIndex, lo, lo + valuesSize, optional, dataMem, auxMem);
+                    rows += pageValueCount;
+                    break;
+                }
+                default:
+                    // index pages and the like carry no values
+                    break;
+            }
+            p = bodyHi;
+        }
+        if (rows != chunkRowCount) {
+            throw chunkError("column chunk value count does not match row count", rowGroupIndex, columnIndex);
+        }
+        if (columnTypes.getQuick(columnIndex) == ColumnType.BINARY) {
+            // binary aux vector ends with the data vector size, same as in column files
+            auxMem.putLong(dataMem.getAppendOffset());
+        }
+    }
+
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    public String getColumnName(int columnIndex) {
+        return columnNames.getQuick(columnIndex);
+    }
+
+    /**
+     * Returns QuestDB type the column is decoded to.
+     */
+    public int getColumnType(int columnIndex) {
+        return columnTypes.getQuick(columnIndex);
+    }
+
+    /**
+     * Returns max value of the column chunk, see {@link #hasStatistics(int, int)}.
+     * Must be called for FLOAT and DOUBLE columns only.
+     */
+    public double getMaxDouble(int rowGroupIndex, int columnIndex) {
+        final int slot = (rowGroupIndex * getColumnCount() + columnIndex) * CHUNK_SLOT_SIZE;
+        return statisticsToDouble(columnIndex, chunks.getQuick(slot + CHUNK_MAX_PTR));
+    }
+
+    /**
+     * Returns max value of the column chunk, see {@link #hasStatistics(int, int)}.
+     * Must be called for integer and temporal columns only.
+     */
+    public long getMaxLong(int rowGroupIndex, int columnIndex) {
+        final int slot = (rowGroupIndex * getColumnCount() + columnIndex) * CHUNK_SLOT_SIZE;
+        return statisticsToLong(columnIndex, chunks.getQuick(slot + CHUNK_MAX_PTR));
+    }
+
+    public double getMinDouble(int rowGroupIndex, int columnIndex) {
+        final int slot = (rowGroupIndex * getColumnCount() + columnIndex) * CHUNK_SLOT_SIZE;
+        return statisticsToDouble(columnIndex, chunks.getQuick(slot + CHUNK_MIN_PTR));
+    }
+
+    public long getMinLong(int rowGroupIndex, int columnIndex) {
+        final int slot = (rowGroupIndex * getColumnCount() + columnIndex) * CHUNK_SLOT_SIZE;
+        return statisticsToLong(columnIndex, chunks.getQuick(slot + CHUNK_MIN_PTR));
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getRowGroupCount() {
+        return rowGroupRowCounts.size();
+    }
+
+    public long getRowGroupRowCount(int rowGroupIndex) {
+        return rowGroupRowCounts.getQuick(rowGroupIndex);
+    }
+
+    /**
+     * Returns true when the column chunk has min/max statistics that can be compared
+     * with QuestDB values of the column type. Nulls are not accounted for by the
+     * statistics.
+     */
+    public boolean hasStatistics(int rowGroupIndex, int columnIndex) {
+        final int conversion = columnConversions.getQuick(columnIndex);
+        if (conversion == CONVERSION_UNSIGNED || conversion == CONVERSION_INT96) {
+            // unsigned values are sorted differently, INT96 order is undefined
+            return false;
+        }
+        final int statisticsSize;
+        switch (physicalTypes.getQuick(columnIndex)) {
+            case ParquetConstants.TYPE_INT32:
+            case ParquetConstants.TYPE_FLOAT:
+                statisticsSize = Integer.BYTES;
+                break;
+            case ParquetConstants.TYPE_INT64:
+            case ParquetConstants.TYPE_DOUBLE:
+                statisticsSize = Long.BYTES;
+                break;
+            default:
+                return false;
+        }
+        final int slot = (rowGroupIndex * getColumnCount() + columnIndex) * CHUNK_SLOT_SIZE;
+        if (chunks.getQuick(slot + CHUNK_MIN_SIZE) != statisticsSize || chunks.getQuick(slot + CHUNK_MAX_SIZE) != statisticsSize) {
+            return false;
+        }
+        final int columnType = columnTypes.getQuick(columnIndex);
+        if (columnType == ColumnType.FLOAT || columnType == ColumnType.DOUBLE) {
+            return !Double.isNaN(getMinDouble(rowGroupIndex, columnIndex)) && !Double.isNaN(getMaxDouble(rowGroupIndex, columnIndex));
+        }
+        return true;
+    }
+
+    /**
+     * Opens and maps the file and reads its metadata.
+     *
+     * @throws CairoException when the file is not a Parquet file, or uses features that are not supported
+     */
+    public ParquetReader of(LPSZ path) {
+        closeFile();
+        columnNames.clear();
+        columnTypes.clear();
+        columnConversions.clear();
+        columnOptional.clear();
+        columnScales.clear();
+        physicalTypes.clear();
+        typeLengths.clear();
+        rowGroupRowCounts.clear();
+        chunks.clear();
+        rowCount = 0;
+
+        fd = TableUtils.openRO(ff, path, LOG);
+        fileSize = ff.length(fd);
+        if (fileSize < 3 * Integer.BYTES) {
+            throw notParquet(path);
+        }
+        fileAddr = TableUtils.mapRO(ff, fd, fileSize, MemoryTag.MMAP_IMPORT);
+        if (Unsafe.getUnsafe().getInt(fileAddr) != MAGIC || Unsafe.getUnsafe().getInt(fileAddr + fileSize - Integer.BYTES) != MAGIC) {
+            throw notParquet(path);
+        }
+        final long footerHi = fileAddr + fileSize - 2 * Integer.BYTES;
+        final int footerSize = Unsafe.getUnsafe().getInt(footerHi);
+        if (footerSize < 0 || footerSize > fileSize - 3 * Integer.BYTES) {
+            throw notParquet(path);
+        }
+        try {
+            readFileMetaData(footerHi - footerSize, footerHi);
+        } catch (CairoException e) {
+            throw CairoException.nonCritical().put("could not read parquet file [path=").put(path)
+                    .put(", msg=").put(e.getFlyweightMessage())
+                    .put(']');
+        }
+        if (chunks.size() != getRowGroupCount() * getColumnCount() * CHUNK_SLOT_SIZE) {
+            throw CairoException.nonCritical().put("parquet row group does not match schema [path=").put(path).put(']');
+        }
+        return this;
+    }
+
+    private static boolean isAscii(long lo, long size) {
+        long i = 0;
+        for (; i + Long.BYTES <= size; i += Long.BYTES) {
+            if ((Unsafe.getUnsafe().getLong(lo + i) & 0x8080808080808080L) != 0) {
+                return false;
+            }
+        }
+        for (; i < size; i++) {
+            if (Unsafe.getUnsafe().getByte(lo + i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void putNull(int columnType, MemoryCARW dataMem, MemoryCARW auxMem) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                dataMem.putByte((byte) 0);
+                break;
+            case ColumnType.SHORT:
+                dataMem.putShort((short) 0);
+                break;
+            case ColumnType.CHAR:
+                dataMem.putChar((char) 0);
+                break;
+            case ColumnType.INT:
+                dataMem.putInt(Numbers.INT_NULL);
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                dataMem.putLong(Numbers.LONG_NULL);
+                break;
+            case ColumnType.FLOAT:
+                dataMem.putFloat(Float.NaN);
+                break;
+            case ColumnType.DOUBLE:
+                dataMem.putDouble(Double.NaN);
+                break;
+            case ColumnType.UUID:
+                dataMem.putLong128(Numbers.LONG_NULL, Numbers.LONG_NULL);
+                break;
+            case ColumnType.VARCHAR:
+                VarcharTypeDriver.appendValue(auxMem, dataMem, null);
+                break;
+            default:
+                auxMem.putLong(dataMem.getAppendOffset());
+                dataMem.putNullBin();
+                break;
+        }
+    }
+
+    private CairoException chunkError(String message, int rowGroupIndex, int columnIndex) {
+        return CairoException.nonCritical().put(message)
+                .put(" [rowGroup=").put(rowGroupIndex)
+                .put(", column=").put(columnNames.getQuick(columnIndex))
+                .put(']');
+    }
+
+    private void closeFile() {
+        if (fileAddr != 0) {
+            ff.munmap(fileAddr, fileSize, MemoryTag.MMAP_IMPORT);
+            fileAddr = 0;
+        }
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+    }
+
+    private void decodeValues(int columnIndex, long lo, long hi, boolean optional, MemoryCARW dataMem, MemoryCARW auxMem) {
+        final boolean dict;
+        if (pageEncoding == ParquetConstants.ENCODING_PLAIN_DICTIONARY || pageEncoding == ParquetConstants.ENCODING_RLE_DICTIONARY) {
+            if (dictCount < 0 || lo >= hi) {
+                throw CairoException.nonCritical().put("dictionary page is missing [column=").put(columnNames.getQuick(columnIndex)).put(']');
+            }
+            dictKeys.of(lo + 1, hi, Unsafe.getUnsafe().getByte(lo));
+            dict = true;
+        } else if (pageEncoding == ParquetConstants.ENCODING_PLAIN) {
+            valuePtr = lo;
+            valueHi = hi;
+            boolBit = 0;
+            dict = false;
+        } else {
+            throw CairoException.nonCritical().put("unsupported parquet encoding [column=").put(columnNames.getQuick(columnIndex))
+                    .put(", encoding=").put(pageEncoding)
+                    .put(']');
+        }
+
+        final int physicalType = physicalTypes.getQuick(columnIndex);
+        final int columnType = columnTypes.getQuick(columnIndex);
+        final int conversion = columnConversions.getQuick(columnIndex);
+        final double scale = conversion == CONVERSION_DECIMAL ? Math.pow(10, columnScales.getQuick(columnIndex)) : 1;
+        for (int i = 0; i < pageValueCount; i++) {
+            if (optional && defLevels.next() == 0) {
+                putNull(columnType, dataMem, auxMem);
+                continue;
+            }
+            switch (physicalType) {
+                case ParquetConstants.TYPE_BOOLEAN:
+                    dataMem.putBool(nextBoolean());
+                    break;
+                case ParquetConstants.TYPE_INT32: {
+                    final int value = Unsafe.getUnsafe().getInt(nextFixed(Integer.BYTES, dict));
+                    switch (ColumnType.tagOf(columnType)) {
+                        case ColumnType.BYTE:
+                            dataMem.putByte((byte) value);
+                            break;
+                        case ColumnType.SHORT:
+                            dataMem.putShort((short) value);
+                            break;
+                        case ColumnType.CHAR:
+                            dataMem.putChar((char) value);
+                            break;
+                        case ColumnType.LONG:
+                            // unsigned 32-bit integer
+                            dataMem.putLong(value & 0xFFFFFFFFL);
+                            break;
+                        case ColumnType.DATE:
+                            dataMem.putLong(value * Dates.DAY_MILLIS);
+                            break;
+                        case ColumnType.DOUBLE:
+                            dataMem.putDouble(value / scale);
+                            break;
+                        default:
+                            dataMem.putInt(value);
+                            break;
+                    }
+                    break;
+                }
+                case ParquetConstants.TYPE_INT64: {
+                    final long value = Unsafe.getUnsafe().getLong(nextFixed(Long.BYTES, dict));
+                    if (conversion == CONVERSION_DECIMAL) {
+                        dataMem.putDouble(value / scale);
+                    } else if (conversion == CONVERSION_NANOS_TO_MICROS) {
+                        dataMem.putLong(Math.floorDiv(value, 1000L));
+                    } else {
+                        dataMem.putLong(value);
+                    }
+                    break;
+                }
+                case ParquetConstants.TYPE_INT96: {
+                    // nanos of day followed by the julian day
+                    final long address = nextFixed(12, dict);
+                    final long nanos = Unsafe.getUnsafe().getLong(address);
+                    final long julianDay = Unsafe.getUnsafe().getInt(address + Long.BYTES);
+                    dataMem.putLong((julianDay - JULIAN_DAY_OF_EPOCH) * Timestamps.DAY_MICROS + nanos / 1000);
+                    break;
+                }
+                case ParquetConstants.TYPE_FLOAT:
+                    dataMem.putFloat(Unsafe.getUnsafe().getFloat(nextFixed(Float.BYTES, dict)));
+                    break;
+                case ParquetConstants.TYPE_DOUBLE:
+                    dataMem.putDouble(Unsafe.getUnsafe().getDouble(nextFixed(Double.BYTES, dict)));
+                    break;
+                case ParquetConstants.TYPE_FIXED_LEN_BYTE_ARRAY: {
+                    // UUID is stored as 16 big-endian bytes
+                    final long address = nextFixed(typeLengths.getQuick(columnIndex), dict);
+                    final long hiBits = Long.reverseBytes(Unsafe.getUnsafe().getLong(address));
+                    final long loBits = Long.reverseBytes(Unsafe.getUnsafe().getLong(address + Long.BYTES));
+                    dataMem.putLong128(loBits, hiBits);
+                    break;
+                }
+                default: {
+                    final long address;
+                    final long size;
+                    final boolean ascii;
+                    if (dict) {
+                        final int key = nextDictKey();
+                        address = dictValues.getQuick(key * 3);
+                        size = dictValues.getQuick(key * 3 + 1);
+                        ascii = dictValues.getQuick(key * 3 + 2) == 1;
+                    } else {
+                        size = nextByteArraySize();
+                        address = valuePtr;
+                        valuePtr += size;
+                        ascii = columnType == ColumnType.VARCHAR && isAscii(address, size);
+                    }
+                    if (columnType == ColumnType.VARCHAR) {
+                        VarcharTypeDriver.appendValue(auxMem, dataMem, utf8View.of(address, address + size, ascii));
+                    } else {
+                        auxMem.putLong(dataMem.getAppendOffset());
+                        dataMem.putLong(size);
+                        dataMem.putBlockOfBytes(address, size);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    private long decompress(int codec, long lo, long hi, int uncompressedSize, MemoryCARW mem) {
+        switch (codec) {
+            case ParquetConstants.CODEC_UNCOMPRESSED:
+                if (hi - lo < uncompressedSize) {
+                    throw CairoException.nonCritical().put("page is truncated");
+                }
+                return lo;
+            case ParquetConstants.CODEC_SNAPPY: {
+                mem.jumpTo(0);
+                final long address = mem.appendAddressFor(uncompressedSize);
+                if (Snappy.decompress(lo, hi, address, uncompressedSize) != uncompressedSize) {
+                    throw CairoException.nonCritical().put("unexpected uncompressed page size");
+                }
+                return address;
+            }
+            default:
+                throw CairoException.nonCritical().put("unsupported parquet compression codec [codec=").put(codec).put(']');
+        }
+    }
+
+    private void loadDictionary(int columnIndex, long lo, long hi) {
+        final int physicalType = physicalTypes.getQuick(columnIndex);
+        dictValues.clear();
+        if (physicalType == ParquetConstants.TYPE_BYTE_ARRAY) {
+            valuePtr = lo;
+            valueHi = hi;
+            final boolean varchar = columnTypes.getQuick(columnIndex) == ColumnType.VARCHAR;
+            for (int i = 0; i < pageDictValueCount; i++) {
+                final long size = nextByteArraySize();
+                dictValues.add(valuePtr, size);
+                dictValues.add(varchar && isAscii(valuePtr, size) ? 1 : 0);
+                valuePtr += size;
+            }
+        } else {
+            final int valueSize;
+            switch (physicalType) {
+                case ParquetConstants.TYPE_INT32:
+                case ParquetConstants.TYPE_FLOAT:
+                    valueSize = Integer.BYTES;
+                    break;
+                case ParquetConstants.TYPE_INT96:
+                    valueSize = 12;
+                    break;
+                case ParquetConstants.TYPE_FIXED_LEN_BYTE_ARRAY:
+                    valueSize = typeLengths.getQuick(columnIndex);
+                    break;
+                case ParquetConstants.TYPE_INT64:
+                case ParquetConstants.TYPE_DOUBLE:
+                    valueSize = Long.BYTES;
+                    break;
+                default:
+                    throw CairoException.nonCritical().put("unexpected dictionary page [column=").put(columnNames.getQuick(columnIndex)).put(']');
+            }
+            if ((long) pageDictValueCount * valueSize > hi - lo) {
+                throw CairoException.nonCritical().put("dictionary page is truncated [column=").put(columnNames.getQuick(columnIndex)).put(']');
+            }
+            dictAddr = lo;
+        }
+        dictCount = pageDictValueCount;
+    }
+
+    private boolean nextBoolean() {
+        // PLAIN booleans are bit-packed, least significant bit first
+        final long address = valuePtr + (boolBit >>> 3);
+        if (address >= valueHi) {
+            throw CairoException.nonCritical().put("data page is truncated");
+        }
+        final boolean value = (Unsafe.getUnsafe().getByte(address) & (1 << (boolBit & 7))) != 0;
+        boolBit++;
+        return value;
+    }
+
+    private long nextByteArraySize() {
+        if (valueHi - valuePtr < Integer.BYTES) {
+            throw CairoException.nonCritical().put("data page is truncated");
+        }
+        final long size = Unsafe.getUnsafe().getInt(valuePtr) & 0xFFFFFFFFL;
+        valuePtr += Integer.BYTES;
+        if (size > valueHi - valuePtr) {
+            throw CairoException.nonCritical().put("data page is truncated");
+        }
+        return size;
+    }
+
+    private int nextDictKey() {
+        final int key = dictKeys.next();
+        if (key >= dictCount) {
+            throw CairoException.nonCritical().put("dictionary key is out of range [key=").put(key)
+                    .put(", dictionarySize=").put(dictCount)
+                    .put(']');
+        }
+        return key;
+    }
+
+    private long nextFixed(int size, boolean dict) {
+        if (dict) {
+            return dictAddr + (long) nextDictKey() * size;
+        }
+        if (valueHi - valuePtr < size) {
+            throw CairoException.nonCritical().put("data page is truncated");
+        }
+        final long address = valuePtr;
+        valuePtr += size;
+        return address;
+    }
+
+    private CairoException notParquet(LPSZ path) {
+        return CairoException.nonCritical().put("not a parquet file [path=").put(path).put(']');
+    }
+
+    private void readColumnChunk() {
+        long dataPageOffset = -1;
+        long dictionaryPageOffset = -1;
+        long size = -1;
+        int codec = -1;
+        long minPtr = 0;
+        long minSize = -1;
+        long maxPtr = 0;
+        long maxSize = -1;
+
+        thrift.beginStruct();
+        int type;
+        while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 1:
+                    throw CairoException.nonCritical().put("column chunks in external files are not supported");
+                case 3:
+                    thrift.beginStruct();
+                    while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+                        switch (thrift.getFieldId()) {
+                            case 4:
+                                codec = thrift.readI32();
+                                break;
+                            case 7:
+                                size = thrift.readI64();
+                                break;
+                            case 9:
+                                dataPageOffset = thrift.readI64();
+                                break;
+                            case 11:
+                                dictionaryPageOffset = thrift.readI64();
+                                break;
+                            case 12: {
+                                // Statistics; min_value and max_value take precedence over the deprecated min and max
+                                long legacyMinPtr = 0;
+                                long legacyMinSize = -1;
+                                long legacyMaxPtr = 0;
+                                long legacyMaxSize = -1;
+                                thrift.beginStruct();
+                                while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+                                    switch (thrift.getFieldId()) {
+                                        case 1:
+                                            legacyMaxSize = thrift.readBinary();
+                                            legacyMaxPtr = thrift.getBinaryLo();
+                                            break;
+                                        case 2:
+                                            legacyMinSize = thrift.readBinary();
+                                            legacyMinPtr = thrift.getBinaryLo();
+                                            break;
+                                        case 5:
+                                            maxSize = thrift.readBinary();
+                                            maxPtr = thrift.getBinaryLo();
+                                            break;
+                                        case 6:
+                                            minSize = thrift.readBinary();
+                                            minPtr = thrift.getBinaryLo();
+                                            break;
+                                        default:
+                                            thrift.skip(type);
+                                            break;
+                                    }
+                                }
+                                if (minSize == -1 || maxSize == -1) {
+                                    minPtr = legacyMinPtr;
+                                    minSize = legacyMinSize;
+                                    maxPtr = legacyMaxPtr;
+                                    maxSize = legacyMaxSize;
+                                }
+                                break;
+                            }
+                            default:
+                                thrift.skip(type);
+                                break;
+                        }
+                    }
+                    break;
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+
+        // some writers set dictionary page offset to 0 when there is no dictionary
+        final long offset = dictionaryPageOffset > 0 ? Math.min(dictionaryPageOffset, dataPageOffset) : dataPageOffset;
+        if (offset < Integer.BYTES || size < 0 || offset + size > fileSize) {
+            throw CairoException.nonCritical().put("invalid column chunk [offset=").put(offset).put(", size=").put(size).put(']');
+        }
+        chunks.add(offset, size, codec, minPtr);
+        chunks.add(minSize, maxPtr);
+        chunks.add(maxSize);
+    }
+
+    private void readFileMetaData(long lo, long hi) {
+        thrift.of(lo, hi);
+        thrift.beginStruct();
+        int type;
+        while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 2:
+                    readSchema();
+                    break;
+                case 3:
+                    rowCount = thrift.readI64();
+                    break;
+                case 4: {
+                    final int rowGroupCount = thrift.readListHeader();
+                    for (int i = 0; i < rowGroupCount; i++) {
+                        long rows = 0;
+                        thrift.beginStruct();
+                        while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+                            switch (thrift.getFieldId()) {
+                                case 1: {
+                                    final int chunkCount = thrift.readListHeader();
+                                    for (int k = 0; k < chunkCount; k++) {
+                                        readColumnChunk();
+                                    }
+                                    break;
+                                }
+                                case 3:
+                                    rows = thrift.readI64();
+                                    break;
+                                default:
+                                    thrift.skip(type);
+                                    break;
+                            }
+                        }
+                        rowGroupRowCounts.add(rows);
+                    }
+                    break;
+                }
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+    }
+
+    private void readPageHeader(long lo, long hi) {
+        pageType = -1;
+        pageSize = -1;
+        pageUncompressedSize = 0;
+        pageValueCount = 0;
+        pageDictValueCount = 0;
+        pageEncoding = ParquetConstants.ENCODING_PLAIN;
+        pageDefLevelsSize = 0;
+        pageRepLevelsSize = 0;
+        pageIsCompressed = true;
+
+        thrift.of(lo, hi);
+        thrift.beginStruct();
+        int type;
+        while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 1:
+                    pageType = thrift.readI32();
+                    break;
+                case 2:
+                    pageUncompressedSize = thrift.readI32();
+                    break;
+                case 3:
+                    pageSize = thrift.readI32();
+                    break;
+                case 5:
+                    // DataPageHeader
+                    thrift.beginStruct();
+                    while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+                        switch (thrift.getFieldId()) {
+                            case 1:
+                                pageValueCount = thrift.readI32();
+                                break;
+                            case 2:
+                                pageEncoding = thrift.readI32();
+                                break;
+                            default:
+                                thrift.skip(type);
+                                break;
+                        }
+                    }
+                    break;
+                case 7:
+                    // DictionaryPageHeader
+                    thrift.beginStruct();
+                    while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+                        if (thrift.getFieldId() == 1) {
+                            pageDictValueCount = thrift.readI32();
+                        } else {
+                            thrift.skip(type);
+                        }
+                    }
+                    break;
+                case 8:
+                    // DataPageHeaderV2
+                    thrift.beginStruct();
+                    while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+                        switch (thrift.getFieldId()) {
+                            case 1:
+                                pageValueCount = thrift.readI32();
+                                break;
+                            case 4:
+                                pageEncoding = thrift.readI32();
+                                break;
+                            case 5:
+                                pageDefLevelsSize = thrift.readI32();
+                                break;
+                            case 6:
+                                pageRepLevelsSize = thrift.readI32();
+                                break;
+                            case 7:
+                                pageIsCompressed = type == ThriftCompactWriter.TYPE_BOOL_TRUE;
+                                break;
+                            default:
+                                thrift.skip(type);
+                                break;
+                        }
+                    }
+                    break;
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+    }
+
+    private void readSchema() {
+        final int elementCount = thrift.readListHeader();
+        for (int i = 0; i < elementCount; i++) {
+            int physicalType = -1;
+            int typeLength = 0;
+            int repetition = ParquetConstants.REPETITION_REQUIRED;
+            String name = null;
+            int childCount = 0;
+            int convertedType = -1;
+            int scale = 0;
+            int logicalType = -1;
+            int logicalScale = -1;
+            int timeUnit = -1;
+            int intBitWidth = 0;
+            boolean intSigned = true;
+
+            thrift.beginStruct();
+            int type;
+            while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+                switch (thrift.getFieldId()) {
+                    case 1:
+                        physicalType = thrift.readI32();
+                        break;
+                    case 2:
+                        typeLength = thrift.readI32();
+                        break;
+                    case 3:
+                        repetition = thrift.readI32();
+                        break;
+                    case 4: {
+                        final int size = thrift.readBinary();
+                        name = Utf8s.stringFromUtf8Bytes(thrift.getBinaryLo(), thrift.getBinaryLo() + size);
+                        break;
+                    }
+                    case 5:
+                        childCount = thrift.readI32();
+                        break;
+                    case 6:
+                        convertedType = thrift.readI32();
+                        break;
+                    case 7:
+                        scale = thrift.readI32();
+                        break;
+                    case 10:
+                        // LogicalType union, the field id is the type
+                        thrift.beginStruct();
+                        while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+                            logicalType = thrift.getFieldId();
+                            if (type != ThriftCompactWriter.TYPE_STRUCT) {
+                                thrift.skip(type);
+                                continue;
+                            }
+                            thrift.beginStruct();
+                            while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+                                final int fieldId = thrift.getFieldId();
+                                if (logicalType == ParquetConstants.LOGICAL_TYPE_DECIMAL && fieldId == 1) {
+                                    logicalScale = thrift.readI32();
+                                } else if (logicalType == ParquetConstants.LOGICAL_TYPE_TIMESTAMP && fieldId == 2) {
+                                    // TimeUnit union
+                                    thrift.beginStruct();
+                                    while ((type = thrift.nextField()) != ThriftCompactReader.TYPE_STOP) {
+                                        timeUnit = thrift.getFieldId();
+                                        thrift.skip(type);
+                                    }
+                                } else if (logicalType == ParquetConstants.LOGICAL_TYPE_INTEGER && fieldId == 1) {
+                                    intBitWidth = thrift.readI8();
+                                } else if (logicalType == ParquetConstants.LOGICAL_TYPE_INTEGER && fieldId == 2) {
+                                    intSigned = type == ThriftCompactWriter.TYPE_BOOL_TRUE;
+                                } else {
+                                    thrift.skip(type);
+                                }
+                            }
+                        }
+                        break;
+                    default:
+                        thrift.skip(type);
+                        break;
+                }
+            }
+
+            if (i == 0) {
+                // the root of the schema
+                if (childCount != elementCount - 1) {
+                    throw CairoException.nonCritical().put("nested parquet schema is not supported");
+                }
+                continue;
+            }
+            if (childCount > 0 || physicalType == -1) {
+                throw CairoException.nonCritical().put("nested parquet schema is not supported [column=").put(name).put(']');
+            }
+            if (repetition != ParquetConstants.REPETITION_REQUIRED && repetition != ParquetConstants.REPETITION_OPTIONAL) {
+                throw CairoException.nonCritical().put("repeated parquet columns are not supported [column=").put(name).put(']');
+            }
+
+            int conversion = CONVERSION_NONE;
+            int columnType = -1;
+            final boolean decimal = logicalType == ParquetConstants.LOGICAL_TYPE_DECIMAL || convertedType == ParquetConstants.CONVERTED_DECIMAL;
+            switch (physicalType) {
+                case ParquetConstants.TYPE_BOOLEAN:
+                    columnType = ColumnType.BOOLEAN;
+                    break;
+                case ParquetConstants.TYPE_INT32:
+                    if (decimal) {
+                        columnType = ColumnType.DOUBLE;
+                        conversion = CONVERSION_DECIMAL;
+                    } else if (logicalType == ParquetConstants.LOGICAL_TYPE_DATE || convertedType == ParquetConstants.CONVERTED_DATE) {
+                        columnType = ColumnType.DATE;
+                        conversion = CONVERSION_DAYS_TO_MILLIS;
+                    } else if (logicalType == ParquetConstants.LOGICAL_TYPE_INTEGER) {
+                        if (intBitWidth == 8) {
+                            columnType = intSigned ? ColumnType.BYTE : ColumnType.SHORT;
+                        } else if (intBitWidth == 16) {
+                            columnType = intSigned ? ColumnType.SHORT : ColumnType.CHAR;
+                        } else if (intSigned) {
+                            columnType = ColumnType.INT;
+                        } else {
+                            columnType = ColumnType.LONG;
+                            conversion = CONVERSION_UNSIGNED;
+                        }
+                    } else {
+                        switch (convertedType) {
+                            case ParquetConstants.CONVERTED_INT_8:
+                                columnType = ColumnType.BYTE;
+                                break;
+                            case ParquetConstants.CONVERTED_INT_16:
+                            case ParquetConstants.CONVERTED_UINT_8:
+                                columnType = ColumnType.SHORT;
+                                break;
+                            case ParquetConstants.CONVERTED_UINT_16:
+                                columnType = ColumnType.CHAR;
+                                break;
+                            case ParquetConstants.CONVERTED_UINT_32:
+                                columnType = ColumnType.LONG;
+                                conversion = CONVERSION_UNSIGNED;
+                                break;
+                            default:
+                                columnType = ColumnType.INT;
+                                break;
+                        }
+                    }
+                    break;
+                case ParquetConstants.TYPE_INT64:
+                    if (decimal) {
+                        columnType = ColumnType.DOUBLE;
+                        conversion = CONVERSION_DECIMAL;
+                    } else if (logicalType == ParquetConstants.LOGICAL_TYPE_TIMESTAMP) {
+                        if (timeUnit == ParquetConstants.TIME_UNIT_MILLIS) {
+                            columnType = ColumnType.DATE;
+                        } else {
+                            columnType = ColumnType.TIMESTAMP;
+                            if (timeUnit == ParquetConstants.TIME_UNIT_NANOS) {
+                                conversion = CONVERSION_NANOS_TO_MICROS;
+                            }
+                        }
+                    } else if (convertedType == ParquetConstants.CONVERTED_TIMESTAMP_MILLIS) {
+                        columnType = ColumnType.DATE;
+                    } else if (convertedType == ParquetConstants.CONVERTED_TIMESTAMP_MICROS) {
+                        columnType = ColumnType.TIMESTAMP;
+                    } else {
+                        columnType = ColumnType.LONG;
+                        if (convertedType == ParquetConstants.CONVERTED_UINT_64 || (logicalType == ParquetConstants.LOGICAL_TYPE_INTEGER && !intSigned)) {
+                            conversion = CONVERSION_UNSIGNED;
+                        }
+                    }
+                    break;
+                case ParquetConstants.TYPE_INT96:
+                    // legacy Spark and Impala timestamps
+                    columnType = ColumnType.TIMESTAMP;
+                    conversion = CONVERSION_INT96;
+                    break;
+                case ParquetConstants.TYPE_FLOAT:
+                    columnType = ColumnType.FLOAT;
+                    break;
+                case ParquetConstants.TYPE_DOUBLE:
+                    columnType = ColumnType.DOUBLE;
+                    break;
+                case ParquetConstants.TYPE_BYTE_ARRAY:
+                    if (logicalType == ParquetConstants.LOGICAL_TYPE_STRING
+                            || logicalType == ParquetConstants.LOGICAL_TYPE_ENUM
+                            || logicalType == ParquetConstants.LOGICAL_TYPE_JSON
+                            || convertedType == ParquetConstants.CONVERTED_UTF8
+                            || convertedType == ParquetConstants.CONVERTED_ENUM
+                            || convertedType == ParquetConstants.CONVERTED_JSON) {
+                        columnType = ColumnType.VARCHAR;
+                    } else if (!decimal) {
+                        columnType = ColumnType.BINARY;
+                    }
+                    break;
+                case ParquetConstants.TYPE_FIXED_LEN_BYTE_ARRAY:
+                    if (logicalType == ParquetConstants.LOGICAL_TYPE_UUID && typeLength == 16) {
+                        columnType = ColumnType.UUID;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (columnType == -1) {
+                throw CairoException.nonCritical().put("unsupported parquet column type [column=").put(name)
+                        .put(", physicalType=").put(physicalType)
+                        .put(", convertedType=").put(convertedType)
+                        .put(", logicalType=").put(logicalType)
+                        .put(']');
+            }
+
+            columnNames.add(name);
+            columnTypes.add(columnType);
+            columnConversions.add(conversion);
+            columnOptional.add(repetition == ParquetConstants.REPETITION_OPTIONAL ? 1 : 0);
+            columnScales.add(logicalScale != -1 ? logicalScale : scale);
+            physicalTypes.add(physicalType);
+            typeLengths.add(typeLength);
+        }
+    }
+
+    private double statisticsToDouble(int columnIndex, long ptr) {
+        switch (physicalTypes.getQuick(columnIndex)) {
+            case ParquetConstants.TYPE_FLOAT:
+                return Unsafe.getUnsafe().getFloat(ptr);
+            case ParquetConstants.TYPE_DOUBLE:
+                return Unsafe.getUnsafe().getDouble(ptr);
+            case ParquetConstants.TYPE_INT32:
+                return Unsafe.getUnsafe().getInt(ptr) / Math.pow(10, columnScales.getQuick(columnIndex));
+            default:
+                return Unsafe.getUnsafe().getLong(ptr) / Math.pow(10, columnScales.getQuick(columnIndex));
+        }
+    }
+
+    private long statisticsToLong(int columnIndex, long ptr) {
+        if (physicalTypes.getQuick(columnIndex) == ParquetConstants.TYPE_INT32) {
+            final int value = Unsafe.getUnsafe().getInt(ptr);
+            return columnConversions.getQuick(columnIndex) == CONVERSION_DAYS_TO_MILLIS ? value * Dates.DAY_MILLIS : value;
+        }
+        final long value = Unsafe.getUnsafe().getLong(ptr);
+        return columnConversions.getQuick(columnIndex) == CONVERSION_NANOS_TO_MICROS ? Math.floorDiv(value, 1000L) : value;
+    }
+}
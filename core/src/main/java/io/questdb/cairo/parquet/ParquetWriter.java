@@ -0,0 +1,714 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.parquet;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Utf8Sequence;
+
+import java.io.Closeable;
+
+/**
+ * Writes table partitions to a Parquet file. Each partition becomes a row group and
+ * each column of the partition is streamed straight from {@link TableReader} column
+ * memory into uncompressed data pages of roughly {@code dataPageSize} bytes, so the
+ * rows are never materialized. SYMBOL columns are dictionary-encoded using the
+ * symbol table of the column, i.e. data pages carry symbol keys only. Column chunks
+ * of numeric and temporal columns carry min/max statistics, which lets readers skip
+ * row groups.
+ * <p>
+ * Usage is {@link #of(LPSZ, TableReader)}, {@link #writePartition(int)} for every
+ * partition to be exported and then {@link #finish()}.
+ */
+public class ParquetWriter implements Closeable {
+    public static final int DEFAULT_DATA_PAGE_SIZE = 1024 * 1024;
+    private static final int CHUNK_DATA_PAGE_OFFSET = 1;
+    private static final int CHUNK_DICTIONARY_PAGE_OFFSET = 0;
+    private static final int CHUNK_MAX = 5;
+    private static final int CHUNK_MIN = 4;
+    private static final int CHUNK_SIZE = 2;
+    private static final int CHUNK_SLOT_SIZE = 7;
+    private static final int CHUNK_STATISTICS = 6;
+    private static final int CHUNK_VALUE_COUNT = 3;
+    private static final Log LOG = LogFactory.getLog(ParquetWriter.class);
+    private static final int MAGIC = 0x31524150; // "PAR1" in little-endian
+    private final LongList chunks = new LongList();
+    private final int dataPageSize;
+    private final MemoryCARW defLevelMem;
+    private final FilesFacade ff;
+    private final MemoryCARW headerMem;
+    private final LongList rowGroups = new LongList();
+    private final DirectUtf8Sink utf8Sink = new DirectUtf8Sink(64);
+    private final MemoryCARW valueMem;
+    private final ThriftCompactWriter thrift = new ThriftCompactWriter();
+    private long bitBuffer;
+    private int bitCount;
+    private long bitPackedValueCount;
+    private int defLevelRunLength;
+    private int defLevelRunValue;
+    private int fd = -1;
+    private long fileOffset;
+    private TableReader reader;
+    private boolean statistics;
+    private double statisticsMaxDouble;
+    private long statisticsMaxLong;
+    private double statisticsMinDouble;
+    private long statisticsMinLong;
+
+    public ParquetWriter(FilesFacade ff) {
+        this(ff, DEFAULT_DATA_PAGE_SIZE);
+    }
+
+    public ParquetWriter(FilesFacade ff, int dataPageSize) {
+        this.ff = ff;
+        this.dataPageSize = dataPageSize;
+        try {
+            this.valueMem = Vm.getCARWInstance(dataPageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+            this.defLevelMem = Vm.getCARWInstance(Math.max(dataPageSize / 8, 1024), Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+            this.headerMem = Vm.getCARWInstance(4096, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    /**
+     * Checks that all columns of the table can be written to Parquet.
+     *
+     * @throws CairoException naming the first column of unsupported type
+     */
+    public static void validate(RecordMetadata metadata) {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (physicalTypeOf(columnType) == -1) {
+                throw CairoException.nonCritical()
+                        .put("column type is not supported by parquet [column=").put(metadata.getColumnName(i))
+                        .put(", type=").put(ColumnType.nameOf(columnType))
+                        .put(']');
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+        reader = null;
+        Misc.free(valueMem);
+        Misc.free(defLevelMem);
+        Misc.free(headerMem);
+        Misc.free(utf8Sink);
+    }
+
+    /**
+     * Writes the file footer and closes the file. Returns the total number of rows written.
+     */
+    public long finish() {
+        final TableReaderMetadata metadata = reader.getMetadata();
+        final int columnCount = metadata.getColumnCount();
+        final int rowGroupCount = rowGroups.size() / 2;
+        long totalRows = 0;
+        for (int i = 0; i < rowGroupCount; i++) {
+            totalRows += rowGroups.getQuick(i * 2);
+        }
+
+        headerMem.jumpTo(0);
+        thrift.of(headerMem);
+        // FileMetaData
+        thrift.fieldI32(1, 1);
+        thrift.fieldList(2, ThriftCompactWriter.TYPE_STRUCT, columnCount + 1);
+        thrift.beginListElement();
+        thrift.fieldBinary(4, "schema").fieldI32(5, columnCount).endStruct();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            final int physicalType = physicalTypeOf(columnType);
+            thrift.beginListElement();
+            thrift.fieldI32(1, physicalType);
+            if (physicalType == ParquetConstants.TYPE_FIXED_LEN_BYTE_ARRAY) {
+                thrift.fieldI32(2, 16);
+            }
+            thrift.fieldI32(3, isRequired(columnType) ? ParquetConstants.REPETITION_REQUIRED : ParquetConstants.REPETITION_OPTIONAL);
+            thrift.fieldBinary(4, metadata.getColumnName(i));
+            final int convertedType = convertedTypeOf(columnType);
+            if (convertedType != -1) {
+                thrift.fieldI32(6, convertedType);
+            }
+            if (ColumnType.tagOf(columnType) == ColumnType.UUID) {
+                // UUID has no converted type, it's the logical type union only
+                thrift.beginStruct(10).beginStruct(ParquetConstants.LOGICAL_TYPE_UUID).endStruct().endStruct();
+            }
+            thrift.endStruct();
+        }
+        thrift.fieldI64(3, totalRows);
+        thrift.fieldList(4, ThriftCompactWriter.TYPE_STRUCT, rowGroupCount);
+        for (int g = 0; g < rowGroupCount; g++) {
+            thrift.beginListElement();
+            thrift.fieldList(1, ThriftCompactWriter.TYPE_STRUCT, columnCount);
+            long rowGroupSize = 0;
+            for (int i = 0; i < columnCount; i++) {
+                final int slot = (g * columnCount + i) * CHUNK_SLOT_SIZE;
+                final long dictionaryPageOffset = chunks.getQuick(slot + CHUNK_DICTIONARY_PAGE_OFFSET);
+                final long dataPageOffset = chunks.getQuick(slot + CHUNK_DATA_PAGE_OFFSET);
+                final long size = chunks.getQuick(slot + CHUNK_SIZE);
+                rowGroupSize += size;
+
+                thrift.beginListElement();
+                thrift.fieldI64(2, dictionaryPageOffset != -1 ? dictionaryPageOffset : dataPageOffset);
+                thrift.beginStruct(3);
+                thrift.fieldI32(1, physicalTypeOf(metadata.getColumnType(i)));
+                if (dictionaryPageOffset != -1) {
+                    thrift.fieldList(2, ThriftCompactWriter.TYPE_I32, 3)
+                            .listI32(ParquetConstants.ENCODING_PLAIN)
+                            .listI32(ParquetConstants.ENCODING_RLE)
+                            .listI32(ParquetConstants.ENCODING_RLE_DICTIONARY);
+                } else {
+                    thrift.fieldList(2, ThriftCompactWriter.TYPE_I32, 2)
+                            .listI32(ParquetConstants.ENCODING_PLAIN)
+                            .listI32(ParquetConstants.ENCODING_RLE);
+                }
+                thrift.fieldList(3, ThriftCompactWriter.TYPE_BINARY, 1).listString(metadata.getColumnName(i));
+                thrift.fieldI32(4, ParquetConstants.CODEC_UNCOMPRESSED);
+                thrift.fieldI64(5, chunks.getQuick(slot + CHUNK_VALUE_COUNT));
+                thrift.fieldI64(6, size);
+                thrift.fieldI64(7, size);
+                thrift.fieldI64(9, dataPageOffset);
+                if (dictionaryPageOffset != -1) {
+                    thrift.fieldI64(11, dictionaryPageOffset);
+                }
+                if (chunks.getQuick(slot + CHUNK_STATISTICS) != 0) {
+                    final int statisticsSize = physicalTypeOf(metadata.getColumnType(i)) == ParquetConstants.TYPE_INT64
+                            || ColumnType.tagOf(metadata.getColumnType(i)) == ColumnType.DOUBLE ? Long.BYTES : Integer.BYTES;
+                    thrift.beginStruct(12)
+                            .fieldPlainValue(5, chunks.getQuick(slot + CHUNK_MAX), statisticsSize)
+                            .fieldPlainValue(6, chunks.getQuick(slot + CHUNK_MIN), statisticsSize)
+                            .endStruct();
+                }
+                thrift.endStruct();
+                thrift.endStruct();
+            }
+            thrift.fieldI64(2, rowGroupSize);
+            thrift.fieldI64(3, rowGroups.getQuick(g * 2));
+            thrift.endStruct();
+        }
+        thrift.fieldBinary(6, "QuestDB");
+        thrift.stop();
+
+        final long footerSize = headerMem.getAppendOffset();
+        headerMem.putInt((int) footerSize);
+        headerMem.putInt(MAGIC);
+        append(headerMem);
+
+        ff.close(fd);
+        fd = -1;
+        reader = null;
+        return totalRows;
+    }
+
+    /**
+     * Creates, or truncates, the file and writes the file header. The reader must stay
+     * open until {@link #finish()} is called.
+     */
+    public ParquetWriter of(LPSZ path, TableReader reader) {
+        validate(reader.getMetadata());
+        this.reader = reader;
+        chunks.clear();
+        rowGroups.clear();
+        fd = TableUtils.openRW(ff, path, LOG, CairoConfiguration.O_NONE);
+        if (!ff.truncate(fd, 0)) {
+            throw CairoException.critical(ff.errno()).put("could not truncate [file=").put(path).put(']');
+        }
+        fileOffset = 0;
+        headerMem.jumpTo(0);
+        headerMem.putInt(MAGIC);
+        append(headerMem);
+        return this;
+    }
+
+    /**
+     * Writes partition of the reader as a row group. Returns the number of rows written.
+     */
+    public long writePartition(int partitionIndex) {
+        final long rowCount = reader.openPartition(partitionIndex);
+        if (rowCount < 1) {
+            return 0;
+        }
+        final TableReaderMetadata metadata = reader.getMetadata();
+        final int columnBase = reader.getColumnBase(partitionIndex);
+        final long rowGroupOffset = fileOffset;
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            writeColumnChunk(metadata.getColumnType(i), i, columnBase, rowCount);
+        }
+        rowGroups.add(rowCount, fileOffset - rowGroupOffset);
+        return rowCount;
+    }
+
+    private static int convertedTypeOf(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                return ParquetConstants.CONVERTED_INT_8;
+            case ColumnType.SHORT:
+                return ParquetConstants.CONVERTED_INT_16;
+            case ColumnType.CHAR:
+                return ParquetConstants.CONVERTED_UINT_16;
+            case ColumnType.DATE:
+                return ParquetConstants.CONVERTED_TIMESTAMP_MILLIS;
+            case ColumnType.TIMESTAMP:
+                return ParquetConstants.CONVERTED_TIMESTAMP_MICROS;
+            case ColumnType.SYMBOL:
+            case ColumnType.STRING:
+            case ColumnType.VARCHAR:
+                return ParquetConstants.CONVERTED_UTF8;
+            default:
+                return -1;
+        }
+    }
+
+    // column types that have no null value are written as required columns
+    private static boolean isRequired(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static int physicalTypeOf(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                return ParquetConstants.TYPE_BOOLEAN;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+                return ParquetConstants.TYPE_INT32;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return ParquetConstants.TYPE_INT64;
+            case ColumnType.FLOAT:
+                return ParquetConstants.TYPE_FLOAT;
+            case ColumnType.DOUBLE:
+                return ParquetConstants.TYPE_DOUBLE;
+            case ColumnType.SYMBOL:
+            case ColumnType.STRING:
+            case ColumnType.VARCHAR:
+            case ColumnType.BINARY:
+                return ParquetConstants.TYPE_BYTE_ARRAY;
+            case ColumnType.UUID:
+                return ParquetConstants.TYPE_FIXED_LEN_BYTE_ARRAY;
+            default:
+                return -1;
+        }
+    }
+
+    private void append(MemoryCARW mem) {
+        append(mem.getPageAddress(0), mem.getAppendOffset());
+    }
+
+    private void append(long address, long len) {
+        if (len > 0) {
+            if (ff.write(fd, address, len, fileOffset) != len) {
+                throw CairoException.critical(ff.errno()).put("could not write parquet file [fd=").put(fd)
+                        .put(", offset=").put(fileOffset)
+                        .put(", size=").put(len)
+                        .put(']');
+            }
+            fileOffset += len;
+        }
+    }
+
+    private void appendBitPacked(int value, int bitWidth) {
+        bitBuffer |= ((long) value) << bitCount;
+        bitCount += bitWidth;
+        while (bitCount >= 8) {
+            valueMem.putByte((byte) bitBuffer);
+            bitBuffer >>>= 8;
+            bitCount -= 8;
+        }
+        bitPackedValueCount++;
+    }
+
+    private void appendDefLevel(int level) {
+        if (level == defLevelRunValue) {
+            defLevelRunLength++;
+        } else {
+            flushDefLevelRun();
+            defLevelRunValue = level;
+            defLevelRunLength = 1;
+        }
+    }
+
+    private void appendUtf16(CharSequence value) {
+        utf8Sink.clear();
+        utf8Sink.put(value);
+        valueMem.putInt(utf8Sink.size());
+        valueMem.putBlockOfBytes(utf8Sink.ptr(), utf8Sink.size());
+    }
+
+    private void appendUtf8(Utf8Sequence value) {
+        final int size = value.size();
+        valueMem.putInt(size);
+        for (int i = 0; i < size; i++) {
+            valueMem.putByte(value.byteAt(i));
+        }
+    }
+
+    private void flushDefLevelRun() {
+        if (defLevelRunLength > 0) {
+            // RLE run of the hybrid encoding, bit width is 1, i.e. one byte per value
+            ThriftCompactWriter.putVarInt(defLevelMem, (long) defLevelRunLength << 1);
+            defLevelMem.putByte((byte) defLevelRunValue);
+            defLevelRunLength = 0;
+        }
+    }
+
+    private void resetPage() {
+        valueMem.jumpTo(0);
+        defLevelMem.jumpTo(0);
+        defLevelRunLength = 0;
+        defLevelRunValue = -1;
+        bitBuffer = 0;
+        bitCount = 0;
+        bitPackedValueCount = 0;
+    }
+
+    private void updateStatistics(long value) {
+        statisticsMinLong = Math.min(statisticsMinLong, value);
+        statisticsMaxLong = Math.max(statisticsMaxLong, value);
+        statistics = true;
+    }
+
+    private void updateStatistics(double value) {
+        // Math.min() and Math.max() order -0.0 before 0.0
+        statisticsMinDouble = Math.min(statisticsMinDouble, value);
+        statisticsMaxDouble = Math.max(statisticsMaxDouble, value);
+        statistics = true;
+    }
+
+    private void writeColumnChunk(int columnType, int columnIndex, int columnBase, long rowCount) {
+        final int columnTag = ColumnType.tagOf(columnType);
+        final long columnTop = Math.min(reader.getColumnTop(columnBase, columnIndex), rowCount);
+        final int primaryIndex = TableReader.getPrimaryColumnIndex(columnBase, columnIndex);
+        final MemoryR dataMem = columnTop < rowCount ? reader.getColumn(primaryIndex) : null;
+        final MemoryR auxMem = columnTop < rowCount && ColumnType.isVarSize(columnType) ? reader.getColumn(primaryIndex + 1) : null;
+        final boolean required = isRequired(columnType);
+
+        long dictionaryPageOffset = -1;
+        int keyBitWidth = 0;
+        if (columnTag == ColumnType.SYMBOL) {
+            dictionaryPageOffset = fileOffset;
+            final SymbolMapReader symbolMapReader = reader.getSymbolMapReader(columnIndex);
+            final int symbolCount = symbolMapReader.getSymbolCount();
+            keyBitWidth = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(symbolCount - 1, 0)));
+            writeDictionaryPage(symbolMapReader, symbolCount);
+        }
+
+        final long dataPageOffset = fileOffset;
+        statistics = false;
+        statisticsMinLong = Long.MAX_VALUE;
+        statisticsMaxLong = Long.MIN_VALUE;
+        statisticsMinDouble = Double.POSITIVE_INFINITY;
+        statisticsMaxDouble = Double.NEGATIVE_INFINITY;
+        final long rowsPerPage;
+        if (ColumnType.isVarSize(columnType)) {
+            rowsPerPage = Long.MAX_VALUE;
+        } else if (columnTag == ColumnType.BOOLEAN) {
+            rowsPerPage = dataPageSize * 8L;
+        } else {
+            rowsPerPage = Math.max(1, dataPageSize / ColumnType.sizeOf(columnType));
+        }
+
+        long row = 0;
+        while (row < rowCount) {
+            resetPage();
+            final long pageLo = row;
+            final long pageHi = pageLo + Math.min(rowCount - pageLo, rowsPerPage);
+            for (; row < pageHi; row++) {
+                if (row < columnTop) {
+                    writeNull(columnTag, required);
+                } else {
+                    writeValue(columnTag, dataMem, auxMem, row - columnTop, keyBitWidth);
+                }
+                if (valueMem.getAppendOffset() >= dataPageSize && ColumnType.isVarSize(columnType)) {
+                    row++;
+                    break;
+                }
+            }
+            writeDataPage(columnTag, required, (int) (row - pageLo), keyBitWidth);
+        }
+        chunks.add(dictionaryPageOffset, dataPageOffset, fileOffset - (dictionaryPageOffset != -1 ? dictionaryPageOffset : dataPageOffset), rowCount);
+        if (!statistics) {
+            chunks.add(0L, 0L);
+            chunks.add(0L);
+        } else if (columnTag == ColumnType.FLOAT) {
+            chunks.add((long) Float.floatToRawIntBits((float) statisticsMinDouble), Float.floatToRawIntBits((float) statisticsMaxDouble));
+            chunks.add(1);
+        } else if (columnTag == ColumnType.DOUBLE) {
+            chunks.add(Double.doubleToRawLongBits(statisticsMinDouble), Double.doubleToRawLongBits(statisticsMaxDouble));
+            chunks.add(1);
+        } else {
+            chunks.add(statisticsMinLong, statisticsMaxLong);
+            chunks.add(1);
+        }
+    }
+
+    private void writeDataPage(int columnTag, boolean required, int valueCount, int keyBitWidth) {
+        // close open bit-packed groups, dictionary keys are padded with zeroes to a multiple of 8
+        if (columnTag == ColumnType.SYMBOL) {
+            while ((bitPackedValueCount & 7) != 0) {
+                appendBitPacked(0, keyBitWidth);
+            }
+        } else if (columnTag == ColumnType.BOOLEAN && bitCount > 0) {
+            valueMem.putByte((byte) bitBuffer);
+        }
+        flushDefLevelRun();
+
+        long pageSize = valueMem.getAppendOffset();
+        if (!required) {
+            pageSize += Integer.BYTES + defLevelMem.getAppendOffset();
+        }
+
+        // dictionary keys are prefixed with the bit width and the header of a single bit-packed run
+        final long keyRunHeader = (bitPackedValueCount >>> 3) << 1 | 1;
+        if (columnTag == ColumnType.SYMBOL) {
+            pageSize += 1 + varIntSize(keyRunHeader);
+        }
+
+        headerMem.jumpTo(0);
+        thrift.of(headerMem)
+                .fieldI32(1, ParquetConstants.PAGE_TYPE_DATA_PAGE)
+                .fieldI32(2, (int) pageSize)
+                .fieldI32(3, (int) pageSize)
+                .beginStruct(5)
+                .fieldI32(1, valueCount)
+                .fieldI32(2, columnTag == ColumnType.SYMBOL ? ParquetConstants.ENCODING_RLE_DICTIONARY : ParquetConstants.ENCODING_PLAIN)
+                .fieldI32(3, ParquetConstants.ENCODING_RLE)
+                .fieldI32(4, ParquetConstants.ENCODING_RLE)
+                .endStruct()
+                .stop();
+        if (!required) {
+            headerMem.putInt((int) defLevelMem.getAppendOffset());
+        }
+        append(headerMem);
+        if (!required) {
+            append(defLevelMem);
+        }
+        if (columnTag == ColumnType.SYMBOL) {
+            headerMem.jumpTo(0);
+            headerMem.putByte((byte) keyBitWidth);
+            ThriftCompactWriter.putVarInt(headerMem, keyRunHeader);
+            append(headerMem);
+        }
+        append(valueMem);
+    }
+
+    private void writeDictionaryPage(SymbolTable symbolTable, int symbolCount) {
+        resetPage();
+        for (int key = 0; key < symbolCount; key++) {
+            appendUtf16(symbolTable.valueOf(key));
+        }
+        final long pageSize = valueMem.getAppendOffset();
+        headerMem.jumpTo(0);
+        thrift.of(headerMem)
+                .fieldI32(1, ParquetConstants.PAGE_TYPE_DICTIONARY_PAGE)
+                .fieldI32(2, (int) pageSize)
+                .fieldI32(3, (int) pageSize)
+                .beginStruct(7)
+                .fieldI32(1, symbolCount)
+                .fieldI32(2, ParquetConstants.ENCODING_PLAIN)
+                .endStruct()
+                .stop();
+        append(headerMem);
+        append(valueMem);
+    }
+
+    private void writeNull(int columnTag, boolean required) {
+        if (required) {
+            // column top of a type without null value, write the default
+            if (columnTag == ColumnType.BOOLEAN) {
+                appendBitPacked(0, 1);
+            } else {
+                valueMem.putInt(0);
+                updateStatistics(0);
+            }
+        } else {
+            appendDefLevel(0);
+        }
+    }
+
+    private void writeValue(int columnTag, MemoryR dataMem, MemoryR auxMem, long row, int keyBitWidth) {
+        switch (columnTag) {
+            case ColumnType.BOOLEAN:
+                appendBitPacked(dataMem.getByte(row) != 0 ? 1 : 0, 1);
+                break;
+            case ColumnType.BYTE: {
+                final byte value = dataMem.getByte(row);
+                valueMem.putInt(value);
+                updateStatistics(value);
+                break;
+            }
+            case ColumnType.SHORT: {
+                final short value = dataMem.getShort(row * Short.BYTES);
+                valueMem.putInt(value);
+                updateStatistics(value);
+                break;
+            }
+            case ColumnType.CHAR: {
+                final char value = dataMem.getChar(row * Character.BYTES);
+                valueMem.putInt(value);
+                updateStatistics(value);
+                break;
+            }
+            case ColumnType.INT: {
+                final int value = dataMem.getInt(row * Integer.BYTES);
+                if (value != Numbers.INT_NULL) {
+                    appendDefLevel(1);
+                    valueMem.putInt(value);
+                    updateStatistics(value);
+                } else {
+                    appendDefLevel(0);
+                }
+                break;
+            }
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP: {
+                final long value = dataMem.getLong(row * Long.BYTES);
+                if (value != Numbers.LONG_NULL) {
+                    appendDefLevel(1);
+                    valueMem.putLong(value);
+                    updateStatistics(value);
+                } else {
+                    appendDefLevel(0);
+                }
+                break;
+            }
+            case ColumnType.FLOAT: {
+                final float value = dataMem.getFloat(row * Float.BYTES);
+                if (!Float.isNaN(value)) {
+                    appendDefLevel(1);
+                    valueMem.putFloat(value);
+                    updateStatistics((double) value);
+                } else {
+                    appendDefLevel(0);
+                }
+                break;
+            }
+            case ColumnType.DOUBLE: {
+                final double value = dataMem.getDouble(row * Double.BYTES);
+                if (!Double.isNaN(value)) {
+                    appendDefLevel(1);
+                    valueMem.putDouble(value);
+                    updateStatistics(value);
+                } else {
+                    appendDefLevel(0);
+                }
+                break;
+            }
+            case ColumnType.UUID: {
+                final long lo = dataMem.getLong(row * 2 * Long.BYTES);
+                final long hi = dataMem.getLong(row * 2 * Long.BYTES + Long.BYTES);
+                if (!Uuid.isNull(lo, hi)) {
+                    appendDefLevel(1);
+                    // parquet stores UUID as 16 big-endian bytes
+                    valueMem.putLong(Long.reverseBytes(hi));
+                    valueMem.putLong(Long.reverseBytes(lo));
+                } else {
+                    appendDefLevel(0);
+                }
+                break;
+            }
+            case ColumnType.SYMBOL: {
+                final int key = dataMem.getInt(row * Integer.BYTES);
+                if (key != SymbolTable.VALUE_IS_NULL) {
+                    appendDefLevel(1);
+                    appendBitPacked(key, keyBitWidth);
+                } else {
+                    appendDefLevel(0);
+                }
+                break;
+            }
+            case ColumnType.STRING: {
+                final CharSequence value = dataMem.getStrA(auxMem.getLong(row * Long.BYTES));
+                if (value != null) {
+                    appendDefLevel(1);
+                    appendUtf16(value);
+                } else {
+                    appendDefLevel(0);
+                }
+                break;
+            }
+            case ColumnType.VARCHAR: {
+                final Utf8Sequence value = VarcharTypeDriver.getSplitValue(auxMem, dataMem, row, 1);
+                if (value != null) {
+                    appendDefLevel(1);
+                    appendUtf8(value);
+                } else {
+                    appendDefLevel(0);
+                }
+                break;
+            }
+            case ColumnType.BINARY: {
+                final long offset = auxMem.getLong(row * Long.BYTES);
+                final long len = dataMem.getBinLen(offset);
+                if (len != TableUtils.NULL_LEN) {
+                    appendDefLevel(1);
+                    valueMem.putInt((int) len);
+                    valueMem.putBlockOfBytes(dataMem.addressOf(offset + Long.BYTES), len);
+                } else {
+                    appendDefLevel(0);
+                }
+                break;
+            }
+            default:
+                throw CairoException.critical(0).put("unexpected column type [type=").put(ColumnType.nameOf(columnTag)).put(']');
+        }
+    }
+
+    private static int varIntSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
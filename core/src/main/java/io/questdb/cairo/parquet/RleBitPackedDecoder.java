@@ -0,0 +1,111 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.Unsafe;
+
+/**
+ * Decoder of the RLE / bit-packing hybrid encoding, which Parquet uses for definition
+ * levels and dictionary keys. Values are read one at a time straight from native memory.
+ */
+public class RleBitPackedDecoder {
+    private long bitBuffer;
+    private int bitWidth;
+    private int bufferedBits;
+    private long hi;
+    private long mask;
+    private long ptr;
+    private boolean rle;
+    private int rleValue;
+    private long runRemaining;
+
+    public int next() {
+        if (runRemaining == 0) {
+            readRunHeader();
+        }
+        runRemaining--;
+        if (rle) {
+            return rleValue;
+        }
+        while (bufferedBits < bitWidth) {
+            bitBuffer |= (long) (readByte() & 0xFF) << bufferedBits;
+            bufferedBits += 8;
+        }
+        final int value = (int) (bitBuffer & mask);
+        bitBuffer >>>= bitWidth;
+        bufferedBits -= bitWidth;
+        return value;
+    }
+
+    public RleBitPackedDecoder of(long lo, long hi, int bitWidth) {
+        if (bitWidth < 0 || bitWidth > 32) {
+            throw CairoException.nonCritical().put("invalid rle bit width [bitWidth=").put(bitWidth).put(']');
+        }
+        this.ptr = lo;
+        this.hi = hi;
+        this.bitWidth = bitWidth;
+        this.mask = (1L << bitWidth) - 1;
+        this.runRemaining = 0;
+        return this;
+    }
+
+    private byte readByte() {
+        if (ptr >= hi) {
+            throw CairoException.nonCritical().put("truncated rle data");
+        }
+        return Unsafe.getUnsafe().getByte(ptr++);
+    }
+
+    private void readRunHeader() {
+        long header = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = readByte();
+            header |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0 && shift < 64);
+
+        if ((header & 1) == 0) {
+            rle = true;
+            runRemaining = header >>> 1;
+            // run value is stored in the minimal number of bytes for the bit width, little-endian
+            rleValue = 0;
+            for (int i = 0, n = (bitWidth + 7) >>> 3; i < n; i++) {
+                rleValue |= (readByte() & 0xFF) << (i * 8);
+            }
+        } else {
+            rle = false;
+            runRemaining = (header >>> 1) * 8;
+            bitBuffer = 0;
+            bufferedBits = 0;
+        }
+        if (runRemaining == 0) {
+            throw CairoException.nonCritical().put("empty rle run");
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * Decompressor of the raw (unframed) Snappy format, which is the default page
+ * compression of Parquet files produced by Spark.
+ */
+public final class Snappy {
+
+    private Snappy() {
+    }
+
+    /**
+     * Decompresses {@code [srcLo, srcHi)} into {@code dst}, which must have room for
+     * {@link #getUncompressedLength(long, long)} bytes. Returns the number of bytes written.
+     */
+    public static long decompress(long srcLo, long srcHi, long dst, long dstCapacity) {
+        final long expected = getUncompressedLength(srcLo, srcHi);
+        long p = srcLo;
+        while (byteAt(p++, srcHi) < 0) {
+            // skip the length varint
+        }
+        if (expected > dstCapacity) {
+            throw corrupt();
+        }
+
+        long out = 0;
+        while (p < srcHi) {
+            final int tag = byteAt(p++, srcHi) & 0xFF;
+            final long len;
+            final long offset;
+            switch (tag & 3) {
+                case 0: {
+                    // literal
+                    long literalLen = tag >>> 2;
+                    if (literalLen >= 60) {
+                        final int bytes = (int) literalLen - 59;
+                        literalLen = 0;
+                        for (int i = 0; i < bytes; i++) {
+                            literalLen |= (long) (byteAt(p++, srcHi) & 0xFF) << (i * 8);
+                        }
+                    }
+                    literalLen++;
+                    if (literalLen > srcHi - p || out + literalLen > expected) {
+                        throw corrupt();
+                    }
+                    Vect.memcpy(dst + out, p, literalLen);
+                    p += literalLen;
+                    out += literalLen;
+                    continue;
+                }
+                case 1:
+                    len = 4 + ((tag >>> 2) & 7);
+                    offset = ((long) (tag >>> 5) << 8) | (byteAt(p++, srcHi) & 0xFF);
+                    break;
+                case 2:
+                    len = (tag >>> 2) + 1;
+                    offset = (byteAt(p, srcHi) & 0xFF) | (byteAt(p + 1, srcHi) & 0xFF) << 8;
+                    p += 2;
+                    break;
+                default:
+                    len = (tag >>> 2) + 1;
+                    offset = (byteAt(p, srcHi) & 0xFFL)
+                            | (byteAt(p + 1, srcHi) & 0xFFL) << 8
+                            | (byteAt(p + 2, srcHi) & 0xFFL) << 16
+                            | (byteAt(p + 3, srcHi) & 0xFFL) << 24;
+                    p += 4;
+                    break;
+            }
+            if (offset == 0 || offset > out || out + len > expected) {
+                throw corrupt();
+            }
+            if (offset >= len) {
+                Vect.memcpy(dst + out, dst + out - offset, len);
+            } else {
+                // overlapping copy repeats the last offset bytes
+                for (long i = 0; i < len; i++) {
+                    Unsafe.getUnsafe().putByte(dst + out + i, Unsafe.getUnsafe().getByte(dst + out - offset + i));
+                }
+            }
+            out += len;
+        }
+        if (out != expected) {
+            throw corrupt();
+        }
+        return out;
+    }
+
+    public static long getUncompressedLength(long srcLo, long srcHi) {
+        long p = srcLo;
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            final byte b = byteAt(p++, srcHi);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 35) {
+                throw corrupt();
+            }
+        }
+    }
+
+    private static byte byteAt(long p, long hi) {
+        if (p >= hi) {
+            throw corrupt();
+        }
+        return Unsafe.getUnsafe().getByte(p);
+    }
+
+    private static CairoException corrupt() {
+        return CairoException.nonCritical().put("corrupt snappy data");
+    }
+}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.Unsafe;
+
+/**
+ * Minimal reader for the Thrift compact protocol, the counterpart of {@link ThriftCompactWriter}.
+ * It reads straight from native memory and does not allocate, unknown fields are skipped
+ * with {@link #skip(int)}.
+ * <p>
+ * Structs are read with {@link #beginStruct()} followed by {@link #nextField()} until it
+ * returns {@link #TYPE_STOP}, which also closes the struct.
+ */
+public class ThriftCompactReader {
+    public static final int TYPE_STOP = 0;
+    private static final int MAX_DEPTH = 16;
+    private static final int TYPE_BYTE = 3;
+    private static final int TYPE_DOUBLE = 7;
+    private static final int TYPE_I16 = 4;
+    private static final int TYPE_MAP = 11;
+    private static final int TYPE_SET = 10;
+    private final int[] lastFieldIds = new int[MAX_DEPTH];
+    private long binaryLo;
+    private int depth;
+    private int fieldId;
+    private long hi;
+    private int lastFieldId;
+    private int listElementType;
+    private long ptr;
+
+    public void beginStruct() {
+        if (depth == MAX_DEPTH) {
+            throw CairoException.nonCritical().put("thrift struct nesting is too deep");
+        }
+        lastFieldIds[depth++] = lastFieldId;
+        lastFieldId = 0;
+    }
+
+    /**
+     * Returns address of the bytes read by the last {@link #readBinary()} call.
+     */
+    public long getBinaryLo() {
+        return binaryLo;
+    }
+
+    public int getFieldId() {
+        return fieldId;
+    }
+
+    public int getListElementType() {
+        return listElementType;
+    }
+
+    public long getPosition() {
+        return ptr;
+    }
+
+    /**
+     * Reads the next field header of the open struct and returns the field type. Once the
+     * struct is exhausted, returns {@link #TYPE_STOP} and closes the struct.
+     */
+    public int nextField() {
+        final int b = readByte() & 0xFF;
+        if (b == TYPE_STOP) {
+            if (depth == 0) {
+                throw CairoException.nonCritical().put("thrift struct is not open");
+            }
+            lastFieldId = lastFieldIds[--depth];
+            return TYPE_STOP;
+        }
+        final int delta = b >>> 4;
+        fieldId = delta != 0 ? lastFieldId + delta : (int) unzigzag(readVarInt());
+        lastFieldId = fieldId;
+        return b & 0x0F;
+    }
+
+    public ThriftCompactReader of(long lo, long hi) {
+        this.ptr = lo;
+        this.hi = hi;
+        this.depth = 0;
+        this.lastFieldId = 0;
+        return this;
+    }
+
+    /**
+     * Reads length-prefixed binary value, the value bytes start at {@link #getBinaryLo()}.
+     * Returns the length of the value.
+     */
+    public int readBinary() {
+        final long size = readVarInt();
+        if (size < 0 || size > hi - ptr) {
+            throw truncated();
+        }
+        binaryLo = ptr;
+        ptr += size;
+        return (int) size;
+    }
+
+    public int readI32() {
+        return (int) unzigzag(readVarInt());
+    }
+
+    public long readI64() {
+        return unzigzag(readVarInt());
+    }
+
+    public byte readI8() {
+        return readByte();
+    }
+
+    /**
+     * Reads list header and returns the list size, the element type is available
+     * via {@link #getListElementType()}.
+     */
+    public int readListHeader() {
+        final int b = readByte() & 0xFF;
+        listElementType = b & 0x0F;
+        final int size = b >>> 4;
+        return size != 15 ? size : (int) readVarInt();
+    }
+
+    public void skip(int type) {
+        switch (type) {
+            case ThriftCompactWriter.TYPE_BOOL_TRUE:
+            case ThriftCompactWriter.TYPE_BOOL_FALSE:
+                // field value is part of the field header
+                break;
+            case TYPE_BYTE:
+                readByte();
+                break;
+            case TYPE_I16:
+            case ThriftCompactWriter.TYPE_I32:
+            case ThriftCompactWriter.TYPE_I64:
+                readVarInt();
+                break;
+            case TYPE_DOUBLE:
+                skipBytes(Double.BYTES);
+                break;
+            case ThriftCompactWriter.TYPE_BINARY:
+                readBinary();
+                break;
+            case ThriftCompactWriter.TYPE_LIST:
+            case TYPE_SET: {
+                final int size = readListHeader();
+                final int elementType = listElementType;
+                for (int i = 0; i < size; i++) {
+                    skipElement(elementType);
+                }
+                break;
+            }
+            case TYPE_MAP: {
+                final int size = (int) readVarInt();
+                if (size > 0) {
+                    final int kv = readByte() & 0xFF;
+                    for (int i = 0; i < size; i++) {
+                        skipElement(kv >>> 4);
+                        skipElement(kv & 0x0F);
+                    }
+                }
+                break;
+            }
+            case ThriftCompactWriter.TYPE_STRUCT: {
+                beginStruct();
+                int fieldType;
+                while ((fieldType = nextField()) != TYPE_STOP) {
+                    skip(fieldType);
+                }
+                break;
+            }
+            default:
+                throw CairoException.nonCritical().put("unknown thrift type [type=").put(type).put(']');
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private byte readByte() {
+        if (ptr >= hi) {
+            throw truncated();
+        }
+        return Unsafe.getUnsafe().getByte(ptr++);
+    }
+
+    private long readVarInt() {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            final byte b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw CairoException.nonCritical().put("malformed thrift varint");
+            }
+        }
+    }
+
+    private void skipBytes(int count) {
+        if (count > hi - ptr) {
+            throw truncated();
+        }
+        ptr += count;
+    }
+
+    private void skipElement(int elementType) {
+        if (elementType == ThriftCompactWriter.TYPE_BOOL_TRUE || elementType == ThriftCompactWriter.TYPE_BOOL_FALSE) {
+            // list elements of boolean type take a byte each
+            readByte();
+        } else {
+            skip(elementType);
+        }
+    }
+
+    private CairoException truncated() {
+        return CairoException.nonCritical().put("truncated thrift message");
+    }
+}
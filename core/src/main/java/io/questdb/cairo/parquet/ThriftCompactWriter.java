@@ -0,0 +1,203 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.vm.api.MemoryA;
+
+/**
+ * Minimal writer for the Thrift compact protocol, which is what Parquet uses to
+ * serialize page headers and the file footer. Only the field types needed by
+ * Parquet metadata are supported.
+ */
+public class ThriftCompactWriter {
+    public static final byte TYPE_BINARY = 8;
+    public static final byte TYPE_BOOL_FALSE = 2;
+    public static final byte TYPE_BOOL_TRUE = 1;
+    public static final byte TYPE_I32 = 5;
+    public static final byte TYPE_I64 = 6;
+    public static final byte TYPE_LIST = 9;
+    public static final byte TYPE_STRUCT = 12;
+    private static final int MAX_DEPTH = 16;
+    private final int[] lastFieldIds = new int[MAX_DEPTH];
+    private int depth;
+    private int lastFieldId;
+    private MemoryA mem;
+
+    public static void putVarInt(MemoryA mem, long value) {
+        while ((value & ~0x7FL) != 0) {
+            mem.putByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        mem.putByte((byte) value);
+    }
+
+    public void beginListElement() {
+        push();
+    }
+
+    public ThriftCompactWriter beginStruct(int fieldId) {
+        fieldHeader(fieldId, TYPE_STRUCT);
+        push();
+        return this;
+    }
+
+    public ThriftCompactWriter endStruct() {
+        mem.putByte((byte) 0);
+        if (depth == 0) {
+            throw CairoException.critical(0).put("thrift struct is not open");
+        }
+        lastFieldId = lastFieldIds[--depth];
+        return this;
+    }
+
+    public ThriftCompactWriter fieldBinary(int fieldId, CharSequence value) {
+        fieldHeader(fieldId, TYPE_BINARY);
+        putString(value);
+        return this;
+    }
+
+    public ThriftCompactWriter fieldBool(int fieldId, boolean value) {
+        fieldHeader(fieldId, value ? TYPE_BOOL_TRUE : TYPE_BOOL_FALSE);
+        return this;
+    }
+
+    public ThriftCompactWriter fieldI32(int fieldId, int value) {
+        fieldHeader(fieldId, TYPE_I32);
+        putVarInt(mem, zigzag(value));
+        return this;
+    }
+
+    public ThriftCompactWriter fieldI64(int fieldId, long value) {
+        fieldHeader(fieldId, TYPE_I64);
+        putVarInt(mem, zigzag(value));
+        return this;
+    }
+
+    /**
+     * Writes binary field that holds PLAIN-encoded value, i.e. {@code size} little-endian
+     * bytes of {@code bits}. Used for column statistics.
+     */
+    public ThriftCompactWriter fieldPlainValue(int fieldId, long bits, int size) {
+        fieldHeader(fieldId, TYPE_BINARY);
+        putVarInt(mem, size);
+        for (int i = 0; i < size; i++) {
+            mem.putByte((byte) (bits >>> (i * 8)));
+        }
+        return this;
+    }
+
+    public ThriftCompactWriter fieldList(int fieldId, byte elementType, int size) {
+        fieldHeader(fieldId, TYPE_LIST);
+        if (size < 15) {
+            mem.putByte((byte) ((size << 4) | elementType));
+        } else {
+            mem.putByte((byte) (0xF0 | elementType));
+            putVarInt(mem, size);
+        }
+        return this;
+    }
+
+    public ThriftCompactWriter listI32(int value) {
+        putVarInt(mem, zigzag(value));
+        return this;
+    }
+
+    public ThriftCompactWriter listString(CharSequence value) {
+        putString(value);
+        return this;
+    }
+
+    public ThriftCompactWriter of(MemoryA mem) {
+        this.mem = mem;
+        this.depth = 0;
+        this.lastFieldId = 0;
+        return this;
+    }
+
+    /**
+     * Writes the stop byte of the top-level struct.
+     */
+    public void stop() {
+        mem.putByte((byte) 0);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void fieldHeader(int fieldId, byte type) {
+        final int delta = fieldId - lastFieldId;
+        if (delta > 0 && delta < 16) {
+            mem.putByte((byte) ((delta << 4) | type));
+        } else {
+            mem.putByte(type);
+            putVarInt(mem, zigzag(fieldId));
+        }
+        lastFieldId = fieldId;
+    }
+
+    private void push() {
+        if (depth == MAX_DEPTH) {
+            throw CairoException.critical(0).put("thrift struct nesting is too deep");
+        }
+        lastFieldIds[depth++] = lastFieldId;
+        lastFieldId = 0;
+    }
+
+    private void putString(CharSequence value) {
+        // metadata strings are column names and the like, encode them as UTF-8
+        final int n = value.length();
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            final int cp = Character.codePointAt(value, i);
+            if (Character.isSupplementaryCodePoint(cp)) {
+                i++;
+            }
+            size += cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+        }
+        putVarInt(mem, size);
+        for (int i = 0; i < n; i++) {
+            final int cp = Character.codePointAt(value, i);
+            if (cp < 0x80) {
+                mem.putByte((byte) cp);
+            } else if (cp < 0x800) {
+                mem.putByte((byte) (0xC0 | (cp >> 6)));
+                mem.putByte((byte) (0x80 | (cp & 0x3F)));
+            } else if (cp < 0x10000) {
+                mem.putByte((byte) (0xE0 | (cp >> 12)));
+                mem.putByte((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                mem.putByte((byte) (0x80 | (cp & 0x3F)));
+            } else {
+                i++;
+                mem.putByte((byte) (0xF0 | (cp >> 18)));
+                mem.putByte((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                mem.putByte((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                mem.putByte((byte) (0x80 | (cp & 0x3F)));
+            }
+        }
+    }
+}
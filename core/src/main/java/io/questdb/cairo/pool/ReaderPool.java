@@ -28,16 +28,24 @@ import io.questdb.MessageBus;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.TableToken;
+import io.questdb.cairo.compress.DecompressionBufferPool;
+import io.questdb.std.Misc;
 import org.jetbrains.annotations.TestOnly;
 
 public class ReaderPool extends AbstractMultiTenantPool<ReaderPool.R> {
 
+    private final DecompressionBufferPool decompressionBufferPool;
     private final MessageBus messageBus;
     private ReaderListener readerListener;
 
     public ReaderPool(CairoConfiguration configuration, MessageBus messageBus) {
         super(configuration, configuration.getReaderPoolMaxSegments(), configuration.getInactiveReaderTTL());
         this.messageBus = messageBus;
+        this.decompressionBufferPool = new DecompressionBufferPool(configuration.getPartitionDecompressionBufferPoolSize());
+    }
+
+    public DecompressionBufferPool getDecompressionBufferPool() {
+        return decompressionBufferPool;
     }
 
     @TestOnly
@@ -45,6 +53,13 @@ public class ReaderPool extends AbstractMultiTenantPool<ReaderPool.R> {
         this.readerListener = readerListener;
     }
 
+    @Override
+    protected void closePool() {
+        super.closePool();
+        // buffers of readers that are still in use are freed when those readers close
+        Misc.free(decompressionBufferPool);
+    }
+
     @Override
     protected byte getListenerSrc() {
         return PoolListener.SRC_READER;
@@ -52,7 +67,7 @@ public class ReaderPool extends AbstractMultiTenantPool<ReaderPool.R> {
 
     @Override
     protected R newTenant(TableToken tableToken, Entry<R> entry, int index) {
-        return new R(this, entry, index, tableToken, messageBus, readerListener);
+        return new R(this, entry, index, tableToken, messageBus, decompressionBufferPool, readerListener);
     }
 
     @TestOnly
@@ -73,9 +88,10 @@ public class ReaderPool extends AbstractMultiTenantPool<ReaderPool.R> {
                 int index,
                 TableToken tableToken,
                 MessageBus messageBus,
+                DecompressionBufferPool decompressionBufferPool,
                 ReaderListener readerListener
         ) {
-            super(pool.getConfiguration(), tableToken, messageBus);
+            super(pool.getConfiguration(), tableToken, messageBus, decompressionBufferPool);
             this.pool = pool;
             this.entry = entry;
             this.index = index;
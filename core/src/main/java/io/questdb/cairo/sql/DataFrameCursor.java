@@ -40,6 +40,16 @@ public interface DataFrameCursor extends QuietCloseable, SymbolTableSource {
     default void calculateSize(RecordCursor.Counter counter) {
     }
 
+    /**
+     * Page frame cursors call this method to skip page frames that don't contain rows
+     * matching the query filter.
+     *
+     * @return true when none of the [rowLo, rowHi) rows of the partition satisfy the filter
+     */
+    default boolean canSkipRows(int partitionIndex, long rowLo, long rowHi) {
+        return false;
+    }
+
     StaticSymbolTable getSymbolTable(int columnIndex);
 
     // same TableReader is available on each data frame
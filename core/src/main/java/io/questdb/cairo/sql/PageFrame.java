@@ -25,9 +25,22 @@
 package io.questdb.cairo.sql;
 
 import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.std.LongList;
 
 public interface PageFrame {
 
+    /**
+     * Adds ranges of column files that back pages of the column to the sink, as
+     * (fd, file offset, mapped address, size) quads. Ranges are used to read pages
+     * ahead of the frame being reduced. Pages that are not backed by column files
+     * add nothing.
+     *
+     * @param columnIndex index of column
+     * @param sink        list to add the ranges to
+     */
+    default void collectFileRanges(int columnIndex, LongList sink) {
+    }
+
     BitmapIndexReader getBitmapIndexReader(int columnIndex, int dirForward);
 
     /**
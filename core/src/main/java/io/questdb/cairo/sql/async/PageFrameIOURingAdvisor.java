@@ -0,0 +1,120 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.sql.async;
+
+import io.questdb.std.*;
+
+/**
+ * Transport of {@link PageFrameReadAheadScheduler} that passes posix_fadvise(WILLNEED) of column
+ * file ranges to the kernel as asynchronous io_uring ops, so that the thread dispatching page frames
+ * doesn't block on the advice. Ranges are split into chunks of up to {@link #CHUNK_SIZE} bytes, which
+ * the kernel reads in parallel.
+ * <p>
+ * In-flight ops hold file descriptors, so {@link #drain()} has to be called before files of the page
+ * frames are closed. This class is not thread-safe.
+ */
+public class PageFrameIOURingAdvisor implements QuietCloseable {
+    static final int CHUNK_SIZE = Numbers.SIZE_1MB;
+    private final int capacity;
+    private final IOURing ring;
+    // errno of the first failed op
+    private int errno;
+    private int inFlight;
+    private int pending;
+
+    public PageFrameIOURingAdvisor(IOURingFacade rf, int capacity) {
+        this.capacity = capacity;
+        this.ring = rf.newInstance(capacity);
+    }
+
+    public static int chunkCount(long size) {
+        return (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+
+    /**
+     * Enqueues advice of the file range. The caller must make sure that there is free capacity
+     * for {@link #chunkCount(long)} ops. Ops are not submitted until {@link #submit()}.
+     */
+    public void advise(int fd, long offset, long size) {
+        for (long lo = 0; lo < size; lo += CHUNK_SIZE) {
+            final long id = ring.enqueueFadvise(fd, offset + lo, (int) Math.min(CHUNK_SIZE, size - lo), Files.POSIX_FADV_WILLNEED);
+            assert id != -1;
+            inFlight++;
+            pending++;
+        }
+    }
+
+    @Override
+    public void close() {
+        drain();
+        ring.close();
+    }
+
+    /**
+     * Blocks until all enqueued ops complete.
+     */
+    public void drain() {
+        while (inFlight > 0) {
+            ring.submitAndWait();
+            pending = 0;
+            reap();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return errno of the first op that failed, e.g. when the kernel doesn't support fadvise ops, or zero
+     */
+    public int getErrno() {
+        reap();
+        return errno;
+    }
+
+    public int getFreeCapacity() {
+        reap();
+        return capacity - inFlight;
+    }
+
+    public void submit() {
+        if (pending > 0) {
+            ring.submit();
+            pending = 0;
+        }
+    }
+
+    private void reap() {
+        while (ring.nextCqe()) {
+            inFlight--;
+            final int res = ring.getCqeRes();
+            if (res < 0 && errno == 0) {
+                errno = -res;
+            }
+        }
+    }
+}
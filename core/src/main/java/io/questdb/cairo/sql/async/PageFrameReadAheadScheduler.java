@@ -0,0 +1,224 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.sql.async;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Advises the kernel of sequential access to column files of page frames. Frames that are about to be
+ * dispatched are advised with POSIX_FADV_WILLNEED, so that their pages are read in the background
+ * while earlier frames are reduced. Mapped pages of collected frames are advised with MADV_COLD, so
+ * that the scan doesn't push the hot working set out of page cache.
+ * <p>
+ * Size of the frames that are advised and not yet collected is bounded by the budget. Frames larger
+ * than the budget are never advised. Frames are described by (fd, file offset, address, size) quads of
+ * their column file ranges. When the kernel rejects an advice, e.g. MADV_COLD before Linux 5.4, the
+ * scheduler is disabled until it is cleared for the next query.
+ * <p>
+ * When io_uring is available, WILLNEED advice is sent as asynchronous ops of
+ * {@link PageFrameIOURingAdvisor}, so that the dispatching thread doesn't block on it. Frames that
+ * need more ops than the ring holds are advised with syscalls. When the kernel fails the ops, e.g.
+ * fadvise ops before Linux 5.6, the scheduler falls back to syscalls. This class is not thread-safe.
+ */
+public class PageFrameReadAheadScheduler implements Mutable, QuietCloseable {
+    private static final Log LOG = LogFactory.getLog(PageFrameReadAheadScheduler.class);
+    private final long budget;
+    // advised bytes of each frame, zero when the frame was not advised
+    private final LongList frameAdvisedBytes = new LongList();
+    private final int frameCount;
+    private final FilesFacade ff;
+    private final int ioURingCapacity;
+    private int advisedFrameHi;
+    private boolean disabled;
+    private long inFlightBytes;
+    private PageFrameIOURingAdvisor ioURingAdvisor;
+    // null when io_uring is disabled, not available or failed
+    private IOURingFacade ioURingFacade;
+    private int releasedFrameHi;
+
+    public PageFrameReadAheadScheduler(FilesFacade ff, @Nullable IOURingFacade ioURingFacade, int ioURingCapacity, int frameCount, long budget) {
+        this.ff = ff;
+        this.ioURingFacade = ioURingFacade;
+        this.ioURingCapacity = ioURingCapacity;
+        this.frameCount = frameCount;
+        this.budget = budget;
+    }
+
+    /**
+     * Waits for in-flight advice ops, they hold file descriptors of the page frames, and prepares
+     * the scheduler for the next query.
+     */
+    @Override
+    public void clear() {
+        toTop();
+        disabled = false;
+        ioURingAdvisor = Misc.free(ioURingAdvisor);
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    public long getInFlightBytes() {
+        return inFlightBytes;
+    }
+
+    /**
+     * Releases frames that are collected and advises frames that follow the dispatched ones,
+     * as long as they fit into the budget.
+     *
+     * @param ranges            (fd, file offset, address, size) quads of all frames
+     * @param rangesHi          end of each frame's quads in the ranges list
+     * @param collectedFrameHi  index of the last collected frame plus one
+     * @param dispatchedFrameHi index of the last dispatched frame plus one
+     */
+    public void schedule(LongList ranges, IntList rangesHi, int collectedFrameHi, int dispatchedFrameHi) {
+        if (disabled) {
+            return;
+        }
+        if (ioURingFacade != null && ioURingAdvisor == null) {
+            openIOURingAdvisor();
+        }
+        final int n = rangesHi.size();
+        if (frameAdvisedBytes.size() != n) {
+            frameAdvisedBytes.setAll(n, 0);
+        }
+
+        for (; releasedFrameHi < collectedFrameHi; releasedFrameHi++) {
+            inFlightBytes -= frameAdvisedBytes.getQuick(releasedFrameHi);
+            final int hi = rangesHi.getQuick(releasedFrameHi);
+            for (int i = rangesLo(rangesHi, releasedFrameHi); i < hi; i += 4) {
+                // the range may share pages with the adjacent frames, which are not released yet
+                final long address = ranges.getQuick(i + 2);
+                final long lo = Files.ceilPageSize(address);
+                final long len = Files.floorPageSize(address + ranges.getQuick(i + 3)) - lo;
+                if (len > 0 && !checkAdvice(ff.madvise(lo, len, Files.MADV_COLD), "madvise")) {
+                    return;
+                }
+            }
+        }
+
+        // frames that are dispatched are already being reduced, it's too late to advise them
+        advisedFrameHi = Math.max(advisedFrameHi, Math.max(dispatchedFrameHi, releasedFrameHi));
+        for (final int frameHi = Math.min(dispatchedFrameHi + frameCount, n); advisedFrameHi < frameHi; advisedFrameHi++) {
+            final int lo = rangesLo(rangesHi, advisedFrameHi);
+            final int hi = rangesHi.getQuick(advisedFrameHi);
+            long bytes = 0;
+            for (int i = lo; i < hi; i += 4) {
+                bytes += ranges.getQuick(i + 3);
+            }
+            if (bytes > budget) {
+                continue;
+            }
+            if (inFlightBytes + bytes > budget) {
+                // wait for earlier frames to be collected
+                break;
+            }
+            final int opCount = ioURingAdvisor != null ? ioURingOpCount(ranges, lo, hi) : -1;
+            if (opCount > -1 && opCount <= ioURingAdvisor.getCapacity()) {
+                if (opCount > ioURingAdvisor.getFreeCapacity()) {
+                    // wait for earlier ops to complete
+                    break;
+                }
+                for (int i = lo; i < hi; i += 4) {
+                    ioURingAdvisor.advise((int) ranges.getQuick(i), ranges.getQuick(i + 1), ranges.getQuick(i + 3));
+                }
+            } else {
+                for (int i = lo; i < hi; i += 4) {
+                    if (!checkAdvice(ff.fadvise((int) ranges.getQuick(i), ranges.getQuick(i + 1), ranges.getQuick(i + 3), Files.POSIX_FADV_WILLNEED), "fadvise")) {
+                        return;
+                    }
+                }
+            }
+            frameAdvisedBytes.setQuick(advisedFrameHi, bytes);
+            inFlightBytes += bytes;
+        }
+
+        if (ioURingAdvisor != null) {
+            ioURingAdvisor.submit();
+            checkIOURingAdvice();
+        }
+    }
+
+    /**
+     * Prepares to advise the same frames again, e.g. when the cursor is rewound. The scheduler
+     * stays disabled if advice failed earlier in the query.
+     */
+    public void toTop() {
+        frameAdvisedBytes.clear();
+        advisedFrameHi = 0;
+        inFlightBytes = 0;
+        releasedFrameHi = 0;
+    }
+
+    private static int ioURingOpCount(LongList ranges, int lo, int hi) {
+        int opCount = 0;
+        for (int i = lo; i < hi; i += 4) {
+            opCount += PageFrameIOURingAdvisor.chunkCount(ranges.getQuick(i + 3));
+        }
+        return opCount;
+    }
+
+    private static int rangesLo(IntList rangesHi, int frameIndex) {
+        return frameIndex > 0 ? rangesHi.getQuick(frameIndex - 1) : 0;
+    }
+
+    private boolean checkAdvice(int errno, String call) {
+        if (errno != 0) {
+            // the advice is likely not supported by the kernel, don't retry it for every frame
+            LOG.debug().$("page frame read-ahead is disabled [call=").$(call).$(", errno=").$(errno).I$();
+            disabled = true;
+            return false;
+        }
+        return true;
+    }
+
+    private void checkIOURingAdvice() {
+        final int errno = ioURingAdvisor.getErrno();
+        if (errno != 0) {
+            // advice of the failed ops is lost, the next frames are advised with syscalls
+            LOG.debug().$("page frame read-ahead falls back to fadvise syscalls [errno=").$(errno).I$();
+            ioURingAdvisor = Misc.free(ioURingAdvisor);
+            ioURingFacade = null;
+        }
+    }
+
+    private void openIOURingAdvisor() {
+        try {
+            ioURingAdvisor = new PageFrameIOURingAdvisor(ioURingFacade, ioURingCapacity);
+        } catch (CairoException e) {
+            LOG.error().$("could not create io_uring, page frames are advised with syscalls [errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            ioURingFacade = null;
+        }
+    }
+}
@@ -52,12 +52,17 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
     private final T atom;
     private final AtomicInteger cancelReason = new AtomicInteger(SqlExecutionCircuitBreaker.STATE_OK);
     private final MillisecondClock clock;
+    // (fd, file offset, address, size) quads of column file ranges of all frames, collected when frames are advised
+    private final LongList frameFileRanges = new LongList();
+    // end of each frame's ranges in frameFileRanges
+    private final IntList frameFileRangesHi = new IntList();
     private final LongList frameRowCounts = new LongList();
     private final PageFrameReduceTaskFactory localTaskFactory;
     private final MessageBus messageBus;
     private final PageAddressCache pageAddressCache;
     private final AtomicInteger reduceFinishedCounter = new AtomicInteger(0);
     private final AtomicInteger reduceStartedCounter = new AtomicInteger(0);
+    private final PageFrameReadAheadScheduler readAheadScheduler;
     private final PageFrameReducer reducer;
     private final byte taskType; // PageFrameReduceTask.TYPE_*
     private final AtomicBoolean valid = new AtomicBoolean(true);
@@ -98,6 +103,18 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         this.localTaskFactory = localTaskFactory;
         this.workStealingStrategy = WorkStealingStrategyFactory.getInstance(configuration, sharedWorkerCount);
         this.taskType = taskType;
+        if (configuration.isSqlPageFrameReadAheadEnabled()) {
+            final IOURingFacade ioURingFacade = configuration.getIOURingFacade();
+            this.readAheadScheduler = new PageFrameReadAheadScheduler(
+                    configuration.getFilesFacade(),
+                    configuration.isIOURingEnabled() && ioURingFacade.isAvailable() ? ioURingFacade : null,
+                    configuration.getSqlPageFrameIOURingCapacity(),
+                    configuration.getSqlPageFrameReadAheadFrames(),
+                    configuration.getSqlPageFrameReadAheadBudget()
+            );
+        } else {
+            this.readAheadScheduler = null;
+        }
     }
 
     /**
@@ -171,6 +188,10 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         readyToDispatch = false;
         pageAddressCache.clear();
         atom.clear();
+        frameFileRanges.clear();
+        frameFileRangesHi.clear();
+        // advice ops must not outlive files of the page frame cursor, clear() waits for them
+        Misc.clear(readAheadScheduler);
         pageFrameCursor = Misc.freeIfCloseable(pageFrameCursor);
         // collect sequence may not be set here when
         // factory is closed without using cursor
@@ -303,6 +324,7 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         }
 
         assert collectedFrameIndex < frameCount - 1;
+        readAhead();
         while (true) {
             long cursor = collectSubSeq.next();
             if (cursor > -1) {
@@ -388,6 +410,7 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
             atom.initCursor();
             buildAddressCache();
             readyToDispatch = true;
+            readAhead();
         }
     }
 
@@ -417,6 +440,10 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
             id = newId;
             dispatchStartFrameIndex = 0;
             collectedFrameIndex = -1;
+            // frames are advised again, collected frames were released during the previous pass
+            if (readAheadScheduler != null) {
+                readAheadScheduler.toTop();
+            }
             reduceFinishedCounter.set(0);
             reduceStartedCounter.set(0);
             workStealingStrategy.of(reduceStartedCounter);
@@ -430,6 +457,12 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         while ((frame = pageFrameCursor.next()) != null) {
             pageAddressCache.add(frameCount++, frame);
             frameRowCounts.add(frame.getPartitionHi() - frame.getPartitionLo());
+            if (readAheadScheduler != null) {
+                for (int i = 0, n = pageAddressCache.getColumnCount(); i < n; i++) {
+                    frame.collectFileRanges(i, frameFileRanges);
+                }
+                frameFileRangesHi.add(frameFileRanges.size());
+            }
         }
 
         // dispatch tasks only if there is anything to dispatch
@@ -552,6 +585,16 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         circuitBreaker.setFd(executionContextCircuitBreaker.getFd());
     }
 
+    /**
+     * Advises the kernel of the frames that follow the dispatched ones. After toTop() the frames
+     * are advised again, collected frames were released during the previous pass.
+     */
+    private void readAhead() {
+        if (readAheadScheduler != null) {
+            readAheadScheduler.schedule(frameFileRanges, frameFileRangesHi, collectedFrameIndex + 1, dispatchStartFrameIndex);
+        }
+    }
+
     private boolean stealWork(
             RingQueue<PageFrameReduceTask> queue,
             MCSequence reduceSubSeq,
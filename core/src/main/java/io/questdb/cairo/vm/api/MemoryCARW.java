@@ -183,7 +183,12 @@ public interface MemoryCARW extends MemoryCR, MemoryARW, MemoryCA, MemoryMAT {
 
     @Override
     default void putLong256Utf8(@Nullable Utf8Sequence hexString) {
-        throw new UnsupportedOperationException();
+        final int size;
+        if (hexString == null || (size = hexString.size()) == 0) {
+            putLong256Null();
+        } else {
+            putLong256(hexString.asAsciiCharSequence(), 2, size);
+        }
     }
 
     default long putNullBin() {
@@ -75,6 +75,9 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
     private final WalEventReader walEventReader;
     private final Telemetry<TelemetryWalTask> walTelemetry;
     private final WalTelemetryFacade walTelemetryFacade;
+    // designated timestamp range of the data transactions applied by the last applyOutstandingWalTransactions() call
+    private long appliedMaxTimestamp;
+    private long appliedMinTimestamp;
 
     public ApplyWal2TableJob(CairoEngine engine, int workerCount, int sharedWorkerCount) {
         super(engine.getMessageBus().getWalTxnNotificationQueue(), engine.getMessageBus().getWalTxnNotificationSubSequence());
@@ -214,6 +217,8 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
             RunStatus runStatus
     ) {
         final TableSequencerAPI tableSequencerAPI = engine.getTableSequencerAPI();
+        appliedMinTimestamp = Long.MAX_VALUE;
+        appliedMaxTimestamp = Long.MIN_VALUE;
         boolean isTerminating;
         boolean finishedAll = true;
 
@@ -394,7 +399,10 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
             switch (walTxnType) {
                 case DATA:
                     final WalEventCursor.DataInfo dataInfo = walEventCursor.getDataInfo();
-                    if (writer.getWalTnxDetails().hasRecord(seqTxn)) {
+                    final WalTxnDetails walTxnDetails = writer.getWalTnxDetails();
+                    if (walTxnDetails.hasRecord(seqTxn)) {
+                        appliedMinTimestamp = Math.min(appliedMinTimestamp, walTxnDetails.getMinTimestamp(seqTxn));
+                        appliedMaxTimestamp = Math.max(appliedMaxTimestamp, walTxnDetails.getMaxTimestamp(seqTxn));
                         long rowCount = dataInfo.getEndRowID() - dataInfo.getStartRowID();
                         final long start = microClock.getTicks();
                         walTelemetryFacade.store(WAL_TXN_APPLY_START, writer.getTableToken(), walId, seqTxn, -1L, -1L, start - commitTimestamp);
@@ -510,6 +518,9 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
                 assert writer.getMetadata().getTableId() == tableToken.getTableId();
                 applyOutstandingWalTransactions(tableToken, writer, engine, operationCompiler, tempPath, runStatus);
                 lastWriterTxn = writer.getSeqTxn();
+                if (appliedMinTimestamp <= appliedMaxTimestamp) {
+                    engine.getMatViewGraph().notifyBaseTableCommitted(updatedToken, appliedMinTimestamp, appliedMaxTimestamp, writer.getAppliedSeqTxn());
+                }
             } catch (EntryUnavailableException tableBusy) {
                 //noinspection StringEquality
                 if (tableBusy.getReason() != NO_LOCK_REASON
@@ -89,6 +89,23 @@ public interface MetadataService {
 
     void changeCacheFlag(int columnIndex, boolean isCacheOn);
 
+    /**
+     * Rewrites the partition with its numeric columns in the compressed format. Compressed
+     * partitions are read-only.
+     *
+     * @param partitionTimestamp timestamp of the partition to compress
+     * @return false when the table has no such partition
+     */
+    boolean compressPartition(long partitionTimestamp);
+
+    /**
+     * Rewrites a compressed partition back to the native column format.
+     *
+     * @param partitionTimestamp timestamp of the partition to decompress
+     * @return false when the table has no such partition
+     */
+    boolean decompressPartition(long partitionTimestamp);
+
     AttachDetachStatus detachPartition(long partitionTimestamp);
 
     void disableDeduplication();
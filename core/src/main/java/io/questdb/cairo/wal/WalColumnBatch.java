@@ -0,0 +1,192 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryA;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.*;
+
+/**
+ * Staging area for rows appended to {@link WalWriter} in batches. Every fixed-size
+ * column is accumulated in its own contiguous native buffer, so that a batch can be
+ * copied into the WAL segment columns with one block copy per column. Values left
+ * unset by a row are filled with the column null when the row is appended. The
+ * designated timestamp is staged as a plain long; the writer adds row ids on flush.
+ * Variable-size columns are not staged, rows of a batch are always null in them.
+ */
+class WalColumnBatch implements QuietCloseable {
+    private final ObjList<MemoryCARW> columns = new ObjList<>();
+    private final IntList columnSizes = new IntList();
+    private final IntList columnTypes = new IntList();
+    private final long pageSize;
+    private final int rowCapacity;
+    private final LongList rowValueIsNotNull = new LongList();
+    private int columnCount;
+    private long firstTimestamp;
+    private long maxTimestamp;
+    private long metadataVersion = -1;
+    private long minTimestamp;
+    private boolean outOfOrder;
+    private int rowCount;
+
+    WalColumnBatch(int rowCapacity) {
+        this.rowCapacity = rowCapacity;
+        this.pageSize = Numbers.ceilPow2((long) rowCapacity * Long.BYTES);
+    }
+
+    static boolean isSupported(int columnType) {
+        return columnType > 0 && !ColumnType.isVarSize(columnType);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjListAndClear(columns);
+        metadataVersion = -1;
+        rowCount = 0;
+    }
+
+    void appendRow(long timestamp) {
+        for (int i = 0; i < columnCount; i++) {
+            if (rowValueIsNotNull.getQuick(i) < rowCount) {
+                final int type = columnTypes.getQuick(i);
+                if (type > 0) {
+                    TableUtils.setNull(type, columns.getQuick(i).appendAddressFor(columnSizes.getQuick(i)), 1);
+                }
+            }
+        }
+
+        if (rowCount == 0) {
+            firstTimestamp = minTimestamp = maxTimestamp = timestamp;
+            outOfOrder = false;
+        } else {
+            if (timestamp > maxTimestamp) {
+                maxTimestamp = timestamp;
+            } else {
+                outOfOrder |= (maxTimestamp != timestamp);
+            }
+            if (timestamp < minTimestamp) {
+                minTimestamp = timestamp;
+            }
+        }
+        rowCount++;
+    }
+
+    void cancelRow() {
+        for (int i = 0; i < columnCount; i++) {
+            if (columnTypes.getQuick(i) > 0) {
+                columns.getQuick(i).jumpTo((long) rowCount * columnSizes.getQuick(i));
+                rowValueIsNotNull.setQuick(i, rowCount - 1);
+            }
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < columnCount; i++) {
+            final MemoryCARW mem = columns.getQuick(i);
+            if (mem != null) {
+                mem.jumpTo(0);
+            }
+        }
+        rowValueIsNotNull.fill(0, columnCount, -1);
+        rowCount = 0;
+    }
+
+    long getColumnAddress(int columnIndex) {
+        return columns.getQuick(columnIndex).getPageAddress(0);
+    }
+
+    MemoryA getColumn(int columnIndex) {
+        return columns.getQuick(columnIndex);
+    }
+
+    long getColumnSize(int columnIndex) {
+        return (long) rowCount * columnSizes.getQuick(columnIndex);
+    }
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    long getMetadataVersion() {
+        return metadataVersion;
+    }
+
+    long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    boolean isFull() {
+        return rowCount >= rowCapacity;
+    }
+
+    boolean isOutOfOrder() {
+        return outOfOrder;
+    }
+
+    void of(WalWriterMetadata metadata) {
+        assert rowCount == 0;
+        Misc.freeObjListAndClear(columns);
+        columnTypes.clear();
+        columnSizes.clear();
+        columnCount = metadata.getColumnCount();
+        final int timestampIndex = metadata.getTimestampIndex();
+        for (int i = 0; i < columnCount; i++) {
+            final int type = metadata.getColumnType(i);
+            if (i == timestampIndex) {
+                columnTypes.add(ColumnType.TIMESTAMP);
+                columnSizes.add(Long.BYTES);
+                columns.add(Vm.getCARWInstance(pageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_WAL_WRITER));
+            } else if (isSupported(type)) {
+                columnTypes.add(type);
+                columnSizes.add(ColumnType.sizeOf(type));
+                columns.add(Vm.getCARWInstance(pageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_WAL_WRITER));
+            } else {
+                // deleted or variable-size column, rows of the batch are null in it
+                columnTypes.add(-1);
+                columnSizes.add(0);
+                columns.add(null);
+            }
+        }
+        rowValueIsNotNull.setAll(columnCount, -1);
+        metadataVersion = metadata.getMetadataVersion();
+    }
+
+    void setRowValueNotNull(int columnIndex) {
+        assert rowValueIsNotNull.getQuick(columnIndex) != rowCount;
+        rowValueIsNotNull.setQuick(columnIndex, rowCount);
+    }
+}
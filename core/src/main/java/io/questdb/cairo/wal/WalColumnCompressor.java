@@ -0,0 +1,223 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.CommitMode;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.compress.Lz4BlockCodec;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+/**
+ * Writes committed data of WAL column files as LZ4 frames. Frame file is named after the column
+ * file with {@link #FRAME_FILE_SUFFIX} appended. Each frame is a header of the column file offset
+ * of its first byte (long), raw length (int) and stored length (int), followed by stored bytes.
+ * Frames are appended in column file order and never overlap. When compression does not reduce
+ * the size, raw bytes are stored and both lengths are equal.
+ * <p>
+ * Once the frames are written, the committed part of the column file is truncated away, except
+ * for the last page, which holds the entries writer reads back on rollback. Dirty pages of the
+ * column file are dropped from the page cache this way and only compressed data reaches the disk.
+ * Column files keep their size, so writer offsets are unchanged.
+ */
+public class WalColumnCompressor implements QuietCloseable {
+    public static final String FRAME_FILE_SUFFIX = ".lz4";
+    // segments with this file have their committed column data in frame files
+    public static final String SEGMENT_MARKER_FILE_NAME = "_compressed";
+    static final int FRAME_HEADER_SIZE = Long.BYTES + 2 * Integer.BYTES;
+    static final int FRAME_MAX_SIZE = 1024 * 1024;
+    private static final Log LOG = LogFactory.getLog(WalColumnCompressor.class);
+    private static final int MEM_TAG = MemoryTag.NATIVE_TABLE_WAL_WRITER;
+    // var-size column aux vector entries, which are read back on rollback, are no longer than this
+    private static final long RETAINED_TAIL_SIZE = 4 * Long.BYTES;
+    private final int commitMode;
+    // offsets up to which column files are written as frames, indexed same as WalWriter columns
+    private final LongList compressedOffsets = new LongList();
+    // offsets up to which column files are truncated away
+    private final LongList discardedOffsets = new LongList();
+    private final FilesFacade ff;
+    private final long opts;
+    private long frameBuf;
+    private long hashTable;
+    private long rawBuf;
+
+    public WalColumnCompressor(FilesFacade ff, int commitMode, long opts) {
+        this.ff = ff;
+        this.commitMode = commitMode;
+        this.opts = opts;
+    }
+
+    public static boolean isCompressedSegment(FilesFacade ff, Path segmentPath) {
+        final int segmentPathLen = segmentPath.size();
+        try {
+            return ff.exists(segmentPath.concat(SEGMENT_MARKER_FILE_NAME).$());
+        } finally {
+            segmentPath.trimTo(segmentPathLen);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (rawBuf != 0) {
+            rawBuf = Unsafe.free(rawBuf, FRAME_MAX_SIZE, MEM_TAG);
+            frameBuf = Unsafe.free(frameBuf, FRAME_HEADER_SIZE + Lz4BlockCodec.maxCompressedSize(FRAME_MAX_SIZE), MEM_TAG);
+            hashTable = Unsafe.free(hashTable, Lz4BlockCodec.HASH_TABLE_SIZE, MEM_TAG);
+        }
+    }
+
+    /**
+     * Appends frames of column file bytes from the last compressed offset up to the append offset
+     * of the column memory. Column file is left intact, see {@link #discard(MemoryMA, Path, int)}.
+     *
+     * @param mem        column memory, its file must not be mapped elsewhere
+     * @param columnPath path to the column file, it is left unchanged
+     * @param fileIndex  index of the column file in the writer
+     */
+    public void compress(MemoryMA mem, Path columnPath, int fileIndex) {
+        final long lo = compressedOffsets.getQuick(fileIndex);
+        final long hi = mem.getAppendOffset();
+        if (hi <= lo) {
+            return;
+        }
+        if (rawBuf == 0) {
+            rawBuf = Unsafe.malloc(FRAME_MAX_SIZE, MEM_TAG);
+            frameBuf = Unsafe.malloc(FRAME_HEADER_SIZE + Lz4BlockCodec.maxCompressedSize(FRAME_MAX_SIZE), MEM_TAG);
+            hashTable = Unsafe.malloc(Lz4BlockCodec.HASH_TABLE_SIZE, MEM_TAG);
+        }
+
+        final int rawFd = mem.getFd();
+        final int columnPathLen = columnPath.size();
+        final int frameFd = TableUtils.openRW(ff, columnPath.put(FRAME_FILE_SUFFIX).$(), LOG, opts);
+        try {
+            long frameFileOffset = ff.length(frameFd);
+            for (long offset = lo; offset < hi; ) {
+                final long len = Math.min(FRAME_MAX_SIZE, hi - offset);
+                if (ff.read(rawFd, rawBuf, len, offset) != len) {
+                    throw CairoException.critical(ff.errno()).put("could not read WAL column [path=").put(columnPath.trimTo(columnPathLen))
+                            .put(", offset=").put(offset)
+                            .put(", len=").put(len)
+                            .put(']');
+                }
+                long storedLen = Lz4BlockCodec.compress(rawBuf, len, frameBuf + FRAME_HEADER_SIZE, hashTable);
+                if (storedLen >= len) {
+                    Vect.memcpy(frameBuf + FRAME_HEADER_SIZE, rawBuf, len);
+                    storedLen = len;
+                }
+                Unsafe.getUnsafe().putLong(frameBuf, offset);
+                Unsafe.getUnsafe().putInt(frameBuf + Long.BYTES, (int) len);
+                Unsafe.getUnsafe().putInt(frameBuf + Long.BYTES + Integer.BYTES, (int) storedLen);
+                final long frameLen = FRAME_HEADER_SIZE + storedLen;
+                if (ff.write(frameFd, frameBuf, frameLen, frameFileOffset) != frameLen) {
+                    throw CairoException.critical(ff.errno()).put("could not write WAL column frame [path=").put(columnPath)
+                            .put(", offset=").put(frameFileOffset)
+                            .put(", len=").put(frameLen)
+                            .put(']');
+                }
+                frameFileOffset += frameLen;
+                offset += len;
+            }
+            if (commitMode != CommitMode.NOSYNC) {
+                ff.fsync(frameFd);
+            }
+        } finally {
+            ff.close(frameFd);
+            columnPath.trimTo(columnPathLen);
+        }
+        compressedOffsets.setQuick(fileIndex, hi);
+    }
+
+    /**
+     * Truncates bytes written as frames away from the column file. Writer may still need
+     * the bytes until the transaction is registered with the sequencer, e.g. to copy
+     * uncommitted rows to a new segment, so this is called separately from compression.
+     * The transaction is durable by then, so errors are logged rather than thrown. When the
+     * file could not be read or truncated it is left intact and the call can be retried.
+     *
+     * @param mem        column memory, its file must not be mapped elsewhere
+     * @param columnPath path to the column file, used in error messages
+     * @param fileIndex  index of the column file in the writer
+     * @return false when the retained tail could not be written back after truncation,
+     * the column file must not be appended to any more
+     */
+    public boolean discard(MemoryMA mem, Path columnPath, int fileIndex) {
+        final long hi = compressedOffsets.getQuick(fileIndex);
+        final long retainedLo = Files.floorPageSize(Math.max(0, hi - RETAINED_TAIL_SIZE));
+        if (retainedLo <= discardedOffsets.getQuick(fileIndex)) {
+            return true;
+        }
+        final long retainedLen = hi - retainedLo;
+        assert retainedLen <= FRAME_MAX_SIZE;
+        final long pageSize = mem.getExtendSegmentSize();
+        final long appendOffset = mem.getAppendOffset();
+        final int fd = mem.getFd();
+        if (ff.read(fd, rawBuf, retainedLen, retainedLo) != retainedLen) {
+            LOG.error().$("could not read WAL column [path=").$(columnPath)
+                    .$(", offset=").$(retainedLo)
+                    .$(", len=").$(retainedLen)
+                    .$(", errno=").$(ff.errno())
+                    .I$();
+            return true;
+        }
+        // the file must not be mapped while it is truncated
+        mem.detachFdClose();
+        try {
+            if (!ff.truncate(fd, 0)) {
+                LOG.error().$("could not truncate compressed WAL column [path=").$(columnPath)
+                        .$(", size=").$(appendOffset)
+                        .$(", errno=").$(ff.errno())
+                        .I$();
+                return true;
+            }
+            // there is nothing left to retry once the file is truncated
+            discardedOffsets.setQuick(fileIndex, retainedLo);
+            if (ff.write(fd, rawBuf, retainedLen, retainedLo) != retainedLen) {
+                LOG.critical().$("could not restore tail of compressed WAL column [path=").$(columnPath)
+                        .$(", offset=").$(retainedLo)
+                        .$(", len=").$(retainedLen)
+                        .$(", errno=").$(ff.errno())
+                        .I$();
+                return false;
+            }
+            return true;
+        } finally {
+            mem.switchTo(ff, fd, pageSize, appendOffset, false, Vm.TRUNCATE_TO_POINTER);
+        }
+    }
+
+    /**
+     * Resets state of the column file, which is called when the file is (re)opened empty
+     * or with uncommitted data only.
+     */
+    public void of(int fileIndex) {
+        compressedOffsets.extendAndSet(fileIndex, 0);
+        discardedOffsets.extendAndSet(fileIndex, 0);
+    }
+}
@@ -0,0 +1,301 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.compress.Lz4BlockCodec;
+import io.questdb.cairo.vm.AbstractMemoryCR;
+import io.questdb.cairo.vm.api.MemoryCMOR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+import static io.questdb.cairo.wal.WalColumnCompressor.FRAME_HEADER_SIZE;
+import static io.questdb.cairo.wal.WalColumnCompressor.FRAME_MAX_SIZE;
+
+/**
+ * Read-only memory over a range of a WAL column, which committed data is stored as LZ4 frames
+ * by {@link WalColumnCompressor}. The memory is opened on the column file, frames that overlap
+ * the range are decompressed into a native buffer and the rest of the range, which is not
+ * committed yet, is read from the column file. Same as {@link io.questdb.cairo.vm.MemoryCMORImpl},
+ * the range is extended down to the page boundary and the column file descriptor can be
+ * detached for reuse.
+ */
+public class WalDecompressedMemoryCMOR extends AbstractMemoryCR implements MemoryCMOR {
+    private static final Log LOG = LogFactory.getLog(WalDecompressedMemoryCMOR.class);
+    private static final int MEM_TAG = MemoryTag.NATIVE_TABLE_WRITER;
+    private long capacity;
+    private int fd = -1;
+    private int frameFd = -1;
+    private long mapFileOffset;
+    private int memoryTag = MemoryTag.MMAP_DEFAULT;
+    private long offset;
+    // frames that are used partially are decompressed here first
+    private long scratch;
+
+    public WalDecompressedMemoryCMOR() {
+        super(false);
+    }
+
+    @Override
+    public long addressOf(long offset) {
+        assert checkOffsetMapped(offset) : "offset=" + offset + ", size=" + size + ", fd=" + fd;
+        return pageAddress + offset - mapFileOffset;
+    }
+
+    @Override
+    public boolean checkOffsetMapped(long offset) {
+        return offset - mapFileOffset <= size;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        if (pageAddress != 0) {
+            pageAddress = Unsafe.free(pageAddress, capacity, MEM_TAG);
+            capacity = 0;
+        }
+        if (scratch != 0) {
+            scratch = Unsafe.free(scratch, FRAME_MAX_SIZE, MEM_TAG);
+        }
+        size = 0;
+        mapFileOffset = 0;
+        offset = 0;
+        if (ff != null && ff.close(fd)) {
+            LOG.debug().$("closed [fd=").$(fd).I$();
+        }
+        if (frameFd != -1) {
+            ff.close(frameFd);
+        }
+        fd = -1;
+        frameFd = -1;
+    }
+
+    @Override
+    public int detachFdClose() {
+        final int fd = this.fd;
+        this.fd = -1;
+        close();
+        return fd;
+    }
+
+    @Override
+    public void extend(long newSize) {
+        final long mappedSize = newSize + offset - mapFileOffset;
+        if (mappedSize > size) {
+            try {
+                ensureCapacity(mappedSize);
+                read(mapFileOffset + size, mapFileOffset + mappedSize);
+                size = mappedSize;
+            } catch (Throwable th) {
+                close();
+                throw th;
+            }
+        }
+    }
+
+    @Override
+    public int getFd() {
+        return fd;
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public void growToFileSize() {
+        extend(getColumnFileSize() - offset);
+    }
+
+    @Override
+    public boolean isFileBased() {
+        // committed data is not in the column file, it must not be copied from the descriptor
+        return false;
+    }
+
+    @Override
+    public boolean isMapped(long offset, long len) {
+        return offset + len <= size();
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag, long opts, int madviseOpts) {
+        ofOffset(ff, -1, name, 0, size, memoryTag, opts);
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag, long opts) {
+        ofOffset(ff, -1, name, 0, size, memoryTag, opts);
+    }
+
+    /**
+     * Reads range of the column.
+     *
+     * @param ff        the files facade
+     * @param fd        read-only descriptor of the column file to reuse or -1 when the file should be opened
+     * @param name      the name of the column file, frame file name is derived from it
+     * @param lo        column offset low limit (inclusive)
+     * @param hi        column offset high limit (exclusive), negative value stands for the whole file
+     * @param memoryTag memory tag of the frame file mapping
+     * @param opts      file options
+     */
+    @Override
+    public void ofOffset(FilesFacade ff, int fd, LPSZ name, long lo, long hi, int memoryTag, long opts) {
+        close();
+        this.ff = ff;
+        this.memoryTag = memoryTag;
+        this.fd = fd > -1 ? fd : TableUtils.openRO(ff, name, LOG);
+        try {
+            // frame file does not exist until the column has committed data
+            frameFd = ff.openRO(Path.PATH2.get().of(name).put(WalColumnCompressor.FRAME_FILE_SUFFIX).$());
+            if (hi < 0) {
+                hi = getColumnFileSize();
+            }
+            assert hi >= lo : "hi : " + hi + " lo : " + lo;
+            if (hi > lo) {
+                offset = lo;
+                mapFileOffset = Files.floorPageSize(lo);
+                ensureCapacity(hi - mapFileOffset);
+                read(mapFileOffset, hi);
+                size = hi - mapFileOffset;
+            }
+            LOG.debug().$("open [file=").$(name).$(", fd=").$(this.fd).$(", frameFd=").$(frameFd).$(", lo=").$(lo).$(", hi=").$(hi).I$();
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    @Override
+    public long size() {
+        return size + mapFileOffset - offset;
+    }
+
+    @Override
+    public void smallFile(FilesFacade ff, LPSZ name, int memoryTag) {
+        ofOffset(ff, -1, name, 0, -1, memoryTag, CairoConfiguration.O_NONE);
+    }
+
+    @Override
+    public void wholeFile(FilesFacade ff, LPSZ name, int memoryTag) {
+        ofOffset(ff, -1, name, 0, -1, memoryTag, CairoConfiguration.O_NONE);
+    }
+
+    // decompresses frames that overlap [lo, hi) and returns the offset up to which the range is covered
+    private long decompress(long lo, long hi) {
+        final long fileSize = ff.length(frameFd);
+        if (fileSize < 0) {
+            throw CairoException.critical(ff.errno()).put("could not get length [fd=").put(frameFd).put(']');
+        }
+        long covered = lo;
+        if (fileSize > 0) {
+            final long fileAddr = TableUtils.mapRO(ff, frameFd, fileSize, memoryTag);
+            try {
+                for (long p = fileAddr, end = fileAddr + fileSize; p + FRAME_HEADER_SIZE <= end && covered < hi; ) {
+                    final long frameLo = Unsafe.getUnsafe().getLong(p);
+                    final int rawLen = Unsafe.getUnsafe().getInt(p + Long.BYTES);
+                    final int storedLen = Unsafe.getUnsafe().getInt(p + Long.BYTES + Integer.BYTES);
+                    final long data = p + FRAME_HEADER_SIZE;
+                    if (rawLen < 0 || rawLen > FRAME_MAX_SIZE || storedLen < 0 || storedLen > end - data) {
+                        // frame of a failed commit, it is never referenced
+                        break;
+                    }
+                    p = data + storedLen;
+                    final long frameHi = frameLo + rawLen;
+                    if (frameHi <= covered) {
+                        continue;
+                    }
+                    if (frameLo > covered) {
+                        break;
+                    }
+                    final long copyHi = Math.min(frameHi, hi);
+                    final long dst = pageAddress + covered - mapFileOffset;
+                    if (frameLo == covered && copyHi == frameHi) {
+                        decompressFrame(data, storedLen, dst, rawLen);
+                    } else {
+                        if (scratch == 0) {
+                            scratch = Unsafe.malloc(FRAME_MAX_SIZE, MEM_TAG);
+                        }
+                        decompressFrame(data, storedLen, scratch, rawLen);
+                        Vect.memcpy(dst, scratch + covered - frameLo, copyHi - covered);
+                    }
+                    covered = copyHi;
+                }
+            } finally {
+                ff.munmap(fileAddr, fileSize, memoryTag);
+            }
+        }
+        return covered;
+    }
+
+    private void decompressFrame(long src, int storedLen, long dst, int rawLen) {
+        if (storedLen == rawLen) {
+            Vect.memcpy(dst, src, rawLen);
+        } else if (Lz4BlockCodec.decompress(src, storedLen, dst, rawLen) != rawLen) {
+            throw CairoException.critical(0).put("corrupt WAL column frame [fd=").put(frameFd)
+                    .put(", rawLen=").put(rawLen)
+                    .put(", storedLen=").put(storedLen)
+                    .put(']');
+        }
+    }
+
+    private void ensureCapacity(long newCapacity) {
+        if (newCapacity > capacity) {
+            pageAddress = pageAddress == 0
+                    ? Unsafe.malloc(newCapacity, MEM_TAG)
+                    : Unsafe.realloc(pageAddress, capacity, newCapacity, MEM_TAG);
+            capacity = newCapacity;
+        }
+    }
+
+    private long getColumnFileSize() {
+        final long fileSize = ff.length(fd);
+        if (fileSize < 0) {
+            throw CairoException.critical(ff.errno()).put("could not get length [fd=").put(fd).put(']');
+        }
+        return fileSize;
+    }
+
+    private void read(long lo, long hi) {
+        final long covered = frameFd > -1 ? decompress(lo, hi) : lo;
+        if (covered < hi) {
+            // data that is not committed yet is not compressed, it is still in the column file
+            final long len = hi - covered;
+            if (ff.read(fd, pageAddress + covered - mapFileOffset, len, covered) != len) {
+                throw CairoException.critical(ff.errno()).put("could not read WAL column [fd=").put(fd)
+                        .put(", offset=").put(covered)
+                        .put(", len=").put(len)
+                        .put(']');
+            }
+        }
+    }
+}
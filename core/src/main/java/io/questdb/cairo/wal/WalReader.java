@@ -46,6 +46,7 @@ public class WalReader implements Closeable {
     private static final Log LOG = LogFactory.getLog(WalReader.class);
     private final int columnCount;
     private final ObjList<MemoryMR> columns;
+    private final boolean compressed;
     private final WalDataCursor dataCursor = new WalDataCursor();
     private final WalEventCursor eventCursor;
     private final WalEventReader events;
@@ -79,6 +80,7 @@ public class WalReader implements Closeable {
             path.trimTo(pathLen);
             openSymbolMaps(eventCursor, configuration);
             path.slash().put(segmentId);
+            compressed = WalColumnCompressor.isCompressedSegment(ff, path);
             eventCursor.reset();
 
             final int capacity = 2 * columnCount + 2;
@@ -215,6 +217,10 @@ public class WalReader implements Closeable {
     ) {
         if (mem != null && mem != NullMemoryMR.INSTANCE) {
             mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_WAL_READER);
+        } else if (compressed) {
+            mem = new WalDecompressedMemoryCMOR();
+            columns.setQuick(primaryIndex, mem);
+            mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_WAL_READER);
         } else {
             mem = Vm.getMRInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_WAL_READER);
             columns.setQuick(primaryIndex, mem);
@@ -71,6 +71,14 @@ public class WalTxnDetails {
         return startSeqTxn + transactionMeta.size() / TXN_METADATA_LONGS_SIZE - 1;
     }
 
+    public long getMaxTimestamp(long seqTxn) {
+        return getCommitMaxTimestamp(seqTxn);
+    }
+
+    public long getMinTimestamp(long seqTxn) {
+        return transactionMeta.get((int) ((seqTxn - startSeqTxn) * TXN_METADATA_LONGS_SIZE + MIN_TIMESTAMP_OFFSET));
+    }
+
     public long getWalSegmentId(long seqTxn) {
         long value = transactionMeta.get((int) ((seqTxn - startSeqTxn) * TXN_METADATA_LONGS_SIZE + WAL_ID_SEG_ID_OFFSET));
         int walId = Numbers.decodeHighInt(value);
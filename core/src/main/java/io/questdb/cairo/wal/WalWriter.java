@@ -30,6 +30,7 @@ import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.sql.TableRecordMetadata;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
 import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryA;
 import io.questdb.cairo.vm.api.MemoryMA;
 import io.questdb.cairo.vm.api.MemoryMAR;
 import io.questdb.cairo.vm.api.NullMemory;
@@ -61,6 +62,9 @@ public class WalWriter implements TableWriterAPI {
     private static final Runnable NOOP = () -> {
     };
     private final AlterOperation alterOp = new AlterOperation();
+    private final int batchRowCapacity;
+    private final BatchRowImpl batchRow = new BatchRowImpl();
+    private final WalColumnCompressor columnCompressor;
     private final ObjList<MemoryMA> columns;
     private final CairoConfiguration configuration;
     private final DdlListener ddlListener;
@@ -89,6 +93,7 @@ public class WalWriter implements TableWriterAPI {
     private final WalDirectoryPolicy walDirectoryPolicy;
     private final int walId;
     private final String walName;
+    private WalColumnBatch batch;
     private SegmentColumnRollSink columnConversionSink;
     private int columnCount;
     private ColumnVersionReader columnVersionReader;
@@ -124,6 +129,7 @@ public class WalWriter implements TableWriterAPI {
         this.configuration = configuration;
         this.ddlListener = ddlListener;
         this.mkDirMode = configuration.getMkDirMode();
+        this.batchRowCapacity = configuration.getWalWriterBatchRowCount();
         this.ff = configuration.getFilesFacade();
         this.walDirectoryPolicy = walDirectoryPolicy;
         this.tableToken = tableToken;
@@ -132,6 +138,9 @@ public class WalWriter implements TableWriterAPI {
         this.walId = walId;
         this.path = new Path().of(configuration.getRoot()).concat(tableToken).concat(walName);
         this.rootLen = path.size();
+        this.columnCompressor = configuration.isWalSegmentCompressionEnabled()
+                ? new WalColumnCompressor(ff, configuration.getCommitMode(), configuration.getWriterFileOpenOpts())
+                : null;
         this.metrics = metrics;
         this.open = true;
         this.symbolMapMem = Vm.getMARInstance(configuration.getCommitMode());
@@ -202,6 +211,7 @@ public class WalWriter implements TableWriterAPI {
 
     @Override
     public long apply(AlterOperation alterOp, boolean contextAllowsAnyStructureChanges) throws AlterTableContextException {
+        flushBatch();
         try {
             if (alterOp.isStructural()) {
                 return applyStructural(alterOp);
@@ -216,6 +226,7 @@ public class WalWriter implements TableWriterAPI {
     // Returns table transaction number
     @Override
     public long apply(UpdateOperation operation) {
+        flushBatch();
         if (inTransaction()) {
             throw CairoException.critical(0).put("cannot update table with uncommitted inserts [table=")
                     .put(tableToken.getTableName()).put(']');
@@ -247,6 +258,10 @@ public class WalWriter implements TableWriterAPI {
                 // If distressed, no need to rollback, WalWriter will not be used anymore
                 if (!distressed) {
                     rollback();
+                    if (columnCompressor != null) {
+                        // retries discards that failed on commit
+                        discardCompressedColumns();
+                    }
                 }
             } finally {
                 doClose(walDirectoryPolicy.truncateFilesOnClose());
@@ -258,10 +273,16 @@ public class WalWriter implements TableWriterAPI {
     @Override
     public long commit() {
         checkDistressed();
+        boolean columnsCompressed = false;
         try {
+            flushBatch();
             if (inTransaction()) {
                 isCommittingData = true;
                 final long rowsToCommit = getUncommittedRowCount();
+                if (columnCompressor != null) {
+                    columnsCompressed = true;
+                    compressColumns();
+                }
                 lastSegmentTxn = events.appendData(currentTxnStartRowNum, segmentRowCount, txnMinTimestamp, txnMaxTimestamp, txnOutOfOrder);
                 // flush disk before getting next txn
                 final int commitMode = configuration.getCommitMode();
@@ -269,6 +290,10 @@ public class WalWriter implements TableWriterAPI {
                     sync(commitMode);
                 }
                 final long seqTxn = getSequencerTxn();
+                if (columnCompressor != null) {
+                    // the transaction is durable, failures are retried on the next commit or segment roll
+                    discardCompressedColumns();
+                }
                 LOG.info().$("committed data block [wal=").$(path).$(Files.SEPARATOR).$(segmentId)
                         .$(", segmentTxn=").$(lastSegmentTxn)
                         .$(", seqTxn=").$(seqTxn)
@@ -283,8 +308,11 @@ public class WalWriter implements TableWriterAPI {
             distressed = true;
             throw ex;
         } catch (Throwable th) {
-            // If distressed, no need to rollback, WalWriter will not be used anymore
-            if (!isDistressed()) {
+            if (columnsCompressed) {
+                // frames of some columns may have been written, rollback cannot undo them
+                distressed = true;
+            } else if (!isDistressed()) {
+                // If distressed, no need to rollback, WalWriter will not be used anymore
                 rollback();
             }
             throw th;
@@ -309,6 +337,8 @@ public class WalWriter implements TableWriterAPI {
             }
 
             freeColumns(truncate);
+            batch = Misc.free(batch);
+            Misc.free(columnCompressor);
 
             releaseSegmentLock(segmentId, segmentLockFd, segmentRowCount);
 
@@ -355,7 +385,7 @@ public class WalWriter implements TableWriterAPI {
 
     @Override
     public long getUncommittedRowCount() {
-        return segmentRowCount - currentTxnStartRowNum;
+        return segmentRowCount - currentTxnStartRowNum + (batch != null ? batch.getRowCount() : 0);
     }
 
     public int getWalId() {
@@ -372,6 +402,7 @@ public class WalWriter implements TableWriterAPI {
 
     public boolean goActive(long maxStructureVersion) {
         try {
+            flushBatch();
             applyMetadataChangeLog(maxStructureVersion);
             return true;
         } catch (CairoException e) {
@@ -406,6 +437,43 @@ public class WalWriter implements TableWriterAPI {
         return this.open;
     }
 
+    /**
+     * Returns a row that is staged in memory and copied to the WAL segment in bulk,
+     * together with the following batch rows, once the batch is full or before any
+     * other writer operation. Only fixed-size column values can be written to
+     * the row, variable-size columns are left null. Callers that write variable-size
+     * values must use {@link #newRow(long)} instead, see {@link TableWriterAPI#newBatchRow(long)}.
+     */
+    @Override
+    public TableWriter.Row newBatchRow(long timestamp) {
+        if (batchRowCapacity < 1) {
+            return newRow(timestamp);
+        }
+        checkDistressed();
+        if (timestamp < Timestamps.O3_MIN_TS) {
+            throw CairoException.nonCritical().put("timestamp before 1970-01-01 is not allowed");
+        }
+        try {
+            if (rollSegmentOnNextRow) {
+                flushBatch();
+                rollSegment();
+                rollSegmentOnNextRow = false;
+            }
+            if (batch == null) {
+                batch = new WalColumnBatch(batchRowCapacity);
+            }
+            if (batch.getMetadataVersion() != metadata.getMetadataVersion()) {
+                // structure changes flush the batch, so it is empty at this point
+                batch.of(metadata);
+            }
+            batchRow.setTimestamp(timestamp);
+            return batchRow;
+        } catch (Throwable e) {
+            distressed = true;
+            throw e;
+        }
+    }
+
     @Override
     public TableWriter.Row newRow() {
         return newRow(0L);
@@ -418,6 +486,7 @@ public class WalWriter implements TableWriterAPI {
             throw CairoException.nonCritical().put("timestamp before 1970-01-01 is not allowed");
         }
         try {
+            flushBatch();
             if (rollSegmentOnNextRow) {
                 rollSegment();
                 rollSegmentOnNextRow = false;
@@ -437,6 +506,7 @@ public class WalWriter implements TableWriterAPI {
     public TableWriter.Row newRowDeferTimestamp() {
         checkDistressed();
         try {
+            flushBatch();
             if (rollSegmentOnNextRow) {
                 rollSegment();
                 rollSegmentOnNextRow = false;
@@ -461,6 +531,7 @@ public class WalWriter implements TableWriterAPI {
 
     public void rollSegment() {
         try {
+            flushBatch();
             openNewSegment();
         } catch (Throwable e) {
             distressed = true;
@@ -469,6 +540,7 @@ public class WalWriter implements TableWriterAPI {
     }
 
     public void rollUncommittedToNewSegment(int convertColumnIndex, int convertToColumnType) {
+        flushBatch();
         final long uncommittedRows = getUncommittedRowCount();
         final long oldSegmentRowCount = segmentRowCount;
         long rowsRemainInCurrentSegment = currentTxnStartRowNum;
@@ -483,6 +555,10 @@ public class WalWriter implements TableWriterAPI {
                         .put(", walId=").put(walId)
                         .put(", segmentId=").put(newSegmentId).put(']');
             }
+            if (columnCompressor != null) {
+                // retries discards that failed on commit, before files of the segment are closed
+                discardCompressedColumns();
+            }
             final int oldSegmentLockFd = segmentLockFd;
             segmentLockFd = -1;
             try {
@@ -579,6 +655,9 @@ public class WalWriter implements TableWriterAPI {
     @Override
     public void rollback() {
         try {
+            if (batch != null) {
+                batch.clear();
+            }
             if (!isDistressed() && (inTransaction() || hasDirtyColumns(currentTxnStartRowNum))) {
                 setAppendPosition(currentTxnStartRowNum);
                 segmentRowCount = currentTxnStartRowNum;
@@ -614,6 +693,7 @@ public class WalWriter implements TableWriterAPI {
     @Override
     public void truncateSoft() {
         try {
+            flushBatch();
             lastSegmentTxn = events.truncate();
             getSequencerTxn();
         } catch (Throwable th) {
@@ -887,10 +967,32 @@ public class WalWriter implements TableWriterAPI {
         }
     }
 
+    private void compressColumns() {
+        try {
+            path.trimTo(rootLen).slash().put(segmentId);
+            final int segmentPathLen = path.size();
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = metadata.getColumnType(i);
+                if (columnType > 0) {
+                    final CharSequence columnName = metadata.getColumnName(i);
+                    dFile(path.trimTo(segmentPathLen), columnName);
+                    columnCompressor.compress(getDataColumn(i), path, getDataColumnOffset(i));
+                    final MemoryMA auxMem = getAuxColumn(i);
+                    if (auxMem != null) {
+                        iFile(path.trimTo(segmentPathLen), columnName);
+                        columnCompressor.compress(auxMem, path, getAuxColumnOffset(i));
+                    }
+                }
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     private void configureColumn(int columnIndex, int columnType) {
         final int dataColumnOffset = getDataColumnOffset(columnIndex);
         if (columnType > 0) {
-            final MemoryMA dataMem = Vm.getMAInstance(configuration.getCommitMode());
+            final MemoryMA dataMem = createColumnMem();
             final MemoryMA auxMem = createAuxColumnMem(columnType);
             columns.extendAndSet(dataColumnOffset, dataMem);
             columns.extendAndSet(dataColumnOffset + 1, auxMem);
@@ -1083,7 +1185,12 @@ public class WalWriter implements TableWriterAPI {
     }
 
     private MemoryMA createAuxColumnMem(int columnType) {
-        return ColumnType.isVarSize(columnType) ? Vm.getMAInstance(configuration.getCommitMode()) : null;
+        return ColumnType.isVarSize(columnType) ? createColumnMem() : null;
+    }
+
+    private MemoryMA createColumnMem() {
+        // committed data of compressed columns is synced as frames, raw pages must not be synced
+        return Vm.getMAInstance(columnCompressor != null ? CommitMode.NOSYNC : configuration.getCommitMode());
     }
 
     private SegmentColumnRollSink createSegmentColumnRollSink() {
@@ -1105,9 +1212,45 @@ public class WalWriter implements TableWriterAPI {
         }
         walDirectoryPolicy.initDirectory(path);
         path.trimTo(segmentPathLen);
+        if (columnCompressor != null && !ff.touch(path.concat(WalColumnCompressor.SEGMENT_MARKER_FILE_NAME).$())) {
+            throw CairoException.critical(ff.errno()).put("Cannot create WAL segment marker file: ").put(path);
+        }
+        path.trimTo(segmentPathLen);
         return segmentPathLen;
     }
 
+    private void discardCompressedColumns() {
+        boolean tailLost = false;
+        try {
+            path.trimTo(rootLen).slash().put(segmentId);
+            final int segmentPathLen = path.size();
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = metadata.getColumnType(i);
+                if (columnType > 0) {
+                    final CharSequence columnName = metadata.getColumnName(i);
+                    dFile(path.trimTo(segmentPathLen), columnName);
+                    tailLost |= !columnCompressor.discard(getDataColumn(i), path, getDataColumnOffset(i));
+                    final MemoryMA auxMem = getAuxColumn(i);
+                    if (auxMem != null) {
+                        iFile(path.trimTo(segmentPathLen), columnName);
+                        tailLost |= !columnCompressor.discard(auxMem, path, getAuxColumnOffset(i));
+                    }
+                }
+            }
+        } catch (Throwable th) {
+            // column memory may be left detached, the writer is released once returned to the pool
+            LOG.critical().$("could not discard compressed WAL columns [wal=").$(path.trimTo(rootLen)).$(Files.SEPARATOR).$(segmentId)
+                    .$(", error=").$(th).I$();
+            distressed = true;
+        } finally {
+            path.trimTo(rootLen);
+        }
+        if (tailLost) {
+            // committed rows are safe in the frames, new rows go to a fresh segment
+            rollSegmentOnNextRow = true;
+        }
+    }
+
     private void freeAndRemoveColumnPair(ObjList<MemoryMA> columns, int pi, int si) {
         final MemoryMA primaryColumn = columns.getAndSetQuick(pi, null);
         final MemoryMA secondaryColumn = columns.getAndSetQuick(si, null);
@@ -1117,6 +1260,50 @@ public class WalWriter implements TableWriterAPI {
         }
     }
 
+    private void flushBatch() {
+        if (batch == null || batch.getRowCount() == 0) {
+            return;
+        }
+        try {
+            final int rowCount = batch.getRowCount();
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = metadata.getColumnType(i);
+                if (columnType > 0) {
+                    final MemoryMA dataMem = getDataColumn(i);
+                    if (i == timestampIndex) {
+                        final long lo = batch.getColumnAddress(i);
+                        for (int r = 0; r < rowCount; r++) {
+                            dataMem.putLong128(Unsafe.getUnsafe().getLong(lo + (long) r * Long.BYTES), segmentRowCount + r);
+                        }
+                    } else if (WalColumnBatch.isSupported(columnType)) {
+                        dataMem.putBlockOfBytes(batch.getColumnAddress(i), batch.getColumnSize(i));
+                    } else {
+                        final Runnable nullSetter = nullSetters.getQuick(i);
+                        for (int r = 0; r < rowCount; r++) {
+                            nullSetter.run();
+                        }
+                    }
+                    rowValueIsNotNull.setQuick(i, segmentRowCount + rowCount - 1);
+                }
+            }
+
+            if (batch.getMaxTimestamp() > txnMaxTimestamp) {
+                txnOutOfOrder |= batch.isOutOfOrder() || batch.getFirstTimestamp() < txnMaxTimestamp;
+                txnMaxTimestamp = batch.getMaxTimestamp();
+            } else {
+                txnOutOfOrder |= batch.isOutOfOrder() || batch.getFirstTimestamp() != txnMaxTimestamp || batch.getMaxTimestamp() != txnMaxTimestamp;
+            }
+            if (batch.getMinTimestamp() < txnMinTimestamp) {
+                txnMinTimestamp = batch.getMinTimestamp();
+            }
+            segmentRowCount += rowCount;
+            batch.clear();
+        } catch (Throwable th) {
+            distressed = true;
+            throw th;
+        }
+    }
+
     private void freeColumns(boolean truncate) {
         // null check is because this method could be called from the constructor
         if (columns != null) {
@@ -1262,6 +1449,10 @@ public class WalWriter implements TableWriterAPI {
                         Files.POSIX_MADV_RANDOM
                 );
             }
+            if (columnCompressor != null) {
+                columnCompressor.of(getDataColumnOffset(columnIndex));
+                columnCompressor.of(getAuxColumnOffset(columnIndex));
+            }
         } finally {
             path.trimTo(pathTrimToLen);
         }
@@ -1273,6 +1464,10 @@ public class WalWriter implements TableWriterAPI {
         final int oldSegmentLockFd = segmentLockFd;
         segmentLockFd = -1;
         final long oldSegmentRows = segmentRowCount;
+        if (columnCompressor != null && oldSegmentId > -1) {
+            // retries discards that failed on commit, before files of the segment are closed
+            discardCompressedColumns();
+        }
         try {
             currentTxnStartRowNum = 0;
             rowValueIsNotNull.fill(0, columnCount, -1);
@@ -1618,6 +1813,12 @@ public class WalWriter implements TableWriterAPI {
             MemoryMA destAuxColumn = getAuxColumn(destColumnIndex);
             destAuxColumn.switchTo(ff, newSecondaryFd, getDataAppendPageSize(), secondarySize, isTruncateFilesOnClose(), Vm.TRUNCATE_TO_POINTER);
         }
+
+        if (columnCompressor != null) {
+            // rolled rows are uncommitted, frames of the new segment start from the beginning of the file
+            columnCompressor.of(getDataColumnOffset(destColumnIndex));
+            columnCompressor.of(getAuxColumnOffset(destColumnIndex));
+        }
     }
 
     private void sync(int commitMode) {
@@ -1719,6 +1920,41 @@ public class WalWriter implements TableWriterAPI {
         }
     }
 
+    private class BatchRowImpl extends RowImpl {
+
+        @Override
+        public void append() {
+            batch.appendRow(getTimestamp());
+            if (batch.isFull()) {
+                flushBatch();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            batch.cancelRow();
+        }
+
+        @Override
+        MemoryA getPrimaryColumn(int columnIndex) {
+            // callers of newBatchRow() use newRow() for rows with variable-size column values
+            assert columnIndex == timestampIndex || WalColumnBatch.isSupported(metadata.getColumnType(columnIndex));
+            return batch.getColumn(columnIndex);
+        }
+
+        @Override
+        void setTimestamp(long value) {
+            batch.getColumn(timestampIndex).putLong(value);
+            batch.setRowValueNotNull(timestampIndex);
+            setTimestampValue(value);
+        }
+
+        @Override
+        void setValueNotNull(int columnIndex) {
+            batch.setRowValueNotNull(columnIndex);
+        }
+    }
+
     private class MetadataValidatorService implements MetadataServiceStub {
         public long structureVersion;
 
@@ -2122,31 +2358,31 @@ public class WalWriter implements TableWriterAPI {
         @Override
         public void putBin(int columnIndex, long address, long len) {
             getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putBin(address, len));
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putBin(int columnIndex, BinarySequence sequence) {
             getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putBin(sequence));
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putBool(int columnIndex, boolean value) {
             getPrimaryColumn(columnIndex).putBool(value);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putByte(int columnIndex, byte value) {
             getPrimaryColumn(columnIndex).putByte(value);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putChar(int columnIndex, char value) {
             getPrimaryColumn(columnIndex).putChar(value);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
@@ -2157,13 +2393,13 @@ public class WalWriter implements TableWriterAPI {
         @Override
         public void putDouble(int columnIndex, double value) {
             getPrimaryColumn(columnIndex).putDouble(value);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putFloat(int columnIndex, float value) {
             getPrimaryColumn(columnIndex).putFloat(value);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
@@ -2198,81 +2434,81 @@ public class WalWriter implements TableWriterAPI {
         @Override
         public void putInt(int columnIndex, int value) {
             getPrimaryColumn(columnIndex).putInt(value);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putLong(int columnIndex, long value) {
             getPrimaryColumn(columnIndex).putLong(value);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putLong128(int columnIndex, long lo, long hi) {
-            MemoryMA primaryColumn = getPrimaryColumn(columnIndex);
+            MemoryA primaryColumn = getPrimaryColumn(columnIndex);
             primaryColumn.putLong(lo);
             primaryColumn.putLong(hi);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putLong256(int columnIndex, long l0, long l1, long l2, long l3) {
             getPrimaryColumn(columnIndex).putLong256(l0, l1, l2, l3);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putLong256(int columnIndex, Long256 value) {
             getPrimaryColumn(columnIndex).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putLong256(int columnIndex, CharSequence hexString) {
             getPrimaryColumn(columnIndex).putLong256(hexString);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putLong256(int columnIndex, @NotNull CharSequence hexString, int start, int end) {
             getPrimaryColumn(columnIndex).putLong256(hexString, start, end);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putLong256Utf8(int columnIndex, DirectUtf8Sequence hexString) {
             getPrimaryColumn(columnIndex).putLong256Utf8(hexString);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putShort(int columnIndex, short value) {
             getPrimaryColumn(columnIndex).putShort(value);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putStr(int columnIndex, CharSequence value) {
             getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value));
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putStr(int columnIndex, char value) {
             getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value));
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putStr(int columnIndex, CharSequence value, int pos, int len) {
             getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value, pos, len));
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
         public void putStrUtf8(int columnIndex, DirectUtf8Sequence value) {
             getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStrUtf8(value));
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
@@ -2306,7 +2542,7 @@ public class WalWriter implements TableWriterAPI {
                 int index = utf8Map.keyIndex(value);
                 if (index < 0) {
                     getPrimaryColumn(columnIndex).putInt(utf8Map.valueAt(index));
-                    setRowValueNotNull(columnIndex);
+                    setValueNotNull(columnIndex);
                 } else {
                     // slow path, symbol is not in utf8 cache
                     utf8Map.putAt(
@@ -2349,7 +2585,7 @@ public class WalWriter implements TableWriterAPI {
                     getSecondaryColumn(columnIndex), getPrimaryColumn(columnIndex),
                     tempUtf8Sink
             );
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
         @Override
@@ -2358,17 +2594,21 @@ public class WalWriter implements TableWriterAPI {
                     getSecondaryColumn(columnIndex), getPrimaryColumn(columnIndex),
                     value
             );
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
         }
 
-        private MemoryMA getPrimaryColumn(int columnIndex) {
+        MemoryA getPrimaryColumn(int columnIndex) {
             return columns.getQuick(getDataColumnOffset(columnIndex));
         }
 
-        private MemoryMA getSecondaryColumn(int columnIndex) {
+        MemoryA getSecondaryColumn(int columnIndex) {
             return columns.getQuick(getAuxColumnOffset(columnIndex));
         }
 
+        long getTimestamp() {
+            return timestamp;
+        }
+
         private int putSym0(int columnIndex, CharSequence utf16Value, SymbolMapReader symbolMapReader) {
             int key;
             if (utf16Value != null) {
@@ -2393,7 +2633,7 @@ public class WalWriter implements TableWriterAPI {
             }
 
             getPrimaryColumn(columnIndex).putInt(key);
-            setRowValueNotNull(columnIndex);
+            setValueNotNull(columnIndex);
             return key;
         }
 
@@ -2409,11 +2649,19 @@ public class WalWriter implements TableWriterAPI {
             );
         }
 
-        private void setTimestamp(long value) {
+        void setTimestamp(long value) {
             // avoid lookups by having a designated field with primaryColumn
             getPrimaryColumn(timestampIndex).putLong128(value, segmentRowCount);
             setRowValueNotNull(timestampIndex);
+            setTimestampValue(value);
+        }
+
+        void setTimestampValue(long value) {
             this.timestamp = value;
         }
+
+        void setValueNotNull(int columnIndex) {
+            setRowValueNotNull(columnIndex);
+        }
     }
 }
@@ -0,0 +1,953 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.arrow;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.DataUnavailableException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.std.str.Utf8Sequence;
+
+/**
+ * Encodes query result as Apache Arrow IPC stream: schema message, a dictionary batch
+ * per static symbol column and then record batches followed by the end-of-stream marker.
+ * <p>
+ * When the factory supports page frames and all columns have Arrow-compatible native layout,
+ * record batch values are sent straight from the column memory, one batch per page frame. Only
+ * validity bitmaps and bit-packed booleans are computed on the side. Otherwise, batches are
+ * built row by row from the record cursor. Symbols with static symbol tables are sent as
+ * dictionary-encoded arrays with int32 keys, variable size and less common types, such as UUID
+ * or IPv4, are sent as UTF-8 text.
+ * <p>
+ * The encoder doesn't own cursors, it only produces a list of (address, size) memory segments
+ * for the next message. The segments must be fully consumed via {@link #skipPending(int)}
+ * before {@link #prepareNextMessage()} is called again, since they point to the current page
+ * frame or to the encoder's buffers.
+ */
+public class ArrowStreamEncoder implements QuietCloseable, Mutable {
+    private static final int CONTINUATION_MARKER = 0xFFFFFFFF;
+    private static final short DATE_UNIT_MILLISECOND = 1;
+    private static final int ENC_BINARY = 10;
+    private static final int ENC_BOOL = 1;
+    private static final int ENC_BYTE = 2;
+    private static final int ENC_DOUBLE = 7;
+    private static final int ENC_FLOAT = 6;
+    private static final int ENC_INT = 4;
+    private static final int ENC_LONG = 5;
+    private static final int ENC_NULL = 0;
+    private static final int ENC_SHORT = 3;
+    private static final int ENC_SYMBOL = 8;
+    private static final int ENC_UTF8 = 9;
+    private static final byte HEADER_DICTIONARY_BATCH = 2;
+    private static final byte HEADER_RECORD_BATCH = 3;
+    private static final byte HEADER_SCHEMA = 1;
+    // max size of variable size column data in a single row-wise batch, offsets are int32
+    private static final int MAX_BATCH_VAR_SIZE = 64 * 1024 * 1024;
+    private static final short METADATA_VERSION_V5 = 4;
+    private static final int MEMORY_PAGE_SIZE = 64 * 1024;
+    private static final short PRECISION_DOUBLE = 2;
+    private static final short PRECISION_SINGLE = 1;
+    private static final int STATE_BATCH = 2;
+    private static final int STATE_DICTIONARY = 1;
+    private static final int STATE_DONE = 4;
+    private static final int STATE_EOS = 3;
+    private static final int STATE_SCHEMA = 0;
+    private static final short TIME_UNIT_MICROSECOND = 2;
+    private static final byte TYPE_BINARY = 4;
+    private static final byte TYPE_BOOL = 6;
+    private static final byte TYPE_DATE = 8;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_NULL = 1;
+    private static final byte TYPE_TIMESTAMP = 10;
+    private static final byte TYPE_UTF8 = 5;
+    // (offset, length) pairs of the body buffers of the current batch
+    private final LongList bodyBuffers = new LongList();
+    private final ObjList<ColumnBuffers> columnBuffers = new ObjList<>();
+    private final IntList columnEncodings = new IntList();
+    private final DirectUtf8Sink dictionarySink = new DirectUtf8Sink(MEMORY_PAGE_SIZE);
+    private final FlatBufferBuilder fbb = new FlatBufferBuilder();
+    // (length, null count) pairs of the field nodes of the current batch
+    private final LongList fieldNodes = new LongList();
+    private final MemoryCARW header = Vm.getCARWInstance(MEMORY_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+    private final int maxBatchRows;
+    private final long padding = Unsafe.calloc(Long.BYTES, MemoryTag.NATIVE_HTTP_CONN);
+    private final MemoryCARW scratch = Vm.getCARWInstance(MEMORY_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+    // indexes of the segments that hold scratch memory offsets rather than addresses
+    private final IntList scratchSegments = new IntList();
+    // (address, size) pairs of the pending message, the first pair is the message header
+    private final LongList segments = new LongList();
+    private final ObjList<StaticSymbolTable> symbolTables = new ObjList<>();
+    private boolean batchStarted;
+    private int batchRowCount;
+    private long bodySize;
+    private boolean cursorExhausted;
+    private int dictionaryColumnIndex;
+    private int[] fieldOffsets = new int[16];
+    private RecordMetadata metadata;
+    private PageFrameCursor pageFrameCursor;
+    private long pendingPosition;
+    private int pendingSegment;
+    private RecordCursor recordCursor;
+    private long rowCount;
+    private long skip;
+    private int state = STATE_DONE;
+    private long stop;
+
+    public ArrowStreamEncoder(int maxBatchRows) {
+        this.maxBatchRows = maxBatchRows;
+    }
+
+    /**
+     * Checks if the factory's page frames can be sent as is, i.e. the frames are in the cursor order
+     * and all columns are fixed size with Arrow-compatible layout.
+     */
+    public static boolean supportsPageFrames(RecordCursorFactory factory) {
+        if (!factory.supportsPageFrameCursor() || factory.getScanDirection() != RecordCursorFactory.SCAN_DIRECTION_FORWARD) {
+            return false;
+        }
+        final RecordMetadata metadata = factory.getMetadata();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int type = metadata.getColumnType(i);
+            switch (ColumnType.tagOf(type)) {
+                case ColumnType.BOOLEAN:
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                    break;
+                case ColumnType.SYMBOL:
+                    if (!metadata.isSymbolTableStatic(i)) {
+                        return false;
+                    }
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        metadata = null;
+        pageFrameCursor = null;
+        recordCursor = null;
+        symbolTables.clear();
+        columnEncodings.clear();
+        segments.clear();
+        scratchSegments.clear();
+        pendingSegment = 0;
+        pendingPosition = 0;
+        state = STATE_DONE;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjListAndClear(columnBuffers);
+        Misc.free(dictionarySink);
+        Misc.free(header);
+        Misc.free(scratch);
+        Unsafe.free(padding, Long.BYTES, MemoryTag.NATIVE_HTTP_CONN);
+    }
+
+    public long getPendingAddress() {
+        return segments.getQuick(pendingSegment * 2) + pendingPosition;
+    }
+
+    public long getPendingSize() {
+        return segments.getQuick(pendingSegment * 2 + 1) - pendingPosition;
+    }
+
+    public boolean hasPendingBytes() {
+        return pendingSegment * 2 < segments.size();
+    }
+
+    /**
+     * Prepares stream to be sent straight from page frames. Caller must check
+     * {@link #supportsPageFrames(RecordCursorFactory)} first.
+     */
+    public ArrowStreamEncoder of(RecordMetadata metadata, PageFrameCursor pageFrameCursor, long skip, long stop) {
+        of(metadata, (SymbolTableSource) pageFrameCursor, skip, stop);
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (columnEncodings.getQuick(i) == ENC_SYMBOL && symbolTables.getQuick(i) == null) {
+                throw CairoException.nonCritical().put("symbol column does not have a static symbol table [column=")
+                        .put(metadata.getColumnName(i)).put(']');
+            }
+        }
+        this.pageFrameCursor = pageFrameCursor;
+        return this;
+    }
+
+    public ArrowStreamEncoder of(RecordMetadata metadata, RecordCursor recordCursor, long skip, long stop) {
+        of(metadata, (SymbolTableSource) recordCursor, skip, stop);
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            // fall back to text when there is no static symbol table to build dictionary from
+            if (columnEncodings.getQuick(i) == ENC_SYMBOL && symbolTables.getQuick(i) == null) {
+                columnEncodings.setQuick(i, ENC_UTF8);
+            }
+            if (columnBuffers.size() <= i) {
+                columnBuffers.add(new ColumnBuffers());
+            }
+        }
+        this.recordCursor = recordCursor;
+        return this;
+    }
+
+    /**
+     * Prepares next message of the stream.
+     *
+     * @return false when the stream is complete, true otherwise
+     * @throws DataUnavailableException when cursor is waiting for data, the call can be repeated later
+     */
+    public boolean prepareNextMessage() {
+        assert !hasPendingBytes();
+        segments.clear();
+        scratchSegments.clear();
+        pendingSegment = 0;
+        pendingPosition = 0;
+
+        switch (state) {
+            case STATE_SCHEMA:
+                prepareSchema();
+                state = STATE_DICTIONARY;
+                return true;
+            case STATE_DICTIONARY:
+                while (dictionaryColumnIndex < columnEncodings.size()) {
+                    final int columnIndex = dictionaryColumnIndex++;
+                    if (columnEncodings.getQuick(columnIndex) == ENC_SYMBOL) {
+                        prepareDictionaryBatch(columnIndex);
+                        return true;
+                    }
+                }
+                state = STATE_BATCH;
+                // fall through
+            case STATE_BATCH:
+                if (pageFrameCursor != null ? preparePageFrameBatch() : prepareRowBatch()) {
+                    return true;
+                }
+                state = STATE_EOS;
+                // fall through
+            case STATE_EOS:
+                header.jumpTo(0);
+                header.putInt(CONTINUATION_MARKER);
+                header.putInt(0);
+                segments.add(header.addressOf(0), header.getAppendOffset());
+                state = STATE_DONE;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public void skipPending(int size) {
+        pendingPosition += size;
+        while (hasPendingBytes() && pendingPosition == segments.getQuick(pendingSegment * 2 + 1)) {
+            pendingSegment++;
+            pendingPosition = 0;
+        }
+    }
+
+    private static int encodingOf(int type) {
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.NULL:
+                return ENC_NULL;
+            case ColumnType.BOOLEAN:
+                return ENC_BOOL;
+            case ColumnType.BYTE:
+                return ENC_BYTE;
+            case ColumnType.SHORT:
+                return ENC_SHORT;
+            case ColumnType.INT:
+                return ENC_INT;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return ENC_LONG;
+            case ColumnType.FLOAT:
+                return ENC_FLOAT;
+            case ColumnType.DOUBLE:
+                return ENC_DOUBLE;
+            case ColumnType.SYMBOL:
+                return ENC_SYMBOL;
+            case ColumnType.CHAR:
+            case ColumnType.STRING:
+            case ColumnType.VARCHAR:
+            case ColumnType.IPv4:
+            case ColumnType.UUID:
+            case ColumnType.LONG256:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+                return ENC_UTF8;
+            case ColumnType.BINARY:
+                return ENC_BINARY;
+            default:
+                throw CairoException.nonCritical().put("unsupported column type for Arrow export: ").put(ColumnType.nameOf(type));
+        }
+    }
+
+    private static boolean isNullable(int encoding) {
+        return encoding != ENC_BOOL && encoding != ENC_BYTE && encoding != ENC_SHORT;
+    }
+
+    private static void putGeoHash(DirectUtf8Sink sink, long value, int type) {
+        final int bitFlags = GeoHashes.getBitFlags(type);
+        if (bitFlags < 0) {
+            GeoHashes.appendCharsUnsafe(value, -bitFlags, sink);
+        } else {
+            GeoHashes.appendBinaryStringUnsafe(value, bitFlags, sink);
+        }
+    }
+
+    private static int shiftOf(int encoding) {
+        switch (encoding) {
+            case ENC_BOOL:
+            case ENC_BYTE:
+                return 0;
+            case ENC_SHORT:
+                return 1;
+            case ENC_INT:
+            case ENC_FLOAT:
+            case ENC_SYMBOL:
+                return 2;
+            default:
+                return 3;
+        }
+    }
+
+    // metadata describes the factory, the cursor may still be unable to serve a static
+    // symbol table, e.g. when the result is served from the query result cache
+    private static StaticSymbolTable staticSymbolTableOf(SymbolTableSource symbolTableSource, int columnIndex) {
+        final SymbolTable symbolTable;
+        try {
+            symbolTable = symbolTableSource.getSymbolTable(columnIndex);
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+        return symbolTable instanceof StaticSymbolTable ? (StaticSymbolTable) symbolTable : null;
+    }
+
+    private void addBodyBuffer(long address, long size, boolean inScratch) {
+        bodyBuffers.add(bodySize, size);
+        if (size > 0) {
+            if (inScratch) {
+                scratchSegments.add(segments.size() / 2);
+            }
+            segments.add(address, size);
+            bodySize += size;
+            final long pad = -size & 7;
+            if (pad > 0) {
+                segments.add(padding, pad);
+                bodySize += pad;
+            }
+        }
+    }
+
+    // appends validity bitmap of fixed size values to scratch memory and returns null count
+    private long appendValidity(int encoding, long valuesAddress, long rowCount) {
+        final long bitmapSize = (rowCount + 7) >>> 3;
+        final long bitmapOffset = scratch.getAppendOffset();
+        final long bitmap = scratch.appendAddressFor(bitmapSize);
+        Vect.memset(bitmap, bitmapSize, 0);
+        long nullCount = 0;
+        if (valuesAddress == 0) {
+            // column top, all values are null
+            nullCount = rowCount;
+        } else {
+            for (long r = 0; r < rowCount; r++) {
+                final boolean valid;
+                switch (encoding) {
+                    case ENC_INT:
+                    case ENC_SYMBOL:
+                        valid = Unsafe.getUnsafe().getInt(valuesAddress + (r << 2)) != Numbers.INT_NULL;
+                        break;
+                    case ENC_LONG:
+                        valid = Unsafe.getUnsafe().getLong(valuesAddress + (r << 3)) != Numbers.LONG_NULL;
+                        break;
+                    case ENC_FLOAT:
+                        valid = !Float.isNaN(Unsafe.getUnsafe().getFloat(valuesAddress + (r << 2)));
+                        break;
+                    default:
+                        valid = !Double.isNaN(Unsafe.getUnsafe().getDouble(valuesAddress + (r << 3)));
+                        break;
+                }
+                if (valid) {
+                    final long addr = bitmap + (r >>> 3);
+                    Unsafe.getUnsafe().putByte(addr, (byte) (Unsafe.getUnsafe().getByte(addr) | (1 << (r & 7))));
+                } else {
+                    nullCount++;
+                }
+            }
+        }
+        if (nullCount == 0) {
+            // validity bitmap may be omitted when there are no nulls
+            scratch.jumpTo(bitmapOffset);
+        }
+        return nullCount;
+    }
+
+    private void appendRecord(Record record, int r) {
+        for (int i = 0, n = columnEncodings.size(); i < n; i++) {
+            final ColumnBuffers buffers = columnBuffers.getQuick(i);
+            final int type = metadata.getColumnType(i);
+            switch (columnEncodings.getQuick(i)) {
+                case ENC_NULL:
+                    buffers.nullCount++;
+                    break;
+                case ENC_BOOL:
+                    buffers.setBit(buffers.values, r, record.getBool(i));
+                    break;
+                case ENC_BYTE:
+                    buffers.values.putByte(record.getByte(i));
+                    break;
+                case ENC_SHORT:
+                    buffers.values.putShort(record.getShort(i));
+                    break;
+                case ENC_INT:
+                case ENC_SYMBOL: {
+                    final int value = record.getInt(i);
+                    buffers.values.putInt(value);
+                    buffers.setValid(r, value != Numbers.INT_NULL);
+                    break;
+                }
+                case ENC_LONG: {
+                    final long value;
+                    switch (ColumnType.tagOf(type)) {
+                        case ColumnType.DATE:
+                            value = record.getDate(i);
+                            break;
+                        case ColumnType.TIMESTAMP:
+                            value = record.getTimestamp(i);
+                            break;
+                        default:
+                            value = record.getLong(i);
+                            break;
+                    }
+                    buffers.values.putLong(value);
+                    buffers.setValid(r, value != Numbers.LONG_NULL);
+                    break;
+                }
+                case ENC_FLOAT: {
+                    final float value = record.getFloat(i);
+                    buffers.values.putFloat(value);
+                    buffers.setValid(r, !Float.isNaN(value));
+                    break;
+                }
+                case ENC_DOUBLE: {
+                    final double value = record.getDouble(i);
+                    buffers.values.putDouble(value);
+                    buffers.setValid(r, !Double.isNaN(value));
+                    break;
+                }
+                case ENC_UTF8:
+                    buffers.setValid(r, appendText(record, i, type, buffers.data));
+                    buffers.values.putInt(buffers.data.size());
+                    break;
+                default: {
+                    final BinarySequence value = record.getBin(i);
+                    if (value != null) {
+                        for (long b = 0, len = value.length(); b < len; b++) {
+                            buffers.data.putAny(value.byteAt(b));
+                        }
+                    }
+                    buffers.setValid(r, value != null);
+                    buffers.values.putInt(buffers.data.size());
+                    break;
+                }
+            }
+        }
+    }
+
+    // returns false when the value is null
+    private boolean appendText(Record record, int columnIndex, int type, DirectUtf8Sink sink) {
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.CHAR: {
+                final char value = record.getChar(columnIndex);
+                if (value == 0) {
+                    return false;
+                }
+                sink.put(value);
+                return true;
+            }
+            case ColumnType.STRING: {
+                final CharSequence value = record.getStrA(columnIndex);
+                if (value == null) {
+                    return false;
+                }
+                sink.put(value);
+                return true;
+            }
+            case ColumnType.SYMBOL: {
+                final CharSequence value = record.getSymA(columnIndex);
+                if (value == null) {
+                    return false;
+                }
+                sink.put(value);
+                return true;
+            }
+            case ColumnType.VARCHAR: {
+                final Utf8Sequence value = record.getVarcharA(columnIndex);
+                if (value == null) {
+                    return false;
+                }
+                sink.put(value);
+                return true;
+            }
+            case ColumnType.IPv4: {
+                final int value = record.getIPv4(columnIndex);
+                if (value == Numbers.IPv4_NULL) {
+                    return false;
+                }
+                Numbers.intToIPv4Sink(sink, value);
+                return true;
+            }
+            case ColumnType.UUID: {
+                final long lo = record.getLong128Lo(columnIndex);
+                final long hi = record.getLong128Hi(columnIndex);
+                if (Uuid.isNull(lo, hi)) {
+                    return false;
+                }
+                Numbers.appendUuid(lo, hi, sink);
+                return true;
+            }
+            case ColumnType.LONG256: {
+                // null long256 is written as empty string
+                final int size = sink.size();
+                record.getLong256(columnIndex, sink);
+                return sink.size() > size;
+            }
+            default: {
+                final long value;
+                switch (ColumnType.tagOf(type)) {
+                    case ColumnType.GEOBYTE:
+                        value = record.getGeoByte(columnIndex);
+                        break;
+                    case ColumnType.GEOSHORT:
+                        value = record.getGeoShort(columnIndex);
+                        break;
+                    case ColumnType.GEOINT:
+                        value = record.getGeoInt(columnIndex);
+                        break;
+                    default:
+                        value = record.getGeoLong(columnIndex);
+                        break;
+                }
+                if (value == GeoHashes.NULL) {
+                    return false;
+                }
+                putGeoHash(sink, value, type);
+                return true;
+            }
+        }
+    }
+
+    private int createFieldType(int columnIndex) {
+        final int type = metadata.getColumnType(columnIndex);
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BYTE:
+                return createIntType(Byte.SIZE);
+            case ColumnType.SHORT:
+                return createIntType(Short.SIZE);
+            case ColumnType.INT:
+                return createIntType(Integer.SIZE);
+            case ColumnType.LONG:
+                return createIntType(Long.SIZE);
+            case ColumnType.FLOAT:
+                fbb.startTable(1);
+                fbb.addShort(0, PRECISION_SINGLE);
+                return fbb.endTable();
+            case ColumnType.DOUBLE:
+                fbb.startTable(1);
+                fbb.addShort(0, PRECISION_DOUBLE);
+                return fbb.endTable();
+            case ColumnType.DATE:
+                fbb.startTable(1);
+                fbb.addShort(0, DATE_UNIT_MILLISECOND);
+                return fbb.endTable();
+            case ColumnType.TIMESTAMP:
+                fbb.startTable(2);
+                fbb.addShort(0, TIME_UNIT_MICROSECOND);
+                return fbb.endTable();
+            default:
+                // Null, Bool, Utf8 and Binary types have no properties
+                fbb.startTable(0);
+                return fbb.endTable();
+        }
+    }
+
+    private int createIntType(int bitWidth) {
+        fbb.startTable(2);
+        fbb.addInt(0, bitWidth);
+        fbb.addBoolean(1, true);
+        return fbb.endTable();
+    }
+
+    private int createRecordBatch(long length) {
+        final int nodeCount = fieldNodes.size() / 2;
+        fbb.startStructVector(2 * Long.BYTES, nodeCount, Long.BYTES);
+        for (int i = nodeCount - 1; i > -1; i--) {
+            fbb.putLong(fieldNodes.getQuick(2 * i + 1));
+            fbb.putLong(fieldNodes.getQuick(2 * i));
+        }
+        final int nodes = fbb.endVector(nodeCount);
+
+        final int bufferCount = bodyBuffers.size() / 2;
+        fbb.startStructVector(2 * Long.BYTES, bufferCount, Long.BYTES);
+        for (int i = bufferCount - 1; i > -1; i--) {
+            fbb.putLong(bodyBuffers.getQuick(2 * i + 1));
+            fbb.putLong(bodyBuffers.getQuick(2 * i));
+        }
+        final int buffers = fbb.endVector(bufferCount);
+
+        fbb.startTable(4);
+        fbb.addLong(0, length);
+        fbb.addOffset(1, nodes);
+        fbb.addOffset(2, buffers);
+        return fbb.endTable();
+    }
+
+    private byte fieldTypeOf(int columnIndex) {
+        final int type = metadata.getColumnType(columnIndex);
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.NULL:
+                return TYPE_NULL;
+            case ColumnType.BOOLEAN:
+                return TYPE_BOOL;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                return TYPE_INT;
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return TYPE_FLOATING_POINT;
+            case ColumnType.DATE:
+                return TYPE_DATE;
+            case ColumnType.TIMESTAMP:
+                return TYPE_TIMESTAMP;
+            case ColumnType.BINARY:
+                return TYPE_BINARY;
+            default:
+                return TYPE_UTF8;
+        }
+    }
+
+    private void finishMessage(byte headerType, int messageHeader) {
+        fbb.startTable(5);
+        fbb.addShort(0, METADATA_VERSION_V5);
+        fbb.addByte(1, headerType);
+        fbb.addOffset(2, messageHeader);
+        fbb.addLong(3, bodySize);
+        fbb.finish(fbb.endTable());
+
+        // encapsulated message: continuation marker, metadata size, metadata padded to 8 bytes, body
+        final int metadataSize = fbb.size() + (-fbb.size() & 7);
+        header.jumpTo(0);
+        header.putInt(CONTINUATION_MARKER);
+        header.putInt(metadataSize);
+        final long address = header.appendAddressFor(metadataSize);
+        Vect.memset(address, metadataSize, 0);
+        fbb.copyTo(address);
+
+        segments.setQuick(0, header.addressOf(0));
+        segments.setQuick(1, header.getAppendOffset());
+        final long scratchAddress = scratch.addressOf(0);
+        for (int i = 0, n = scratchSegments.size(); i < n; i++) {
+            final int index = scratchSegments.getQuick(i) * 2;
+            segments.setQuick(index, scratchAddress + segments.getQuick(index));
+        }
+    }
+
+    private void of(RecordMetadata metadata, SymbolTableSource symbolTableSource, long skip, long stop) {
+        clear();
+        this.metadata = metadata;
+        this.skip = skip;
+        this.stop = stop;
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int encoding = encodingOf(metadata.getColumnType(i));
+            columnEncodings.add(encoding);
+            StaticSymbolTable symbolTable = null;
+            if (encoding == ENC_SYMBOL && metadata.isSymbolTableStatic(i)) {
+                symbolTable = staticSymbolTableOf(symbolTableSource, i);
+            }
+            symbolTables.add(symbolTable);
+        }
+        rowCount = 0;
+        dictionaryColumnIndex = 0;
+        batchStarted = false;
+        cursorExhausted = false;
+        state = STATE_SCHEMA;
+    }
+
+    private void prepareDictionaryBatch(int columnIndex) {
+        startMessage();
+        final StaticSymbolTable symbolTable = symbolTables.getQuick(columnIndex);
+        final int symbolCount = symbolTable.getSymbolCount();
+        dictionarySink.clear();
+        final long offsetsOffset = scratch.getAppendOffset();
+        scratch.putInt(0);
+        for (int i = 0; i < symbolCount; i++) {
+            dictionarySink.put(symbolTable.valueOf(i));
+            scratch.putInt(dictionarySink.size());
+        }
+        fieldNodes.add((long) symbolCount, 0);
+        addBodyBuffer(0, 0, false);
+        addBodyBuffer(offsetsOffset, scratch.getAppendOffset() - offsetsOffset, true);
+        addBodyBuffer(dictionarySink.ptr(), dictionarySink.size(), false);
+
+        final int recordBatch = createRecordBatch(symbolCount);
+        fbb.startTable(3);
+        fbb.addLong(0, columnIndex);
+        fbb.addOffset(1, recordBatch);
+        fbb.addBoolean(2, false);
+        finishMessage(HEADER_DICTIONARY_BATCH, fbb.endTable());
+    }
+
+    private boolean preparePageFrameBatch() {
+        while (rowCount < stop) {
+            final PageFrame frame = pageFrameCursor.next();
+            if (frame == null) {
+                return false;
+            }
+            final long frameRowCount = frame.getPartitionHi() - frame.getPartitionLo();
+            final long lo = Math.max(skip - rowCount, 0);
+            final long hi = Math.min(stop - rowCount, frameRowCount);
+            rowCount += frameRowCount;
+            if (lo >= hi) {
+                continue;
+            }
+
+            startMessage();
+            final long batchRowCount = hi - lo;
+            for (int i = 0, n = columnEncodings.size(); i < n; i++) {
+                final int encoding = columnEncodings.getQuick(i);
+                final int shift = shiftOf(encoding);
+                final long pageAddress = frame.getPageAddress(i);
+                final long valuesAddress = pageAddress != 0 ? pageAddress + (lo << shift) : 0;
+
+                long nullCount = 0;
+                final long validityOffset = scratch.getAppendOffset();
+                if (isNullable(encoding)) {
+                    nullCount = appendValidity(encoding, valuesAddress, batchRowCount);
+                }
+                fieldNodes.add(batchRowCount, nullCount);
+                addBodyBuffer(validityOffset, scratch.getAppendOffset() - validityOffset, true);
+
+                if (encoding == ENC_BOOL) {
+                    final long bitmapSize = (batchRowCount + 7) >>> 3;
+                    final long bitmapOffset = scratch.getAppendOffset();
+                    final long bitmap = scratch.appendAddressFor(bitmapSize);
+                    Vect.memset(bitmap, bitmapSize, 0);
+                    if (valuesAddress != 0) {
+                        for (long r = 0; r < batchRowCount; r++) {
+                            if (Unsafe.getUnsafe().getByte(valuesAddress + r) != 0) {
+                                final long addr = bitmap + (r >>> 3);
+                                Unsafe.getUnsafe().putByte(addr, (byte) (Unsafe.getUnsafe().getByte(addr) | (1 << (r & 7))));
+                            }
+                        }
+                    }
+                    addBodyBuffer(bitmapOffset, bitmapSize, true);
+                } else if (valuesAddress != 0) {
+                    addBodyBuffer(valuesAddress, batchRowCount << shift, false);
+                } else {
+                    // column top, values are masked by validity bitmap or are zeros for non-nullable types
+                    final long size = batchRowCount << shift;
+                    final long offset = scratch.getAppendOffset();
+                    Vect.memset(scratch.appendAddressFor(size), size, 0);
+                    addBodyBuffer(offset, size, true);
+                }
+            }
+            finishMessage(HEADER_RECORD_BATCH, createRecordBatch(batchRowCount));
+            return true;
+        }
+        return false;
+    }
+
+    private boolean prepareRowBatch() {
+        final int columnCount = columnEncodings.size();
+        if (!batchStarted) {
+            for (int i = 0; i < columnCount; i++) {
+                columnBuffers.getQuick(i).of(columnEncodings.getQuick(i));
+            }
+            batchRowCount = 0;
+            batchStarted = true;
+        }
+
+        // the loop may be interrupted by DataUnavailableException and resumed on the next call
+        final Record record = recordCursor.getRecord();
+        boolean batchFull = false;
+        while (!cursorExhausted && !batchFull && batchRowCount < maxBatchRows) {
+            if (rowCount >= stop || !recordCursor.hasNext()) {
+                cursorExhausted = true;
+                break;
+            }
+            if (++rowCount <= skip) {
+                continue;
+            }
+            appendRecord(record, batchRowCount++);
+            for (int i = 0; i < columnCount; i++) {
+                final ColumnBuffers buffers = columnBuffers.getQuick(i);
+                if (buffers.data.size() > MAX_BATCH_VAR_SIZE) {
+                    batchFull = true;
+                    break;
+                }
+            }
+        }
+        batchStarted = false;
+
+        if (batchRowCount == 0) {
+            return false;
+        }
+
+        startMessage();
+        for (int i = 0; i < columnCount; i++) {
+            final int encoding = columnEncodings.getQuick(i);
+            final ColumnBuffers buffers = columnBuffers.getQuick(i);
+            if (encoding == ENC_NULL) {
+                // null arrays have no buffers
+                fieldNodes.add((long) batchRowCount, batchRowCount);
+                continue;
+            }
+            fieldNodes.add((long) batchRowCount, buffers.nullCount);
+            if (buffers.nullCount > 0) {
+                addBodyBuffer(buffers.validity.addressOf(0), buffers.validity.getAppendOffset(), false);
+            } else {
+                addBodyBuffer(0, 0, false);
+            }
+            addBodyBuffer(buffers.values.addressOf(0), buffers.values.getAppendOffset(), false);
+            if (encoding == ENC_UTF8 || encoding == ENC_BINARY) {
+                addBodyBuffer(buffers.data.ptr(), buffers.data.size(), false);
+            }
+        }
+        finishMessage(HEADER_RECORD_BATCH, createRecordBatch(batchRowCount));
+        return true;
+    }
+
+    private void prepareSchema() {
+        startMessage();
+        final int columnCount = columnEncodings.size();
+        if (fieldOffsets.length < columnCount) {
+            fieldOffsets = new int[columnCount];
+        }
+        for (int i = 0; i < columnCount; i++) {
+            final int name = fbb.createString(metadata.getColumnName(i));
+            final int type = createFieldType(i);
+            int dictionary = 0;
+            if (columnEncodings.getQuick(i) == ENC_SYMBOL) {
+                final int indexType = createIntType(Integer.SIZE);
+                fbb.startTable(4);
+                fbb.addLong(0, i);
+                fbb.addOffset(1, indexType);
+                fbb.addBoolean(2, false);
+                dictionary = fbb.endTable();
+            }
+            fbb.startStructVector(Integer.BYTES, 0, Integer.BYTES);
+            final int children = fbb.endVector(0);
+
+            fbb.startTable(7);
+            fbb.addOffset(0, name);
+            fbb.addBoolean(1, true);
+            fbb.addByte(2, fieldTypeOf(i));
+            fbb.addOffset(3, type);
+            if (dictionary != 0) {
+                fbb.addOffset(4, dictionary);
+            }
+            fbb.addOffset(5, children);
+            fieldOffsets[i] = fbb.endTable();
+        }
+        final int fields = fbb.createOffsetVector(fieldOffsets, columnCount);
+        fbb.startTable(4);
+        // little endian
+        fbb.addShort(0, (short) 0);
+        fbb.addOffset(1, fields);
+        finishMessage(HEADER_SCHEMA, fbb.endTable());
+    }
+
+    private void startMessage() {
+        fbb.clear();
+        scratch.jumpTo(0);
+        fieldNodes.clear();
+        bodyBuffers.clear();
+        bodySize = 0;
+        // reserve the first segment for message header
+        segments.add(0L, 0L);
+    }
+
+    private static class ColumnBuffers implements QuietCloseable {
+        // var size values for Utf8 and Binary arrays
+        private final DirectUtf8Sink data = new DirectUtf8Sink(MEMORY_PAGE_SIZE);
+        private final MemoryCARW validity = Vm.getCARWInstance(MEMORY_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+        // fixed size values, bit-packed booleans or int32 offsets for var size values
+        private final MemoryCARW values = Vm.getCARWInstance(MEMORY_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+        private long nullCount;
+
+        @Override
+        public void close() {
+            Misc.free(data);
+            Misc.free(validity);
+            Misc.free(values);
+        }
+
+        void of(int encoding) {
+            data.clear();
+            validity.jumpTo(0);
+            values.jumpTo(0);
+            nullCount = 0;
+            if (encoding == ENC_UTF8 || encoding == ENC_BINARY) {
+                values.putInt(0);
+            }
+        }
+
+        void setBit(MemoryCARW bitmap, int r, boolean value) {
+            if ((r & 7) == 0) {
+                bitmap.putByte((byte) 0);
+            }
+            if (value) {
+                final long offset = r >>> 3;
+                bitmap.putByte(offset, (byte) (bitmap.getByte(offset) | (1 << (r & 7))));
+            }
+        }
+
+        void setValid(int r, boolean valid) {
+            setBit(validity, r, valid);
+            if (!valid) {
+                nullCount++;
+            }
+        }
+    }
+}
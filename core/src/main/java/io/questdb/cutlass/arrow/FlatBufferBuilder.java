@@ -0,0 +1,231 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.arrow;
+
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Utf8StringSink;
+
+/**
+ * Minimal FlatBuffers builder, just enough to encode Arrow IPC message metadata.
+ * Like the reference implementation, the buffer is filled back to front, so offsets
+ * of the objects are measured from the end of the buffer. The builder is meant to be
+ * reused between messages, it doesn't allocate once its buffer is large enough.
+ */
+public class FlatBufferBuilder implements Mutable {
+    private static final int INITIAL_CAPACITY = 1024;
+    private final Utf8StringSink utf8Sink = new Utf8StringSink();
+    private byte[] buf = new byte[INITIAL_CAPACITY];
+    private int fieldCount;
+    private int minAlign = 1;
+    private int objectStart;
+    private int space = buf.length;
+    private int[] vtable = new int[16];
+
+    public void addBoolean(int slot, boolean value) {
+        addByte(slot, value ? (byte) 1 : 0);
+    }
+
+    public void addByte(int slot, byte value) {
+        prep(Byte.BYTES, 0);
+        putByte(value);
+        slot(slot);
+    }
+
+    public void addInt(int slot, int value) {
+        prep(Integer.BYTES, 0);
+        putInt(value);
+        slot(slot);
+    }
+
+    public void addLong(int slot, long value) {
+        prep(Long.BYTES, 0);
+        putLong(value);
+        slot(slot);
+    }
+
+    public void addOffset(int slot, int offset) {
+        addOffset(offset);
+        slot(slot);
+    }
+
+    public void addOffset(int offset) {
+        prep(Integer.BYTES, 0);
+        assert offset <= offset();
+        putInt(offset() - offset + Integer.BYTES);
+    }
+
+    public void addShort(int slot, short value) {
+        prep(Short.BYTES, 0);
+        putShort(value);
+        slot(slot);
+    }
+
+    @Override
+    public void clear() {
+        space = buf.length;
+        minAlign = 1;
+        fieldCount = 0;
+    }
+
+    /**
+     * Copies finished buffer to native memory.
+     *
+     * @param address destination address, there must be at least {@link #size()} bytes available
+     */
+    public void copyTo(long address) {
+        Unsafe.getUnsafe().copyMemory(buf, Unsafe.BYTE_OFFSET + space, null, address, size());
+    }
+
+    /**
+     * Writes vector of offsets, e.g. to tables or strings.
+     */
+    public int createOffsetVector(int[] offsets, int count) {
+        prep(Integer.BYTES, count * Integer.BYTES);
+        for (int i = count - 1; i > -1; i--) {
+            addOffset(offsets[i]);
+        }
+        return endVector(count);
+    }
+
+    public int createString(CharSequence value) {
+        utf8Sink.clear();
+        utf8Sink.put(value);
+        final int len = utf8Sink.size();
+        prep(Integer.BYTES, len + 1);
+        putByte((byte) 0);
+        space -= len;
+        for (int i = 0; i < len; i++) {
+            buf[space + i] = utf8Sink.byteAt(i);
+        }
+        putInt(len);
+        return offset();
+    }
+
+    public int endTable() {
+        prep(Integer.BYTES, 0);
+        // placeholder for the offset to the vtable, patched below
+        putInt(0);
+        final int objectOffset = offset();
+
+        int n = fieldCount;
+        while (n > 0 && vtable[n - 1] == 0) {
+            n--;
+        }
+        for (int i = n - 1; i > -1; i--) {
+            putShort((short) (vtable[i] != 0 ? objectOffset - vtable[i] : 0));
+        }
+        putShort((short) (objectOffset - objectStart));
+        putShort((short) ((n + 2) * Short.BYTES));
+
+        final int vt = offset();
+        final int pos = buf.length - objectOffset;
+        Unsafe.getUnsafe().putInt(buf, Unsafe.BYTE_OFFSET + pos, vt - objectOffset);
+        fieldCount = 0;
+        return objectOffset;
+    }
+
+    public int endVector(int elementCount) {
+        putInt(elementCount);
+        return offset();
+    }
+
+    public void finish(int rootTable) {
+        prep(minAlign, Integer.BYTES);
+        addOffset(rootTable);
+    }
+
+    public void prep(int size, int additionalBytes) {
+        if (size > minAlign) {
+            minAlign = size;
+        }
+        final int alignSize = (~(buf.length - space + additionalBytes) + 1) & (size - 1);
+        ensureSpace(alignSize + size + additionalBytes);
+        for (int i = 0; i < alignSize; i++) {
+            buf[--space] = 0;
+        }
+    }
+
+    public void putByte(byte value) {
+        buf[--space] = value;
+    }
+
+    public void putInt(int value) {
+        space -= Integer.BYTES;
+        Unsafe.getUnsafe().putInt(buf, Unsafe.BYTE_OFFSET + space, value);
+    }
+
+    public void putLong(long value) {
+        space -= Long.BYTES;
+        Unsafe.getUnsafe().putLong(buf, Unsafe.BYTE_OFFSET + space, value);
+    }
+
+    public void putShort(short value) {
+        space -= Short.BYTES;
+        Unsafe.getUnsafe().putShort(buf, Unsafe.BYTE_OFFSET + space, value);
+    }
+
+    public int size() {
+        return buf.length - space;
+    }
+
+    public void startStructVector(int structSize, int elementCount, int alignment) {
+        prep(Integer.BYTES, structSize * elementCount);
+        prep(alignment, structSize * elementCount);
+    }
+
+    public void startTable(int fieldCount) {
+        if (vtable.length < fieldCount) {
+            vtable = new int[fieldCount];
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            vtable[i] = 0;
+        }
+        this.fieldCount = fieldCount;
+        objectStart = offset();
+    }
+
+    private void ensureSpace(int bytes) {
+        if (space < bytes) {
+            final int used = buf.length - space;
+            int capacity = buf.length;
+            while (capacity - used < bytes) {
+                capacity *= 2;
+            }
+            final byte[] newBuf = new byte[capacity];
+            System.arraycopy(buf, space, newBuf, capacity - used, used);
+            buf = newBuf;
+            space = capacity - used;
+        }
+    }
+
+    private int offset() {
+        return buf.length - space;
+    }
+
+    private void slot(int slot) {
+        vtable[slot] = offset();
+    }
+}
@@ -27,9 +27,11 @@ package io.questdb.cutlass.http.processors;
 import io.questdb.Metrics;
 import io.questdb.TelemetryOrigin;
 import io.questdb.cairo.*;
+import io.questdb.cairo.sql.DataFrameCursorFactory;
 import io.questdb.cairo.sql.NetworkSqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
+import io.questdb.cutlass.arrow.ArrowStreamEncoder;
 import io.questdb.cutlass.http.*;
 import io.questdb.griffin.CompiledQuery;
 import io.questdb.griffin.SqlCompiler;
@@ -139,7 +141,12 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                     boolean runQuery = true;
                     for (int retries = 0; runQuery; retries++) {
                         try {
-                            state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            if (state.arrow && ArrowStreamEncoder.supportsPageFrames(state.recordCursorFactory)) {
+                                state.pageFrameCursor = state.recordCursorFactory.getPageFrameCursor(sqlExecutionContext, DataFrameCursorFactory.ORDER_ASC);
+                            }
+                            if (state.pageFrameCursor == null) {
+                                state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            }
                             runQuery = false;
                         } catch (TableReferenceOutOfDateException e) {
                             if (retries == maxSqlRecompileAttempts) {
@@ -157,6 +164,16 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                         }
                     }
                     state.metadata = state.recordCursorFactory.getMetadata();
+                    if (state.arrow) {
+                        if (state.arrowEncoder == null) {
+                            state.arrowEncoder = new ArrowStreamEncoder(engine.getConfiguration().getSqlPageFrameMaxRows());
+                        }
+                        if (state.pageFrameCursor != null) {
+                            state.arrowEncoder.of(state.metadata, state.pageFrameCursor, state.skip, state.stop);
+                        } else {
+                            state.arrowEncoder.of(state.metadata, state.cursor, state.skip, state.stop);
+                        }
+                    }
                     doResumeSend(context);
                 } catch (CairoException e) {
                     state.setQueryCacheable(e.isCacheable());
@@ -305,6 +322,11 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
 
         final HttpChunkedResponse response = context.getChunkedResponse();
+        if (state.arrow) {
+            doResumeSendArrow(response, state);
+            readyForNextRequest(context);
+            return;
+        }
         final int columnCount = state.metadata.getColumnCount();
 
         OUT:
@@ -413,6 +435,47 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         readyForNextRequest(context);
     }
 
+    private void doResumeSendArrow(
+            HttpChunkedResponse response,
+            TextQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
+        final ArrowStreamEncoder encoder = state.arrowEncoder;
+        try {
+            switch (state.queryState) {
+                case JsonQueryProcessorState.QUERY_SETUP_FIRST_RECORD:
+                    header(response, state, 200);
+                    state.queryState = JsonQueryProcessorState.QUERY_RECORD_START;
+                    // fall through
+                case JsonQueryProcessorState.QUERY_RECORD_START:
+                    // Arrow messages are binary and may be larger than the response buffer,
+                    // so they are copied to the buffer piecemeal rather than bookmarked
+                    while (true) {
+                        if (encoder.hasPendingBytes()) {
+                            final int pending = (int) Math.min(encoder.getPendingSize(), Integer.MAX_VALUE);
+                            final int wrote = response.writeBytes(encoder.getPendingAddress(), pending);
+                            encoder.skipPending(wrote);
+                            if (wrote < pending) {
+                                response.sendChunk(false);
+                            }
+                        } else if (!encoder.prepareNextMessage()) {
+                            break;
+                        }
+                    }
+                    state.queryState = JsonQueryProcessorState.QUERY_SUFFIX;
+                    // fall through
+                case JsonQueryProcessorState.QUERY_SUFFIX:
+                    state.cursor = Misc.free(state.cursor);
+                    state.pageFrameCursor = Misc.free(state.pageFrameCursor);
+                    sendDone(response, state);
+                    break;
+                default:
+                    break;
+            }
+        } catch (DataUnavailableException e) {
+            throw QueryPausedException.instance(e.getEvent(), sqlExecutionContext.getCircuitBreaker());
+        }
+    }
+
     private LogRecord error(TextQueryProcessorState state) {
         return LOG.error().$('[').$(state.getFd()).$("] ");
     }
@@ -537,6 +600,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         state.stop = stop;
         state.noMeta = Utf8s.equalsNcAscii("true", request.getUrlParam(URL_PARAM_NM));
         state.countRows = Utf8s.equalsNcAscii("true", request.getUrlParam(URL_PARAM_COUNT));
+        state.arrow = Utf8s.equalsNcAscii("arrow", request.getUrlParam(URL_PARAM_FMT));
         return true;
     }
 
@@ -679,11 +743,12 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             TextQueryProcessorState state,
             int statusCode
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        response.status(statusCode, CONTENT_TYPE_CSV);
+        response.status(statusCode, state.arrow ? CONTENT_TYPE_ARROW_STREAM : CONTENT_TYPE_CSV);
+        final String extension = state.arrow ? ".arrow\"" : ".csv\"";
         if (state.fileName != null && !state.fileName.isEmpty()) {
-            response.headers().putAscii("Content-Disposition: attachment; filename=\"").put(state.fileName).putAscii(".csv\"").putEOL();
+            response.headers().putAscii("Content-Disposition: attachment; filename=\"").put(state.fileName).putAscii(extension).putEOL();
         } else {
-            response.headers().putAscii("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).putAscii(".csv\"").putEOL();
+            response.headers().putAscii("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).putAscii(extension).putEOL();
         }
         response.headers().setKeepAlive(configuration.getKeepAliveHeader());
         response.sendHeader();
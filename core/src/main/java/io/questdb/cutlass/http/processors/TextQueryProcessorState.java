@@ -24,10 +24,12 @@
 
 package io.questdb.cutlass.http.processors;
 
+import io.questdb.cairo.sql.PageFrameCursor;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cutlass.arrow.ArrowStreamEncoder;
 import io.questdb.cutlass.http.HttpConnectionContext;
 import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
@@ -39,6 +41,8 @@ import java.io.Closeable;
 public class TextQueryProcessorState implements Mutable, Closeable {
     final StringSink query = new StringSink();
     private final HttpConnectionContext httpConnectionContext;
+    boolean arrow = false;
+    ArrowStreamEncoder arrowEncoder;
     boolean hasNext;
     int columnIndex;
     long count;
@@ -48,6 +52,7 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     String fileName;
     RecordMetadata metadata;
     boolean noMeta = false;
+    PageFrameCursor pageFrameCursor;
     boolean pausedQuery = false;
     int queryState;
     Record record;
@@ -70,6 +75,10 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         rnd = null;
         record = null;
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        if (arrowEncoder != null) {
+            arrowEncoder.clear();
+        }
         if (null != recordCursorFactory) {
             if (queryCacheable) {
                 httpConnectionContext.getSelectCache().put(query, recordCursorFactory);
@@ -87,12 +96,15 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         count = 0;
         noMeta = false;
         countRows = false;
+        arrow = false;
         pausedQuery = false;
     }
 
     @Override
     public void close() {
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        arrowEncoder = Misc.free(arrowEncoder);
         recordCursorFactory = Misc.free(recordCursorFactory);
     }
 
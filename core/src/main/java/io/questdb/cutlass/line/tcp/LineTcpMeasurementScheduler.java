@@ -389,6 +389,7 @@ public class LineTcpMeasurementScheduler implements Closeable {
         tableNameUtf16.clear();
         Utf8s.utf8ToUtf16(tableNameUtf8.lo(), tableNameUtf8.hi(), tableNameUtf16);
 
+        TableToken walTableToken = null;
         tableUpdateDetailsLock.writeLock().lock();
         try {
             final long deadline = clock.getTicks() + spinLockTimeoutMs;
@@ -455,20 +456,10 @@ public class LineTcpMeasurementScheduler implements Closeable {
                         }
                         TelemetryTask.store(telemetry, TelemetryOrigin.ILP_TCP, TelemetrySystemEvent.ILP_RESERVE_WRITER);
                         if (engine.isWalTable(tableToken)) {
-                            // create WAL-oriented TUD and DON'T add it to the global cache
-                            tud = new WalTableUpdateDetails(
-                                    engine,
-                                    securityContext,
-                                    engine.getWalWriter(tableToken),
-                                    defaultColumnTypes,
-                                    Utf8String.newInstance(tableNameUtf8),
-                                    netIoJob.getSymbolCachePool(),
-                                    configuration.getCommitInterval(),
-                                    true,
-                                    engine.getConfiguration().getMaxUncommittedRows()
-                            );
-                            ctx.addTableUpdateDetails(Utf8String.newInstance(tableNameUtf8), tud);
-                            return tud;
+                            // WAL TUDs are per-connection and are never added to the global cache,
+                            // the WAL writer is acquired once the lock is released
+                            walTableToken = tableToken;
+                            break;
                         } else {
                             tud = unsafeAssignTableToWriterThread(tudKeyIndex, tableNameUtf16, Utf8String.newInstance(tableNameUtf8));
                         }
@@ -483,6 +474,23 @@ public class LineTcpMeasurementScheduler implements Closeable {
         } finally {
             tableUpdateDetailsLock.writeLock().unlock();
         }
+
+        // Each connection appends to its own WAL writer, so several connections can ingest
+        // into the same table concurrently. Acquiring a writer may allocate a new WAL segment
+        // on disk, this must not stall connections resolving other tables.
+        final TableUpdateDetails tud = new WalTableUpdateDetails(
+                engine,
+                securityContext,
+                engine.getWalWriter(walTableToken),
+                defaultColumnTypes,
+                Utf8String.newInstance(tableNameUtf8),
+                netIoJob.getSymbolCachePool(),
+                configuration.getCommitInterval(),
+                true,
+                engine.getConfiguration().getMaxUncommittedRows()
+        );
+        ctx.addTableUpdateDetails(Utf8String.newInstance(tableNameUtf8), tud);
+        return tud;
     }
 
     private boolean isOpen() {
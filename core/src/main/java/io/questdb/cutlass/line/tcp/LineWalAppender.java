@@ -177,7 +177,18 @@ public class LineWalAppender {
             }
         }
 
-        TableWriter.Row r = writer.newRow(timestamp);
+        // lines that only touch fixed-size columns are staged by the writer and
+        // copied to the WAL column files in bulk
+        boolean fixedSizeOnly = true;
+        for (int i = 0; i < entCount; i++) {
+            final int colTypeAndIndex = ld.getColumnType(i);
+            if (Numbers.decodeHighShort(colTypeAndIndex) > -1 && ColumnType.isVarSize(Numbers.decodeLowShort(colTypeAndIndex))) {
+                fixedSizeOnly = false;
+                break;
+            }
+        }
+
+        TableWriter.Row r = fixedSizeOnly ? writer.newBatchRow(timestamp) : writer.newRow(timestamp);
         try {
             for (int i = 0; i < entCount; i++) {
                 int colTypeAndIndex = ld.getColumnType(i);
@@ -77,6 +77,10 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
         return symbolValueToKeyMap.size();
     }
 
+    public boolean isStale() {
+        return symbolMapReader.isSealed();
+    }
+
     @Override
     public int keyOf(DirectUtf8Sequence value) {
         final int index = symbolValueToKeyMap.keyIndex(value);
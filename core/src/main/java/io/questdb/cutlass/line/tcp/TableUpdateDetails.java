@@ -735,7 +735,13 @@ public class TableUpdateDetails implements Closeable {
             if (columnIndex > -1) {
                 SymbolCache symCache = symbolCacheByColumnIndex.getQuiet(columnIndex);
                 if (symCache != null) {
-                    return symCache;
+                    if (!symCache.isStale()) {
+                        return symCache;
+                    }
+                    // symbol map has been rehashed into new files, pick them up
+                    symCache.close();
+                    symbolCachePool.push(symCache);
+                    symbolCacheByColumnIndex.setQuick(columnIndex, null);
                 }
                 return addSymbolCache(columnIndex);
             }
@@ -35,10 +35,10 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
 import io.questdb.cutlass.auth.Authenticator;
 import io.questdb.cutlass.auth.AuthenticatorException;
-import io.questdb.cutlass.text.TextLoader;
 import io.questdb.griffin.*;
 import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.SCSequence;
@@ -67,6 +67,7 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
     public static final String TAG_ALTER_ROLE = "ALTER ROLE";
     public static final String TAG_BEGIN = "BEGIN";
     public static final String TAG_COMMIT = "COMMIT";
+    public static final String TAG_COPY = "COPY";
     public static final String TAG_CREATE_ROLE = "CREATE ROLE";
     // create as select tag
     public static final String TAG_CTAS = "CTAS";
@@ -149,7 +150,16 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
     private BindVariableService bindVariableService;
     private int bufferRemainingOffset = 0;
     private int bufferRemainingSize = 0;
+    // insert that pipelined Execute messages append to outside of explicit transaction, committed on Sync
+    private InsertMethod batchInsertMethod;
+    private InsertOperation batchInsertOperation;
     private boolean completed = true;
+    // bytes of the current CopyData message that are yet to be received
+    private int copyDataRemaining;
+    // created on first COPY FROM STDIN, most connections never use it
+    private PGCopyIn copyIn;
+    // COPY started by an Execute message, ReadyForQuery is then sent on Sync
+    private boolean copyInExtendedQuery;
     private RecordCursor currentCursor = null;
     private RecordCursorFactory currentFactory = null;
     private boolean errorSkipToSync;
@@ -329,7 +339,11 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         completed = true;
         prepareForNewQuery();
         clearRecvBuffer();
+        rollbackBatchInsert();
         clearWriters();
+        Misc.clear(copyIn);
+        copyDataRemaining = 0;
+        copyInExtendedQuery = false;
         evictNamedStatementWrappersAndClear();
         clearCursorAndFactory();
 
@@ -406,6 +420,7 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
             sqlExecutionContext.with(DenyAllSecurityContext.INSTANCE, null, null, -1, null);
         }
         path = Misc.free(path);
+        copyIn = Misc.free(copyIn);
         authenticator = Misc.free(authenticator);
         typesAndSelectCache = Misc.free(typesAndSelectCache);
         typesAndUpdateCache = Misc.free(typesAndUpdateCache);
@@ -678,11 +693,11 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         throw BadProtocolException.INSTANCE;
     }
 
-    private static int getIntUnsafe(long address) {
+    static int getIntUnsafe(long address) {
         return Numbers.bswap(Unsafe.getUnsafe().getInt(address));
     }
 
-    private static short getShortUnsafe(long address) {
+    static short getShortUnsafe(long address) {
         return Numbers.bswap(Unsafe.getUnsafe().getShort(address));
     }
 
@@ -1305,6 +1320,17 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         }
     }
 
+    private void commitBatchInsert() {
+        if (batchInsertMethod != null) {
+            try {
+                batchInsertMethod.commit();
+            } finally {
+                batchInsertMethod = Misc.free(batchInsertMethod);
+                batchInsertOperation = null;
+            }
+        }
+    }
+
     private boolean compileQuery() throws SqlException {
         if (queryText != null && queryText.length() > 0) {
             // try insert, peek because this is our private cache,
@@ -1462,7 +1488,7 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         }
     }
 
-    private void executeInsert() throws SqlException, PeerDisconnectedException {
+    private void executeInsert(boolean pipelined) throws SqlException, PeerDisconnectedException {
         TableWriterAPI writer;
         boolean recompileStale = true;
         for (int retries = 0; true; retries++) {
@@ -1484,6 +1510,21 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                         // when transaction is in error state, skip execution
                         break;
                     default:
+                        if (pipelined) {
+                            // Bind/Execute runs of the same insert share the method and its writer,
+                            // the rows are committed together when Sync arrives
+                            final InsertOperation insert = typesAndInsert.getInsert();
+                            if (batchInsertOperation != insert) {
+                                commitBatchInsert();
+                            }
+                            // initialises bind variables and keeps the writer acquired by the previous run
+                            final InsertMethod m1 = insert.createMethod(sqlExecutionContext, this);
+                            batchInsertMethod = m1;
+                            batchInsertOperation = insert;
+                            recompileStale = false;
+                            rowCount = m1.execute();
+                            break;
+                        }
                         // in any other case we will commit in place
                         try (final InsertMethod m2 = typesAndInsert.getInsert().createMethod(sqlExecutionContext, this)) {
                             recompileStale = false;
@@ -1645,6 +1686,32 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         }
     }
 
+    private void failCopyIn(CharSequence message) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        // uncommitted rows are rolled back, client's remaining CopyData messages will be dropped
+        Misc.clear(copyIn);
+        prepareErrorResponse(-1, message);
+        if (copyInExtendedQuery) {
+            // like any other extended query error, messages are discarded up to Sync
+            errorSkipToSync = true;
+            sendAndReset();
+            return;
+        }
+        sendRNQ = true;
+        sendReadyForNewQuery();
+    }
+
+    private void failCopyIn(Throwable th) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final CharSequence message = th instanceof FlyweightMessageContainer
+                ? ((FlyweightMessageContainer) th).getFlyweightMessage()
+                : th.getMessage();
+        if (th instanceof CairoException && ((CairoException) th).isCritical()) {
+            LOG.critical().$("COPY failed [error=").$(th).I$();
+        } else {
+            LOG.error().$("COPY failed [msg=`").utf8(message).$("`]").$();
+        }
+        failCopyIn(message != null ? message : "COPY failed");
+    }
+
     private void freeBuffers() {
         this.recvBuffer = Unsafe.free(recvBuffer, recvBufferSize, MemoryTag.NATIVE_PGW_CONN);
         this.sendBuffer = this.sendBufferPtr = this.sendBufferLimit = Unsafe.free(sendBuffer, sendBufferSize, MemoryTag.NATIVE_PGW_CONN);
@@ -1738,6 +1805,8 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
     private void handleException(int position, CharSequence message, boolean critical, int errno, boolean interruption) throws PeerDisconnectedException, PeerIsSlowToReadException {
         metrics.pgWire().getErrorCounter().inc();
         clearCursorAndFactory();
+        // like the implicit transaction of a pipeline, a failure discards rows of the batch
+        rollbackBatchInsert();
         if (interruption) {
             prepareErrorResponse(position, message);
         } else {
@@ -1792,6 +1861,17 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
      * any additional bytes received
      */
     private void parse(long address, int len) throws Exception {
+        if (copyDataRemaining > 0) {
+            // tail of CopyData message that did not fit the receive buffer
+            final int n = Math.min(copyDataRemaining, len);
+            recvBufferReadOffset += n;
+            copyDataRemaining -= n;
+            if (copyIn != null && copyIn.isActive()) {
+                processCopyData(address, address + n);
+            }
+            return;
+        }
+
         // we will wait until we receive the entire header
         if (len < PREFIXED_MESSAGE_HEADER_LEN) {
             // we need to be able to read header and length
@@ -1813,6 +1893,17 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
 
         // msgLen does not take into account type byte
         if (msgLen > len - 1) {
+            if (type == 'd' && !errorSkipToSync) {
+                // CopyData messages are not bound by the receive buffer size,
+                // pass on what we have and stream the rest as it arrives
+                lastMsgType = type;
+                recvBufferReadOffset += len;
+                copyDataRemaining = msgLen + 1 - len;
+                if (copyIn != null && copyIn.isActive()) {
+                    processCopyData(address + PREFIXED_MESSAGE_HEADER_LEN, address + len);
+                }
+                return;
+            }
             // When this happens we need to shift our receive buffer left
             // to fit this message. Outer function will do that if we
             // just exit.
@@ -1833,6 +1924,26 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
             return;
         }
 
+        if (copyIn != null && copyIn.isActive()) {
+            switch (type) {
+                case 'd':
+                case 'c':
+                case 'f':
+                    break;
+                case 'S':
+                case 'H':
+                    // ignored in copy-in mode
+                    return;
+                case 'X':
+                    Misc.clear(copyIn);
+                    break;
+                default:
+                    LOG.error().$("unexpected message in copy-in mode [type=").$((char) type).I$();
+                    failCopyIn("unexpected message type during COPY");
+                    return;
+            }
+        }
+
         switch (type) {
             case 'P': // parse
                 sendRNQ = true;
@@ -1860,6 +1971,7 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 // The purpose of Sync is to provide a resynchronization point for error recovery. When an error is detected while processing any extended-query message,
                 // the backend issues ErrorResponse, then reads and discards messages until a Sync is reached, then issues ReadyForQuery and returns to normal message processing.
                 // (But note that no skipping occurs if an error is detected while processing Sync — this ensures that there is one and only one ReadyForQuery sent for each Sync.)
+                commitBatchInsert();
                 processSyncActions();
                 prepareReadyForQuery();
                 prepareForNewQuery();
@@ -1872,6 +1984,7 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 // some clients (asyncpg) chose not to send 'S' (sync) message
                 // but instead fire 'H'. Can't wrap my head around as to why
                 // query execution is so ambiguous
+                commitBatchInsert();
                 if (syncActions.size() > 0) {
                     processSyncActions();
                 }
@@ -1886,6 +1999,20 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 processQuery(msgLo, msgLimit);
                 break;
             case 'd': // COPY data
+                if (copyIn != null && copyIn.isActive()) {
+                    processCopyData(msgLo, msgLimit);
+                }
+                // data of a failed COPY is dropped
+                break;
+            case 'c': // COPY done
+                if (copyIn != null && copyIn.isActive()) {
+                    processCopyDone();
+                }
+                break;
+            case 'f': // COPY fail
+                if (copyIn != null && copyIn.isActive()) {
+                    processCopyFail(msgLo, msgLimit);
+                }
                 break;
             default:
                 LOG.error().$("unknown message [type=").$(type).I$();
@@ -1914,6 +2041,20 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         responseUtf8Sink.putIntDirect(INT_BYTES_X);
     }
 
+    private void prepareCopyInResponse() {
+        // overall format and format of every column, text (0) or binary (1)
+        final byte format = (byte) (copyIn.getFormat() == CopyModel.COPY_FORMAT_BINARY ? 1 : 0);
+        responseUtf8Sink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
+        long addr = responseUtf8Sink.skip();
+        responseUtf8Sink.put(format);
+        final int columnCount = copyIn.getColumnCount();
+        responseUtf8Sink.putNetworkShort((short) columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            responseUtf8Sink.putNetworkShort(format);
+        }
+        responseUtf8Sink.putLen(addr);
+    }
+
     private void prepareDescribePortalResponse() {
         if (typesAndSelect != null) {
             try {
@@ -2259,6 +2400,10 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
             case CompiledQuery.SET:
                 queryTag = TAG_SET;
                 break;
+            case CompiledQuery.COPY_REMOTE:
+                // simple query starts COPY right away, extended query does it on Execute
+                queryTag = TAG_COPY;
+                break;
             case CompiledQuery.DEALLOCATE:
                 queryTag = TAG_DEALLOCATE;
                 removeNamedStatement(cq.getStatementName());
@@ -2298,6 +2443,45 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         }
     }
 
+    private void processCopyData(long lo, long msgLimit) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        try {
+            copyIn.onData(lo, msgLimit);
+        } catch (Throwable th) {
+            failCopyIn(th);
+        }
+    }
+
+    private void processCopyDone() throws PeerDisconnectedException, PeerIsSlowToReadException {
+        try {
+            rowCount = copyIn.finish();
+        } catch (Throwable th) {
+            failCopyIn(th);
+            return;
+        }
+        isEmptyQuery = false;
+        queryTag = TAG_COPY;
+        prepareCommandComplete(true);
+        if (copyInExtendedQuery) {
+            // ReadyForQuery follows client's Sync
+            return;
+        }
+        sendRNQ = true;
+        sendReadyForNewQuery();
+    }
+
+    private void processCopyFail(long lo, long msgLimit) throws PeerDisconnectedException, PeerIsSlowToReadException, BadProtocolException {
+        final long hi = getStringLength(lo, msgLimit, "bad COPY fail message");
+        final CharacterStoreEntry e = characterStore.newEntry();
+        e.put("COPY from stdin failed: ");
+        if (!Utf8s.utf8ToUtf16(lo, hi, e)) {
+            LOG.error().$("invalid UTF8 bytes in COPY fail message").$();
+            throw BadProtocolException.INSTANCE;
+        }
+        final CharSequence message = characterStore.toImmutable();
+        LOG.info().$(message).$();
+        failCopyIn(message);
+    }
+
     private void processDescribe(long lo, long msgLimit) throws SqlException, BadProtocolException {
         sqlExecutionContext.getCircuitBreaker().resetTimer();
 
@@ -2354,16 +2538,27 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
     }
 
     private void processExecute() throws Exception {
+        if (batchInsertOperation != null && (typesAndInsert == null || typesAndInsert.getInsert() != batchInsertOperation)) {
+            // statements that follow the batch must observe its rows
+            commitBatchInsert();
+        }
         if (typesAndSelect != null) {
             LOG.debug().$("executing query").$();
             setupFactoryAndCursor();
             sendCursor(resumeCursorExecuteRef, resumeExecuteCompleteRef, setResumeComputeCursorSizeExecuteRef);
         } else if (typesAndInsert != null) {
             LOG.debug().$("executing insert").$();
-            executeInsert();
+            executeInsert(true);
         } else if (typesAndUpdate != null) {
             LOG.debug().$("executing update").$();
             executeUpdate();
+        } else if (queryTag == TAG_COPY) {
+            LOG.debug().$("executing copy").$();
+            try (SqlCompiler compiler = engine.getSqlCompiler()) {
+                startCopyIn(compiler.compile(queryText, sqlExecutionContext));
+            }
+            // Sync and Flush messages are ignored in copy-in mode, CopyInResponse has to be sent now
+            sendAndReset();
         } else { // this must be an OK/SET/COMMIT/ROLLBACK or empty query
             executeTag();
             prepareCommandComplete(false);
@@ -2438,6 +2633,7 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
 
     // processes one or more queries (batch/script). "Simple Query" in PostgreSQL docs.
     private void processQuery(long lo, long limit) throws Exception {
+        commitBatchInsert();
         prepareForNewQuery();
         isEmptyQuery = true; // assume SQL text contains no query until we find out otherwise
         CharacterStoreEntry e = characterStore.newEntry();
@@ -2453,8 +2649,10 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 // we need to continue parsing receive buffer even if we errored out
                 // this is because PG client might expect separate responses to everything it sent
             } catch (SqlException ex) {
+                Misc.clear(copyIn);
                 prepareNonCriticalError(ex.getPosition(), ex.getFlyweightMessage());
             } catch (CairoException ex) {
+                Misc.clear(copyIn);
                 if (ex.isInterruption()) {
                     prepareErrorResponse(-1, ex.getFlyweightMessage());
                 } else {
@@ -2465,6 +2663,11 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
             LOG.error().$("invalid UTF8 bytes in parse query").$();
             throw BadProtocolException.INSTANCE;
         }
+        if (copyIn != null && copyIn.isActive()) {
+            // CopyInResponse is out, ReadyForQuery follows CopyDone or CopyFail
+            sendAndReset();
+            return;
+        }
         sendReadyForNewQuery();
     }
 
@@ -2585,6 +2788,21 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         sendReadyForNewQuery();
     }
 
+    private void rollbackBatchInsert() {
+        if (batchInsertMethod != null) {
+            final TableWriterAPI writer = batchInsertMethod.popWriter();
+            batchInsertMethod = null;
+            batchInsertOperation = null;
+            if (writer != null) {
+                try {
+                    writer.rollback();
+                } finally {
+                    writer.close();
+                }
+            }
+        }
+    }
+
     private void sendAndReset() throws PeerDisconnectedException, PeerIsSlowToReadException {
         doSend(bufferRemainingOffset, (int) (sendBufferPtr - sendBuffer - bufferRemainingOffset));
         responseUtf8Sink.reset();
@@ -2607,32 +2825,6 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         replyAndContinue = false;
     }
 
-    // This method is currently unused. it's used for the COPY sub-protocol, which is currently not implemented.
-    // It's left here so when we add the sub-protocol later we won't need to reimplemented it.
-    // We could keep it just in git history, but chances are nobody would recall to search for it there
-    private void sendCopyInResponse(CairoEngine engine, TextLoader textLoader) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        TableToken tableToken = engine.getTableTokenIfExists(textLoader.getTableName());
-        if (TableUtils.TABLE_EXISTS == engine.getTableStatus(path, tableToken)) {
-            responseUtf8Sink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
-            long addr = responseUtf8Sink.skip();
-            responseUtf8Sink.put((byte) 0); // TEXT (1=BINARY, which we do not support yet)
-
-            try (TableWriter writer = engine.getWriter(tableToken, WRITER_LOCK_REASON)) {
-                RecordMetadata metadata = writer.getMetadata();
-                responseUtf8Sink.putNetworkShort((short) metadata.getColumnCount());
-                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
-                    responseUtf8Sink.putNetworkShort((short) PGOids.getTypeOid(metadata.getColumnType(i)));
-                }
-            }
-            responseUtf8Sink.putLen(addr);
-        } else {
-            final SqlException e = SqlException.tableDoesNotExist(0, textLoader.getTableName());
-            prepareNonCriticalError(e.getPosition(), e.getFlyweightMessage());
-            prepareReadyForQuery();
-        }
-        sendAndReset();
-    }
-
     private void sendCursor(PGResumeProcessor cursorResumeProcessor, PGResumeProcessor commandCompleteResumeProcessor, PGResumeProcessor computeCursorSizeResumeProcessor) throws Exception {
         // the assumption for now is that any record will fit into response buffer. This of course precludes us from
         // streaming large BLOBs, but, and it's a big one, PostgreSQL protocol for DataRow does not allow for
@@ -2776,6 +2968,15 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         recvBufferReadOffset = 0;
     }
 
+    private void startCopyIn(CompiledQuery cq) {
+        if (copyIn == null) {
+            copyIn = new PGCopyIn(engine);
+        }
+        copyIn.of(cq.getTableToken(), cq.getCopyModel());
+        copyInExtendedQuery = lastMsgType != 'Q';
+        prepareCopyInResponse();
+    }
+
     private void validateParameterCounts(short parameterFormatCount, short parameterValueCount, int parameterTypeCount) throws BadProtocolException {
         if (parameterValueCount > 0) {
             if (parameterValueCount < parameterTypeCount) {
@@ -2925,6 +3126,9 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         @Override
         public void postCompile(SqlCompiler compiler, CompiledQuery cq, CharSequence text) throws Exception {
             try {
+                if (copyIn != null && copyIn.isActive()) {
+                    throw SqlException.$(0, "COPY FROM STDIN must be the last statement in the query");
+                }
                 PGConnectionContext.this.queryText = text;
                 processCompiledQuery(cq);
 
@@ -2938,11 +3142,13 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                     maxReceiveRows = 0; // unlimited
                     sendCursor(resumeCursorQueryRef, resumeQueryCompleteRef, resumeComputeCursorSizeQueryRef);
                 } else if (typesAndInsert != null) {
-                    executeInsert();
+                    executeInsert(false);
                 } else if (typesAndUpdate != null) {
                     executeUpdate();
                 } else if (cq.getType() == CompiledQuery.INSERT_AS_SELECT || cq.getType() == CompiledQuery.CREATE_TABLE_AS_SELECT) {
                     prepareCommandComplete(true);
+                } else if (cq.getType() == CompiledQuery.COPY_REMOTE) {
+                    startCopyIn(cq);
                 } else {
                     executeTag();
                     prepareCommandComplete(false);
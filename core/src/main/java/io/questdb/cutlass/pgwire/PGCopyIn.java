@@ -0,0 +1,648 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.TableWriterAPI;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cutlass.text.AbstractTextLexer;
+import io.questdb.cutlass.text.TextConfiguration;
+import io.questdb.cutlass.text.TextLexerWrapper;
+import io.questdb.cutlass.text.types.TypeAdapter;
+import io.questdb.cutlass.text.types.TypeManager;
+import io.questdb.griffin.SqlUtil;
+import io.questdb.griffin.model.CopyModel;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.DirectUtf16Sink;
+import io.questdb.std.str.DirectUtf8Sequence;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.std.str.DirectUtf8String;
+
+import java.io.Closeable;
+
+/**
+ * Receiving side of the COPY FROM STDIN sub-protocol. CopyData payloads in text and CSV formats
+ * are split into fields by the text import lexer, binary payloads are decoded tuple by tuple.
+ * Values are written straight into the table writer using text import type adapters and
+ * the writer is committed every time the table's maxUncommittedRows is reached.
+ */
+class PGCopyIn implements Closeable, Mutable {
+    private static final int BINARY_FLAG_OIDS = 1 << 16;
+    // signature (11 bytes), flags field and header extension area length
+    private static final int BINARY_HEADER_LEN = 11 + 2 * Integer.BYTES;
+    private static final long BINARY_SIGNATURE_TAIL = 0x000a0dff0a59504fL; // "OPY\n\377\r\n\0", i.e. signature bytes 3..10
+    private static final Log LOG = LogFactory.getLog(PGCopyIn.class);
+    private static final String WRITER_LOCK_REASON = "pgCopyIn";
+    private final ObjList<TypeAdapter> adapters = new ObjList<>();
+    private final LongList binaryFields = new LongList();
+    private final DirectUtf8String binaryValue = new DirectUtf8String();
+    private final IntList columnTypes = new IntList();
+    private final IntList columnWriterIndexes = new IntList();
+    private final CairoEngine engine;
+    private final TextLexerWrapper lexerWrapper;
+    private final TypeManager typeManager;
+    private final DirectUtf8Sink unescapeSink;
+    private final DirectUtf16Sink utf16Sink;
+    private final DirectUtf8Sink utf8Sink;
+    private final AbstractTextLexer.Listener textListener = this::onTextFields;
+    private boolean batchRows;
+    private long buf;
+    private long bufCapacity;
+    private long bufSize;
+    private int columnCount;
+    private int format;
+    private boolean headerParsed;
+    private AbstractTextLexer lexer;
+    private long maxUncommittedRows;
+    private RecordMetadata metadata;
+    private long rowCount;
+    private boolean skipHeader;
+    private int timestampIndex;
+    private boolean trailerParsed;
+    private TableWriterAPI writer;
+
+    PGCopyIn(CairoEngine engine) {
+        this.engine = engine;
+        final TextConfiguration textConfiguration = engine.getConfiguration().getTextConfiguration();
+        try {
+            this.lexerWrapper = new TextLexerWrapper(textConfiguration);
+            this.utf16Sink = new DirectUtf16Sink(textConfiguration.getUtf8SinkSize());
+            this.utf8Sink = new DirectUtf8Sink(textConfiguration.getUtf8SinkSize());
+            this.unescapeSink = new DirectUtf8Sink(textConfiguration.getUtf8SinkSize());
+            this.typeManager = new TypeManager(textConfiguration, utf16Sink, utf8Sink);
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    /**
+     * Rolls back rows that have not been committed yet and releases the writer.
+     */
+    @Override
+    public void clear() {
+        if (writer != null) {
+            try {
+                writer.rollback();
+            } finally {
+                writer = Misc.free(writer);
+            }
+        }
+        if (lexer != null) {
+            lexer.clear();
+            lexer = null;
+        }
+        adapters.clear();
+        columnTypes.clear();
+        columnWriterIndexes.clear();
+        typeManager.clear();
+        metadata = null;
+        bufSize = 0;
+        headerParsed = false;
+        trailerParsed = false;
+        skipHeader = false;
+        rowCount = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(lexerWrapper);
+        Misc.free(utf16Sink);
+        Misc.free(utf8Sink);
+        Misc.free(unescapeSink);
+        if (buf != 0) {
+            buf = Unsafe.free(buf, bufCapacity, MemoryTag.NATIVE_PGW_CONN);
+            bufCapacity = 0;
+        }
+    }
+
+    /**
+     * Commits remaining rows and releases the writer.
+     *
+     * @return number of rows copied
+     */
+    long finish() {
+        if (lexer != null) {
+            lexer.parseLast();
+            if (lexer.getErrorCount() > 0) {
+                LOG.info().$("skipped malformed lines [table=").$(writer.getTableToken())
+                        .$(", count=").$(lexer.getErrorCount()).I$();
+            }
+        } else if (bufSize > 0 || (headerParsed && !trailerParsed)) {
+            throw CairoException.nonCritical().put("unexpected end of binary COPY data");
+        }
+        writer.commit();
+        final long n = rowCount;
+        LOG.info().$("copied [table=").$(writer.getTableToken()).$(", rows=").$(n).I$();
+        writer = Misc.free(writer);
+        clear();
+        return n;
+    }
+
+    int getColumnCount() {
+        return columnCount;
+    }
+
+    int getFormat() {
+        return format;
+    }
+
+    boolean isActive() {
+        return writer != null;
+    }
+
+    void of(TableToken tableToken, CopyModel model) {
+        assert writer == null;
+        writer = engine.getTableWriterAPI(tableToken, WRITER_LOCK_REASON);
+        try {
+            metadata = GenericRecordMetadata.copyDense(writer.getMetadata());
+            columnCount = metadata.getColumnCount();
+            timestampIndex = metadata.getTimestampIndex();
+            boolean fixedSizeOnly = true;
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = metadata.getColumnType(i);
+                columnTypes.add(columnType);
+                columnWriterIndexes.add(metadata.getWriterIndex(i));
+                switch (ColumnType.tagOf(columnType)) {
+                    case ColumnType.TIMESTAMP:
+                    case ColumnType.DATE:
+                        // parsed directly, text import adapters need a date format
+                        adapters.add(null);
+                        break;
+                    default:
+                        adapters.add(typeManager.getTypeAdapter(columnType));
+                        break;
+                }
+                fixedSizeOnly &= !ColumnType.isVarSize(columnType);
+            }
+            batchRows = fixedSizeOnly && timestampIndex > -1;
+            maxUncommittedRows = TableUtils.getMaxUncommittedRows(writer.getMetadata(), engine);
+            format = model.getFormat();
+            if (format != CopyModel.COPY_FORMAT_BINARY) {
+                final byte delimiter = model.getDelimiter() > 0
+                        ? model.getDelimiter()
+                        : (format == CopyModel.COPY_FORMAT_CSV ? (byte) ',' : (byte) '\t');
+                lexer = lexerWrapper.getLexer(delimiter);
+                lexer.setSkipLinesWithExtraValues(true);
+                // the header is skipped here rather than by the lexer, the lexer
+                // derives the field count from the first line it reports
+                lexer.restart(false);
+                skipHeader = model.isHeader();
+                lexer.setupLimits(Integer.MAX_VALUE, textListener);
+            }
+        } catch (Throwable th) {
+            clear();
+            throw th;
+        }
+    }
+
+    /**
+     * Consumes payload of a single CopyData message. Rows may span message boundaries.
+     */
+    void onData(long lo, long hi) {
+        if (lexer != null) {
+            lexer.parse(lo, hi);
+            return;
+        }
+        if (bufSize == 0) {
+            // fast path, decode straight from receive buffer and stash only the incomplete tail
+            final long p = parseBinary(lo, hi);
+            if (p < hi) {
+                stash(p, hi);
+            }
+        } else {
+            stash(lo, hi);
+            final long p = parseBinary(buf, buf + bufSize);
+            final long remaining = buf + bufSize - p;
+            if (remaining > 0 && p > buf) {
+                Vect.memmove(buf, p, remaining);
+            }
+            bufSize = remaining;
+        }
+    }
+
+    private static double getBinaryDouble(long addr, int len) {
+        switch (len) {
+            case Integer.BYTES:
+                return Float.intBitsToFloat(PGConnectionContext.getIntUnsafe(addr));
+            case Long.BYTES:
+                return Double.longBitsToDouble(PGConnectionContext.getLongUnsafe(addr));
+            default:
+                throw CairoException.nonCritical().put("unexpected binary floating point length [len=").put(len).put(']');
+        }
+    }
+
+    private static long getBinaryLong(long addr, int len) {
+        switch (len) {
+            case Byte.BYTES:
+                return Unsafe.getUnsafe().getByte(addr);
+            case Short.BYTES:
+                return PGConnectionContext.getShortUnsafe(addr);
+            case Integer.BYTES:
+                return PGConnectionContext.getIntUnsafe(addr);
+            case Long.BYTES:
+                return PGConnectionContext.getLongUnsafe(addr);
+            default:
+                throw CairoException.nonCritical().put("unexpected binary integer length [len=").put(len).put(']');
+        }
+    }
+
+    private static long getBinaryTimestamp(long addr, int len) {
+        switch (len) {
+            case Integer.BYTES:
+                // date, days since 2000-01-01
+                return PGConnectionContext.getIntUnsafe(addr) * Timestamps.DAY_MICROS + Numbers.JULIAN_EPOCH_OFFSET_USEC;
+            case Long.BYTES:
+                // timestamp, micros since 2000-01-01
+                return PGConnectionContext.getLongUnsafe(addr) + Numbers.JULIAN_EPOCH_OFFSET_USEC;
+            default:
+                throw CairoException.nonCritical().put("unexpected binary timestamp length [len=").put(len).put(']');
+        }
+    }
+
+    private static int hexDigit(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private void afterAppend() {
+        rowCount++;
+        if (maxUncommittedRows > 0 && writer.getUncommittedRowCount() >= maxUncommittedRows) {
+            writer.ic();
+        }
+    }
+
+    private CairoException badValue(int columnIndex, CharSequence value) {
+        return CairoException.nonCritical()
+                .put("inconvertible value [row=").put(rowCount + 1)
+                .put(", column=").put(metadata.getColumnName(columnIndex))
+                .put(", type=").put(ColumnType.nameOf(columnTypes.getQuick(columnIndex)))
+                .put(", value=`").put(value)
+                .put("`]");
+    }
+
+    private boolean isEndOfData(DirectUtf8String value) {
+        return value.size() == 2 && value.byteAt(0) == '\\' && value.byteAt(1) == '.';
+    }
+
+    private TableWriter.Row newRow(long timestamp) {
+        if (timestampIndex < 0) {
+            return writer.newRow();
+        }
+        if (timestamp == Numbers.LONG_NULL) {
+            throw CairoException.nonCritical().put("designated timestamp column cannot be NULL [row=").put(rowCount + 1).put(']');
+        }
+        return batchRows ? writer.newBatchRow(timestamp) : writer.newRow(timestamp);
+    }
+
+    private void onTextFields(long line, ObjList<DirectUtf8String> values, int valuesLength) {
+        if (skipHeader) {
+            skipHeader = false;
+            return;
+        }
+        if (valuesLength != columnCount) {
+            if (valuesLength == 1 && format == CopyModel.COPY_FORMAT_TEXT && isEndOfData(values.getQuick(0))) {
+                return;
+            }
+            throw CairoException.nonCritical()
+                    .put("column count mismatch [row=").put(rowCount + 1)
+                    .put(", expected=").put(columnCount)
+                    .put(", actual=").put(valuesLength)
+                    .put(']');
+        }
+
+        long timestamp = Numbers.LONG_NULL;
+        if (timestampIndex > -1) {
+            final DirectUtf8Sequence value = textValue(values.getQuick(timestampIndex));
+            if (value != null) {
+                timestamp = parseTimestamp(timestampIndex, value);
+            }
+        }
+
+        final TableWriter.Row row = newRow(timestamp);
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                if (i == timestampIndex) {
+                    continue;
+                }
+                final DirectUtf8Sequence value = textValue(values.getQuick(i));
+                if (value != null) {
+                    putText(row, i, value);
+                }
+            }
+            row.append();
+        } catch (Throwable th) {
+            row.cancel();
+            throw th;
+        }
+        afterAppend();
+    }
+
+    // returns address of the first byte that belongs to an incomplete tuple
+    private long parseBinary(long lo, long hi) {
+        long p = lo;
+        if (!headerParsed) {
+            if (hi - p < BINARY_HEADER_LEN) {
+                return p;
+            }
+            if (Unsafe.getUnsafe().getByte(p) != 'P'
+                    || Unsafe.getUnsafe().getShort(p + 1) != ('G' | ('C' << 8))
+                    || Unsafe.getUnsafe().getLong(p + 3) != BINARY_SIGNATURE_TAIL) {
+                throw CairoException.nonCritical().put("invalid binary COPY signature");
+            }
+            if ((PGConnectionContext.getIntUnsafe(p + 11) & BINARY_FLAG_OIDS) != 0) {
+                throw CairoException.nonCritical().put("binary COPY data with OIDs is not supported");
+            }
+            final int extensionLen = PGConnectionContext.getIntUnsafe(p + 15);
+            if (hi - p < BINARY_HEADER_LEN + (long) extensionLen) {
+                return p;
+            }
+            p += BINARY_HEADER_LEN + extensionLen;
+            headerParsed = true;
+        }
+
+        while (!trailerParsed && hi - p >= Short.BYTES) {
+            final short fieldCount = PGConnectionContext.getShortUnsafe(p);
+            if (fieldCount == -1) {
+                trailerParsed = true;
+                p += Short.BYTES;
+                break;
+            }
+            if (fieldCount != columnCount) {
+                throw CairoException.nonCritical()
+                        .put("column count mismatch [row=").put(rowCount + 1)
+                        .put(", expected=").put(columnCount)
+                        .put(", actual=").put(fieldCount)
+                        .put(']');
+            }
+
+            // make sure the whole tuple is available before writing anything
+            long q = p + Short.BYTES;
+            binaryFields.clear();
+            for (int i = 0; i < columnCount; i++) {
+                if (hi - q < Integer.BYTES) {
+                    return p;
+                }
+                final int len = PGConnectionContext.getIntUnsafe(q);
+                q += Integer.BYTES;
+                if (len > 0) {
+                    if (hi - q < len) {
+                        return p;
+                    }
+                }
+                binaryFields.add(q, len);
+                if (len > 0) {
+                    q += len;
+                }
+            }
+            writeBinaryTuple();
+            p = q;
+        }
+        if (trailerParsed && p < hi) {
+            throw CairoException.nonCritical().put("unexpected data after binary COPY trailer");
+        }
+        return p;
+    }
+
+    private long parseTimestamp(int columnIndex, DirectUtf8Sequence value) {
+        try {
+            return SqlUtil.implicitCastStrAsTimestamp(value.asAsciiCharSequence());
+        } catch (Throwable e) {
+            throw badValue(columnIndex, value.asAsciiCharSequence());
+        }
+    }
+
+    private void putBinary(TableWriter.Row row, int columnIndex, long addr, int len) throws Exception {
+        final int writerIndex = columnWriterIndexes.getQuick(columnIndex);
+        switch (ColumnType.tagOf(columnTypes.getQuick(columnIndex))) {
+            case ColumnType.BOOLEAN:
+                row.putBool(writerIndex, Unsafe.getUnsafe().getByte(addr) != 0);
+                break;
+            case ColumnType.BYTE:
+                row.putByte(writerIndex, (byte) getBinaryLong(addr, len));
+                break;
+            case ColumnType.SHORT:
+                row.putShort(writerIndex, (short) getBinaryLong(addr, len));
+                break;
+            case ColumnType.INT:
+                row.putInt(writerIndex, (int) getBinaryLong(addr, len));
+                break;
+            case ColumnType.LONG:
+                row.putLong(writerIndex, getBinaryLong(addr, len));
+                break;
+            case ColumnType.FLOAT:
+                row.putFloat(writerIndex, (float) getBinaryDouble(addr, len));
+                break;
+            case ColumnType.DOUBLE:
+                row.putDouble(writerIndex, getBinaryDouble(addr, len));
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(writerIndex, getBinaryTimestamp(addr, len));
+                break;
+            case ColumnType.DATE:
+                row.putDate(writerIndex, getBinaryTimestamp(addr, len) / 1000);
+                break;
+            case ColumnType.UUID:
+                if (len != 2 * Long.BYTES) {
+                    throw CairoException.nonCritical().put("unexpected binary uuid length [len=").put(len).put(']');
+                }
+                row.putLong128(writerIndex, PGConnectionContext.getLongUnsafe(addr + Long.BYTES), PGConnectionContext.getLongUnsafe(addr));
+                break;
+            default:
+                // strings, symbols and the types PG has no binary counterpart for are sent as UTF-8 text
+                adapters.getQuick(columnIndex).write(row, writerIndex, binaryValue.of(addr, addr + len), utf16Sink, utf8Sink);
+                break;
+        }
+    }
+
+    private void putText(TableWriter.Row row, int columnIndex, DirectUtf8Sequence value) {
+        final int writerIndex = columnWriterIndexes.getQuick(columnIndex);
+        try {
+            switch (ColumnType.tagOf(columnTypes.getQuick(columnIndex))) {
+                case ColumnType.TIMESTAMP:
+                    row.putTimestamp(writerIndex, SqlUtil.implicitCastStrAsTimestamp(value.asAsciiCharSequence()));
+                    break;
+                case ColumnType.DATE:
+                    row.putDate(writerIndex, SqlUtil.implicitCastStrAsDate(value.asAsciiCharSequence()));
+                    break;
+                default:
+                    adapters.getQuick(columnIndex).write(row, writerIndex, value, utf16Sink, utf8Sink);
+                    break;
+            }
+        } catch (Throwable e) {
+            throw badValue(columnIndex, value.asAsciiCharSequence());
+        }
+    }
+
+    private void stash(long lo, long hi) {
+        final long len = hi - lo;
+        if (bufSize + len > bufCapacity) {
+            final long capacity = Numbers.ceilPow2(bufSize + len);
+            buf = Unsafe.realloc(buf, bufCapacity, capacity, MemoryTag.NATIVE_PGW_CONN);
+            bufCapacity = capacity;
+        }
+        Vect.memcpy(buf + bufSize, lo, len);
+        bufSize += len;
+    }
+
+    // Returns null for NULL values. Text format escapes are resolved into a scratch sink.
+    private DirectUtf8Sequence textValue(DirectUtf8String value) {
+        final int size = value.size();
+        if (size == 0) {
+            // CSV null, empty values are also left as nulls for text format
+            return null;
+        }
+        if (format != CopyModel.COPY_FORMAT_TEXT) {
+            return value;
+        }
+        int i = 0;
+        while (i < size && value.byteAt(i) != '\\') {
+            i++;
+        }
+        if (i == size) {
+            return value;
+        }
+        if (i == 0 && size == 2 && value.byteAt(1) == 'N') {
+            return null;
+        }
+
+        final DirectUtf8Sink sink = unescapeSink;
+        sink.clear();
+        for (int j = 0; j < i; j++) {
+            sink.putAny(value.byteAt(j));
+        }
+        while (i < size) {
+            byte b = value.byteAt(i++);
+            if (b != '\\' || i == size) {
+                sink.putAny(b);
+                continue;
+            }
+            b = value.byteAt(i++);
+            switch (b) {
+                case 'b':
+                    sink.putAny((byte) '\b');
+                    break;
+                case 'f':
+                    sink.putAny((byte) '\f');
+                    break;
+                case 'n':
+                    sink.putAny((byte) '\n');
+                    break;
+                case 'r':
+                    sink.putAny((byte) '\r');
+                    break;
+                case 't':
+                    sink.putAny((byte) '\t');
+                    break;
+                case 'v':
+                    sink.putAny((byte) 0x0b);
+                    break;
+                case 'x': {
+                    int v = 0;
+                    int n = 0;
+                    int d;
+                    while (n < 2 && i < size && (d = hexDigit(value.byteAt(i))) > -1) {
+                        v = (v << 4) | d;
+                        i++;
+                        n++;
+                    }
+                    sink.putAny(n > 0 ? (byte) v : b);
+                    break;
+                }
+                default:
+                    if (b >= '0' && b <= '7') {
+                        int v = b - '0';
+                        for (int n = 1; n < 3 && i < size && value.byteAt(i) >= '0' && value.byteAt(i) <= '7'; n++) {
+                            v = (v << 3) | (value.byteAt(i++) - '0');
+                        }
+                        sink.putAny((byte) v);
+                    } else {
+                        // backslash followed by any other character stands for that character
+                        sink.putAny(b);
+                    }
+                    break;
+            }
+        }
+        return sink;
+    }
+
+    private void writeBinaryTuple() {
+        long timestamp = Numbers.LONG_NULL;
+        if (timestampIndex > -1) {
+            final int len = (int) binaryFields.getQuick(2 * timestampIndex + 1);
+            if (len > -1) {
+                timestamp = getBinaryTimestamp(binaryFields.getQuick(2 * timestampIndex), len);
+            }
+        }
+
+        final TableWriter.Row row = newRow(timestamp);
+        int columnIndex = -1;
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                final int len = (int) binaryFields.getQuick(2 * i + 1);
+                if (i == timestampIndex || len < 0) {
+                    continue;
+                }
+                columnIndex = i;
+                putBinary(row, i, binaryFields.getQuick(2 * i), len);
+            }
+            row.append();
+        } catch (CairoException e) {
+            row.cancel();
+            throw e;
+        } catch (Throwable th) {
+            row.cancel();
+            throw badValue(columnIndex, th.getMessage());
+        }
+        afterAppend();
+    }
+}
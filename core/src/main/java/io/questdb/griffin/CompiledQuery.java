@@ -30,6 +30,7 @@ import io.questdb.cairo.sql.OperationFuture;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.ops.AlterOperation;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.mp.SCSequence;
 import io.questdb.std.Transient;
 
@@ -95,6 +96,15 @@ public interface CompiledQuery {
     @Transient
     AlterOperation getAlterOperation();
 
+    /**
+     * Returns options of COPY FROM STDIN statement. The model is owned by the compiler
+     * and stays valid only until the next statement is compiled.
+     *
+     * @return copy model
+     */
+    @Transient
+    CopyModel getCopyModel();
+
     InsertOperation getInsertOperation();
 
     RecordCursorFactory getRecordCursorFactory();
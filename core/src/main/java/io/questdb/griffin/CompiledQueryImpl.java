@@ -34,6 +34,7 @@ import io.questdb.griffin.engine.ops.AlterOperation;
 import io.questdb.griffin.engine.ops.DoneOperationFuture;
 import io.questdb.griffin.engine.ops.OperationDispatcher;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.mp.SCSequence;
 import io.questdb.std.Chars;
 import io.questdb.std.Mutable;
@@ -46,6 +47,7 @@ public class CompiledQueryImpl implements CompiledQuery, Mutable {
     // number of rows either returned by SELECT operation or affected by UPDATE or INSERT
     private long affectedRowsCount;
     private AlterOperation alterOp;
+    private CopyModel copyModel;
     private InsertOperation insertOp;
     private RecordCursorFactory recordCursorFactory;
     private SqlExecutionContext sqlExecutionContext;
@@ -85,6 +87,7 @@ public class CompiledQueryImpl implements CompiledQuery, Mutable {
         this.affectedRowsCount = -1;
         this.insertOp = null;
         this.alterOp = null;
+        this.copyModel = null;
         this.updateOp = null;
         this.statementName = null;
     }
@@ -120,6 +123,11 @@ public class CompiledQueryImpl implements CompiledQuery, Mutable {
         return alterOp;
     }
 
+    @Override
+    public CopyModel getCopyModel() {
+        return copyModel;
+    }
+
     @Override
     public InsertOperation getInsertOperation() {
         return insertOp;
@@ -193,8 +201,9 @@ public class CompiledQueryImpl implements CompiledQuery, Mutable {
         of(COMMIT);
     }
 
-    public void ofCopyRemote() {
-        of(COPY_REMOTE);
+    public void ofCopyRemote(TableToken tableToken, CopyModel copyModel) {
+        this.copyModel = copyModel;
+        of(COPY_REMOTE, null, tableToken);
     }
 
     public void ofCreateTable(TableToken tableToken) {
@@ -88,6 +88,15 @@ public interface FunctionFactory {
         return false;
     }
 
+    /**
+     * @return true if the {@link Function} produced by the factory may return different values for
+     * the same arguments and the same data, i.e. rnd_int() or systimestamp(). Results of queries that
+     * use such functions are not eligible for the query result cache.
+     */
+    default boolean isNonDeterministic() {
+        return false;
+    }
+
     /**
      * @return true if the {@link Function} produced by the factory is guaranteed to be constant for
      * a query such that its result does not depend on any {@link Record} in the result set, i.e. now().
@@ -67,6 +67,8 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
     private final PostOrderTreeTraversalAlgo traverseAlgo = new PostOrderTreeTraversalAlgo();
     private final IntList undefinedVariables = new IntList();
     private RecordMetadata metadata;
+    // set when a function whose value may change between executions over the same data is parsed
+    private boolean nonDeterministicFunctionParsed;
     private SqlCodeGenerator sqlCodeGenerator;
     private SqlExecutionContext sqlExecutionContext;
 
@@ -151,6 +153,7 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         this.positionStack.clear();
         this.functionStack.clear();
         this.sqlExecutionContext = null;
+        this.nonDeterministicFunctionParsed = false;
     }
 
     public Function createBindVariable(SqlExecutionContext sqlExecutionContext, int position, CharSequence name, int expressionType) throws SqlException {
@@ -203,6 +206,14 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         return functionFactoryCache;
     }
 
+    /**
+     * Returns true when, since the last {@link #clear()}, a function was parsed that may return different
+     * values over the same data, i.e. rnd_int(), now() or a cursor function.
+     */
+    public boolean hasNonDeterministicFunctions() {
+        return nonDeterministicFunctionParsed;
+    }
+
     /**
      * Creates function instance. When node type is {@link ExpressionNode#LITERAL} a column or parameter
      * function is returned. We will be using the supplied {@link #metadata} to resolve type of column. When node token
@@ -408,6 +419,10 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
             throw SqlException.position(position).put("exception in function factory");
         }
 
+        if (factory.isNonDeterministic() || factory.isRuntimeConstant() || factory.isCursor()) {
+            nonDeterministicFunctionParsed = true;
+        }
+
         if (function == null) {
             LOG.error().$("NULL function")
                     .$(" [signature=").$(factory.getSignature())
@@ -614,9 +629,21 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
                 sigArgCount--;
             }
 
-            // this is no-arg function, match right away
+            // this is no-arg function, match right away unless there is a window
+            // overload, e.g. count(), that suits the context better
             if (argCount == 0 && sigArgCount == 0) {
-                return checkAndCreateFunction(factory, args, argPositions, node, configuration);
+                if (isWindowContext == factory.isWindow()) {
+                    return checkAndCreateFunction(factory, args, argPositions, node, configuration);
+                }
+                if (candidate == null) {
+                    candidate = factory;
+                    candidateDescriptor = descriptor;
+                    candidateSigArgCount = 0;
+                    candidateSigVarArg = false;
+                    candidateSigVarArgConst = false;
+                    bestMatch = MATCH_EXACT_MATCH;
+                }
+                continue;
             }
 
             if (candidateDescriptor == null) {
@@ -52,6 +52,7 @@ import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
 import io.questdb.griffin.engine.table.*;
 import io.questdb.griffin.engine.union.*;
 import io.questdb.griffin.engine.window.CachedWindowRecordCursorFactory;
+import io.questdb.griffin.engine.window.ShardedWindowGroup;
 import io.questdb.griffin.engine.window.WindowFunction;
 import io.questdb.griffin.engine.window.WindowRecordCursorFactory;
 import io.questdb.griffin.model.*;
@@ -82,6 +83,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private static final FullFatJoinGenerator CREATE_FULL_FAT_AS_OF_JOIN = SqlCodeGenerator::createFullFatAsOfJoin;
     private static final FullFatJoinGenerator CREATE_FULL_FAT_LT_JOIN = SqlCodeGenerator::createFullFatLtJoin;
     private static final Log LOG = LogFactory.getLog(SqlCodeGenerator.class);
+    private static final int MAX_WINDOW_SHARD_COUNT = 64;
     private static final ModelOperator RESTORE_WHERE_CLAUSE = QueryModel::restoreWhereClause;
     private static final SetRecordCursorFactoryConstructor SET_EXCEPT_ALL_CONSTRUCTOR = ExceptAllRecordCursorFactory::new;
     private static final SetRecordCursorFactoryConstructor SET_EXCEPT_CONSTRUCTOR = ExceptRecordCursorFactory::new;
@@ -143,6 +145,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private final FunctionParser functionParser;
     private final IntList groupByFunctionPositions = new IntList();
     private final ObjObjHashMap<IntList, ObjList<WindowFunction>> groupedWindow = new ObjObjHashMap<>();
+    private final ObjObjHashMap<IntList, IntList> groupedWindowColumnIndexes = new ObjObjHashMap<>();
     private final IntHashSet intHashSet = new IntHashSet();
     private final ObjectPool<IntList> intListPool = new ObjectPool<>(IntList::new, 4);
     private final MemoryCARW jitIRMem;
@@ -151,10 +154,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     // this list is used to generate record sinks
     private final ListColumnFilter listColumnFilterA = new ListColumnFilter();
     private final ListColumnFilter listColumnFilterB = new ListColumnFilter();
+    private final IntList naturalOrderColumnIndexes = new IntList();
     private final LongList prefixes = new LongList();
     private final RecordComparatorCompiler recordComparatorCompiler;
     private final IntList recordFunctionPositions = new IntList();
     private final PageFrameReduceTaskFactory reduceTaskFactory;
+    // tables scanned by factories generated since the last clear()
+    private final ObjList<TableToken> scannedTableTokens = new ObjList<>();
     private final ArrayDeque<ExpressionNode> sqlNodeStack = new ArrayDeque<>();
     private final WhereClauseSymbolEstimator symbolEstimator = new WhereClauseSymbolEstimator();
     private final IntList tempAggIndex = new IntList();
@@ -230,6 +236,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         whereClauseParser.clear();
         symbolEstimator.clear();
         intListPool.clear();
+        scannedTableTokens.clear();
     }
 
     @Override
@@ -290,6 +297,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return new ExplainPlanFactory(factory, model.getFormat());
     }
 
+    public ObjList<TableToken> getScannedTableTokens() {
+        return scannedTableTokens;
+    }
+
     private static boolean allGroupsFirstLastWithSingleSymbolFilter(QueryModel model, RecordMetadata metadata) {
         final ObjList<QueryColumn> columns = model.getColumns();
         CharSequence symbolToken = null;
@@ -383,14 +394,169 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return model.getOrderByDirectionAdvice().getQuick(index);
     }
 
+    private static boolean isConstantExpression(ExpressionNode node) {
+        // bind variables are only accepted standalone, so that their types are not inferred here
+        if (node == null || node.type == CONSTANT) {
+            return true;
+        }
+        if (node.type != FUNCTION && node.type != OPERATION) {
+            return false;
+        }
+        if (node.paramCount < 3) {
+            return isConstantExpression(node.lhs) && isConstantExpression(node.rhs);
+        }
+        for (int i = 0, n = node.args.size(); i < n; i++) {
+            if (!isConstantExpression(node.args.getQuick(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // record chain reads of var-size columns and symbol values share state of the record,
+    // so only fixed-size columns can be read by parallel window function shards
+    private static boolean isFixedSizeWindowExpression(ExpressionNode node, RecordMetadata metadata) {
+        if (node == null) {
+            return true;
+        }
+        if (node.type == LITERAL) {
+            final int columnIndex = metadata.getColumnIndexQuiet(node.token);
+            return columnIndex > -1 && ColumnType.isFixedSize(ColumnType.tagOf(metadata.getColumnType(columnIndex)));
+        }
+        if (node.paramCount < 3) {
+            return isFixedSizeWindowExpression(node.lhs, metadata) && isFixedSizeWindowExpression(node.rhs, metadata);
+        }
+        for (int i = 0, n = node.args.size(); i < n; i++) {
+            if (!isFixedSizeWindowExpression(node.args.getQuick(i), metadata)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static boolean isSingleColumnFunction(ExpressionNode ast, CharSequence name) {
         return ast.type == FUNCTION && ast.paramCount == 1 && Chars.equalsIgnoreCase(ast.token, name) && ast.rhs.type == LITERAL;
     }
 
+    /**
+     * Window functions can be split between shards when they share the same partition by
+     * over plain columns and read nothing but fixed-size columns.
+     */
+    private static boolean isWindowGroupShardable(ObjList<QueryColumn> columns, IntList windowColumnIndexes, RecordMetadata chainMetadata) {
+        final ObjList<ExpressionNode> partitionBy = ((WindowColumn) columns.getQuick(windowColumnIndexes.getQuick(0))).getPartitionBy();
+        final int partitionByCount = partitionBy.size();
+        if (partitionByCount == 0) {
+            return false;
+        }
+        for (int i = 0; i < partitionByCount; i++) {
+            final ExpressionNode node = partitionBy.getQuick(i);
+            if (node.type != LITERAL) {
+                return false;
+            }
+            final int columnIndex = chainMetadata.getColumnIndexQuiet(node.token);
+            if (columnIndex < 0) {
+                return false;
+            }
+            // symbol keys are read as int
+            final int columnType = chainMetadata.getColumnType(columnIndex);
+            if (!ColumnType.isSymbol(columnType) && !ColumnType.isFixedSize(ColumnType.tagOf(columnType))) {
+                return false;
+            }
+        }
+        for (int i = 0, n = windowColumnIndexes.size(); i < n; i++) {
+            final WindowColumn ac = (WindowColumn) columns.getQuick(windowColumnIndexes.getQuick(i));
+            final ObjList<ExpressionNode> otherPartitionBy = ac.getPartitionBy();
+            if (otherPartitionBy.size() != partitionByCount) {
+                return false;
+            }
+            for (int j = 0; j < partitionByCount; j++) {
+                if (!ExpressionNode.compareNodesExact(partitionBy.getQuick(j), otherPartitionBy.getQuick(j))) {
+                    return false;
+                }
+            }
+            if (!isFixedSizeWindowExpression(ac.getAst(), chainMetadata)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // analyze order by clause on the current model and optimise out
+    // order by on window function if it matches the one on the model
+    private static boolean isWindowOrderDismissed(QueryModel model, RecordCursorFactory base, WindowColumn ac) {
+        final int osz = ac.getOrderBy().size();
+        final LowerCaseCharSequenceIntHashMap orderHash = model.getOrderHash();
+        final RecordMetadata baseMetadata = base.getMetadata();
+        boolean dismissOrder = false;
+        int timestampIdx = baseMetadata.getTimestampIndex();
+
+        if (base.followedOrderByAdvice() && osz > 0 && orderHash.size() > 0) {
+            dismissOrder = true;
+            for (int j = 0; j < osz; j++) {
+                ExpressionNode node = ac.getOrderBy().getQuick(j);
+                int direction = ac.getOrderByDirection().getQuick(j);
+                if (!Chars.equalsIgnoreCase(node.token, orderHash.keys().get(j))
+                        || orderHash.get(node.token) != direction) {
+                    dismissOrder = false;
+                    break;
+                }
+            }
+        }
+        if (osz == 1 && timestampIdx != -1 && orderHash.size() < 2) {
+            ExpressionNode orderByNode = ac.getOrderBy().getQuick(0);
+            int orderByDirection = ac.getOrderByDirection().getQuick(0);
+
+            if (baseMetadata.getColumnIndexQuiet(orderByNode.token) == timestampIdx
+                    && ((orderByDirection == ORDER_ASC && base.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD)
+                    || (orderByDirection == ORDER_DESC && base.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_BACKWARD))) {
+                dismissOrder = true;
+            }
+        }
+        return dismissOrder;
+    }
+
     private static boolean isStringyType(int colType) {
         return colType == ColumnType.VARCHAR || colType == ColumnType.STRING;
     }
 
+    private static int parquetRowGroupFilterOp(CharSequence token, boolean flip) {
+        if (Chars.equals(token, '=')) {
+            return ParquetRowGroupFilter.OP_EQ;
+        }
+        if (Chars.equals(token, '<')) {
+            return flip ? ParquetRowGroupFilter.OP_GT : ParquetRowGroupFilter.OP_LT;
+        }
+        if (Chars.equals(token, "<=")) {
+            return flip ? ParquetRowGroupFilter.OP_GE : ParquetRowGroupFilter.OP_LE;
+        }
+        if (Chars.equals(token, '>')) {
+            return flip ? ParquetRowGroupFilter.OP_LT : ParquetRowGroupFilter.OP_GT;
+        }
+        if (Chars.equals(token, ">=")) {
+            return flip ? ParquetRowGroupFilter.OP_LE : ParquetRowGroupFilter.OP_GE;
+        }
+        return -1;
+    }
+
+    private static int partitionStatsFilterOp(CharSequence token, boolean flip) {
+        if (Chars.equals(token, '=')) {
+            return PartitionStatsFilter.OP_EQ;
+        }
+        if (Chars.equals(token, '<')) {
+            return flip ? PartitionStatsFilter.OP_GT : PartitionStatsFilter.OP_LT;
+        }
+        if (Chars.equals(token, "<=")) {
+            return flip ? PartitionStatsFilter.OP_GE : PartitionStatsFilter.OP_LE;
+        }
+        if (Chars.equals(token, '>')) {
+            return flip ? PartitionStatsFilter.OP_LT : PartitionStatsFilter.OP_GT;
+        }
+        if (Chars.equals(token, ">=")) {
+            return flip ? PartitionStatsFilter.OP_LE : PartitionStatsFilter.OP_GE;
+        }
+        return -1;
+    }
+
     private static RecordMetadata widenSetMetadata(RecordMetadata typesA, RecordMetadata typesB) {
         int columnCount = typesA.getColumnCount();
         assert columnCount == typesB.getColumnCount();
@@ -405,6 +571,258 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return metadata;
     }
 
+    private boolean addHashIndexKey(ExpressionNode node, int keyCount, IntList indexKeys, SqlExecutionContext executionContext) {
+        if (node.type == BIND_VARIABLE || !isConstantExpression(node)) {
+            return false;
+        }
+        final Function function;
+        try {
+            function = functionParser.parseFunction(node, EmptyRecordMetadata.INSTANCE, executionContext);
+        } catch (SqlException e) {
+            // the filter reports the error
+            return false;
+        }
+        try {
+            if (!function.isConstant()) {
+                return false;
+            }
+            // null constants are left to the filter, null of one type
+            // may compare equal to null of a wider type
+            final long value;
+            switch (ColumnType.tagOf(function.getType())) {
+                case ColumnType.BYTE:
+                    value = function.getByte(null);
+                    break;
+                case ColumnType.SHORT:
+                    value = function.getShort(null);
+                    break;
+                case ColumnType.INT:
+                    final int intValue = function.getInt(null);
+                    if (intValue == Numbers.INT_NULL) {
+                        return false;
+                    }
+                    value = intValue;
+                    break;
+                case ColumnType.LONG:
+                    value = function.getLong(null);
+                    if (value == Numbers.LONG_NULL) {
+                        return false;
+                    }
+                    break;
+                default:
+                    return false;
+            }
+            final int indexKey = TableUtils.toHashIndexKey(value, keyCount);
+            if (!indexKeys.contains(indexKey)) {
+                indexKeys.add(indexKey);
+            }
+            return true;
+        } finally {
+            Misc.free(function);
+        }
+    }
+
+    /**
+     * Finds an equality or IN predicate on a hash-indexed INT or LONG column in the top-level
+     * conjunction of the filter and collects index keys of its values.
+     *
+     * @return index of the column the keys belong to or -1 when there is no such predicate
+     */
+    private int addHashIndexKeys(
+            ExpressionNode node,
+            RecordMetadata metadata,
+            IntList indexKeys,
+            SqlExecutionContext executionContext
+    ) {
+        if (node == null || node.paramCount < 2) {
+            return -1;
+        }
+        if (node.type == OPERATION && node.paramCount == 2 && isAndKeyword(node.token)) {
+            final int columnIndex = addHashIndexKeys(node.lhs, metadata, indexKeys, executionContext);
+            return columnIndex != -1 ? columnIndex : addHashIndexKeys(node.rhs, metadata, indexKeys, executionContext);
+        }
+
+        final ExpressionNode column;
+        final boolean in;
+        if (node.type == OPERATION && node.paramCount == 2 && Chars.equals(node.token, '=')) {
+            column = node.lhs.type == LITERAL ? node.lhs : node.rhs;
+            in = false;
+        } else if (isInKeyword(node.token)) {
+            column = node.paramCount < 3 ? node.lhs : node.args.getLast();
+            in = true;
+        } else {
+            return -1;
+        }
+        if (column.type != LITERAL) {
+            return -1;
+        }
+        final int columnIndex = metadata.getColumnIndexQuiet(column.token);
+        if (
+                columnIndex == -1
+                        || !metadata.isColumnIndexed(columnIndex)
+                        || ColumnType.isSymbol(metadata.getColumnType(columnIndex))
+        ) {
+            return -1;
+        }
+
+        indexKeys.clear();
+        final int keyCount = metadata.getIndexValueBlockCapacity(columnIndex);
+        if (!in) {
+            return addHashIndexKey(column == node.lhs ? node.rhs : node.lhs, keyCount, indexKeys, executionContext) ? columnIndex : -1;
+        }
+        if (node.paramCount < 3) {
+            return addHashIndexKey(node.rhs, keyCount, indexKeys, executionContext) ? columnIndex : -1;
+        }
+        // args are in reverse order, the column is the last one
+        for (int i = 0, n = node.paramCount - 1; i < n; i++) {
+            if (!addHashIndexKey(node.args.getQuick(i), keyCount, indexKeys, executionContext)) {
+                return -1;
+            }
+        }
+        return columnIndex;
+    }
+
+    private void addParquetRowGroupFilters(
+            ExpressionNode node,
+            ReadParquetRecordCursorFactory factory,
+            ParquetRowGroupFilter rowGroupFilter,
+            SqlExecutionContext executionContext
+    ) {
+        if (node == null || node.type != OPERATION || node.paramCount != 2) {
+            return;
+        }
+        if (isAndKeyword(node.token)) {
+            addParquetRowGroupFilters(node.lhs, factory, rowGroupFilter, executionContext);
+            addParquetRowGroupFilters(node.rhs, factory, rowGroupFilter, executionContext);
+            return;
+        }
+
+        final ExpressionNode column;
+        final ExpressionNode value;
+        final boolean flip;
+        if (node.lhs.type == LITERAL && (node.rhs.type == BIND_VARIABLE || isConstantExpression(node.rhs))) {
+            column = node.lhs;
+            value = node.rhs;
+            flip = false;
+        } else if (node.rhs.type == LITERAL && (node.lhs.type == BIND_VARIABLE || isConstantExpression(node.lhs))) {
+            column = node.rhs;
+            value = node.lhs;
+            flip = true;
+        } else {
+            return;
+        }
+        final int op = parquetRowGroupFilterOp(node.token, flip);
+        final RecordMetadata metadata = factory.getMetadata();
+        final int columnIndex = metadata.getColumnIndexQuiet(column.token);
+        if (op == -1 || columnIndex == -1) {
+            return;
+        }
+
+        final Function function;
+        try {
+            function = functionParser.parseFunction(value, EmptyRecordMetadata.INSTANCE, executionContext);
+        } catch (SqlException e) {
+            // the filter reports the error
+            return;
+        }
+        final int columnType = metadata.getColumnType(columnIndex);
+        if ((function.isConstant() || function.isRuntimeConstant()) && ParquetRowGroupFilter.isSupported(columnType, function.getType(), op)) {
+            rowGroupFilter.add(factory.getFileColumnIndex(columnIndex), column.token, columnType, op, function);
+        } else {
+            Misc.free(function);
+        }
+    }
+
+    private void addPartitionStatsPredicates(
+            ExpressionNode node,
+            RecordMetadata metadata,
+            PartitionStatsFilter partitionStatsFilter,
+            SqlExecutionContext executionContext
+    ) {
+        if (node == null || node.type != OPERATION || node.paramCount != 2) {
+            return;
+        }
+        if (isAndKeyword(node.token)) {
+            addPartitionStatsPredicates(node.lhs, metadata, partitionStatsFilter, executionContext);
+            addPartitionStatsPredicates(node.rhs, metadata, partitionStatsFilter, executionContext);
+            return;
+        }
+
+        // bind variables are left out, the factory may be re-executed with other values
+        final ExpressionNode column;
+        final ExpressionNode value;
+        final boolean flip;
+        if (node.lhs.type == LITERAL && isConstantExpression(node.rhs)) {
+            column = node.lhs;
+            value = node.rhs;
+            flip = false;
+        } else if (node.rhs.type == LITERAL && isConstantExpression(node.lhs)) {
+            column = node.rhs;
+            value = node.lhs;
+            flip = true;
+        } else {
+            return;
+        }
+        final int op = partitionStatsFilterOp(node.token, flip);
+        final int columnIndex = metadata.getColumnIndexQuiet(column.token);
+        if (op == -1 || columnIndex == -1 || columnIndex == metadata.getTimestampIndex()) {
+            return;
+        }
+        final int columnType = metadata.getColumnType(columnIndex);
+        // float columns are compared with float precision, which double stats do not mirror
+        if (!PartitionStats.isSupported(columnType) || ColumnType.tagOf(columnType) == ColumnType.FLOAT) {
+            return;
+        }
+
+        final Function function;
+        try {
+            function = functionParser.parseFunction(value, EmptyRecordMetadata.INSTANCE, executionContext);
+        } catch (SqlException e) {
+            // the filter reports the error
+            return;
+        }
+        try {
+            if (!function.isConstant()) {
+                return;
+            }
+            final int writerIndex = metadata.getWriterIndex(columnIndex);
+            final int valueType = ColumnType.tagOf(function.getType());
+            switch (valueType) {
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                    partitionStatsFilter.add(writerIndex, columnType, op, function.getLong(null));
+                    break;
+                case ColumnType.INT:
+                    final int intValue = function.getInt(null);
+                    if (intValue != Numbers.INT_NULL) {
+                        partitionStatsFilter.add(writerIndex, columnType, op, intValue);
+                    }
+                    break;
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                    // dates and timestamps are only compared with constants of the same unit
+                    if (valueType == ColumnType.LONG || valueType == ColumnType.tagOf(columnType)) {
+                        final long longValue = function.getLong(null);
+                        if (longValue != Numbers.LONG_NULL) {
+                            partitionStatsFilter.add(writerIndex, columnType, op, longValue);
+                        }
+                    }
+                    break;
+                case ColumnType.DOUBLE:
+                    final double doubleValue = function.getDouble(null);
+                    if (Numbers.isFinite(doubleValue)) {
+                        partitionStatsFilter.add(writerIndex, columnType, op, doubleValue);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            Misc.free(function);
+        }
+    }
+
     private VectorAggregateFunctionConstructor assembleFunctionReference(RecordMetadata metadata, ExpressionNode ast) {
         int columnIndex;
         if (ast.type == FUNCTION && ast.paramCount == 1 && SqlKeywords.isSumKeyword(ast.token) && ast.rhs.type == LITERAL) {
@@ -794,7 +1212,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             RecordCursorFactory slave,
             int joinType,
             Function filter,
-            JoinContext context
+            JoinContext context,
+            SqlExecutionContext executionContext
     ) {
         /*
          * JoinContext provides the following information:
@@ -832,6 +1251,30 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
         if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
             if (joinType == JOIN_INNER) {
+                final int workerCount = executionContext.getSharedWorkerCount();
+                if (
+                        configuration.isSqlParallelHashJoinEnabled()
+                                && workerCount > 0
+                                && master.supportsPageFrameCursor()
+                                && master.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                                && keyTypes.getColumnCount() == 1
+                                && AsyncHashJoinLightAtom.isSupportedKeyType(keyTypes.getColumnType(0))
+                ) {
+                    return new AsyncHashJoinLightRecordCursorFactory(
+                            configuration,
+                            executionContext.getMessageBus(),
+                            metadata,
+                            master,
+                            slave,
+                            reduceTaskFactory,
+                            keyTypes.getColumnType(0),
+                            listColumnFilterB.getColumnIndexFactored(0),
+                            listColumnFilterA.getColumnIndexFactored(0),
+                            masterMetadata.getColumnCount(),
+                            context,
+                            workerCount
+                    );
+                }
                 return new HashJoinLightRecordCursorFactory(
                         configuration,
                         metadata,
@@ -1660,6 +2103,42 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return castFunctions;
     }
 
+    private RecordCursorFactory generateFill(RecordCursorFactory factory, QueryModel model) throws SqlException {
+        final ExpressionNode fillStride = model.getFillStride();
+        if (fillStride == null) {
+            return factory;
+        }
+
+        // SAMPLE BY FILL query was rewritten to group-by ordered by timestamp
+        try {
+            final RecordMetadata metadata = factory.getMetadata();
+            final int timestampIndex = metadata.getColumnIndexQuiet(model.getFillTimestamp());
+            if (timestampIndex == -1 || !factory.recordCursorSupportsRandomAccess()) {
+                throw SqlException.$(fillStride.position, "fill is not supported by the query");
+            }
+
+            final ObjList<CharSequence> valueColumns = model.getFillValueColumns();
+            tempAggIndex.clear();
+            for (int i = 0, n = valueColumns.size(); i < n; i++) {
+                tempAggIndex.add(metadata.getColumnIndex(valueColumns.getQuick(i)));
+            }
+
+            return new SampleByFillRecordCursorFactory(
+                    asm,
+                    configuration,
+                    factory,
+                    TimestampSamplerFactory.getInstance(fillStride.token, fillStride.position),
+                    fillStride,
+                    model.getFillValues(),
+                    tempAggIndex,
+                    timestampIndex
+            );
+        } catch (Throwable e) {
+            Misc.free(factory);
+            throw e;
+        }
+    }
+
     private RecordCursorFactory generateFilter(RecordCursorFactory factory, QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         return model.getWhereClause() == null ? factory : generateFilter0(factory, model, executionContext);
     }
@@ -1710,15 +2189,31 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 CompiledFilter compiledFilter = null;
                 try {
                     int jitOptions;
+                    boolean partial = false;
                     final ObjList<Function> bindVarFunctions = new ObjList<>();
                     try (PageFrameCursor cursor = factory.getPageFrameCursor(executionContext, ORDER_ANY)) {
                         final boolean forceScalar = executionContext.getJitMode() == SqlJitMode.JIT_MODE_FORCE_SCALAR;
-                        jitIRSerializer.of(jitIRMem, executionContext, factory.getMetadata(), cursor, bindVarFunctions);
-                        jitOptions = jitIRSerializer.serialize(filterExpr, forceScalar, enableJitDebug, enableJitNullChecks);
+                        try {
+                            jitIRSerializer.of(jitIRMem, executionContext, factory.getMetadata(), cursor, bindVarFunctions);
+                            jitOptions = jitIRSerializer.serialize(filterExpr, forceScalar, enableJitDebug, enableJitNullChecks);
+                        } catch (SqlException e) {
+                            // Some of the conjuncts, e.g. varchar comparisons, are not supported by JIT.
+                            // Compile the remaining ones and let the Java filter confirm the rows they select.
+                            jitIRSerializer.clear();
+                            jitIRMem.truncate();
+                            bindVarFunctions.clear();
+                            final ExpressionNode jitFilterExpr = pruneNonJitConjuncts(filterExpr, factory, cursor, executionContext);
+                            if (jitFilterExpr == null) {
+                                throw e;
+                            }
+                            jitIRSerializer.of(jitIRMem, executionContext, factory.getMetadata(), cursor, bindVarFunctions);
+                            jitOptions = jitIRSerializer.serialize(jitFilterExpr, forceScalar, enableJitDebug, enableJitNullChecks);
+                            partial = true;
+                        }
                     }
 
                     compiledFilter = new CompiledFilter();
-                    compiledFilter.compile(jitIRMem, jitOptions);
+                    compiledFilter.compile(jitIRMem, jitOptions, partial);
 
                     final Function limitLoFunction = getLimitLoFunctionOnly(model, executionContext);
                     final int limitLoPos = model.getLimitAdviceLo() != null ? model.getLimitAdviceLo().position : 0;
@@ -1792,17 +2287,46 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     }
 
     private RecordCursorFactory generateFunctionQuery(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursorFactory factory;
         final RecordCursorFactory tableFactory = model.getTableNameFunction();
         if (tableFactory != null) {
             // We're transferring ownership of the tableFactory's factory to another factory
             // setting tableFactory to NULL will prevent double-ownership.
             // We should not release tableFactory itself, they typically just a lightweight factory wrapper.
             model.setTableNameFunction(null);
-            return tableFactory;
+            factory = tableFactory;
         } else {
             // when tableFactory is null we have to recompile it from scratch, including creating new factory
-            return TableUtils.createCursorFunction(functionParser, model, executionContext).getRecordCursorFactory();
+            factory = TableUtils.createCursorFunction(functionParser, model, executionContext).getRecordCursorFactory();
+        }
+
+        if (factory instanceof ReadParquetRecordCursorFactory) {
+            final ReadParquetRecordCursorFactory readParquetFactory = (ReadParquetRecordCursorFactory) factory;
+            try {
+                // row groups are skipped based on the where clause, the filter itself stays in place
+                if (model.getWhereClause() != null) {
+                    final ParquetRowGroupFilter rowGroupFilter = new ParquetRowGroupFilter();
+                    readParquetFactory.setRowGroupFilter(rowGroupFilter);
+                    addParquetRowGroupFilters(model.getWhereClause(), readParquetFactory, rowGroupFilter, executionContext);
+                    if (rowGroupFilter.isEmpty()) {
+                        readParquetFactory.setRowGroupFilter(null);
+                    }
+                }
+
+                final ObjList<QueryColumn> topDownColumns = model.getTopDownColumns();
+                if (topDownColumns.size() > 0) {
+                    final ObjList<CharSequence> columnNames = new ObjList<>(topDownColumns.size());
+                    for (int i = 0, n = topDownColumns.size(); i < n; i++) {
+                        columnNames.add(topDownColumns.getQuick(i).getName());
+                    }
+                    readParquetFactory.pruneColumns(columnNames);
+                }
+            } catch (Throwable th) {
+                Misc.free(factory);
+                throw th;
+            }
         }
+        return factory;
     }
 
     private RecordCursorFactory generateIntersectOrExceptAllFactory(
@@ -1952,7 +2476,19 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                                 slaveModel.getContext()
                                         );
                                     } else {
-                                        if (slave.supportsTimeFrameCursor()) {
+                                        if (isParallelAsOfJoinSupported(master, slave, executionContext)) {
+                                            master = new AsyncAsOfJoinRecordCursorFactory(
+                                                    configuration,
+                                                    executionContext.getMessageBus(),
+                                                    createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                                    master,
+                                                    slave,
+                                                    reduceTaskFactory,
+                                                    masterMetadata.getColumnCount(),
+                                                    false,
+                                                    executionContext.getSharedWorkerCount()
+                                            );
+                                        } else if (slave.supportsTimeFrameCursor()) {
                                             master = new AsOfJoinNoKeyFastRecordCursorFactory(
                                                     configuration,
                                                     createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
@@ -2015,7 +2551,19 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                                 slaveModel.getContext()
                                         );
                                     } else {
-                                        if (slave.supportsTimeFrameCursor()) {
+                                        if (isParallelAsOfJoinSupported(master, slave, executionContext)) {
+                                            master = new AsyncAsOfJoinRecordCursorFactory(
+                                                    configuration,
+                                                    executionContext.getMessageBus(),
+                                                    createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                                    master,
+                                                    slave,
+                                                    reduceTaskFactory,
+                                                    masterMetadata.getColumnCount(),
+                                                    true,
+                                                    executionContext.getSharedWorkerCount()
+                                            );
+                                        } else if (slave.supportsTimeFrameCursor()) {
                                             master = new LtJoinNoKeyFastRecordCursorFactory(
                                                     configuration,
                                                     createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
@@ -2114,7 +2662,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                         slave,
                                         joinType,
                                         filter,
-                                        slaveModel.getContext()
+                                        slaveModel.getContext(),
+                                        executionContext
                                 );
                                 masterAlias = null;
                                 break;
@@ -2313,7 +2862,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         latestBy.addAll(model.getLatestBy());
         final ExpressionNode latestByNode = latestBy.get(0);
         final int latestByIndex = metadata.getColumnIndexQuiet(latestByNode.token);
-        final boolean indexed = metadata.isColumnIndexed(latestByIndex);
+        final boolean indexed = ColumnType.isSymbol(metadata.getColumnType(latestByIndex)) && metadata.isColumnIndexed(latestByIndex);
 
         // 'latest by' clause takes over the filter and the latest by nodes,
         // so that the later generateFilter() and generateLatestBy() are no-op
@@ -2684,6 +3233,31 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                 baseCursorTimestampIndex
                         );
                     } else {
+                        final int workerCount = executionContext.getSharedWorkerCount();
+                        if (
+                                configuration.isSqlParallelSortEnabled()
+                                        && workerCount > 0
+                                        && recordCursorFactory.supportsPageFrameCursor()
+                                        && recordCursorFactory.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                        ) {
+                            // comparators cache left record values, so each worker slot needs its own instance
+                            final int slotCount = Math.min(workerCount, configuration.getPageFrameReduceQueueCapacity());
+                            final ObjList<RecordComparator> perWorkerComparators = new ObjList<>(slotCount);
+                            for (int i = 0; i < slotCount; i++) {
+                                perWorkerComparators.add(recordComparatorCompiler.compile(metadata, listColumnFilterA));
+                            }
+                            return new AsyncSortedLightRecordCursorFactory(
+                                    configuration,
+                                    executionContext.getMessageBus(),
+                                    orderedMetadata,
+                                    recordCursorFactory,
+                                    recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                                    perWorkerComparators,
+                                    listColumnFilterA.copy(),
+                                    reduceTaskFactory,
+                                    workerCount
+                            );
+                        }
                         return new SortedLightRecordCursorFactory(
                                 configuration,
                                 orderedMetadata,
@@ -2730,21 +3304,24 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
     private RecordCursorFactory generateQuery0(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         return generateLimit(
-                generateOrderBy(
-                        generateLatestBy(
-                                generateFilter(
-                                        generateSelect(
+                generateFill(
+                        generateOrderBy(
+                                generateLatestBy(
+                                        generateFilter(
+                                                generateSelect(
+                                                        model,
+                                                        executionContext,
+                                                        processJoins
+                                                ),
                                                 model,
-                                                executionContext,
-                                                processJoins
+                                                executionContext
                                         ),
-                                        model,
-                                        executionContext
+                                        model
                                 ),
-                                model
+                                model,
+                                executionContext
                         ),
-                        model,
-                        executionContext
+                        model
                 ),
                 model,
                 executionContext
@@ -3369,6 +3946,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         ) {
             CharSequence tableName = tableNameEn.token;
             TableToken tableToken = executionContext.getTableToken(tableName);
+            scannedTableTokens.add(tableToken);
             try (TableReader reader = executionContext.getReader(tableToken)) {
                 QueryColumn queryColumn = nested.getBottomUpColumns().get(0);
                 CharSequence physicalColumnName = queryColumn.getAst().token;
@@ -3983,6 +4561,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         final ObjList<QueryColumn> columns = model.getColumns();
         final int columnCount = columns.size();
         groupedWindow.clear();
+        groupedWindowColumnIndexes.clear();
+        naturalOrderColumnIndexes.clear();
 
         valueTypes.clear();
         ArrayColumnTypes chainTypes = valueTypes;
@@ -3992,6 +4572,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         ObjList<Function> functions = new ObjList<>();
         ObjList<WindowFunction> naturalOrderFunctions = null;
         ObjList<Function> partitionByFunctions = null;
+        ObjList<ShardedWindowGroup> orderedShardedGroups = null;
+        ShardedWindowGroup unorderedShardedGroup = null;
         try {
             // if all window function don't require sorting or more than one pass then use streaming factory
             boolean isFastPath = true;
@@ -4001,7 +4583,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 if (qc.isWindowColumn()) {
                     final WindowColumn ac = (WindowColumn) qc;
                     final ExpressionNode ast = qc.getAst();
-                    if (ast.paramCount > 1) {
+                    // lag() and lead() take value, offset and default value, the rest take at most one argument
+                    if (ast.paramCount > 3) {
                         throw SqlException.$(ast.position, "too many arguments");
                     }
 
@@ -4231,125 +4814,25 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 final QueryColumn qc = columns.getQuick(i);
                 if (qc.isWindowColumn()) {
                     final WindowColumn ac = (WindowColumn) qc;
-                    final ExpressionNode ast = qc.getAst();
-                    if (ast.paramCount > 1) {
-                        throw SqlException.$(ast.position, "too many arguments");
-                    }
-
-                    partitionByFunctions = null;
-                    int psz = ac.getPartitionBy().size();
-                    if (psz > 0) {
-                        partitionByFunctions = new ObjList<>(psz);
-                        for (int j = 0; j < psz; j++) {
-                            final Function function = functionParser.parseFunction(ac.getPartitionBy().getQuick(j), chainMetadata, executionContext);
-                            partitionByFunctions.add(function);
-                            if (function instanceof GroupByFunction) {
-                                throw SqlException.$(ast.position, "aggregate functions in partition by are not supported");
-                            }
-                        }
-                    }
-
-                    final VirtualRecord partitionByRecord;
-                    final RecordSink partitionBySink;
-
-                    if (partitionByFunctions != null) {
-                        partitionByRecord = new VirtualRecord(partitionByFunctions);
-                        keyTypes.clear();
-                        final int partitionByCount = partitionByFunctions.size();
-
-                        for (int j = 0; j < partitionByCount; j++) {
-                            keyTypes.add(partitionByFunctions.getQuick(j).getType());
-                        }
-                        entityColumnFilter.of(partitionByCount);
-                        // create sink
-                        partitionBySink = RecordSinkFactory.getInstance(
-                                asm,
-                                keyTypes,
-                                entityColumnFilter,
-                                false
-                        );
-                    } else {
-                        partitionByRecord = null;
-                        partitionBySink = null;
-                    }
-
-                    final int osz = ac.getOrderBy().size();
-
-                    // analyze order by clause on the current model and optimise out
-                    // order by on window function if it matches the one on the model
-                    final LowerCaseCharSequenceIntHashMap orderHash = model.getOrderHash();
-                    boolean dismissOrder = false;
-                    int timestampIdx = base.getMetadata().getTimestampIndex();
-                    int orderByPos = osz > 0 ? ac.getOrderBy().getQuick(0).position : -1;
-
-                    if (base.followedOrderByAdvice() && osz > 0 && orderHash.size() > 0) {
-                        dismissOrder = true;
-                        for (int j = 0; j < osz; j++) {
-                            ExpressionNode node = ac.getOrderBy().getQuick(j);
-                            int direction = ac.getOrderByDirection().getQuick(j);
-                            if (!Chars.equalsIgnoreCase(node.token, orderHash.keys().get(j))
-                                    || orderHash.get(node.token) != direction) {
-                                dismissOrder = false;
-                                break;
-                            }
-                        }
-                    }
-                    if (osz == 1 && timestampIdx != -1 && orderHash.size() < 2) {
-                        ExpressionNode orderByNode = ac.getOrderBy().getQuick(0);
-                        int orderByDirection = ac.getOrderByDirection().getQuick(0);
-
-                        if (baseMetadata.getColumnIndexQuiet(orderByNode.token) == timestampIdx
-                                && ((orderByDirection == ORDER_ASC && base.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD)
-                                || (orderByDirection == ORDER_DESC && base.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_BACKWARD))) {
-                            dismissOrder = true;
-                        }
-                    }
-
-                    executionContext.configureWindowContext(
-                            partitionByRecord,
-                            partitionBySink,
-                            keyTypes,
-                            osz > 0,
-                            dismissOrder ? base.getScanDirection() : RecordCursorFactory.SCAN_DIRECTION_OTHER,
-                            orderByPos,
-                            base.recordCursorSupportsRandomAccess(),
-                            ac.getFramingMode(),
-                            ac.getRowsLo(),
-                            ac.getRowsLoKindPos(),
-                            ac.getRowsHi(),
-                            ac.getRowsHiKindPos(),
-                            ac.getExclusionKind(),
-                            ac.getExclusionKindPos(),
-                            chainMetadata.getTimestampIndex()
-                    );
-                    final Function f;
-                    try {
-                        // function needs to resolve args against chain metadata
-                        f = functionParser.parseFunction(ast, chainMetadata, executionContext);
-                        if (!(f instanceof WindowFunction)) {
-                            Misc.free(f);
-                            throw SqlException.$(ast.position, "non-window function called in window context");
-                        }
-                    } finally {
-                        executionContext.clearWindowContext();
-                    }
+                    final WindowFunction windowFunction = parseWindowFunction(model, base, ac, chainMetadata, executionContext);
 
-                    WindowFunction windowFunction = (WindowFunction) f;
-
-                    if (osz > 0 && !dismissOrder) {
+                    if (ac.getOrderBy().size() > 0 && !isWindowOrderDismissed(model, base, ac)) {
                         IntList order = toOrderIndices(chainMetadata, ac.getOrderBy(), ac.getOrderByDirection());
                         // init comparator if we need
                         windowFunction.initRecordComparator(recordComparatorCompiler, chainTypes, order);
                         ObjList<WindowFunction> funcs = groupedWindow.get(order);
                         if (funcs == null) {
                             groupedWindow.put(order, funcs = new ObjList<>());
+                            groupedWindowColumnIndexes.put(order, new IntList());
                         }
                         funcs.add(windowFunction);
+                        groupedWindowColumnIndexes.get(order).add(i);
                     } else {
                         if (naturalOrderFunctions == null) {
                             naturalOrderFunctions = new ObjList<>();
                         }
                         naturalOrderFunctions.add(windowFunction);
+                        naturalOrderColumnIndexes.add(i);
                     }
 
                     windowFunction.setColumnIndex(i);
@@ -4385,6 +4868,51 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 keys.add(e.key);
             }
 
+            // groups of functions sharing the same partition by are evaluated in parallel,
+            // each worker computes values of a subset of partitions
+            final int workerCount = executionContext.getSharedWorkerCount();
+            if (configuration.isSqlParallelWindowEnabled() && workerCount > 0) {
+                final int shardCount = Math.min(Numbers.ceilPow2(workerCount + 1), MAX_WINDOW_SHARD_COUNT);
+                for (int i = 0, n = keys.size(); i < n; i++) {
+                    final IntList order = keys.getQuick(i);
+                    final IntList windowColumnIndexes = groupedWindowColumnIndexes.get(order);
+                    if (isWindowGroupShardable(columns, windowColumnIndexes, chainMetadata)) {
+                        if (orderedShardedGroups == null) {
+                            orderedShardedGroups = new ObjList<>();
+                        }
+                        orderedShardedGroups.extendAndSet(
+                                i,
+                                generateShardedWindowGroup(
+                                        model,
+                                        base,
+                                        columns,
+                                        functionGroups.getQuick(i),
+                                        windowColumnIndexes,
+                                        order,
+                                        chainMetadata,
+                                        chainTypes,
+                                        shardCount,
+                                        executionContext
+                                )
+                        );
+                    }
+                }
+                if (naturalOrderFunctions != null && isWindowGroupShardable(columns, naturalOrderColumnIndexes, chainMetadata)) {
+                    unorderedShardedGroup = generateShardedWindowGroup(
+                            model,
+                            base,
+                            columns,
+                            naturalOrderFunctions,
+                            naturalOrderColumnIndexes,
+                            null,
+                            chainMetadata,
+                            chainTypes,
+                            shardCount,
+                            executionContext
+                    );
+                }
+            }
+
             final RecordSink recordSink = RecordSinkFactory.getInstance(
                     asm,
                     chainTypes,
@@ -4404,7 +4932,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     naturalOrderFunctions,
                     columnIndexes,
                     keys,
-                    chainMetadata
+                    chainMetadata,
+                    orderedShardedGroups,
+                    unorderedShardedGroup,
+                    workerCount
             );
         } catch (Throwable th) {
             for (ObjObjHashMap.Entry<IntList, ObjList<WindowFunction>> e : groupedWindow) {
@@ -4414,10 +4945,80 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             Misc.freeObjList(functions);
             Misc.freeObjList(naturalOrderFunctions);
             Misc.freeObjList(partitionByFunctions);
+            Misc.freeObjList(orderedShardedGroups);
+            Misc.free(unorderedShardedGroup);
             throw th;
         }
     }
 
+    private ShardedWindowGroup generateShardedWindowGroup(
+            QueryModel model,
+            RecordCursorFactory base,
+            ObjList<QueryColumn> columns,
+            ObjList<WindowFunction> functions,
+            IntList windowColumnIndexes,
+            @Nullable IntList order,
+            GenericRecordMetadata chainMetadata,
+            ArrayColumnTypes chainTypes,
+            int shardCount,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        // shard 0 runs the functions we already have, the other shards need their own copies
+        final ObjList<ObjList<WindowFunction>> shardFunctions = new ObjList<>(shardCount);
+        shardFunctions.add(functions);
+        ObjList<Function> partitionByFunctions = null;
+        final VirtualRecord partitionByRecord;
+        final RecordSink partitionBySink;
+        try {
+            for (int i = 1; i < shardCount; i++) {
+                final ObjList<WindowFunction> shard = new ObjList<>(windowColumnIndexes.size());
+                shardFunctions.add(shard);
+                for (int j = 0, n = windowColumnIndexes.size(); j < n; j++) {
+                    final int columnIndex = windowColumnIndexes.getQuick(j);
+                    final WindowFunction windowFunction = parseWindowFunction(
+                            model,
+                            base,
+                            (WindowColumn) columns.getQuick(columnIndex),
+                            chainMetadata,
+                            executionContext
+                    );
+                    shard.add(windowFunction);
+                    if (order != null) {
+                        windowFunction.initRecordComparator(recordComparatorCompiler, chainTypes, order);
+                    }
+                    windowFunction.setColumnIndex(columnIndex);
+                }
+            }
+
+            // rows are distributed between shards by the hash of their partition key
+            final ObjList<ExpressionNode> partitionBy = ((WindowColumn) columns.getQuick(windowColumnIndexes.getQuick(0))).getPartitionBy();
+            final int partitionByCount = partitionBy.size();
+            partitionByFunctions = new ObjList<>(partitionByCount);
+            keyTypes.clear();
+            for (int i = 0; i < partitionByCount; i++) {
+                final Function function = functionParser.parseFunction(partitionBy.getQuick(i), chainMetadata, executionContext);
+                partitionByFunctions.add(function);
+                keyTypes.add(function.getType());
+            }
+            entityColumnFilter.of(partitionByCount);
+            partitionBySink = RecordSinkFactory.getInstance(
+                    asm,
+                    keyTypes,
+                    entityColumnFilter,
+                    false
+            );
+            partitionByRecord = new VirtualRecord(partitionByFunctions);
+        } catch (Throwable th) {
+            for (int i = 1, n = shardFunctions.size(); i < n; i++) {
+                Misc.freeObjList(shardFunctions.getQuick(i));
+            }
+            Misc.freeObjList(partitionByFunctions);
+            throw th;
+        }
+        // the group frees function copies if it fails to allocate its memory
+        return new ShardedWindowGroup(configuration, shardFunctions, partitionByRecord, partitionBySink, keyTypes);
+    }
+
     /**
      * Generates chain of parent factories each of which takes only two argument factories.
      * Parent factory will perform one of SET operations on its arguments, such as UNION, UNION ALL,
@@ -4593,6 +5194,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
 
         final TableToken tableToken = executionContext.getTableToken(tab);
+        scannedTableTokens.add(tableToken);
         if (model.isUpdate() && !executionContext.isWalApplication() && executionContext.getCairoEngine().isWalTable(tableToken)) {
             // two phase update execution, this is client-side branch. It has to execute against the sequencer metadata
             // to allow the client to succeed even if WAL apply does not run.
@@ -5070,7 +5672,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     assert columnIndex > -1;
 
                     // this is our kind of column
-                    if (myMeta.isColumnIndexed(columnIndex)) {
+                    if (ColumnType.isSymbol(myMeta.getColumnType(columnIndex)) && myMeta.isColumnIndexed(columnIndex)) {
                         boolean orderByKeyColumn = false;
                         int indexDirection = BitmapIndexReader.DIR_FORWARD;
                         if (orderByAdviceSize == 1) {
@@ -5098,6 +5700,52 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 }
             }
 
+            if (configuration.isPartitionStatsEnabled() && intrinsicModel.filter != null) {
+                final PartitionStatsFilter partitionStatsFilter = new PartitionStatsFilter(configuration);
+                addPartitionStatsPredicates(intrinsicModel.filter, metadata, partitionStatsFilter, executionContext);
+                if (partitionStatsFilter.size() == 0) {
+                    Misc.free(partitionStatsFilter);
+                } else if (dfcFactory instanceof FullFwdDataFrameCursorFactory) {
+                    ((FullFwdDataFrameCursorFactory) dfcFactory).setPartitionStatsFilter(partitionStatsFilter);
+                } else if (dfcFactory instanceof FullBwdDataFrameCursorFactory) {
+                    ((FullBwdDataFrameCursorFactory) dfcFactory).setPartitionStatsFilter(partitionStatsFilter);
+                } else {
+                    Misc.free(partitionStatsFilter);
+                }
+            }
+
+            if (intrinsicModel.filter != null) {
+                // hash index keys are shared by many values, so rows of the keys are re-checked by the filter
+                final IntList hashIndexKeys = new IntList();
+                final int hashIndexColumnIndex = addHashIndexKeys(intrinsicModel.filter, metadata, hashIndexKeys, executionContext);
+                if (hashIndexColumnIndex != -1 && (hashIndexKeys.size() == 1 || !orderDescendingByDesignatedTimestampOnly)) {
+                    final Function filter = compileFilter(intrinsicModel, myMeta, executionContext);
+                    if (filter.isConstant()) {
+                        // let the generic path deal with constant filters
+                        Misc.free(filter);
+                    } else {
+                        return new DataFrameRecordCursorFactory(
+                                configuration,
+                                myMeta,
+                                dfcFactory,
+                                new HashIndexRowCursorFactory(
+                                        hashIndexColumnIndex,
+                                        hashIndexKeys,
+                                        filter,
+                                        orderDescendingByDesignatedTimestampOnly ? BitmapIndexReader.DIR_BACKWARD : BitmapIndexReader.DIR_FORWARD,
+                                        columnIndexes
+                                ),
+                                false,
+                                filter,
+                                false,
+                                columnIndexes,
+                                columnSizes,
+                                supportsRandomAccess
+                        );
+                    }
+                }
+            }
+
             RowCursorFactory rowFactory;
             if (orderDescendingByDesignatedTimestampOnly) {
                 rowFactory = new BwdDataFrameRowCursorFactory();
@@ -5156,7 +5804,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         // listColumnFilterA = latest by column indexes
         if (latestByColumnCount == 1) {
             int latestByColumnIndex = listColumnFilterA.getColumnIndexFactored(0);
-            if (myMeta.isColumnIndexed(latestByColumnIndex)) {
+            if (ColumnType.isSymbol(myMeta.getColumnType(latestByColumnIndex)) && myMeta.isColumnIndexed(latestByColumnIndex)) {
                 return new LatestByAllIndexedRecordCursorFactory(
                         myMeta,
                         configuration,
@@ -5370,6 +6018,19 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 getOrderByDirectionOrDefault(model, 0) == ORDER_DIRECTION_DESCENDING;
     }
 
+    private boolean isParallelAsOfJoinSupported(
+            RecordCursorFactory master,
+            RecordCursorFactory slave,
+            SqlExecutionContext executionContext
+    ) {
+        return configuration.isSqlParallelAsOfJoinEnabled()
+                && executionContext.getSharedWorkerCount() > 0
+                && master.supportsPageFrameCursor()
+                && master.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                && slave.supportsPageFrameCursor()
+                && slave.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD;
+    }
+
     private void lookupColumnIndexes(
             ListColumnFilter filter,
             ObjList<ExpressionNode> columnNames,
@@ -5406,6 +6067,97 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    // parses window function against chain metadata, the function owns its partition by functions
+    private WindowFunction parseWindowFunction(
+            QueryModel model,
+            RecordCursorFactory base,
+            WindowColumn ac,
+            GenericRecordMetadata chainMetadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final ExpressionNode ast = ac.getAst();
+        // lag() and lead() take value, offset and default value, the rest take at most one argument
+        if (ast.paramCount > 3) {
+            throw SqlException.$(ast.position, "too many arguments");
+        }
+
+        ObjList<Function> partitionByFunctions = null;
+        try {
+            int psz = ac.getPartitionBy().size();
+            if (psz > 0) {
+                partitionByFunctions = new ObjList<>(psz);
+                for (int j = 0; j < psz; j++) {
+                    final Function function = functionParser.parseFunction(ac.getPartitionBy().getQuick(j), chainMetadata, executionContext);
+                    partitionByFunctions.add(function);
+                    if (function instanceof GroupByFunction) {
+                        throw SqlException.$(ast.position, "aggregate functions in partition by are not supported");
+                    }
+                }
+            }
+
+            final VirtualRecord partitionByRecord;
+            final RecordSink partitionBySink;
+
+            if (partitionByFunctions != null) {
+                partitionByRecord = new VirtualRecord(partitionByFunctions);
+                keyTypes.clear();
+                final int partitionByCount = partitionByFunctions.size();
+
+                for (int j = 0; j < partitionByCount; j++) {
+                    keyTypes.add(partitionByFunctions.getQuick(j).getType());
+                }
+                entityColumnFilter.of(partitionByCount);
+                // create sink
+                partitionBySink = RecordSinkFactory.getInstance(
+                        asm,
+                        keyTypes,
+                        entityColumnFilter,
+                        false
+                );
+            } else {
+                partitionByRecord = null;
+                partitionBySink = null;
+            }
+
+            final int osz = ac.getOrderBy().size();
+            final boolean dismissOrder = isWindowOrderDismissed(model, base, ac);
+            int orderByPos = osz > 0 ? ac.getOrderBy().getQuick(0).position : -1;
+
+            executionContext.configureWindowContext(
+                    partitionByRecord,
+                    partitionBySink,
+                    keyTypes,
+                    osz > 0,
+                    dismissOrder ? base.getScanDirection() : RecordCursorFactory.SCAN_DIRECTION_OTHER,
+                    orderByPos,
+                    base.recordCursorSupportsRandomAccess(),
+                    ac.getFramingMode(),
+                    ac.getRowsLo(),
+                    ac.getRowsLoKindPos(),
+                    ac.getRowsHi(),
+                    ac.getRowsHiKindPos(),
+                    ac.getExclusionKind(),
+                    ac.getExclusionKindPos(),
+                    chainMetadata.getTimestampIndex()
+            );
+            final Function f;
+            try {
+                // function needs to resolve args against chain metadata
+                f = functionParser.parseFunction(ast, chainMetadata, executionContext);
+                if (!(f instanceof WindowFunction)) {
+                    Misc.free(f);
+                    throw SqlException.$(ast.position, "non-window function called in window context");
+                }
+            } finally {
+                executionContext.clearWindowContext();
+            }
+            return (WindowFunction) f;
+        } catch (Throwable th) {
+            Misc.freeObjList(partitionByFunctions);
+            throw th;
+        }
+    }
+
     private int prepareLatestByColumnIndexes(ObjList<ExpressionNode> latestBy, RecordMetadata myMeta) throws SqlException {
         keyTypes.clear();
         listColumnFilterA.clear();
@@ -5531,6 +6283,48 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    /**
+     * Drops top-level conjuncts of the filter that can't be compiled by JIT.
+     *
+     * @return filter made of the remaining conjuncts or null if none of them can be compiled.
+     */
+    private @Nullable ExpressionNode pruneNonJitConjuncts(
+            ExpressionNode node,
+            RecordCursorFactory factory,
+            PageFrameCursor cursor,
+            SqlExecutionContext executionContext
+    ) {
+        if (node.type == OPERATION && node.paramCount == 2 && isAndKeyword(node.token)) {
+            final ExpressionNode lhs = pruneNonJitConjuncts(node.lhs, factory, cursor, executionContext);
+            final ExpressionNode rhs = pruneNonJitConjuncts(node.rhs, factory, cursor, executionContext);
+            if (lhs == null) {
+                return rhs;
+            }
+            if (rhs == null) {
+                return lhs;
+            }
+            if (lhs == node.lhs && rhs == node.rhs) {
+                return node;
+            }
+            final ExpressionNode and = expressionNodePool.next().of(OPERATION, node.token, node.precedence, node.position);
+            and.paramCount = 2;
+            and.lhs = lhs;
+            and.rhs = rhs;
+            return and;
+        }
+
+        try {
+            jitIRSerializer.of(jitIRMem, executionContext, factory.getMetadata(), cursor, new ObjList<>());
+            jitIRSerializer.serialize(node, false, false, false);
+            return node;
+        } catch (SqlException e) {
+            return null;
+        } finally {
+            jitIRSerializer.clear();
+            jitIRMem.truncate();
+        }
+    }
+
     private void restoreWhereClause(ExpressionNode node) {
         processNodeQueryModels(node, RESTORE_WHERE_CLAUSE);
     }
@@ -29,6 +29,8 @@ import io.questdb.PropServerConfiguration;
 import io.questdb.TelemetryOrigin;
 import io.questdb.TelemetrySystemEvent;
 import io.questdb.cairo.*;
+import io.questdb.cairo.mv.MatViewDefinition;
+import io.questdb.cairo.parquet.ParquetWriter;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.Vm;
@@ -36,6 +38,8 @@ import io.questdb.cairo.vm.api.MemoryMARW;
 import io.questdb.cairo.wal.WalUtils;
 import io.questdb.cairo.wal.WalWriterMetadata;
 import io.questdb.griffin.engine.QueryProgress;
+import io.questdb.griffin.engine.cache.QueryResultCacheRecordCursorFactory;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
 import io.questdb.griffin.engine.ops.*;
 import io.questdb.griffin.model.*;
 import io.questdb.log.Log;
@@ -548,7 +552,7 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         final SecurityContext securityContext = executionContext.getSecurityContext();
 
         try (TableRecordMetadata tableMetadata = executionContext.getMetadataForWrite(tableToken)) {
-            final String expectedTokenDescription = "'add', 'alter', 'attach', 'detach', 'drop', 'resume', 'rename', 'set' or 'squash'";
+            final String expectedTokenDescription = "'add', 'alter', 'attach', 'convert', 'detach', 'drop', 'resume', 'rename', 'set' or 'squash'";
             tok = expectToken(lexer, expectedTokenDescription);
 
             if (SqlKeywords.isAddKeyword(tok)) {
@@ -579,6 +583,28 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
                 } else {
                     throw SqlException.$(lexer.lastTokenPosition(), "'partition' expected");
                 }
+            } else if (SqlKeywords.isConvertKeyword(tok)) {
+                tok = expectToken(lexer, "'partition'");
+                if (SqlKeywords.isPartitionKeyword(tok)) {
+                    tok = expectToken(lexer, "'to'");
+                    if (!SqlKeywords.isToKeyword(tok)) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'to' expected");
+                    }
+                    tok = expectToken(lexer, "'compressed' or 'native'");
+                    final int action;
+                    if (SqlKeywords.isCompressedKeyword(tok)) {
+                        action = PartitionAction.COMPRESS;
+                    } else if (SqlKeywords.isNativeKeyword(tok)) {
+                        action = PartitionAction.DECOMPRESS;
+                    } else {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'compressed' or 'native' expected");
+                    }
+                    // conversion rewrites partition files, same as squash
+                    securityContext.authorizeAlterTableDropPartition(tableToken);
+                    alterTableDropDetachOrAttachPartition(tableMetadata, tableToken, action, executionContext);
+                } else {
+                    throw SqlException.$(lexer.lastTokenPosition(), "'partition' expected");
+                }
             } else if (SqlKeywords.isDetachKeyword(tok)) {
                 tok = expectToken(lexer, "'partition'");
                 if (SqlKeywords.isPartitionKeyword(tok)) {
@@ -904,8 +930,8 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         }
 
         final int type = metadata.getColumnType(columnIndex);
-        if (!ColumnType.isSymbol(type)) {
-            throw SqlException.position(columnNamePosition).put("indexes are only supported for symbol type [column=").put(columnName).put(", type=").put(ColumnType.nameOf(type)).put(']');
+        if (!ColumnType.isIndexable(type)) {
+            throw SqlException.position(columnNamePosition).put("indexes are only supported for symbol, int and long types [column=").put(columnName).put(", type=").put(ColumnType.nameOf(type)).put(']');
         }
 
         if (indexValueBlockSize == -1) {
@@ -966,8 +992,8 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         }
 
         final int type = metadata.getColumnType(columnIndex);
-        if (!ColumnType.isSymbol(type)) {
-            throw SqlException.position(columnNamePosition).put("indexes are only supported for symbol type [column=").put(columnName).put(", type=").put(ColumnType.nameOf(type)).put(']');
+        if (!ColumnType.isIndexable(type)) {
+            throw SqlException.position(columnNamePosition).put("indexes are only supported for symbol, int and long types [column=").put(columnName).put(", type=").put(ColumnType.nameOf(type)).put(']');
         }
 
         alterOperationBuilder.ofDropIndex(tableNamePosition, tableToken, metadata.getTableId(), columnName, columnNamePosition);
@@ -1118,8 +1144,14 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
                     case PartitionAction.DETACH:
                         alterOperationBuilder = this.alterOperationBuilder.ofDetachPartition(pos, tableToken, tableMetadata.getTableId());
                         break;
+                    case PartitionAction.COMPRESS:
+                        alterOperationBuilder = this.alterOperationBuilder.ofCompressPartition(pos, tableToken, tableMetadata.getTableId());
+                        break;
+                    case PartitionAction.DECOMPRESS:
+                        alterOperationBuilder = this.alterOperationBuilder.ofDecompressPartition(pos, tableToken, tableMetadata.getTableId());
+                        break;
                     default:
-                        throw SqlException.$(pos, "WHERE clause can only be used with command DROP PARTITION, or DETACH PARTITION");
+                        throw SqlException.$(pos, "WHERE clause can only be used with command DROP PARTITION, DETACH PARTITION or CONVERT PARTITION");
                 }
 
                 final int functionPosition = lexer.getPosition();
@@ -1180,6 +1212,12 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
                 // attach
                 alterOperationBuilder = this.alterOperationBuilder.ofAttachPartition(pos, tableToken, tableMetadata.getTableId());
                 break;
+            case PartitionAction.COMPRESS:
+                alterOperationBuilder = this.alterOperationBuilder.ofCompressPartition(pos, tableToken, tableMetadata.getTableId());
+                break;
+            case PartitionAction.DECOMPRESS:
+                alterOperationBuilder = this.alterOperationBuilder.ofDecompressPartition(pos, tableToken, tableMetadata.getTableId());
+                break;
             default:
                 alterOperationBuilder = null;
                 assert false;
@@ -1450,6 +1488,29 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         );
     }
 
+    private RecordCursorFactory compileCopyExport(SqlExecutionContext executionContext, CopyModel model) throws SqlException {
+        assert model.isExport();
+
+        final ExpressionNode target = model.getTarget();
+        final TableToken tableToken = tableExistsOrFail(target.position, GenericLexer.unquote(target.token), executionContext);
+        final ExpressionNode fileNameNode = model.getFileName();
+        final CharSequence fileName = GenericLexer.assertNoDots(GenericLexer.unquote(fileNameNode.token), fileNameNode.position);
+
+        try (TableMetadata metadata = engine.getTableMetadata(tableToken)) {
+            final ObjList<CharSequence> columnNames = new ObjList<>();
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                columnNames.add(metadata.getColumnName(i));
+            }
+            executionContext.getSecurityContext().authorizeSelect(tableToken, columnNames);
+            try {
+                ParquetWriter.validate(metadata);
+            } catch (CairoException e) {
+                throw SqlException.$(target.position, e.getFlyweightMessage());
+            }
+        }
+        return new CopyExportFactory(tableToken, Chars.toString(fileName));
+    }
+
     private void compileDeallocate(SqlExecutionContext executionContext) throws SqlException {
         CharSequence statementName = GenericLexer.unquote(expectToken(lexer, "statement name"));
         CharSequence tok = SqlUtil.fetchNext(lexer);
@@ -1576,7 +1637,7 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
                 case ExecutionModel.QUERY:
                     QueryModel queryModel = (QueryModel) executionModel;
                     RecordCursorFactory factory = generateWithRetries(queryModel, executionContext);
-                    compiledQuery.of(factory);
+                    compiledQuery.of(withResultCache(factory));
                     break;
                 case ExecutionModel.CREATE_TABLE:
                     sqlId = queryRegistry.register(sqlText, executionContext);
@@ -1661,14 +1722,20 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
     }
 
     private void copy(SqlExecutionContext executionContext, CopyModel copyModel) throws SqlException {
-        if (!copyModel.isCancel() && Chars.equalsLowerCaseAscii(copyModel.getFileName().token, "stdin")) {
-            // no-op implementation
-            authorizeInsertForCopy(executionContext.getSecurityContext(), copyModel);
-            compiledQuery.ofCopyRemote();
+        if (!copyModel.isCancel() && !copyModel.isExport() && SqlKeywords.isStdinKeyword(copyModel.getFileName().token)) {
+            // rows are streamed by the client, the caller (PG wire) drives the COPY sub-protocol
+            final CharSequence tableName = authorizeInsertForCopy(executionContext.getSecurityContext(), copyModel);
+            final TableToken tableToken = engine.getTableTokenIfExists(tableName);
+            if (tableToken == null) {
+                throw SqlException.tableDoesNotExist(copyModel.getTarget().position, tableName);
+            }
+            compiledQuery.ofCopyRemote(tableToken, copyModel);
         } else {
             final RecordCursorFactory copyFactory;
             if (copyModel.isCancel()) {
                 copyFactory = compileCopyCancel(executionContext, copyModel);
+            } else if (copyModel.isExport()) {
+                copyFactory = compileCopyExport(executionContext, copyModel);
             } else {
                 copyFactory = compileCopy(executionContext.getSecurityContext(), copyModel);
             }
@@ -2020,7 +2087,15 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
                     throw SqlException.$(name.position, "Could not create table, ").put(e.getFlyweightMessage());
                 }
             } else {
+                final MatViewDefinition matViewDefinition = createTableModel.getMatViewDefinition();
+                if (matViewDefinition != null) {
+                    validateMatViewBaseTable(createTableModel, matViewDefinition, executionContext);
+                }
                 tableToken = createTableFromCursorExecutor(createTableModel, executionContext, volumeAlias, name.position);
+                if (matViewDefinition != null) {
+                    matViewDefinition.setViewToken(tableToken);
+                    engine.getMatViewGraph().createView(matViewDefinition);
+                }
             }
 
             if (createTableModel.getQueryModel() == null) {
@@ -2892,6 +2967,31 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         model.setQueryModel(queryModel);
     }
 
+    private void validateMatViewBaseTable(
+            CreateTableModel model,
+            MatViewDefinition definition,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final TableToken baseTableToken = executionContext.getTableTokenIfExists(definition.getBaseTableName());
+        if (baseTableToken == null) {
+            throw SqlException.tableDoesNotExist(0, definition.getBaseTableName());
+        }
+        if (!baseTableToken.isWal()) {
+            throw SqlException.position(0).put("materialized view base table must be a WAL table [table=").put(definition.getBaseTableName()).put(']');
+        }
+        TimestampSamplerFactory.getInstance(definition.getSamplingInterval(), 0);
+        if (model.getPartitionBy() == PartitionBy.NONE) {
+            int partitionBy;
+            try (TableReader reader = executionContext.getReader(baseTableToken)) {
+                partitionBy = reader.getPartitionedBy();
+            }
+            if (!PartitionBy.isPartitioned(partitionBy)) {
+                partitionBy = PartitionBy.DAY;
+            }
+            model.setPartitionBy(ExpressionNode.FACTORY.newInstance().of(ExpressionNode.LITERAL, PartitionBy.toString(partitionBy), 0, 0));
+        }
+    }
+
     private void validateTableModelAndCreateTypeCast(
             @Transient CreateTableModel model,
             @Transient RecordMetadata metadata,
@@ -2915,8 +3015,8 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
             int to = ccm.getColumnType();
             if (isCompatibleCase(from, to)) {
                 int modelColumnIndex = model.getColumnIndex(columnName);
-                if (!ColumnType.isSymbol(to) && model.isIndexed(modelColumnIndex)) {
-                    throw SqlException.$(ccm.getColumnTypePos(), "indexes are supported only for SYMBOL columns: ").put(columnName);
+                if (!ColumnType.isIndexable(to) && model.isIndexed(modelColumnIndex)) {
+                    throw SqlException.$(ccm.getColumnTypePos(), "indexes are supported only for SYMBOL, INT and LONG columns: ").put(columnName);
                 }
                 typeCast.put(index, to);
             } else {
@@ -2924,7 +3024,7 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
             }
         }
 
-        // validate that all indexes are specified only on columns with symbol type
+        // validate that all indexes are specified only on columns with indexable type
         for (int i = 0, n = model.getColumnCount(); i < n; i++) {
             CharSequence columnName = model.getColumnName(i);
             ColumnCastModel ccm = castModels.get(columnName);
@@ -2934,8 +3034,8 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
             }
             int index = metadata.getColumnIndexQuiet(columnName);
             assert index > -1 : "wtf? " + columnName;
-            if (!ColumnType.isSymbol(metadata.getColumnType(index)) && model.isIndexed(i)) {
-                throw SqlException.$(0, "indexes are supported only for SYMBOL columns: ").put(columnName);
+            if (!ColumnType.isIndexable(metadata.getColumnType(index)) && model.isIndexed(i)) {
+                throw SqlException.$(0, "indexes are supported only for SYMBOL, INT and LONG columns: ").put(columnName);
             }
         }
 
@@ -2946,11 +3046,49 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
             throw SqlException.position(timestamp.position).put("TIMESTAMP column expected [actual=").put(ColumnType.nameOf(metadata.getColumnType(timestamp.token))).put(']');
         }
 
+        if (model.getMatViewDefinition() != null) {
+            final int timestampIndex = metadata.getTimestampIndex();
+            if (timestampIndex == -1 || !model.isDedupKey(timestampIndex)) {
+                throw SqlException.position(0).put("materialized view query must select the designated timestamp");
+            }
+            for (int i = 0, n = model.getColumnCount(); i < n; i++) {
+                if (model.isDedupKey(i) && ColumnType.isVarSize(metadata.getColumnType(i))) {
+                    throw SqlException.position(0).put("materialized view key column can only be fixed size column [column=").put(model.getColumnName(i))
+                            .put(", type=").put(ColumnType.nameOf(metadata.getColumnType(i))).put(']');
+                }
+            }
+        }
+
         if (PartitionBy.isPartitioned(model.getPartitionBy()) && model.getTimestampIndex() == -1 && metadata.getTimestampIndex() == -1) {
             throw SqlException.position(0).put("timestamp is not defined");
         }
     }
 
+    /**
+     * Serves results of the query from the engine's result cache, when the cache is enabled and the
+     * query reads tables using deterministic functions only.
+     */
+    private RecordCursorFactory withResultCache(RecordCursorFactory factory) {
+        final ObjList<TableToken> tableTokens = codeGenerator.getScannedTableTokens();
+        if (
+                !engine.getQueryResultCache().isEnabled()
+                        || sqlText == null // cleared by recompilation
+                        || tableTokens.size() == 0
+                        || functionParser.hasNonDeterministicFunctions()
+        ) {
+            return factory;
+        }
+        try {
+            final RecordMetadata metadata = factory.getMetadata();
+            entityColumnFilter.of(metadata.getColumnCount());
+            final RecordSink recordSink = RecordSinkFactory.getInstance(asm, metadata, entityColumnFilter, false);
+            return new QueryResultCacheRecordCursorFactory(engine, factory, recordSink, Chars.toString(sqlText), tableTokens);
+        } catch (Throwable th) {
+            Misc.free(factory);
+            throw th;
+        }
+    }
+
     protected static CharSequence expectToken(GenericLexer lexer, CharSequence expected) throws SqlException {
         CharSequence tok = SqlUtil.fetchNext(lexer);
         if (tok == null) {
@@ -3141,6 +3279,8 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
 
     public final static class PartitionAction {
         public static final int ATTACH = 2;
+        public static final int COMPRESS = 4;
+        public static final int DECOMPRESS = 5;
         public static final int DETACH = 3;
         public static final int DROP = 1;
     }
@@ -2346,6 +2346,40 @@ public class SqlOptimiser implements Mutable {
         }
     }
 
+    // SAMPLE BY FILL can be executed as group-by followed by a fill pass when the select clause
+    // consists of key columns and plain aggregates only; otherwise, the "order by" clause
+    // would not stay on the model that produces aggregate values.
+    private boolean isSampleByFillRewritable(QueryModel model, QueryModel nested, ObjList<ExpressionNode> sampleByFill) {
+        if (!configuration.isSqlParallelSampleByFillEnabled() || !configuration.isSqlParallelGroupByEnabled()) {
+            return false;
+        }
+
+        if (nested.getOrderBy().size() > 0 || nested.getLimitLo() != null || nested.getLimitHi() != null) {
+            return false;
+        }
+
+        boolean linear = false;
+        for (int i = 0, n = sampleByFill.size(); i < n; i++) {
+            linear |= SqlKeywords.isLinearKeyword(sampleByFill.getQuick(i).token);
+        }
+
+        for (int i = 0, n = model.getBottomUpColumns().size(); i < n; i++) {
+            final ExpressionNode ast = model.getBottomUpColumns().getQuick(i).getAst();
+            if (ast.type == LITERAL) {
+                if (ast.isWildcard()) {
+                    return false;
+                }
+            } else if (ast.type != FUNCTION || !functionParser.getFunctionFactoryCache().isGroupBy(ast.token)) {
+                return false;
+            } else if (linear && Chars.equalsIgnoreCase(ast.token, "haversine_dist_deg")) {
+                // interpolates the values of the buckets next to the gap, not only the gap,
+                // which needs the raw rows rather than the aggregated ones
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean isSimpleIntegerColumn(ExpressionNode column, QueryModel model) {
         return checkSimpleIntegerColumn(column, model) != null;
     }
@@ -2656,6 +2690,7 @@ public class SqlOptimiser implements Mutable {
                             || nested.getLimitHi() != null
                             || nested.getUnionModel() != null
                             || (nested.getSampleBy() != null && !canPushToSampleBy(nested, literalCollectorANames))
+                            || nested.getFillStride() != null
                     ) {
                         // there is no nested model for this table, keep where clause element with this model
                         addWhereNode(parent, node);
@@ -3037,6 +3072,11 @@ public class SqlOptimiser implements Mutable {
             topLevelOrderByMnemonic = OrderByMnemonic.ORDER_BY_REQUIRED;
         }
 
+        // sample by fill is applied to the group-by output ordered by timestamp
+        if (model.getFillStride() != null) {
+            topLevelOrderByMnemonic = OrderByMnemonic.ORDER_BY_REQUIRED;
+        }
+
         // determine if ordering is required
         switch (topLevelOrderByMnemonic) {
             case OrderByMnemonic.ORDER_BY_UNKNOWN:
@@ -4271,6 +4311,7 @@ public class SqlOptimiser implements Mutable {
 
             if (base != model && base != limitModel) {
                 base.clearOrderBy();
+                limitModel.moveFillFrom(base);
             }
         }
 
@@ -4440,12 +4481,13 @@ public class SqlOptimiser implements Mutable {
             ExpressionNode sampleByTimezoneName = nested.getSampleByTimezoneName();
             ExpressionNode sampleByUnit = nested.getSampleByUnit();
             ExpressionNode timestamp = nested.getTimestamp();
+            final boolean fill = sampleByFill.size() > 0 && !(sampleByFill.size() == 1 && SqlKeywords.isNoneKeyword(sampleByFill.getQuick(0).token));
 
             if (
                     sampleBy != null
                             && timestamp != null
                             && (sampleByOffset != null && SqlKeywords.isZeroOffset(sampleByOffset.token) && (sampleByTimezoneName == null || SqlKeywords.isUTC(sampleByTimezoneName.token)))
-                            && (sampleByFill.size() == 0 || (sampleByFill.size() == 1 && SqlKeywords.isNoneKeyword(sampleByFill.getQuick(0).token)))
+                            && (!fill || isSampleByFillRewritable(model, nested, sampleByFill))
                             && sampleByUnit == null
             ) {
                 // Validate that the model does not have wildcard column names.
@@ -4624,6 +4666,19 @@ public class SqlOptimiser implements Mutable {
                     nested.setTimestamp(nextLiteral(timestamp.token));
                 }
 
+                if (fill) {
+                    // group-by does not produce empty buckets, so they are filled
+                    // in a cheap pass over the ordered group-by output
+                    nested.setFill(sampleBy, timestampAlias);
+                    nested.getFillValues().addAll(sampleByFill);
+                    for (int i = 0, n = model.getBottomUpColumns().size(); i < n; i++) {
+                        final QueryColumn qc = model.getBottomUpColumns().getQuick(i);
+                        if (qc.getAst().type == FUNCTION && i != timestampPos) {
+                            nested.getFillValueColumns().add(qc.getAlias());
+                        }
+                    }
+                }
+
                 // clear sample by
                 nested.setSampleBy(null);
                 nested.setSampleByOffset(null);
@@ -28,6 +28,7 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.mv.MatViewDefinition;
 import io.questdb.cutlass.text.Atomicity;
 import io.questdb.griffin.model.*;
 import io.questdb.std.*;
@@ -195,6 +196,12 @@ public class SqlParser {
     }
 
     //prevent full/right from being used as table aliases
+    private void checkCopyEnabled(int position) throws SqlException {
+        if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
+            throw SqlException.$(position, "COPY is disabled ['cairo.sql.copy.root' is not set?]");
+        }
+    }
+
     private void checkSupportedJoinType(GenericLexer lexer, CharSequence tok) throws SqlException {
         if (tok != null && (SqlKeywords.isFullKeyword(tok) || SqlKeywords.isRightKeyword(tok))) {
             throw SqlException.$((lexer.lastTokenPosition()), "unsupported join type");
@@ -442,13 +449,12 @@ public class SqlParser {
     }
 
     private ExecutionModel parseCopy(GenericLexer lexer, SqlParserCallback sqlParserCallback) throws SqlException {
-        if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
-            throw SqlException.$(lexer.lastTokenPosition(), "COPY is disabled ['cairo.sql.copy.root' is not set?]");
-        }
+        final int copyPosition = lexer.lastTokenPosition();
         ExpressionNode target = expectExpr(lexer, sqlParserCallback);
         CharSequence tok = tok(lexer, "'from' or 'to' or 'cancel'");
 
         if (isCancelKeyword(tok)) {
+            checkCopyEnabled(copyPosition);
             CopyModel model = copyModelPool.next();
             model.setCancel(true);
             model.setTarget(target);
@@ -465,6 +471,13 @@ public class SqlParser {
             model.setTarget(target);
             model.setFileName(fileName);
 
+            if (isStdinKeyword(fileName.token)) {
+                // data is streamed by the client over PG wire, no file system access is involved
+                parseCopyStdinOptions(lexer, model);
+                return model;
+            }
+            checkCopyEnabled(copyPosition);
+
             tok = optTok(lexer);
             if (tok != null && isWithKeyword(tok)) {
                 tok = tok(lexer, "copy option");
@@ -528,7 +541,213 @@ public class SqlParser {
             }
             return model;
         }
-        throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
+
+        if (isToKeyword(tok)) {
+            checkCopyEnabled(copyPosition);
+            final ExpressionNode fileName = expectExpr(lexer, sqlParserCallback);
+            if (fileName.token.length() < 3 && Chars.startsWith(fileName.token, '\'')) {
+                throw SqlException.$(fileName.position, "file name expected");
+            }
+
+            CopyModel model = copyModelPool.next();
+            model.setExport(true);
+            model.setTarget(target);
+            model.setFileName(fileName);
+
+            tok = optTok(lexer);
+            if (tok != null && !SqlKeywords.isSemicolon(tok)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "unexpected token [").put(tok).put(']');
+            }
+            return model;
+        }
+        throw SqlException.$(lexer.lastTokenPosition(), "'from' or 'to' expected");
+    }
+
+    // Parses PostgreSQL-style options of COPY FROM STDIN, both the parenthesized
+    // WITH (FORMAT csv, HEADER true, DELIMITER ',') and the legacy WITH CSV HEADER form.
+    private void parseCopyStdinOptions(GenericLexer lexer, CopyModel model) throws SqlException {
+        CharSequence tok = optTok(lexer);
+        if (tok != null && isWithKeyword(tok)) {
+            tok = optTok(lexer);
+        }
+        while (tok != null && !isSemicolon(tok)) {
+            if (Chars.equals(tok, '(') || Chars.equals(tok, ')') || Chars.equals(tok, ',')) {
+                tok = optTok(lexer);
+            } else if (isFormatKeyword(tok)) {
+                tok = tok(lexer, "'text', 'csv' or 'binary'");
+                model.setFormat(parseCopyFormat(lexer, tok));
+                tok = optTok(lexer);
+            } else if (isTextKeyword(tok) || isCsvKeyword(tok) || isBinaryKeyword(tok)) {
+                model.setFormat(parseCopyFormat(lexer, tok));
+                tok = optTok(lexer);
+            } else if (isHeaderKeyword(tok)) {
+                tok = optTok(lexer);
+                if (tok != null && (isTrueKeyword(tok) || isFalseKeyword(tok))) {
+                    model.setHeader(isTrueKeyword(tok));
+                    tok = optTok(lexer);
+                } else {
+                    model.setHeader(true);
+                }
+            } else if (isDelimiterKeyword(tok)) {
+                tok = tok(lexer, "delimiter character expected");
+                CharSequence delimiter = GenericLexer.unquote(tok);
+                if (delimiter.length() != 1 || delimiter.charAt(0) > 127) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "delimiter must be a single ascii character");
+                }
+                model.setDelimiter((byte) delimiter.charAt(0));
+                tok = optTok(lexer);
+            } else {
+                throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
+            }
+        }
+    }
+
+    private int parseCopyFormat(GenericLexer lexer, CharSequence tok) throws SqlException {
+        if (isTextKeyword(tok)) {
+            return CopyModel.COPY_FORMAT_TEXT;
+        }
+        if (isCsvKeyword(tok)) {
+            return CopyModel.COPY_FORMAT_CSV;
+        }
+        if (isBinaryKeyword(tok)) {
+            return CopyModel.COPY_FORMAT_BINARY;
+        }
+        throw SqlException.$(lexer.lastTokenPosition(), "'text', 'csv' or 'binary' expected");
+    }
+
+    private ExecutionModel parseCreateMatView(
+            GenericLexer lexer,
+            CreateTableModel model,
+            SqlExecutionContext executionContext,
+            SqlParserCallback sqlParserCallback
+    ) throws SqlException {
+        expectTok(lexer, "view");
+        if (!configuration.isWalSupported()) {
+            throw SqlException.$(lexer.lastTokenPosition(), "materialized views require WAL support");
+        }
+        CharSequence tok = tok(lexer, "view name or 'if'");
+        if (SqlKeywords.isIfKeyword(tok)) {
+            if (SqlKeywords.isNotKeyword(tok(lexer, "'not'")) && SqlKeywords.isExistsKeyword(tok(lexer, "'exists'"))) {
+                model.setIgnoreIfExists(true);
+                tok = tok(lexer, "view name");
+            } else {
+                throw SqlException.$(lexer.lastTokenPosition(), "'if not exists' expected");
+            }
+        }
+        assertTableNameIsQuotedOrNotAKeyword(tok, lexer.lastTokenPosition());
+        model.setName(nextLiteral(GenericLexer.assertNoDotsAndSlashes(GenericLexer.unquote(tok), lexer.lastTokenPosition()), lexer.lastTokenPosition()));
+
+        expectTok(lexer, "as");
+        expectTok(lexer, '(');
+        final int queryLo = lexer.getPosition();
+        final QueryModel queryModel = parseDml(lexer, null, queryLo, true, sqlParserCallback);
+
+        // The view query must be a plain SAMPLE BY over a single table, so that
+        // the refresh job could restrict it to a designated timestamp range.
+        final QueryModel fromModel = queryModel.getNestedModel();
+        if (
+                fromModel == null
+                        || queryModel.getUnionModel() != null
+                        || queryModel.getLimitLo() != null
+                        || queryModel.getLimitHi() != null
+                        || fromModel.getTableNameExpr() == null
+                        || fromModel.getTableNameExpr().type != ExpressionNode.LITERAL
+                        || fromModel.getJoinModels().size() > 1
+        ) {
+            throw SqlException.$(queryLo, "materialized view query must select from a single table");
+        }
+        final ExpressionNode sampleBy = fromModel.getSampleBy();
+        if (sampleBy == null) {
+            throw SqlException.$(queryLo, "materialized view query must use SAMPLE BY");
+        }
+        if (fromModel.getSampleByUnit() != null) {
+            throw SqlException.$(sampleBy.position, "materialized view requires a constant sampling interval");
+        }
+        if (fromModel.getSampleByFill().size() > 0) {
+            throw SqlException.$(sampleBy.position, "FILL is not supported in materialized views");
+        }
+        if (
+                fromModel.getSampleByTimezoneName() != null
+                        || fromModel.getSampleByOffset() == null
+                        || !Chars.equals(fromModel.getSampleByOffset().token, ZERO_OFFSET.token)
+        ) {
+            throw SqlException.$(sampleBy.position, "materialized view requires ALIGN TO CALENDAR without time zone and offset");
+        }
+
+        // literal columns are group keys, they make the dedup key of the view table along with the timestamp
+        final ObjList<QueryColumn> rawColumns = queryModel.getBottomUpColumns();
+        final ObjList<CharSequence> keyColumnNames = new ObjList<>();
+        for (int i = 0, n = rawColumns.size(); i < n; i++) {
+            final QueryColumn column = rawColumns.getQuick(i);
+            final ExpressionNode ast = column.getAst();
+            if (ast.isWildcard()) {
+                throw SqlException.$(ast.position, "'*' is not supported in materialized views");
+            }
+            if (ast.type == ExpressionNode.LITERAL) {
+                keyColumnNames.add(Chars.toString(column.getAlias()));
+            }
+        }
+
+        final ExpressionNode tableNameExpr = fromModel.getTableNameExpr();
+        final String baseTableName = Chars.toString(GenericLexer.unquote(tableNameExpr.token));
+        final String samplingInterval = Chars.toString(sampleBy.token);
+        final boolean baseTableAliased = fromModel.getAlias() != null;
+
+        final QueryModel optimisedModel = optimiser.optimise(queryModel, executionContext, sqlParserCallback);
+        final ObjList<QueryColumn> columns = optimisedModel.getBottomUpColumns();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            model.addColumn(columns.getQuick(i).getName(), -1, configuration.getDefaultSymbolCapacity());
+        }
+        for (int i = 0, n = keyColumnNames.size(); i < n; i++) {
+            final int columnIndex = model.getColumnIndex(keyColumnNames.getQuick(i));
+            if (columnIndex > -1) {
+                model.setDedupKeyFlag(columnIndex);
+            }
+        }
+        model.setQueryModel(optimisedModel);
+        expectTok(lexer, ')');
+
+        final CharSequence content = lexer.getContent();
+        final int queryHi = lexer.lastTokenPosition();
+        final int tableNameLo = tableNameExpr.position;
+        int tableNameHi = tableNameLo;
+        final char c = content.charAt(tableNameLo);
+        if (c == '"' || c == '\'') {
+            tableNameHi = Chars.indexOf(content, tableNameLo + 1, queryHi, c) + 1;
+        } else {
+            while (tableNameHi < queryHi && !Character.isWhitespace(content.charAt(tableNameHi)) && content.charAt(tableNameHi) != ')') {
+                tableNameHi++;
+            }
+        }
+        model.setMatViewDefinition(
+                new MatViewDefinition(
+                        baseTableName,
+                        Chars.toString(content, queryLo, queryHi),
+                        tableNameLo - queryLo,
+                        tableNameHi - queryLo,
+                        baseTableAliased,
+                        samplingInterval
+                )
+        );
+
+        tok = optTok(lexer);
+        final ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
+        if (partitionBy != null) {
+            if (!PartitionBy.isPartitioned(PartitionBy.fromString(partitionBy.token))) {
+                throw SqlException.$(partitionBy.position, "'HOUR', 'DAY', 'MONTH' or 'YEAR' expected");
+            }
+            model.setPartitionBy(partitionBy);
+            tok = optTok(lexer);
+        }
+        if (tok != null && !Chars.equals(tok, ';')) {
+            throw errUnexpected(lexer, tok);
+        }
+
+        model.setWalEnabled(true);
+        model.setBatchSize(-1);
+        model.setMaxUncommittedRows(configuration.getMaxUncommittedRows());
+        model.setO3MaxLag(configuration.getO3MaxLag());
+        return model;
     }
 
     private ExecutionModel parseCreateTable(
@@ -540,6 +759,9 @@ public class SqlParser {
         final CharSequence tableName;
         // default to non-atomic, batched, creation
         CharSequence tok = tok(lexer, "'atomic' or 'table' or 'batch'");
+        if (SqlKeywords.isMaterializedKeyword(tok)) {
+            return parseCreateMatView(lexer, model, executionContext, sqlParserCallback);
+        }
         model.setBatchSize(configuration.getInsertModelBatchSize());
         boolean atomicSpecified = false;
         boolean batchSpecified = false;
@@ -947,8 +1169,8 @@ public class SqlParser {
         final int position = lexer.lastTokenPosition();
         final int columnIndex = getCreateTableColumnIndex(model, columnName, position);
         final int columnType = model.getColumnType(columnIndex);
-        if (columnType > -1 && !ColumnType.isSymbol(columnType)) {
-            throw SqlException.$(position, "indexes are supported only for SYMBOL columns: ").put(columnName);
+        if (columnType > -1 && !ColumnType.isIndexable(columnType)) {
+            throw SqlException.$(position, "indexes are supported only for SYMBOL, INT and LONG columns: ").put(columnName);
         }
 
         if (isCapacityKeyword(tok(lexer, "'capacity'"))) {
@@ -242,6 +242,11 @@ public final class WhereClauseParser implements Mutable {
                 || (colCount == keyCount && colReader.getSymbolCapacity() > keyReader.getSymbolCapacity());
     }
 
+    // INT and LONG indexes hash values, so only symbol indexes can serve as key columns
+    private static boolean isSymbolIndexed(RecordMetadata meta, int idx) {
+        return ColumnType.isSymbol(meta.getColumnType(idx)) && meta.isColumnIndexed(idx);
+    }
+
     private static boolean isTypeMismatch(int typeA, int typeB) {
         return (typeA == ExpressionNode.BIND_VARIABLE) != (typeB == ExpressionNode.BIND_VARIABLE);
     }
@@ -1575,7 +1580,7 @@ public final class WhereClauseParser implements Mutable {
         return !latestByMultiColumn &&
                 (Chars.equalsIgnoreCaseNc(columnName, preferredKeyColumn)
                         ||
-                        (preferredKeyColumn == null && m.isColumnIndexed(m.getColumnIndex(columnName))));
+                        (preferredKeyColumn == null && isSymbolIndexed(m, m.getColumnIndex(columnName))));
     }
 
     private Function createKeyValueBindVariable(
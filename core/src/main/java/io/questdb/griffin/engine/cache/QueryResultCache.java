@@ -0,0 +1,155 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.cache;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.QuietCloseable;
+
+/**
+ * Engine-wide cache of materialized SELECT results, bounded by the total number
+ * of bytes held by the entries and evicting least recently used entries first.
+ * <p>
+ * Entries are checked out exclusively: {@link #poll(CharSequence)} removes the entry
+ * from the cache and the caller puts it back once it is done reading the rows. Other
+ * executions of the same query miss the cache in the meantime and run the query.
+ */
+public class QueryResultCache implements Mutable, QuietCloseable {
+    private final CairoConfiguration configuration;
+    private final CharSequenceObjHashMap<QueryResultCacheEntry> entries = new CharSequenceObjHashMap<>();
+    private final QueryResultCacheMetrics metrics;
+    private boolean closed;
+    private QueryResultCacheEntry newest;
+    private QueryResultCacheEntry oldest;
+    private long size;
+
+    public QueryResultCache(CairoConfiguration configuration, QueryResultCacheMetrics metrics) {
+        this.configuration = configuration;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public synchronized void clear() {
+        while (oldest != null) {
+            Misc.free(unlink(oldest));
+        }
+        entries.clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        clear();
+    }
+
+    public boolean isEnabled() {
+        return configuration.getSqlResultCacheCapacity() > 0;
+    }
+
+    /**
+     * Removes the entry stored under the key from the cache and returns it, or returns
+     * null when there is no such entry. The caller owns the entry, it must either put it
+     * back or free it.
+     */
+    public synchronized QueryResultCacheEntry poll(CharSequence key) {
+        final int index = entries.keyIndex(key);
+        if (index > -1) {
+            return null;
+        }
+        final QueryResultCacheEntry entry = entries.valueAt(index);
+        entries.removeAt(index);
+        return unlink(entry);
+    }
+
+    /**
+     * Stores the entry as the most recently used one and evicts the least recently used
+     * entries until the cache fits its capacity. The cache takes ownership of the entry.
+     */
+    public void put(QueryResultCacheEntry entry) {
+        final long capacity = configuration.getSqlResultCacheCapacity();
+        if (capacity == 0 || entry.getSize() > capacity) {
+            Misc.free(entry);
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                // factories may outlive the engine
+                Misc.free(entry);
+                return;
+            }
+            final int index = entries.keyIndex(entry.getKey());
+            if (index < 0) {
+                // the query was run again while the entry was checked out; keep the fresher result
+                final QueryResultCacheEntry other = entries.valueAt(index);
+                entries.removeAt(index);
+                Misc.free(unlink(other));
+            }
+            entries.put(entry.getKey(), entry);
+            link(entry);
+            while (size > capacity) {
+                entries.remove(oldest.getKey());
+                Misc.free(unlink(oldest));
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void link(QueryResultCacheEntry entry) {
+        entry.older = newest;
+        entry.newer = null;
+        if (newest != null) {
+            newest.newer = entry;
+        } else {
+            oldest = entry;
+        }
+        newest = entry;
+        size += entry.getSize();
+        metrics.memoryGauge().setValue(size);
+    }
+
+    private QueryResultCacheEntry unlink(QueryResultCacheEntry entry) {
+        if (entry.newer != null) {
+            entry.newer.older = entry.older;
+        } else {
+            newest = entry.older;
+        }
+        if (entry.older != null) {
+            entry.older.newer = entry.newer;
+        } else {
+            oldest = entry.newer;
+        }
+        entry.newer = null;
+        entry.older = null;
+        size -= entry.getSize();
+        metrics.memoryGauge().setValue(size);
+        return entry;
+    }
+}
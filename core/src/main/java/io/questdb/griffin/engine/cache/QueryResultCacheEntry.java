@@ -0,0 +1,142 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.cache;
+
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+
+/**
+ * Materialized result of a query together with the transaction and data version
+ * of every table the query read. The rows are kept in a {@link RecordChain} with
+ * symbols as keys, their values are copied to the entry's own symbol tables, so that
+ * the entry does not depend on table readers.
+ */
+public class QueryResultCacheEntry implements QuietCloseable, SymbolTableSource {
+    private final String key;
+    // null for non-symbol columns
+    private final ObjList<QueryResultCacheSymbolTable> symbolTables;
+    private final LongList tableVersions = new LongList();
+    // LRU list links, guarded by QueryResultCache's lock
+    QueryResultCacheEntry newer;
+    QueryResultCacheEntry older;
+    private RecordChain chain;
+    private long rowCount;
+
+    public QueryResultCacheEntry(
+            String key,
+            RecordChain chain,
+            ObjList<QueryResultCacheSymbolTable> symbolTables,
+            LongList tableVersions
+    ) {
+        this.key = key;
+        this.chain = chain;
+        this.symbolTables = symbolTables;
+        this.tableVersions.add(tableVersions);
+        chain.setSymbolTableResolver(this);
+    }
+
+    /**
+     * Creates a marker of a result that exceeded the maximum entry size. The marker
+     * holds no rows, it saves executions of the same query from copying the rows again
+     * until the queried tables change.
+     */
+    public QueryResultCacheEntry(String key, LongList tableVersions) {
+        this.key = key;
+        this.symbolTables = null;
+        this.tableVersions.add(tableVersions);
+    }
+
+    @Override
+    public void close() {
+        chain = Misc.free(chain);
+    }
+
+    public RecordChain getChain() {
+        return chain;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Approximate number of bytes held by the entry, the key is included so that
+     * empty results are accounted for too.
+     */
+    public long getSize() {
+        long size = 2L * key.length();
+        if (chain == null) {
+            return size;
+        }
+        size += chain.getUsedHeapSize();
+        for (int i = 0, n = symbolTables.size(); i < n; i++) {
+            final QueryResultCacheSymbolTable symbolTable = symbolTables.getQuick(i);
+            if (symbolTable != null) {
+                size += symbolTable.getSize();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return symbolTables.getQuick(columnIndex);
+    }
+
+    /**
+     * Returns true for markers of results that were too large to be cached.
+     */
+    public boolean isOversized() {
+        return chain == null;
+    }
+
+    /**
+     * Checks the entry against the current versions of the queried tables. Versions are
+     * pairs of transaction and data version, one pair per table.
+     */
+    public boolean isValid(LongList tableVersions) {
+        return this.tableVersions.equals(tableVersions);
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        // immutable, safe to share
+        return symbolTables.getQuick(columnIndex);
+    }
+
+    public void setRowCount(long rowCount) {
+        this.rowCount = rowCount;
+    }
+}
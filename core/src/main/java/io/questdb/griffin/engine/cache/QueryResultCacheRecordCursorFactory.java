@@ -0,0 +1,501 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.cache;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.BindVariableService;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.TableReferenceOutOfDateException;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Chars;
+import io.questdb.std.IntList;
+import io.questdb.std.Long256;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8Sequence;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Serves results of a SELECT from {@link QueryResultCache}. The cache key is the query
+ * text followed by the values of bind variables; an entry is reused only while the
+ * transaction and data version of every queried table match those the result was
+ * produced at, so any commit to these tables invalidates it.
+ * <p>
+ * On a miss the rows of the base cursor are returned to the caller and copied to a new
+ * entry on the way; the entry is cached once the caller reaches the end of the result.
+ * Should the result exceed the maximum entry size, the copy is dropped and a marker is
+ * cached instead, so that the following executions do not copy the rows again while
+ * the queried tables stay the same.
+ */
+public class QueryResultCacheRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final long CHAIN_PAGE_SIZE = 64 * 1024;
+    private final RecordCursorFactory base;
+    private final QueryResultCache cache;
+    private final CairoConfiguration configuration;
+    private final QueryResultCacheRecordCursor cursor = new QueryResultCacheRecordCursor();
+    private final CairoEngine engine;
+    private final StringSink keySink = new StringSink();
+    private final QueryResultCacheMetrics metrics;
+    private final RecordSink recordSink;
+    private final RecordingCursor recordingCursor = new RecordingCursor();
+    private final String sql;
+    private final IntList symbolColumns = new IntList();
+    private final ObjList<TableToken> tableTokens = new ObjList<>();
+    private final LongList tableVersions = new LongList();
+
+    public QueryResultCacheRecordCursorFactory(
+            CairoEngine engine,
+            RecordCursorFactory base,
+            RecordSink recordSink,
+            String sql,
+            ObjList<TableToken> tableTokens
+    ) {
+        super(base.getMetadata());
+        this.engine = engine;
+        this.configuration = engine.getConfiguration();
+        this.cache = engine.getQueryResultCache();
+        this.metrics = engine.getMetrics().queryResultCache();
+        this.base = base;
+        this.recordSink = recordSink;
+        this.sql = sql;
+        for (int i = 0, n = tableTokens.size(); i < n; i++) {
+            final TableToken tableToken = tableTokens.getQuick(i);
+            if (tableTokens.indexOf(tableToken) == i) {
+                this.tableTokens.add(tableToken);
+            }
+        }
+        // the record sink copies symbol keys, values are copied to the entry's symbol tables
+        final RecordMetadata metadata = base.getMetadata();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (ColumnType.isSymbol(metadata.getColumnType(i))) {
+                symbolColumns.add(i);
+            }
+        }
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return base.followedOrderByAdvice();
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        if (!cache.isEnabled() || !buildKey(executionContext.getBindVariableService()) || !readTableVersions()) {
+            return base.getCursor(executionContext);
+        }
+
+        QueryResultCacheEntry entry = cache.poll(keySink);
+        if (entry != null) {
+            if (entry.isValid(tableVersions)) {
+                if (entry.isOversized()) {
+                    cache.put(entry);
+                    metrics.missCounter().inc();
+                    return base.getCursor(executionContext);
+                }
+                metrics.hitCounter().inc();
+                cursor.of(entry);
+                return cursor;
+            }
+            Misc.free(entry);
+        }
+        metrics.missCounter().inc();
+
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            recordingCursor.of(baseCursor, newEntry());
+        } catch (Throwable th) {
+            baseCursor.close();
+            throw th;
+        }
+        return recordingCursor;
+    }
+
+    @Override
+    public int getScanDirection() {
+        return base.getScanDirection();
+    }
+
+    @Override
+    public boolean implementsLimit() {
+        return base.implementsLimit();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return base.recordCursorSupportsRandomAccess();
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        base.toPlan(sink);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    public boolean usesIndex() {
+        return base.usesIndex();
+    }
+
+    private boolean buildKey(@Nullable BindVariableService bindVariableService) {
+        keySink.clear();
+        keySink.put(sql);
+        if (bindVariableService == null) {
+            // e.g. HTTP export, the query has no bind variables
+            return true;
+        }
+        for (int i = 0, n = bindVariableService.getIndexedVariableCount(); i < n; i++) {
+            if (!putBindVariableValue(bindVariableService.getFunction(i))) {
+                return false;
+            }
+        }
+        final ObjList<CharSequence> names = bindVariableService.getNamedVariables();
+        for (int i = 0, n = names.size(); i < n; i++) {
+            final CharSequence name = names.getQuick(i);
+            keySink.put('\0').put(name);
+            if (!putBindVariableValue(bindVariableService.getFunction(name))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private QueryResultCacheEntry newEntry() {
+        final RecordMetadata metadata = getMetadata();
+        final ObjList<QueryResultCacheSymbolTable> symbolTables = new ObjList<>();
+        symbolTables.setPos(metadata.getColumnCount());
+        for (int i = 0, n = symbolColumns.size(); i < n; i++) {
+            symbolTables.setQuick(symbolColumns.getQuick(i), new QueryResultCacheSymbolTable());
+        }
+        final RecordChain chain = new RecordChain(metadata, recordSink, CHAIN_PAGE_SIZE, Integer.MAX_VALUE);
+        return new QueryResultCacheEntry(Chars.toString(keySink), chain, symbolTables, tableVersions);
+    }
+
+    private boolean putBindVariableValue(Function function) {
+        if (function == null) {
+            return false;
+        }
+        final int type = function.getType();
+        keySink.put('\0').put(type).put(':');
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BOOLEAN:
+                keySink.put(function.getBool(null));
+                break;
+            case ColumnType.BYTE:
+                keySink.put(function.getByte(null));
+                break;
+            case ColumnType.GEOBYTE:
+                keySink.put(function.getGeoByte(null));
+                break;
+            case ColumnType.SHORT:
+                keySink.put(function.getShort(null));
+                break;
+            case ColumnType.GEOSHORT:
+                keySink.put(function.getGeoShort(null));
+                break;
+            case ColumnType.CHAR:
+                keySink.put(function.getChar(null));
+                break;
+            case ColumnType.INT:
+                keySink.put(function.getInt(null));
+                break;
+            case ColumnType.IPv4:
+                keySink.put(function.getIPv4(null));
+                break;
+            case ColumnType.GEOINT:
+                keySink.put(function.getGeoInt(null));
+                break;
+            case ColumnType.FLOAT:
+                keySink.put(Float.floatToRawIntBits(function.getFloat(null)));
+                break;
+            case ColumnType.LONG:
+                keySink.put(function.getLong(null));
+                break;
+            case ColumnType.GEOLONG:
+                keySink.put(function.getGeoLong(null));
+                break;
+            case ColumnType.DATE:
+                keySink.put(function.getDate(null));
+                break;
+            case ColumnType.TIMESTAMP:
+                keySink.put(function.getTimestamp(null));
+                break;
+            case ColumnType.DOUBLE:
+                keySink.put(Double.doubleToRawLongBits(function.getDouble(null)));
+                break;
+            case ColumnType.STRING:
+                final CharSequence str = function.getStrA(null);
+                if (str == null) {
+                    keySink.put(-1);
+                } else {
+                    // length prefix keeps values that contain the separator apart
+                    keySink.put(str.length()).put(':').put(str);
+                }
+                break;
+            case ColumnType.VARCHAR:
+                final Utf8Sequence varchar = function.getVarcharA(null);
+                if (varchar == null) {
+                    keySink.put(-1);
+                } else {
+                    keySink.put(varchar.size()).put(':').put(varchar);
+                }
+                break;
+            case ColumnType.UUID:
+                keySink.put(function.getLong128Lo(null)).put(':').put(function.getLong128Hi(null));
+                break;
+            case ColumnType.LONG256:
+                final Long256 long256 = function.getLong256A(null);
+                keySink.put(long256.getLong0()).put(':').put(long256.getLong1())
+                        .put(':').put(long256.getLong2()).put(':').put(long256.getLong3());
+                break;
+            default:
+                return false;
+        }
+        return true;
+    }
+
+    private boolean readTableVersions() {
+        tableVersions.clear();
+        for (int i = 0, n = tableTokens.size(); i < n; i++) {
+            try (TableReader reader = engine.getReader(tableTokens.getQuick(i))) {
+                tableVersions.add(reader.getTxn(), reader.getDataVersion());
+            } catch (CairoException | TableReferenceOutOfDateException e) {
+                // the table is gone or renamed, let the query report that
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(cursor);
+        Misc.free(recordingCursor);
+        Misc.free(base);
+    }
+
+    private class QueryResultCacheRecordCursor implements RecordCursor {
+        private RecordChain chain;
+        private QueryResultCacheEntry entry;
+
+        @Override
+        public void calculateSize(SqlExecutionCircuitBreaker circuitBreaker, Counter counter) {
+            chain.calculateSize(circuitBreaker, counter);
+        }
+
+        @Override
+        public void close() {
+            if (entry != null) {
+                cache.put(entry);
+                entry = null;
+                chain = null;
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return chain.getRecord();
+        }
+
+        @Override
+        public Record getRecordB() {
+            return chain.getRecordB();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return entry.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return chain.hasNext();
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return entry.newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            chain.recordAt(record, atRowId);
+        }
+
+        @Override
+        public long size() {
+            return entry.getRowCount();
+        }
+
+        @Override
+        public void toTop() {
+            chain.toTop();
+        }
+
+        void of(QueryResultCacheEntry entry) {
+            this.entry = entry;
+            this.chain = entry.getChain();
+            chain.toTop();
+        }
+    }
+
+    /**
+     * Returns rows of the base cursor and copies them to the entry as they go by. The copy
+     * is abandoned when the cursor is rewound or closed before the end of the result.
+     */
+    private class RecordingCursor implements RecordCursor {
+        private RecordCursor baseCursor;
+        private boolean complete;
+        private QueryResultCacheEntry entry;
+        private long offset;
+        private Record record;
+        private long rowCount;
+        private long symbolSize;
+
+        @Override
+        public void close() {
+            if (entry != null) {
+                if (complete) {
+                    entry.setRowCount(rowCount);
+                    cache.put(entry);
+                    entry = null;
+                } else {
+                    entry = Misc.free(entry);
+                }
+            }
+            baseCursor = Misc.free(baseCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return baseCursor.getRecordB();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!baseCursor.hasNext()) {
+                complete = entry != null;
+                return false;
+            }
+            if (entry != null && !complete) {
+                copyRecord();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isUsingIndex() {
+            return baseCursor.isUsingIndex();
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return baseCursor.newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            baseCursor.recordAt(record, atRowId);
+        }
+
+        @Override
+        public long size() {
+            return baseCursor.size();
+        }
+
+        @Override
+        public void toTop() {
+            if (!complete) {
+                entry = Misc.free(entry);
+            }
+            baseCursor.toTop();
+        }
+
+        private void copyRecord() {
+            final RecordChain chain = entry.getChain();
+            offset = chain.put(record, offset);
+            for (int i = 0, n = symbolColumns.size(); i < n; i++) {
+                final int columnIndex = symbolColumns.getQuick(i);
+                final QueryResultCacheSymbolTable symbolTable = (QueryResultCacheSymbolTable) entry.getSymbolTable(columnIndex);
+                symbolSize -= symbolTable.getSize();
+                symbolTable.add(record.getInt(columnIndex), record.getSymA(columnIndex));
+                symbolSize += symbolTable.getSize();
+            }
+            rowCount++;
+            if (chain.getUsedHeapSize() + symbolSize > configuration.getSqlResultCacheMaxEntrySize()) {
+                // too large to be cached, remember that until the tables change
+                cache.put(new QueryResultCacheEntry(entry.getKey(), tableVersions));
+                entry = Misc.free(entry);
+            }
+        }
+
+        void of(RecordCursor baseCursor, QueryResultCacheEntry entry) {
+            this.baseCursor = baseCursor;
+            this.entry = entry;
+            this.record = baseCursor.getRecord();
+            complete = false;
+            offset = -1;
+            rowCount = 0;
+            symbolSize = 0;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.cache;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.IntObjHashMap;
+
+/**
+ * Copy of the symbol values a cached result refers to, keyed by the symbol keys of
+ * the base cursor. Only keys present in the result are kept, so the table stays
+ * proportional to the result rather than to the table's symbol count.
+ * <p>
+ * The table is immutable once the entry is materialized, so it can be shared by threads.
+ */
+public class QueryResultCacheSymbolTable implements SymbolTable {
+    private final IntObjHashMap<String> values = new IntObjHashMap<>();
+    private long size;
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public CharSequence valueBOf(int key) {
+        return valueOf(key);
+    }
+
+    @Override
+    public CharSequence valueOf(int key) {
+        return key < 0 ? null : values.get(key);
+    }
+
+    void add(int key, CharSequence value) {
+        if (key < 0) {
+            return;
+        }
+        final int index = values.keyIndex(key);
+        if (index > -1) {
+            final String str = value != null ? value.toString() : null;
+            values.putAt(index, key, str);
+            size += Integer.BYTES + (str != null ? 2L * str.length() : 0);
+        }
+    }
+}
@@ -38,6 +38,7 @@ import io.questdb.griffin.engine.functions.MultiArgFunction;
 import io.questdb.griffin.engine.functions.UnaryFunction;
 import io.questdb.griffin.engine.functions.constants.BooleanConstant;
 import io.questdb.std.IntList;
+import io.questdb.std.LongHashSet;
 import io.questdb.std.ObjList;
 import io.questdb.std.Utf8SequenceHashSet;
 import io.questdb.std.str.Utf8Sequence;
@@ -128,11 +129,21 @@ public class InVarcharFunctionFactory implements FunctionFactory {
 
     private static class ConstFunc extends BooleanFunction implements UnaryFunction {
         private final Function arg;
+        // zero-padded 6-byte prefixes of the set values; varchar columns keep
+        // the prefix in the aux vector, so most mismatches don't touch the data vector
+        private final LongHashSet prefixes = new LongHashSet();
         private final Utf8SequenceHashSet set;
 
         public ConstFunc(Function arg, Utf8SequenceHashSet set) {
             this.arg = arg;
             this.set = set;
+            final ObjList<Utf8Sequence> values = set.getList();
+            for (int i = 0, n = values.size(); i < n; i++) {
+                final Utf8Sequence value = values.getQuick(i);
+                if (value != null) {
+                    prefixes.add(value.zeroPaddedSixPrefix());
+                }
+            }
         }
 
         @Override
@@ -143,6 +154,9 @@ public class InVarcharFunctionFactory implements FunctionFactory {
         @Override
         public boolean getBool(Record rec) {
             final Utf8Sequence val = arg.getVarcharA(rec);
+            if (val != null && !prefixes.contains(val.zeroPaddedSixPrefix())) {
+                return false;
+            }
             return set.contains(val);
         }
 
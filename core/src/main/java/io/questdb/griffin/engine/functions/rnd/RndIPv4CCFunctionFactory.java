@@ -42,6 +42,11 @@ public class RndIPv4CCFunctionFactory implements FunctionFactory {
         return "rnd_ipv4(ii)";
     }
 
+    @Override
+    public boolean isNonDeterministic() {
+        return true;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) throws SqlException {
         CharSequence subnetStr = args.getQuick(0).getStrA(null);
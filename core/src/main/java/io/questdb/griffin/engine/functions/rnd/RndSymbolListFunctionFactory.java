@@ -44,6 +44,11 @@ public class RndSymbolListFunctionFactory implements FunctionFactory {
         return "rnd_symbol(V)";
     }
 
+    @Override
+    public boolean isNonDeterministic() {
+        return true;
+    }
+
     @Override
     public Function newInstance(
             int position,
@@ -41,6 +41,11 @@ public class RndUuidFunctionFactory implements FunctionFactory {
         return "rnd_uuid4()";
     }
 
+    @Override
+    public boolean isNonDeterministic() {
+        return true;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
         return new RndFunction();
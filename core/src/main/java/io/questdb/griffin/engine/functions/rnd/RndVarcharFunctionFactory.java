@@ -45,6 +45,11 @@ public class RndVarcharFunctionFactory implements FunctionFactory {
         return "rnd_varchar(iii)";
     }
 
+    @Override
+    public boolean isNonDeterministic() {
+        return true;
+    }
+
     @Override
     public Function newInstance(
             int position,
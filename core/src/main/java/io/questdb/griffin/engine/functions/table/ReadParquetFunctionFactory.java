@@ -0,0 +1,97 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.parquet.ParquetReader;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.CursorFunction;
+import io.questdb.griffin.engine.table.ReadParquetRecordCursorFactory;
+import io.questdb.std.Chars;
+import io.questdb.std.GenericLexer;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.Path;
+
+/**
+ * Reads a Parquet file located in the {@code cairo.sql.copy.root} directory, e.g.
+ * {@code select * from read_parquet('trades.parquet') where price > 10}.
+ */
+public class ReadParquetFunctionFactory implements FunctionFactory {
+    @Override
+    public String getSignature() {
+        return "read_parquet(s)";
+    }
+
+    @Override
+    public boolean isCursor() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        final CharSequence root = configuration.getSqlCopyInputRoot();
+        if (Chars.isBlank(root)) {
+            throw SqlException.$(position, "read_parquet() is disabled ['cairo.sql.copy.root' is not set?]");
+        }
+        final int fileNamePosition = argPositions.getQuick(0);
+        final CharSequence fileName = args.getQuick(0).getStrA(null);
+        if (Chars.isBlank(fileName)) {
+            throw SqlException.$(fileNamePosition, "file name expected");
+        }
+        GenericLexer.assertNoDots(fileName, fileNamePosition);
+
+        final GenericRecordMetadata metadata = new GenericRecordMetadata();
+        try (
+                Path path = new Path();
+                ParquetReader reader = new ParquetReader(configuration.getFilesFacade())
+        ) {
+            reader.of(path.of(root).concat(fileName).$());
+            for (int i = 0, n = reader.getColumnCount(); i < n; i++) {
+                final String columnName = reader.getColumnName(i);
+                if (metadata.getColumnIndexQuiet(columnName) > -1) {
+                    throw SqlException.$(fileNamePosition, "duplicate column name in parquet file [name=").put(columnName).put(']');
+                }
+                metadata.add(new TableColumnMetadata(columnName, reader.getColumnType(i)));
+            }
+        } catch (CairoException e) {
+            throw SqlException.$(fileNamePosition, e.getFlyweightMessage());
+        }
+        return new CursorFunction(new ReadParquetRecordCursorFactory(configuration, fileName, metadata));
+    }
+}
@@ -0,0 +1,1328 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.window;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryARW;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.window.WindowContext;
+import io.questdb.griffin.engine.window.WindowFunction;
+import io.questdb.griffin.model.WindowColumn;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+public class CountDoubleWindowFunctionFactory implements FunctionFactory {
+
+    public static final ArrayColumnTypes COUNT_COLUMN_TYPES;
+    public static final ArrayColumnTypes COUNT_OVER_PARTITION_RANGE_COLUMN_TYPES;
+    public static final ArrayColumnTypes COUNT_OVER_PARTITION_ROWS_COLUMN_TYPES;
+    private static final String NAME = "count";
+    private static final String SIGNATURE = NAME + "(D)";
+
+    @Override
+    public String getSignature() {
+        return SIGNATURE;
+    }
+
+    @Override
+    public boolean isWindow() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        return newInstance(position, args.get(0), configuration, sqlExecutionContext);
+    }
+
+    // counts rows with non-null arg value or all rows if arg is null
+    private static boolean isCounted(@Nullable Function arg, Record record) {
+        return arg == null || Numbers.isFinite(arg.getDouble(record));
+    }
+
+    static Function newInstance(
+            int position,
+            @Nullable Function arg,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        final WindowContext windowContext = sqlExecutionContext.getWindowContext();
+        if (windowContext.isEmpty()) {
+            throw SqlException.emptyWindowContext(position);
+        }
+
+        long rowsLo = windowContext.getRowsLo();
+        long rowsHi = windowContext.getRowsHi();
+
+        if (!windowContext.isDefaultFrame()) {
+            if (rowsLo > 0) {
+                throw SqlException.$(windowContext.getRowsLoKindPos(), "frame start supports UNBOUNDED PRECEDING, _number_ PRECEDING and CURRENT ROW only");
+            }
+            if (rowsHi > 0) {
+                if (rowsHi != Long.MAX_VALUE) {
+                    throw SqlException.$(windowContext.getRowsHiKindPos(), "frame end supports _number_ PRECEDING and CURRENT ROW only");
+                } else if (rowsLo != Long.MIN_VALUE) {
+                    throw SqlException.$(windowContext.getRowsHiKindPos(), "frame end supports UNBOUNDED FOLLOWING only when frame start is UNBOUNDED PRECEDING");
+                }
+            }
+        }
+
+        int exclusionKind = windowContext.getExclusionKind();
+        int exclusionKindPos = windowContext.getExclusionKindPos();
+        if (exclusionKind != WindowColumn.EXCLUDE_NO_OTHERS
+                && exclusionKind != WindowColumn.EXCLUDE_CURRENT_ROW) {
+            throw SqlException.$(exclusionKindPos, "only EXCLUDE NO OTHERS and EXCLUDE CURRENT ROW exclusion modes are supported");
+        }
+
+        if (exclusionKind == WindowColumn.EXCLUDE_CURRENT_ROW) {
+            // assumes frame doesn't use 'following'
+            if (rowsHi == Long.MAX_VALUE) {
+                throw SqlException.$(exclusionKindPos, "EXCLUDE CURRENT ROW not supported with UNBOUNDED FOLLOWING frame boundary");
+            }
+
+            if (rowsHi == 0) {
+                rowsHi = -1;
+            }
+            if (rowsHi < rowsLo) {
+                throw SqlException.$(exclusionKindPos, "end of window is higher than start of window due to exclusion mode");
+            }
+        }
+
+        int framingMode = windowContext.getFramingMode();
+        if (framingMode == WindowColumn.FRAMING_GROUPS) {
+            throw SqlException.$(position, "function not implemented for given window parameters");
+        }
+
+        RecordSink partitionBySink = windowContext.getPartitionBySink();
+        ColumnTypes partitionByKeyTypes = windowContext.getPartitionByKeyTypes();
+        VirtualRecord partitionByRecord = windowContext.getPartitionByRecord();
+
+        if (partitionByRecord != null) {
+            if (framingMode == WindowColumn.FRAMING_RANGE) {
+                // count over whole partition (no order by, default frame) or (order by, unbounded preceding to unbounded following)
+                if (windowContext.isDefaultFrame() && (!windowContext.isOrdered() || windowContext.getRowsHi() == Long.MAX_VALUE)) {
+                    Map map = MapFactory.createOrderedMap(
+                            configuration,
+                            partitionByKeyTypes,
+                            COUNT_COLUMN_TYPES
+                    );
+
+                    return new CountOverPartitionFunction(
+                            map,
+                            partitionByRecord,
+                            partitionBySink,
+                            arg
+                    );
+                } // between unbounded preceding and current row
+                else if (rowsLo == Long.MIN_VALUE && rowsHi == 0) {
+                    Map map = MapFactory.createOrderedMap(
+                            configuration,
+                            partitionByKeyTypes,
+                            COUNT_COLUMN_TYPES
+                    );
+
+                    // same as for rows because calculation stops at current rows even if there are 'equal' following rows
+                    return new CountOverUnboundedPartitionRowsFrameFunction(
+                            map,
+                            partitionByRecord,
+                            partitionBySink,
+                            arg
+                    );
+                } // range between [unbounded | x] preceding and [x preceding | current row], except unbounded preceding to current row
+                else {
+                    if (windowContext.isOrdered() && !windowContext.isOrderedByDesignatedTimestamp()) {
+                        throw SqlException.$(windowContext.getOrderByPos(), "RANGE is supported only for queries ordered by designated timestamp");
+                    }
+
+                    int timestampIndex = windowContext.getTimestampIndex();
+
+                    Map map = null;
+                    MemoryARW mem = null;
+                    try {
+                        map = MapFactory.createOrderedMap(
+                                configuration,
+                                partitionByKeyTypes,
+                                COUNT_OVER_PARTITION_RANGE_COLUMN_TYPES
+                        );
+                        mem = Vm.getARWInstance(
+                                configuration.getSqlWindowStorePageSize(),
+                                configuration.getSqlWindowStoreMaxPages(),
+                                MemoryTag.NATIVE_CIRCULAR_BUFFER
+                        );
+
+                        // moving count over range between timestamp - rowsLo and timestamp + rowsHi (inclusive)
+                        return new CountOverPartitionRangeFrameFunction(
+                                map,
+                                partitionByRecord,
+                                partitionBySink,
+                                rowsLo,
+                                rowsHi,
+                                arg,
+                                mem,
+                                configuration.getSqlWindowInitialRangeBufferSize(),
+                                timestampIndex
+                        );
+                    } catch (Throwable th) {
+                        Misc.free(map);
+                        Misc.free(mem);
+                        throw th;
+                    }
+                }
+            } else if (framingMode == WindowColumn.FRAMING_ROWS) {
+                // between unbounded preceding and current row
+                if (rowsLo == Long.MIN_VALUE && rowsHi == 0) {
+                    Map map = MapFactory.createOrderedMap(
+                            configuration,
+                            partitionByKeyTypes,
+                            COUNT_COLUMN_TYPES
+                    );
+
+                    return new CountOverUnboundedPartitionRowsFrameFunction(
+                            map,
+                            partitionByRecord,
+                            partitionBySink,
+                            arg
+                    );
+                } // between current row and current row
+                else if (rowsLo == 0 && rowsLo == rowsHi) {
+                    return new CountOverCurrentRowFunction(arg);
+                } // whole partition
+                else if (rowsLo == Long.MIN_VALUE && rowsHi == Long.MAX_VALUE) {
+                    Map map = MapFactory.createOrderedMap(
+                            configuration,
+                            partitionByKeyTypes,
+                            COUNT_COLUMN_TYPES
+                    );
+
+                    return new CountOverPartitionFunction(
+                            map,
+                            partitionByRecord,
+                            partitionBySink,
+                            arg
+                    );
+                } // between [unbounded | x] preceding and [x preceding | current row]
+                else {
+                    Map map = null;
+                    MemoryARW mem = null;
+                    try {
+                        map = MapFactory.createOrderedMap(
+                                configuration,
+                                partitionByKeyTypes,
+                                COUNT_OVER_PARTITION_ROWS_COLUMN_TYPES
+                        );
+                        mem = Vm.getARWInstance(
+                                configuration.getSqlWindowStorePageSize(),
+                                configuration.getSqlWindowStoreMaxPages(),
+                                MemoryTag.NATIVE_CIRCULAR_BUFFER
+                        );
+
+                        // moving count over preceding N rows
+                        return new CountOverPartitionRowsFrameFunction(
+                                map,
+                                partitionByRecord,
+                                partitionBySink,
+                                rowsLo,
+                                rowsHi,
+                                arg,
+                                mem
+                        );
+                    } catch (Throwable th) {
+                        Misc.free(map);
+                        Misc.free(mem);
+                        throw th;
+                    }
+                }
+            }
+        } else { // no partition key
+            if (framingMode == WindowColumn.FRAMING_RANGE) {
+                // if there's no order by then all elements are equal in range mode, thus calculation is done on whole result set
+                if (!windowContext.isOrdered() && windowContext.isDefaultFrame()) {
+                    return new CountOverWholeResultSetFunction(arg);
+                } // between unbounded preceding and current row
+                else if (rowsLo == Long.MIN_VALUE && rowsHi == 0) {
+                    // same as for rows because calculation stops at current rows even if there are 'equal' following rows
+                    return new CountOverUnboundedRowsFrameFunction(arg);
+                } // range between [unbounded | x] preceding and [x preceding | current row]
+                else {
+                    if (windowContext.isOrdered() && !windowContext.isOrderedByDesignatedTimestamp()) {
+                        throw SqlException.$(windowContext.getOrderByPos(), "RANGE is supported only for queries ordered by designated timestamp");
+                    }
+
+                    int timestampIndex = windowContext.getTimestampIndex();
+
+                    // moving count over range between timestamp - rowsLo and timestamp + rowsHi (inclusive)
+                    return new CountOverRangeFrameFunction(
+                            rowsLo,
+                            rowsHi,
+                            arg,
+                            configuration,
+                            timestampIndex
+                    );
+                }
+            } else if (framingMode == WindowColumn.FRAMING_ROWS) {
+                // between unbounded preceding and current row
+                if (rowsLo == Long.MIN_VALUE && rowsHi == 0) {
+                    return new CountOverUnboundedRowsFrameFunction(arg);
+                } // between current row and current row
+                else if (rowsLo == 0 && rowsLo == rowsHi) {
+                    return new CountOverCurrentRowFunction(arg);
+                } // whole result set
+                else if (rowsLo == Long.MIN_VALUE && rowsHi == Long.MAX_VALUE) {
+                    return new CountOverWholeResultSetFunction(arg);
+                } // between [unbounded | x] preceding and [x preceding | current row]
+                else {
+                    MemoryARW mem = Vm.getARWInstance(
+                            configuration.getSqlWindowStorePageSize(),
+                            configuration.getSqlWindowStoreMaxPages(),
+                            MemoryTag.NATIVE_CIRCULAR_BUFFER
+                    );
+                    return new CountOverRowsFrameFunction(
+                            arg,
+                            rowsLo,
+                            rowsHi,
+                            mem
+                    );
+                }
+            }
+        }
+
+        throw SqlException.$(position, "function not implemented for given window parameters");
+    }
+
+    // (rows between current row and current row) processes 1-element-big set, so count is either 0 or 1
+    static class CountOverCurrentRowFunction extends BaseLongWindowFunction {
+
+        private long count;
+
+        CountOverCurrentRowFunction(@Nullable Function arg) {
+            super(arg);
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            count = isCounted(arg, record) ? 1 : 0;
+        }
+
+        @Override
+        public long getLong(Record rec) {
+            return count;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), count);
+        }
+    }
+
+    // handles count() over (partition by x)
+    // order by is absent so default frame mode includes all rows in partition
+    static class CountOverPartitionFunction extends BasePartitionedLongWindowFunction {
+
+        public CountOverPartitionFunction(Map map, VirtualRecord partitionByRecord, RecordSink partitionBySink, @Nullable Function arg) {
+            super(map, partitionByRecord, partitionBySink, arg);
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.TWO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            if (isCounted(arg, record)) {
+                partitionByRecord.of(record);
+                MapKey key = map.withKey();
+                key.put(partitionByRecord, partitionBySink);
+                MapValue value = key.createValue();
+                value.putLong(0, value.isNew() ? 1 : value.getLong(0) + 1);
+            }
+        }
+
+        @Override
+        public void pass2(Record record, long recordOffset, WindowSPI spi) {
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue value = key.findValue();
+
+            long val = value != null ? value.getLong(0) : 0;
+
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), val);
+        }
+    }
+
+    // Handles count() over (partition by x order by ts range between [unbounded | y] preceding and [z preceding | current row])
+    // Timestamps of counted rows are stored in resizable ring buffers and frame size is the count.
+    // When lower bound is unbounded we count but immediately discard any timestamps that enter the frame so buffer should only contain
+    // timestamps between upper bound and current row's timestamp.
+    public static class CountOverPartitionRangeFrameFunction extends BasePartitionedLongWindowFunction {
+
+        private static final int RECORD_SIZE = Long.BYTES;
+        private final boolean frameIncludesCurrentValue;
+        private final boolean frameLoBounded;
+        // list of [size, startOffset] pairs marking free space within mem
+        private final LongList freeList = new LongList();
+        private final int initialBufferSize;
+        private final long maxDiff;
+        // holds resizable ring buffers
+        private final MemoryARW memory;
+        private final long minDiff;
+        private final int timestampIndex;
+        private long count;
+
+        public CountOverPartitionRangeFrameFunction(
+                Map map,
+                VirtualRecord partitionByRecord,
+                RecordSink partitionBySink,
+                long rangeLo,
+                long rangeHi,
+                @Nullable Function arg,
+                MemoryARW memory,
+                int initialBufferSize,
+                int timestampIdx
+        ) {
+            super(map, partitionByRecord, partitionBySink, arg);
+            frameLoBounded = rangeLo != Long.MIN_VALUE;
+            maxDiff = frameLoBounded ? Math.abs(rangeLo) : Long.MAX_VALUE; // maxDiff must be used only if frameLoBounded
+            minDiff = Math.abs(rangeHi);
+            this.memory = memory;
+            this.initialBufferSize = initialBufferSize;
+            this.timestampIndex = timestampIdx;
+
+            frameIncludesCurrentValue = rangeHi == 0;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            memory.close();
+            freeList.clear();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            // map stores
+            // 0 - current number of counted rows in frame
+            // 1 - native array start offset (relative to memory address)
+            // 2 - size of ring buffer (number of elements stored in it; not all of them need to belong to frame)
+            // 3 - capacity of ring buffer
+            // 4 - index of first (the oldest) valid buffer element
+            // actual frame data - timestamps - is stored in mem at [ offset + first_idx*8, offset + last_idx*8]
+            // note: we don't store rows that aren't counted
+
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue mapValue = key.createValue();
+
+            long frameSize;
+            long startOffset;
+            long size;
+            long capacity;
+            long firstIdx;
+
+            long timestamp = record.getTimestamp(timestampIndex);
+            boolean counted = isCounted(arg, record);
+
+            if (mapValue.isNew()) {
+                capacity = initialBufferSize;
+                startOffset = memory.appendAddressFor(capacity * RECORD_SIZE) - memory.getPageAddress(0);
+                firstIdx = 0;
+
+                if (counted) {
+                    memory.putLong(startOffset, timestamp);
+
+                    if (frameIncludesCurrentValue) {
+                        frameSize = 1;
+                        size = frameLoBounded ? 1 : 0;
+                    } else {
+                        frameSize = 0;
+                        size = 1;
+                    }
+                } else {
+                    size = 0;
+                    frameSize = 0;
+                }
+            } else {
+                frameSize = mapValue.getLong(0);
+                startOffset = mapValue.getLong(1);
+                size = mapValue.getLong(2);
+                capacity = mapValue.getLong(3);
+                firstIdx = mapValue.getLong(4);
+
+                long newFirstIdx = firstIdx;
+
+                if (frameLoBounded) {
+                    // find new bottom border of range frame and remove unneeded elements
+                    for (long i = 0, n = size; i < n; i++) {
+                        long idx = (firstIdx + i) % capacity;
+                        long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                        if (Math.abs(timestamp - ts) > maxDiff) {
+                            // if rangeHi < 0, some elements from the window can be not in the frame
+                            if (frameSize > 0) {
+                                frameSize--;
+                            }
+                            newFirstIdx = (idx + 1) % capacity;
+                            size--;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+                firstIdx = newFirstIdx;
+
+                // add new element if counted
+                if (counted) {
+                    if (size == capacity) { //buffer full
+                        capacity <<= 1;
+
+                        long oldAddress = memory.getPageAddress(0) + startOffset;
+                        long newAddress = -1;
+
+                        // try to find matching block in free list
+                        for (int i = 0, n = freeList.size(); i < n; i += 2) {
+                            if (freeList.getQuick(i) == capacity) {
+                                newAddress = memory.getPageAddress(0) + freeList.getQuick(i + 1);
+                                // replace block info with ours
+                                freeList.setQuick(i, size);
+                                freeList.setQuick(i + 1, startOffset);
+                                break;
+                            }
+                        }
+
+                        if (newAddress == -1) {
+                            newAddress = memory.appendAddressFor(capacity * RECORD_SIZE);
+                            // call above can end up resizing and thus changing memory start address
+                            oldAddress = memory.getPageAddress(0) + startOffset;
+                            freeList.add(size, startOffset);
+                        }
+
+                        if (firstIdx == 0) {
+                            Vect.memcpy(newAddress, oldAddress, size * RECORD_SIZE);
+                        } else {
+                            firstIdx %= size;
+                            //we can't simply copy because that'd leave a gap in the middle
+                            long firstPieceSize = (size - firstIdx) * RECORD_SIZE;
+                            Vect.memcpy(newAddress, oldAddress + firstIdx * RECORD_SIZE, firstPieceSize);
+                            Vect.memcpy(newAddress + firstPieceSize, oldAddress, firstIdx * RECORD_SIZE);
+                            firstIdx = 0;
+                        }
+
+                        startOffset = newAddress - memory.getPageAddress(0);
+                    }
+
+                    // add element to buffer
+                    memory.putLong(startOffset + ((firstIdx + size) % capacity) * RECORD_SIZE, timestamp);
+                    size++;
+                }
+
+                // find new top border of range frame and add new elements
+                if (frameLoBounded) {
+                    for (long i = frameSize; i < size; i++) {
+                        long idx = (firstIdx + i) % capacity;
+                        long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                        long diff = Math.abs(ts - timestamp);
+
+                        if (diff <= maxDiff && diff >= minDiff) {
+                            frameSize++;
+                        } else {
+                            break;
+                        }
+                    }
+                } else {
+                    newFirstIdx = firstIdx;
+                    for (long i = 0, n = size; i < n; i++) {
+                        long idx = (firstIdx + i) % capacity;
+                        long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                        if (Math.abs(timestamp - ts) >= minDiff) {
+                            frameSize++;
+                            newFirstIdx = (idx + 1) % capacity;
+                            size--;
+                        } else {
+                            break;
+                        }
+                    }
+                    firstIdx = newFirstIdx;
+                }
+            }
+
+            count = frameSize;
+
+            mapValue.putLong(0, frameSize);
+            mapValue.putLong(1, startOffset);
+            mapValue.putLong(2, size);
+            mapValue.putLong(3, capacity);
+            mapValue.putLong(4, firstIdx);
+        }
+
+        @Override
+        public long getLong(Record rec) {
+            return count;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), count);
+        }
+
+        @Override
+        public void reopen() {
+            super.reopen();
+            // memory will allocate on first use
+            count = 0;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            memory.close();
+            freeList.clear();
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            planArg(sink);
+            sink.val(" over (");
+            sink.val("partition by ");
+            sink.val(partitionByRecord.getFunctions());
+            sink.val(" range between ");
+            if (frameLoBounded) {
+                sink.val(maxDiff);
+            } else {
+                sink.val("unbounded");
+            }
+            sink.val(" preceding and ");
+            if (minDiff == 0) {
+                sink.val("current row");
+            } else {
+                sink.val(minDiff).val(" preceding");
+            }
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            memory.truncate();
+            freeList.clear();
+        }
+    }
+
+    // handles count() over (partition by x [order by o] rows between y and z)
+    // removable cumulative aggregation over ring buffers of 0/1 flags
+    static class CountOverPartitionRowsFrameFunction extends BasePartitionedLongWindowFunction {
+
+        //number of values we need to keep to compute over frame
+        // (can be bigger than frame because we've to buffer values between rowsHi and current row )
+        private final int bufferSize;
+        private final boolean frameIncludesCurrentValue;
+        private final boolean frameLoBounded;
+        private final int frameSize;
+        // holds fixed-size ring buffers of flags
+        private final MemoryARW memory;
+        private long count;
+
+        public CountOverPartitionRowsFrameFunction(
+                Map map,
+                VirtualRecord partitionByRecord,
+                RecordSink partitionBySink,
+                long rowsLo,
+                long rowsHi,
+                @Nullable Function arg,
+                MemoryARW memory
+        ) {
+            super(map, partitionByRecord, partitionBySink, arg);
+
+            if (rowsLo > Long.MIN_VALUE) {
+                frameSize = (int) (rowsHi - rowsLo + (rowsHi < 0 ? 1 : 0));
+                bufferSize = (int) Math.abs(rowsLo);
+                frameLoBounded = true;
+            } else {
+                frameSize = 1;
+                bufferSize = (int) Math.abs(rowsHi);
+                frameLoBounded = false;
+            }
+            frameIncludesCurrentValue = rowsHi == 0;
+
+            this.memory = memory;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            memory.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            // map stores:
+            // 0 - current number of counted rows in frame
+            // 1 - (0-based) index of oldest value [0, bufferSize]
+            // 2 - native array start offset (relative to memory address)
+
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue value = key.createValue();
+
+            long count;
+            long loIdx;//current index of lo frame value ('oldest')
+            long startOffset;
+            byte flag = isCounted(arg, record) ? (byte) 1 : 0;
+
+            if (value.isNew()) {
+                loIdx = 0;
+                startOffset = memory.appendAddressFor(bufferSize) - memory.getPageAddress(0);
+                count = frameIncludesCurrentValue ? flag : 0;
+                for (int i = 0; i < bufferSize; i++) {
+                    memory.putByte(startOffset + i, (byte) 0);
+                }
+            } else {
+                count = value.getLong(0);
+                loIdx = value.getLong(1);
+                startOffset = value.getLong(2);
+
+                //compute value using top frame element (that could be current or previous row)
+                count += frameIncludesCurrentValue ? flag : memory.getByte(startOffset + (loIdx + frameSize - 1) % bufferSize);
+            }
+
+            // here count is correct for current row
+            this.count = count;
+
+            if (frameLoBounded) {
+                //remove the oldest element
+                count -= memory.getByte(startOffset + loIdx);
+            }
+
+            value.putLong(0, count);
+            value.putLong(1, (loIdx + 1) % bufferSize);
+            value.putLong(2, startOffset);
+            memory.putByte(startOffset + loIdx, flag);
+        }
+
+        @Override
+        public long getLong(Record rec) {
+            return count;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), count);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            memory.close();
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            planArg(sink);
+            sink.val(" over (");
+            sink.val("partition by ");
+            sink.val(partitionByRecord.getFunctions());
+
+            sink.val(" rows between ");
+            if (frameLoBounded) {
+                sink.val(bufferSize);
+            } else {
+                sink.val("unbounded");
+            }
+            sink.val(" preceding and ");
+            if (frameIncludesCurrentValue) {
+                sink.val("current row");
+            } else if (frameLoBounded) {
+                sink.val(bufferSize - frameSize).val(" preceding");
+            } else {
+                sink.val(bufferSize).val(" preceding");
+            }
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            memory.truncate();
+        }
+    }
+
+    // Handles count() over ([order by ts] range between [unbounded | x] preceding and [ x preceding | current row ] ); no partition by key
+    // When lower bound is unbounded we count but immediately discard any timestamps that enter the frame so buffer should only contain
+    // timestamps between upper bound and current row's timestamp.
+    static class CountOverRangeFrameFunction extends BaseLongWindowFunction implements Reopenable {
+        private static final int RECORD_SIZE = Long.BYTES;
+        private final boolean frameLoBounded;
+        private final long initialCapacity;
+        private final long maxDiff;
+        // holds resizable ring buffer of timestamps of counted rows
+        private final MemoryARW memory;
+        private final long minDiff;
+        private final int timestampIndex;
+        private long capacity;
+        private long firstIdx;
+        private long frameSize;
+        private long size;
+        private long startOffset;
+
+        public CountOverRangeFrameFunction(
+                long rangeLo,
+                long rangeHi,
+                @Nullable Function arg,
+                CairoConfiguration configuration,
+                int timestampIdx
+        ) {
+            super(arg);
+            this.initialCapacity = configuration.getSqlWindowStorePageSize() / RECORD_SIZE;
+            this.memory = Vm.getARWInstance(configuration.getSqlWindowStorePageSize(), configuration.getSqlWindowStoreMaxPages(), MemoryTag.NATIVE_CIRCULAR_BUFFER);
+            frameLoBounded = rangeLo != Long.MIN_VALUE;
+            maxDiff = frameLoBounded ? Math.abs(rangeLo) : Long.MAX_VALUE; // maxDiff must be used only if frameLoBounded
+            minDiff = Math.abs(rangeHi);
+            timestampIndex = timestampIdx;
+
+            capacity = initialCapacity;
+            startOffset = memory.appendAddressFor(capacity * RECORD_SIZE) - memory.getPageAddress(0);
+            firstIdx = 0;
+            frameSize = 0;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            memory.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            long timestamp = record.getTimestamp(timestampIndex);
+
+            long newFirstIdx = firstIdx;
+
+            if (frameLoBounded) {
+                // find new bottom border of range frame and remove unneeded elements
+                for (long i = 0, n = size; i < n; i++) {
+                    long idx = (firstIdx + i) % capacity;
+                    long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                    if (Math.abs(timestamp - ts) > maxDiff) {
+                        // if rangeHi < 0, some elements from the window can be not in the frame
+                        if (frameSize > 0) {
+                            frameSize--;
+                        }
+                        newFirstIdx = (idx + 1) % capacity;
+                        size--;
+                    } else {
+                        break;
+                    }
+                }
+            }
+            firstIdx = newFirstIdx;
+
+            // add new element if counted
+            if (isCounted(arg, record)) {
+                if (size == capacity) { //buffer full
+                    long newAddress = memory.appendAddressFor((capacity << 1) * RECORD_SIZE);
+                    // call above can end up resizing and thus changing memory start address
+                    long oldAddress = memory.getPageAddress(0) + startOffset;
+
+                    if (firstIdx == 0) {
+                        Vect.memcpy(newAddress, oldAddress, size * RECORD_SIZE);
+                    } else {
+                        firstIdx %= size;
+                        //we can't simply copy because that'd leave a gap in the middle
+                        long firstPieceSize = (size - firstIdx) * RECORD_SIZE;
+                        Vect.memcpy(newAddress, oldAddress + firstIdx * RECORD_SIZE, firstPieceSize);
+                        Vect.memcpy(newAddress + firstPieceSize, oldAddress, firstIdx * RECORD_SIZE);
+                        firstIdx = 0;
+                    }
+
+                    startOffset = newAddress - memory.getPageAddress(0);
+                    capacity <<= 1;
+                }
+
+                // add element to buffer
+                memory.putLong(startOffset + ((firstIdx + size) % capacity) * RECORD_SIZE, timestamp);
+                size++;
+            }
+
+            // find new top border of range frame and add new elements
+            if (frameLoBounded) {
+                for (long i = frameSize, n = size; i < n; i++) {
+                    long idx = (firstIdx + i) % capacity;
+                    long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                    long diff = Math.abs(ts - timestamp);
+
+                    if (diff <= maxDiff && diff >= minDiff) {
+                        frameSize++;
+                    } else {
+                        break;
+                    }
+                }
+            } else {
+                newFirstIdx = firstIdx;
+                for (long i = 0, n = size; i < n; i++) {
+                    long idx = (firstIdx + i) % capacity;
+                    long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                    if (Math.abs(timestamp - ts) >= minDiff) {
+                        frameSize++;
+                        newFirstIdx = (idx + 1) % capacity;
+                        size--;
+                    } else {
+                        break;
+                    }
+                }
+                firstIdx = newFirstIdx;
+            }
+        }
+
+        @Override
+        public long getLong(Record rec) {
+            return frameSize;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), frameSize);
+        }
+
+        @Override
+        public void reopen() {
+            capacity = initialCapacity;
+            startOffset = memory.appendAddressFor(capacity * RECORD_SIZE) - memory.getPageAddress(0);
+            firstIdx = 0;
+            frameSize = 0;
+            size = 0;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            memory.close();
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            planArg(sink);
+            sink.val(" over (");
+            sink.val("range between ");
+            if (frameLoBounded) {
+                sink.val(maxDiff);
+            } else {
+                sink.val("unbounded");
+            }
+            sink.val(" preceding and ");
+            if (minDiff == 0) {
+                sink.val("current row");
+            } else {
+                sink.val(minDiff).val(" preceding");
+            }
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            capacity = initialCapacity;
+            memory.truncate();
+            startOffset = memory.appendAddressFor(capacity * RECORD_SIZE) - memory.getPageAddress(0);
+            firstIdx = 0;
+            frameSize = 0;
+            size = 0;
+        }
+    }
+
+    // Handles count() over ([order by o] rows between y and z); there's no partition by.
+    // Removable cumulative aggregation over ring buffer of 0/1 flags.
+    static class CountOverRowsFrameFunction extends BaseLongWindowFunction implements Reopenable {
+        private final MemoryARW buffer;
+        private final int bufferSize;
+        private final boolean frameIncludesCurrentValue;
+        private final boolean frameLoBounded;
+        private final int frameSize;
+        private long count = 0;
+        private long externalCount = 0;
+        private int loIdx = 0;
+
+        public CountOverRowsFrameFunction(@Nullable Function arg, long rowsLo, long rowsHi, MemoryARW memory) {
+            super(arg);
+
+            assert rowsLo != Long.MIN_VALUE || rowsHi != 0; // use CountOverUnboundedRowsFrameFunction in case of (Long.MIN_VALUE, 0) range
+            if (rowsLo > Long.MIN_VALUE) {
+                frameSize = (int) (rowsHi - rowsLo + (rowsHi < 0 ? 1 : 0));
+                bufferSize = (int) Math.abs(rowsLo);//number of values we need to keep to compute over frame
+                frameLoBounded = true;
+            } else {
+                frameSize = 1;
+                bufferSize = (int) Math.abs(rowsHi);
+                frameLoBounded = false;
+            }
+
+            frameIncludesCurrentValue = rowsHi == 0;
+            this.buffer = memory;
+            try {
+                initBuffer();
+            } catch (Throwable t) {
+                close();
+                throw t;
+            }
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            buffer.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            byte flag = isCounted(arg, record) ? (byte) 1 : 0;
+
+            //compute value using top frame element (that could be current or previous row)
+            count += frameIncludesCurrentValue ? flag : buffer.getByte((loIdx + frameSize - 1) % bufferSize);
+            externalCount = count;
+
+            if (frameLoBounded) {
+                //remove the oldest element
+                count -= buffer.getByte(loIdx);
+            }
+
+            //overwrite oldest element
+            buffer.putByte(loIdx, flag);
+            loIdx = (loIdx + 1) % bufferSize;
+        }
+
+        @Override
+        public long getLong(Record rec) {
+            return externalCount;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), externalCount);
+        }
+
+        @Override
+        public void reopen() {
+            count = 0;
+            externalCount = 0;
+            loIdx = 0;
+            initBuffer();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            buffer.close();
+            count = 0;
+            externalCount = 0;
+            loIdx = 0;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            planArg(sink);
+            sink.val(" over (");
+            sink.val("rows between ");
+            if (frameLoBounded) {
+                sink.val(bufferSize);
+            } else {
+                sink.val("unbounded");
+            }
+            sink.val(" preceding and ");
+            if (frameIncludesCurrentValue) {
+                sink.val("current row");
+            } else if (frameLoBounded) {
+                sink.val(bufferSize - frameSize).val(" preceding");
+            } else {
+                sink.val(bufferSize).val(" preceding");
+            }
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            count = 0;
+            externalCount = 0;
+            loIdx = 0;
+            initBuffer();
+        }
+
+        private void initBuffer() {
+            for (int i = 0; i < bufferSize; i++) {
+                buffer.putByte(i, (byte) 0);
+            }
+        }
+    }
+
+    // Handles:
+    // - count(a) over (partition by x rows between unbounded preceding and current row)
+    // - count(a) over (partition by x order by ts range between unbounded preceding and current row)
+    // Doesn't require value buffering.
+    static class CountOverUnboundedPartitionRowsFrameFunction extends BasePartitionedLongWindowFunction {
+        private long count;
+
+        public CountOverUnboundedPartitionRowsFrameFunction(Map map, VirtualRecord partitionByRecord, RecordSink partitionBySink, @Nullable Function arg) {
+            super(map, partitionByRecord, partitionBySink, arg);
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue value = key.createValue();
+
+            count = value.isNew() ? 0 : value.getLong(0);
+            if (isCounted(arg, record)) {
+                count++;
+            }
+            value.putLong(0, count);
+        }
+
+        @Override
+        public long getLong(Record rec) {
+            return count;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), count);
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(NAME);
+            planArg(sink);
+            sink.val(" over (");
+            sink.val("partition by ");
+            sink.val(partitionByRecord.getFunctions());
+            sink.val(" rows between unbounded preceding and current row)");
+        }
+    }
+
+    // Handles count() over (rows between unbounded preceding and current row); there's no partition by.
+    static class CountOverUnboundedRowsFrameFunction extends BaseLongWindowFunction {
+
+        private long count = 0;
+
+        public CountOverUnboundedRowsFrameFunction(@Nullable Function arg) {
+            super(arg);
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            if (isCounted(arg, record)) {
+                count++;
+            }
+        }
+
+        @Override
+        public long getLong(Record rec) {
+            return count;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), count);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            count = 0;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(NAME);
+            planArg(sink);
+            sink.val(" over (rows between unbounded preceding and current row)");
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            count = 0;
+        }
+    }
+
+    // count() over () - empty clause, no partition by no order by, no frame == default frame
+    static class CountOverWholeResultSetFunction extends BaseLongWindowFunction {
+        private long count;
+
+        public CountOverWholeResultSetFunction(@Nullable Function arg) {
+            super(arg);
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.TWO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            if (isCounted(arg, record)) {
+                count++;
+            }
+        }
+
+        @Override
+        public void pass2(Record record, long recordOffset, WindowSPI spi) {
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), count);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            count = 0;
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            count = 0;
+        }
+    }
+
+    static {
+        COUNT_COLUMN_TYPES = new ArrayColumnTypes();
+        COUNT_COLUMN_TYPES.add(ColumnType.LONG);
+
+        COUNT_OVER_PARTITION_RANGE_COLUMN_TYPES = new ArrayColumnTypes();
+        COUNT_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);  // number of counted rows in current frame
+        COUNT_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);  // native array start offset, requires updating on resize
+        COUNT_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);  // native buffer size
+        COUNT_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);  // native buffer capacity
+        COUNT_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);  // index of first buffered element
+
+        COUNT_OVER_PARTITION_ROWS_COLUMN_TYPES = new ArrayColumnTypes();
+        COUNT_OVER_PARTITION_ROWS_COLUMN_TYPES.add(ColumnType.LONG);// count
+        COUNT_OVER_PARTITION_ROWS_COLUMN_TYPES.add(ColumnType.LONG);// position of current oldest element
+        COUNT_OVER_PARTITION_ROWS_COLUMN_TYPES.add(ColumnType.LONG);// start offset of native array
+    }
+}
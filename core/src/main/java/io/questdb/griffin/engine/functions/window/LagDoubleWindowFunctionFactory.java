@@ -0,0 +1,384 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.window;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryARW;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.window.WindowContext;
+import io.questdb.griffin.engine.window.WindowFunction;
+import io.questdb.std.*;
+
+// lag(value [, offset [, default]]) returns value from the row that is offset rows before the current one
+// within partition, or default when there is no such row; frame clause doesn't apply
+public class LagDoubleWindowFunctionFactory implements FunctionFactory {
+
+    public static final ArrayColumnTypes LAG_COLUMN_TYPES;
+    private static final String NAME = "lag";
+    private static final String SIGNATURE = NAME + "(DV)";
+
+    @Override
+    public String getSignature() {
+        return SIGNATURE;
+    }
+
+    @Override
+    public boolean isWindow() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        final WindowContext windowContext = sqlExecutionContext.getWindowContext();
+        if (windowContext.isEmpty()) {
+            throw SqlException.emptyWindowContext(position);
+        }
+
+        final long offset = getOffset(args, argPositions);
+        final double defaultValue = getDefaultValue(args, argPositions);
+
+        if (offset == 0) {
+            return new LastValueDoubleWindowFunctionFactory.LastValueOverCurrentRowFunction(args.get(0), NAME);
+        }
+
+        final VirtualRecord partitionByRecord = windowContext.getPartitionByRecord();
+        if (partitionByRecord != null) {
+            Map map = null;
+            MemoryARW mem = null;
+            try {
+                map = MapFactory.createOrderedMap(
+                        configuration,
+                        windowContext.getPartitionByKeyTypes(),
+                        LAG_COLUMN_TYPES
+                );
+                mem = Vm.getARWInstance(
+                        configuration.getSqlWindowStorePageSize(),
+                        configuration.getSqlWindowStoreMaxPages(),
+                        MemoryTag.NATIVE_CIRCULAR_BUFFER
+                );
+                return new LagOverPartitionFunction(
+                        map,
+                        partitionByRecord,
+                        windowContext.getPartitionBySink(),
+                        args.get(0),
+                        (int) offset,
+                        defaultValue,
+                        mem
+                );
+            } catch (Throwable th) {
+                Misc.free(map);
+                Misc.free(mem);
+                throw th;
+            }
+        }
+
+        MemoryARW mem = Vm.getARWInstance(
+                configuration.getSqlWindowStorePageSize(),
+                configuration.getSqlWindowStoreMaxPages(),
+                MemoryTag.NATIVE_CIRCULAR_BUFFER
+        );
+        return new LagFunction(args.get(0), (int) offset, defaultValue, mem);
+    }
+
+    static double getDefaultValue(ObjList<Function> args, IntList argPositions) throws SqlException {
+        if (args.size() < 3) {
+            return Double.NaN;
+        }
+        final Function defaultValue = args.getQuick(2);
+        if (!defaultValue.isConstant()) {
+            throw SqlException.$(argPositions.getQuick(2), "default value must be a constant");
+        }
+        switch (ColumnType.tagOf(defaultValue.getType())) {
+            case ColumnType.NULL:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return defaultValue.getDouble(null);
+            default:
+                throw SqlException.$(argPositions.getQuick(2), "numeric default value expected");
+        }
+    }
+
+    static long getOffset(ObjList<Function> args, IntList argPositions) throws SqlException {
+        if (args.size() > 3) {
+            throw SqlException.$(argPositions.getQuick(3), "too many arguments");
+        }
+        if (args.size() < 2) {
+            return 1;
+        }
+        final Function offset = args.getQuick(1);
+        final int offsetPos = argPositions.getQuick(1);
+        if (!offset.isConstant()) {
+            throw SqlException.$(offsetPos, "offset must be a constant");
+        }
+        final long value;
+        switch (ColumnType.tagOf(offset.getType())) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                value = offset.getLong(null);
+                break;
+            default:
+                throw SqlException.$(offsetPos, "integer offset expected");
+        }
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw SqlException.$(offsetPos, "offset must be a non-negative integer");
+        }
+        return value;
+    }
+
+    static void planArgs(PlanSink sink, Function arg, int offset, double defaultValue) {
+        sink.val('(').val(arg).val(", ").val(offset);
+        if (Numbers.isFinite(defaultValue)) {
+            sink.val(", ").val(defaultValue);
+        }
+        sink.val(')');
+    }
+
+    // handles lag() over ([order by o]); there's no partition by
+    // keeps last offset values in a fixed-size ring buffer
+    static class LagFunction extends BaseDoubleWindowFunction implements Reopenable {
+        private final MemoryARW buffer;
+        private final double defaultValue;
+        private final int offset;
+        private long count = 0;
+        private int loIdx = 0;
+        private double value = Double.NaN;
+
+        public LagFunction(Function arg, int offset, double defaultValue, MemoryARW memory) {
+            super(arg);
+            this.offset = offset;
+            this.defaultValue = defaultValue;
+            this.buffer = memory;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            buffer.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            value = count < offset ? defaultValue : buffer.getDouble((long) loIdx * Double.BYTES);
+            //overwrite oldest element
+            buffer.putDouble((long) loIdx * Double.BYTES, arg.getDouble(record));
+            loIdx = (loIdx + 1) % offset;
+            count++;
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return value;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), value);
+        }
+
+        @Override
+        public void reopen() {
+            count = 0;
+            loIdx = 0;
+            value = Double.NaN;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            buffer.close();
+            count = 0;
+            loIdx = 0;
+            value = Double.NaN;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            planArgs(sink, arg, offset, defaultValue);
+            sink.val(" over ()");
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            count = 0;
+            loIdx = 0;
+            value = Double.NaN;
+        }
+    }
+
+    // handles lag() over (partition by x [order by o])
+    // keeps last offset values of each partition in fixed-size ring buffers
+    static class LagOverPartitionFunction extends BasePartitionedDoubleWindowFunction {
+        private final double defaultValue;
+        // holds fixed-size ring buffers of double values
+        private final MemoryARW memory;
+        private final int offset;
+        private double value;
+
+        public LagOverPartitionFunction(
+                Map map,
+                VirtualRecord partitionByRecord,
+                RecordSink partitionBySink,
+                Function arg,
+                int offset,
+                double defaultValue,
+                MemoryARW memory
+        ) {
+            super(map, partitionByRecord, partitionBySink, arg);
+            this.offset = offset;
+            this.defaultValue = defaultValue;
+            this.memory = memory;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            memory.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            // map stores:
+            // 0 - number of rows seen in partition, capped at offset
+            // 1 - (0-based) index of oldest value [0, offset)
+            // 2 - native array start offset (relative to memory address)
+
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue mapValue = key.createValue();
+
+            long count;
+            long loIdx;
+            long startOffset;
+
+            if (mapValue.isNew()) {
+                count = 0;
+                loIdx = 0;
+                startOffset = memory.appendAddressFor((long) offset * Double.BYTES) - memory.getPageAddress(0);
+            } else {
+                count = mapValue.getLong(0);
+                loIdx = mapValue.getLong(1);
+                startOffset = mapValue.getLong(2);
+            }
+
+            if (count < offset) {
+                value = defaultValue;
+                count++;
+            } else {
+                value = memory.getDouble(startOffset + loIdx * Double.BYTES);
+            }
+            memory.putDouble(startOffset + loIdx * Double.BYTES, arg.getDouble(record));
+
+            mapValue.putLong(0, count);
+            mapValue.putLong(1, (loIdx + 1) % offset);
+            mapValue.putLong(2, startOffset);
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return value;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), value);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            memory.close();
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            planArgs(sink, arg, offset, defaultValue);
+            sink.val(" over (");
+            sink.val("partition by ");
+            sink.val(partitionByRecord.getFunctions());
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            memory.truncate();
+        }
+    }
+
+    static {
+        LAG_COLUMN_TYPES = new ArrayColumnTypes();
+        LAG_COLUMN_TYPES.add(ColumnType.LONG); // number of rows seen, capped at offset
+        LAG_COLUMN_TYPES.add(ColumnType.LONG); // position of current oldest element
+        LAG_COLUMN_TYPES.add(ColumnType.LONG); // start offset of native array
+    }
+}
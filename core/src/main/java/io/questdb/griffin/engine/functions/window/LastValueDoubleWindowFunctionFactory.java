@@ -0,0 +1,1013 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.window;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryARW;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.window.WindowContext;
+import io.questdb.griffin.engine.window.WindowFunction;
+import io.questdb.griffin.model.WindowColumn;
+import io.questdb.std.*;
+
+public class LastValueDoubleWindowFunctionFactory implements FunctionFactory {
+
+    public static final ArrayColumnTypes LAST_VALUE_COLUMN_TYPES;
+    public static final ArrayColumnTypes LAST_VALUE_OVER_PARTITION_RANGE_COLUMN_TYPES;
+    public static final ArrayColumnTypes LAST_VALUE_OVER_PARTITION_ROWS_COLUMN_TYPES;
+    private static final String NAME = "last_value";
+    private static final String SIGNATURE = NAME + "(D)";
+
+    @Override
+    public String getSignature() {
+        return SIGNATURE;
+    }
+
+    @Override
+    public boolean isWindow() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        final WindowContext windowContext = sqlExecutionContext.getWindowContext();
+        if (windowContext.isEmpty()) {
+            throw SqlException.emptyWindowContext(position);
+        }
+
+        long rowsLo = windowContext.getRowsLo();
+        long rowsHi = windowContext.getRowsHi();
+
+        if (!windowContext.isDefaultFrame()) {
+            if (rowsLo > 0) {
+                throw SqlException.$(windowContext.getRowsLoKindPos(), "frame start supports UNBOUNDED PRECEDING, _number_ PRECEDING and CURRENT ROW only");
+            }
+            if (rowsHi > 0) {
+                if (rowsHi != Long.MAX_VALUE) {
+                    throw SqlException.$(windowContext.getRowsHiKindPos(), "frame end supports _number_ PRECEDING and CURRENT ROW only");
+                } else if (rowsLo != Long.MIN_VALUE) {
+                    throw SqlException.$(windowContext.getRowsHiKindPos(), "frame end supports UNBOUNDED FOLLOWING only when frame start is UNBOUNDED PRECEDING");
+                }
+            }
+        }
+
+        int exclusionKind = windowContext.getExclusionKind();
+        int exclusionKindPos = windowContext.getExclusionKindPos();
+        if (exclusionKind != WindowColumn.EXCLUDE_NO_OTHERS
+                && exclusionKind != WindowColumn.EXCLUDE_CURRENT_ROW) {
+            throw SqlException.$(exclusionKindPos, "only EXCLUDE NO OTHERS and EXCLUDE CURRENT ROW exclusion modes are supported");
+        }
+
+        if (exclusionKind == WindowColumn.EXCLUDE_CURRENT_ROW) {
+            // assumes frame doesn't use 'following'
+            if (rowsHi == Long.MAX_VALUE) {
+                throw SqlException.$(exclusionKindPos, "EXCLUDE CURRENT ROW not supported with UNBOUNDED FOLLOWING frame boundary");
+            }
+
+            if (rowsHi == 0) {
+                rowsHi = -1;
+            }
+            if (rowsHi < rowsLo) {
+                throw SqlException.$(exclusionKindPos, "end of window is higher than start of window due to exclusion mode");
+            }
+        }
+
+        int framingMode = windowContext.getFramingMode();
+        if (framingMode == WindowColumn.FRAMING_GROUPS) {
+            throw SqlException.$(position, "function not implemented for given window parameters");
+        }
+
+        RecordSink partitionBySink = windowContext.getPartitionBySink();
+        ColumnTypes partitionByKeyTypes = windowContext.getPartitionByKeyTypes();
+        VirtualRecord partitionByRecord = windowContext.getPartitionByRecord();
+
+        // last value over whole partition (no order by, default frame) or (unbounded preceding to unbounded following)
+        if (rowsHi == Long.MAX_VALUE
+                || (framingMode == WindowColumn.FRAMING_RANGE && windowContext.isDefaultFrame() && !windowContext.isOrdered())) {
+            if (partitionByRecord != null) {
+                Map map = MapFactory.createOrderedMap(
+                        configuration,
+                        partitionByKeyTypes,
+                        LAST_VALUE_COLUMN_TYPES
+                );
+                return new LastValueOverPartitionFunction(
+                        map,
+                        partitionByRecord,
+                        partitionBySink,
+                        args.get(0)
+                );
+            }
+            return new LastValueOverWholeResultSetFunction(args.get(0));
+        }
+
+        if (framingMode == WindowColumn.FRAMING_RANGE && windowContext.isOrdered() && !windowContext.isOrderedByDesignatedTimestamp()) {
+            throw SqlException.$(windowContext.getOrderByPos(), "RANGE is supported only for queries ordered by designated timestamp");
+        }
+
+        // frame ends at current row, so the last value is simply the current one, no matter where the frame starts
+        if (rowsHi == 0) {
+            return new LastValueOverCurrentRowFunction(args.get(0), NAME, partitionByRecord, framingMode, rowsLo);
+        }
+
+        // frame ends at x preceding
+        if (framingMode == WindowColumn.FRAMING_RANGE) {
+            int timestampIndex = windowContext.getTimestampIndex();
+
+            if (partitionByRecord != null) {
+                Map map = null;
+                MemoryARW mem = null;
+                try {
+                    map = MapFactory.createOrderedMap(
+                            configuration,
+                            partitionByKeyTypes,
+                            LAST_VALUE_OVER_PARTITION_RANGE_COLUMN_TYPES
+                    );
+                    mem = Vm.getARWInstance(
+                            configuration.getSqlWindowStorePageSize(),
+                            configuration.getSqlWindowStoreMaxPages(),
+                            MemoryTag.NATIVE_CIRCULAR_BUFFER
+                    );
+
+                    return new LastValueOverPartitionRangeFrameFunction(
+                            map,
+                            partitionByRecord,
+                            partitionBySink,
+                            rowsLo,
+                            rowsHi,
+                            args.get(0),
+                            mem,
+                            configuration.getSqlWindowInitialRangeBufferSize(),
+                            timestampIndex
+                    );
+                } catch (Throwable th) {
+                    Misc.free(map);
+                    Misc.free(mem);
+                    throw th;
+                }
+            }
+
+            return new LastValueOverRangeFrameFunction(
+                    rowsLo,
+                    rowsHi,
+                    args.get(0),
+                    configuration,
+                    timestampIndex
+            );
+        }
+
+        if (framingMode == WindowColumn.FRAMING_ROWS) {
+            if (partitionByRecord != null) {
+                Map map = null;
+                MemoryARW mem = null;
+                try {
+                    map = MapFactory.createOrderedMap(
+                            configuration,
+                            partitionByKeyTypes,
+                            LAST_VALUE_OVER_PARTITION_ROWS_COLUMN_TYPES
+                    );
+                    mem = Vm.getARWInstance(
+                            configuration.getSqlWindowStorePageSize(),
+                            configuration.getSqlWindowStoreMaxPages(),
+                            MemoryTag.NATIVE_CIRCULAR_BUFFER
+                    );
+
+                    return new LastValueOverPartitionRowsFrameFunction(
+                            map,
+                            partitionByRecord,
+                            partitionBySink,
+                            rowsLo,
+                            rowsHi,
+                            args.get(0),
+                            mem
+                    );
+                } catch (Throwable th) {
+                    Misc.free(map);
+                    Misc.free(mem);
+                    throw th;
+                }
+            }
+
+            MemoryARW mem = Vm.getARWInstance(
+                    configuration.getSqlWindowStorePageSize(),
+                    configuration.getSqlWindowStoreMaxPages(),
+                    MemoryTag.NATIVE_CIRCULAR_BUFFER
+            );
+            return new LastValueOverRowsFrameFunction(
+                    args.get(0),
+                    rowsLo,
+                    rowsHi,
+                    mem
+            );
+        }
+
+        throw SqlException.$(position, "function not implemented for given window parameters");
+    }
+
+    // handles all frames that end at current row, e.g. (rows between x preceding and current row),
+    // last value of such frame is the current row's value
+    static class LastValueOverCurrentRowFunction extends BaseDoubleWindowFunction {
+
+        // frame is only used to describe the function in the plan
+        private final int framingMode;
+        private final String name;
+        private final VirtualRecord partitionByRecord;
+        private final long rowsLo;
+        private double value;
+
+        LastValueOverCurrentRowFunction(Function arg, String name) {
+            this(arg, name, null, 0, 0);
+        }
+
+        LastValueOverCurrentRowFunction(Function arg, String name, VirtualRecord partitionByRecord, int framingMode, long rowsLo) {
+            super(arg);
+            this.name = name;
+            this.partitionByRecord = partitionByRecord;
+            this.framingMode = framingMode;
+            this.rowsLo = rowsLo;
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            value = arg.getDouble(record);
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return value;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPassCount() {
+            return ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), value);
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            sink.val('(').val(arg).val(')');
+            sink.val(" over (");
+            if (partitionByRecord != null) {
+                sink.val("partition by ");
+                sink.val(partitionByRecord.getFunctions());
+                sink.val(' ');
+            }
+            if (framingMode == WindowColumn.FRAMING_ROWS || framingMode == WindowColumn.FRAMING_RANGE) {
+                sink.val(framingMode == WindowColumn.FRAMING_ROWS ? "rows between " : "range between ");
+                if (rowsLo == Long.MIN_VALUE) {
+                    sink.val("unbounded");
+                } else {
+                    sink.val(Math.abs(rowsLo));
+                }
+                sink.val(" preceding and current row");
+            }
+            sink.val(')');
+        }
+    }
+
+    // handles last_value() over (partition by x [order by o rows between unbounded preceding and unbounded following])
+    static class LastValueOverPartitionFunction extends BasePartitionedDoubleWindowFunction {
+
+        public LastValueOverPartitionFunction(Map map, VirtualRecord partitionByRecord, RecordSink partitionBySink, Function arg) {
+            super(map, partitionByRecord, partitionBySink, arg);
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.TWO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue value = key.createValue();
+            value.putDouble(0, arg.getDouble(record));
+        }
+
+        @Override
+        public void pass2(Record record, long recordOffset, WindowSPI spi) {
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue value = key.findValue();
+
+            double val = value != null ? value.getDouble(0) : Double.NaN;
+
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), val);
+        }
+    }
+
+    // Handles last_value() over (partition by x order by ts range between [unbounded | y] preceding and z preceding)
+    // Rows that are yet to enter the frame are kept in resizable ring buffers of [timestamp, value] pairs.
+    // Once row enters the frame it becomes frame's last value and is removed from the buffer.
+    public static class LastValueOverPartitionRangeFrameFunction extends BasePartitionedDoubleWindowFunction {
+
+        private static final int RECORD_SIZE = Long.BYTES + Double.BYTES;
+        private final boolean frameLoBounded;
+        // list of [size, startOffset] pairs marking free space within mem
+        private final LongList freeList = new LongList();
+        private final int initialBufferSize;
+        private final long maxDiff;
+        // holds resizable ring buffers
+        private final MemoryARW memory;
+        private final long minDiff;
+        private final int timestampIndex;
+        private double lastValue;
+
+        public LastValueOverPartitionRangeFrameFunction(
+                Map map,
+                VirtualRecord partitionByRecord,
+                RecordSink partitionBySink,
+                long rangeLo,
+                long rangeHi,
+                Function arg,
+                MemoryARW memory,
+                int initialBufferSize,
+                int timestampIdx
+        ) {
+            super(map, partitionByRecord, partitionBySink, arg);
+            assert rangeHi < 0;
+            frameLoBounded = rangeLo != Long.MIN_VALUE;
+            maxDiff = frameLoBounded ? Math.abs(rangeLo) : Long.MAX_VALUE; // maxDiff must be used only if frameLoBounded
+            minDiff = Math.abs(rangeHi);
+            this.memory = memory;
+            this.initialBufferSize = initialBufferSize;
+            this.timestampIndex = timestampIdx;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            memory.close();
+            freeList.clear();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            // map stores
+            // 0 - value of the most recent row that entered the frame
+            // 1 - timestamp of the most recent row that entered the frame, Long.MIN_VALUE if there is no such row
+            // 2 - native array start offset (relative to memory address)
+            // 3 - size of ring buffer (number of elements stored in it)
+            // 4 - capacity of ring buffer
+            // 5 - index of first (the oldest) valid buffer element
+            // rows that didn't enter the frame yet - [timestamp, value] pairs - are stored in mem at [ offset + first_idx*16, offset + last_idx*16]
+
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue mapValue = key.createValue();
+
+            double value;
+            long valueTs;
+            long startOffset;
+            long size;
+            long capacity;
+            long firstIdx;
+
+            long timestamp = record.getTimestamp(timestampIndex);
+            double d = arg.getDouble(record);
+
+            if (mapValue.isNew()) {
+                capacity = initialBufferSize;
+                startOffset = memory.appendAddressFor(capacity * RECORD_SIZE) - memory.getPageAddress(0);
+                firstIdx = 0;
+                size = 0;
+                value = Double.NaN;
+                valueTs = Long.MIN_VALUE;
+            } else {
+                value = mapValue.getDouble(0);
+                valueTs = mapValue.getLong(1);
+                startOffset = mapValue.getLong(2);
+                size = mapValue.getLong(3);
+                capacity = mapValue.getLong(4);
+                firstIdx = mapValue.getLong(5);
+
+                // move rows that entered the frame out of the buffer, the newest of them is the last value
+                long newFirstIdx = firstIdx;
+                for (long i = 0, n = size; i < n; i++) {
+                    long idx = (firstIdx + i) % capacity;
+                    long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                    if (Math.abs(timestamp - ts) >= minDiff) {
+                        value = memory.getDouble(startOffset + idx * RECORD_SIZE + Long.BYTES);
+                        valueTs = ts;
+                        newFirstIdx = (idx + 1) % capacity;
+                        size--;
+                    } else {
+                        break;
+                    }
+                }
+                firstIdx = newFirstIdx;
+
+                if (size == capacity) { //buffer full
+                    capacity <<= 1;
+
+                    long oldAddress = memory.getPageAddress(0) + startOffset;
+                    long newAddress = -1;
+
+                    // try to find matching block in free list
+                    for (int i = 0, n = freeList.size(); i < n; i += 2) {
+                        if (freeList.getQuick(i) == capacity) {
+                            newAddress = memory.getPageAddress(0) + freeList.getQuick(i + 1);
+                            // replace block info with ours
+                            freeList.setQuick(i, size);
+                            freeList.setQuick(i + 1, startOffset);
+                            break;
+                        }
+                    }
+
+                    if (newAddress == -1) {
+                        newAddress = memory.appendAddressFor(capacity * RECORD_SIZE);
+                        // call above can end up resizing and thus changing memory start address
+                        oldAddress = memory.getPageAddress(0) + startOffset;
+                        freeList.add(size, startOffset);
+                    }
+
+                    if (firstIdx == 0) {
+                        Vect.memcpy(newAddress, oldAddress, size * RECORD_SIZE);
+                    } else {
+                        firstIdx %= size;
+                        //we can't simply copy because that'd leave a gap in the middle
+                        long firstPieceSize = (size - firstIdx) * RECORD_SIZE;
+                        Vect.memcpy(newAddress, oldAddress + firstIdx * RECORD_SIZE, firstPieceSize);
+                        Vect.memcpy(newAddress + firstPieceSize, oldAddress, firstIdx * RECORD_SIZE);
+                        firstIdx = 0;
+                    }
+
+                    startOffset = newAddress - memory.getPageAddress(0);
+                }
+            }
+
+            // current row can't be part of the frame yet
+            memory.putLong(startOffset + ((firstIdx + size) % capacity) * RECORD_SIZE, timestamp);
+            memory.putDouble(startOffset + ((firstIdx + size) % capacity) * RECORD_SIZE + Long.BYTES, d);
+            size++;
+
+            if (valueTs != Long.MIN_VALUE && (!frameLoBounded || Math.abs(timestamp - valueTs) <= maxDiff)) {
+                lastValue = value;
+            } else {
+                // frame is empty
+                lastValue = Double.NaN;
+            }
+
+            mapValue.putDouble(0, value);
+            mapValue.putLong(1, valueTs);
+            mapValue.putLong(2, startOffset);
+            mapValue.putLong(3, size);
+            mapValue.putLong(4, capacity);
+            mapValue.putLong(5, firstIdx);
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return lastValue;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), lastValue);
+        }
+
+        @Override
+        public void reopen() {
+            super.reopen();
+            // memory will allocate on first use
+            lastValue = Double.NaN;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            memory.close();
+            freeList.clear();
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            sink.val('(').val(arg).val(')');
+            sink.val(" over (");
+            sink.val("partition by ");
+            sink.val(partitionByRecord.getFunctions());
+            sink.val(" range between ");
+            if (frameLoBounded) {
+                sink.val(maxDiff);
+            } else {
+                sink.val("unbounded");
+            }
+            sink.val(" preceding and ");
+            sink.val(minDiff).val(" preceding");
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            memory.truncate();
+            freeList.clear();
+        }
+    }
+
+    // handles last_value() over (partition by x [order by o] rows between [unbounded | y] preceding and z preceding)
+    // last value of such frame is the value z rows back (if frame isn't empty), so we keep the last z values in ring buffers
+    static class LastValueOverPartitionRowsFrameFunction extends BasePartitionedDoubleWindowFunction {
+
+        private final int bufferSize;
+        private final boolean frameLoBounded;
+        private final long rowsLo;
+        // holds fixed-size ring buffers of double values
+        private final MemoryARW memory;
+        private double lastValue;
+
+        public LastValueOverPartitionRowsFrameFunction(
+                Map map,
+                VirtualRecord partitionByRecord,
+                RecordSink partitionBySink,
+                long rowsLo,
+                long rowsHi,
+                Function arg,
+                MemoryARW memory
+        ) {
+            super(map, partitionByRecord, partitionBySink, arg);
+            assert rowsHi < 0;
+            this.rowsLo = rowsLo;
+            frameLoBounded = rowsLo > Long.MIN_VALUE;
+            bufferSize = (int) Math.abs(rowsHi);
+            this.memory = memory;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            memory.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            // map stores:
+            // 0 - (0-based) index of oldest value [0, bufferSize]
+            // 1 - native array start offset (relative to memory address)
+            // buffer is initialized with nulls, so the oldest value is null until there are enough rows
+
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue value = key.createValue();
+
+            long loIdx;
+            long startOffset;
+
+            if (value.isNew()) {
+                loIdx = 0;
+                startOffset = memory.appendAddressFor((long) bufferSize * Double.BYTES) - memory.getPageAddress(0);
+                for (int i = 0; i < bufferSize; i++) {
+                    memory.putDouble(startOffset + (long) i * Double.BYTES, Double.NaN);
+                }
+            } else {
+                loIdx = value.getLong(0);
+                startOffset = value.getLong(1);
+            }
+
+            lastValue = memory.getDouble(startOffset + loIdx * Double.BYTES);
+            memory.putDouble(startOffset + loIdx * Double.BYTES, arg.getDouble(record));
+
+            value.putLong(0, (loIdx + 1) % bufferSize);
+            value.putLong(1, startOffset);
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return lastValue;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), lastValue);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            memory.close();
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            sink.val('(').val(arg).val(')');
+            sink.val(" over (");
+            sink.val("partition by ");
+            sink.val(partitionByRecord.getFunctions());
+            sink.val(" rows between ");
+            if (frameLoBounded) {
+                sink.val(Math.abs(rowsLo));
+            } else {
+                sink.val("unbounded");
+            }
+            sink.val(" preceding and ");
+            sink.val(bufferSize).val(" preceding");
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            memory.truncate();
+        }
+    }
+
+    // Handles last_value() over ([order by ts] range between [unbounded | x] preceding and y preceding); no partition by key
+    // Rows that are yet to enter the frame are kept in resizable ring buffer of [timestamp, value] pairs.
+    static class LastValueOverRangeFrameFunction extends BaseDoubleWindowFunction implements Reopenable {
+        private static final int RECORD_SIZE = Long.BYTES + Double.BYTES;
+        private final boolean frameLoBounded;
+        private final long initialCapacity;
+        private final long maxDiff;
+        private final MemoryARW memory;
+        private final long minDiff;
+        private final int timestampIndex;
+        private long capacity;
+        private long firstIdx;
+        private double lastValue;
+        private long size;
+        private long startOffset;
+        // the most recent row that entered the frame
+        private double value;
+        private long valueTs;
+
+        public LastValueOverRangeFrameFunction(
+                long rangeLo,
+                long rangeHi,
+                Function arg,
+                CairoConfiguration configuration,
+                int timestampIdx
+        ) {
+            super(arg);
+            assert rangeHi < 0;
+            this.initialCapacity = configuration.getSqlWindowStorePageSize() / RECORD_SIZE;
+            this.memory = Vm.getARWInstance(configuration.getSqlWindowStorePageSize(), configuration.getSqlWindowStoreMaxPages(), MemoryTag.NATIVE_CIRCULAR_BUFFER);
+            frameLoBounded = rangeLo != Long.MIN_VALUE;
+            maxDiff = frameLoBounded ? Math.abs(rangeLo) : Long.MAX_VALUE; // maxDiff must be used only if frameLoBounded
+            minDiff = Math.abs(rangeHi);
+            timestampIndex = timestampIdx;
+            reopen();
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            memory.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            long timestamp = record.getTimestamp(timestampIndex);
+
+            // move rows that entered the frame out of the buffer, the newest of them is the last value
+            long newFirstIdx = firstIdx;
+            for (long i = 0, n = size; i < n; i++) {
+                long idx = (firstIdx + i) % capacity;
+                long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                if (Math.abs(timestamp - ts) >= minDiff) {
+                    value = memory.getDouble(startOffset + idx * RECORD_SIZE + Long.BYTES);
+                    valueTs = ts;
+                    newFirstIdx = (idx + 1) % capacity;
+                    size--;
+                } else {
+                    break;
+                }
+            }
+            firstIdx = newFirstIdx;
+
+            if (size == capacity) { //buffer full
+                long newAddress = memory.appendAddressFor((capacity << 1) * RECORD_SIZE);
+                // call above can end up resizing and thus changing memory start address
+                long oldAddress = memory.getPageAddress(0) + startOffset;
+
+                if (firstIdx == 0) {
+                    Vect.memcpy(newAddress, oldAddress, size * RECORD_SIZE);
+                } else {
+                    firstIdx %= size;
+                    //we can't simply copy because that'd leave a gap in the middle
+                    long firstPieceSize = (size - firstIdx) * RECORD_SIZE;
+                    Vect.memcpy(newAddress, oldAddress + firstIdx * RECORD_SIZE, firstPieceSize);
+                    Vect.memcpy(newAddress + firstPieceSize, oldAddress, firstIdx * RECORD_SIZE);
+                    firstIdx = 0;
+                }
+
+                startOffset = newAddress - memory.getPageAddress(0);
+                capacity <<= 1;
+            }
+
+            // current row can't be part of the frame yet
+            memory.putLong(startOffset + ((firstIdx + size) % capacity) * RECORD_SIZE, timestamp);
+            memory.putDouble(startOffset + ((firstIdx + size) % capacity) * RECORD_SIZE + Long.BYTES, arg.getDouble(record));
+            size++;
+
+            if (valueTs != Long.MIN_VALUE && (!frameLoBounded || Math.abs(timestamp - valueTs) <= maxDiff)) {
+                lastValue = value;
+            } else {
+                // frame is empty
+                lastValue = Double.NaN;
+            }
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return lastValue;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), lastValue);
+        }
+
+        @Override
+        public void reopen() {
+            lastValue = Double.NaN;
+            value = Double.NaN;
+            valueTs = Long.MIN_VALUE;
+            capacity = initialCapacity;
+            startOffset = memory.appendAddressFor(capacity * RECORD_SIZE) - memory.getPageAddress(0);
+            firstIdx = 0;
+            size = 0;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            memory.close();
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            sink.val('(').val(arg).val(')');
+            sink.val(" over (");
+            sink.val("range between ");
+            if (frameLoBounded) {
+                sink.val(maxDiff);
+            } else {
+                sink.val("unbounded");
+            }
+            sink.val(" preceding and ");
+            sink.val(minDiff).val(" preceding");
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            memory.truncate();
+            reopen();
+        }
+    }
+
+    // Handles last_value() over ([order by o] rows between [unbounded | y] preceding and z preceding); there's no partition by.
+    // Last value of such frame is the value z rows back (if frame isn't empty), so we keep the last z values in ring buffer.
+    static class LastValueOverRowsFrameFunction extends BaseDoubleWindowFunction implements Reopenable {
+        private final MemoryARW buffer;
+        private final int bufferSize;
+        private final boolean frameLoBounded;
+        private final long rowsLo;
+        private double lastValue = Double.NaN;
+        private int loIdx = 0;
+
+        public LastValueOverRowsFrameFunction(Function arg, long rowsLo, long rowsHi, MemoryARW memory) {
+            super(arg);
+            assert rowsHi < 0;
+            this.rowsLo = rowsLo;
+            frameLoBounded = rowsLo > Long.MIN_VALUE;
+            bufferSize = (int) Math.abs(rowsHi);
+            this.buffer = memory;
+            try {
+                initBuffer();
+            } catch (Throwable t) {
+                close();
+                throw t;
+            }
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            buffer.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            lastValue = buffer.getDouble((long) loIdx * Double.BYTES);
+            buffer.putDouble((long) loIdx * Double.BYTES, arg.getDouble(record));
+            loIdx = (loIdx + 1) % bufferSize;
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return lastValue;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), lastValue);
+        }
+
+        @Override
+        public void reopen() {
+            lastValue = Double.NaN;
+            loIdx = 0;
+            initBuffer();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            buffer.close();
+            lastValue = Double.NaN;
+            loIdx = 0;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            sink.val('(').val(arg).val(')');
+            sink.val(" over (");
+            sink.val("rows between ");
+            if (frameLoBounded) {
+                sink.val(Math.abs(rowsLo));
+            } else {
+                sink.val("unbounded");
+            }
+            sink.val(" preceding and ");
+            sink.val(bufferSize).val(" preceding");
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            lastValue = Double.NaN;
+            loIdx = 0;
+            initBuffer();
+        }
+
+        private void initBuffer() {
+            for (int i = 0; i < bufferSize; i++) {
+                buffer.putDouble((long) i * Double.BYTES, Double.NaN);
+            }
+        }
+    }
+
+    // handles last_value() over () and last_value() over (rows between unbounded preceding and unbounded following)
+    static class LastValueOverWholeResultSetFunction extends BaseDoubleWindowFunction {
+        private double value = Double.NaN;
+
+        public LastValueOverWholeResultSetFunction(Function arg) {
+            super(arg);
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.TWO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            value = arg.getDouble(record);
+        }
+
+        @Override
+        public void pass2(Record record, long recordOffset, WindowSPI spi) {
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), value);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            value = Double.NaN;
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            value = Double.NaN;
+        }
+    }
+
+    static {
+        LAST_VALUE_COLUMN_TYPES = new ArrayColumnTypes();
+        LAST_VALUE_COLUMN_TYPES.add(ColumnType.DOUBLE);
+
+        LAST_VALUE_OVER_PARTITION_RANGE_COLUMN_TYPES = new ArrayColumnTypes();
+        LAST_VALUE_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.DOUBLE); // value of the most recent row that entered the frame
+        LAST_VALUE_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);   // timestamp of the most recent row that entered the frame
+        LAST_VALUE_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);   // native array start offset, requires updating on resize
+        LAST_VALUE_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);   // native buffer size
+        LAST_VALUE_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);   // native buffer capacity
+        LAST_VALUE_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);   // index of first buffered element
+
+        LAST_VALUE_OVER_PARTITION_ROWS_COLUMN_TYPES = new ArrayColumnTypes();
+        LAST_VALUE_OVER_PARTITION_ROWS_COLUMN_TYPES.add(ColumnType.LONG);// position of current oldest element
+        LAST_VALUE_OVER_PARTITION_ROWS_COLUMN_TYPES.add(ColumnType.LONG);// start offset of native array
+    }
+}
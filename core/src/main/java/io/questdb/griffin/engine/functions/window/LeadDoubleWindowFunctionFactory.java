@@ -0,0 +1,299 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.window;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryARW;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.window.WindowContext;
+import io.questdb.std.*;
+
+// lead(value [, offset [, default]]) returns value from the row that is offset rows after the current one
+// within partition, or default when there is no such row; frame clause doesn't apply
+// Value isn't known until offset more rows are seen, so instead of buffering rows this function runs as a single pass
+// over cached records and fills in result of the row that is offset rows back.
+public class LeadDoubleWindowFunctionFactory implements FunctionFactory {
+
+    public static final ArrayColumnTypes LEAD_COLUMN_TYPES;
+    private static final String NAME = "lead";
+    private static final String SIGNATURE = NAME + "(DV)";
+
+    @Override
+    public String getSignature() {
+        return SIGNATURE;
+    }
+
+    @Override
+    public boolean isWindow() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        final WindowContext windowContext = sqlExecutionContext.getWindowContext();
+        if (windowContext.isEmpty()) {
+            throw SqlException.emptyWindowContext(position);
+        }
+
+        final long offset = LagDoubleWindowFunctionFactory.getOffset(args, argPositions);
+        final double defaultValue = LagDoubleWindowFunctionFactory.getDefaultValue(args, argPositions);
+
+        if (offset == 0) {
+            return new LastValueDoubleWindowFunctionFactory.LastValueOverCurrentRowFunction(args.get(0), NAME);
+        }
+
+        final VirtualRecord partitionByRecord = windowContext.getPartitionByRecord();
+        if (partitionByRecord != null) {
+            Map map = null;
+            MemoryARW mem = null;
+            try {
+                map = MapFactory.createOrderedMap(
+                        configuration,
+                        windowContext.getPartitionByKeyTypes(),
+                        LEAD_COLUMN_TYPES
+                );
+                mem = Vm.getARWInstance(
+                        configuration.getSqlWindowStorePageSize(),
+                        configuration.getSqlWindowStoreMaxPages(),
+                        MemoryTag.NATIVE_CIRCULAR_BUFFER
+                );
+                return new LeadOverPartitionFunction(
+                        map,
+                        partitionByRecord,
+                        windowContext.getPartitionBySink(),
+                        args.get(0),
+                        (int) offset,
+                        defaultValue,
+                        mem
+                );
+            } catch (Throwable th) {
+                Misc.free(map);
+                Misc.free(mem);
+                throw th;
+            }
+        }
+
+        MemoryARW mem = Vm.getARWInstance(
+                configuration.getSqlWindowStorePageSize(),
+                configuration.getSqlWindowStoreMaxPages(),
+                MemoryTag.NATIVE_CIRCULAR_BUFFER
+        );
+        return new LeadFunction(args.get(0), (int) offset, defaultValue, mem);
+    }
+
+    // handles lead() over ([order by o]); there's no partition by
+    // keeps offsets of the last rows that are still waiting for their value in a fixed-size ring buffer
+    static class LeadFunction extends BaseDoubleWindowFunction implements Reopenable {
+        private final MemoryARW buffer;
+        private final double defaultValue;
+        private final int offset;
+        private int firstIdx = 0;
+        private int size = 0;
+
+        public LeadFunction(Function arg, int offset, double defaultValue, MemoryARW memory) {
+            super(arg);
+            this.offset = offset;
+            this.defaultValue = defaultValue;
+            this.buffer = memory;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            buffer.close();
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            final double d = arg.getDouble(record);
+            // current row stays with default value unless there are enough rows after it
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), defaultValue);
+            if (size == offset) {
+                long oldestOffset = buffer.getLong((long) firstIdx * Long.BYTES);
+                Unsafe.getUnsafe().putDouble(spi.getAddress(oldestOffset, columnIndex), d);
+                firstIdx = (firstIdx + 1) % offset;
+                size--;
+            }
+            buffer.putLong((long) ((firstIdx + size) % offset) * Long.BYTES, recordOffset);
+            size++;
+        }
+
+        @Override
+        public void reopen() {
+            firstIdx = 0;
+            size = 0;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            buffer.close();
+            firstIdx = 0;
+            size = 0;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            LagDoubleWindowFunctionFactory.planArgs(sink, arg, offset, defaultValue);
+            sink.val(" over ()");
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            firstIdx = 0;
+            size = 0;
+        }
+    }
+
+    // handles lead() over (partition by x [order by o])
+    // keeps offsets of the last rows of each partition that are still waiting for their value in fixed-size ring buffers
+    static class LeadOverPartitionFunction extends BasePartitionedDoubleWindowFunction {
+        private final double defaultValue;
+        // holds fixed-size ring buffers of record offsets
+        private final MemoryARW memory;
+        private final int offset;
+
+        public LeadOverPartitionFunction(
+                Map map,
+                VirtualRecord partitionByRecord,
+                RecordSink partitionBySink,
+                Function arg,
+                int offset,
+                double defaultValue,
+                MemoryARW memory
+        ) {
+            super(map, partitionByRecord, partitionBySink, arg);
+            this.offset = offset;
+            this.defaultValue = defaultValue;
+            this.memory = memory;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            memory.close();
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            // map stores:
+            // 0 - number of rows waiting for their value
+            // 1 - (0-based) index of oldest waiting row [0, offset)
+            // 2 - native array start offset (relative to memory address)
+
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue mapValue = key.createValue();
+
+            long size;
+            long firstIdx;
+            long startOffset;
+
+            if (mapValue.isNew()) {
+                size = 0;
+                firstIdx = 0;
+                startOffset = memory.appendAddressFor((long) offset * Long.BYTES) - memory.getPageAddress(0);
+            } else {
+                size = mapValue.getLong(0);
+                firstIdx = mapValue.getLong(1);
+                startOffset = mapValue.getLong(2);
+            }
+
+            final double d = arg.getDouble(record);
+            // current row stays with default value unless there are enough rows after it
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), defaultValue);
+            if (size == offset) {
+                long oldestOffset = memory.getLong(startOffset + firstIdx * Long.BYTES);
+                Unsafe.getUnsafe().putDouble(spi.getAddress(oldestOffset, columnIndex), d);
+                firstIdx = (firstIdx + 1) % offset;
+                size--;
+            }
+            memory.putLong(startOffset + ((firstIdx + size) % offset) * Long.BYTES, recordOffset);
+            size++;
+
+            mapValue.putLong(0, size);
+            mapValue.putLong(1, firstIdx);
+            mapValue.putLong(2, startOffset);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            memory.close();
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            LagDoubleWindowFunctionFactory.planArgs(sink, arg, offset, defaultValue);
+            sink.val(" over (");
+            sink.val("partition by ");
+            sink.val(partitionByRecord.getFunctions());
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            memory.truncate();
+        }
+    }
+
+    static {
+        LEAD_COLUMN_TYPES = new ArrayColumnTypes();
+        LEAD_COLUMN_TYPES.add(ColumnType.LONG); // number of rows waiting for their value
+        LEAD_COLUMN_TYPES.add(ColumnType.LONG); // position of the oldest waiting row
+        LEAD_COLUMN_TYPES.add(ColumnType.LONG); // start offset of native array
+    }
+}
@@ -0,0 +1,1546 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.window;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryARW;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.window.WindowContext;
+import io.questdb.griffin.engine.window.WindowFunction;
+import io.questdb.griffin.model.WindowColumn;
+import io.questdb.std.*;
+
+public class MaxDoubleWindowFunctionFactory implements FunctionFactory {
+
+    public static final ArrayColumnTypes MAX_COLUMN_TYPES;
+    public static final ArrayColumnTypes MAX_OVER_PARTITION_RANGE_COLUMN_TYPES;
+    public static final ArrayColumnTypes MAX_OVER_PARTITION_ROWS_COLUMN_TYPES;
+    static final DoubleComparator GREATER_THAN = (value, current) -> value > current;
+    // monotonic deque entry: row index followed by value
+    private static final int DEQUE_ENTRY_SIZE = Long.BYTES + Double.BYTES;
+    private static final String NAME = "max";
+    private static final String SIGNATURE = NAME + "(D)";
+
+    @Override
+    public String getSignature() {
+        return SIGNATURE;
+    }
+
+    @Override
+    public boolean isWindow() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        return newInstance(position, args, configuration, sqlExecutionContext, NAME, GREATER_THAN);
+    }
+
+    static Function newInstance(
+            int position,
+            ObjList<Function> args,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext,
+            String name,
+            DoubleComparator comparator
+    ) throws SqlException {
+        final WindowContext windowContext = sqlExecutionContext.getWindowContext();
+        if (windowContext.isEmpty()) {
+            throw SqlException.emptyWindowContext(position);
+        }
+
+        long rowsLo = windowContext.getRowsLo();
+        long rowsHi = windowContext.getRowsHi();
+
+        if (!windowContext.isDefaultFrame()) {
+            if (rowsLo > 0) {
+                throw SqlException.$(windowContext.getRowsLoKindPos(), "frame start supports UNBOUNDED PRECEDING, _number_ PRECEDING and CURRENT ROW only");
+            }
+            if (rowsHi > 0) {
+                if (rowsHi != Long.MAX_VALUE) {
+                    throw SqlException.$(windowContext.getRowsHiKindPos(), "frame end supports _number_ PRECEDING and CURRENT ROW only");
+                } else if (rowsLo != Long.MIN_VALUE) {
+                    throw SqlException.$(windowContext.getRowsHiKindPos(), "frame end supports UNBOUNDED FOLLOWING only when frame start is UNBOUNDED PRECEDING");
+                }
+            }
+        }
+
+        int exclusionKind = windowContext.getExclusionKind();
+        int exclusionKindPos = windowContext.getExclusionKindPos();
+        if (exclusionKind != WindowColumn.EXCLUDE_NO_OTHERS
+                && exclusionKind != WindowColumn.EXCLUDE_CURRENT_ROW) {
+            throw SqlException.$(exclusionKindPos, "only EXCLUDE NO OTHERS and EXCLUDE CURRENT ROW exclusion modes are supported");
+        }
+
+        if (exclusionKind == WindowColumn.EXCLUDE_CURRENT_ROW) {
+            // assumes frame doesn't use 'following'
+            if (rowsHi == Long.MAX_VALUE) {
+                throw SqlException.$(exclusionKindPos, "EXCLUDE CURRENT ROW not supported with UNBOUNDED FOLLOWING frame boundary");
+            }
+
+            if (rowsHi == 0) {
+                rowsHi = -1;
+            }
+            if (rowsHi < rowsLo) {
+                throw SqlException.$(exclusionKindPos, "end of window is higher than start of window due to exclusion mode");
+            }
+        }
+
+        int framingMode = windowContext.getFramingMode();
+        if (framingMode == WindowColumn.FRAMING_GROUPS) {
+            throw SqlException.$(position, "function not implemented for given window parameters");
+        }
+
+        RecordSink partitionBySink = windowContext.getPartitionBySink();
+        ColumnTypes partitionByKeyTypes = windowContext.getPartitionByKeyTypes();
+        VirtualRecord partitionByRecord = windowContext.getPartitionByRecord();
+
+        if (partitionByRecord != null) {
+            if (framingMode == WindowColumn.FRAMING_RANGE) {
+                // max over whole partition (no order by, default frame) or (order by, unbounded preceding to unbounded following)
+                if (windowContext.isDefaultFrame() && (!windowContext.isOrdered() || windowContext.getRowsHi() == Long.MAX_VALUE)) {
+                    Map map = MapFactory.createOrderedMap(
+                            configuration,
+                            partitionByKeyTypes,
+                            MAX_COLUMN_TYPES
+                    );
+
+                    return new MaxOverPartitionFunction(
+                            map,
+                            partitionByRecord,
+                            partitionBySink,
+                            args.get(0),
+                            name,
+                            comparator
+                    );
+                } // between unbounded preceding and current row
+                else if (rowsLo == Long.MIN_VALUE && rowsHi == 0) {
+                    Map map = MapFactory.createOrderedMap(
+                            configuration,
+                            partitionByKeyTypes,
+                            MAX_COLUMN_TYPES
+                    );
+
+                    // same as for rows because calculation stops at current rows even if there are 'equal' following rows
+                    return new MaxOverUnboundedPartitionRowsFrameFunction(
+                            map,
+                            partitionByRecord,
+                            partitionBySink,
+                            args.get(0),
+                            name,
+                            comparator
+                    );
+                } // range between [unbounded | x] preceding and [x preceding | current row], except unbounded preceding to current row
+                else {
+                    if (windowContext.isOrdered() && !windowContext.isOrderedByDesignatedTimestamp()) {
+                        throw SqlException.$(windowContext.getOrderByPos(), "RANGE is supported only for queries ordered by designated timestamp");
+                    }
+
+                    int timestampIndex = windowContext.getTimestampIndex();
+
+                    Map map = null;
+                    MemoryARW mem = null;
+                    try {
+                        map = MapFactory.createOrderedMap(
+                                configuration,
+                                partitionByKeyTypes,
+                                MAX_OVER_PARTITION_RANGE_COLUMN_TYPES
+                        );
+                        mem = Vm.getARWInstance(
+                                configuration.getSqlWindowStorePageSize(),
+                                configuration.getSqlWindowStoreMaxPages(),
+                                MemoryTag.NATIVE_CIRCULAR_BUFFER
+                        );
+
+                        // moving max over range between timestamp - rowsLo and timestamp + rowsHi (inclusive)
+                        return new MaxOverPartitionRangeFrameFunction(
+                                map,
+                                partitionByRecord,
+                                partitionBySink,
+                                rowsLo,
+                                rowsHi,
+                                args.get(0),
+                                mem,
+                                configuration.getSqlWindowInitialRangeBufferSize(),
+                                timestampIndex,
+                                name,
+                                comparator
+                        );
+                    } catch (Throwable th) {
+                        Misc.free(map);
+                        Misc.free(mem);
+                        throw th;
+                    }
+                }
+            } else if (framingMode == WindowColumn.FRAMING_ROWS) {
+                // between unbounded preceding and current row
+                if (rowsLo == Long.MIN_VALUE && rowsHi == 0) {
+                    Map map = MapFactory.createOrderedMap(
+                            configuration,
+                            partitionByKeyTypes,
+                            MAX_COLUMN_TYPES
+                    );
+
+                    return new MaxOverUnboundedPartitionRowsFrameFunction(
+                            map,
+                            partitionByRecord,
+                            partitionBySink,
+                            args.get(0),
+                            name,
+                            comparator
+                    );
+                } // between current row and current row
+                else if (rowsLo == 0 && rowsLo == rowsHi) {
+                    return new MaxOverCurrentRowFunction(args.get(0), name);
+                } // whole partition
+                else if (rowsLo == Long.MIN_VALUE && rowsHi == Long.MAX_VALUE) {
+                    Map map = MapFactory.createOrderedMap(
+                            configuration,
+                            partitionByKeyTypes,
+                            MAX_COLUMN_TYPES
+                    );
+
+                    return new MaxOverPartitionFunction(
+                            map,
+                            partitionByRecord,
+                            partitionBySink,
+                            args.get(0),
+                            name,
+                            comparator
+                    );
+                } // between [unbounded | x] preceding and [x preceding | current row]
+                else {
+                    Map map = null;
+                    MemoryARW mem = null;
+                    try {
+                        map = MapFactory.createOrderedMap(
+                                configuration,
+                                partitionByKeyTypes,
+                                MAX_OVER_PARTITION_ROWS_COLUMN_TYPES
+                        );
+                        mem = Vm.getARWInstance(
+                                configuration.getSqlWindowStorePageSize(),
+                                configuration.getSqlWindowStoreMaxPages(),
+                                MemoryTag.NATIVE_CIRCULAR_BUFFER
+                        );
+
+                        // moving max over preceding N rows
+                        return new MaxOverPartitionRowsFrameFunction(
+                                map,
+                                partitionByRecord,
+                                partitionBySink,
+                                rowsLo,
+                                rowsHi,
+                                args.get(0),
+                                mem,
+                                name,
+                                comparator
+                        );
+                    } catch (Throwable th) {
+                        Misc.free(map);
+                        Misc.free(mem);
+                        throw th;
+                    }
+                }
+            }
+        } else { // no partition key
+            if (framingMode == WindowColumn.FRAMING_RANGE) {
+                // if there's no order by then all elements are equal in range mode, thus calculation is done on whole result set
+                if (!windowContext.isOrdered() && windowContext.isDefaultFrame()) {
+                    return new MaxOverWholeResultSetFunction(args.get(0), name, comparator);
+                } // between unbounded preceding and current row
+                else if (rowsLo == Long.MIN_VALUE && rowsHi == 0) {
+                    // same as for rows because calculation stops at current rows even if there are 'equal' following rows
+                    return new MaxOverUnboundedRowsFrameFunction(args.get(0), name, comparator);
+                } // range between [unbounded | x] preceding and [x preceding | current row]
+                else {
+                    if (windowContext.isOrdered() && !windowContext.isOrderedByDesignatedTimestamp()) {
+                        throw SqlException.$(windowContext.getOrderByPos(), "RANGE is supported only for queries ordered by designated timestamp");
+                    }
+
+                    int timestampIndex = windowContext.getTimestampIndex();
+
+                    // moving max over range between timestamp - rowsLo and timestamp + rowsHi (inclusive)
+                    return new MaxOverRangeFrameFunction(
+                            rowsLo,
+                            rowsHi,
+                            args.get(0),
+                            configuration,
+                            timestampIndex,
+                            name,
+                            comparator
+                    );
+                }
+            } else if (framingMode == WindowColumn.FRAMING_ROWS) {
+                // between unbounded preceding and current row
+                if (rowsLo == Long.MIN_VALUE && rowsHi == 0) {
+                    return new MaxOverUnboundedRowsFrameFunction(args.get(0), name, comparator);
+                } // between current row and current row
+                else if (rowsLo == 0 && rowsLo == rowsHi) {
+                    return new MaxOverCurrentRowFunction(args.get(0), name);
+                } // whole result set
+                else if (rowsLo == Long.MIN_VALUE && rowsHi == Long.MAX_VALUE) {
+                    return new MaxOverWholeResultSetFunction(args.get(0), name, comparator);
+                } // between [unbounded | x] preceding and [x preceding | current row]
+                else {
+                    MemoryARW mem = Vm.getARWInstance(
+                            configuration.getSqlWindowStorePageSize(),
+                            configuration.getSqlWindowStoreMaxPages(),
+                            MemoryTag.NATIVE_CIRCULAR_BUFFER
+                    );
+                    return new MaxOverRowsFrameFunction(
+                            args.get(0),
+                            rowsLo,
+                            rowsHi,
+                            mem,
+                            name,
+                            comparator
+                    );
+                }
+            }
+        }
+
+        throw SqlException.$(position, "function not implemented for given window parameters");
+    }
+
+    // folds value into current extremum, nulls (non-finite values) are ignored
+    private static double fold(DoubleComparator comparator, double value, double current) {
+        if (Numbers.isFinite(value) && (!Numbers.isFinite(current) || comparator.compare(value, current))) {
+            return value;
+        }
+        return current;
+    }
+
+    // Appends value to the monotonic deque of (row index, value) entries after removing the entries the value
+    // beats, so that the deque head always holds the extremum of the frame. Nulls (non-finite values) are ignored.
+    // Returns the new deque size.
+    private static int pushToDeque(
+            MemoryARW memory,
+            long dequeOffset,
+            int dequeCapacity,
+            long dequeHead,
+            int dequeSize,
+            long rowIndex,
+            double value,
+            DoubleComparator comparator
+    ) {
+        if (!Numbers.isFinite(value)) {
+            return dequeSize;
+        }
+        while (dequeSize > 0
+                && !comparator.compare(memory.getDouble(dequeOffset + ((dequeHead + dequeSize - 1) % dequeCapacity) * DEQUE_ENTRY_SIZE + Long.BYTES), value)) {
+            dequeSize--;
+        }
+        final long entryOffset = dequeOffset + ((dequeHead + dequeSize) % dequeCapacity) * DEQUE_ENTRY_SIZE;
+        memory.putLong(entryOffset, rowIndex);
+        memory.putDouble(entryOffset + Long.BYTES, value);
+        return dequeSize + 1;
+    }
+
+    @FunctionalInterface
+    interface DoubleComparator {
+        // returns true if value should replace current extremum
+        boolean compare(double value, double current);
+    }
+
+    // (rows between current row and current row) processes 1-element-big set, so simply it returns expression value
+    static class MaxOverCurrentRowFunction extends BaseDoubleWindowFunction {
+
+        private final String name;
+        private double value;
+
+        MaxOverCurrentRowFunction(Function arg, String name) {
+            super(arg);
+            this.name = name;
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            value = arg.getDouble(record);
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return value;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPassCount() {
+            return ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), value);
+        }
+    }
+
+    // handles max() over (partition by x)
+    // order by is absent so default frame mode includes all rows in partition
+    static class MaxOverPartitionFunction extends BasePartitionedDoubleWindowFunction {
+
+        private final DoubleComparator comparator;
+        private final String name;
+
+        public MaxOverPartitionFunction(
+                Map map,
+                VirtualRecord partitionByRecord,
+                RecordSink partitionBySink,
+                Function arg,
+                String name,
+                DoubleComparator comparator
+        ) {
+            super(map, partitionByRecord, partitionBySink, arg);
+            this.name = name;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.TWO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            double d = arg.getDouble(record);
+            if (Numbers.isFinite(d)) {
+                partitionByRecord.of(record);
+                MapKey key = map.withKey();
+                key.put(partitionByRecord, partitionBySink);
+                MapValue value = key.createValue();
+                if (value.isNew()) {
+                    value.putDouble(0, d);
+                } else {
+                    value.putDouble(0, fold(comparator, d, value.getDouble(0)));
+                }
+            }
+        }
+
+        @Override
+        public void pass2(Record record, long recordOffset, WindowSPI spi) {
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue value = key.findValue();
+
+            double val = value != null ? value.getDouble(0) : Double.NaN;
+
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), val);
+        }
+    }
+
+    // Handles max() over (partition by x order by ts range between [unbounded | y] preceding and [z preceding | current row])
+    // Frame values are kept in resizable ring buffers of [timestamp, value] pairs and max is found by scanning the frame.
+    // When lower bound is unbounded we fold values into the running max as they enter the frame and discard them,
+    // so buffer only contains values between upper bound and current row's value.
+    public static class MaxOverPartitionRangeFrameFunction extends BasePartitionedDoubleWindowFunction {
+
+        private static final int RECORD_SIZE = Long.BYTES + Double.BYTES;
+        private final DoubleComparator comparator;
+        private final boolean frameIncludesCurrentValue;
+        private final boolean frameLoBounded;
+        // list of [size, startOffset] pairs marking free space within mem
+        private final LongList freeList = new LongList();
+        private final int initialBufferSize;
+        private final long maxDiff;
+        // holds resizable ring buffers
+        private final MemoryARW memory;
+        private final long minDiff;
+        private final String name;
+        private final int timestampIndex;
+        private double max;
+
+        public MaxOverPartitionRangeFrameFunction(
+                Map map,
+                VirtualRecord partitionByRecord,
+                RecordSink partitionBySink,
+                long rangeLo,
+                long rangeHi,
+                Function arg,
+                MemoryARW memory,
+                int initialBufferSize,
+                int timestampIdx,
+                String name,
+                DoubleComparator comparator
+        ) {
+            super(map, partitionByRecord, partitionBySink, arg);
+            frameLoBounded = rangeLo != Long.MIN_VALUE;
+            maxDiff = frameLoBounded ? Math.abs(rangeLo) : Long.MAX_VALUE; // maxDiff must be used only if frameLoBounded
+            minDiff = Math.abs(rangeHi);
+            this.memory = memory;
+            this.initialBufferSize = initialBufferSize;
+            this.timestampIndex = timestampIdx;
+            this.name = name;
+            this.comparator = comparator;
+
+            frameIncludesCurrentValue = rangeHi == 0;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            memory.close();
+            freeList.clear();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            // map stores
+            // 0 - max of values that left the buffer, used only when frame lower bound is unbounded
+            // 1 - current number of non-null rows in in-memory frame (equals to frame size because we don't store nulls)
+            // 2 - native array start offset (relative to memory address)
+            // 3 - size of ring buffer (number of elements stored in it; not all of them need to belong to frame)
+            // 4 - capacity of ring buffer
+            // 5 - index of first (the oldest) valid buffer element
+            // actual frame data - [timestamp, value] pairs - is stored in mem at [ offset + first_idx*16, offset + last_idx*16]
+            // note: we ignore nulls to reduce memory usage
+
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue mapValue = key.createValue();
+
+            double acc;
+            long frameSize;
+            long startOffset;
+            long size;
+            long capacity;
+            long firstIdx;
+
+            long timestamp = record.getTimestamp(timestampIndex);
+            double d = arg.getDouble(record);
+
+            if (mapValue.isNew()) {
+                capacity = initialBufferSize;
+                startOffset = memory.appendAddressFor(capacity * RECORD_SIZE) - memory.getPageAddress(0);
+                firstIdx = 0;
+                acc = Double.NaN;
+
+                if (Numbers.isFinite(d)) {
+                    memory.putLong(startOffset, timestamp);
+                    memory.putDouble(startOffset + Long.BYTES, d);
+
+                    if (frameIncludesCurrentValue) {
+                        max = d;
+                        frameSize = 1;
+                        if (frameLoBounded) {
+                            size = 1;
+                        } else {
+                            acc = d;
+                            size = 0;
+                        }
+                    } else {
+                        max = Double.NaN;
+                        frameSize = 0;
+                        size = 1;
+                    }
+                } else {
+                    size = 0;
+                    max = Double.NaN;
+                    frameSize = 0;
+                }
+            } else {
+                acc = mapValue.getDouble(0);
+                frameSize = mapValue.getLong(1);
+                startOffset = mapValue.getLong(2);
+                size = mapValue.getLong(3);
+                capacity = mapValue.getLong(4);
+                firstIdx = mapValue.getLong(5);
+
+                long newFirstIdx = firstIdx;
+
+                if (frameLoBounded) {
+                    // find new bottom border of range frame and remove unneeded elements
+                    for (long i = 0, n = size; i < n; i++) {
+                        long idx = (firstIdx + i) % capacity;
+                        long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                        if (Math.abs(timestamp - ts) > maxDiff) {
+                            // if rangeHi < 0, some elements from the window can be not in the frame
+                            if (frameSize > 0) {
+                                frameSize--;
+                            }
+                            newFirstIdx = (idx + 1) % capacity;
+                            size--;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+                firstIdx = newFirstIdx;
+
+                // add new element if not null
+                if (Numbers.isFinite(d)) {
+                    if (size == capacity) { //buffer full
+                        capacity <<= 1;
+
+                        long oldAddress = memory.getPageAddress(0) + startOffset;
+                        long newAddress = -1;
+
+                        // try to find matching block in free list
+                        for (int i = 0, n = freeList.size(); i < n; i += 2) {
+                            if (freeList.getQuick(i) == capacity) {
+                                newAddress = memory.getPageAddress(0) + freeList.getQuick(i + 1);
+                                // replace block info with ours
+                                freeList.setQuick(i, size);
+                                freeList.setQuick(i + 1, startOffset);
+                                break;
+                            }
+                        }
+
+                        if (newAddress == -1) {
+                            newAddress = memory.appendAddressFor(capacity * RECORD_SIZE);
+                            // call above can end up resizing and thus changing memory start address
+                            oldAddress = memory.getPageAddress(0) + startOffset;
+                            freeList.add(size, startOffset);
+                        }
+
+                        if (firstIdx == 0) {
+                            Vect.memcpy(newAddress, oldAddress, size * RECORD_SIZE);
+                        } else {
+                            firstIdx %= size;
+                            //we can't simply copy because that'd leave a gap in the middle
+                            long firstPieceSize = (size - firstIdx) * RECORD_SIZE;
+                            Vect.memcpy(newAddress, oldAddress + firstIdx * RECORD_SIZE, firstPieceSize);
+                            Vect.memcpy(newAddress + firstPieceSize, oldAddress, firstIdx * RECORD_SIZE);
+                            firstIdx = 0;
+                        }
+
+                        startOffset = newAddress - memory.getPageAddress(0);
+                    }
+
+                    // add element to buffer
+                    memory.putLong(startOffset + ((firstIdx + size) % capacity) * RECORD_SIZE, timestamp);
+                    memory.putDouble(startOffset + ((firstIdx + size) % capacity) * RECORD_SIZE + Long.BYTES, d);
+                    size++;
+                }
+
+                if (frameLoBounded) {
+                    // find new top border of range frame and add new elements
+                    for (long i = frameSize; i < size; i++) {
+                        long idx = (firstIdx + i) % capacity;
+                        long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                        long diff = Math.abs(ts - timestamp);
+
+                        if (diff <= maxDiff && diff >= minDiff) {
+                            frameSize++;
+                        } else {
+                            break;
+                        }
+                    }
+
+                    max = Double.NaN;
+                    for (long i = 0; i < frameSize; i++) {
+                        long idx = (firstIdx + i) % capacity;
+                        max = fold(comparator, memory.getDouble(startOffset + idx * RECORD_SIZE + Long.BYTES), max);
+                    }
+                } else {
+                    newFirstIdx = firstIdx;
+                    for (long i = 0, n = size; i < n; i++) {
+                        long idx = (firstIdx + i) % capacity;
+                        long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                        if (Math.abs(timestamp - ts) >= minDiff) {
+                            acc = fold(comparator, memory.getDouble(startOffset + idx * RECORD_SIZE + Long.BYTES), acc);
+                            frameSize++;
+                            newFirstIdx = (idx + 1) % capacity;
+                            size--;
+                        } else {
+                            break;
+                        }
+                    }
+                    firstIdx = newFirstIdx;
+                    max = acc;
+                }
+            }
+
+            mapValue.putDouble(0, acc);
+            mapValue.putLong(1, frameSize);
+            mapValue.putLong(2, startOffset);
+            mapValue.putLong(3, size);
+            mapValue.putLong(4, capacity);
+            mapValue.putLong(5, firstIdx);
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return max;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), max);
+        }
+
+        @Override
+        public void reopen() {
+            super.reopen();
+            // memory will allocate on first use
+            max = Double.NaN;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            memory.close();
+            freeList.clear();
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            sink.val('(').val(arg).val(')');
+            sink.val(" over (");
+            sink.val("partition by ");
+            sink.val(partitionByRecord.getFunctions());
+            sink.val(" range between ");
+            if (frameLoBounded) {
+                sink.val(maxDiff);
+            } else {
+                sink.val("unbounded");
+            }
+            sink.val(" preceding and ");
+            if (minDiff == 0) {
+                sink.val("current row");
+            } else {
+                sink.val(minDiff).val(" preceding");
+            }
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            memory.truncate();
+            freeList.clear();
+        }
+    }
+
+    // handles max() over (partition by x [order by o] rows between y and z)
+    // values are kept in fixed-size ring buffers; when the frame lower bound is bounded, each ring buffer
+    // is followed by a monotonic deque of max candidates, same as in MaxOverRowsFrameFunction
+    static class MaxOverPartitionRowsFrameFunction extends BasePartitionedDoubleWindowFunction {
+
+        //number of values we need to keep to compute over frame
+        // (can be bigger than frame because we've to buffer values between rowsHi and current row )
+        private final int bufferSize;
+        private final DoubleComparator comparator;
+        private final int dequeCapacity;
+        private final boolean frameIncludesCurrentValue;
+        private final boolean frameLoBounded;
+        private final int frameSize;
+        // holds fixed-size ring buffers of double values
+        private final MemoryARW memory;
+        private final String name;
+        private double max;
+
+        public MaxOverPartitionRowsFrameFunction(
+                Map map,
+                VirtualRecord partitionByRecord,
+                RecordSink partitionBySink,
+                long rowsLo,
+                long rowsHi,
+                Function arg,
+                MemoryARW memory,
+                String name,
+                DoubleComparator comparator
+        ) {
+            super(map, partitionByRecord, partitionBySink, arg);
+
+            if (rowsLo > Long.MIN_VALUE) {
+                frameSize = (int) (rowsHi - rowsLo + (rowsHi < 0 ? 1 : 0));
+                bufferSize = (int) Math.abs(rowsLo);
+                frameLoBounded = true;
+            } else {
+                frameSize = 1;
+                bufferSize = (int) Math.abs(rowsHi);
+                frameLoBounded = false;
+            }
+            frameIncludesCurrentValue = rowsHi == 0;
+            dequeCapacity = frameLoBounded ? frameSize + 1 : 0;
+
+            this.memory = memory;
+            this.name = name;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            memory.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            // map stores:
+            // 0 - max of values that left the buffer, used only when frame lower bound is unbounded
+            // 1 - (0-based) index of oldest value [0, bufferSize]
+            // 2 - native array start offset (relative to memory address)
+            // 3 - number of rows seen in the partition
+            // 4 - index of the deque head
+            // 5 - deque size
+            // we keep nulls in window and reject them when computing max
+
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue value = key.createValue();
+
+            double acc;
+            long loIdx;//current index of lo frame value ('oldest')
+            long startOffset;
+            long rowIndex;
+            long dequeHead;
+            int dequeSize;
+            double d = arg.getDouble(record);
+
+            if (value.isNew()) {
+                acc = Double.NaN;
+                loIdx = 0;
+                rowIndex = 0;
+                dequeHead = 0;
+                dequeSize = 0;
+                startOffset = memory.appendAddressFor((long) bufferSize * Double.BYTES + (long) dequeCapacity * DEQUE_ENTRY_SIZE) - memory.getPageAddress(0);
+                for (int i = 0; i < bufferSize; i++) {
+                    memory.putDouble(startOffset + (long) i * Double.BYTES, Double.NaN);
+                }
+            } else {
+                acc = value.getDouble(0);
+                loIdx = value.getLong(1);
+                startOffset = value.getLong(2);
+                rowIndex = value.getLong(3);
+                dequeHead = value.getLong(4);
+                dequeSize = (int) value.getLong(5);
+            }
+
+            if (frameLoBounded) {
+                final long dequeOffset = startOffset + (long) bufferSize * Double.BYTES;
+                // values older than rowsLo leave the frame
+                while (dequeSize > 0 && memory.getLong(dequeOffset + dequeHead * DEQUE_ENTRY_SIZE) < rowIndex - bufferSize) {
+                    dequeHead = (dequeHead + 1) % dequeCapacity;
+                    dequeSize--;
+                }
+                if (frameIncludesCurrentValue) {
+                    dequeSize = pushToDeque(memory, dequeOffset, dequeCapacity, dequeHead, dequeSize, rowIndex, d, comparator);
+                } else {
+                    // the value that is rowsHi rows back enters the frame
+                    final double entering = memory.getDouble(startOffset + ((loIdx + frameSize - 1) % bufferSize) * Double.BYTES);
+                    dequeSize = pushToDeque(memory, dequeOffset, dequeCapacity, dequeHead, dequeSize, rowIndex - bufferSize + frameSize - 1, entering, comparator);
+                }
+                max = dequeSize > 0 ? memory.getDouble(dequeOffset + dequeHead * DEQUE_ENTRY_SIZE + Long.BYTES) : Double.NaN;
+            } else {
+                // the oldest buffered value enters the frame
+                acc = fold(comparator, memory.getDouble(startOffset + loIdx * Double.BYTES), acc);
+                max = acc;
+            }
+
+            value.putDouble(0, acc);
+            value.putLong(1, (loIdx + 1) % bufferSize);
+            value.putLong(2, startOffset);
+            value.putLong(3, rowIndex + 1);
+            value.putLong(4, dequeHead);
+            value.putLong(5, dequeSize);
+            memory.putDouble(startOffset + loIdx * Double.BYTES, d);
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return max;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), max);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            memory.close();
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            sink.val('(').val(arg).val(')');
+            sink.val(" over (");
+            sink.val("partition by ");
+            sink.val(partitionByRecord.getFunctions());
+
+            sink.val(" rows between ");
+            if (frameLoBounded) {
+                sink.val(bufferSize);
+            } else {
+                sink.val("unbounded");
+            }
+            sink.val(" preceding and ");
+            if (frameIncludesCurrentValue) {
+                sink.val("current row");
+            } else if (frameLoBounded) {
+                sink.val(bufferSize - frameSize).val(" preceding");
+            } else {
+                sink.val(bufferSize).val(" preceding");
+            }
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            memory.truncate();
+        }
+    }
+
+    // Handles max() over ([order by ts] range between [unbounded | x] preceding and [ x preceding | current row ] ); no partition by key
+    // When lower bound is unbounded we fold values into the running max as they enter the frame and discard them,
+    // so buffer only contains values between upper bound and current row's value.
+    static class MaxOverRangeFrameFunction extends BaseDoubleWindowFunction implements Reopenable {
+        private static final int RECORD_SIZE = Long.BYTES + Double.BYTES;
+        private final DoubleComparator comparator;
+        private final boolean frameLoBounded;
+        private final long initialCapacity;
+        private final long maxDiff;
+        // holds resizable ring buffers
+        // actual frame data - [timestamp, value] pairs - is stored in mem at [ offset + first_idx*16, offset + last_idx*16]
+        // note: we ignore nulls to reduce memory usage
+        private final MemoryARW memory;
+        private final long minDiff;
+        private final String name;
+        private final int timestampIndex;
+        // max of values that left the buffer, used only when frame lower bound is unbounded
+        private double acc;
+        private long capacity;
+        private long firstIdx;
+        private long frameSize;
+        private double max;
+        private long size;
+        private long startOffset;
+
+        public MaxOverRangeFrameFunction(
+                long rangeLo,
+                long rangeHi,
+                Function arg,
+                CairoConfiguration configuration,
+                int timestampIdx,
+                String name,
+                DoubleComparator comparator
+        ) {
+            super(arg);
+            this.initialCapacity = configuration.getSqlWindowStorePageSize() / RECORD_SIZE;
+            this.memory = Vm.getARWInstance(configuration.getSqlWindowStorePageSize(), configuration.getSqlWindowStoreMaxPages(), MemoryTag.NATIVE_CIRCULAR_BUFFER);
+            this.name = name;
+            this.comparator = comparator;
+            frameLoBounded = rangeLo != Long.MIN_VALUE;
+            maxDiff = frameLoBounded ? Math.abs(rangeLo) : Long.MAX_VALUE; // maxDiff must be used only if frameLoBounded
+            minDiff = Math.abs(rangeHi);
+            timestampIndex = timestampIdx;
+
+            capacity = initialCapacity;
+            startOffset = memory.appendAddressFor(capacity * RECORD_SIZE) - memory.getPageAddress(0);
+            firstIdx = 0;
+            frameSize = 0;
+            acc = Double.NaN;
+            max = Double.NaN;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            memory.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            long timestamp = record.getTimestamp(timestampIndex);
+            double d = arg.getDouble(record);
+
+            long newFirstIdx = firstIdx;
+
+            if (frameLoBounded) {
+                // find new bottom border of range frame and remove unneeded elements
+                for (long i = 0, n = size; i < n; i++) {
+                    long idx = (firstIdx + i) % capacity;
+                    long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                    if (Math.abs(timestamp - ts) > maxDiff) {
+                        // if rangeHi < 0, some elements from the window can be not in the frame
+                        if (frameSize > 0) {
+                            frameSize--;
+                        }
+                        newFirstIdx = (idx + 1) % capacity;
+                        size--;
+                    } else {
+                        break;
+                    }
+                }
+            }
+            firstIdx = newFirstIdx;
+
+            // add new element if not null
+            if (Numbers.isFinite(d)) {
+                if (size == capacity) { //buffer full
+                    long newAddress = memory.appendAddressFor((capacity << 1) * RECORD_SIZE);
+                    // call above can end up resizing and thus changing memory start address
+                    long oldAddress = memory.getPageAddress(0) + startOffset;
+
+                    if (firstIdx == 0) {
+                        Vect.memcpy(newAddress, oldAddress, size * RECORD_SIZE);
+                    } else {
+                        firstIdx %= size;
+                        //we can't simply copy because that'd leave a gap in the middle
+                        long firstPieceSize = (size - firstIdx) * RECORD_SIZE;
+                        Vect.memcpy(newAddress, oldAddress + firstIdx * RECORD_SIZE, firstPieceSize);
+                        Vect.memcpy(newAddress + firstPieceSize, oldAddress, firstIdx * RECORD_SIZE);
+                        firstIdx = 0;
+                    }
+
+                    startOffset = newAddress - memory.getPageAddress(0);
+                    capacity <<= 1;
+                }
+
+                // add element to buffer
+                memory.putLong(startOffset + ((firstIdx + size) % capacity) * RECORD_SIZE, timestamp);
+                memory.putDouble(startOffset + ((firstIdx + size) % capacity) * RECORD_SIZE + Long.BYTES, d);
+                size++;
+            }
+
+            if (frameLoBounded) {
+                // find new top border of range frame and add new elements
+                for (long i = frameSize, n = size; i < n; i++) {
+                    long idx = (firstIdx + i) % capacity;
+                    long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                    long diff = Math.abs(ts - timestamp);
+
+                    if (diff <= maxDiff && diff >= minDiff) {
+                        frameSize++;
+                    } else {
+                        break;
+                    }
+                }
+
+                max = Double.NaN;
+                for (long i = 0; i < frameSize; i++) {
+                    long idx = (firstIdx + i) % capacity;
+                    max = fold(comparator, memory.getDouble(startOffset + idx * RECORD_SIZE + Long.BYTES), max);
+                }
+            } else {
+                newFirstIdx = firstIdx;
+                for (long i = 0, n = size; i < n; i++) {
+                    long idx = (firstIdx + i) % capacity;
+                    long ts = memory.getLong(startOffset + idx * RECORD_SIZE);
+                    if (Math.abs(timestamp - ts) >= minDiff) {
+                        acc = fold(comparator, memory.getDouble(startOffset + idx * RECORD_SIZE + Long.BYTES), acc);
+                        frameSize++;
+                        newFirstIdx = (idx + 1) % capacity;
+                        size--;
+                    } else {
+                        break;
+                    }
+                }
+                firstIdx = newFirstIdx;
+                max = acc;
+            }
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return max;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), max);
+        }
+
+        @Override
+        public void reopen() {
+            acc = Double.NaN;
+            max = Double.NaN;
+            capacity = initialCapacity;
+            startOffset = memory.appendAddressFor(capacity * RECORD_SIZE) - memory.getPageAddress(0);
+            firstIdx = 0;
+            frameSize = 0;
+            size = 0;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            memory.close();
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            sink.val('(').val(arg).val(')');
+            sink.val(" over (");
+            sink.val("range between ");
+            if (frameLoBounded) {
+                sink.val(maxDiff);
+            } else {
+                sink.val("unbounded");
+            }
+            sink.val(" preceding and ");
+            if (minDiff == 0) {
+                sink.val("current row");
+            } else {
+                sink.val(minDiff).val(" preceding");
+            }
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            acc = Double.NaN;
+            max = Double.NaN;
+            capacity = initialCapacity;
+            memory.truncate();
+            startOffset = memory.appendAddressFor(capacity * RECORD_SIZE) - memory.getPageAddress(0);
+            firstIdx = 0;
+            frameSize = 0;
+            size = 0;
+        }
+    }
+
+    // Handles max() over ([order by o] rows between y and z); there's no partition by.
+    // Values are kept in a fixed-size ring buffer. When the frame lower bound is bounded, the candidates
+    // for max are kept in a monotonic deque that follows the buffer, so that each row takes amortised O(1).
+    static class MaxOverRowsFrameFunction extends BaseDoubleWindowFunction implements Reopenable {
+        private final MemoryARW buffer;
+        private final int bufferSize;
+        private final DoubleComparator comparator;
+        private final int dequeCapacity;
+        private final boolean frameIncludesCurrentValue;
+        private final boolean frameLoBounded;
+        private final int frameSize;
+        private final String name;
+        // max of values that left the buffer, used only when frame lower bound is unbounded
+        private double acc = Double.NaN;
+        private int dequeHead = 0;
+        private int dequeSize = 0;
+        private int loIdx = 0;
+        private double max = Double.NaN;
+        private long rowIndex = 0;
+
+        public MaxOverRowsFrameFunction(
+                Function arg,
+                long rowsLo,
+                long rowsHi,
+                MemoryARW memory,
+                String name,
+                DoubleComparator comparator
+        ) {
+            super(arg);
+
+            assert rowsLo != Long.MIN_VALUE || rowsHi != 0; // use MaxOverUnboundedRowsFrameFunction in case of (Long.MIN_VALUE, 0) range
+            if (rowsLo > Long.MIN_VALUE) {
+                frameSize = (int) (rowsHi - rowsLo + (rowsHi < 0 ? 1 : 0));
+                bufferSize = (int) Math.abs(rowsLo);//number of values we need to keep to compute over frame
+                frameLoBounded = true;
+            } else {
+                frameSize = 1;
+                bufferSize = (int) Math.abs(rowsHi);
+                frameLoBounded = false;
+            }
+
+            frameIncludesCurrentValue = rowsHi == 0;
+            dequeCapacity = frameLoBounded ? frameSize + 1 : 0;
+            this.buffer = memory;
+            this.name = name;
+            this.comparator = comparator;
+            try {
+                initBuffer();
+            } catch (Throwable t) {
+                close();
+                throw t;
+            }
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            buffer.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            double d = arg.getDouble(record);
+
+            if (frameLoBounded) {
+                final long dequeOffset = (long) bufferSize * Double.BYTES;
+                // values older than rowsLo leave the frame
+                while (dequeSize > 0 && buffer.getLong(dequeOffset + (long) dequeHead * DEQUE_ENTRY_SIZE) < rowIndex - bufferSize) {
+                    dequeHead = (dequeHead + 1) % dequeCapacity;
+                    dequeSize--;
+                }
+                if (frameIncludesCurrentValue) {
+                    dequeSize = pushToDeque(buffer, dequeOffset, dequeCapacity, dequeHead, dequeSize, rowIndex, d, comparator);
+                } else {
+                    // the value that is rowsHi rows back enters the frame
+                    final double entering = buffer.getDouble((long) ((loIdx + frameSize - 1) % bufferSize) * Double.BYTES);
+                    dequeSize = pushToDeque(buffer, dequeOffset, dequeCapacity, dequeHead, dequeSize, rowIndex - bufferSize + frameSize - 1, entering, comparator);
+                }
+                max = dequeSize > 0 ? buffer.getDouble(dequeOffset + (long) dequeHead * DEQUE_ENTRY_SIZE + Long.BYTES) : Double.NaN;
+            } else {
+                // the oldest buffered value enters the frame
+                acc = fold(comparator, buffer.getDouble((long) loIdx * Double.BYTES), acc);
+                max = acc;
+            }
+
+            //overwrite oldest element
+            buffer.putDouble((long) loIdx * Double.BYTES, d);
+            loIdx = (loIdx + 1) % bufferSize;
+            rowIndex++;
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return max;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), max);
+        }
+
+        @Override
+        public void reopen() {
+            acc = Double.NaN;
+            max = Double.NaN;
+            loIdx = 0;
+            initBuffer();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            buffer.close();
+            acc = Double.NaN;
+            max = Double.NaN;
+            loIdx = 0;
+            rowIndex = 0;
+            dequeHead = 0;
+            dequeSize = 0;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(getName());
+            sink.val('(').val(arg).val(')');
+            sink.val(" over (");
+            sink.val("rows between ");
+            if (frameLoBounded) {
+                sink.val(bufferSize);
+            } else {
+                sink.val("unbounded");
+            }
+            sink.val(" preceding and ");
+            if (frameIncludesCurrentValue) {
+                sink.val("current row");
+            } else if (frameLoBounded) {
+                sink.val(bufferSize - frameSize).val(" preceding");
+            } else {
+                sink.val(bufferSize).val(" preceding");
+            }
+            sink.val(')');
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            acc = Double.NaN;
+            max = Double.NaN;
+            loIdx = 0;
+            initBuffer();
+        }
+
+        private void initBuffer() {
+            for (int i = 0; i < bufferSize; i++) {
+                buffer.putDouble((long) i * Double.BYTES, Double.NaN);
+            }
+            rowIndex = 0;
+            dequeHead = 0;
+            dequeSize = 0;
+        }
+    }
+
+    // Handles:
+    // - max(a) over (partition by x rows between unbounded preceding and current row)
+    // - max(a) over (partition by x order by ts range between unbounded preceding and current row)
+    // Doesn't require value buffering.
+    static class MaxOverUnboundedPartitionRowsFrameFunction extends BasePartitionedDoubleWindowFunction {
+
+        private final DoubleComparator comparator;
+        private final String name;
+        private double max;
+
+        public MaxOverUnboundedPartitionRowsFrameFunction(
+                Map map,
+                VirtualRecord partitionByRecord,
+                RecordSink partitionBySink,
+                Function arg,
+                String name,
+                DoubleComparator comparator
+        ) {
+            super(map, partitionByRecord, partitionBySink, arg);
+            this.name = name;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            partitionByRecord.of(record);
+            MapKey key = map.withKey();
+            key.put(partitionByRecord, partitionBySink);
+            MapValue value = key.createValue();
+
+            double current = value.isNew() ? Double.NaN : value.getDouble(0);
+            max = fold(comparator, arg.getDouble(record), current);
+            value.putDouble(0, max);
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return max;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), max);
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(name);
+            sink.val('(').val(arg).val(')');
+            sink.val(" over (");
+            sink.val("partition by ");
+            sink.val(partitionByRecord.getFunctions());
+            sink.val(" rows between unbounded preceding and current row)");
+        }
+    }
+
+    // Handles max() over (rows between unbounded preceding and current row); there's no partition by.
+    static class MaxOverUnboundedRowsFrameFunction extends BaseDoubleWindowFunction {
+
+        private final DoubleComparator comparator;
+        private final String name;
+        private double max = Double.NaN;
+
+        public MaxOverUnboundedRowsFrameFunction(Function arg, String name, DoubleComparator comparator) {
+            super(arg);
+            this.name = name;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            max = fold(comparator, arg.getDouble(record), max);
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return max;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.ZERO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), max);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            max = Double.NaN;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(name);
+            sink.val('(').val(arg).val(')');
+            sink.val(" over (rows between unbounded preceding and current row)");
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            max = Double.NaN;
+        }
+    }
+
+    // max() over () - empty clause, no partition by no order by, no frame == default frame
+    static class MaxOverWholeResultSetFunction extends BaseDoubleWindowFunction {
+        private final DoubleComparator comparator;
+        private final String name;
+        private double max = Double.NaN;
+
+        public MaxOverWholeResultSetFunction(Function arg, String name, DoubleComparator comparator) {
+            super(arg);
+            this.name = name;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPassCount() {
+            return WindowFunction.TWO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, WindowSPI spi) {
+            max = fold(comparator, arg.getDouble(record), max);
+        }
+
+        @Override
+        public void pass2(Record record, long recordOffset, WindowSPI spi) {
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), max);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            max = Double.NaN;
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            max = Double.NaN;
+        }
+    }
+
+    static {
+        MAX_COLUMN_TYPES = new ArrayColumnTypes();
+        MAX_COLUMN_TYPES.add(ColumnType.DOUBLE);
+
+        MAX_OVER_PARTITION_RANGE_COLUMN_TYPES = new ArrayColumnTypes();
+        MAX_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.DOUBLE);// max of values that left the buffer
+        MAX_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);  // number of (non-null) values in current frame
+        MAX_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);  // native array start offset, requires updating on resize
+        MAX_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);  // native buffer size
+        MAX_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);  // native buffer capacity
+        MAX_OVER_PARTITION_RANGE_COLUMN_TYPES.add(ColumnType.LONG);  // index of first buffered element
+
+        MAX_OVER_PARTITION_ROWS_COLUMN_TYPES = new ArrayColumnTypes();
+        MAX_OVER_PARTITION_ROWS_COLUMN_TYPES.add(ColumnType.DOUBLE);// max of values that left the buffer
+        MAX_OVER_PARTITION_ROWS_COLUMN_TYPES.add(ColumnType.LONG);// position of current oldest element
+        MAX_OVER_PARTITION_ROWS_COLUMN_TYPES.add(ColumnType.LONG);// start offset of native array
+        MAX_OVER_PARTITION_ROWS_COLUMN_TYPES.add(ColumnType.LONG);// number of rows seen in the partition
+        MAX_OVER_PARTITION_ROWS_COLUMN_TYPES.add(ColumnType.LONG);// index of the deque head
+        MAX_OVER_PARTITION_ROWS_COLUMN_TYPES.add(ColumnType.LONG);// deque size
+    }
+}
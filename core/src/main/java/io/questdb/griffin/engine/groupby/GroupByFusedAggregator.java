@@ -0,0 +1,370 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.ListColumnFilter;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageAddressCache;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.columns.DoubleColumn;
+import io.questdb.griffin.engine.functions.columns.IntColumn;
+import io.questdb.griffin.engine.functions.columns.LongColumn;
+import io.questdb.griffin.engine.functions.groupby.*;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Fused key and aggregate update loop for the most common GROUP BY shape: a single INT, SYMBOL
+ * or LONG key column and count/sum/avg/min/max functions over INT, LONG or DOUBLE columns.
+ * <p>
+ * The key and the function arguments are read straight from page frame memory, so the loop
+ * avoids virtual calls through the map sink, the page frame record and the function arguments.
+ * Map values are laid out and updated exactly like the replaced group by functions do it,
+ * so the functions are still used to merge, read and finalize the values.
+ * <p>
+ * Instances hold per-frame state and must not be shared between threads.
+ */
+public class GroupByFusedAggregator {
+    private static final int OP_AVG_DOUBLE = 0;
+    private static final int OP_COUNT = 1;
+    private static final int OP_COUNT_DOUBLE = 2;
+    private static final int OP_COUNT_INT = 3;
+    private static final int OP_COUNT_LONG = 4;
+    private static final int OP_MAX_DOUBLE = 5;
+    private static final int OP_MAX_INT = 6;
+    private static final int OP_MAX_LONG = 7;
+    private static final int OP_MIN_DOUBLE = 8;
+    private static final int OP_MIN_INT = 9;
+    private static final int OP_MIN_LONG = 10;
+    private static final int OP_SUM_DOUBLE = 11;
+    private static final int OP_SUM_INT = 12;
+    private static final int OP_SUM_LONG = 13;
+    private final LongList argAddresses = new LongList();
+    private final IntList argColumnIndexes;
+    private final int keyColumnIndex;
+    private final boolean longKey;
+    private final IntList ops;
+    private final IntList valueIndexes;
+
+    private GroupByFusedAggregator(int keyColumnIndex, boolean longKey, IntList ops, IntList argColumnIndexes, IntList valueIndexes) {
+        this.keyColumnIndex = keyColumnIndex;
+        this.longKey = longKey;
+        this.ops = ops;
+        this.argColumnIndexes = argColumnIndexes;
+        this.valueIndexes = valueIndexes;
+        argAddresses.setPos(ops.size());
+    }
+
+    /**
+     * Returns a fused aggregator for the given GROUP BY or null when the key or any of
+     * the functions are not supported.
+     *
+     * @param columnTypes      types of the base page frame columns
+     * @param listColumnFilter key columns of the base page frames
+     * @param keyFunctions     functions producing non-column keys
+     * @param groupByFunctions group by functions
+     * @return fused aggregator or null
+     */
+    @Nullable
+    public static GroupByFusedAggregator newInstance(
+            @NotNull ColumnTypes columnTypes,
+            @NotNull ListColumnFilter listColumnFilter,
+            @Nullable ObjList<Function> keyFunctions,
+            @NotNull ObjList<GroupByFunction> groupByFunctions
+    ) {
+        if ((keyFunctions != null && keyFunctions.size() > 0) || listColumnFilter.getColumnCount() != 1 || groupByFunctions.size() == 0) {
+            return null;
+        }
+
+        final int keyColumnIndex = Math.abs(listColumnFilter.getColumnIndex(0)) - 1;
+        final int keyType = columnTypes.getColumnType(keyColumnIndex);
+        if (keyType != ColumnType.INT && keyType != ColumnType.LONG && !ColumnType.isSymbol(keyType)) {
+            return null;
+        }
+
+        final IntList ops = new IntList(groupByFunctions.size());
+        final IntList argColumnIndexes = new IntList(groupByFunctions.size());
+        final IntList valueIndexes = new IntList(groupByFunctions.size());
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            final GroupByFunction function = groupByFunctions.getQuick(i);
+            final int op;
+            final int argColumnIndex;
+            if (function.getClass() == CountLongConstGroupByFunction.class) {
+                op = OP_COUNT;
+                argColumnIndex = -1;
+            } else if (function instanceof UnaryFunction) {
+                final Function arg = ((UnaryFunction) function).getArg();
+                final Class<?> clazz = function.getClass();
+                if (arg instanceof DoubleColumn) {
+                    argColumnIndex = ((DoubleColumn) arg).getColumnIndex();
+                    if (clazz == AvgDoubleGroupByFunction.class) {
+                        op = OP_AVG_DOUBLE;
+                    } else if (clazz == CountDoubleGroupByFunction.class) {
+                        op = OP_COUNT_DOUBLE;
+                    } else if (clazz == MaxDoubleGroupByFunction.class) {
+                        op = OP_MAX_DOUBLE;
+                    } else if (clazz == MinDoubleGroupByFunction.class) {
+                        op = OP_MIN_DOUBLE;
+                    } else if (clazz == SumDoubleGroupByFunction.class) {
+                        op = OP_SUM_DOUBLE;
+                    } else {
+                        return null;
+                    }
+                } else if (arg instanceof IntColumn) {
+                    argColumnIndex = ((IntColumn) arg).getColumnIndex();
+                    if (clazz == CountIntGroupByFunction.class) {
+                        op = OP_COUNT_INT;
+                    } else if (clazz == MaxIntGroupByFunction.class) {
+                        op = OP_MAX_INT;
+                    } else if (clazz == MinIntGroupByFunction.class) {
+                        op = OP_MIN_INT;
+                    } else if (clazz == SumIntGroupByFunction.class) {
+                        op = OP_SUM_INT;
+                    } else {
+                        return null;
+                    }
+                } else if (arg instanceof LongColumn) {
+                    argColumnIndex = ((LongColumn) arg).getColumnIndex();
+                    if (clazz == CountLongGroupByFunction.class) {
+                        op = OP_COUNT_LONG;
+                    } else if (clazz == MaxLongGroupByFunction.class) {
+                        op = OP_MAX_LONG;
+                    } else if (clazz == MinLongGroupByFunction.class) {
+                        op = OP_MIN_LONG;
+                    } else if (clazz == SumLongGroupByFunction.class) {
+                        op = OP_SUM_LONG;
+                    } else {
+                        return null;
+                    }
+                } else {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+            ops.add(op);
+            argColumnIndexes.add(argColumnIndex);
+            valueIndexes.add(function.getValueIndex());
+        }
+        return new GroupByFusedAggregator(keyColumnIndex, keyType == ColumnType.LONG, ops, argColumnIndexes, valueIndexes);
+    }
+
+    /**
+     * Aggregates all rows of the page frame.
+     */
+    public void aggregate(Map map, PageAddressCache pageAddressCache, int frameIndex, long frameRowCount) {
+        final long keyAddress = of(pageAddressCache, frameIndex);
+        for (long r = 0; r < frameRowCount; r++) {
+            aggregateRow(map, keyAddress, r);
+        }
+    }
+
+    /**
+     * Aggregates the filtered rows of the page frame.
+     */
+    public void aggregateFiltered(Map map, PageAddressCache pageAddressCache, int frameIndex, DirectLongList rows) {
+        final long keyAddress = of(pageAddressCache, frameIndex);
+        for (long p = 0, n = rows.size(); p < n; p++) {
+            aggregateRow(map, keyAddress, rows.get(p));
+        }
+    }
+
+    private void aggregateRow(Map map, long keyAddress, long r) {
+        final MapKey key = map.withKey();
+        if (longKey) {
+            key.putLong(Unsafe.getUnsafe().getLong(keyAddress + (r << 3)));
+        } else {
+            key.putInt(Unsafe.getUnsafe().getInt(keyAddress + (r << 2)));
+        }
+        final MapValue value = key.createValue();
+        if (value.isNew()) {
+            computeFirst(value, r);
+        } else {
+            computeNext(value, r);
+        }
+    }
+
+    private void computeFirst(MapValue value, long r) {
+        for (int i = 0, n = ops.size(); i < n; i++) {
+            final int valueIndex = valueIndexes.getQuick(i);
+            final long argAddress = argAddresses.getQuick(i);
+            switch (ops.getQuick(i)) {
+                case OP_COUNT:
+                    value.putLong(valueIndex, 1);
+                    break;
+                case OP_AVG_DOUBLE:
+                case OP_SUM_DOUBLE: {
+                    final double d = Unsafe.getUnsafe().getDouble(argAddress + (r << 3));
+                    if (Numbers.isFinite(d)) {
+                        value.putDouble(valueIndex, d);
+                        value.putLong(valueIndex + 1, 1);
+                    } else {
+                        value.putDouble(valueIndex, 0);
+                        value.putLong(valueIndex + 1, 0);
+                    }
+                    break;
+                }
+                case OP_COUNT_DOUBLE:
+                    value.putLong(valueIndex, Numbers.isFinite(Unsafe.getUnsafe().getDouble(argAddress + (r << 3))) ? 1 : 0);
+                    break;
+                case OP_MAX_DOUBLE:
+                case OP_MIN_DOUBLE:
+                    value.putDouble(valueIndex, Unsafe.getUnsafe().getDouble(argAddress + (r << 3)));
+                    break;
+                case OP_COUNT_INT:
+                    value.putLong(valueIndex, Unsafe.getUnsafe().getInt(argAddress + (r << 2)) != Numbers.INT_NULL ? 1 : 0);
+                    break;
+                case OP_MAX_INT:
+                case OP_MIN_INT:
+                    value.putInt(valueIndex, Unsafe.getUnsafe().getInt(argAddress + (r << 2)));
+                    break;
+                case OP_SUM_INT: {
+                    final int v = Unsafe.getUnsafe().getInt(argAddress + (r << 2));
+                    if (v != Numbers.INT_NULL) {
+                        value.putLong(valueIndex, v);
+                        value.putLong(valueIndex + 1, 1);
+                    } else {
+                        value.putLong(valueIndex, 0);
+                        value.putLong(valueIndex + 1, 0);
+                    }
+                    break;
+                }
+                case OP_COUNT_LONG:
+                    value.putLong(valueIndex, Unsafe.getUnsafe().getLong(argAddress + (r << 3)) != Numbers.LONG_NULL ? 1 : 0);
+                    break;
+                case OP_MAX_LONG:
+                case OP_MIN_LONG:
+                    value.putLong(valueIndex, Unsafe.getUnsafe().getLong(argAddress + (r << 3)));
+                    break;
+                case OP_SUM_LONG: {
+                    final long l = Unsafe.getUnsafe().getLong(argAddress + (r << 3));
+                    if (l != Numbers.LONG_NULL) {
+                        value.putLong(valueIndex, l);
+                        value.putLong(valueIndex + 1, 1);
+                    } else {
+                        value.putLong(valueIndex, 0);
+                        value.putLong(valueIndex + 1, 0);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    private void computeNext(MapValue value, long r) {
+        for (int i = 0, n = ops.size(); i < n; i++) {
+            final int valueIndex = valueIndexes.getQuick(i);
+            final long argAddress = argAddresses.getQuick(i);
+            switch (ops.getQuick(i)) {
+                case OP_COUNT:
+                    value.addLong(valueIndex, 1);
+                    break;
+                case OP_AVG_DOUBLE:
+                case OP_SUM_DOUBLE: {
+                    final double d = Unsafe.getUnsafe().getDouble(argAddress + (r << 3));
+                    if (Numbers.isFinite(d)) {
+                        value.addDouble(valueIndex, d);
+                        value.addLong(valueIndex + 1, 1);
+                    }
+                    break;
+                }
+                case OP_COUNT_DOUBLE:
+                    if (Numbers.isFinite(Unsafe.getUnsafe().getDouble(argAddress + (r << 3)))) {
+                        value.addLong(valueIndex, 1);
+                    }
+                    break;
+                case OP_MAX_DOUBLE: {
+                    final double max = value.getDouble(valueIndex);
+                    final double next = Unsafe.getUnsafe().getDouble(argAddress + (r << 3));
+                    if (next > max || Numbers.isNull(max)) {
+                        value.putDouble(valueIndex, next);
+                    }
+                    break;
+                }
+                case OP_MIN_DOUBLE: {
+                    final double min = value.getDouble(valueIndex);
+                    final double next = Unsafe.getUnsafe().getDouble(argAddress + (r << 3));
+                    if (next < min || Numbers.isNull(min)) {
+                        value.putDouble(valueIndex, next);
+                    }
+                    break;
+                }
+                case OP_COUNT_INT:
+                    if (Unsafe.getUnsafe().getInt(argAddress + (r << 2)) != Numbers.INT_NULL) {
+                        value.addLong(valueIndex, 1);
+                    }
+                    break;
+                case OP_MAX_INT:
+                    value.maxInt(valueIndex, Unsafe.getUnsafe().getInt(argAddress + (r << 2)));
+                    break;
+                case OP_MIN_INT:
+                    value.minInt(valueIndex, Unsafe.getUnsafe().getInt(argAddress + (r << 2)));
+                    break;
+                case OP_SUM_INT: {
+                    final int v = Unsafe.getUnsafe().getInt(argAddress + (r << 2));
+                    if (v != Numbers.INT_NULL) {
+                        value.addLong(valueIndex, v);
+                        value.addLong(valueIndex + 1, 1);
+                    }
+                    break;
+                }
+                case OP_COUNT_LONG:
+                    if (Unsafe.getUnsafe().getLong(argAddress + (r << 3)) != Numbers.LONG_NULL) {
+                        value.addLong(valueIndex, 1);
+                    }
+                    break;
+                case OP_MAX_LONG:
+                    value.maxLong(valueIndex, Unsafe.getUnsafe().getLong(argAddress + (r << 3)));
+                    break;
+                case OP_MIN_LONG:
+                    value.minLong(valueIndex, Unsafe.getUnsafe().getLong(argAddress + (r << 3)));
+                    break;
+                case OP_SUM_LONG: {
+                    final long l = Unsafe.getUnsafe().getLong(argAddress + (r << 3));
+                    if (l != Numbers.LONG_NULL) {
+                        value.addLong(valueIndex, l);
+                        value.addLong(valueIndex + 1, 1);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    private long of(PageAddressCache pageAddressCache, int frameIndex) {
+        for (int i = 0, n = argColumnIndexes.size(); i < n; i++) {
+            final int columnIndex = argColumnIndexes.getQuick(i);
+            argAddresses.setQuick(i, columnIndex != -1 ? pageAddressCache.getPageAddress(frameIndex, columnIndex) : 0);
+        }
+        return pageAddressCache.getPageAddress(frameIndex, keyColumnIndex);
+    }
+}
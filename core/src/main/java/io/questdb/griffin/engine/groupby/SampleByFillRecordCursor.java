@@ -0,0 +1,650 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapRecordCursor;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.BinarySequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.DoubleList;
+import io.questdb.std.IntList;
+import io.questdb.std.Long256;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Utf8Sequence;
+import org.jetbrains.annotations.Nullable;
+
+class SampleByFillRecordCursor implements NoRandomAccessRecordCursor {
+    private static final int VALUE_FIRST_ROW_ID = 0;
+    private static final int VALUE_LAST_BUCKET = 2;
+    private static final int VALUE_LAST_ROW_ID = 1;
+    // the values below are present only when some columns are filled with linear interpolation
+    private static final int VALUE_LATEST_POSITION = 6;
+    private static final int VALUE_NEXT_ROW_ID = 5;
+    private static final int VALUE_PREV_ROW_ID = 4;
+    private static final int VALUE_SECOND_ROW_ID = 3;
+    // all columns are read from the base record
+    private final ObjList<Function> baseFills;
+    private final FillRecord fillRecord = new FillRecord();
+    private final RecordSink keySink;
+    private final IntList linearColumnTypes;
+    private final IntList linearColumns;
+    private final DoubleList linearValues;
+    // null when the query has no keys; the state of the only key is kept in the fields below
+    private final Map map;
+    // row id of the next row of the same key for each row of the base cursor, used by linear fill
+    private final DirectLongList nextRowIds;
+    private final ObjList<Function> noPrevFills;
+    private final ObjList<Function> prevFills;
+    private final TimestampSampler sampler;
+    private final int timestampIndex;
+    private RecordCursor base;
+    private Record baseRecord;
+    private Record baseRecordB;
+    private long bucket;
+    private SqlExecutionCircuitBreaker circuitBreaker;
+    private boolean hasPendingRow;
+    private boolean isBucketPending;
+    private boolean isInitialized;
+    private boolean isOpen;
+    private MapRecordCursor keyCursor;
+    private long maxTimestamp;
+    private long nextBucket;
+    private long notKeyedFirstRowId;
+    private long notKeyedLastBucket;
+    private long notKeyedLastRowId;
+    private long notKeyedNextRowId;
+    private long notKeyedPrevRowId;
+    private long notKeyedSecondRowId;
+    private long position;
+
+    SampleByFillRecordCursor(
+            @Nullable Map map,
+            @Nullable RecordSink keySink,
+            TimestampSampler sampler,
+            int timestampIndex,
+            ObjList<Function> prevFills,
+            ObjList<Function> noPrevFills,
+            IntList linearColumns,
+            IntList linearColumnTypes,
+            DoubleList linearValues
+    ) {
+        this.map = map;
+        this.keySink = keySink;
+        this.sampler = sampler;
+        this.timestampIndex = timestampIndex;
+        this.prevFills = prevFills;
+        this.noPrevFills = noPrevFills;
+        this.linearColumns = linearColumns;
+        this.linearColumnTypes = linearColumnTypes;
+        this.linearValues = linearValues;
+        this.baseFills = new ObjList<>(prevFills.size());
+        baseFills.setPos(prevFills.size());
+        this.nextRowIds = linearColumns.size() > 0 ? new DirectLongList(16, MemoryTag.NATIVE_SAMPLE_BY_LONG_LIST) : null;
+        this.isOpen = true;
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            Misc.free(map);
+            Misc.free(nextRowIds);
+            base = Misc.free(base);
+            baseRecord = null;
+            baseRecordB = null;
+            keyCursor = null;
+        }
+    }
+
+    @Override
+    public Record getRecord() {
+        return fillRecord;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isInitialized) {
+            initialize();
+            isInitialized = true;
+        }
+
+        while (true) {
+            if (isBucketPending) {
+                if (map == null) {
+                    isBucketPending = false;
+                    if (nextRowIds != null && notKeyedLastBucket != bucket) {
+                        interpolate(notKeyedFirstRowId, notKeyedSecondRowId, notKeyedPrevRowId, notKeyedLastRowId, notKeyedNextRowId);
+                    }
+                    emit(notKeyedFirstRowId, notKeyedLastRowId, notKeyedLastBucket);
+                    return true;
+                }
+                if (keyCursor.hasNext()) {
+                    final MapValue value = keyCursor.getRecord().getValue();
+                    if (nextRowIds != null && value.getLong(VALUE_LAST_BUCKET) != bucket) {
+                        interpolate(
+                                value.getLong(VALUE_FIRST_ROW_ID),
+                                value.getLong(VALUE_SECOND_ROW_ID),
+                                value.getLong(VALUE_PREV_ROW_ID),
+                                value.getLong(VALUE_LAST_ROW_ID),
+                                value.getLong(VALUE_NEXT_ROW_ID)
+                        );
+                    }
+                    emit(value.getLong(VALUE_FIRST_ROW_ID), value.getLong(VALUE_LAST_ROW_ID), value.getLong(VALUE_LAST_BUCKET));
+                    return true;
+                }
+                isBucketPending = false;
+            }
+
+            if (nextBucket > maxTimestamp) {
+                return false;
+            }
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            bucket = nextBucket;
+            nextBucket = sampler.nextTimestamp(bucket);
+            consumeBucket();
+        }
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return base.newSymbolTable(columnIndex);
+    }
+
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        if (!isOpen) {
+            isOpen = true;
+            if (map != null) {
+                map.reopen();
+            }
+            if (nextRowIds != null) {
+                nextRowIds.reopen();
+            }
+        }
+        this.base = base;
+        baseRecord = base.getRecord();
+        baseRecordB = base.getRecordB();
+        circuitBreaker = executionContext.getCircuitBreaker();
+        isInitialized = false;
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        base.toTop();
+        isInitialized = false;
+    }
+
+    // rounds the interpolated value the way it is stored in a column of the given type
+    private static double toColumnType(double value, int columnType) {
+        if (Double.isNaN(value)) {
+            return value;
+        }
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                return (byte) value;
+            case ColumnType.SHORT:
+                return (short) value;
+            case ColumnType.INT:
+                return (int) value;
+            case ColumnType.LONG:
+                return (long) value;
+            case ColumnType.FLOAT:
+                return (float) value;
+            default:
+                return value;
+        }
+    }
+
+    private void consumeBucket() {
+        // group-by produces at most one row per key in a bucket
+        while (hasPendingRow && baseRecord.getTimestamp(timestampIndex) < nextBucket) {
+            final long rowId = baseRecord.getRowId();
+            final long nextRowId = nextRowIds != null ? nextRowIds.get(position++) : -1;
+            if (map != null) {
+                final MapKey key = map.withKey();
+                keySink.copy(baseRecord, key);
+                final MapValue value = key.findValue();
+                if (nextRowIds != null) {
+                    value.putLong(VALUE_PREV_ROW_ID, value.getLong(VALUE_LAST_ROW_ID));
+                    value.putLong(VALUE_NEXT_ROW_ID, nextRowId);
+                }
+                value.putLong(VALUE_LAST_ROW_ID, rowId);
+                value.putLong(VALUE_LAST_BUCKET, bucket);
+            } else {
+                notKeyedPrevRowId = notKeyedLastRowId;
+                notKeyedNextRowId = nextRowId;
+                notKeyedLastRowId = rowId;
+                notKeyedLastBucket = bucket;
+            }
+            hasPendingRow = base.hasNext();
+        }
+
+        if (map != null) {
+            keyCursor.toTop();
+        }
+        isBucketPending = true;
+    }
+
+    private void emit(long firstRowId, long lastRowId, long lastBucket) {
+        if (lastBucket == bucket) {
+            base.recordAt(baseRecordB, lastRowId);
+            fillRecord.of(baseFills, false);
+        } else if (lastRowId != -1) {
+            base.recordAt(baseRecordB, lastRowId);
+            fillRecord.of(prevFills, true);
+        } else {
+            // there is no previous row, but the keys can be read from any row of the key
+            base.recordAt(baseRecordB, firstRowId);
+            fillRecord.of(noPrevFills, true);
+        }
+    }
+
+    // The slope is taken from the last bucket of the key and the bucket right before it,
+    // which holds either a row or a value interpolated between the last two rows.
+    private void extrapolateAfter(long prevRowId, long lastRowId) {
+        final int n = linearColumns.size();
+        base.recordAt(baseRecordB, prevRowId);
+        final long prevTimestamp = baseRecordB.getTimestamp(timestampIndex);
+        for (int i = 0; i < n; i++) {
+            final int columnIndex = linearColumns.getQuick(i);
+            linearValues.setQuick(columnIndex, getValue(columnIndex, linearColumnTypes.getQuick(i)));
+        }
+        base.recordAt(baseRecordB, lastRowId);
+        final long x2 = baseRecordB.getTimestamp(timestampIndex);
+        final long x1 = sampler.previousTimestamp(x2);
+        for (int i = 0; i < n; i++) {
+            final int columnIndex = linearColumns.getQuick(i);
+            final int columnType = linearColumnTypes.getQuick(i);
+            final double y2 = getValue(columnIndex, columnType);
+            double y1 = linearValues.getQuick(columnIndex);
+            if (x1 != prevTimestamp) {
+                y1 = toColumnType(InterpolationUtil.interpolate(x1, prevTimestamp, y1, x2, y2), columnType);
+            }
+            linearValues.setQuick(columnIndex, InterpolationUtil.interpolate(bucket, x1, y1, x2, y2));
+        }
+    }
+
+    // NaN stands for null
+    private double getValue(int columnIndex, int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                return baseRecordB.getByte(columnIndex);
+            case ColumnType.SHORT:
+                return baseRecordB.getShort(columnIndex);
+            case ColumnType.INT:
+                final int i = baseRecordB.getInt(columnIndex);
+                return i != Numbers.INT_NULL ? i : Double.NaN;
+            case ColumnType.LONG:
+                final long l = baseRecordB.getLong(columnIndex);
+                return l != Numbers.LONG_NULL ? l : Double.NaN;
+            case ColumnType.FLOAT:
+                return baseRecordB.getFloat(columnIndex);
+            default:
+                return baseRecordB.getDouble(columnIndex);
+        }
+    }
+
+    private void initialize() {
+        // collect the keys in the order of their first appearance
+        long minTimestamp = Long.MAX_VALUE;
+        maxTimestamp = Long.MIN_VALUE;
+        if (map != null) {
+            map.clear();
+        }
+        if (nextRowIds != null) {
+            nextRowIds.clear();
+        }
+        notKeyedFirstRowId = -1;
+        notKeyedSecondRowId = -1;
+        long notKeyedLatestPosition = -1;
+        while (base.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            final long timestamp = baseRecord.getTimestamp(timestampIndex);
+            if (minTimestamp == Long.MAX_VALUE) {
+                minTimestamp = timestamp;
+            }
+            maxTimestamp = timestamp;
+            final long rowId = baseRecord.getRowId();
+            if (map != null) {
+                final MapKey key = map.withKey();
+                keySink.copy(baseRecord, key);
+                final MapValue value = key.createValue();
+                if (value.isNew()) {
+                    value.putLong(VALUE_FIRST_ROW_ID, rowId);
+                    value.putLong(VALUE_LAST_ROW_ID, -1);
+                    value.putLong(VALUE_LAST_BUCKET, Long.MIN_VALUE);
+                    if (nextRowIds != null) {
+                        value.putLong(VALUE_SECOND_ROW_ID, -1);
+                        value.putLong(VALUE_PREV_ROW_ID, -1);
+                        value.putLong(VALUE_NEXT_ROW_ID, -1);
+                        value.putLong(VALUE_LATEST_POSITION, nextRowIds.size());
+                    }
+                } else if (nextRowIds != null) {
+                    linkNextRow(rowId, value.getLong(VALUE_LATEST_POSITION));
+                    if (value.getLong(VALUE_SECOND_ROW_ID) == -1) {
+                        value.putLong(VALUE_SECOND_ROW_ID, rowId);
+                    }
+                    value.putLong(VALUE_LATEST_POSITION, nextRowIds.size());
+                }
+            } else {
+                if (notKeyedFirstRowId == -1) {
+                    notKeyedFirstRowId = rowId;
+                } else if (notKeyedSecondRowId == -1) {
+                    notKeyedSecondRowId = rowId;
+                }
+                if (nextRowIds != null) {
+                    linkNextRow(rowId, notKeyedLatestPosition);
+                    notKeyedLatestPosition = nextRowIds.size();
+                }
+            }
+            if (nextRowIds != null) {
+                nextRowIds.add(-1);
+            }
+        }
+        notKeyedLastRowId = -1;
+        notKeyedPrevRowId = -1;
+        notKeyedNextRowId = -1;
+        notKeyedLastBucket = Long.MIN_VALUE;
+        isBucketPending = false;
+        position = 0;
+
+        base.toTop();
+        hasPendingRow = base.hasNext();
+        nextBucket = hasPendingRow ? sampler.round(minTimestamp) : Long.MAX_VALUE;
+        if (map != null) {
+            keyCursor = map.getCursor();
+        }
+    }
+
+    // Computes the values of the linear fill columns in the current bucket. Gaps between
+    // the rows of the key are interpolated, while the gaps before the first and after
+    // the last row are extrapolated from the two nearest buckets, the same way as
+    // SampleByInterpolateRecordCursorFactory does. A key with a single row gets nulls.
+    private void interpolate(long firstRowId, long secondRowId, long prevRowId, long lastRowId, long nextRowId) {
+        if (lastRowId == -1) {
+            interpolateBetween(firstRowId, secondRowId);
+        } else if (nextRowId != -1) {
+            interpolateBetween(lastRowId, nextRowId);
+        } else if (prevRowId != -1) {
+            extrapolateAfter(prevRowId, lastRowId);
+        } else {
+            for (int i = 0, n = linearColumns.size(); i < n; i++) {
+                linearValues.setQuick(linearColumns.getQuick(i), Double.NaN);
+            }
+        }
+    }
+
+    private void interpolateBetween(long rowId1, long rowId2) {
+        final int n = linearColumns.size();
+        if (rowId2 == -1) {
+            for (int i = 0; i < n; i++) {
+                linearValues.setQuick(linearColumns.getQuick(i), Double.NaN);
+            }
+            return;
+        }
+        base.recordAt(baseRecordB, rowId2);
+        final long x2 = baseRecordB.getTimestamp(timestampIndex);
+        for (int i = 0; i < n; i++) {
+            final int columnIndex = linearColumns.getQuick(i);
+            linearValues.setQuick(columnIndex, getValue(columnIndex, linearColumnTypes.getQuick(i)));
+        }
+        base.recordAt(baseRecordB, rowId1);
+        final long x1 = baseRecordB.getTimestamp(timestampIndex);
+        for (int i = 0; i < n; i++) {
+            final int columnIndex = linearColumns.getQuick(i);
+            final double y1 = getValue(columnIndex, linearColumnTypes.getQuick(i));
+            linearValues.setQuick(columnIndex, InterpolationUtil.interpolate(bucket, x1, y1, x2, linearValues.getQuick(columnIndex)));
+        }
+    }
+
+    // links the row at the given position to the next row of the same key
+    private void linkNextRow(long rowId, long latestPosition) {
+        if (latestPosition != -1) {
+            nextRowIds.set(latestPosition, rowId);
+        }
+    }
+
+    private class FillRecord implements Record {
+        private ObjList<Function> fills;
+        private boolean isFilled;
+
+        @Override
+        public BinarySequence getBin(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getBin(null) : baseRecordB.getBin(col);
+        }
+
+        @Override
+        public long getBinLen(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getBinLen(null) : baseRecordB.getBinLen(col);
+        }
+
+        @Override
+        public boolean getBool(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getBool(null) : baseRecordB.getBool(col);
+        }
+
+        @Override
+        public byte getByte(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getByte(null) : baseRecordB.getByte(col);
+        }
+
+        @Override
+        public char getChar(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getChar(null) : baseRecordB.getChar(col);
+        }
+
+        @Override
+        public long getDate(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getDate(null) : baseRecordB.getDate(col);
+        }
+
+        @Override
+        public double getDouble(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getDouble(null) : baseRecordB.getDouble(col);
+        }
+
+        @Override
+        public float getFloat(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getFloat(null) : baseRecordB.getFloat(col);
+        }
+
+        @Override
+        public byte getGeoByte(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getGeoByte(null) : baseRecordB.getGeoByte(col);
+        }
+
+        @Override
+        public int getGeoInt(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getGeoInt(null) : baseRecordB.getGeoInt(col);
+        }
+
+        @Override
+        public long getGeoLong(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getGeoLong(null) : baseRecordB.getGeoLong(col);
+        }
+
+        @Override
+        public short getGeoShort(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getGeoShort(null) : baseRecordB.getGeoShort(col);
+        }
+
+        @Override
+        public int getIPv4(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getIPv4(null) : baseRecordB.getIPv4(col);
+        }
+
+        @Override
+        public int getInt(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getInt(null) : baseRecordB.getInt(col);
+        }
+
+        @Override
+        public long getLong(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getLong(null) : baseRecordB.getLong(col);
+        }
+
+        @Override
+        public long getLong128Hi(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getLong128Hi(null) : baseRecordB.getLong128Hi(col);
+        }
+
+        @Override
+        public long getLong128Lo(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getLong128Lo(null) : baseRecordB.getLong128Lo(col);
+        }
+
+        @Override
+        public void getLong256(int col, CharSink<?> sink) {
+            final Function fill = fills.getQuick(col);
+            if (fill != null) {
+                fill.getLong256(null, sink);
+            } else {
+                baseRecordB.getLong256(col, sink);
+            }
+        }
+
+        @Override
+        public Long256 getLong256A(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getLong256A(null) : baseRecordB.getLong256A(col);
+        }
+
+        @Override
+        public Long256 getLong256B(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getLong256B(null) : baseRecordB.getLong256B(col);
+        }
+
+        @Override
+        public short getShort(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getShort(null) : baseRecordB.getShort(col);
+        }
+
+        @Override
+        public CharSequence getStrA(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getStrA(null) : baseRecordB.getStrA(col);
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getStrB(null) : baseRecordB.getStrB(col);
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getStrLen(null) : baseRecordB.getStrLen(col);
+        }
+
+        @Override
+        public CharSequence getSymA(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getSymbol(null) : baseRecordB.getSymA(col);
+        }
+
+        @Override
+        public CharSequence getSymB(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getSymbolB(null) : baseRecordB.getSymB(col);
+        }
+
+        @Override
+        public long getTimestamp(int col) {
+            if (isFilled && col == timestampIndex) {
+                return bucket;
+            }
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getTimestamp(null) : baseRecordB.getTimestamp(col);
+        }
+
+        @Override
+        public Utf8Sequence getVarcharA(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getVarcharA(null) : baseRecordB.getVarcharA(col);
+        }
+
+        @Override
+        public Utf8Sequence getVarcharB(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getVarcharB(null) : baseRecordB.getVarcharB(col);
+        }
+
+        @Override
+        public int getVarcharSize(int col) {
+            final Function fill = fills.getQuick(col);
+            return fill != null ? fill.getVarcharSize(null) : baseRecordB.getVarcharSize(col);
+        }
+
+        void of(ObjList<Function> fills, boolean isFilled) {
+            this.fills = fills;
+            this.isFilled = isFilled;
+        }
+    }
+}
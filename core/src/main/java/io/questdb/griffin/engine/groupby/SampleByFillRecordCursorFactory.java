@@ -0,0 +1,345 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ListColumnFilter;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.RecordSinkFactory;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.ByteFunction;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.functions.FloatFunction;
+import io.questdb.griffin.engine.functions.IntFunction;
+import io.questdb.griffin.engine.functions.LongFunction;
+import io.questdb.griffin.engine.functions.ShortFunction;
+import io.questdb.griffin.engine.functions.constants.Constants;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Chars;
+import io.questdb.std.DoubleList;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+
+import static io.questdb.griffin.SqlKeywords.isLinearKeyword;
+import static io.questdb.griffin.SqlKeywords.isNullKeyword;
+import static io.questdb.griffin.SqlKeywords.isPrevKeyword;
+
+/**
+ * Fills the gaps in the output of SAMPLE BY query that was executed as (parallel) GROUP BY
+ * on the floored timestamp. The base cursor must be ordered by the timestamp and support
+ * random access. The cursor makes a pass over the base cursor to collect the keys and then
+ * emits every key for each time bucket between the first and the last bucket. Missing rows
+ * are filled with the previous values of the key, nulls, constants or values interpolated
+ * between the neighbouring buckets of the key.
+ */
+public class SampleByFillRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final SampleByFillRecordCursor cursor;
+    private final ObjList<String> fillValues = new ObjList<>();
+    private final String stride;
+
+    public SampleByFillRecordCursorFactory(
+            @Transient @NotNull BytecodeAssembler asm,
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            @NotNull TimestampSampler timestampSampler,
+            @Transient @NotNull ExpressionNode strideNode,
+            @Transient @NotNull ObjList<ExpressionNode> fillValues,
+            @Transient @NotNull IntList valueColumnIndexes,
+            int timestampIndex
+    ) throws SqlException {
+        super(base.getMetadata());
+        this.base = base;
+        this.stride = Chars.toString(strideNode.token);
+        final RecordMetadata metadata = base.getMetadata();
+        final int columnCount = metadata.getColumnCount();
+
+        // fill functions of the columns, null means that the column value comes from the base record
+        final ObjList<Function> prevFills = new ObjList<>(columnCount);
+        // used when a key has no previous row to take values from
+        final ObjList<Function> noPrevFills = new ObjList<>(columnCount);
+        prevFills.setPos(columnCount);
+        noPrevFills.setPos(columnCount);
+
+        final int fillValueCount = fillValues.size();
+        final boolean singleFill = fillValueCount == 1
+                && (isPrevKeyword(fillValues.getQuick(0).token) || isNullKeyword(fillValues.getQuick(0).token) || isLinearKeyword(fillValues.getQuick(0).token));
+        // interpolated values of the linear fill columns, indexed by column
+        final DoubleList linearValues = new DoubleList(columnCount);
+        linearValues.setPos(columnCount);
+        final IntList linearColumns = new IntList();
+        final IntList fillPositions = new IntList(columnCount);
+        fillPositions.setPos(columnCount);
+        for (int i = 0, n = valueColumnIndexes.size(); i < n; i++) {
+            final int columnIndex = valueColumnIndexes.getQuick(i);
+            final int columnType = metadata.getColumnType(columnIndex);
+            final ExpressionNode fillNode;
+            if (singleFill) {
+                fillNode = fillValues.getQuick(0);
+            } else if (i < fillValueCount) {
+                fillNode = fillValues.getQuick(i);
+            } else {
+                throw SqlException.position(0).put("not enough values");
+            }
+
+            if (isPrevKeyword(fillNode.token)) {
+                noPrevFills.setQuick(columnIndex, Constants.getNullConstant(columnType));
+            } else if (isLinearKeyword(fillNode.token)) {
+                final Function linearFill = createLinearFillFunction(linearValues, columnIndex, columnType, fillNode.position);
+                prevFills.setQuick(columnIndex, linearFill);
+                noPrevFills.setQuick(columnIndex, linearFill);
+                linearColumns.add(columnIndex);
+            } else if (isNullKeyword(fillNode.token)) {
+                final Function nullConstant = Constants.getNullConstant(columnType);
+                prevFills.setQuick(columnIndex, nullConstant);
+                noPrevFills.setQuick(columnIndex, nullConstant);
+            } else {
+                fillPositions.setQuick(columnIndex, fillNode.position);
+                final Function constant = SampleByFillValueRecordCursorFactory.createPlaceHolderFunction(fillPositions, columnIndex, columnType, fillNode);
+                prevFills.setQuick(columnIndex, constant);
+                noPrevFills.setQuick(columnIndex, constant);
+            }
+        }
+
+        for (int i = 0, n = singleFill ? 1 : fillValueCount; i < n; i++) {
+            this.fillValues.add(Chars.toString(fillValues.getQuick(i).token));
+        }
+
+        // the remaining columns, except for the timestamp, are the keys
+        final ListColumnFilter keyColumnFilter = new ListColumnFilter();
+        final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+        for (int i = 0; i < columnCount; i++) {
+            if (i != timestampIndex && !valueColumnIndexes.contains(i)) {
+                keyColumnFilter.add(i + 1);
+                keyTypes.add(metadata.getColumnType(i));
+            }
+        }
+
+        Map map = null;
+        RecordSink keySink = null;
+        if (keyTypes.getColumnCount() > 0) {
+            final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+            valueTypes.add(ColumnType.LONG); // row id of the first row of the key
+            valueTypes.add(ColumnType.LONG); // row id of the last seen row of the key
+            valueTypes.add(ColumnType.LONG); // bucket of the last seen row
+            if (linearColumns.size() > 0) {
+                valueTypes.add(ColumnType.LONG); // row id of the second row of the key
+                valueTypes.add(ColumnType.LONG); // row id of the row before the last seen one
+                valueTypes.add(ColumnType.LONG); // row id of the row after the last seen one
+                valueTypes.add(ColumnType.LONG); // position of the latest row of the key in the base cursor
+            }
+            map = MapFactory.createOrderedMap(configuration, keyTypes, valueTypes);
+            keySink = RecordSinkFactory.getInstance(asm, metadata, keyColumnFilter, false);
+        }
+
+        final IntList linearColumnTypes = new IntList(linearColumns.size());
+        for (int i = 0, n = linearColumns.size(); i < n; i++) {
+            linearColumnTypes.add(metadata.getColumnType(linearColumns.getQuick(i)));
+        }
+        this.cursor = new SampleByFillRecordCursor(
+                map,
+                keySink,
+                timestampSampler,
+                timestampIndex,
+                prevFills,
+                noPrevFills,
+                linearColumns,
+                linearColumnTypes,
+                linearValues
+        );
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (Throwable th) {
+            baseCursor.close();
+            cursor.close();
+            throw th;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Fill");
+        sink.attr("stride").val('\'').val(stride).val('\'');
+        sink.attr("fill").val(fillValues);
+        sink.child(base);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    private static Function createLinearFillFunction(DoubleList values, int columnIndex, int columnType, int position) throws SqlException {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                return new LinearByteFillFunction(values, columnIndex);
+            case ColumnType.SHORT:
+                return new LinearShortFillFunction(values, columnIndex);
+            case ColumnType.INT:
+                return new LinearIntFillFunction(values, columnIndex);
+            case ColumnType.LONG:
+                return new LinearLongFillFunction(values, columnIndex);
+            case ColumnType.FLOAT:
+                return new LinearFloatFillFunction(values, columnIndex);
+            case ColumnType.DOUBLE:
+                return new LinearDoubleFillFunction(values, columnIndex);
+            default:
+                throw SqlException.$(position, "Unsupported interpolation type: ").put(ColumnType.nameOf(columnType));
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+        Misc.free(cursor);
+    }
+
+    // NaN stands for null, types without null get zero
+    private static class LinearByteFillFunction extends ByteFunction {
+        private final int columnIndex;
+        private final DoubleList values;
+
+        private LinearByteFillFunction(DoubleList values, int columnIndex) {
+            this.values = values;
+            this.columnIndex = columnIndex;
+        }
+
+        @Override
+        public byte getByte(Record rec) {
+            return (byte) values.getQuick(columnIndex);
+        }
+    }
+
+    private static class LinearDoubleFillFunction extends DoubleFunction {
+        private final int columnIndex;
+        private final DoubleList values;
+
+        private LinearDoubleFillFunction(DoubleList values, int columnIndex) {
+            this.values = values;
+            this.columnIndex = columnIndex;
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return values.getQuick(columnIndex);
+        }
+    }
+
+    private static class LinearFloatFillFunction extends FloatFunction {
+        private final int columnIndex;
+        private final DoubleList values;
+
+        private LinearFloatFillFunction(DoubleList values, int columnIndex) {
+            this.values = values;
+            this.columnIndex = columnIndex;
+        }
+
+        @Override
+        public float getFloat(Record rec) {
+            return (float) values.getQuick(columnIndex);
+        }
+    }
+
+    private static class LinearIntFillFunction extends IntFunction {
+        private final int columnIndex;
+        private final DoubleList values;
+
+        private LinearIntFillFunction(DoubleList values, int columnIndex) {
+            this.values = values;
+            this.columnIndex = columnIndex;
+        }
+
+        @Override
+        public int getInt(Record rec) {
+            final double value = values.getQuick(columnIndex);
+            return Double.isNaN(value) ? Numbers.INT_NULL : (int) value;
+        }
+    }
+
+    private static class LinearLongFillFunction extends LongFunction {
+        private final int columnIndex;
+        private final DoubleList values;
+
+        private LinearLongFillFunction(DoubleList values, int columnIndex) {
+            this.values = values;
+            this.columnIndex = columnIndex;
+        }
+
+        @Override
+        public long getLong(Record rec) {
+            final double value = values.getQuick(columnIndex);
+            return Double.isNaN(value) ? Numbers.LONG_NULL : (long) value;
+        }
+    }
+
+    private static class LinearShortFillFunction extends ShortFunction {
+        private final int columnIndex;
+        private final DoubleList values;
+
+        private LinearShortFillFunction(DoubleList values, int columnIndex) {
+            this.values = values;
+            this.columnIndex = columnIndex;
+        }
+
+        @Override
+        public short getShort(Record rec) {
+            return (short) values.getQuick(columnIndex);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.BinarySearch;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Rows;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Holds the slave side of parallel non-keyed ASOF and LT joins. Slave page frames are
+ * opened on the query owner thread and their addresses are cached, so that the worker
+ * threads can look up the slave row for each master row by reading the designated
+ * timestamp column directly. The cache is read-only once built and is safe for
+ * concurrent lookups.
+ */
+public class AsyncAsOfJoinAtom implements StatefulAtom {
+    private final int masterTimestampIndex;
+    // Per-frame first slave timestamps, used to pick the frame to search in.
+    private final LongList slaveFrameFirstTimestamps = new LongList();
+    private final LongList slaveFrameRowCounts = new LongList();
+    private final PageAddressCache slavePageAddressCache;
+    private final int slaveTimestampIndex;
+    // LT join looks for slave timestamps strictly less than the master one.
+    private final long timestampShift;
+    private SqlExecutionCircuitBreaker circuitBreaker;
+    private boolean slaveFramesOpen;
+    private PageFrameCursor slavePageFrameCursor;
+
+    public AsyncAsOfJoinAtom(
+            @NotNull CairoConfiguration configuration,
+            int masterTimestampIndex,
+            int slaveTimestampIndex,
+            boolean strict
+    ) {
+        this.masterTimestampIndex = masterTimestampIndex;
+        this.slaveTimestampIndex = slaveTimestampIndex;
+        this.timestampShift = strict ? -1 : 0;
+        this.slavePageAddressCache = new PageAddressCache(configuration);
+    }
+
+    @Override
+    public void clear() {
+        slavePageFrameCursor = Misc.free(slavePageFrameCursor);
+        slavePageAddressCache.clear();
+        slaveFrameFirstTimestamps.clear();
+        slaveFrameRowCounts.clear();
+        slaveFramesOpen = false;
+        circuitBreaker = null;
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    /**
+     * Returns slave position, as encoded by {@link Rows#toRowID(int, long)}, of the last
+     * slave row that matches the given master timestamp or -1 if there is no such row.
+     * Master timestamps are expected to be non-decreasing across the calls that pass the
+     * previously found position as the hint.
+     *
+     * @param masterTimestamp master row timestamp
+     * @param hint            previously found slave position or -1
+     * @return slave position or -1
+     */
+    public long findSlave(long masterTimestamp, long hint) {
+        final long timestamp = masterTimestamp + timestampShift;
+        final int frameCount = slaveFrameRowCounts.size();
+        int frameIndex;
+        long rowLo;
+        if (hint == -1) {
+            frameIndex = findFrame(timestamp, 0, frameCount - 1);
+            if (frameIndex == -1) {
+                return -1;
+            }
+            rowLo = 0;
+        } else {
+            frameIndex = Rows.toPartitionIndex(hint);
+            rowLo = Rows.toLocalRowID(hint);
+            if (frameIndex + 1 < frameCount && slaveFrameFirstTimestamps.getQuick(frameIndex + 1) <= timestamp) {
+                frameIndex = findFrame(timestamp, frameIndex + 1, frameCount - 1);
+                rowLo = 0;
+            }
+        }
+
+        final long timestampAddress = slavePageAddressCache.getPageAddress(frameIndex, slaveTimestampIndex);
+        final long rowHi = slaveFrameRowCounts.getQuick(frameIndex) - 1;
+        // Fast path for master rows that are past the end of the slave frame.
+        if (Unsafe.getUnsafe().getLong(timestampAddress + (rowHi << 3)) <= timestamp) {
+            return Rows.toRowID(frameIndex, rowHi);
+        }
+        // The row at rowLo is known to match, so the search never goes below it.
+        final long row = Vect.boundedBinarySearch64Bit(timestampAddress, timestamp, rowLo, rowHi, BinarySearch.SCAN_DOWN);
+        return Rows.toRowID(frameIndex, row);
+    }
+
+    public long getMasterTimestamp(Record record) {
+        return record.getTimestamp(masterTimestampIndex);
+    }
+
+    public PageAddressCache getSlavePageAddressCache() {
+        return slavePageAddressCache;
+    }
+
+    public PageFrameCursor getSlavePageFrameCursor() {
+        return slavePageFrameCursor;
+    }
+
+    /**
+     * Sets the slave page frame cursor. The atom takes ownership of the cursor.
+     */
+    public void of(
+            RecordMetadata slaveMetadata,
+            PageFrameCursor slavePageFrameCursor,
+            SqlExecutionCircuitBreaker circuitBreaker
+    ) {
+        this.slavePageFrameCursor = slavePageFrameCursor;
+        this.circuitBreaker = circuitBreaker;
+        slavePageAddressCache.of(slaveMetadata);
+        slaveFramesOpen = false;
+    }
+
+    /**
+     * Opens slave page frames and caches their addresses. Must be called on the query
+     * owner thread before any master page frame is dispatched. The call may be repeated
+     * after a {@link io.questdb.cairo.DataUnavailableException}, in which case it resumes
+     * from the frame that failed to open.
+     */
+    public void openSlaveFrames() {
+        if (slaveFramesOpen) {
+            return;
+        }
+        PageFrame frame;
+        while ((frame = slavePageFrameCursor.next()) != null) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            final long rowCount = frame.getPartitionHi() - frame.getPartitionLo();
+            if (rowCount > 0) {
+                slavePageAddressCache.add(slaveFrameRowCounts.size(), frame);
+                slaveFrameRowCounts.add(rowCount);
+                slaveFrameFirstTimestamps.add(Unsafe.getUnsafe().getLong(frame.getPageAddress(slaveTimestampIndex)));
+            }
+        }
+        slaveFramesOpen = true;
+    }
+
+    // Returns the last frame in [lo, hi] with the first timestamp not greater than the given one.
+    private int findFrame(long timestamp, int lo, int hi) {
+        int result = lo - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (slaveFrameFirstTimestamps.getQuick(mid) <= timestamp) {
+                result = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,299 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.Reopenable;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the hash table of parallel hash join. Slave rows are partitioned into shards
+ * by the key hash code on the query owner thread. Each shard's hash table is then built
+ * by the first thread to claim it, so that the build is spread across the threads that
+ * probe master page frames. Built shards are read-only and can be probed concurrently.
+ * <p>
+ * Only single-column joins on fixed-size integer keys are supported, see
+ * {@link #isSupportedKeyType(int)}.
+ */
+public class AsyncHashJoinLightAtom implements StatefulAtom, Closeable, Reopenable {
+    // Shards start small and grow on the first build, so that an idle factory
+    // kept in the query cache holds next to no memory.
+    private static final int INITIAL_SHARD_CAPACITY = 32;
+    // We use the first 8 bits of a hash code to determine the shard.
+    private static final int MAX_SHARDS = 128;
+    private static final int MIN_TABLE_CAPACITY = 16;
+    private static final int STATE_BUILDING = 1;
+    private static final int STATE_BUILT = 2;
+    private static final int STATE_FAILED = 3;
+    private static final int STATE_PENDING = 0;
+    private final int keyType;
+    private final int masterKeyIndex;
+    private final int shardCount;
+    private final int shardCountShr;
+    private final ObjList<Shard> shards;
+    private final int slaveKeyIndex;
+    private volatile boolean built;
+
+    public AsyncHashJoinLightAtom(
+            int keyType,
+            int masterKeyIndex,
+            int slaveKeyIndex,
+            int workerCount
+    ) {
+        assert isSupportedKeyType(keyType);
+        this.keyType = keyType;
+        this.masterKeyIndex = masterKeyIndex;
+        this.slaveKeyIndex = slaveKeyIndex;
+        shardCount = Math.min(Numbers.ceilPow2(2 * workerCount), MAX_SHARDS);
+        shardCountShr = Long.numberOfLeadingZeros(shardCount) + 1;
+        shards = new ObjList<>(shardCount);
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                shards.extendAndSet(i, new Shard(INITIAL_SHARD_CAPACITY));
+            }
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    public static boolean isSupportedKeyType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.IPv4:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Builds hash tables of all shards not yet claimed by other threads and then
+     * waits for the remaining shards to be built. Safe to call from any thread.
+     */
+    public void build() {
+        if (built) {
+            return;
+        }
+        for (int i = 0; i < shardCount; i++) {
+            final Shard shard = shards.getQuick(i);
+            if (shard.state.compareAndSet(STATE_PENDING, STATE_BUILDING)) {
+                try {
+                    shard.build();
+                    shard.state.set(STATE_BUILT);
+                } catch (Throwable th) {
+                    shard.state.set(STATE_FAILED);
+                    throw th;
+                }
+            }
+        }
+        for (int i = 0; i < shardCount; i++) {
+            final Shard shard = shards.getQuick(i);
+            int state;
+            while ((state = shard.state.get()) == STATE_BUILDING) {
+                Os.pause();
+            }
+            if (state == STATE_FAILED) {
+                throw CairoException.nonCritical().put("could not build hash join table");
+            }
+        }
+        built = true;
+    }
+
+    @Override
+    public void clear() {
+        built = false;
+        for (int i = 0; i < shardCount; i++) {
+            shards.getQuick(i).clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(shards);
+    }
+
+    public long getMasterKey(Record record) {
+        return getKey(record, masterKeyIndex, keyType);
+    }
+
+    /**
+     * Appends [master row index, slave row id] pairs for all slave rows matching the
+     * given key to the list. Pairs are appended in the slave cursor order.
+     */
+    public void probe(long key, long masterRowIndex, DirectLongList rows) {
+        final long hashCode = Hash.hashLong64(key);
+        final Shard shard = shards.getQuick((int) (hashCode >>> shardCountShr));
+        for (long i = shard.find(key, hashCode); i != -1; i = shard.chain.get(i)) {
+            rows.add(masterRowIndex);
+            rows.add(shard.entries.get((i << 1) + 1));
+        }
+    }
+
+    /**
+     * Distributes slave rows between the shards. Must be called on the query owner
+     * thread before any master page frame is dispatched.
+     */
+    public void partition(RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
+        final Record record = slaveCursor.getRecord();
+        while (slaveCursor.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            final long key = getKey(record, slaveKeyIndex, keyType);
+            final long hashCode = Hash.hashLong64(key);
+            final DirectLongList entries = shards.getQuick((int) (hashCode >>> shardCountShr)).entries;
+            entries.add(key);
+            entries.add(record.getRowId());
+        }
+    }
+
+    @Override
+    public void reopen() {
+        for (int i = 0; i < shardCount; i++) {
+            shards.getQuick(i).reopen();
+        }
+    }
+
+    private static long getKey(Record record, int columnIndex, int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                return record.getByte(columnIndex);
+            case ColumnType.SHORT:
+                return record.getShort(columnIndex);
+            case ColumnType.CHAR:
+                return record.getChar(columnIndex);
+            case ColumnType.INT:
+                return record.getInt(columnIndex);
+            case ColumnType.IPv4:
+                return record.getIPv4(columnIndex);
+            case ColumnType.LONG:
+                return record.getLong(columnIndex);
+            case ColumnType.DATE:
+                return record.getDate(columnIndex);
+            default:
+                return record.getTimestamp(columnIndex);
+        }
+    }
+
+    private static class Shard implements QuietCloseable, Reopenable {
+        // Holds index of the next entry with the same key or -1.
+        private final DirectLongList chain;
+        // Holds [key, slave row id] pairs in the slave cursor order.
+        private final DirectLongList entries;
+        private final AtomicInteger state = new AtomicInteger();
+        // Open addressing hash table of [key, first entry index + 1] pairs,
+        // so that zeroed memory stands for an empty slot.
+        private final DirectLongList table;
+        private long mask;
+
+        private Shard(long initialCapacity) {
+            try {
+                entries = new DirectLongList(initialCapacity, MemoryTag.NATIVE_JOIN_MAP);
+                chain = new DirectLongList(initialCapacity, MemoryTag.NATIVE_JOIN_MAP);
+                table = new DirectLongList(initialCapacity, MemoryTag.NATIVE_JOIN_MAP);
+            } catch (Throwable th) {
+                close();
+                throw th;
+            }
+        }
+
+        @Override
+        public void close() {
+            Misc.free(entries);
+            Misc.free(chain);
+            Misc.free(table);
+        }
+
+        @Override
+        public void reopen() {
+            entries.reopen();
+            chain.reopen();
+            table.reopen();
+        }
+
+        private void build() {
+            final long entryCount = entries.size() >>> 1;
+            final long capacity = Numbers.ceilPow2(Math.max(MIN_TABLE_CAPACITY, entryCount << 1));
+            table.setCapacity(capacity << 1);
+            table.setPos(capacity << 1);
+            table.zero(0);
+            mask = capacity - 1;
+            if (entryCount > 0) {
+                chain.setCapacity(entryCount);
+            }
+            chain.setPos(entryCount);
+
+            // Walk the entries backwards, so that each key chain
+            // lists the slave rows in the original order.
+            for (long i = entryCount - 1; i > -1; i--) {
+                final long key = entries.get(i << 1);
+                long index = Hash.hashLong64(key) & mask;
+                long head;
+                while ((head = table.get((index << 1) + 1)) != 0 && table.get(index << 1) != key) {
+                    index = (index + 1) & mask;
+                }
+                table.set(index << 1, key);
+                table.set((index << 1) + 1, i + 1);
+                chain.set(i, head - 1);
+            }
+        }
+
+        private void clear() {
+            state.set(STATE_PENDING);
+            entries.clear();
+            entries.resetCapacity();
+            chain.clear();
+            chain.resetCapacity();
+            table.clear();
+            table.resetCapacity();
+        }
+
+        private long find(long key, long hashCode) {
+            long index = hashCode & mask;
+            long head;
+            while ((head = table.get((index << 1) + 1)) != 0) {
+                if (table.get(index << 1) == key) {
+                    return head - 1;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+    }
+}
@@ -60,6 +60,8 @@ public class AlterOperation extends AbstractOperation implements Mutable {
     public final static short SET_DEDUP_ENABLE = RENAME_TABLE + 1; // 15
     public final static short SET_DEDUP_DISABLE = SET_DEDUP_ENABLE + 1; // 16
     public final static short CHANGE_COLUMN_TYPE = SET_DEDUP_DISABLE + 1; // 17
+    public final static short COMPRESS_PARTITION = CHANGE_COLUMN_TYPE + 1; // 18
+    public final static short DECOMPRESS_PARTITION = COMPRESS_PARTITION + 1; // 19
     private static final long BIT_INDEXED = 0x1L;
     private static final long BIT_DEDUP_KEY = BIT_INDEXED << 1;
     private final static Log LOG = LogFactory.getLog(AlterOperation.class);
@@ -128,6 +130,12 @@ public class AlterOperation extends AbstractOperation implements Mutable {
                 case ATTACH_PARTITION:
                     applyAttachPartition(svc);
                     break;
+                case COMPRESS_PARTITION:
+                    applyCompressPartition(svc, true);
+                    break;
+                case DECOMPRESS_PARTITION:
+                    applyCompressPartition(svc, false);
+                    break;
                 case ADD_INDEX:
                     applyAddIndex(svc);
                     break;
@@ -408,6 +416,29 @@ public class AlterOperation extends AbstractOperation implements Mutable {
         }
     }
 
+    private void applyCompressPartition(MetadataService svc, boolean compress) {
+        // long list is a set of two longs per partition - (timestamp, partitionNamePosition)
+        for (int i = 0, n = extraInfo.size() / 2; i < n; i++) {
+            long partitionTimestamp = extraInfo.getQuick(i * 2);
+            final int partitionNamePosition = (int) extraInfo.getQuick(i * 2 + 1);
+            final boolean converted;
+            try {
+                converted = compress ? svc.compressPartition(partitionTimestamp) : svc.decompressPartition(partitionTimestamp);
+            } catch (CairoException e) {
+                throw e.position(partitionNamePosition);
+            }
+            if (!converted) {
+                throw CairoException.partitionManipulationRecoverable()
+                        .put(compress ? "could not compress partition [table=" : "could not decompress partition [table=")
+                        .put(tableToken != null ? tableToken.getTableName() : "<null>")
+                        .put(", partitionTimestamp=").ts(partitionTimestamp)
+                        .put(", partitionBy=").put(PartitionBy.toString(svc.getPartitionBy()))
+                        .put(']')
+                        .position(partitionNamePosition);
+            }
+        }
+    }
+
     private void applyDetachPartition(MetadataService svc) {
         for (int i = 0, n = extraInfo.size() / 2; i < n; i++) {
             final long partitionTimestamp = extraInfo.getQuick(i * 2);
@@ -153,6 +153,22 @@ public class AlterOperationBuilder {
         return this;
     }
 
+    public AlterOperationBuilder ofCompressPartition(int tableNamePosition, TableToken tableToken, int tableId) {
+        this.command = COMPRESS_PARTITION;
+        this.tableNamePosition = tableNamePosition;
+        this.tableToken = tableToken;
+        this.tableId = tableId;
+        return this;
+    }
+
+    public AlterOperationBuilder ofDecompressPartition(int tableNamePosition, TableToken tableToken, int tableId) {
+        this.command = DECOMPRESS_PARTITION;
+        this.tableNamePosition = tableNamePosition;
+        this.tableToken = tableToken;
+        this.tableId = tableId;
+        return this;
+    }
+
     public AlterOperationBuilder ofDedupDisable(int tableNamePosition, TableToken tableToken) {
         this.command = SET_DEDUP_DISABLE;
         this.tableNamePosition = tableNamePosition;
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.ops;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.parquet.ParquetWriter;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.SingleValueRecordCursor;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.str.Path;
+
+/**
+ * Executes COPY table TO 'file.parquet' statement lazily, i.e. on record cursor initialization.
+ * The table is exported to a Parquet file under the COPY root directory, one row group per
+ * partition. The statement returns the exported file name and the number of rows.
+ */
+public class CopyExportFactory extends AbstractRecordCursorFactory {
+    private final static GenericRecordMetadata METADATA = new GenericRecordMetadata();
+    private static final Log LOG = LogFactory.getLog(CopyExportFactory.class);
+    private final String fileName;
+    private final Path path = new Path();
+    private final CopyExportRecord record = new CopyExportRecord();
+    private final SingleValueRecordCursor cursor = new SingleValueRecordCursor(record);
+    private final TableToken tableToken;
+
+    public CopyExportFactory(TableToken tableToken, String fileName) {
+        super(METADATA);
+        this.tableToken = tableToken;
+        this.fileName = fileName;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final CairoConfiguration configuration = executionContext.getCairoEngine().getConfiguration();
+        final FilesFacade ff = configuration.getFilesFacade();
+        final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
+        path.of(configuration.getSqlCopyInputRoot()).concat(fileName);
+        boolean success = false;
+        try (
+                TableReader reader = executionContext.getReader(tableToken);
+                ParquetWriter parquetWriter = new ParquetWriter(ff)
+        ) {
+            parquetWriter.of(path.$(), reader);
+            for (int i = 0, n = reader.getPartitionCount(); i < n; i++) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                parquetWriter.writePartition(i);
+            }
+            record.of(fileName, parquetWriter.finish());
+            success = true;
+        } finally {
+            if (!success && ff.exists(path.$()) && !ff.removeQuiet(path.$())) {
+                LOG.error().$("could not remove incomplete parquet file [path=").$(path).$(", errno=").$(ff.errno()).I$();
+            }
+        }
+        LOG.info().$("exported table to parquet [table=").$(tableToken)
+                .$(", path=").$(path)
+                .$(", rows=").$(record.rowCount)
+                .I$();
+        cursor.toTop();
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Copy to parquet");
+        sink.meta("table").val(tableToken.getTableName());
+        sink.meta("file").val(fileName);
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(path);
+    }
+
+    private static class CopyExportRecord implements Record {
+        private String fileName;
+        private long rowCount;
+
+        @Override
+        public long getLong(int col) {
+            return rowCount;
+        }
+
+        @Override
+        public CharSequence getStrA(int col) {
+            return fileName;
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return fileName;
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return fileName.length();
+        }
+
+        void of(String fileName, long rowCount) {
+            this.fileName = fileName;
+            this.rowCount = rowCount;
+        }
+    }
+
+    static {
+        METADATA.add(new TableColumnMetadata("file", ColumnType.STRING));
+        METADATA.add(new TableColumnMetadata("rows", ColumnType.LONG));
+    }
+}
@@ -37,6 +37,7 @@ import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.groupby.GroupByAllocator;
 import io.questdb.griffin.engine.groupby.GroupByFunctionsUpdater;
 import io.questdb.griffin.engine.groupby.GroupByFunctionsUpdaterFactory;
+import io.questdb.griffin.engine.groupby.GroupByFusedAggregator;
 import io.questdb.griffin.engine.groupby.GroupByUtils;
 import io.questdb.jit.CompiledFilter;
 import io.questdb.std.*;
@@ -58,6 +59,8 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
     private final ObjList<Map> destShards;
     private final Function filter;
     private final GroupByFunctionsUpdater functionUpdater;
+    // null when the key or the functions are not supported by the fused aggregation loop
+    private final GroupByFusedAggregator fusedAggregator;
     private final ObjList<Function> keyFunctions;
     private final ColumnTypes keyTypes;
     private final MapStats lastOwnerStats;
@@ -67,6 +70,7 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
     private final ObjList<Function> perWorkerFilters;
     private final ObjList<MapFragment> perWorkerFragments;
     private final ObjList<GroupByFunctionsUpdater> perWorkerFunctionUpdaters;
+    private final ObjList<GroupByFusedAggregator> perWorkerFusedAggregators;
     private final ObjList<ObjList<GroupByFunction>> perWorkerGroupByFunctions;
     private final ObjList<ObjList<Function>> perWorkerKeyFunctions;
     private final PerWorkerLocks perWorkerLocks;
@@ -124,6 +128,17 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
                 perWorkerFunctionUpdaters = null;
             }
 
+            fusedAggregator = GroupByFusedAggregator.newInstance(columnTypes, listColumnFilter, keyFunctions, groupByFunctions);
+            if (fusedAggregator != null) {
+                // value indexes are the same for all workers, but the aggregator holds per-frame state
+                perWorkerFusedAggregators = new ObjList<>(slotCount);
+                for (int i = 0; i < slotCount; i++) {
+                    perWorkerFusedAggregators.extendAndSet(i, GroupByFusedAggregator.newInstance(columnTypes, listColumnFilter, keyFunctions, groupByFunctions));
+                }
+            } else {
+                perWorkerFusedAggregators = null;
+            }
+
             perWorkerLocks = new PerWorkerLocks(configuration, slotCount);
 
             shardCount = Math.min(Numbers.ceilPow2(2 * workerCount), MAX_SHARDS);
@@ -251,6 +266,14 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
         return perWorkerFunctionUpdaters.getQuick(slotId);
     }
 
+    @Nullable
+    public GroupByFusedAggregator getFusedAggregator(int slotId) {
+        if (slotId == -1 || perWorkerFusedAggregators == null) {
+            return fusedAggregator;
+        }
+        return perWorkerFusedAggregators.getQuick(slotId);
+    }
+
     public RecordSink getMapSink(int slotId) {
         if (slotId == -1 || perWorkerMapSinks == null) {
             return ownerMapSink;
@@ -234,7 +234,7 @@ public class AsyncGroupByNotKeyedRecordCursorFactory extends AbstractRecordCurso
                 // Use Java-based filter when there is no compiled filter or in case of a page frame with column tops.
                 applyFilter(filter, rows, record, frameRowCount);
             } else {
-                applyCompiledFilter(compiledFilter, atom.getBindVarMemory(), atom.getBindVarFunctions(), task);
+                applyCompiledFilter(compiledFilter, atom.getBindVarMemory(), atom.getBindVarFunctions(), task, filter, record);
             }
 
             record.setRowIndex(0);
@@ -249,7 +249,9 @@ public class AsyncGroupByNotKeyedRecordCursorFactory extends AbstractRecordCurso
             CompiledFilter compiledFilter,
             MemoryCARW bindVarMemory,
             ObjList<Function> bindVarFunctions,
-            PageFrameReduceTask task
+            PageFrameReduceTask task,
+            Function filter,
+            PageAddressCacheRecord record
     ) {
         task.populateJitData();
         final DirectLongList data = task.getData();
@@ -266,6 +268,9 @@ public class AsyncGroupByNotKeyedRecordCursorFactory extends AbstractRecordCurso
                 0
         );
         rows.setPos(hi);
+        if (compiledFilter.isPartial()) {
+            AsyncJitFilteredRecordCursorFactory.confirmRows(filter, rows, record);
+        }
     }
 
     static void applyFilter(Function filter, DirectLongList rows, PageAddressCacheRecord record, long frameRowCount) {
@@ -40,6 +40,7 @@ import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.groupby.GroupByFunctionsUpdater;
+import io.questdb.griffin.engine.groupby.GroupByFusedAggregator;
 import io.questdb.griffin.engine.groupby.GroupByRecordCursorFactory;
 import io.questdb.jit.CompiledFilter;
 import io.questdb.mp.SCSequence;
@@ -187,6 +188,7 @@ public class AsyncGroupByRecordCursorFactory extends AbstractRecordCursorFactory
         final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
         final int slotId = atom.acquire(workerId, owner, circuitBreaker);
         final GroupByFunctionsUpdater functionUpdater = atom.getFunctionUpdater(slotId);
+        final GroupByFusedAggregator fusedAggregator = atom.getFusedAggregator(slotId);
         final AsyncGroupByAtom.MapFragment fragment = atom.getFragment(slotId);
         final RecordSink mapSink = atom.getMapSink(slotId);
         try {
@@ -198,7 +200,12 @@ public class AsyncGroupByRecordCursorFactory extends AbstractRecordCursorFactory
             long baseRowId = record.getRowId();
 
             if (!fragment.isSharded()) {
-                aggregateNonSharded(record, frameRowCount, baseRowId, functionUpdater, fragment, mapSink);
+                final PageAddressCache pageAddressCache = task.getPageAddressCache();
+                if (fusedAggregator != null && !pageAddressCache.hasColumnTops(task.getFrameIndex())) {
+                    fusedAggregator.aggregate(fragment.reopenMap(), pageAddressCache, task.getFrameIndex(), frameRowCount);
+                } else {
+                    aggregateNonSharded(record, frameRowCount, baseRowId, functionUpdater, fragment, mapSink);
+                }
             } else {
                 aggregateSharded(record, frameRowCount, baseRowId, functionUpdater, fragment, mapSink);
             }
@@ -348,16 +355,18 @@ public class AsyncGroupByRecordCursorFactory extends AbstractRecordCursorFactory
         final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
         final int slotId = atom.acquire(workerId, owner, circuitBreaker);
         final GroupByFunctionsUpdater functionUpdater = atom.getFunctionUpdater(slotId);
+        final GroupByFusedAggregator fusedAggregator = atom.getFusedAggregator(slotId);
         final AsyncGroupByAtom.MapFragment fragment = atom.getFragment(slotId);
         final CompiledFilter compiledFilter = atom.getCompiledFilter();
         final Function filter = atom.getFilter(slotId);
         final RecordSink mapSink = atom.getMapSink(slotId);
         try {
-            if (compiledFilter == null || pageAddressCache.hasColumnTops(task.getFrameIndex())) {
+            final boolean hasColumnTops = pageAddressCache.hasColumnTops(task.getFrameIndex());
+            if (compiledFilter == null || hasColumnTops) {
                 // Use Java-based filter when there is no compiled filter or in case of a page frame with column tops.
                 applyFilter(filter, rows, record, frameRowCount);
             } else {
-                applyCompiledFilter(compiledFilter, atom.getBindVarMemory(), atom.getBindVarFunctions(), task);
+                applyCompiledFilter(compiledFilter, atom.getBindVarMemory(), atom.getBindVarFunctions(), task, filter, record);
             }
 
             if (atom.isSharded()) {
@@ -368,7 +377,12 @@ public class AsyncGroupByRecordCursorFactory extends AbstractRecordCursorFactory
             long baseRowId = record.getRowId();
 
             if (!fragment.isSharded()) {
-                aggregateFilteredNonSharded(record, rows, baseRowId, functionUpdater, fragment, mapSink);
+                if (fusedAggregator != null && !hasColumnTops) {
+                    // rows selected by the filter are aggregated straight from the page frame memory
+                    fusedAggregator.aggregateFiltered(fragment.reopenMap(), pageAddressCache, task.getFrameIndex(), rows);
+                } else {
+                    aggregateFilteredNonSharded(record, rows, baseRowId, functionUpdater, fragment, mapSink);
+                }
             } else {
                 aggregateFilteredSharded(record, rows, baseRowId, functionUpdater, fragment, mapSink);
             }
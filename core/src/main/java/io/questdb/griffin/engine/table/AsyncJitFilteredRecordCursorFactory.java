@@ -270,6 +270,21 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         return true;
     }
 
+    /**
+     * Narrows down rows selected by a partial compiled filter to the ones matching the given filter.
+     */
+    static void confirmRows(Function filter, DirectLongList rows, PageAddressCacheRecord record) {
+        long hi = 0;
+        for (long p = 0, n = rows.size(); p < n; p++) {
+            final long r = rows.get(p);
+            record.setRowIndex(r);
+            if (filter.getBool(record)) {
+                rows.set(hi++, r);
+            }
+        }
+        rows.setPos(hi);
+    }
+
     private static void filter(
             int workerId,
             @NotNull PageAddressCacheRecord record,
@@ -320,6 +335,17 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         );
         rows.setPos(hi);
 
+        if (atom.compiledFilter.isPartial()) {
+            // Compiled filter covers only a part of the conjuncts, so Java filter has to confirm the rows.
+            final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+            final int filterId = atom.acquireFilter(workerId, owner, circuitBreaker);
+            try {
+                confirmRows(atom.getFilter(filterId), rows, record);
+            } finally {
+                atom.releaseFilter(filterId);
+            }
+        }
+
         // Pre-touch fixed-size columns, if asked.
         atom.preTouchColumns(record, rows);
     }
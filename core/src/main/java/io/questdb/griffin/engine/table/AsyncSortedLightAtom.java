@@ -0,0 +1,334 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.Reopenable;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.griffin.engine.orderby.LongTreeChain;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+
+/**
+ * Holds state of parallel ORDER BY. Each page frame is sorted by a worker thread into
+ * its own sorted run of row indexes. All runs share a single contiguous list, so that
+ * the run of the frame N starts right after the run of the frame N-1. The runs are later
+ * merged by {@link AsyncSortedLightRecordCursor}.
+ * <p>
+ * Symbol tables are not thread-safe, so the owner and each worker slot compare SYMBOL
+ * sort keys through their own copies of the tables, which are created once per query.
+ */
+public class AsyncSortedLightAtom implements StatefulAtom, Closeable, Reopenable {
+    private static final FrameRecordCursor FRAME_RECORD_CURSOR = new FrameRecordCursor();
+    private final CairoConfiguration configuration;
+    private final LongList frameOffsets = new LongList();
+    private final LongTreeChain ownerChain;
+    private final RecordComparator ownerComparator;
+    private final PageAddressCacheRecord ownerRecord = new PageAddressCacheRecord();
+    private final SlotSymbolTableSource ownerRecordSymbolTableSource = new SlotSymbolTableSource();
+    private final SlotSymbolTableSource ownerSymbolTableSource = new SlotSymbolTableSource();
+    private final ObjList<LongTreeChain> perWorkerChains;
+    private final ObjList<RecordComparator> perWorkerComparators;
+    private final PerWorkerLocks perWorkerLocks;
+    private final ObjList<SlotSymbolTableSource> perWorkerRecordSymbolTableSources;
+    private final ObjList<PageAddressCacheRecord> perWorkerRecords;
+    private final ObjList<SlotSymbolTableSource> perWorkerSymbolTableSources;
+    private final DirectLongList sortedRows;
+    // indexes of SYMBOL columns among the sort keys
+    private final IntList symbolKeyColumns;
+
+    public AsyncSortedLightAtom(
+            @NotNull CairoConfiguration configuration,
+            @NotNull RecordComparator ownerComparator,
+            @NotNull ObjList<RecordComparator> perWorkerComparators,
+            @NotNull IntList symbolKeyColumns
+    ) {
+        final int slotCount = perWorkerComparators.size();
+        try {
+            this.configuration = configuration;
+            this.ownerComparator = ownerComparator;
+            this.perWorkerComparators = perWorkerComparators;
+            this.symbolKeyColumns = symbolKeyColumns;
+            this.perWorkerLocks = new PerWorkerLocks(configuration, slotCount);
+            this.ownerChain = createChain(configuration);
+            this.perWorkerChains = new ObjList<>(slotCount);
+            this.perWorkerRecords = new ObjList<>(slotCount);
+            this.perWorkerSymbolTableSources = new ObjList<>(slotCount);
+            this.perWorkerRecordSymbolTableSources = new ObjList<>(slotCount);
+            for (int i = 0; i < slotCount; i++) {
+                perWorkerChains.extendAndSet(i, createChain(configuration));
+                perWorkerRecords.extendAndSet(i, new PageAddressCacheRecord());
+                perWorkerSymbolTableSources.extendAndSet(i, new SlotSymbolTableSource());
+                perWorkerRecordSymbolTableSources.extendAndSet(i, new SlotSymbolTableSource());
+            }
+            this.sortedRows = new DirectLongList(configuration.getPageFrameReduceRowIdListCapacity(), MemoryTag.NATIVE_TREE_CHAIN);
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    public int acquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            // Owner thread is free to use its own chain anytime.
+            return -1;
+        }
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    @Override
+    public void clear() {
+        frameOffsets.clear();
+        sortedRows.resetCapacity();
+        Misc.free(ownerChain);
+        Misc.freeObjListAndKeepObjects(perWorkerChains);
+        Misc.free(ownerRecord);
+        Misc.freeObjListAndKeepObjects(perWorkerRecords);
+        Misc.free(ownerSymbolTableSource);
+        Misc.freeObjListAndKeepObjects(perWorkerSymbolTableSources);
+        Misc.free(ownerRecordSymbolTableSource);
+        Misc.freeObjListAndKeepObjects(perWorkerRecordSymbolTableSources);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(ownerChain);
+        Misc.freeObjList(perWorkerChains);
+        Misc.free(ownerRecord);
+        Misc.freeObjList(perWorkerRecords);
+        Misc.free(ownerSymbolTableSource);
+        Misc.freeObjList(perWorkerSymbolTableSources);
+        Misc.free(ownerRecordSymbolTableSource);
+        Misc.freeObjList(perWorkerRecordSymbolTableSources);
+        Misc.free(sortedRows);
+    }
+
+    public RecordComparator getComparator() {
+        return ownerComparator;
+    }
+
+    public long getFrameHi(int frameIndex) {
+        return frameOffsets.getQuick(frameIndex + 1);
+    }
+
+    public long getFrameLo(int frameIndex) {
+        return frameOffsets.getQuick(frameIndex);
+    }
+
+    public long getSortedRowIndex(long p) {
+        return sortedRows.get(p);
+    }
+
+    public long getTotalRowCount() {
+        return frameOffsets.size() > 0 ? frameOffsets.getLast() : 0;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) {
+        ownerSymbolTableSource.of(symbolTableSource, symbolKeyColumns);
+        ownerRecordSymbolTableSource.of(symbolTableSource, symbolKeyColumns);
+        for (int i = 0, n = perWorkerSymbolTableSources.size(); i < n; i++) {
+            perWorkerSymbolTableSources.getQuick(i).of(symbolTableSource, symbolKeyColumns);
+            perWorkerRecordSymbolTableSources.getQuick(i).of(symbolTableSource, symbolKeyColumns);
+        }
+    }
+
+    /**
+     * Reserves space for sorted runs of all page frames. Must be called on the query owner
+     * thread once the frame sequence is prepared for dispatch and before any frame is reduced.
+     */
+    public void initFrames(PageFrameSequence<?> frameSequence) {
+        frameOffsets.clear();
+        long offset = 0;
+        for (int i = 0, n = frameSequence.getFrameCount(); i < n; i++) {
+            frameOffsets.add(offset);
+            offset += frameSequence.getFrameRowCount(i);
+        }
+        frameOffsets.add(offset);
+        if (offset > 0) {
+            sortedRows.setCapacity(offset);
+            sortedRows.setPos(offset);
+        }
+    }
+
+    public void release(int slotId) {
+        perWorkerLocks.releaseSlot(slotId);
+    }
+
+    @Override
+    public void reopen() {
+        // Tree chains allocate their memory lazily.
+    }
+
+    /**
+     * Sorts rows of the given page frame and writes the resulting row indexes
+     * into the frame's slot of the shared sorted row list.
+     */
+    public void sortFrame(
+            int slotId,
+            PageAddressCacheRecord record,
+            int frameIndex,
+            long frameRowCount,
+            PageAddressCache pageAddressCache
+    ) {
+        final LongTreeChain chain;
+        final RecordComparator comparator;
+        final PageAddressCacheRecord placeholder;
+        final SymbolTableSource symbolTableSource;
+        final SymbolTableSource recordSymbolTableSource;
+        if (slotId == -1) {
+            chain = ownerChain;
+            comparator = ownerComparator;
+            placeholder = ownerRecord;
+            symbolTableSource = ownerSymbolTableSource;
+            recordSymbolTableSource = ownerRecordSymbolTableSource;
+        } else {
+            chain = perWorkerChains.getQuick(slotId);
+            comparator = perWorkerComparators.getQuick(slotId);
+            placeholder = perWorkerRecords.getQuick(slotId);
+            symbolTableSource = perWorkerSymbolTableSources.getQuick(slotId);
+            recordSymbolTableSource = perWorkerRecordSymbolTableSources.getQuick(slotId);
+        }
+
+        // the reduce task record comes bound to the symbol table source shared by all slots;
+        // it's compared against the placeholder, so the two must not share symbol tables either
+        record.of(recordSymbolTableSource, pageAddressCache);
+        record.setFrameIndex(frameIndex);
+        placeholder.of(symbolTableSource, pageAddressCache);
+        try {
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                chain.put(record, FRAME_RECORD_CURSOR, placeholder, comparator);
+            }
+
+            long p = frameOffsets.getQuick(frameIndex);
+            assert p + frameRowCount == frameOffsets.getQuick(frameIndex + 1);
+            final LongTreeChain.TreeCursor chainCursor = chain.getCursor();
+            while (chainCursor.hasNext()) {
+                sortedRows.set(p++, Rows.toLocalRowID(chainCursor.next()));
+            }
+        } finally {
+            // The chain is only cleared once used: clearing a freshly closed
+            // chain would leave it without memory pages.
+            chain.clear();
+        }
+    }
+
+    private static LongTreeChain createChain(CairoConfiguration configuration) {
+        return new LongTreeChain(
+                configuration.getSqlSortKeyPageSize(),
+                configuration.getSqlSortKeyMaxPages(),
+                configuration.getSqlSortLightValuePageSize(),
+                configuration.getSqlSortLightValueMaxPages()
+        );
+    }
+
+    /**
+     * Positions {@link PageAddressCacheRecord} on the given row id where the frame
+     * index stands for the partition index. Used by tree chains to reach rows already
+     * inserted into the chain.
+     */
+    private static class FrameRecordCursor implements RecordCursor {
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Record getRecordB() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return false;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            ((PageAddressCacheRecord) record).setFrameIndex(Rows.toPartitionIndex(atRowId));
+            ((PageAddressCacheRecord) record).setRowIndex(Rows.toLocalRowID(atRowId));
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+        }
+    }
+
+    /**
+     * Symbol tables of the sort key columns owned by a single record of a slot. Records ask
+     * for a new symbol table on each frame, they get the same owned table instead. Other
+     * columns are not compared, their tables are created by the base source.
+     */
+    private static class SlotSymbolTableSource implements SymbolTableSource, QuietCloseable {
+        private final ObjList<SymbolTable> symbolTables = new ObjList<>();
+        private SymbolTableSource base;
+
+        @Override
+        public void close() {
+            Misc.freeObjListIfCloseable(symbolTables);
+            symbolTables.clear();
+            base = null;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return symbolTables.getQuiet(columnIndex);
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            final SymbolTable symbolTable = symbolTables.getQuiet(columnIndex);
+            return symbolTable != null ? symbolTable : base.newSymbolTable(columnIndex);
+        }
+
+        public void of(SymbolTableSource base, IntList symbolColumns) {
+            close();
+            this.base = base;
+            for (int i = 0, n = symbolColumns.size(); i < n; i++) {
+                final int columnIndex = symbolColumns.getQuick(i);
+                symbolTables.extendAndSet(columnIndex, base.newSymbolTable(columnIndex));
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+import io.questdb.std.Rows;
+
+/**
+ * Collects sorted runs produced by workers for each page frame and streams
+ * the final result via k-way merge of the runs. The merge uses a binary heap
+ * of frame indexes; equal rows are returned in the frame order, which makes
+ * the sort stable.
+ */
+class AsyncSortedLightRecordCursor implements RecordCursor {
+    private static final Log LOG = LogFactory.getLog(AsyncSortedLightRecordCursor.class);
+    private final IntList heap = new IntList();
+    private final PageAddressCacheRecord heapRecordA = new PageAddressCacheRecord();
+    private final PageAddressCacheRecord heapRecordB = new PageAddressCacheRecord();
+    private final LongList positions = new LongList();
+    private final PageAddressCacheRecord recordA = new PageAddressCacheRecord();
+    private final PageAddressCacheRecord recordB = new PageAddressCacheRecord();
+    private AsyncSortedLightAtom atom;
+    private RecordComparator comparator;
+    private int frameLimit;
+    private PageFrameSequence<AsyncSortedLightAtom> frameSequence;
+    private int heapSize;
+    private boolean isOpen;
+    private boolean isSorted;
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            Misc.free(recordA);
+            Misc.free(recordB);
+            Misc.free(heapRecordA);
+            Misc.free(heapRecordB);
+
+            if (frameSequence != null) {
+                LOG.debug()
+                        .$("closing [shard=").$(frameSequence.getShard())
+                        .$(", frameCount=").$(frameLimit)
+                        .I$();
+
+                if (frameLimit > -1) {
+                    frameSequence.await();
+                }
+                frameSequence.clear();
+            }
+        }
+    }
+
+    @Override
+    public Record getRecord() {
+        return recordA;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return recordB;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isSorted) {
+            sort();
+            isSorted = true;
+            toTop();
+        }
+
+        if (heapSize == 0) {
+            return false;
+        }
+
+        final int frameIndex = heap.getQuick(0);
+        final long p = positions.getQuick(frameIndex);
+        recordA.setFrameIndex(frameIndex);
+        recordA.setRowIndex(atom.getSortedRowIndex(p));
+
+        if (p + 1 < atom.getFrameHi(frameIndex)) {
+            positions.setQuick(frameIndex, p + 1);
+        } else {
+            // The run is exhausted, so remove it from the heap.
+            heap.setQuick(0, heap.getQuick(--heapSize));
+        }
+        siftDown(0);
+        return true;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        ((PageAddressCacheRecord) record).setFrameIndex(Rows.toPartitionIndex(atRowId));
+        ((PageAddressCacheRecord) record).setRowIndex(Rows.toLocalRowID(atRowId));
+    }
+
+    @Override
+    public long size() {
+        return isSorted ? atom.getTotalRowCount() : -1;
+    }
+
+    @Override
+    public void toTop() {
+        if (!isSorted) {
+            return;
+        }
+        heap.clear();
+        positions.clear();
+        for (int i = 0, n = frameSequence.getFrameCount(); i < n; i++) {
+            final long lo = atom.getFrameLo(i);
+            positions.add(lo);
+            if (lo < atom.getFrameHi(i)) {
+                heap.add(i);
+            }
+        }
+        heapSize = heap.size();
+        for (int i = (heapSize >> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private boolean less(int frameIndexA, int frameIndexB) {
+        heapRecordA.setFrameIndex(frameIndexA);
+        heapRecordA.setRowIndex(atom.getSortedRowIndex(positions.getQuick(frameIndexA)));
+        heapRecordB.setFrameIndex(frameIndexB);
+        heapRecordB.setRowIndex(atom.getSortedRowIndex(positions.getQuick(frameIndexB)));
+        comparator.setLeft(heapRecordA);
+        final int cmp = comparator.compare(heapRecordB);
+        return cmp < 0 || (cmp == 0 && frameIndexA < frameIndexB);
+    }
+
+    private void siftDown(int index) {
+        final int frameIndex = heap.getQuick(index);
+        while (true) {
+            int child = (index << 1) + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            int childFrameIndex = heap.getQuick(child);
+            if (child + 1 < heapSize) {
+                final int rightFrameIndex = heap.getQuick(child + 1);
+                if (less(rightFrameIndex, childFrameIndex)) {
+                    child++;
+                    childFrameIndex = rightFrameIndex;
+                }
+            }
+            if (!less(childFrameIndex, frameIndex)) {
+                break;
+            }
+            heap.setQuick(index, childFrameIndex);
+            index = child;
+        }
+        if (index < heapSize) {
+            heap.setQuick(index, frameIndex);
+        }
+    }
+
+    private void sort() {
+        if (frameLimit == -1) {
+            frameSequence.prepareForDispatch();
+            atom.initFrames(frameSequence);
+            frameLimit = frameSequence.getFrameCount() - 1;
+        }
+
+        int frameIndex = -1;
+        boolean allFramesActive = true;
+        try {
+            do {
+                final long cursor = frameSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = frameSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(frameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(frameSequence.getFrameCount())
+                            .$(", active=").$(frameSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+                    if (task.hasError()) {
+                        throw CairoException.nonCritical().put(task.getErrorMsg());
+                    }
+
+                    allFramesActive &= frameSequence.isActive();
+                    frameIndex = task.getFrameIndex();
+
+                    frameSequence.collect(cursor, false);
+                } else if (cursor == -2) {
+                    break; // No frames to sort.
+                } else {
+                    Os.pause();
+                }
+            } while (frameIndex < frameLimit);
+        } catch (CairoException e) {
+            if (e.isInterruption()) {
+                throwTimeoutException();
+            } else {
+                throw e;
+            }
+        }
+
+        if (!allFramesActive) {
+            throwTimeoutException();
+        }
+    }
+
+    private void throwTimeoutException() {
+        if (frameSequence.getCancelReason() == SqlExecutionCircuitBreaker.STATE_CANCELLED) {
+            throw CairoException.queryCancelled();
+        } else {
+            throw CairoException.queryTimedOut();
+        }
+    }
+
+    void of(PageFrameSequence<AsyncSortedLightAtom> frameSequence) {
+        this.frameSequence = frameSequence;
+        this.atom = frameSequence.getAtom();
+        this.comparator = atom.getComparator();
+        final SymbolTableSource symbolTableSource = frameSequence.getSymbolTableSource();
+        final PageAddressCache pageAddressCache = frameSequence.getPageAddressCache();
+        recordA.of(symbolTableSource, pageAddressCache);
+        recordB.of(symbolTableSource, pageAddressCache);
+        heapRecordA.of(symbolTableSource, pageAddressCache);
+        heapRecordB.of(symbolTableSource, pageAddressCache);
+        heap.clear();
+        heapSize = 0;
+        isSorted = false;
+        frameLimit = -1;
+        isOpen = true;
+    }
+}
@@ -30,6 +30,7 @@ import io.questdb.cairo.ColumnTypeDriver;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.NullMemoryMR;
+import io.questdb.cairo.vm.api.MemoryMR;
 import io.questdb.cairo.vm.api.MemoryR;
 import io.questdb.std.IntList;
 import io.questdb.std.LongList;
@@ -43,6 +44,8 @@ public class FwdTableReaderPageFrameCursor implements PageFrameCursor {
     private final LongList columnPageAddress = new LongList();
     private final LongList columnPageNextAddress = new LongList();
     private final IntList columnSizes;
+    // (fd, file offset, address, size) of data and aux pages of each column
+    private final LongList fileRanges = new LongList();
     private final TableReaderPageFrame frame = new TableReaderPageFrame();
     private final int pageFrameMaxRows;
     private final int pageFrameMinRows;
@@ -96,21 +99,13 @@ public class FwdTableReaderPageFrameCursor implements PageFrameCursor {
 
     @Override
     public @Nullable PageFrame next() {
-        if (reenterDataFrame) {
-            return computeFrame(reenterPartitionLo, reenterPartitionHi);
-        }
-        DataFrame dataFrame = dataFrameCursor.next();
-        if (dataFrame != null) {
-            reenterPartitionIndex = dataFrame.getPartitionIndex();
-            final long lo = dataFrame.getRowLo();
-            final long hi = dataFrame.getRowHi();
-            currentPageFrameRowLimit = Math.min(
-                    pageFrameMaxRows,
-                    Math.max(pageFrameMinRows, (hi - lo) / workerCount)
-            );
-            return computeFrame(lo, hi);
+        while (true) {
+            final TableReaderPageFrame pageFrame = nextFrame();
+            // frames that cannot match the filter are never dispatched to workers
+            if (pageFrame == null || !dataFrameCursor.canSkipRows(pageFrame.partitionIndex, pageFrame.partitionLo, pageFrame.partitionHi)) {
+                return pageFrame;
+            }
         }
-        return null;
     }
 
     public FwdTableReaderPageFrameCursor of(DataFrameCursor dataFrameCursor) {
@@ -134,6 +129,7 @@ public class FwdTableReaderPageFrameCursor implements PageFrameCursor {
         columnPageNextAddress.setAll(columnCount * 2, 0);
         pageRowsRemaining.setAll(columnCount, -1L);
         pageSizes.setAll(columnCount * 2, -1L);
+        fileRanges.setAll(columnCount * 8, 0);
         reenterDataFrame = false;
     }
 
@@ -170,6 +166,8 @@ public class FwdTableReaderPageFrameCursor implements PageFrameCursor {
                     long offset = partitionLoAdjusted << sh;
                     columnPageAddress.setQuick(i * 2, address + offset);
                     pageSizes.setQuick(i * 2, addressSize - offset);
+                    setFileRange(i * 2, colMem, offset, addressSize - offset);
+                    setFileRange(i * 2 + 1, colMem, 0, 0);
                 } else {
                     final int columnType = reader.getMetadata().getColumnType(columnIndex);
                     final ColumnTypeDriver columnTypeDriver = ColumnType.getDriver(columnType);
@@ -186,12 +184,18 @@ public class FwdTableReaderPageFrameCursor implements PageFrameCursor {
                     columnPageAddress.setQuick(i * 2 + 1, auxAddress + auxOffsetLo);
                     pageSizes.setQuick(i * 2, dataSize);
                     pageSizes.setQuick(i * 2 + 1, auxOffsetHi - auxOffsetLo);
+                    // data page starts at the beginning of the file, but only the frame's rows are read ahead
+                    long dataOffsetLo = partitionLoAdjusted > 0 ? columnTypeDriver.getDataVectorSizeAt(auxAddress, partitionLoAdjusted - 1) : 0;
+                    setFileRange(i * 2, colMem, dataOffsetLo, dataSize - dataOffsetLo);
+                    setFileRange(i * 2 + 1, auxCol, auxOffsetLo, auxOffsetHi - auxOffsetLo);
                 }
             } else {
                 columnPageAddress.setQuick(i * 2, 0);
                 columnPageAddress.setQuick(i * 2 + 1, 0);
                 pageSizes.setQuick(i * 2, (partitionHiAdjusted - partitionLoAdjusted) << (sh > -1 ? sh : 3));
                 pageSizes.setQuick(i * 2 + 1, 0);
+                setFileRange(i * 2, colMem, 0, 0);
+                setFileRange(i * 2 + 1, colMem, 0, 0);
             }
         }
 
@@ -211,11 +215,48 @@ public class FwdTableReaderPageFrameCursor implements PageFrameCursor {
         return frame;
     }
 
+    private @Nullable TableReaderPageFrame nextFrame() {
+        if (reenterDataFrame) {
+            return computeFrame(reenterPartitionLo, reenterPartitionHi);
+        }
+        DataFrame dataFrame = dataFrameCursor.next();
+        if (dataFrame != null) {
+            reenterPartitionIndex = dataFrame.getPartitionIndex();
+            final long lo = dataFrame.getRowLo();
+            final long hi = dataFrame.getRowHi();
+            currentPageFrameRowLimit = Math.min(
+                    pageFrameMaxRows,
+                    Math.max(pageFrameMinRows, (hi - lo) / workerCount)
+            );
+            return computeFrame(lo, hi);
+        }
+        return null;
+    }
+
+    private void setFileRange(int pageIndex, MemoryR mem, long offset, long size) {
+        final int i = pageIndex * 4;
+        fileRanges.setQuick(i, mem instanceof MemoryMR ? ((MemoryMR) mem).getFd() : -1);
+        fileRanges.setQuick(i + 1, offset);
+        fileRanges.setQuick(i + 2, size > 0 ? mem.getPageAddress(0) + offset : 0);
+        fileRanges.setQuick(i + 3, size);
+    }
+
     private class TableReaderPageFrame implements PageFrame {
         private long partitionHi;
         private int partitionIndex;
         private long partitionLo;
 
+        @Override
+        public void collectFileRanges(int columnIndex, LongList sink) {
+            for (int i = columnIndex * 8, n = i + 8; i < n; i += 4) {
+                final long fd = fileRanges.getQuick(i);
+                final long size = fileRanges.getQuick(i + 3);
+                if (fd > -1 && size > 0) {
+                    sink.add(fd, fileRanges.getQuick(i + 1), fileRanges.getQuick(i + 2), size);
+                }
+            }
+        }
+
         @Override
         public BitmapIndexReader getBitmapIndexReader(int columnIndex, int direction) {
             return reader.getBitmapIndexReader(partitionIndex, columnIndexes.getQuick(columnIndex), direction);
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableReaderSelectedColumnRecord;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+
+/**
+ * Filters rows of hash index keys. Index keys are shared by many values, so every
+ * candidate row is checked against the filter, which includes the key predicate.
+ */
+class HashIndexFilteredRowCursor implements RowCursor {
+    private final int columnIndex;
+    private final ObjList<RowCursor> cursors;
+    private final Function filter;
+    private final HeapRowCursor heapCursor;
+    private final int indexDirection;
+    private final IntList indexKeys;
+    private final TableReaderSelectedColumnRecord record;
+    private RowCursor rowCursor;
+    private long rowid;
+
+    public HashIndexFilteredRowCursor(
+            int columnIndex,
+            IntList indexKeys,
+            Function filter,
+            int indexDirection,
+            IntList columnIndexes
+    ) {
+        this.columnIndex = columnIndex;
+        this.indexKeys = indexKeys;
+        this.filter = filter;
+        this.indexDirection = indexDirection;
+        this.record = new TableReaderSelectedColumnRecord(columnIndexes);
+        if (indexKeys.size() > 1) {
+            this.heapCursor = new HeapRowCursor();
+            this.cursors = new ObjList<>(indexKeys.size());
+        } else {
+            this.heapCursor = null;
+            this.cursors = null;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (rowCursor.hasNext()) {
+            final long rowid = rowCursor.next();
+            record.setRecordIndex(rowid);
+            if (filter.getBool(record)) {
+                this.rowid = rowid;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long next() {
+        return rowid;
+    }
+
+    public HashIndexFilteredRowCursor of(DataFrame dataFrame) {
+        final BitmapIndexReader indexReader = dataFrame.getBitmapIndexReader(columnIndex, indexDirection);
+        final long lo = dataFrame.getRowLo();
+        final long hi = dataFrame.getRowHi() - 1;
+        if (heapCursor == null) {
+            rowCursor = indexReader.getCursor(true, indexKeys.getQuick(0), lo, hi);
+        } else {
+            for (int i = 0, n = indexKeys.size(); i < n; i++) {
+                cursors.extendAndSet(i, indexReader.getCursor(false, indexKeys.getQuick(i), lo, hi));
+            }
+            heapCursor.of(cursors, indexKeys.size());
+            rowCursor = heapCursor;
+        }
+        record.jumpTo(dataFrame.getPartitionIndex(), 0);
+        return this;
+    }
+
+    int getColumnIndex() {
+        return columnIndex;
+    }
+
+    Function getFilter() {
+        return filter;
+    }
+
+    int getIndexDirection() {
+        return indexDirection;
+    }
+
+    int getKeyCount() {
+        return indexKeys.size();
+    }
+
+    void prepare(TableReader tableReader) {
+        this.record.of(tableReader);
+    }
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.sql.RowCursorFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.std.IntList;
+
+/**
+ * Returns rows of a hash-indexed INT or LONG column that satisfy the filter. The index
+ * narrows the scan down to rows whose values hash to one of the given keys. Rows of multiple
+ * keys are merged in table order, so only the forward direction is supported for them.
+ */
+public class HashIndexRowCursorFactory implements RowCursorFactory {
+    private final HashIndexFilteredRowCursor cursor;
+
+    public HashIndexRowCursorFactory(
+            int columnIndex,
+            IntList indexKeys,
+            Function filter,
+            int indexDirection,
+            IntList columnIndexes
+    ) {
+        assert indexKeys.size() > 0;
+        assert indexKeys.size() == 1 || indexDirection == BitmapIndexReader.DIR_FORWARD;
+        this.cursor = new HashIndexFilteredRowCursor(columnIndex, indexKeys, filter, indexDirection, columnIndexes);
+    }
+
+    @Override
+    public RowCursor getCursor(DataFrame dataFrame) {
+        return cursor.of(dataFrame);
+    }
+
+    @Override
+    public boolean isEntity() {
+        return false;
+    }
+
+    @Override
+    public boolean isUsingIndex() {
+        return true;
+    }
+
+    @Override
+    public void prepareCursor(TableReader tableReader) {
+        cursor.prepare(tableReader);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Hash index ").type(BitmapIndexReader.nameOf(cursor.getIndexDirection())).type(" scan").meta("on").putBaseColumnName(cursor.getColumnIndex());
+        sink.attr("keys").val(cursor.getKeyCount());
+        sink.attr("filter").val(cursor.getFilter());
+    }
+}
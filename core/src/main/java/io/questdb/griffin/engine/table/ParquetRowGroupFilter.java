@@ -0,0 +1,249 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ImplicitCastException;
+import io.questdb.cairo.parquet.ParquetReader;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.Plannable;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlUtil;
+import io.questdb.std.*;
+
+/**
+ * Conjunction of {@code column op value} predicates that is checked against min/max
+ * statistics of Parquet row groups. A row group is skipped when statistics prove that
+ * none of its rows can satisfy one of the predicates. Values are evaluated once per
+ * cursor, so they may be bind variables or runtime constants.
+ * <p>
+ * Parquet statistics do not account for nulls, which is fine since a null never
+ * satisfies a comparison with a non-null value.
+ */
+public class ParquetRowGroupFilter implements Plannable, QuietCloseable {
+    public static final int OP_EQ = 0;
+    public static final int OP_GE = 4;
+    public static final int OP_GT = 3;
+    public static final int OP_LE = 2;
+    public static final int OP_LT = 1;
+    private static final String[] OP_NAMES = {"=", "<", "<=", ">", ">="};
+    private final BoolList active = new BoolList();
+    private final IntList columnIndexes = new IntList();
+    private final ObjList<String> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final DoubleList doubleValues = new DoubleList();
+    private final LongList longValues = new LongList();
+    private final IntList ops = new IntList();
+    private final ObjList<Function> values = new ObjList<>();
+
+    /**
+     * Returns true when predicate on column of the given type can be checked against
+     * Parquet statistics.
+     */
+    public static boolean isSupported(int columnType, int valueType, int op) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                return isIntegerType(valueType);
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return isIntegerType(valueType) || ColumnType.tagOf(valueType) == ColumnType.tagOf(columnType) || isTextType(valueType);
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                // equality of doubles is approximate
+                return op != OP_EQ && (isIntegerType(valueType) || ColumnType.tagOf(valueType) == ColumnType.FLOAT || ColumnType.tagOf(valueType) == ColumnType.DOUBLE);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Adds predicate, the filter takes ownership of the value function.
+     *
+     * @param columnIndex index of the column in the Parquet file
+     */
+    public void add(int columnIndex, CharSequence columnName, int columnType, int op, Function value) {
+        columnIndexes.add(columnIndex);
+        columnNames.add(Chars.toString(columnName));
+        columnTypes.add(columnType);
+        ops.add(op);
+        values.add(value);
+        active.add(false);
+        longValues.add(0);
+        doubleValues.add(0);
+    }
+
+    /**
+     * Returns true when the row group has no rows matching the predicates.
+     */
+    public boolean canSkip(ParquetReader reader, int rowGroupIndex) {
+        for (int i = 0, n = ops.size(); i < n; i++) {
+            final int columnIndex = columnIndexes.getQuick(i);
+            if (!active.get(i) || !reader.hasStatistics(rowGroupIndex, columnIndex)) {
+                continue;
+            }
+            final int cmpMin;
+            final int cmpMax;
+            final int columnTag = ColumnType.tagOf(columnTypes.getQuick(i));
+            if (columnTag == ColumnType.FLOAT || columnTag == ColumnType.DOUBLE) {
+                final double value = doubleValues.getQuick(i);
+                cmpMin = Double.compare(reader.getMinDouble(rowGroupIndex, columnIndex), value);
+                cmpMax = Double.compare(reader.getMaxDouble(rowGroupIndex, columnIndex), value);
+            } else {
+                final long value = longValues.getQuick(i);
+                cmpMin = Long.compare(reader.getMinLong(rowGroupIndex, columnIndex), value);
+                cmpMax = Long.compare(reader.getMaxLong(rowGroupIndex, columnIndex), value);
+            }
+            switch (ops.getQuick(i)) {
+                case OP_EQ:
+                    if (cmpMin > 0 || cmpMax < 0) {
+                        return true;
+                    }
+                    break;
+                case OP_LT:
+                    if (cmpMin >= 0) {
+                        return true;
+                    }
+                    break;
+                case OP_LE:
+                    if (cmpMin > 0) {
+                        return true;
+                    }
+                    break;
+                case OP_GT:
+                    if (cmpMax <= 0) {
+                        return true;
+                    }
+                    break;
+                default:
+                    if (cmpMax < 0) {
+                        return true;
+                    }
+                    break;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjListAndClear(values);
+    }
+
+    /**
+     * Evaluates predicate values, predicates with null values are ignored.
+     */
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        Function.init(values, symbolTableSource, executionContext);
+        for (int i = 0, n = values.size(); i < n; i++) {
+            final Function value = values.getQuick(i);
+            final int columnTag = ColumnType.tagOf(columnTypes.getQuick(i));
+            final int valueType = value.getType();
+            boolean isActive;
+            if (columnTag == ColumnType.FLOAT || columnTag == ColumnType.DOUBLE) {
+                final double d = isIntegerType(valueType) ? toDouble(value) : value.getDouble(null);
+                doubleValues.setQuick(i, d);
+                isActive = !Double.isNaN(d);
+            } else {
+                long l;
+                if (isTextType(valueType)) {
+                    try {
+                        final CharSequence str = value.getStrA(null);
+                        l = columnTag == ColumnType.DATE ? SqlUtil.implicitCastStrAsDate(str) : SqlUtil.implicitCastStrAsTimestamp(str);
+                    } catch (ImplicitCastException e) {
+                        // the filter itself reports the error
+                        l = Numbers.LONG_NULL;
+                    }
+                } else if (ColumnType.tagOf(valueType) == ColumnType.DATE) {
+                    l = value.getDate(null);
+                } else if (ColumnType.tagOf(valueType) == ColumnType.TIMESTAMP) {
+                    l = value.getTimestamp(null);
+                } else {
+                    l = toLong(value);
+                }
+                longValues.setQuick(i, l);
+                isActive = l != Numbers.LONG_NULL;
+            }
+            active.setQuick(i, isActive);
+        }
+    }
+
+    public boolean isEmpty() {
+        return ops.size() == 0;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        for (int i = 0, n = ops.size(); i < n; i++) {
+            if (i > 0) {
+                sink.val(" and ");
+            }
+            sink.val(columnNames.getQuick(i)).val(OP_NAMES[ops.getQuick(i)]).val(values.getQuick(i));
+        }
+    }
+
+    private static boolean isIntegerType(int type) {
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isTextType(int type) {
+        final int tag = ColumnType.tagOf(type);
+        return tag == ColumnType.STRING || tag == ColumnType.VARCHAR || tag == ColumnType.SYMBOL;
+    }
+
+    private static double toDouble(Function value) {
+        final long l = toLong(value);
+        return l != Numbers.LONG_NULL ? l : Double.NaN;
+    }
+
+    private static long toLong(Function value) {
+        switch (ColumnType.tagOf(value.getType())) {
+            case ColumnType.BYTE:
+                return value.getByte(null);
+            case ColumnType.SHORT:
+                return value.getShort(null);
+            case ColumnType.INT: {
+                final int i = value.getInt(null);
+                return i != Numbers.INT_NULL ? i : Numbers.LONG_NULL;
+            }
+            default:
+                return value.getLong(null);
+        }
+    }
+}
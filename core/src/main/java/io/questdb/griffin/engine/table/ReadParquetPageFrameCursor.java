@@ -0,0 +1,265 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.parquet.ParquetReader;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Page frames over a Parquet file. Row groups are decoded lazily, as the cursor reaches them,
+ * and only the projected columns are decoded. Row groups that {@link ParquetRowGroupFilter}
+ * proves to have no matching rows are not decoded at all.
+ * <p>
+ * Decoded row groups stay in memory until the cursor is closed, since page frame consumers,
+ * such as async filters, keep frame addresses for the lifetime of the cursor.
+ * Partition index of the frames is the ordinal of the row group among the selected ones.
+ */
+public class ReadParquetPageFrameCursor implements PageFrameCursor {
+    private final IntList columnIndexes;
+    private final ObjList<MemoryCARW> columnMems = new ObjList<>();
+    private final IntList columnTypes;
+    private final ParquetPageFrame frame = new ParquetPageFrame();
+    private final LongList framePageAddresses = new LongList();
+    private final LongList framePageSizes = new LongList();
+    private final int pageFrameMaxRows;
+    private final ParquetReader reader;
+    private final IntList rowGroups = new IntList();
+    private SqlExecutionCircuitBreaker circuitBreaker;
+    private int decodedRowGroupCount;
+    private long rowGroupHi;
+    private long rowGroupLo;
+    private int rowGroupOrdinal;
+    private long size;
+
+    public ReadParquetPageFrameCursor(CairoConfiguration configuration, IntList columnIndexes, IntList columnTypes) {
+        this.reader = new ParquetReader(configuration.getFilesFacade());
+        this.columnIndexes = columnIndexes;
+        this.columnTypes = columnTypes;
+        this.pageFrameMaxRows = configuration.getSqlPageFrameMaxRows();
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = columnMems.size(); i < n; i++) {
+            // the memory is kept to be reused by the next cursor
+            columnMems.getQuick(i).close();
+        }
+        decodedRowGroupCount = 0;
+        reader.close();
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public long getUpdateRowId(long rowIndex) {
+        return Rows.toRowID(frame.getPartitionIndex(), frame.getPartitionLo() + rowIndex);
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public @Nullable PageFrame next() {
+        while (rowGroupLo >= rowGroupHi) {
+            if (++rowGroupOrdinal >= rowGroups.size()) {
+                rowGroupOrdinal = rowGroups.size();
+                return null;
+            }
+            rowGroupLo = 0;
+            rowGroupHi = reader.getRowGroupRowCount(rowGroups.getQuick(rowGroupOrdinal));
+            if (rowGroupHi > 0) {
+                decodeRowGroup(rowGroupOrdinal);
+            }
+        }
+
+        final long lo = rowGroupLo;
+        final long hi = Math.min(rowGroupHi, lo + pageFrameMaxRows);
+        final int columnCount = columnIndexes.size();
+        final int memBase = rowGroupOrdinal * columnCount * 2;
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = columnTypes.getQuick(i);
+            final MemoryCARW dataMem = columnMems.getQuick(memBase + i * 2);
+            if (ColumnType.isVarSize(columnType)) {
+                final ColumnTypeDriver driver = ColumnType.getDriver(columnType);
+                final long auxAddress = columnMems.getQuick(memBase + i * 2 + 1).getAddress();
+                final long auxOffsetLo = driver.getAuxVectorOffset(lo);
+                final long auxOffsetHi = driver.getAuxVectorOffset(hi);
+                framePageAddresses.setQuick(i * 2, dataMem.getAppendOffset() > 0 ? dataMem.getAddress() : 0);
+                framePageAddresses.setQuick(i * 2 + 1, auxAddress + auxOffsetLo);
+                framePageSizes.setQuick(i * 2, driver.getDataVectorSizeAt(auxAddress, hi - 1));
+                framePageSizes.setQuick(i * 2 + 1, auxOffsetHi - auxOffsetLo);
+            } else {
+                final int sh = ColumnType.pow2SizeOf(columnType);
+                framePageAddresses.setQuick(i * 2, dataMem.getAddress() + (lo << sh));
+                framePageAddresses.setQuick(i * 2 + 1, 0);
+                framePageSizes.setQuick(i * 2, (hi - lo) << sh);
+                framePageSizes.setQuick(i * 2 + 1, 0);
+            }
+        }
+        rowGroupLo = hi;
+
+        frame.partitionIndex = rowGroupOrdinal;
+        frame.partitionLo = lo;
+        frame.partitionHi = hi;
+        return frame;
+    }
+
+    /**
+     * Opens the file and selects row groups that may have rows matching the filter.
+     *
+     * @throws CairoException when the file cannot be read or its schema no longer matches the query
+     */
+    public ReadParquetPageFrameCursor of(
+            LPSZ path,
+            RecordMetadata metadata,
+            @Nullable ParquetRowGroupFilter rowGroupFilter,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        reader.of(path);
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final int columnIndex = columnIndexes.getQuick(i);
+            if (columnIndex >= reader.getColumnCount()
+                    || !Chars.equalsIgnoreCase(reader.getColumnName(columnIndex), metadata.getColumnName(i))
+                    || reader.getColumnType(columnIndex) != metadata.getColumnType(i)) {
+                throw CairoException.nonCritical().put("parquet file schema has changed [path=").put(path).put(']');
+            }
+        }
+        circuitBreaker = executionContext.getCircuitBreaker();
+        if (rowGroupFilter != null) {
+            rowGroupFilter.init(this, executionContext);
+        }
+        rowGroups.clear();
+        size = 0;
+        for (int i = 0, n = reader.getRowGroupCount(); i < n; i++) {
+            if (rowGroupFilter == null || !rowGroupFilter.canSkip(reader, i)) {
+                rowGroups.add(i);
+                size += reader.getRowGroupRowCount(i);
+            }
+        }
+        final int columnCount = columnIndexes.size();
+        framePageAddresses.setAll(columnCount * 2, 0);
+        framePageSizes.setAll(columnCount * 2, 0);
+        decodedRowGroupCount = 0;
+        toTop();
+        return this;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void toTop() {
+        // decoded row groups are kept, the frames are going to be the same
+        rowGroupOrdinal = -1;
+        rowGroupLo = 0;
+        rowGroupHi = 0;
+    }
+
+    private void decodeRowGroup(int ordinal) {
+        if (ordinal < decodedRowGroupCount) {
+            return;
+        }
+        circuitBreaker.statefulThrowExceptionIfTripped();
+        final int rowGroupIndex = rowGroups.getQuick(ordinal);
+        final int columnCount = columnIndexes.size();
+        final int memBase = ordinal * columnCount * 2;
+        for (int i = 0, n = memBase + columnCount * 2; i < n; i++) {
+            if (i == columnMems.size()) {
+                columnMems.add(Vm.getCARWInstance(64 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_IMPORT));
+            }
+        }
+        for (int i = 0; i < columnCount; i++) {
+            final MemoryCARW dataMem = columnMems.getQuick(memBase + i * 2);
+            final MemoryCARW auxMem = columnMems.getQuick(memBase + i * 2 + 1);
+            dataMem.jumpTo(0);
+            auxMem.jumpTo(0);
+            reader.decodeColumnChunk(rowGroupIndex, columnIndexes.getQuick(i), dataMem, auxMem);
+        }
+        decodedRowGroupCount = ordinal + 1;
+    }
+
+    private class ParquetPageFrame implements PageFrame {
+        private long partitionHi;
+        private int partitionIndex;
+        private long partitionLo;
+
+        @Override
+        public BitmapIndexReader getBitmapIndexReader(int columnIndex, int dirForward) {
+            return null;
+        }
+
+        @Override
+        public int getColumnShiftBits(int columnIndex) {
+            final int columnType = columnTypes.getQuick(columnIndex);
+            return ColumnType.isVarSize(columnType) ? -1 : ColumnType.pow2SizeOf(columnType);
+        }
+
+        @Override
+        public long getIndexPageAddress(int columnIndex) {
+            return framePageAddresses.getQuick(columnIndex * 2 + 1);
+        }
+
+        @Override
+        public long getPageAddress(int columnIndex) {
+            return framePageAddresses.getQuick(columnIndex * 2);
+        }
+
+        @Override
+        public long getPageSize(int columnIndex) {
+            return framePageSizes.getQuick(columnIndex * 2);
+        }
+
+        @Override
+        public long getPartitionHi() {
+            return partitionHi;
+        }
+
+        @Override
+        public int getPartitionIndex() {
+            return partitionIndex;
+        }
+
+        @Override
+        public long getPartitionLo() {
+            return partitionLo;
+        }
+    }
+}
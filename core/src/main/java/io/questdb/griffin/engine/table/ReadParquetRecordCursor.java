@@ -0,0 +1,127 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.PageAddressCache;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Misc;
+import io.questdb.std.Rows;
+
+/**
+ * Row by row access to page frames of a Parquet file, used when the query is not filtered
+ * in parallel. Row ids are composed of frame index and row index within the frame.
+ */
+public class ReadParquetRecordCursor implements RecordCursor {
+    private final PageAddressCache pageAddressCache;
+    private final PageAddressCacheRecord recordA = new PageAddressCacheRecord();
+    private final PageAddressCacheRecord recordB = new PageAddressCacheRecord();
+    private ReadParquetPageFrameCursor frameCursor;
+    private int frameIndex;
+    private long frameRowCount;
+    private long frameRowIndex;
+
+    public ReadParquetRecordCursor(CairoConfiguration configuration) {
+        this.pageAddressCache = new PageAddressCache(configuration);
+    }
+
+    @Override
+    public void close() {
+        frameCursor = Misc.free(frameCursor);
+        pageAddressCache.clear();
+    }
+
+    @Override
+    public Record getRecord() {
+        return recordA;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return recordB;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (frameRowIndex >= frameRowCount) {
+            final PageFrame frame = frameCursor.next();
+            if (frame == null) {
+                return false;
+            }
+            // frames are the same after toTop(), so they are cached once
+            pageAddressCache.add(++frameIndex, frame);
+            frameRowCount = frame.getPartitionHi() - frame.getPartitionLo();
+            frameRowIndex = 0;
+            recordA.setFrameIndex(frameIndex);
+        }
+        recordA.setRowIndex(frameRowIndex++);
+        return true;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return null;
+    }
+
+    public ReadParquetRecordCursor of(ReadParquetPageFrameCursor frameCursor, RecordMetadata metadata) {
+        this.frameCursor = frameCursor;
+        pageAddressCache.clear();
+        pageAddressCache.of(metadata);
+        recordA.of(frameCursor, pageAddressCache);
+        recordB.of(frameCursor, pageAddressCache);
+        toTop();
+        return this;
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        ((PageAddressCacheRecord) record).setFrameIndex(Rows.toPartitionIndex(atRowId));
+        ((PageAddressCacheRecord) record).setRowIndex(Rows.toLocalRowID(atRowId));
+    }
+
+    @Override
+    public long size() {
+        return frameCursor.size();
+    }
+
+    @Override
+    public void toTop() {
+        frameCursor.toTop();
+        frameIndex = -1;
+        frameRowCount = 0;
+        frameRowIndex = 0;
+    }
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.Path;
+
+/**
+ * Factory behind {@code read_parquet()}. Columns of the metadata map to file columns via
+ * column indexes, which change when the code generator prunes columns that the query does
+ * not use.
+ */
+public class ReadParquetRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final IntList columnIndexes = new IntList();
+    private final IntList columnTypes = new IntList();
+    private final ReadParquetRecordCursor cursor;
+    private final String fileName;
+    private final ReadParquetPageFrameCursor frameCursor;
+    private final Path path;
+    private ParquetRowGroupFilter rowGroupFilter;
+
+    public ReadParquetRecordCursorFactory(
+            CairoConfiguration configuration,
+            CharSequence fileName,
+            GenericRecordMetadata metadata
+    ) {
+        super(metadata);
+        this.fileName = fileName.toString();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            columnIndexes.add(i);
+            columnTypes.add(metadata.getColumnType(i));
+        }
+        this.path = new Path();
+        this.path.of(configuration.getSqlCopyInputRoot()).concat(fileName);
+        this.frameCursor = new ReadParquetPageFrameCursor(configuration, columnIndexes, columnTypes);
+        this.cursor = new ReadParquetRecordCursor(configuration);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        return cursor.of(openFrameCursor(executionContext), getMetadata());
+    }
+
+    /**
+     * Returns index of the Parquet file column that backs the given metadata column.
+     */
+    public int getFileColumnIndex(int columnIndex) {
+        return columnIndexes.getQuick(columnIndex);
+    }
+
+    @Override
+    public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext, int order) throws SqlException {
+        // row groups are always read in file order, there is no designated timestamp
+        return openFrameCursor(executionContext);
+    }
+
+    /**
+     * Retains given columns only, in the given order. Must be called before any cursor is opened.
+     *
+     * @param columnNames names of the columns the query uses, all of them must exist in the metadata
+     */
+    public void pruneColumns(ObjList<CharSequence> columnNames) {
+        final GenericRecordMetadata metadata = (GenericRecordMetadata) getMetadata();
+        final ObjList<TableColumnMetadata> columns = new ObjList<>();
+        final IntList prunedIndexes = new IntList();
+        for (int i = 0, n = columnNames.size(); i < n; i++) {
+            final int columnIndex = metadata.getColumnIndex(columnNames.getQuick(i));
+            columns.add(metadata.getColumnMetadata(columnIndex));
+            prunedIndexes.add(columnIndexes.getQuick(columnIndex));
+        }
+        metadata.clear();
+        columnIndexes.clear();
+        columnTypes.clear();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            metadata.add(columns.getQuick(i));
+            columnIndexes.add(prunedIndexes.getQuick(i));
+            columnTypes.add(columns.getQuick(i).getType());
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    /**
+     * Sets filter that is used to skip row groups, the factory takes ownership of the filter.
+     */
+    public void setRowGroupFilter(ParquetRowGroupFilter rowGroupFilter) {
+        Misc.free(this.rowGroupFilter);
+        this.rowGroupFilter = rowGroupFilter;
+    }
+
+    @Override
+    public boolean supportsPageFrameCursor() {
+        return true;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("read_parquet").meta("file").val(fileName);
+        sink.attr("columns");
+        final RecordMetadata metadata = getMetadata();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (i > 0) {
+                sink.val(',');
+            }
+            sink.val(metadata.getColumnName(i));
+        }
+        sink.optAttr("row group filter", rowGroupFilter);
+    }
+
+    private ReadParquetPageFrameCursor openFrameCursor(SqlExecutionContext executionContext) throws SqlException {
+        try {
+            return frameCursor.of(path.$(), getMetadata(), rowGroupFilter, executionContext);
+        } catch (Throwable th) {
+            frameCursor.close();
+            throw th;
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(cursor);
+        Misc.free(frameCursor);
+        Misc.free(path);
+        rowGroupFilter = Misc.free(rowGroupFilter);
+    }
+}
@@ -32,6 +32,7 @@ import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.IntList;
+import io.questdb.std.LongList;
 import org.jetbrains.annotations.Nullable;
 
 public class SelectedRecordCursorFactory extends AbstractRecordCursorFactory {
@@ -141,6 +142,11 @@ public class SelectedRecordCursorFactory extends AbstractRecordCursorFactory {
             this.columnCrossIndex = columnCrossIndex;
         }
 
+        @Override
+        public void collectFileRanges(int columnIndex, LongList sink) {
+            baseFrame.collectFileRanges(columnCrossIndex.getQuick(columnIndex), sink);
+        }
+
         @Override
         public BitmapIndexReader getBitmapIndexReader(int columnIndex, int dirForward) {
             return baseFrame.getBitmapIndexReader(columnCrossIndex.getQuick(columnIndex), dirForward);
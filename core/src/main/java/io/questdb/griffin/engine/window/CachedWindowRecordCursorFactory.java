@@ -25,22 +25,35 @@
 package io.questdb.griffin.engine.window;
 
 
+import io.questdb.MessageBus;
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.WorkStealingStrategy;
+import io.questdb.cairo.sql.async.WorkStealingStrategyFactory;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.orderby.LongTreeChain;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.MCSequence;
+import io.questdb.mp.MPSequence;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
 import io.questdb.std.IntList;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 import io.questdb.std.Transient;
+import io.questdb.tasks.WindowShardTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final Log LOG = LogFactory.getLog(CachedWindowRecordCursorFactory.class);
     private final ObjList<WindowFunction> allFunctions;
     private final RecordCursorFactory base;
     private final GenericRecordMetadata chainMetadata;
@@ -49,10 +62,16 @@ public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory
     private final ObjList<ObjList<WindowFunction>> ordered2PassFunctions;
     private final ObjList<ObjList<WindowFunction>> orderedFunctions;
     private final int orderedGroupCount;
+    // groups of ordered functions evaluated in parallel, null entries stand for groups evaluated serially
+    @Nullable
+    private final ObjList<ShardedWindowGroup> orderedShardedGroups;
     private final ObjList<IntList> sortKeys;
     private final ObjList<WindowFunction> unordered2PassFunctions;
     @Nullable
     private final ObjList<WindowFunction> unorderedFunctions;
+    @Nullable
+    private final ShardedWindowGroup unorderedShardedGroup;
+    private final int workerCount;
     private boolean closed = false;
 
     public CachedWindowRecordCursorFactory(
@@ -67,10 +86,47 @@ public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory
             @NotNull IntList columnIndexes,
             @NotNull final ObjList<IntList> sortKeys,
             @NotNull GenericRecordMetadata chainMetadata
+    ) {
+        this(
+                configuration,
+                base,
+                recordSink,
+                metadata,
+                chainTypes,
+                comparators,
+                orderedFunctions,
+                unorderedFunctions,
+                columnIndexes,
+                sortKeys,
+                chainMetadata,
+                null,
+                null,
+                0
+        );
+    }
+
+    public CachedWindowRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            RecordSink recordSink,
+            GenericRecordMetadata metadata,
+            @Transient ColumnTypes chainTypes,
+            ObjList<RecordComparator> comparators,
+            ObjList<ObjList<WindowFunction>> orderedFunctions,
+            @Nullable ObjList<WindowFunction> unorderedFunctions,
+            @NotNull IntList columnIndexes,
+            @NotNull final ObjList<IntList> sortKeys,
+            @NotNull GenericRecordMetadata chainMetadata,
+            @Nullable ObjList<ShardedWindowGroup> orderedShardedGroups,
+            @Nullable ShardedWindowGroup unorderedShardedGroup,
+            int workerCount
     ) {
         super(metadata);
         try {
             this.base = base;
+            this.orderedShardedGroups = orderedShardedGroups;
+            this.unorderedShardedGroup = unorderedShardedGroup;
+            this.workerCount = workerCount;
             this.orderedGroupCount = comparators.size();
             assert orderedGroupCount == orderedFunctions.size();
             this.orderedFunctions = orderedFunctions;
@@ -103,7 +159,13 @@ public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory
                 throw t;
             }
 
-            this.cursor = new CachedWindowRecordCursor(columnIndexes, recordChain, orderedSources);
+            this.cursor = new CachedWindowRecordCursor(
+                    configuration,
+                    columnIndexes,
+                    recordChain,
+                    orderedSources,
+                    WorkStealingStrategyFactory.getInstance(configuration, workerCount)
+            );
             this.allFunctions = new ObjList<>();
 
             ObjList<ObjList<WindowFunction>> orderedTmp = null;
@@ -111,6 +173,11 @@ public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory
                 ObjList<WindowFunction> functions = orderedFunctions.getQuick(i);
                 allFunctions.addAll(functions);
 
+                if (getShardedGroup(i) != null) {
+                    // sharded groups run their second pass on their own
+                    continue;
+                }
+
                 ObjList<WindowFunction> twoPassFunctions = null;
                 for (int j = 0, k = functions.size(); j < k; j++) {
                     WindowFunction function = functions.getQuick(j);
@@ -136,7 +203,7 @@ public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory
             if (unorderedFunctions != null) {
                 allFunctions.addAll(unorderedFunctions);
 
-                for (int i = 0, n = unorderedFunctions.size(); i < n; i++) {
+                for (int i = 0, n = unorderedShardedGroup == null ? unorderedFunctions.size() : 0; i < n; i++) {
                     WindowFunction function = unorderedFunctions.getQuick(i);
                     if (function.getPassCount() > WindowFunction.ONE_PASS) {
                         if (unorderedTmp == null) {
@@ -190,6 +257,9 @@ public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory
     @Override
     public void toPlan(PlanSink sink) {
         sink.type("CachedWindow");
+        if (isSharded()) {
+            sink.meta("workers").val(workerCount);
+        }
 
         boolean oldVal = sink.getUseBaseMetadata();
         try {
@@ -253,10 +323,36 @@ public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory
         }
     }
 
+    @Nullable
+    private ShardedWindowGroup getShardedGroup(int orderedGroupIndex) {
+        return orderedShardedGroups != null ? orderedShardedGroups.getQuiet(orderedGroupIndex) : null;
+    }
+
+    private boolean isSharded() {
+        if (unorderedShardedGroup != null) {
+            return true;
+        }
+        for (int i = 0; i < orderedGroupCount; i++) {
+            if (getShardedGroup(i) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void resetFunctions() {
         for (int i = 0, n = allFunctions.size(); i < n; i++) {
             allFunctions.getQuick(i).reset();
         }
+        for (int i = 0; i < orderedGroupCount; i++) {
+            final ShardedWindowGroup group = getShardedGroup(i);
+            if (group != null) {
+                group.reset();
+            }
+        }
+        if (unorderedShardedGroup != null) {
+            unorderedShardedGroup.reset();
+        }
     }
 
     @Override
@@ -268,24 +364,48 @@ public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory
         Misc.free(base);
         Misc.free(cursor);
         Misc.freeObjList(allFunctions);
+        Misc.freeObjList(orderedShardedGroups);
+        Misc.free(unorderedShardedGroup);
     }
 
     class CachedWindowRecordCursor implements RecordCursor {
         private final IntList columnIndexes; // Used for symbol table lookups.
+        private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
         private final ObjList<LongTreeChain> orderedSources;
         private final RecordChain recordChain;
+        private final AtomicBooleanCircuitBreaker sharedCircuitBreaker; // used to signal cancellation to workers
+        private final AtomicInteger startedCounter = new AtomicInteger();
+        private final WorkStealingStrategy workStealingStrategy;
         private RecordCursor baseCursor;
         private SqlExecutionCircuitBreaker circuitBreaker;
         private boolean isOpen;
         private boolean isRecordChainBuilt;
+        private MessageBus messageBus;
         private long recordChainOffset;
 
-        public CachedWindowRecordCursor(IntList columnIndexes, RecordChain recordChain, ObjList<LongTreeChain> orderedSources) {
+        public CachedWindowRecordCursor(
+                CairoConfiguration configuration,
+                IntList columnIndexes,
+                RecordChain recordChain,
+                ObjList<LongTreeChain> orderedSources,
+                WorkStealingStrategy workStealingStrategy
+        ) {
             this.columnIndexes = columnIndexes;
             this.recordChain = recordChain;
             this.recordChain.setSymbolTableResolver(this);
             this.isOpen = true;
             this.orderedSources = orderedSources;
+            this.sharedCircuitBreaker = new AtomicBooleanCircuitBreaker();
+            this.workStealingStrategy = workStealingStrategy.of(startedCounter);
+            for (int i = 0; i < orderedGroupCount; i++) {
+                final ShardedWindowGroup group = getShardedGroup(i);
+                if (group != null) {
+                    group.of(recordChain);
+                }
+            }
+            if (unorderedShardedGroup != null) {
+                unorderedShardedGroup.of(recordChain);
+            }
         }
 
         @Override
@@ -383,8 +503,21 @@ public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory
             if (orderedGroupCount > 0) {
                 for (int i = 0; i < orderedGroupCount; i++) {
                     final LongTreeChain tree = orderedSources.getQuick(i);
-                    final ObjList<WindowFunction> functions = orderedFunctions.getQuick(i);
                     final LongTreeChain.TreeCursor cursor = tree.getCursor();
+                    final ShardedWindowGroup group = getShardedGroup(i);
+                    if (group != null) {
+                        group.clear();
+                        while (cursor.hasNext()) {
+                            circuitBreaker.statefulThrowExceptionIfTripped();
+                            offset = cursor.next();
+                            recordChain.recordAt(chainRecord, offset);
+                            group.add(chainRecord, offset);
+                        }
+                        computeShards(group);
+                        continue;
+                    }
+
+                    final ObjList<WindowFunction> functions = orderedFunctions.getQuick(i);
                     final int functionCount = functions.size();
                     while (cursor.hasNext()) {
                         circuitBreaker.statefulThrowExceptionIfTripped();
@@ -397,8 +530,17 @@ public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory
                 }
             }
 
-            // run pass1 for all unordered functions
-            if (unorderedFunctions != null) {
+            // run all passes for unordered functions sharing the same partition by in parallel
+            if (unorderedShardedGroup != null) {
+                unorderedShardedGroup.clear();
+                recordChain.toTop();
+                while (recordChain.hasNext()) {
+                    circuitBreaker.statefulThrowExceptionIfTripped();
+                    unorderedShardedGroup.add(chainRecord, chainRecord.getRowId());
+                }
+                computeShards(unorderedShardedGroup);
+            } else if (unorderedFunctions != null) {
+                // run pass1 for all unordered functions
                 for (int j = 0, n = unorderedFunctions.size(); j < n; j++) {
                     final WindowFunction f = unorderedFunctions.getQuick(j);
                     recordChain.toTop();
@@ -464,19 +606,99 @@ public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory
             recordChain.toTop();
         }
 
+        private void computeShards(ShardedWindowGroup group) {
+            sharedCircuitBreaker.reset();
+            startedCounter.set(0);
+            doneLatch.reset();
+
+            final int shardCount = group.getShardCount();
+            final RingQueue<WindowShardTask> queue = messageBus.getWindowShardQueue();
+            final MPSequence pubSeq = messageBus.getWindowShardPubSeq();
+            final MCSequence subSeq = messageBus.getWindowShardSubSeq();
+
+            int queuedCount = 0;
+            int ownCount = 0;
+            int reclaimed = 0;
+            int doneCount = 0; // used for work stealing decisions
+
+            try {
+                for (int i = 0; i < shardCount; i++) {
+                    while (true) {
+                        long cursor = pubSeq.next();
+                        if (cursor < 0) {
+                            circuitBreaker.statefulThrowExceptionIfTrippedNoThrottle();
+
+                            if (workStealingStrategy.shouldSteal(doneCount)) {
+                                group.computeShard(i, sharedCircuitBreaker);
+                                ownCount++;
+                                doneCount = doneLatch.getCount();
+                                break;
+                            }
+                            doneCount = doneLatch.getCount();
+                        } else {
+                            queue.get(cursor).of(sharedCircuitBreaker, startedCounter, doneLatch, group, i);
+                            pubSeq.done(cursor);
+                            queuedCount++;
+                            break;
+                        }
+                    }
+                }
+            } catch (Throwable th) {
+                sharedCircuitBreaker.cancel();
+                throw th;
+            } finally {
+                // Wait for the published tasks to finish, picking up the queued ones in the meantime.
+                // The queue is shared between concurrent queries, so the latch is what tells us
+                // that our own tasks are done.
+                while (!doneLatch.done(queuedCount)) {
+                    if (circuitBreaker.checkIfTripped()) {
+                        sharedCircuitBreaker.cancel();
+                    }
+
+                    if (workStealingStrategy.shouldSteal(doneCount)) {
+                        long cursor = subSeq.next();
+                        if (cursor > -1) {
+                            WindowShardJob.run(queue.get(cursor), subSeq, cursor);
+                            reclaimed++;
+                        }
+                    }
+                    doneCount = doneLatch.getCount();
+                }
+            }
+
+            circuitBreaker.statefulThrowExceptionIfTrippedNoThrottle();
+            group.throwIfFailed();
+
+            LOG.debug().$("window shards done [shardCount=").$(shardCount)
+                    .$(", ownCount=").$(ownCount)
+                    .$(", reclaimed=").$(reclaimed)
+                    .$(", queuedCount=").$(queuedCount).I$();
+        }
+
         private void of(RecordCursor baseCursor, SqlExecutionContext executionContext) throws SqlException {
             this.baseCursor = baseCursor;
             isRecordChainBuilt = false;
             recordChainOffset = -1;
             circuitBreaker = executionContext.getCircuitBreaker();
+            messageBus = executionContext.getMessageBus();
             if (!isOpen) {
                 isOpen = true;
                 recordChain.reopen();
                 recordChain.setSymbolTableResolver(this);
                 reopenTrees();
                 reopen(allFunctions);
+                reopenShardedGroups();
             }
             Function.init(allFunctions, this, executionContext);
+            for (int i = 0; i < orderedGroupCount; i++) {
+                final ShardedWindowGroup group = getShardedGroup(i);
+                if (group != null) {
+                    group.init(this, executionContext);
+                }
+            }
+            if (unorderedShardedGroup != null) {
+                unorderedShardedGroup.init(this, executionContext);
+            }
         }
 
         private void reopen(ObjList<?> list) {
@@ -487,6 +709,18 @@ public class CachedWindowRecordCursorFactory extends AbstractRecordCursorFactory
             }
         }
 
+        private void reopenShardedGroups() {
+            for (int i = 0; i < orderedGroupCount; i++) {
+                final ShardedWindowGroup group = getShardedGroup(i);
+                if (group != null) {
+                    group.reopen();
+                }
+            }
+            if (unorderedShardedGroup != null) {
+                unorderedShardedGroup.reopen();
+            }
+        }
+
         private void reopenTrees() {
             for (int i = 0; i < orderedGroupCount; i++) {
                 orderedSources.getQuick(i).reopen();
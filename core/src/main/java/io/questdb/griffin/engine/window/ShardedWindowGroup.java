@@ -0,0 +1,246 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.window;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.Reopenable;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.sql.VirtualRecord;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Transient;
+
+/**
+ * Window functions that share the same PARTITION BY clause, evaluated in parallel.
+ * <p>
+ * Rows of the record chain are distributed between shards by the hash of the partition key,
+ * so all rows of a partition end up in the same shard. Each shard keeps its own copy of
+ * the functions and computes values of its rows in the order the rows were added. The values
+ * are written to the rows' slots in the record chain, so the result keeps the original order.
+ * <p>
+ * Functions of shard 0 are the ones owned by the window factory, the group owns the rest.
+ */
+public class ShardedWindowGroup implements QuietCloseable, Mutable, Reopenable {
+    private final Map keyMap;
+    private final ObjList<DirectLongList> offsets;
+    private final VirtualRecord partitionByRecord;
+    private final RecordSink partitionBySink;
+    private final int shardCount;
+    private final int shardCountShr;
+    private final ObjList<ObjList<WindowFunction>> shardFunctions;
+    private final ObjList<Record> shardRecords;
+    private volatile String error;
+    private boolean hasTwoPassFunctions;
+    private RecordChain recordChain;
+
+    public ShardedWindowGroup(
+            CairoConfiguration configuration,
+            ObjList<ObjList<WindowFunction>> shardFunctions,
+            VirtualRecord partitionByRecord,
+            RecordSink partitionBySink,
+            @Transient ColumnTypes partitionByKeyTypes
+    ) {
+        this.shardFunctions = shardFunctions;
+        this.shardCount = shardFunctions.size();
+        assert shardCount > 1 && (shardCount & (shardCount - 1)) == 0;
+        this.shardCountShr = Long.numberOfLeadingZeros(shardCount) + 1;
+        this.partitionByRecord = partitionByRecord;
+        this.partitionBySink = partitionBySink;
+        this.offsets = new ObjList<>(shardCount);
+        this.shardRecords = new ObjList<>(shardCount);
+        try {
+            this.keyMap = MapFactory.createOrderedMap(configuration, partitionByKeyTypes);
+            for (int i = 0; i < shardCount; i++) {
+                offsets.add(new DirectLongList(configuration.getSqlSmallMapKeyCapacity(), MemoryTag.NATIVE_LONG_LIST));
+            }
+            final ObjList<WindowFunction> functions = shardFunctions.getQuick(0);
+            for (int i = 0, n = functions.size(); i < n; i++) {
+                if (functions.getQuick(i).getPassCount() > WindowFunction.ONE_PASS) {
+                    hasTwoPassFunctions = true;
+                    break;
+                }
+            }
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    /**
+     * Adds the row to the shard of its partition. Rows have to be added in the order in which
+     * window functions expect to see them.
+     */
+    public void add(Record record, long offset) {
+        partitionByRecord.of(record);
+        final MapKey key = keyMap.withKey();
+        key.put(partitionByRecord, partitionBySink);
+        key.commit();
+        final int shardIndex = (int) (key.hash() >>> shardCountShr);
+        offsets.getQuick(shardIndex).add(offset);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < shardCount; i++) {
+            offsets.getQuick(i).clear();
+        }
+        error = null;
+    }
+
+    @Override
+    public void close() {
+        // functions of shard 0 belong to the window factory
+        for (int i = 1, n = shardFunctions.size(); i < n; i++) {
+            Misc.freeObjList(shardFunctions.getQuick(i));
+        }
+        Misc.freeObjList(offsets);
+        Misc.free(keyMap);
+        Misc.freeObjList(partitionByRecord.getFunctions());
+    }
+
+    public void computeShard(int shardIndex, SqlExecutionCircuitBreaker circuitBreaker) {
+        final ObjList<WindowFunction> functions = shardFunctions.getQuick(shardIndex);
+        final DirectLongList shardOffsets = offsets.getQuick(shardIndex);
+        final Record record = shardRecords.getQuick(shardIndex);
+        final int functionCount = functions.size();
+        final long rowCount = shardOffsets.size();
+
+        for (long i = 0; i < rowCount; i++) {
+            if (circuitBreaker.checkIfTripped()) {
+                return;
+            }
+            final long offset = shardOffsets.get(i);
+            recordChain.recordAt(record, offset);
+            for (int j = 0; j < functionCount; j++) {
+                functions.getQuick(j).pass1(record, offset, recordChain);
+            }
+        }
+
+        if (hasTwoPassFunctions) {
+            for (int j = 0; j < functionCount; j++) {
+                final WindowFunction function = functions.getQuick(j);
+                if (function.getPassCount() > WindowFunction.ONE_PASS) {
+                    function.preparePass2();
+                }
+            }
+
+            for (long i = 0; i < rowCount; i++) {
+                if (circuitBreaker.checkIfTripped()) {
+                    return;
+                }
+                final long offset = shardOffsets.get(i);
+                recordChain.recordAt(record, offset);
+                for (int j = 0; j < functionCount; j++) {
+                    final WindowFunction function = functions.getQuick(j);
+                    if (function.getPassCount() > WindowFunction.ONE_PASS) {
+                        function.pass2(record, offset, recordChain);
+                    }
+                }
+            }
+        }
+    }
+
+    public ObjList<WindowFunction> getFunctions() {
+        return shardFunctions.getQuick(0);
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        for (int i = 1; i < shardCount; i++) {
+            Function.init(shardFunctions.getQuick(i), symbolTableSource, executionContext);
+        }
+        Function.init(partitionByRecord.getFunctions(), symbolTableSource, executionContext);
+    }
+
+    public void of(RecordChain recordChain) {
+        this.recordChain = recordChain;
+        shardRecords.clear();
+        for (int i = 0; i < shardCount; i++) {
+            shardRecords.add(recordChain.newRecord());
+        }
+    }
+
+    @Override
+    public void reopen() {
+        keyMap.reopen();
+        for (int i = 0; i < shardCount; i++) {
+            offsets.getQuick(i).reopen();
+        }
+        for (int i = 1; i < shardCount; i++) {
+            final ObjList<WindowFunction> functions = shardFunctions.getQuick(i);
+            for (int j = 0, n = functions.size(); j < n; j++) {
+                if (functions.getQuick(j) instanceof Reopenable) {
+                    ((Reopenable) functions.getQuick(j)).reopen();
+                }
+            }
+        }
+    }
+
+    public void reset() {
+        for (int i = 1; i < shardCount; i++) {
+            final ObjList<WindowFunction> functions = shardFunctions.getQuick(i);
+            for (int j = 0, n = functions.size(); j < n; j++) {
+                functions.getQuick(j).reset();
+            }
+        }
+        keyMap.close();
+        for (int i = 0; i < shardCount; i++) {
+            offsets.getQuick(i).close();
+        }
+        error = null;
+    }
+
+    public void setError(Throwable th) {
+        if (error == null) {
+            error = th instanceof CairoException ? ((CairoException) th).getFlyweightMessage().toString() : th.getMessage();
+        }
+    }
+
+    public void throwIfFailed() {
+        final String error = this.error;
+        if (error != null) {
+            throw CairoException.nonCritical().put("window function failed [error=").put(error).put(']');
+        }
+    }
+}
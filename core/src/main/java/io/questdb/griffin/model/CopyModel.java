@@ -31,11 +31,16 @@ import io.questdb.std.str.Sinkable;
 import org.jetbrains.annotations.NotNull;
 
 public class CopyModel implements ExecutionModel, Mutable, Sinkable {
+    public static final int COPY_FORMAT_BINARY = 2;
+    public static final int COPY_FORMAT_CSV = 1;
+    public static final int COPY_FORMAT_TEXT = 0;
     public static final ObjectFactory<CopyModel> FACTORY = CopyModel::new;
     private int atomicity;
     private boolean cancel;
     private byte delimiter;
+    private boolean export;
     private ExpressionNode fileName;
+    private int format;
     private boolean header;
     private int partitionBy;
     private ExpressionNode target; // holds table name (new import) or import id (cancel model)
@@ -51,11 +56,13 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         fileName = null;
         header = false;
         cancel = false;
+        export = false;
         timestampFormat = null;
         timestampColumnName = null;
         partitionBy = -1;
         delimiter = -1;
         atomicity = -1;
+        format = COPY_FORMAT_TEXT;
     }
 
     public int getAtomicity() {
@@ -70,6 +77,13 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return fileName;
     }
 
+    /**
+     * Returns data format of COPY FROM STDIN, one of COPY_FORMAT_* constants.
+     */
+    public int getFormat() {
+        return format;
+    }
+
     @Override
     public int getModelType() {
         return ExecutionModel.COPY;
@@ -100,6 +114,13 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return cancel;
     }
 
+    /**
+     * Returns true for COPY table TO 'file', i.e. export of a table to a Parquet file.
+     */
+    public boolean isExport() {
+        return export;
+    }
+
     public boolean isHeader() {
         return header;
     }
@@ -116,10 +137,18 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.delimiter = delimiter;
     }
 
+    public void setExport(boolean export) {
+        this.export = export;
+    }
+
     public void setFileName(ExpressionNode fileName) {
         this.fileName = fileName;
     }
 
+    public void setFormat(int format) {
+        this.format = format;
+    }
+
     public void setHeader(boolean header) {
         this.header = header;
     }
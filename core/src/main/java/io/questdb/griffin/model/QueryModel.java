@@ -101,6 +101,9 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
     private final LowerCaseCharSequenceObjHashMap<CharSequence> columnNameToAliasMap = new LowerCaseCharSequenceObjHashMap<>();
     private final IntHashSet dependencies = new IntHashSet();
     private final ObjList<ExpressionNode> expressionModels = new ObjList<>();
+    // aliases of the aggregate columns that are filled when SAMPLE BY FILL is executed as group-by
+    private final ObjList<CharSequence> fillValueColumns = new ObjList<>();
+    private final ObjList<ExpressionNode> fillValues = new ObjList<>();
     private final ObjList<ExpressionNode> groupBy = new ObjList<>();
     private final ObjList<ExpressionNode> joinColumns = new ObjList<>(4);
     private final ObjList<QueryModel> joinModels = new ObjList<>();
@@ -139,6 +142,8 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
     private JoinContext context;
     private boolean distinct = false;
     private boolean explicitTimestamp;
+    private ExpressionNode fillStride;
+    private CharSequence fillTimestamp;
     //simple flag to mark when limit x,y in current model (part of query) is already taken care of by existing factories e.g. LimitedSizeSortedLightRecordCursorFactory
     //and doesn't need to be enforced by LimitRecordCursor. We need it to detect whether current factory implements limit from this or inner query .
     private boolean isLimitImplemented;
@@ -433,6 +438,7 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         explicitTimestamp = false;
         showKind = -1;
         sampleByOffset = ZERO_OFFSET;
+        clearFill();
     }
 
     public void clearColumnMapStructs() {
@@ -442,6 +448,13 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         this.bottomUpColumns.clear();
     }
 
+    public void clearFill() {
+        fillStride = null;
+        fillTimestamp = null;
+        fillValues.clear();
+        fillValueColumns.clear();
+    }
+
     public void clearOrderBy() {
         orderBy.clear();
         orderByDirection.clear();
@@ -681,6 +694,22 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         return expressionModels;
     }
 
+    public ExpressionNode getFillStride() {
+        return fillStride;
+    }
+
+    public CharSequence getFillTimestamp() {
+        return fillTimestamp;
+    }
+
+    public ObjList<CharSequence> getFillValueColumns() {
+        return fillValueColumns;
+    }
+
+    public ObjList<ExpressionNode> getFillValues() {
+        return fillValues;
+    }
+
     public ObjList<ExpressionNode> getGroupBy() {
         return groupBy;
     }
@@ -1043,6 +1072,7 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
             }
             nested.getOrderBy().clear();
             nested.getOrderByDirection().clear();
+            moveFillFrom(nested);
         }
 
         // If nested model has limits, the outer model must not have different limits.
@@ -1056,6 +1086,22 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         }
     }
 
+    /**
+     * Moves SAMPLE BY fill from the given model. Fill is applied to the ordered
+     * group-by output, so it has to travel with the "order by" clause.
+     */
+    public void moveFillFrom(QueryModel model) {
+        if (model.fillStride != null) {
+            fillStride = model.fillStride;
+            fillTimestamp = model.fillTimestamp;
+            fillValues.clear();
+            fillValues.addAll(model.fillValues);
+            fillValueColumns.clear();
+            fillValueColumns.addAll(model.fillValueColumns);
+            model.clearFill();
+        }
+    }
+
     public void moveGroupByFrom(QueryModel model) {
         groupBy.addAll(model.groupBy);
         // clear the source
@@ -1180,6 +1226,11 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         this.explicitTimestamp = explicitTimestamp;
     }
 
+    public void setFill(ExpressionNode fillStride, CharSequence fillTimestamp) {
+        this.fillStride = fillStride;
+        this.fillTimestamp = fillTimestamp;
+    }
+
     public void setIsUpdate(boolean isUpdate) {
         this.isUpdateModel = isUpdate;
     }
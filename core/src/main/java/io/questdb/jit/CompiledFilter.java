@@ -35,6 +35,7 @@ public class CompiledFilter implements Closeable {
     private static final ThreadLocal<FiltersCompiler.JitError> tlJitError = new ThreadLocal<>(FiltersCompiler.JitError::new);
 
     private long fnAddress;
+    private boolean partial;
 
     public long call(
             long dataAddress,
@@ -68,6 +69,20 @@ public class CompiledFilter implements Closeable {
     }
 
     public void compile(MemoryCARW filter, int options) throws SqlException {
+        compile(filter, options, false);
+    }
+
+    /**
+     * Compiles filter IR stored in the given memory.
+     *
+     * @param filter  filter IR.
+     * @param options JIT compiler options, as returned by {@link CompiledFilterIRSerializer#serialize}.
+     * @param partial set when the IR covers only a subset of the filter's conjuncts. Rows selected
+     *                by such a filter are candidates that have to be confirmed by the Java filter.
+     * @throws SqlException thrown when JIT compilation failed.
+     */
+    public void compile(MemoryCARW filter, int options, boolean partial) throws SqlException {
+        this.partial = partial;
         final long filterSize = filter.getAppendOffset();
         final long filterAddress = filter.getPageAddress(0);
 
@@ -80,4 +95,8 @@ public class CompiledFilter implements Closeable {
                     .put(", msg=").put(error.message()).put("]");
         }
     }
+
+    public boolean isPartial() {
+        return partial;
+    }
 }
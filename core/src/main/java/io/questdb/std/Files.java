@@ -46,11 +46,15 @@ public final class Files {
     public static final int FILES_RENAME_ERR_EXDEV = 1;
     public static final int FILES_RENAME_ERR_OTHER = 2;
     public static final int FILES_RENAME_OK = 0;
+    // Not a POSIX advice, posix_madvise() passes it to madvise() as is. Unlike MADV_DONTNEED, which
+    // posix_madvise() ignores, it keeps pages mapped and moves them to the inactive list.
+    public static final int MADV_COLD;
     public static final int MAP_RO = 1;
     public static final int MAP_RW = 2;
     public static final long PAGE_SIZE;
     public static final int POSIX_FADV_RANDOM;
     public static final int POSIX_FADV_SEQUENTIAL;
+    public static final int POSIX_FADV_WILLNEED;
     // Apart from obvious random read use case, MADV_RANDOM/FADV_RANDOM should be used for write-only
     // append-only files. Otherwise, OS starts reading adjacent pages under memory pressure generating
     // wasted disk read ops.
@@ -150,13 +154,17 @@ public final class Files {
         return lpsz != null && exists0(lpsz.ptr());
     }
 
-    public static void fadvise(int fd, long offset, long len, int advise) {
+    /**
+     * @return 0 on success, error number otherwise
+     */
+    public static int fadvise(int fd, long offset, long len, int advise) {
         if (Os.isLinux()) {
-            fadvise0(fd, offset, len, advise);
+            return fadvise0(fd, offset, len, advise);
         }
+        return 0;
     }
 
-    public static native void fadvise0(int fd, long offset, long len, int advise);
+    public static native int fadvise0(int fd, long offset, long len, int advise);
 
     public native static void findClose(long findPtr);
 
@@ -308,13 +316,17 @@ public final class Files {
 
     public static native int lock(int fd);
 
-    public static void madvise(long address, long len, int advise) {
+    /**
+     * @return 0 on success, error number otherwise
+     */
+    public static int madvise(long address, long len, int advise) {
         if (Os.isLinux()) {
-            madvise0(address, len, advise);
+            return madvise0(address, len, advise);
         }
+        return 0;
     }
 
-    public static native void madvise0(long address, long len, int advise);
+    public static native int madvise0(long address, long len, int advise);
 
     public static int mkdir(Path path, int mode) {
         return mkdir(path.ptr(), mode);
@@ -614,12 +626,16 @@ public final class Files {
 
     private native static long getLastModified(long lpszName);
 
+    private native static int getMadvCold();
+
     private native static long getPageSize();
 
     private native static int getPosixFadvRandom();
 
     private native static int getPosixFadvSequential();
 
+    private native static int getPosixFadvWillNeed();
+
     private native static int getPosixMadvRandom();
 
     private native static int getPosixMadvSequential();
@@ -664,11 +680,25 @@ public final class Files {
             POSIX_FADV_SEQUENTIAL = getPosixFadvSequential();
             POSIX_MADV_RANDOM = getPosixMadvRandom();
             POSIX_MADV_SEQUENTIAL = getPosixMadvSequential();
+            int fadvWillNeed;
+            int madvCold;
+            try {
+                fadvWillNeed = getPosixFadvWillNeed();
+                madvCold = getMadvCold();
+            } catch (UnsatisfiedLinkError e) {
+                // native library predates the getters, the values are the same on all supported Linux architectures
+                fadvWillNeed = 3;
+                madvCold = 20;
+            }
+            POSIX_FADV_WILLNEED = fadvWillNeed;
+            MADV_COLD = madvCold;
         } else {
             POSIX_FADV_SEQUENTIAL = -1;
             POSIX_FADV_RANDOM = -1;
             POSIX_MADV_SEQUENTIAL = -1;
             POSIX_MADV_RANDOM = -1;
+            POSIX_FADV_WILLNEED = -1;
+            MADV_COLD = -1;
         }
     }
 }
@@ -56,7 +56,7 @@ public interface FilesFacade {
 
     boolean exists(int fd);
 
-    void fadvise(int fd, long offset, long len, int advise);
+    int fadvise(int fd, long offset, long len, int advise);
 
     long findClose(long findPtr);
 
@@ -108,7 +108,7 @@ public interface FilesFacade {
 
     int lock(int fd);
 
-    void madvise(long address, long len, int advise);
+    int madvise(long address, long len, int advise);
 
     int mkdir(Path path, int mode);
 
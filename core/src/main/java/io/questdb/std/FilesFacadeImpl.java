@@ -126,10 +126,11 @@ public class FilesFacadeImpl implements FilesFacade {
     }
 
     @Override
-    public void fadvise(int fd, long offset, long len, int advise) {
+    public int fadvise(int fd, long offset, long len, int advise) {
         if (advise > -1) {
-            Files.fadvise(fd, offset, len, advise);
+            return Files.fadvise(fd, offset, len, advise);
         }
+        return 0;
     }
 
     @Override
@@ -295,10 +296,11 @@ public class FilesFacadeImpl implements FilesFacade {
     }
 
     @Override
-    public void madvise(long address, long len, int advise) {
+    public int madvise(long address, long len, int advise) {
         if (advise > -1) {
-            Files.madvise(address, len, advise);
+            return Files.madvise(address, len, advise);
         }
+        return 0;
     }
 
     @Override
@@ -33,6 +33,13 @@ public interface IOURing extends Closeable {
     @Override
     void close();
 
+    /**
+     * Enqueues posix_fadvise() of the file range.
+     *
+     * @return id of the enqueued operation or -1 when the submission queue is full.
+     */
+    long enqueueFadvise(int fd, long offset, int len, int advice);
+
     @TestOnly
     long enqueueNop();
 
@@ -91,15 +91,20 @@ public class IOURingImpl implements IOURing {
         closed = true;
     }
 
+    @Override
+    public long enqueueFadvise(int fd, long offset, int len, int advice) {
+        return enqueueSqe(IORING_OP_FADVISE, fd, offset, 0, len, advice);
+    }
+
     @Override
     @TestOnly
     public long enqueueNop() {
-        return enqueueSqe(IORING_OP_NOP, 0, 0, 0, 0);
+        return enqueueSqe(IORING_OP_NOP, 0, 0, 0, 0, 0);
     }
 
     @Override
     public long enqueueRead(int fd, long offset, long bufAddr, int len) {
-        return enqueueSqe(IORING_OP_READ, fd, offset, bufAddr, len);
+        return enqueueSqe(IORING_OP_READ, fd, offset, bufAddr, len, 0);
     }
 
     @Override
@@ -152,7 +157,7 @@ public class IOURingImpl implements IOURing {
         return facade.submitAndWait(ringAddr, 1);
     }
 
-    private long enqueueSqe(byte op, int fd, long offset, long bufAddr, int len) {
+    private long enqueueSqe(byte op, int fd, long offset, long bufAddr, int len, int opFlags) {
         final long sqeAddr = nextSqe();
         if (sqeAddr == 0) {
             return -1;
@@ -162,6 +167,8 @@ public class IOURingImpl implements IOURing {
         Unsafe.getUnsafe().putLong(sqeAddr + SQE_OFF_OFFSET, offset);
         Unsafe.getUnsafe().putLong(sqeAddr + SQE_ADDR_OFFSET, bufAddr);
         Unsafe.getUnsafe().putInt(sqeAddr + SQE_LEN_OFFSET, len);
+        // sqes are reused, flags of a previous op must not leak into this one
+        Unsafe.getUnsafe().putInt(sqeAddr + SQE_OP_FLAGS_OFFSET, opFlags);
         final long id = idSeq++;
         Unsafe.getUnsafe().putLong(sqeAddr + SQE_USER_DATA_OFFSET, id);
         return id;
@@ -33,6 +33,7 @@ public class IOUringAccessor {
     static final short CQ_KRING_ENTRIES_OFFSET;
     static final short CQ_KRING_MASK_OFFSET;
     static final short CQ_KTAIL_OFFSET;
+    static final byte IORING_OP_FADVISE = 24;
     static final byte IORING_OP_NOP = 0;
     static final byte IORING_OP_READ = 22;
     static final short RING_FD_OFFSET;
@@ -43,6 +44,7 @@ public class IOUringAccessor {
     static final short SQE_LEN_OFFSET;
     static final short SQE_OFF_OFFSET;
     static final short SQE_OPCODE_OFFSET;
+    static final short SQE_OP_FLAGS_OFFSET;
     static final short SQE_USER_DATA_OFFSET;
     static final short SQ_KHEAD_OFFSET;
     static final short SQ_KRING_ENTRIES_OFFSET;
@@ -130,6 +132,8 @@ public class IOUringAccessor {
         SQE_OFF_OFFSET = getSqeOffOffset();
         SQE_ADDR_OFFSET = getSqeAddrOffset();
         SQE_LEN_OFFSET = getSqeLenOffset();
+        // union of per-op flags, e.g. rw_flags and fadvise_advice, follows the 32-bit len field
+        SQE_OP_FLAGS_OFFSET = (short) (SQE_LEN_OFFSET + Integer.BYTES);
         SQE_USER_DATA_OFFSET = getSqeUserDataOffset();
 
         final short cqOffset = getCqOffset();
@@ -42,6 +42,7 @@ open module io.questdb {
     exports io.questdb.cairo.security;
 
     exports io.questdb.cutlass;
+    exports io.questdb.cutlass.arrow;
     exports io.questdb.cutlass.http;
     exports io.questdb.cutlass.http.processors;
     exports io.questdb.cutlass.http.ex;
@@ -56,6 +57,7 @@ open module io.questdb {
 
     exports io.questdb.griffin;
     exports io.questdb.griffin.engine;
+    exports io.questdb.griffin.engine.cache;
     exports io.questdb.griffin.model;
     exports io.questdb.griffin.engine.functions;
     exports io.questdb.griffin.engine.functions.rnd;
@@ -106,6 +108,9 @@ open module io.questdb {
     exports io.questdb.griffin.engine.functions.long128;
     exports io.questdb.cairo.wal;
     exports io.questdb.cairo.wal.seq;
+    exports io.questdb.cairo.mv;
+    exports io.questdb.cairo.compress;
+    exports io.questdb.cairo.parquet;
     exports io.questdb.cutlass.auth;
     exports io.questdb.cutlass.line.tcp.auth;
     exports io.questdb.cairo.frm;
@@ -883,6 +888,7 @@ open module io.questdb {
             io.questdb.griffin.engine.functions.table.WriterPoolFunctionFactory,
             io.questdb.griffin.engine.functions.table.TableWriterMetricsFunctionFactory,
             io.questdb.griffin.engine.functions.table.MemoryMetricsFunctionFactory,
+            io.questdb.griffin.engine.functions.table.ReadParquetFunctionFactory,
 
             // strpos
             io.questdb.griffin.engine.functions.str.StrPosFunctionFactory,
@@ -944,6 +950,13 @@ open module io.questdb {
             io.questdb.griffin.engine.functions.window.AvgDoubleWindowFunctionFactory,
             io.questdb.griffin.engine.functions.window.FirstValueDoubleWindowFunctionFactory,
             io.questdb.griffin.engine.functions.window.SumDoubleWindowFunctionFactory,
+            io.questdb.griffin.engine.functions.window.MaxDoubleWindowFunctionFactory,
+            io.questdb.griffin.engine.functions.window.MinDoubleWindowFunctionFactory,
+            io.questdb.griffin.engine.functions.window.CountWindowFunctionFactory,
+            io.questdb.griffin.engine.functions.window.CountDoubleWindowFunctionFactory,
+            io.questdb.griffin.engine.functions.window.LastValueDoubleWindowFunctionFactory,
+            io.questdb.griffin.engine.functions.window.LagDoubleWindowFunctionFactory,
+            io.questdb.griffin.engine.functions.window.LeadDoubleWindowFunctionFactory,
 
             // metadata functions
             io.questdb.griffin.engine.functions.metadata.BuildFunctionFactory,
@@ -165,6 +165,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(5, configuration.getCairoConfiguration().getCreateAsSelectRetryCount());
         Assert.assertTrue(configuration.getCairoConfiguration().getDefaultSymbolCacheFlag());
         Assert.assertEquals(256, configuration.getCairoConfiguration().getDefaultSymbolCapacity());
+        Assert.assertEquals(1.0, configuration.getCairoConfiguration().getSymbolRehashLoadFactor(), 0.0000001);
         Assert.assertEquals(30, configuration.getCairoConfiguration().getFileOperationRetryCount());
         Assert.assertEquals(300000, configuration.getCairoConfiguration().getIdleCheckInterval());
         Assert.assertEquals(128, configuration.getCairoConfiguration().getInactiveReaderMaxOpenPartitions());
@@ -210,6 +211,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
         Assert.assertTrue(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+        Assert.assertFalse(configuration.getCairoConfiguration().isPartitionStatsEnabled());
         Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getWindowColumnPoolCapacity());
@@ -250,6 +252,12 @@ public class PropServerConfigurationTest {
         Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelFilterPreTouchEnabled());
         Assert.assertEquals(16, configuration.getCairoConfiguration().getSqlParallelWorkStealingThreshold());
         Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlPageFrameMaxRows());
+        Assert.assertEquals(32, configuration.getCairoConfiguration().getSqlPageFrameIOURingCapacity());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlPageFrameReadAheadEnabled());
+        Assert.assertEquals(4, configuration.getCairoConfiguration().getSqlPageFrameReadAheadFrames());
+        Assert.assertEquals(64 * Numbers.SIZE_1MB, configuration.getCairoConfiguration().getSqlPageFrameReadAheadBudget());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlResultCacheCapacity());
+        Assert.assertEquals(16 * Numbers.SIZE_1MB, configuration.getCairoConfiguration().getSqlResultCacheMaxEntrySize());
         Assert.assertEquals(100_000, configuration.getCairoConfiguration().getSqlPageFrameMinRows());
         Assert.assertEquals(256, configuration.getCairoConfiguration().getPageFrameReduceRowIdListCapacity());
         Assert.assertEquals(16, configuration.getCairoConfiguration().getPageFrameReduceColumnListCapacity());
@@ -418,6 +426,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(1000, configuration.getWalApplyPoolConfiguration().getYieldThreshold());
         Assert.assertEquals(20, configuration.getCairoConfiguration().getWalApplyLookAheadTransactionCount());
         Assert.assertEquals(4, configuration.getCairoConfiguration().getO3LagCalculationWindowsSize());
+        Assert.assertFalse(configuration.getCairoConfiguration().isWalSegmentCompressionEnabled());
         Assert.assertEquals(200_000, configuration.getCairoConfiguration().getWalSegmentRolloverRowCount());
         Assert.assertEquals(20.0d, configuration.getCairoConfiguration().getWalSquashUncommittedRowsMultiplier(), 0.00001);
         Assert.assertEquals(-1, configuration.getCairoConfiguration().getWalMaxLagTxnCount());
@@ -425,9 +434,13 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(262144, configuration.getCairoConfiguration().getSystemWalDataAppendPageSize());
         Assert.assertTrue(configuration.getCairoConfiguration().isTableTypeConversionEnabled());
         Assert.assertEquals(10, configuration.getCairoConfiguration().getWalWriterPoolMaxSegments());
+        Assert.assertEquals(1024, configuration.getCairoConfiguration().getWalWriterBatchRowCount());
 
         Assert.assertEquals(20, configuration.getCairoConfiguration().getO3LastPartitionMaxSplits());
         Assert.assertEquals(50 * Numbers.SIZE_1MB, configuration.getCairoConfiguration().getPartitionO3SplitMinSize());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getPartitionCompressionAge());
+        Assert.assertEquals(60_000, configuration.getCairoConfiguration().getPartitionCompressionInterval());
+        Assert.assertEquals(Numbers.SIZE_1GB, configuration.getCairoConfiguration().getPartitionDecompressionBufferPoolSize());
         Assert.assertFalse(configuration.getCairoConfiguration().getTextConfiguration().isUseLegacyStringDefault());
     }
 
@@ -1313,6 +1326,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(12, configuration.getCreateAsSelectRetryCount());
         Assert.assertTrue(configuration.getDefaultSymbolCacheFlag());
         Assert.assertEquals(512, configuration.getDefaultSymbolCapacity());
+        Assert.assertEquals(2.0, configuration.getSymbolRehashLoadFactor(), 0.0000001);
         Assert.assertEquals(10, configuration.getFileOperationRetryCount());
         Assert.assertEquals(20_000, configuration.getIdleCheckInterval());
         Assert.assertEquals(42, configuration.getInactiveReaderMaxOpenPartitions());
@@ -1353,6 +1367,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(1028, configuration.getSqlSortValueMaxPages());
         Assert.assertEquals(1000000, configuration.getWorkStealTimeoutNanos());
         Assert.assertFalse(configuration.isParallelIndexingEnabled());
+        Assert.assertTrue(configuration.isPartitionStatsEnabled());
         Assert.assertEquals(8 * 1024, configuration.getSqlJoinMetadataPageSize());
         Assert.assertEquals(10_000, configuration.getSqlJoinMetadataMaxResizes());
         Assert.assertEquals(16, configuration.getBindVariablePoolSize());
@@ -1396,8 +1411,19 @@ public class PropServerConfigurationTest {
         Assert.assertFalse(configuration.isSqlParallelFilterEnabled());
         Assert.assertFalse(configuration.isSqlParallelFilterPreTouchEnabled());
         Assert.assertFalse(configuration.isSqlParallelGroupByEnabled());
+        Assert.assertFalse(configuration.isSqlParallelAsOfJoinEnabled());
+        Assert.assertFalse(configuration.isSqlParallelHashJoinEnabled());
+        Assert.assertFalse(configuration.isSqlParallelSampleByFillEnabled());
+        Assert.assertFalse(configuration.isSqlParallelSortEnabled());
+        Assert.assertFalse(configuration.isSqlParallelWindowEnabled());
         Assert.assertEquals(32, configuration.getSqlParallelWorkStealingThreshold());
         Assert.assertEquals(1000, configuration.getSqlPageFrameMaxRows());
+        Assert.assertEquals(16, configuration.getSqlPageFrameIOURingCapacity());
+        Assert.assertTrue(configuration.isSqlPageFrameReadAheadEnabled());
+        Assert.assertEquals(8, configuration.getSqlPageFrameReadAheadFrames());
+        Assert.assertEquals(16 * Numbers.SIZE_1MB, configuration.getSqlPageFrameReadAheadBudget());
+        Assert.assertEquals(64 * Numbers.SIZE_1MB, configuration.getSqlResultCacheCapacity());
+        Assert.assertEquals(Numbers.SIZE_1MB, configuration.getSqlResultCacheMaxEntrySize());
         Assert.assertEquals(100, configuration.getSqlPageFrameMinRows());
         Assert.assertEquals(128, configuration.getPageFrameReduceShardCount());
         Assert.assertEquals(1024, configuration.getPageFrameReduceQueueCapacity());
@@ -1451,7 +1477,9 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(23, configuration.getWalApplyLookAheadTransactionCount());
         Assert.assertFalse(configuration.isTableTypeConversionEnabled());
         Assert.assertEquals(100, configuration.getWalWriterPoolMaxSegments());
+        Assert.assertEquals(512, configuration.getWalWriterBatchRowCount());
         Assert.assertEquals(120, configuration.getO3LagCalculationWindowsSize());
+        Assert.assertTrue(configuration.isWalSegmentCompressionEnabled());
         Assert.assertEquals(100, configuration.getWalSegmentRolloverRowCount());
         Assert.assertEquals(42.2d, configuration.getWalSquashUncommittedRowsMultiplier(), 0.00001);
         Assert.assertEquals(4242, configuration.getWalMaxLagTxnCount());
@@ -1461,6 +1489,9 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(1, configuration.getO3LastPartitionMaxSplits());
         final long TB = (long) Numbers.SIZE_1MB * Numbers.SIZE_1MB;
         Assert.assertEquals(TB, configuration.getPartitionO3SplitMinSize());
+        Assert.assertEquals(86_400_000, configuration.getPartitionCompressionAge());
+        Assert.assertEquals(30_000, configuration.getPartitionCompressionInterval());
+        Assert.assertEquals(16 * Numbers.SIZE_1MB, configuration.getPartitionDecompressionBufferPoolSize());
 
         Assert.assertEquals(10 * Numbers.SIZE_1MB, configuration.getWalMaxLagSize());
         Assert.assertEquals(50, configuration.getWalMaxSegmentFileDescriptorsCache());
@@ -82,7 +82,7 @@ public class CreateTableTest extends AbstractCairoTest {
     public void testCreateTableAsSelectIndexUnsupportedColumnType() throws Exception {
         assertFailure(
                 "CREATE TABLE tab AS (" +
-                        "SELECT x FROM long_sequence(1)" +
+                        "SELECT x::double x FROM long_sequence(1)" +
                         "), INDEX(x)",
                 0
         );
@@ -705,7 +705,7 @@ public class CreateTableTest extends AbstractCairoTest {
                 fail();
             } catch (SqlException e) {
                 assertEquals(position, e.getPosition());
-                TestUtils.assertContains(e.getFlyweightMessage(), "indexes are supported only for SYMBOL columns: x");
+                TestUtils.assertContains(e.getFlyweightMessage(), "indexes are supported only for SYMBOL, INT and LONG columns: x");
             }
         });
     }
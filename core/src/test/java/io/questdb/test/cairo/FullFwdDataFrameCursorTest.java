@@ -2557,10 +2557,12 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
                 indexBlockSize = N / S;
             }
 
+            // symbol maps must not be rehashed, tests attack index files by their name
+            final int symbolCapacity = Numbers.ceilPow2(S);
             TableModel model = new TableModel(configuration, "ABC", partitionBy)
-                    .col("a", ColumnType.SYMBOL).indexed(true, indexBlockSize)
-                    .col("b", ColumnType.SYMBOL).indexed(true, indexBlockSize)
-                    .col("c", ColumnType.SYMBOL).indexed(true, indexBlockSize)
+                    .col("a", ColumnType.SYMBOL).symbolCapacity(symbolCapacity).indexed(true, indexBlockSize)
+                    .col("b", ColumnType.SYMBOL).symbolCapacity(symbolCapacity).indexed(true, indexBlockSize)
+                    .col("c", ColumnType.SYMBOL).symbolCapacity(symbolCapacity).indexed(true, indexBlockSize)
                     .col("d", ColumnType.DOUBLE)
                     .timestamp();
             AbstractCairoTest.create(model);
@@ -291,6 +291,11 @@ public class Overrides {
         properties.setProperty(PropertyKey.CAIRO_O3_MAX_LAG.getPropertyPath(), "300000");
         properties.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_FILTER_ENABLED.getPropertyPath(), "true");
         properties.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_ENABLED.getPropertyPath(), "true");
+        properties.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_ASOF_JOIN_ENABLED.getPropertyPath(), "false");
+        properties.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_HASH_JOIN_ENABLED.getPropertyPath(), "false");
+        properties.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_SAMPLE_BY_FILL_ENABLED.getPropertyPath(), "false");
+        properties.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_SORT_ENABLED.getPropertyPath(), "false");
+        properties.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WINDOW_ENABLED.getPropertyPath(), "false");
         properties.setProperty(PropertyKey.CAIRO_WAL_ENABLED_DEFAULT.getPropertyPath(), "false");
         properties.setProperty(PropertyKey.CAIRO_LEGACY_STRING_COLUMN_TYPE_DEFAULT.getPropertyPath(), "false");
     }
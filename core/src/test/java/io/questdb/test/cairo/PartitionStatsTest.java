@@ -0,0 +1,227 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cairo;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.PartitionStats;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.TableUtils;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PartitionStatsTest extends AbstractCairoTest {
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_PARTITION_STATS_ENABLED, "true");
+        super.setUp();
+    }
+
+    @Test
+    public void testColumnTopAndNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            ddl("alter table x add column j int");
+            insert("insert into x values (13, null, 13, '2024-01-03T20:00:00', 42)");
+            insert("insert into x values (14, 14.0, 14, '2024-01-04T00:00:00', null)");
+
+            assertSql("i\tj\n13\t42\n", "select i, j from x where j = 42");
+            assertSql("i\tj\n13\t42\n", "select i, j from x where j > 0");
+            assertSql("i\n", "select i from x where j < 0");
+            assertSql("i\td\n14\t14.0\n", "select i, d from x where d > 12.5");
+            assertSql("i\tl\n13\t13\n14\t14\n", "select i, l from x where l >= 13");
+            assertMatchesUnpruned("j = 42");
+            assertMatchesUnpruned("j < 100");
+        });
+    }
+
+    @Test
+    public void testDoubleTolerance() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            // equality tolerates the rounding error of the constant
+            assertSql("i\n5\n", "select i from x where d = 5.00000000000001");
+            assertSql("i\n12\n", "select i from x where d >= 12.00000000000001");
+            assertSql("i\n1\n", "select i from x where d <= 0.99999999999999");
+            assertMatchesUnpruned("d = 5.00000000000001");
+            assertMatchesUnpruned("d > 3.5 and d < 9.5");
+        });
+    }
+
+    @Test
+    public void testIncrementalCommits() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            for (int i = 0; i < 5; i++) {
+                insert("insert into x values (" + (100 + i) + ", " + (100 + i) + ", " + (-i) + ", '2024-01-04T0" + i + ":00:00')");
+                assertMatchesUnpruned("i > 99");
+                assertMatchesUnpruned("l < -1");
+                assertMatchesUnpruned("d = " + (100 + i));
+            }
+            assertSql("i\n104\n", "select i from x where l = -4");
+        });
+    }
+
+    @Test
+    public void testNonPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table y as (select x i from long_sequence(10))");
+            assertSql("i\n", "select i from y where i > 10");
+            insert("insert into y values (11)");
+            assertSql("i\n11\n", "select i from y where i > 10");
+            ddl("truncate table y");
+            insert("insert into y values (-1)");
+            assertSql("i\n-1\n", "select i from y where i < 0");
+        });
+    }
+
+    @Test
+    public void testO3() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            insert("insert into x values (-5, -5.0, -5, '2024-01-01T01:00:00')");
+            insert("insert into x values (500, 500.0, 500, '2024-01-02T01:00:00')");
+
+            assertSql("i\tts\n-5\t2024-01-01T01:00:00.000000Z\n", "select i, ts from x where i < 0");
+            assertSql("i\tts\n500\t2024-01-02T01:00:00.000000Z\n", "select i, ts from x where l = 500");
+            assertSql("i\tts\n500\t2024-01-02T01:00:00.000000Z\n", "select i, ts from x where d > 100 order by ts desc");
+            assertMatchesUnpruned("i > 4 and i < 9");
+        });
+    }
+
+    @Test
+    public void testPrunedPageFrames() throws Exception {
+        // page frames are aligned with stats blocks
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MIN_ROWS, PartitionStats.BLOCK_ROW_COUNT);
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, PartitionStats.BLOCK_ROW_COUNT);
+        assertMemoryLeak(() -> {
+            ddl(
+                    "create table z as (" +
+                            "select x i, timestamp_sequence('2024-01-01', 1000000L) ts" +
+                            " from long_sequence(" + 4 * PartitionStats.BLOCK_ROW_COUNT + ")" +
+                            ") timestamp(ts) partition by month"
+            );
+            assertSql("i\n262144\n", "select i from z where i > 262143");
+
+            // rows of the first block are never read when the block is ruled out by stats
+            engine.releaseAllReaders();
+            final TableToken tableToken = engine.verifyTableName("z");
+            final FilesFacade ff = configuration.getFilesFacade();
+            final long buf = Unsafe.malloc(Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+            try (Path path = new Path()) {
+                path.of(configuration.getRoot()).concat(tableToken).concat("2024-01").concat("i.d");
+                final int fd = ff.openRW(path.$(), CairoConfiguration.O_NONE);
+                Assert.assertTrue(fd > -1);
+                try {
+                    Unsafe.getUnsafe().putLong(buf, 1_000_000);
+                    Assert.assertEquals(Long.BYTES, ff.write(fd, buf, Long.BYTES, 0));
+                } finally {
+                    ff.close(fd);
+                }
+            } finally {
+                Unsafe.free(buf, Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+            }
+
+            assertSql("i\n262144\n", "select i from z where i > 262143");
+            assertSql("i\n262144\n", "select i from z where i > 262143 order by ts desc");
+            // arithmetic on the column hides the predicate from stats
+            assertSql("i\n1000000\n262144\n", "select i from z where i + 0 > 262143");
+        });
+    }
+
+    @Test
+    public void testPrunedPartitionIsNotOpened() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final TableToken tableToken = engine.verifyTableName("x");
+            final FilesFacade ff = configuration.getFilesFacade();
+            try (Path path = new Path()) {
+                for (String partition : new String[]{"2024-01-01", "2024-01-02", "2024-01-03"}) {
+                    path.of(configuration.getRoot()).concat(tableToken).concat(partition).concat(TableUtils.PARTITION_STATS_FILE_NAME);
+                    Assert.assertTrue(ff.exists(path.$()));
+                }
+
+                engine.releaseAllReaders();
+                // queries below must not touch the first and the last partition
+                for (String partition : new String[]{"2024-01-01", "2024-01-03"}) {
+                    path.of(configuration.getRoot()).concat(tableToken).concat(partition).concat("i.d");
+                    Assert.assertTrue(ff.removeQuiet(path.$()));
+                }
+            }
+
+            assertSql("i\n6\n", "select i from x where i = 6");
+            assertSql("i\n5\n6\n7\n8\n", "select i from x where i > 4 and 8 >= i");
+            assertSql("i\n8\n7\n6\n5\n", "select i from x where i >= 5 and l <= 8 order by ts desc");
+        });
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compile("update x set l = 1000 where i = 2");
+            assertSql("i\tl\n2\t1000\n", "select i, l from x where l > 100");
+            assertMatchesUnpruned("l < 3");
+        });
+    }
+
+    @Test
+    public void testWal() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table w (i long, ts timestamp) timestamp(ts) partition by day wal");
+            insert("insert into w select x, timestamp_sequence('2024-01-01', 6 * 60 * 60 * 1000000L) from long_sequence(12)");
+            drainWalQueue();
+            assertSql("i\n10\n", "select i from w where i = 10");
+
+            insert("insert into w values (-1, '2024-01-01T03:00:00'), (100, '2024-01-03T23:00:00')");
+            drainWalQueue();
+            assertSql("i\n-1\n", "select i from w where i < 1");
+            assertSql("i\n100\n", "select i from w where i > 12");
+        });
+    }
+
+    private void assertMatchesUnpruned(String filter) throws Exception {
+        // arithmetic on the column hides the predicate from partition pruning
+        final String unpruned = filter.replaceAll("\\b([ijld])\\b", "($1 + 0)");
+        assertSqlCursors("select * from x where " + unpruned, "select * from x where " + filter);
+    }
+
+    private void createTable() throws Exception {
+        ddl(
+                "create table x as (" +
+                        "select x i, x::double d, x l, timestamp_sequence('2024-01-01', 6 * 60 * 60 * 1000000L) ts" +
+                        " from long_sequence(12)" +
+                        ") timestamp(ts) partition by day"
+        );
+    }
+}
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cairo;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.SymbolMapReader;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Files;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SymbolMapRehashTest extends AbstractCairoTest {
+
+    @Test
+    public void testColumnAddedLater() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x as (select x, timestamp_sequence(0, 3600000000) ts from long_sequence(48)) timestamp(ts) partition by DAY");
+            ddl("alter table x add column sym symbol capacity 4");
+            insert("insert into x select x, timestamp_sequence(48 * 3600000000, 3600000000) ts, 's' || x sym from long_sequence(48)");
+
+            assertSymbolCapacity("x", 64);
+            assertSql(
+                    "count\tcount1\tcount_distinct\n" +
+                            "96\t48\t48\n",
+                    "select count(), count(sym), count_distinct(sym) from x"
+            );
+            assertSql(
+                    "x\tts\tsym\n" +
+                            "48\t1970-01-02T23:00:00.000000Z\t\n" +
+                            "1\t1970-01-03T00:00:00.000000Z\ts1\n",
+                    "select * from x where ts in '1970-01-02T23;1h'"
+            );
+        });
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        setProperty(PropertyKey.CAIRO_SYMBOL_REHASH_LOAD_FACTOR, "0");
+        assertMemoryLeak(() -> {
+            ddl("create table x (sym symbol capacity 4, ts timestamp) timestamp(ts) partition by DAY");
+            insert("insert into x select 's' || x, x::timestamp from long_sequence(100)");
+
+            assertSymbolCapacity("x", 4);
+            assertFileExists(engine.verifyTableName("x"), "sym.o", true);
+            assertSql("count_distinct\n100\n", "select count_distinct(sym) from x");
+        });
+    }
+
+    @Test
+    public void testIndexedColumnAcrossPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (sym symbol capacity 4 index, ts timestamp) timestamp(ts) partition by HOUR");
+            for (int i = 0; i < 5; i++) {
+                insert("insert into x select 's' || (x % " + (10 * (i + 1)) + "), (" + i + " * 3600000000L + x * 1000000L)::timestamp from long_sequence(100)");
+            }
+
+            assertSymbolCapacity("x", 64);
+            assertSql(
+                    "count\n" +
+                            "24\n",
+                    "select count() from x where sym = 's7'"
+            );
+            assertSql(
+                    "count\n" +
+                            "0\n",
+                    "select count() from x where sym = 's50'"
+            );
+            assertSql(
+                    "sym\tcount\n" +
+                            "s49\t2\n",
+                    "select sym, count() from x where sym = 's49'"
+            );
+        });
+    }
+
+    @Test
+    public void testOldFilesArePurged() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (sym symbol capacity 4, ts timestamp) timestamp(ts) partition by DAY");
+            final TableToken tableToken = engine.verifyTableName("x");
+            insert("insert into x values ('a', 0)");
+            assertFileExists(tableToken, "sym.o", true);
+
+            insert("insert into x select 's' || x, x::timestamp from long_sequence(10)");
+            assertSymbolCapacity("x", 16);
+            assertFileExists(tableToken, "sym.o", false);
+            assertFileExists(tableToken, "sym.c", false);
+            assertFileExists(tableToken, "1970-01-01" + Files.SEPARATOR + "sym.d", false);
+        });
+    }
+
+    @Test
+    public void testReaderKeepsOldFiles() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (sym symbol capacity 4, ts timestamp) timestamp(ts) partition by DAY");
+            insert("insert into x select 's' || x, x::timestamp from long_sequence(4)");
+
+            try (TableReader reader = getReader("x")) {
+                final SymbolMapReader symbolMapReader = reader.getSymbolMapReader(0);
+                Assert.assertEquals(4, symbolMapReader.getSymbolCapacity());
+                Assert.assertEquals(4, symbolMapReader.getSymbolCount());
+
+                insert("insert into x select 'x' || x, (10 + x)::timestamp from long_sequence(100)");
+
+                // reader stays on its version of the symbol map
+                Assert.assertEquals(4, symbolMapReader.getSymbolCapacity());
+                Assert.assertEquals(4, symbolMapReader.getSymbolCount());
+                Assert.assertEquals("s3", symbolMapReader.valueOf(2).toString());
+                Assert.assertEquals(3, symbolMapReader.keyOf("s4"));
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, symbolMapReader.keyOf("x1"));
+
+                // symbols added after the rehash go to the new files only,
+                // old files hold symbols up to the rehash, but not past that
+                insert("insert into x select 'y' || x, (200 + x)::timestamp from long_sequence(5)");
+                symbolMapReader.updateSymbolCount(109);
+                Assert.assertEquals(104, symbolMapReader.getSymbolCount());
+                Assert.assertEquals("x100", symbolMapReader.valueOf(103).toString());
+                Assert.assertNull(symbolMapReader.valueOf(104));
+
+                Assert.assertTrue(reader.reload());
+                final SymbolMapReader reloaded = reader.getSymbolMapReader(0);
+                Assert.assertEquals(128, reloaded.getSymbolCapacity());
+                Assert.assertEquals(109, reloaded.getSymbolCount());
+                Assert.assertEquals("s3", reloaded.valueOf(2).toString());
+                Assert.assertEquals("y1", reloaded.valueOf(104).toString());
+                Assert.assertEquals(103, reloaded.keyOf("x100"));
+                Assert.assertEquals(108, reloaded.keyOf("y5"));
+                Assert.assertEquals(109, reader.size());
+            }
+            assertSql("count_distinct\n109\n", "select count_distinct(sym) from x");
+        });
+    }
+
+    @Test
+    public void testWal() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (sym symbol capacity 4, ts timestamp) timestamp(ts) partition by DAY WAL");
+            for (int i = 0; i < 4; i++) {
+                insert("insert into x select 's' || x, (" + i + " * 86400000000L + x)::timestamp from long_sequence(" + (20 * (i + 1)) + ")");
+            }
+            drainWalQueue();
+
+            assertSymbolCapacity("x", 128);
+            assertSql(
+                    "sym\tcount\n" +
+                            "s1\t4\n" +
+                            "s20\t4\n" +
+                            "s21\t3\n" +
+                            "s80\t1\n",
+                    "select sym, count() from x where sym in ('s1', 's20', 's21', 's80') order by sym"
+            );
+        });
+    }
+
+    @Test
+    public void testWriterReopen() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (sym symbol capacity 4, ts timestamp) timestamp(ts) partition by DAY");
+            insert("insert into x select 's' || x, x::timestamp from long_sequence(10)");
+            insert("insert into x values (null, 20)");
+            assertSymbolCapacity("x", 16);
+            engine.releaseAllWriters();
+
+            try (TableWriter writer = getWriter("x")) {
+                Assert.assertEquals(16, writer.getSymbolMapWriter(0).getSymbolCapacity());
+                Assert.assertTrue(writer.getSymbolMapWriter(0).getNullFlag());
+                TableWriter.Row row = writer.newRow(30);
+                row.putSym(0, "s5");
+                row.append();
+                row = writer.newRow(31);
+                row.putSym(0, "s11");
+                row.append();
+                writer.commit();
+            }
+
+            assertSql(
+                    "sym\tcount\n" +
+                            "\t1\n" +
+                            "s11\t1\n" +
+                            "s5\t2\n",
+                    "select sym, count() from x where sym in ('s5', 's11', null) order by sym"
+            );
+            assertSql("count_distinct\n11\n", "select count_distinct(sym) from x");
+        });
+    }
+
+    private static void assertFileExists(TableToken tableToken, String fileName, boolean exists) {
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).concat(tableToken).concat(fileName).$();
+            Assert.assertEquals(path.toString(), exists, configuration.getFilesFacade().exists(path.$()));
+        }
+    }
+
+    private static void assertSymbolCapacity(String tableName, int expectedCapacity) {
+        try (TableReader reader = getReader(tableName)) {
+            final int columnIndex = reader.getMetadata().getColumnIndex("sym");
+            Assert.assertEquals(expectedCapacity, reader.getSymbolMapReader(columnIndex).getSymbolCapacity());
+        }
+    }
+}
@@ -0,0 +1,416 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cairo.compress;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.CommitMode;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.compress.ColumnCompressor;
+import io.questdb.cairo.compress.DecompressionBufferPool;
+import io.questdb.cairo.compress.PartitionCompressionJob;
+import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Numbers;
+import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class CompressedPartitionTest extends AbstractCairoTest {
+    private static final String ALL_ROWS = "select * from x";
+    private static final String SYMBOL_COUNTS = "select sym, count() from x order by sym";
+
+    @Test
+    public void testAddIndexFails() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            ddl("alter table x convert partition to compressed list '2024-01-01'");
+            assertExceptionNoLeakCheck(
+                    "alter table x alter column sym add index",
+                    12,
+                    "cannot create index, table has compressed partitions"
+            );
+        });
+    }
+
+    @Test
+    public void testCodecRoundTrip() throws Exception {
+        assertMemoryLeak(() -> {
+            final Rnd rnd = TestUtils.generateRandom(LOG);
+            // more than one block
+            final int rowCount = ColumnCompressor.BLOCK_ROWS * 2 + rnd.nextInt(1000);
+            final long size = (long) rowCount * Long.BYTES;
+            final long src = Unsafe.malloc(size, MemoryTag.NATIVE_DEFAULT);
+            final FilesFacade ff = configuration.getFilesFacade();
+            try (
+                    ColumnCompressor compressor = new ColumnCompressor(ff, CommitMode.NOSYNC);
+                    Path z = new Path();
+                    Path d = new Path()
+            ) {
+                z.of(root).concat("codec.z").$();
+                d.of(root).concat("codec.d").$();
+
+                // timestamps with jitter
+                long ts = 1_700_000_000_000_000L;
+                for (int i = 0; i < rowCount; i++) {
+                    ts += rnd.nextInt(1000);
+                    Unsafe.getUnsafe().putLong(src + (long) i * Long.BYTES, ts);
+                }
+                assertRoundTrip(ff, compressor, src, size, rowCount, ColumnType.TIMESTAMP, z, d, true);
+
+                // random longs and nulls do not compress, but still have to survive the round trip
+                for (int i = 0; i < rowCount; i++) {
+                    Unsafe.getUnsafe().putLong(src + (long) i * Long.BYTES, i % 100 == 0 ? Numbers.LONG_NULL : rnd.nextLong());
+                }
+                assertRoundTrip(ff, compressor, src, size, rowCount, ColumnType.LONG, z, d, false);
+
+                // slowly changing doubles with NaNs
+                double value = 100;
+                for (int i = 0; i < rowCount; i++) {
+                    value += rnd.nextInt(3) - 1;
+                    Unsafe.getUnsafe().putDouble(src + (long) i * Double.BYTES, i % 50 == 0 ? Double.NaN : value);
+                }
+                assertRoundTrip(ff, compressor, src, size, rowCount, ColumnType.DOUBLE, z, d, true);
+
+                // symbol keys including null
+                for (int i = 0; i < rowCount; i++) {
+                    Unsafe.getUnsafe().putInt(src + (long) i * Integer.BYTES, rnd.nextInt(20) - 1);
+                }
+                assertRoundTrip(ff, compressor, src, (long) rowCount * Integer.BYTES, rowCount, ColumnType.SYMBOL, z, d, true);
+            } finally {
+                Unsafe.free(src, size, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
+    @Test
+    public void testCompressActivePartitionFails() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertExceptionNoLeakCheck(
+                    "alter table x convert partition to compressed list '2024-01-03'",
+                    51,
+                    "cannot compress active partition"
+            );
+        });
+    }
+
+    @Test
+    public void testCompressAndDecompressByList() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String expected = select(ALL_ROWS);
+            final String expectedSymbols = select(SYMBOL_COUNTS);
+
+            ddl("alter table x convert partition to compressed list '2024-01-01', '2024-01-02'");
+            assertCompressed("2024-01-01", true);
+            assertCompressed("2024-01-02", true);
+            assertCompressed("2024-01-03", false);
+            assertSql(expected, ALL_ROWS);
+            assertSql(expectedSymbols, SYMBOL_COUNTS);
+
+            // repeated conversion is a no-op
+            ddl("alter table x convert partition to compressed list '2024-01-01'");
+            assertSql(expected, ALL_ROWS);
+
+            ddl("alter table x convert partition to native list '2024-01-01', '2024-01-02'");
+            assertCompressed("2024-01-01", false);
+            assertCompressed("2024-01-02", false);
+            assertSql(expected, ALL_ROWS);
+
+            // the table is writable again
+            insert("insert into x (i, ts) values (1, '2024-01-01T00:30')");
+            assertSql("count\n73\n", "select count() from x");
+        });
+    }
+
+    @Test
+    public void testCompressByWhere() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String expected = select(ALL_ROWS);
+
+            ddl("alter table x convert partition to compressed where ts < '2024-01-02'");
+            assertCompressed("2024-01-01", true);
+            assertCompressed("2024-01-02", false);
+            assertSql(expected, ALL_ROWS);
+        });
+    }
+
+    @Test
+    public void testCompressWal() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            ddl("create table y as (select * from x) timestamp(ts) partition by day wal");
+            drainWalQueue();
+            final String expected = select("select * from y");
+
+            ddl("alter table y convert partition to compressed list '2024-01-01'");
+            drainWalQueue();
+            Assert.assertFalse(engine.getTableSequencerAPI().isSuspended(engine.verifyTableName("y")));
+            assertSql(expected, "select * from y");
+            try (TableReader reader = engine.getReader("y")) {
+                Assert.assertTrue(reader.getTxFile().isPartitionCompressed(0));
+                Assert.assertFalse(reader.getTxFile().isPartitionCompressed(1));
+            }
+        });
+    }
+
+    @Test
+    public void testCompressionJob() throws Exception {
+        setProperty(PropertyKey.CAIRO_PARTITION_COMPRESSION_AGE, 24 * 3600 * 1000L);
+        currentMicros = TimestampFormatUtils.parseTimestamp("2024-01-03T12:00:00.000000Z");
+        assertMemoryLeak(() -> {
+            createTable();
+            final String expected = select(ALL_ROWS);
+
+            try (PartitionCompressionJob job = new PartitionCompressionJob(engine)) {
+                Assert.assertTrue(job.compressPartitions());
+                // nothing left to compress
+                Assert.assertFalse(job.compressPartitions());
+            }
+            // 2024-01-02 ends after the cutoff
+            assertCompressed("2024-01-01", true);
+            assertCompressed("2024-01-02", false);
+            assertSql(expected, ALL_ROWS);
+        });
+    }
+
+    @Test
+    public void testConvertPartitionSyntax() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertExceptionNoLeakCheck("alter table x convert partition to zipped list '2024-01-01'", 35, "'compressed' or 'native' expected");
+            assertExceptionNoLeakCheck("alter table x convert partition to parquet list '2024-01-01'", 35, "'compressed' or 'native' expected");
+            assertExceptionNoLeakCheck("alter table x convert partition to compressed", 45, "'list' or 'where' expected");
+        });
+    }
+
+    @Test
+    public void testDecompressionBufferPool() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            ddl("alter table x convert partition to compressed list '2024-01-01'");
+            final TableToken tableToken = engine.verifyTableName("x");
+            final long columnSize = 24 * Long.BYTES;
+            try (
+                    // room for two of the 8-byte columns of the first partition
+                    DecompressionBufferPool pool = new DecompressionBufferPool(2 * columnSize);
+                    TableReader reader1 = new TableReader(configuration, tableToken, null, pool);
+                    TableReader reader2 = new TableReader(configuration, tableToken, null, pool)
+            ) {
+                Assert.assertEquals(24, reader1.openPartition(0));
+                Assert.assertEquals(24, reader2.openPartition(0));
+                // columns are decompressed on first access
+                Assert.assertEquals(0, pool.getUsedBytes());
+                final long l = getColumn(reader1, 1).getLong(0);
+                Assert.assertEquals(columnSize, pool.getUsedBytes());
+                final double d = getColumn(reader1, 3).getDouble(0);
+                Assert.assertEquals(2 * columnSize, pool.getUsedBytes());
+
+                // columns of a reader in use are never evicted
+                try {
+                    getColumn(reader2, 1).getLong(0);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "decompression buffer pool is exhausted");
+                }
+
+                // idle readers give up the least recently decompressed columns first
+                reader1.goPassive();
+                Assert.assertEquals(l, getColumn(reader2, 1).getLong(0));
+                Assert.assertEquals(2 * columnSize, pool.getUsedBytes());
+                reader1.goActive();
+                Assert.assertEquals(d, getColumn(reader1, 3).getDouble(0), 0);
+
+                reader2.goPassive();
+                Assert.assertEquals(l, getColumn(reader1, 1).getLong(0));
+                Assert.assertEquals(2 * columnSize, pool.getUsedBytes());
+            }
+        });
+    }
+
+    @Test
+    public void testDetachCompressedPartitionFails() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            ddl("alter table x convert partition to compressed list '2024-01-01'");
+            assertExceptionNoLeakCheck(
+                    "alter table x detach partition list '2024-01-01'",
+                    36,
+                    "could not detach partition [table=x, detachStatus=DETACH_ERR_COMPRESSED"
+            );
+        });
+    }
+
+    @Test
+    public void testO3IntoCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            ddl("alter table x convert partition to compressed list '2024-01-01', '2024-01-02'");
+            final String expected = select("select l, d, sym, ts from x where ts in '2024-01-01'");
+
+            // o3 rows restore the native format of the compressed partitions they go to
+            insert("insert into x (i, l, ts) values (1, 42, '2024-01-01T00:30')");
+            insert("insert into x (i, l, ts) values (2, 43, '2024-01-02T23:30')");
+            try (TableReader reader = engine.getReader("x")) {
+                Assert.assertFalse(reader.getTxFile().isPartitionCompressed(0));
+                Assert.assertFalse(reader.getTxFile().isPartitionCompressed(1));
+            }
+            assertSql("count\n74\n", "select count() from x");
+            assertSql(
+                    "i\tl\tts\n" +
+                            "1\t42\t2024-01-01T00:30:00.000000Z\n" +
+                            "2\t43\t2024-01-02T23:30:00.000000Z\n",
+                    "select i, l, ts from x where l in (42, 43)"
+            );
+            assertSql(expected, "select l, d, sym, ts from x where ts in '2024-01-01' and l != 42");
+
+            // the partition can be compressed again
+            ddl("alter table x convert partition to compressed list '2024-01-01'");
+            assertSql("count\n74\n", "select count() from x");
+        });
+    }
+
+    @Test
+    public void testO3IntoCompressedPartitionWal() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            ddl("create table y as (select * from x) timestamp(ts) partition by day wal");
+            ddl("alter table y convert partition to compressed list '2024-01-01'");
+            drainWalQueue();
+
+            insert("insert into y (i, l, ts) values (1, 42, '2024-01-01T00:30')");
+            drainWalQueue();
+            final TableToken tableToken = engine.verifyTableName("y");
+            Assert.assertFalse(engine.getTableSequencerAPI().isSuspended(tableToken));
+            try (TableReader reader = engine.getReader(tableToken)) {
+                Assert.assertFalse(reader.getTxFile().isPartitionCompressed(0));
+            }
+            assertSql("count\n73\n", "select count() from y");
+            assertSql("i\tl\n1\t42\n", "select i, l from y where l = 42");
+        });
+    }
+
+    @Test
+    public void testRenameColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            ddl("alter table x convert partition to compressed list '2024-01-01'");
+            final String expected = select("select l, d from x");
+            ddl("alter table x rename column l to l2");
+            assertSql(expected.replace("l\td", "l2\td"), "select l2, d from x");
+        });
+    }
+
+    private static void assertCompressed(String partitionName, boolean compressed) {
+        final File tableDir = new File(configuration.getRoot().toString(), engine.verifyTableName("x").getDirName());
+        final File[] partitions = tableDir.listFiles((dir, name) -> name.startsWith(partitionName));
+        Assert.assertNotNull(partitions);
+        Assert.assertEquals(1, partitions.length);
+        final File partition = partitions[0];
+        Assert.assertEquals(compressed, new File(partition, "l.z").exists());
+        Assert.assertEquals(compressed, new File(partition, "d.z").exists());
+        Assert.assertEquals(compressed, new File(partition, "sym.z").exists());
+        Assert.assertEquals(compressed, new File(partition, "ts.z").exists());
+        Assert.assertNotEquals(compressed, new File(partition, "l.d").exists());
+        // columns without a codec are kept as is
+        Assert.assertTrue(new File(partition, "s.d").exists());
+        Assert.assertTrue(new File(partition, "i.d").exists());
+    }
+
+    private static void assertRoundTrip(
+            FilesFacade ff,
+            ColumnCompressor compressor,
+            long src,
+            long size,
+            int rowCount,
+            int columnType,
+            Path z,
+            Path d,
+            boolean expectSmaller
+    ) {
+        final long compressedSize = compressor.compress(src, rowCount, columnType, z.$());
+        Assert.assertEquals(compressedSize, ff.length(z.$()));
+        if (expectSmaller) {
+            Assert.assertTrue(compressedSize < size / 2);
+        }
+        Assert.assertEquals(size, compressor.decompress(z.$(), d.$()));
+        final int fd = ff.openRO(d.$());
+        Assert.assertTrue(fd > -1);
+        final long buf = Unsafe.malloc(size, MemoryTag.NATIVE_DEFAULT);
+        try {
+            Assert.assertEquals(size, ff.read(fd, buf, size, 0));
+            for (long i = 0; i < size; i += Long.BYTES) {
+                if (Unsafe.getUnsafe().getLong(src + i) != Unsafe.getUnsafe().getLong(buf + i)) {
+                    Assert.fail("mismatch at offset " + i + ", type=" + ColumnType.nameOf(columnType));
+                }
+            }
+        } finally {
+            Unsafe.free(buf, size, MemoryTag.NATIVE_DEFAULT);
+            ff.close(fd);
+        }
+        Assert.assertTrue(ff.removeQuiet(z.$()));
+        Assert.assertTrue(ff.removeQuiet(d.$()));
+    }
+
+    private static void createTable() throws Exception {
+        ddl(
+                "create table x as (" +
+                        "select" +
+                        " rnd_int(0, 1000, 2) i," +
+                        " x * 1000 + rnd_long(0, 10, 0) l," +
+                        " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) dt," +
+                        " rnd_double(2) d," +
+                        " rnd_symbol('a', 'b', 'c', null) sym," +
+                        " rnd_str('foo', 'bar', 'ляля', null) s," +
+                        " timestamp_sequence('2024-01-01', 3600000000) ts" +
+                        " from long_sequence(60)" +
+                        ") timestamp(ts) partition by day"
+        );
+        insert("insert into x (i, ts) select x::int, '2024-01-03T12' from long_sequence(12)");
+    }
+
+    private static MemoryR getColumn(TableReader reader, int columnIndex) {
+        return reader.getColumn(TableReader.getPrimaryColumnIndex(reader.getColumnBase(0), columnIndex));
+    }
+
+    private static String select(String sql) throws Exception {
+        sink.clear();
+        printSql(sql);
+        return sink.toString();
+    }
+}
@@ -0,0 +1,258 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cairo.mv;
+
+import io.questdb.cairo.mv.MatViewDefinition;
+import io.questdb.cairo.mv.MatViewRefreshJob;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Utf8s;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.std.TestFilesFacadeImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class MatViewTest extends AbstractCairoTest {
+
+    @Test
+    public void testAliasedBaseTable() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            insert("insert into base values ('a', 1.0, 2, '2024-01-01T00:10:00.000000Z'), ('b', 2.0, 3, '2024-01-01T05:00:00.000000Z')");
+            drainWalQueue();
+
+            ddl("create materialized view qty_1d as (select b.sym, sum(b.qty) qty, b.ts from base b sample by 1d)");
+            drainWalQueue();
+
+            insert("insert into base values ('a', 3.0, 4, '2024-01-01T23:00:00.000000Z'), ('a', 4.0, 5, '2024-01-02T01:00:00.000000Z')");
+            refreshViews();
+
+            assertSql(
+                    "sym\tqty\tts\n" +
+                            "a\t6\t2024-01-01T00:00:00.000000Z\n" +
+                            "b\t3\t2024-01-01T00:00:00.000000Z\n" +
+                            "a\t5\t2024-01-02T00:00:00.000000Z\n",
+                    "qty_1d order by ts, sym"
+            );
+        });
+    }
+
+    @Test
+    public void testDropView() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            ddl("create materialized view price_1h as (select sym, last(price) price, ts from base sample by 1h)");
+            drainWalQueue();
+            Assert.assertNotNull(engine.getMatViewGraph().getView(engine.verifyTableName("price_1h")));
+
+            drop("drop table price_1h");
+            insert("insert into base values ('a', 1.0, 2, '2024-01-01T00:10:00.000000Z')");
+            refreshViews();
+            Assert.assertEquals(0, engine.getMatViewGraph().getPendingRefreshCount());
+            Assert.assertNull(engine.getTableTokenIfExists("price_1h"));
+        });
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            insert(
+                    "insert into base select rnd_symbol('a','b','c'), rnd_double(), rnd_int(0, 100, 0), timestamp_sequence('2024-01-01', 60000000L)" +
+                            " from long_sequence(500)"
+            );
+            drainWalQueue();
+
+            ddl("create materialized view price_1h as (select sym, last(price) price, sum(qty) qty, ts from base sample by 1h) partition by day");
+            drainWalQueue();
+            assertViewMatchesQuery();
+
+            // out-of-order rows land in the existing buckets, the rest create new ones
+            insert(
+                    "insert into base select rnd_symbol('a','b','c','d'), rnd_double(), rnd_int(0, 100, 0), timestamp_sequence('2024-01-01T03:30', 90000000L)" +
+                            " from long_sequence(500)"
+            );
+            refreshViews();
+            assertViewMatchesQuery();
+
+            insert("insert into base values ('e', 42.0, 42, '2024-01-01T00:00:00.000000Z')");
+            refreshViews();
+            assertViewMatchesQuery();
+        });
+    }
+
+    @Test
+    public void testInvalidQueries() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            ddl("create table x (sym symbol, price double, ts timestamp) timestamp(ts) partition by day bypass wal");
+
+            assertExceptionNoLeakCheck(
+                    "create materialized view v as (select sym, last(price) price, ts from base)",
+                    31,
+                    "materialized view query must use SAMPLE BY"
+            );
+            assertExceptionNoLeakCheck(
+                    "create materialized view v as (select sym, last(price) price, ts from base sample by 1h fill(prev))",
+                    85,
+                    "FILL is not supported in materialized views"
+            );
+            assertExceptionNoLeakCheck(
+                    "create materialized view v as (select sym, last(price) price, ts from base sample by 1h align to first observation)",
+                    85,
+                    "materialized view requires ALIGN TO CALENDAR without time zone and offset"
+            );
+            assertExceptionNoLeakCheck(
+                    "create materialized view v as (select sym, last(price) price, ts from base sample by 1h align to calendar with offset '00:15')",
+                    85,
+                    "materialized view requires ALIGN TO CALENDAR without time zone and offset"
+            );
+            assertExceptionNoLeakCheck(
+                    "create materialized view v as (select base.sym, last(x.price) price, base.ts from base asof join x sample by 1h)",
+                    31,
+                    "materialized view query must select from a single table"
+            );
+            assertExceptionNoLeakCheck(
+                    "create materialized view v as (select * from base sample by 1h)",
+                    38,
+                    "'*' is not supported in materialized views"
+            );
+            assertExceptionNoLeakCheck(
+                    "create materialized view v as (select sym, last(price) price, ts from x sample by 1h)",
+                    0,
+                    "materialized view base table must be a WAL table"
+            );
+            assertExceptionNoLeakCheck(
+                    "create materialized view v as (select sym, last(price) price from base sample by 1h)",
+                    0,
+                    "materialized view query must select the designated timestamp"
+            );
+            Assert.assertNull(engine.getTableTokenIfExists("v"));
+        });
+    }
+
+    @Test
+    public void testRefreshRetriedAfterTransientFailure() throws Exception {
+        final AtomicBoolean failViewWalOpen = new AtomicBoolean();
+        final FilesFacade ff = new TestFilesFacadeImpl() {
+            @Override
+            public int openRW(LPSZ name, long opts) {
+                if (Utf8s.containsAscii(name, "price_1h") && failViewWalOpen.compareAndSet(true, false)) {
+                    return -1;
+                }
+                return super.openRW(name, opts);
+            }
+        };
+
+        assertMemoryLeak(ff, () -> {
+            createBaseTable();
+            insert("insert into base values ('a', 1.0, 2, '2024-01-01T00:10:00.000000Z')");
+            drainWalQueue();
+            ddl("create materialized view price_1h as (select sym, last(price) price, sum(qty) qty, ts from base sample by 1h)");
+            drainWalQueue();
+            assertViewMatchesQuery();
+
+            insert("insert into base values ('a', 5.0, 3, '2024-01-01T00:50:00.000000Z'), ('b', 7.0, 1, '2024-01-01T02:00:00.000000Z')");
+            drainWalQueue();
+            engine.releaseInactive();
+            failViewWalOpen.set(true);
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine)) {
+                Assert.assertFalse(job.run(0));
+            }
+            Assert.assertFalse(failViewWalOpen.get());
+            // the range is kept for the next run
+            Assert.assertEquals(1, engine.getMatViewGraph().getPendingRefreshCount());
+
+            refreshViews();
+            Assert.assertEquals(0, engine.getMatViewGraph().getPendingRefreshCount());
+            assertViewMatchesQuery();
+        });
+    }
+
+    @Test
+    public void testViewInvalidatedWhenQueryNoLongerCompiles() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            insert("insert into base values ('a', 1.0, 2, '2024-01-01T00:10:00.000000Z')");
+            drainWalQueue();
+            ddl("create materialized view price_1h as (select sym, last(price) price, sum(qty) qty, ts from base sample by 1h)");
+            drainWalQueue();
+
+            ddl("alter table base drop column qty");
+            insert("insert into base values ('a', 5.0, '2024-01-01T00:50:00.000000Z')");
+            refreshViews();
+            final MatViewDefinition definition = engine.getMatViewGraph().getView(engine.verifyTableName("price_1h"));
+            Assert.assertTrue(definition.isInvalid());
+            Assert.assertEquals(0, engine.getMatViewGraph().getPendingRefreshCount());
+
+            insert("insert into base values ('a', 6.0, '2024-01-01T01:50:00.000000Z')");
+            drainWalQueue();
+            Assert.assertEquals(0, engine.getMatViewGraph().getPendingRefreshCount());
+        });
+    }
+
+    @Test
+    public void testViewDefinitionReload() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            insert("insert into base values ('a', 1.0, 2, '2024-01-01T00:10:00.000000Z')");
+            drainWalQueue();
+            ddl("create materialized view price_1h as (select sym, last(price) price, sum(qty) qty, ts from base sample by 1h)");
+            drainWalQueue();
+
+            engine.releaseInactive();
+            engine.reloadTableNames();
+            Assert.assertNotNull(engine.getMatViewGraph().getView(engine.verifyTableName("price_1h")));
+
+            insert("insert into base values ('a', 5.0, 3, '2024-01-01T00:50:00.000000Z'), ('b', 7.0, 1, '2024-01-01T02:00:00.000000Z')");
+            refreshViews();
+            assertViewMatchesQuery();
+        });
+    }
+
+    private static void createBaseTable() throws Exception {
+        ddl("create table base (sym symbol, price double, qty int, ts timestamp) timestamp(ts) partition by day wal");
+    }
+
+    private static void refreshViews() {
+        drainWalQueue();
+        try (MatViewRefreshJob job = new MatViewRefreshJob(engine)) {
+            //noinspection StatementWithEmptyBody
+            while (job.run(0)) {
+            }
+        }
+        drainWalQueue();
+    }
+
+    private void assertViewMatchesQuery() throws Exception {
+        assertSqlCursors(
+                "select sym, last(price) price, sum(qty) qty, ts from base sample by 1h order by ts, sym",
+                "select sym, price, qty, ts from price_1h order by ts, sym"
+        );
+    }
+}
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cairo.wal;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.compress.Lz4BlockCodec;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.wal.WalColumnCompressor;
+import io.questdb.cairo.wal.WalReader;
+import io.questdb.cairo.wal.WalWriter;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.std.TestFilesFacadeImpl;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WalSegmentCompressionTest extends AbstractCairoTest {
+
+    @Override
+    @Before
+    public void setUp() {
+        super.setUp();
+        node1.setProperty(PropertyKey.CAIRO_WAL_SEGMENT_COMPRESSION_ENABLED, true);
+    }
+
+    @Test
+    public void testAlterColumnsBetweenCommits() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (i int, s string, v varchar, ts timestamp) timestamp(ts) partition by DAY WAL");
+            insert("insert into x select x, 's' || x, 'v' || x, timestamp_sequence('2024-01-01', 1000000) from long_sequence(5)");
+            ddl("alter table x add column d double");
+            insert("insert into x select x + 5, 's' || (x + 5), 'v' || (x + 5), timestamp_sequence('2024-01-01T00:00:05', 1000000), x * 1.5 from long_sequence(2)");
+            ddl("alter table x rename column s to s2");
+            ddl("alter table x alter column i type long");
+            drainWalQueue();
+            insert("insert into x (i, s2, v, ts, d) select x + 7, 's' || (x + 7), 'v' || (x + 7), timestamp_sequence('2024-01-01T00:00:07', 1000000), x * 2.5 from long_sequence(2)");
+            drainWalQueue();
+
+            assertSql(
+                    "i\ts2\tv\tts\td\n" +
+                            "1\ts1\tv1\t2024-01-01T00:00:00.000000Z\tnull\n" +
+                            "2\ts2\tv2\t2024-01-01T00:00:01.000000Z\tnull\n" +
+                            "3\ts3\tv3\t2024-01-01T00:00:02.000000Z\tnull\n" +
+                            "4\ts4\tv4\t2024-01-01T00:00:03.000000Z\tnull\n" +
+                            "5\ts5\tv5\t2024-01-01T00:00:04.000000Z\tnull\n" +
+                            "6\ts6\tv6\t2024-01-01T00:00:05.000000Z\t1.5\n" +
+                            "7\ts7\tv7\t2024-01-01T00:00:06.000000Z\t3.0\n" +
+                            "8\ts8\tv8\t2024-01-01T00:00:07.000000Z\t2.5\n" +
+                            "9\ts9\tv9\t2024-01-01T00:00:08.000000Z\t5.0\n",
+                    "select i, s2, v, ts, d from x"
+            );
+        });
+    }
+
+    @Test
+    public void testCodecRoundTrip() throws Exception {
+        assertMemoryLeak(() -> {
+            final Rnd rnd = TestUtils.generateRandom(LOG);
+            final int len = 64 * 1024 + rnd.nextInt(1024);
+            final long src = Unsafe.malloc(len, MemoryTag.NATIVE_DEFAULT);
+            final long dstSize = Lz4BlockCodec.maxCompressedSize(len);
+            final long dst = Unsafe.malloc(dstSize, MemoryTag.NATIVE_DEFAULT);
+            final long out = Unsafe.malloc(len, MemoryTag.NATIVE_DEFAULT);
+            final long hashTable = Unsafe.malloc(Lz4BlockCodec.HASH_TABLE_SIZE, MemoryTag.NATIVE_DEFAULT);
+            try {
+                // repeating values compress
+                for (int i = 0; i < len; i++) {
+                    Unsafe.getUnsafe().putByte(src + i, (byte) ((i / 8) % 17));
+                }
+                long compressedLen = Lz4BlockCodec.compress(src, len, dst, hashTable);
+                Assert.assertTrue(compressedLen < len / 4);
+                Assert.assertEquals(len, Lz4BlockCodec.decompress(dst, compressedLen, out, len));
+                Assert.assertTrue(Vect.memeq(src, out, len));
+
+                // random bytes do not, but still survive the round trip
+                for (int i = 0; i < len; i++) {
+                    Unsafe.getUnsafe().putByte(src + i, rnd.nextByte());
+                }
+                compressedLen = Lz4BlockCodec.compress(src, len, dst, hashTable);
+                Assert.assertTrue(compressedLen <= dstSize);
+                Assert.assertEquals(len, Lz4BlockCodec.decompress(dst, compressedLen, out, len));
+                Assert.assertTrue(Vect.memeq(src, out, len));
+
+                // truncated input is rejected
+                Assert.assertEquals(-1, Lz4BlockCodec.decompress(dst, compressedLen / 2, out, len));
+            } finally {
+                Unsafe.free(src, len, MemoryTag.NATIVE_DEFAULT);
+                Unsafe.free(dst, dstSize, MemoryTag.NATIVE_DEFAULT);
+                Unsafe.free(out, len, MemoryTag.NATIVE_DEFAULT);
+                Unsafe.free(hashTable, Lz4BlockCodec.HASH_TABLE_SIZE, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
+    @Test
+    public void testDiscardFailureDoesNotFailCommit() throws Exception {
+        final AtomicInteger truncateFailures = new AtomicInteger();
+        final AtomicInteger writeFailures = new AtomicInteger();
+        final AtomicInteger truncatedFd = new AtomicInteger(-1);
+        final FilesFacade ff = new TestFilesFacadeImpl() {
+            @Override
+            public boolean truncate(int fd, long size) {
+                if (size == 0 && truncateFailures.get() > 0) {
+                    truncateFailures.decrementAndGet();
+                    return false;
+                }
+                if (size == 0 && writeFailures.get() > 0) {
+                    truncatedFd.set(fd);
+                }
+                return super.truncate(fd, size);
+            }
+
+            @Override
+            public long write(int fd, long address, long len, long offset) {
+                if (fd == truncatedFd.get() && writeFailures.get() > 0) {
+                    writeFailures.decrementAndGet();
+                    truncatedFd.set(-1);
+                    return -1;
+                }
+                return super.write(fd, address, len, offset);
+            }
+        };
+
+        assertMemoryLeak(ff, () -> {
+            ddl("create table x (i int, s string, ts timestamp) timestamp(ts) partition by DAY WAL");
+            final TableToken tableToken = engine.verifyTableName("x");
+
+            final String walName;
+            try (WalWriter walWriter = engine.getWalWriter(tableToken)) {
+                walName = walWriter.getWalName();
+
+                // file is left intact, discard is retried on the next commit
+                appendRows(walWriter, 0, 10_000);
+                truncateFailures.set(1);
+                Assert.assertEquals(1, walWriter.commit());
+                Assert.assertFalse(walWriter.isDistressed());
+                Assert.assertEquals(0, truncateFailures.get());
+
+                appendRows(walWriter, 10_000, 10_000);
+                Assert.assertEquals(2, walWriter.commit());
+
+                // retained tail is lost, new rows go to the next segment
+                appendRows(walWriter, 20_000, 10_000);
+                writeFailures.set(1);
+                Assert.assertEquals(3, walWriter.commit());
+                Assert.assertFalse(walWriter.isDistressed());
+                Assert.assertEquals(0, writeFailures.get());
+
+                appendRows(walWriter, 30_000, 10);
+                Assert.assertEquals(4, walWriter.commit());
+            }
+
+            try (Path path = new Path()) {
+                path.of(configuration.getRoot()).concat(tableToken).concat(walName).slash().put(1);
+                Assert.assertTrue(ff.exists(path.$()));
+            }
+
+            drainWalQueue();
+            assertSql(
+                    "count\tmin\tmax\tmatching\n" +
+                            "30010\t0\t30009\t30010\n",
+                    "select count(), min(i), max(i), sum(case when s = 's' || i then 1 else 0 end) matching from x"
+            );
+        });
+    }
+
+    @Test
+    public void testFramesReplaceCommittedData() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (l long, s symbol, ts timestamp) timestamp(ts) partition by DAY WAL");
+            insert("insert into x select x % 10, 'sym' || (x % 5), timestamp_sequence('2024-01-01', 1000) from long_sequence(500000)");
+
+            final FilesFacade ff = configuration.getFilesFacade();
+            try (Path path = new Path()) {
+                path.of(configuration.getRoot()).concat(engine.verifyTableName("x")).concat("wal1").slash().put(0);
+                final int segmentPathLen = path.size();
+                Assert.assertTrue(ff.exists(path.concat(WalColumnCompressor.SEGMENT_MARKER_FILE_NAME).$()));
+
+                final long rawSize = 500000L * Long.BYTES;
+                // column file keeps its size, writer offsets do not change
+                Assert.assertTrue(ff.length(path.trimTo(segmentPathLen).concat("l.d").$()) >= rawSize);
+                final long frameSize = ff.length(path.trimTo(segmentPathLen).concat("l.d").put(WalColumnCompressor.FRAME_FILE_SUFFIX).$());
+                Assert.assertTrue(frameSize > 0 && frameSize < rawSize / 4);
+            }
+
+            drainWalQueue();
+            assertSql(
+                    "l\ts\tcount\n" +
+                            "0\tsym0\t50000\n" +
+                            "1\tsym1\t50000\n" +
+                            "2\tsym2\t50000\n" +
+                            "3\tsym3\t50000\n" +
+                            "4\tsym4\t50000\n" +
+                            "5\tsym0\t50000\n" +
+                            "6\tsym1\t50000\n" +
+                            "7\tsym2\t50000\n" +
+                            "8\tsym3\t50000\n" +
+                            "9\tsym4\t50000\n",
+                    "select l, s, count() from x order by l"
+            );
+        });
+    }
+
+    @Test
+    public void testManyTypes() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl(
+                    "create table y as (" +
+                            "select" +
+                            " rnd_boolean() a," +
+                            " rnd_byte() b," +
+                            " rnd_short() c," +
+                            " rnd_int(0, 1000, 2) d," +
+                            " rnd_long(0, 1000, 2) e," +
+                            " rnd_float(2) f," +
+                            " rnd_double(2) g," +
+                            " rnd_symbol(10, 2, 8, 2) h," +
+                            " rnd_str(1, 40, 2) i," +
+                            " rnd_varchar(1, 40, 2) j," +
+                            " rnd_bin(1, 20, 2) k," +
+                            " rnd_long256() l," +
+                            " rnd_uuid4() m," +
+                            " timestamp_sequence('2024-01-01', 60000000) ts" +
+                            " from long_sequence(10000)" +
+                            ") timestamp(ts) partition by DAY"
+            );
+            ddl("create table x as (select * from y where 1 = 0) timestamp(ts) partition by DAY WAL");
+            // several commits per segment, each of them compresses its own range of the column files
+            for (int i = 0; i < 10; i++) {
+                insert("insert into x select * from y where ts >= dateadd('m', " + i * 1000 + ", '2024-01-01') and ts < dateadd('m', " + (i + 1) * 1000 + ", '2024-01-01')");
+            }
+            drainWalQueue();
+            assertSqlCursors("y", "x");
+        });
+    }
+
+    @Test
+    public void testReadCommittedRowsAfterRollback() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (i int, s string, ts timestamp) timestamp(ts) partition by DAY WAL");
+            final TableToken tableToken = engine.verifyTableName("x");
+
+            final String walName;
+            try (WalWriter walWriter = engine.getWalWriter(tableToken)) {
+                walName = walWriter.getWalName();
+                appendRows(walWriter, 0, 3);
+                walWriter.commit();
+
+                appendRows(walWriter, 100, 2);
+                walWriter.rollback();
+
+                appendRows(walWriter, 3, 2);
+                walWriter.commit();
+
+                // uncommitted rows are rolled to a new segment, the new column starts there
+                appendRows(walWriter, 5, 1);
+                addColumn(walWriter, "l", ColumnType.LONG);
+                TableWriter.Row row = walWriter.newRow(6_000_000);
+                row.putInt(0, 6);
+                row.putStr(1, "s6");
+                row.putLong(3, 6);
+                row.append();
+                walWriter.commit();
+            }
+
+            try (WalReader reader = engine.getWalReader(sqlExecutionContext.getSecurityContext(), tableToken, walName, 0, 5)) {
+                final RecordCursor cursor = reader.getDataCursor();
+                final Record record = cursor.getRecord();
+                for (int i = 0; i < 5; i++) {
+                    Assert.assertTrue(cursor.hasNext());
+                    Assert.assertEquals(i, record.getInt(0));
+                    TestUtils.assertEquals("s" + i, record.getStrA(1));
+                }
+                Assert.assertFalse(cursor.hasNext());
+            }
+
+            drainWalQueue();
+            assertSql(
+                    "i\ts\tts\tl\n" +
+                            "0\ts0\t1970-01-01T00:00:00.000000Z\tnull\n" +
+                            "1\ts1\t1970-01-01T00:00:01.000000Z\tnull\n" +
+                            "2\ts2\t1970-01-01T00:00:02.000000Z\tnull\n" +
+                            "3\ts3\t1970-01-01T00:00:03.000000Z\tnull\n" +
+                            "4\ts4\t1970-01-01T00:00:04.000000Z\tnull\n" +
+                            "5\ts5\t1970-01-01T00:00:05.000000Z\tnull\n" +
+                            "6\ts6\t1970-01-01T00:00:06.000000Z\t6\n",
+                    "x"
+            );
+        });
+    }
+
+    private static void appendRows(WalWriter walWriter, int lo, int count) {
+        for (int i = lo; i < lo + count; i++) {
+            TableWriter.Row row = walWriter.newRow(i * 1_000_000L);
+            row.putInt(0, i);
+            row.putStr(1, "s" + i);
+            row.append();
+        }
+    }
+}
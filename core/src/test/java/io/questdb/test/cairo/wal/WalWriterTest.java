@@ -724,6 +724,134 @@ public class WalWriterTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testBatchRows() throws Exception {
+        setProperty(PropertyKey.CAIRO_WAL_WRITER_BATCH_ROW_COUNT, 3);
+        assertMemoryLeak(() -> {
+            ddl("create table x (i int, l long, d double, s symbol, v varchar, g geohash(2c), ts timestamp) timestamp(ts) partition by day wal");
+            TableToken tableToken = engine.verifyTableName("x");
+            try (WalWriter walWriter = engine.getWalWriter(tableToken)) {
+                TableWriter.Row row = walWriter.newBatchRow(3_000_000);
+                row.putInt(0, 1);
+                row.putLong(1, 10);
+                row.putSym(3, "a");
+                row.append();
+
+                row = walWriter.newBatchRow(1_000_000);
+                row.putDouble(2, 2.5);
+                row.putSym(3, "b");
+                row.putGeoHash(5, 0b1000001111);
+                row.append();
+
+                row = walWriter.newBatchRow(2_000_000);
+                row.putInt(0, 42);
+                row.cancel();
+
+                // the third row fills up the batch and flushes it to the segment
+                Assert.assertEquals(2, walWriter.getUncommittedRowCount());
+                Assert.assertEquals(0, walWriter.getSegmentRowCount());
+                row = walWriter.newBatchRow(2_000_000);
+                row.putInt(0, 3);
+                row.putSym(3, "a");
+                row.append();
+                Assert.assertEquals(3, walWriter.getSegmentRowCount());
+
+                row = walWriter.newBatchRow(4_000_000);
+                row.putLong(1, 40);
+                row.append();
+                Assert.assertEquals(4, walWriter.getUncommittedRowCount());
+                Assert.assertEquals(3, walWriter.getSegmentRowCount());
+
+                // regular rows flush the staged ones first to keep the order
+                row = walWriter.newRow(5_000_000);
+                row.putInt(0, 5);
+                row.putVarchar(4, new Utf8String("ok"));
+                row.append();
+                Assert.assertEquals(5, walWriter.getSegmentRowCount());
+
+                row = walWriter.newBatchRow(6_000_000);
+                row.putInt(0, 6);
+                row.append();
+                walWriter.commit();
+                Assert.assertEquals(0, walWriter.getUncommittedRowCount());
+                Assert.assertEquals(6, walWriter.getSegmentRowCount());
+            }
+
+            drainWalQueue();
+            assertSql(
+                    "i\tl\td\ts\tv\tg\tts\n" +
+                            "null\tnull\t2.5\tb\t\thg\t1970-01-01T00:00:01.000000Z\n" +
+                            "3\tnull\tnull\ta\t\t\t1970-01-01T00:00:02.000000Z\n" +
+                            "1\t10\tnull\ta\t\t\t1970-01-01T00:00:03.000000Z\n" +
+                            "null\t40\tnull\t\t\t\t1970-01-01T00:00:04.000000Z\n" +
+                            "5\tnull\tnull\t\tok\t\t1970-01-01T00:00:05.000000Z\n" +
+                            "6\tnull\tnull\t\t\t\t1970-01-01T00:00:06.000000Z\n",
+                    "x"
+            );
+        });
+    }
+
+    @Test
+    public void testBatchRowsAddColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (i int, ts timestamp) timestamp(ts) partition by day wal");
+            TableToken tableToken = engine.verifyTableName("x");
+            try (WalWriter walWriter = engine.getWalWriter(tableToken)) {
+                TableWriter.Row row = walWriter.newBatchRow(1_000_000);
+                row.putInt(0, 1);
+                row.append();
+
+                walWriter.addColumn("l", ColumnType.LONG);
+                Assert.assertEquals(1, walWriter.getSegmentRowCount());
+
+                row = walWriter.newBatchRow(2_000_000);
+                row.putInt(0, 2);
+                row.putLong(2, 20);
+                row.append();
+                walWriter.commit();
+            }
+
+            drainWalQueue();
+            assertSql(
+                    "i\tts\tl\n" +
+                            "1\t1970-01-01T00:00:01.000000Z\tnull\n" +
+                            "2\t1970-01-01T00:00:02.000000Z\t20\n",
+                    "x"
+            );
+        });
+    }
+
+    @Test
+    public void testBatchRowsRollback() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (i int, s symbol, ts timestamp) timestamp(ts) partition by day wal");
+            TableToken tableToken = engine.verifyTableName("x");
+            try (WalWriter walWriter = engine.getWalWriter(tableToken)) {
+                TableWriter.Row row = walWriter.newBatchRow(1_000_000);
+                row.putInt(0, 1);
+                row.putSym(1, "a");
+                row.append();
+                Assert.assertEquals(1, walWriter.getUncommittedRowCount());
+
+                walWriter.rollback();
+                Assert.assertEquals(0, walWriter.getUncommittedRowCount());
+
+                row = walWriter.newBatchRow(2_000_000);
+                row.putInt(0, 2);
+                row.putSym(1, "b");
+                row.append();
+                walWriter.commit();
+            }
+
+            drainWalQueue();
+            assertSql(
+                    "i\ts\tts\n" +
+                            "2\tb\t1970-01-01T00:00:02.000000Z\n",
+                    "x"
+            );
+        });
+    }
+
     @Test
     public void testCancelRowDoesNotStartsNewSegment() throws Exception {
         assertMemoryLeak(() -> {
@@ -0,0 +1,609 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.http;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cutlass.arrow.ArrowStreamEncoder;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.LongObjHashMap;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.datetime.millitime.DateFormatUtils;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8StringSink;
+import io.questdb.test.AbstractTest;
+import io.questdb.test.cairo.DefaultTestCairoConfiguration;
+import io.questdb.test.tools.TestUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class ArrowExportTest extends AbstractTest {
+    private static final String DDL = "create table x (" +
+            "b boolean, bt byte, sh short, i int, l long, d date, f float, db double, s symbol, ts timestamp" +
+            ") timestamp(ts) partition by day";
+    private static final String INSERT = "insert into x select" +
+            " x % 2 = 0," +
+            " cast(x as byte)," +
+            " cast(x * 10 as short)," +
+            " case when x % 3 = 0 then null else cast(x as int) end," +
+            " case when x % 4 = 0 then null else x * 1000 end," +
+            " case when x % 5 = 0 then null else cast(x * 86400000 as date) end," +
+            " case when x % 3 = 1 then null else cast(x / 2.0 as float) end," +
+            " case when x % 4 = 1 then null else x / 4.0 end," +
+            " case when x % 5 = 2 then null else 's' || (x % 3) end," +
+            " timestamp_sequence(0, 43200000000)" +
+            " from long_sequence(7)";
+    private static final int PAGE_FRAME_MAX_ROWS = 3;
+    private static TestHttpClient testHttpClient;
+
+    @BeforeClass
+    public static void setUpStatic() throws Exception {
+        AbstractTest.setUpStatic();
+        testHttpClient = new TestHttpClient();
+    }
+
+    @AfterClass
+    public static void tearDownStatic() {
+        testHttpClient = Misc.free(testHttpClient);
+        AbstractTest.tearDownStatic();
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        testArrowExport((engine, executionContext) -> {
+            engine.ddl(DDL, executionContext);
+            engine.insert(INSERT, executionContext);
+            engine.ddl("alter table x add column k int", executionContext);
+            engine.insert("insert into x (b, bt, i, s, ts, k) values (true, 8, 8, 's1', '1970-01-05', 42)", executionContext);
+
+            assertArrow(
+                    engine,
+                    executionContext,
+                    "select b, bt, i, s, k, ts from x where ts > '1970-01-03'",
+                    true,
+                    "b:Bool\tbt:Int8\ti:Int32\ts:Dictionary<Utf8>\tk:Int32\tts:Timestamp(us)\n" +
+                            "true\t6\tnull\ts0\tnull\t1970-01-03T12:00:00.000000Z\n" +
+                            "false\t7\t7\tnull\tnull\t1970-01-04T00:00:00.000000Z\n" +
+                            "true\t8\t8\ts1\t42\t1970-01-05T00:00:00.000000Z\n",
+                    null
+            );
+        });
+    }
+
+    @Test
+    public void testLargeResult() throws Exception {
+        testArrowExport((engine, executionContext) -> {
+            engine.ddl(
+                    "create table y as (" +
+                            "select x, rnd_symbol('a','b','c') s, rnd_str(5, 20, 2) str, timestamp_sequence(0, 1000000) ts" +
+                            " from long_sequence(100000)" +
+                            ") timestamp(ts) partition by hour",
+                    executionContext
+            );
+            final String query = "select x, s, str, ts from y";
+            final String header = "x:Int64\ts:Dictionary<Utf8>\tstr:Utf8\tts:Timestamp(us)";
+            assertArrow(engine, executionContext, query, false, printExpected(engine, executionContext, query, header), null);
+
+            final String pageFrameQuery = "select x, s, ts from y";
+            final String pageFrameHeader = "x:Int64\ts:Dictionary<Utf8>\tts:Timestamp(us)";
+            assertArrow(engine, executionContext, pageFrameQuery, true, printExpected(engine, executionContext, pageFrameQuery, pageFrameHeader), null);
+        });
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        testArrowExport((engine, executionContext) -> {
+            engine.ddl(DDL, executionContext);
+            engine.insert(INSERT, executionContext);
+            final String expected = "i:Int32\tl:Int64\n" +
+                    "2\t2000\n" +
+                    "null\t3000\n" +
+                    "4\tnull\n";
+            assertArrow(engine, executionContext, "select i, l from x", true, expected, "1,4");
+            assertArrow(engine, executionContext, "select i, l from x where bt > 0", false, expected, "1,4");
+        });
+    }
+
+    @Test
+    public void testLimitOutOfRange() throws Exception {
+        testArrowExport((engine, executionContext) -> {
+            engine.ddl(DDL, executionContext);
+            engine.insert(INSERT, executionContext);
+            final String expected = "i:Int32\tl:Int64\n";
+            assertArrow(engine, executionContext, "select i, l from x", true, expected, "10,20");
+            assertArrow(engine, executionContext, "select i, l from x where bt > 0", false, expected, "10,20");
+        });
+    }
+
+    @Test
+    public void testNonDesignatedOrderFallsBackToRows() throws Exception {
+        testArrowExport((engine, executionContext) -> {
+            engine.ddl(DDL, executionContext);
+            engine.insert(INSERT, executionContext);
+            assertArrow(
+                    engine,
+                    executionContext,
+                    "select i, s from x order by ts desc",
+                    false,
+                    "i:Int32\ts:Dictionary<Utf8>\n" +
+                            "7\tnull\n" +
+                            "null\ts0\n" +
+                            "5\ts2\n" +
+                            "4\ts1\n" +
+                            "null\ts0\n" +
+                            "2\tnull\n" +
+                            "1\ts1\n",
+                    null
+            );
+        });
+    }
+
+    @Test
+    public void testPageFrames() throws Exception {
+        testArrowExport((engine, executionContext) -> {
+            engine.ddl(DDL, executionContext);
+            engine.insert(INSERT, executionContext);
+            final String expected = "b:Bool\tbt:Int8\tsh:Int16\ti:Int32\tl:Int64\td:Date(ms)\tf:Float32\tdb:Float64\ts:Dictionary<Utf8>\tts:Timestamp(us)\n" +
+                    "false\t1\t10\t1\t1000\t1970-01-02T00:00:00.000Z\tnull\tnull\ts1\t1970-01-01T00:00:00.000000Z\n" +
+                    "true\t2\t20\t2\t2000\t1970-01-03T00:00:00.000Z\t1.0\t0.5\tnull\t1970-01-01T12:00:00.000000Z\n" +
+                    "false\t3\t30\tnull\t3000\t1970-01-04T00:00:00.000Z\t1.5\t0.75\ts0\t1970-01-02T00:00:00.000000Z\n" +
+                    "true\t4\t40\t4\tnull\t1970-01-05T00:00:00.000Z\tnull\t1.0\ts1\t1970-01-02T12:00:00.000000Z\n" +
+                    "false\t5\t50\t5\t5000\tnull\t2.5\tnull\ts2\t1970-01-03T00:00:00.000000Z\n" +
+                    "true\t6\t60\tnull\t6000\t1970-01-07T00:00:00.000Z\t3.0\t1.5\ts0\t1970-01-03T12:00:00.000000Z\n" +
+                    "false\t7\t70\t7\t7000\t1970-01-08T00:00:00.000Z\tnull\t1.75\tnull\t1970-01-04T00:00:00.000000Z\n";
+            assertArrow(engine, executionContext, "x", true, expected, null);
+            // the same data built row by row
+            assertArrow(engine, executionContext, "x where bt > 0", false, expected, null);
+        });
+    }
+
+    @Test
+    public void testResultCache() throws Exception {
+        testArrowExport(1024 * 1024, (engine, executionContext) -> {
+            engine.ddl(DDL, executionContext);
+            engine.insert(INSERT, executionContext);
+            final String rows = "1\ts1\t1970-01-01T00:00:00.000000Z\n" +
+                    "2\tnull\t1970-01-01T12:00:00.000000Z\n" +
+                    "null\ts0\t1970-01-02T00:00:00.000000Z\n" +
+                    "4\ts1\t1970-01-02T12:00:00.000000Z\n" +
+                    "5\ts2\t1970-01-03T00:00:00.000000Z\n" +
+                    "null\ts0\t1970-01-03T12:00:00.000000Z\n" +
+                    "7\tnull\t1970-01-04T00:00:00.000000Z\n";
+            final String query = "select i, s, ts from x where bt > 0";
+            // a miss streams the rows of the table, symbols are dictionary-encoded
+            assertArrow(engine, executionContext, query, false, "i:Int32\ts:Dictionary<Utf8>\tts:Timestamp(us)\n" + rows, null);
+            Assert.assertEquals(1, engine.getQueryResultCache().size());
+            // cached rows carry copies of the symbol values rather than the table's symbol
+            // table, symbols are sent as text
+            assertArrow(engine, executionContext, query, false, "i:Int32\ts:Utf8\tts:Timestamp(us)\n" + rows, null);
+            Assert.assertEquals(1, engine.getQueryResultCache().size());
+        });
+    }
+
+    @Test
+    public void testRowWiseTypes() throws Exception {
+        testArrowExport((engine, executionContext) -> {
+            engine.ddl(
+                    "create table z (str string, v varchar, c char, ip ipv4, u uuid, g geohash(5c), bin binary, ts timestamp) timestamp(ts)",
+                    executionContext
+            );
+            engine.insert(
+                    "insert into z values " +
+                            "('abc', 'ąę', 'x', '1.2.3.4', '11111111-1111-1111-1111-111111111111', #u33d8, null, 0)," +
+                            "(null, null, null, null, null, null, null, 1)," +
+                            "('', '', 'y', '0.0.0.1', null, #u33d9, null, 2)",
+                    executionContext
+            );
+            assertArrow(
+                    engine,
+                    executionContext,
+                    "select str, v, c, ip, u, g, bin, null n, ts from z",
+                    false,
+                    "str:Utf8\tv:Utf8\tc:Utf8\tip:Utf8\tu:Utf8\tg:Utf8\tbin:Binary\tn:Null\tts:Timestamp(us)\n" +
+                            "abc\tąę\tx\t1.2.3.4\t11111111-1111-1111-1111-111111111111\tu33d8\tnull\tnull\t1970-01-01T00:00:00.000000Z\n" +
+                            "null\tnull\tnull\tnull\tnull\tnull\tnull\tnull\t1970-01-01T00:00:00.000001Z\n" +
+                            "\t\ty\t0.0.0.1\tnull\tu33d9\tnull\tnull\t1970-01-01T00:00:00.000002Z\n",
+                    null
+            );
+        });
+    }
+
+    @Test
+    public void testUnsupportedType() throws Exception {
+        testArrowExport((engine, executionContext) -> {
+            final CharSequenceObjHashMap<String> params = new CharSequenceObjHashMap<>();
+            params.put("fmt", "arrow");
+            final Utf8StringSink sink = new Utf8StringSink();
+            testHttpClient.toSink("/exp", "select to_long128(1, 2) v from long_sequence(1)", params, sink);
+            TestUtils.assertContains(sink.toString(), "unsupported column type for Arrow export: LONG128");
+        });
+    }
+
+    private static void assertArrow(
+            CairoEngine engine,
+            SqlExecutionContext executionContext,
+            String query,
+            boolean expectPageFrames,
+            String expected,
+            String limit
+    ) throws Exception {
+        try (
+                SqlCompiler compiler = engine.getSqlCompiler();
+                RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()
+        ) {
+            Assert.assertEquals(expectPageFrames, ArrowStreamEncoder.supportsPageFrames(factory));
+        }
+
+        final CharSequenceObjHashMap<String> params = new CharSequenceObjHashMap<>();
+        params.put("fmt", "arrow");
+        if (limit != null) {
+            params.put("limit", limit);
+        }
+        final Utf8StringSink sink = new Utf8StringSink();
+        testHttpClient.toSink("/exp", query, params, sink);
+
+        final byte[] bytes = new byte[sink.size()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = sink.byteAt(i);
+        }
+        final StringSink actual = new StringSink();
+        new ArrowStreamReader(bytes).read(actual);
+        TestUtils.assertEquals(expected, actual);
+    }
+
+    // prints query result in the format of ArrowStreamReader, this works for columns
+    // which print the same way except nulls, e.g. long, symbol, string and timestamp
+    private static String printExpected(CairoEngine engine, SqlExecutionContext executionContext, String query, String header) throws Exception {
+        final StringSink sink = new StringSink();
+        TestUtils.printSql(engine, executionContext, query, sink);
+        final String[] lines = sink.toString().split("\n");
+        final StringBuilder expected = new StringBuilder(header).append('\n');
+        for (int i = 1; i < lines.length; i++) {
+            final String[] values = lines[i].split("\t", -1);
+            for (int j = 0; j < values.length; j++) {
+                if (j > 0) {
+                    expected.append('\t');
+                }
+                expected.append(values[j].isEmpty() ? "null" : values[j]);
+            }
+            expected.append('\n');
+        }
+        return expected.toString();
+    }
+
+    private void testArrowExport(ArrowExportCode code) throws Exception {
+        testArrowExport(0, code);
+    }
+
+    private void testArrowExport(long resultCacheCapacity, ArrowExportCode code) throws Exception {
+        final CairoConfiguration configuration = new DefaultTestCairoConfiguration(root) {
+            @Override
+            public int getSqlPageFrameMaxRows() {
+                return PAGE_FRAME_MAX_ROWS;
+            }
+
+            @Override
+            public int getSqlPageFrameMinRows() {
+                return 1;
+            }
+
+            @Override
+            public long getSqlResultCacheCapacity() {
+                return resultCacheCapacity;
+            }
+        };
+        new HttpQueryTestBuilder()
+                .withTempFolder(root)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder().withSendBufferSize(256))
+                .run(configuration, engine -> {
+                    try (SqlExecutionContext executionContext = TestUtils.createSqlExecutionCtx(engine)) {
+                        code.run(engine, executionContext);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ArrowExportCode {
+        void run(CairoEngine engine, SqlExecutionContext executionContext) throws Exception;
+    }
+
+    /**
+     * Decodes Arrow IPC stream and prints it as tab separated text, just enough
+     * FlatBuffers parsing to check what the encoder writes.
+     */
+    private static class ArrowStreamReader {
+        private final byte[] buf;
+        private final LongObjHashMap<ObjList<String>> dictionaries = new LongObjHashMap<>();
+        private final ObjList<Field> fields = new ObjList<>();
+
+        ArrowStreamReader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        void read(StringSink sink) {
+            int pos = 0;
+            boolean eos = false;
+            while (pos < buf.length) {
+                Assert.assertEquals(-1, readInt(pos));
+                final int metadataSize = readInt(pos + 4);
+                if (metadataSize == 0) {
+                    eos = true;
+                    pos += 8;
+                    break;
+                }
+                Assert.assertEquals(0, (8 + metadataSize) % 8);
+                final int message = pos + 8 + readInt(pos + 8);
+                Assert.assertEquals(4, readShort(field(message, 0)));
+                final byte headerType = buf[field(message, 1)];
+                final int header = offset(message, 2);
+                final long bodyLength = readLong(field(message, 3));
+                final int body = pos + 8 + metadataSize;
+                switch (headerType) {
+                    case 1:
+                        readSchema(header, sink);
+                        break;
+                    case 2: {
+                        final long id = readLong(field(header, 0));
+                        final ObjList<String> values = new ObjList<>();
+                        final int batch = offset(header, 1);
+                        final int length = (int) readLong(field(batch, 0));
+                        final int buffers = offset(batch, 2);
+                        final int offsets = body + (int) readLong(buffers + 4 + 16);
+                        final int data = body + (int) readLong(buffers + 4 + 32);
+                        for (int i = 0; i < length; i++) {
+                            values.add(new String(buf, data + readInt(offsets + i * 4), readInt(offsets + i * 4 + 4) - readInt(offsets + i * 4), StandardCharsets.UTF_8));
+                        }
+                        dictionaries.put(id, values);
+                        break;
+                    }
+                    case 3:
+                        readRecordBatch(header, body, sink);
+                        break;
+                    default:
+                        Assert.fail("unexpected message header type: " + headerType);
+                }
+                pos = body + (int) bodyLength;
+            }
+            Assert.assertTrue(eos);
+            Assert.assertEquals(buf.length, pos);
+        }
+
+        private int field(int table, int slot) {
+            final int vtable = table - readInt(table);
+            final int vtableSize = readShort(vtable);
+            final int entry = 4 + slot * 2;
+            Assert.assertTrue(entry < vtableSize);
+            final int offset = readShort(vtable + entry);
+            Assert.assertTrue(offset > 0);
+            return table + offset;
+        }
+
+        private boolean hasField(int table, int slot) {
+            final int vtable = table - readInt(table);
+            final int entry = 4 + slot * 2;
+            return entry < readShort(vtable) && readShort(vtable + entry) > 0;
+        }
+
+        private boolean isValid(int validity, long validityLength, int row) {
+            return validityLength == 0 || (buf[validity + (row >>> 3)] & (1 << (row & 7))) != 0;
+        }
+
+        private int offset(int table, int slot) {
+            final int pos = field(table, slot);
+            return pos + readInt(pos);
+        }
+
+        private int readInt(int pos) {
+            return (buf[pos] & 0xff) | (buf[pos + 1] & 0xff) << 8 | (buf[pos + 2] & 0xff) << 16 | (buf[pos + 3] & 0xff) << 24;
+        }
+
+        private long readLong(int pos) {
+            return (readInt(pos) & 0xffffffffL) | ((long) readInt(pos + 4)) << 32;
+        }
+
+        private void readRecordBatch(int batch, int body, StringSink sink) {
+            final int length = (int) readLong(field(batch, 0));
+            final int nodes = offset(batch, 1);
+            final int buffers = offset(batch, 2);
+            Assert.assertEquals(fields.size(), readInt(nodes));
+            final int[] validity = new int[fields.size()];
+            final long[] validityLength = new long[fields.size()];
+            final int[] values = new int[fields.size()];
+            final int[] data = new int[fields.size()];
+            int buffer = 0;
+            for (int i = 0, n = fields.size(); i < n; i++) {
+                Assert.assertEquals(length, readLong(nodes + 4 + i * 16));
+                final Field field = fields.getQuick(i);
+                if (field.typeType == 1) {
+                    Assert.assertEquals(length, readLong(nodes + 4 + i * 16 + 8));
+                    continue;
+                }
+                final int bufferCount = field.dictionary < 0 && (field.typeType == 4 || field.typeType == 5) ? 3 : 2;
+                final int[] addresses = new int[bufferCount];
+                for (int j = 0; j < bufferCount; j++) {
+                    final long offset = readLong(buffers + 4 + buffer * 16);
+                    Assert.assertEquals(0, offset % 8);
+                    addresses[j] = body + (int) offset;
+                    if (j == 0) {
+                        validityLength[i] = readLong(buffers + 4 + buffer * 16 + 8);
+                    }
+                    buffer++;
+                }
+                validity[i] = addresses[0];
+                values[i] = addresses[1];
+                data[i] = bufferCount > 2 ? addresses[2] : 0;
+            }
+            Assert.assertEquals(buffer, readInt(buffers));
+
+            for (int r = 0; r < length; r++) {
+                for (int i = 0, n = fields.size(); i < n; i++) {
+                    if (i > 0) {
+                        sink.put('\t');
+                    }
+                    final Field field = fields.getQuick(i);
+                    if (field.typeType == 1 || !isValid(validity[i], validityLength[i], r)) {
+                        sink.put("null");
+                        continue;
+                    }
+                    if (field.dictionary > -1) {
+                        sink.put(dictionaries.get(field.dictionary).getQuick(readInt(values[i] + r * 4)));
+                        continue;
+                    }
+                    switch (field.typeType) {
+                        case 2:
+                            switch (field.bitWidth) {
+                                case 8:
+                                    sink.put(buf[values[i] + r]);
+                                    break;
+                                case 16:
+                                    sink.put(readShort(values[i] + r * 2));
+                                    break;
+                                case 32:
+                                    sink.put(readInt(values[i] + r * 4));
+                                    break;
+                                default:
+                                    sink.put(readLong(values[i] + r * 8));
+                                    break;
+                            }
+                            break;
+                        case 3:
+                            if (field.bitWidth == 32) {
+                                sink.put(Float.toString(Float.intBitsToFloat(readInt(values[i] + r * 4))));
+                            } else {
+                                sink.put(Double.toString(Double.longBitsToDouble(readLong(values[i] + r * 8))));
+                            }
+                            break;
+                        case 4:
+                            sink.put("bin(").put(readInt(values[i] + r * 4 + 4) - readInt(values[i] + r * 4)).put(')');
+                            break;
+                        case 5: {
+                            final int lo = readInt(values[i] + r * 4);
+                            final int hi = readInt(values[i] + r * 4 + 4);
+                            sink.put(new String(buf, data[i] + lo, hi - lo, StandardCharsets.UTF_8));
+                            break;
+                        }
+                        case 6:
+                            sink.put((buf[values[i] + (r >>> 3)] & (1 << (r & 7))) != 0);
+                            break;
+                        case 8:
+                            DateFormatUtils.appendDateTime(sink, readLong(values[i] + r * 8));
+                            break;
+                        case 10:
+                            TimestampFormatUtils.appendDateTimeUSec(sink, readLong(values[i] + r * 8));
+                            break;
+                        default:
+                            Assert.fail("unexpected type: " + field.typeType);
+                    }
+                }
+                sink.put('\n');
+            }
+        }
+
+        private void readSchema(int schema, StringSink sink) {
+            final int vector = offset(schema, 1);
+            for (int i = 0, n = readInt(vector); i < n; i++) {
+                final int pos = vector + 4 + i * 4;
+                final int table = pos + readInt(pos);
+                final Field field = new Field();
+                final int name = offset(table, 0);
+                field.name = new String(buf, name + 4, readInt(name), StandardCharsets.UTF_8);
+                field.typeType = buf[field(table, 2)];
+                final int type = offset(table, 3);
+                if (field.typeType == 2) {
+                    field.bitWidth = readInt(field(type, 0));
+                } else if (field.typeType == 3) {
+                    field.bitWidth = readShort(field(type, 0)) == 1 ? 32 : 64;
+                }
+                if (hasField(table, 4)) {
+                    final int dictionary = offset(table, 4);
+                    field.dictionary = readLong(field(dictionary, 0));
+                    Assert.assertEquals(32, readInt(field(offset(dictionary, 1), 0)));
+                }
+                fields.add(field);
+
+                if (i > 0) {
+                    sink.put('\t');
+                }
+                sink.put(field.name).put(':');
+                if (field.dictionary > -1) {
+                    sink.put("Dictionary<Utf8>");
+                    continue;
+                }
+                switch (field.typeType) {
+                    case 1:
+                        sink.put("Null");
+                        break;
+                    case 2:
+                        sink.put("Int").put(field.bitWidth);
+                        break;
+                    case 3:
+                        sink.put("Float").put(field.bitWidth);
+                        break;
+                    case 4:
+                        sink.put("Binary");
+                        break;
+                    case 5:
+                        sink.put("Utf8");
+                        break;
+                    case 6:
+                        sink.put("Bool");
+                        break;
+                    case 8:
+                        sink.put("Date(").put(readShort(field(type, 0)) == 1 ? "ms" : "day").put(')');
+                        break;
+                    case 10:
+                        sink.put("Timestamp(").put(readShort(field(type, 0)) == 2 ? "us" : "?").put(')');
+                        break;
+                    default:
+                        sink.put(field.typeType);
+                }
+            }
+            sink.put('\n');
+        }
+
+        private short readShort(int pos) {
+            return (short) ((buf[pos] & 0xff) | (buf[pos + 1] & 0xff) << 8);
+        }
+
+        private static class Field {
+            int bitWidth;
+            long dictionary = -1;
+            String name;
+            byte typeType;
+        }
+    }
+}
@@ -189,8 +189,12 @@ public class TestHttpClient implements QuietCloseable {
     }
 
     public void toSink(CharSequence url, CharSequence sql, Utf8StringSink sink) {
+        toSink(url, sql, null, sink);
+    }
+
+    public void toSink(CharSequence url, CharSequence sql, @Nullable CharSequenceObjHashMap<String> queryParams, Utf8StringSink sink) {
         try {
-            toSink0(url, sql, sink, null, null, null, null, null);
+            toSink0(url, sql, sink, null, null, null, queryParams, null);
         } finally {
             if (!keepConnection) {
                 httpClient.disconnect();
@@ -74,6 +74,7 @@ import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
@@ -554,6 +555,61 @@ public class LineTcpReceiverTest extends AbstractLineTcpReceiverTest {
         });
     }
 
+    @Test
+    public void testManyConnectionsAppendToSameWalTable() throws Exception {
+        Assume.assumeTrue(walEnabled);
+        final String tableName = "hot";
+        final int connectionCount = 4;
+        final int rowCount = 1000;
+
+        runInContext((receiver) -> {
+            TableModel m = new TableModel(configuration, tableName, PartitionBy.DAY);
+            m.col("conn", ColumnType.INT).col("v", ColumnType.LONG).timestamp().wal();
+            AbstractCairoTest.create(m);
+
+            final CyclicBarrier start = new CyclicBarrier(connectionCount);
+            final AtomicInteger errors = new AtomicInteger();
+            final ObjList<Thread> threads = new ObjList<>();
+            for (int c = 0; c < connectionCount; c++) {
+                final int conn = c;
+                final Thread thread = new Thread(() -> {
+                    try (LineTcpSender sender = LineTcpSender.newSender(Net.parseIPv4("127.0.0.1"), bindPort, msgBufferSize)) {
+                        start.await();
+                        for (int i = 0; i < rowCount; i++) {
+                            sender.metric(tableName)
+                                    .field("conn", conn)
+                                    .field("v", i)
+                                    .$((i * connectionCount + conn) * Timestamps.SECOND_MICROS * 1000L);
+                        }
+                        sender.flush();
+                    } catch (Throwable th) {
+                        LOG.error().$(th).$();
+                        errors.incrementAndGet();
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (int i = 0, n = threads.size(); i < n; i++) {
+                threads.getQuick(i).join();
+            }
+            Assert.assertEquals(0, errors.get());
+
+            assertEventually(() -> {
+                drainWalQueue();
+                try {
+                    assertSql(
+                            "count\tcount_distinct\tsum\n" +
+                                    connectionCount * rowCount + "\t" + connectionCount + "\t" + connectionCount * (rowCount * (rowCount - 1L) / 2) + "\n",
+                            "select count(), count_distinct(conn), sum(v) from " + tableName
+                    );
+                } catch (SqlException e) {
+                    throw new AssertionError(e);
+                }
+            });
+        });
+    }
+
     @Test
     public void testMetaDataSizeToHitExactly16K() throws Exception {
         final String tableName = "метеорологично_време";
@@ -193,7 +193,7 @@ public class SymbolCacheTest extends AbstractCairoTest {
                  })
             ) {
                 TableModel model = new TableModel(configuration, tableName, PartitionBy.HOUR)
-                        .col("symCol", ColumnType.SYMBOL);
+                        .col("symCol", ColumnType.SYMBOL).symbolCapacity(N);
                 AbstractCairoTest.create(model);
                 DirectUtf8String dus = new DirectUtf8String();
                 long mem = Unsafe.malloc(DBCS_MAX_SIZE, MemoryTag.NATIVE_DEFAULT);
@@ -374,7 +374,7 @@ public class SymbolCacheTest extends AbstractCairoTest {
                  })
             ) {
                 TableModel model = new TableModel(configuration, tableName, PartitionBy.HOUR)
-                        .col("symCol", ColumnType.SYMBOL);
+                        .col("symCol", ColumnType.SYMBOL).symbolCapacity(N);
                 AbstractCairoTest.create(model);
                 DirectUtf8String dus = new DirectUtf8String();
                 long mem = Unsafe.malloc(DBCS_MAX_SIZE, MemoryTag.NATIVE_DEFAULT);
@@ -583,6 +583,85 @@ public class SymbolCacheTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testStaleAfterRehash() throws Exception {
+        final String tableName = "tb1";
+        final FilesFacade ff = new TestFilesFacadeImpl();
+
+        TestUtils.assertMemoryLeak(() -> {
+            try (Path path = new Path();
+                 SymbolCache cache = new SymbolCache(new DefaultLineTcpReceiverConfiguration() {
+                     @Override
+                     public long getSymbolCacheWaitUsBeforeReload() {
+                         return 0;
+                     }
+                 })
+            ) {
+                TableModel model = new TableModel(configuration, tableName, PartitionBy.HOUR)
+                        .col("symCol", ColumnType.SYMBOL).symbolCapacity(64);
+                AbstractCairoTest.create(model);
+                DirectUtf8String dus = new DirectUtf8String();
+                long mem = Unsafe.malloc(DBCS_MAX_SIZE, MemoryTag.NATIVE_DEFAULT);
+                TableToken tableToken = engine.verifyTableName(tableName);
+                try (
+                        TableWriter writer = newOffPoolWriter(configuration, tableName, metrics);
+                        TxReader txReader = new TxReader(ff).ofRO(
+                                path.of(configuration.getRoot()).concat(tableToken).concat(TXN_FILE_NAME).$(),
+                                PartitionBy.DAY
+                        )
+                ) {
+                    int symColIndex = writer.getColumnIndex("symCol");
+
+                    cache.of(
+                            configuration,
+                            writer,
+                            symColIndex,
+                            path.of(configuration.getRoot()).concat(tableToken),
+                            "symCol",
+                            symColIndex,
+                            txReader,
+                            -1
+                    );
+
+                    for (int i = 0; i < 32; i++) {
+                        TableWriter.Row r = writer.newRow();
+                        r.putSym(symColIndex, "sym" + i);
+                        r.append();
+                    }
+                    writer.commit();
+
+                    copyUtf8StringChars("sym31", mem, dus);
+                    Assert.assertEquals(31, cache.keyOf(dus));
+                    Assert.assertFalse(cache.isStale());
+
+                    // outgrow symbol capacity, writer rehashes symbols into new files on commit
+                    for (int i = 32; i < 96; i++) {
+                        TableWriter.Row r = writer.newRow();
+                        r.putSym(symColIndex, "sym" + i);
+                        r.append();
+                    }
+                    writer.commit();
+                    Assert.assertTrue(cache.isStale());
+
+                    for (int i = 96; i < 100; i++) {
+                        TableWriter.Row r = writer.newRow();
+                        r.putSym(symColIndex, "sym" + i);
+                        r.append();
+                    }
+                    writer.commit();
+
+                    // symbols up to the rehash are still resolved from the old files
+                    copyUtf8StringChars("sym95", mem, dus);
+                    Assert.assertEquals(95, cache.keyOf(dus));
+                    copyUtf8StringChars("sym96", mem, dus);
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(dus));
+                } finally {
+                    Unsafe.free(mem, DBCS_MAX_SIZE, MemoryTag.NATIVE_DEFAULT);
+                }
+            }
+        });
+    }
+
     @Test
     public void testSymbolCountNonZeroWatermark() throws Exception {
         String tableName = "tb1";
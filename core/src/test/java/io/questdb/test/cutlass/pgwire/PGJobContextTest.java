@@ -66,9 +66,13 @@ import org.postgresql.jdbc.PgResultSet;
 import org.postgresql.util.PGTimestamp;
 import org.postgresql.util.PSQLException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
 import java.sql.*;
 import java.text.SimpleDateFormat;
@@ -1766,6 +1770,100 @@ if __name__ == "__main__":
         });
     }
 
+    @Test
+    public void testBatchInsertCommittedOncePerSync() throws Exception {
+        skipOnWalRun(); // we count table writer transactions
+        assertWithPgServer(CONN_AWARE_EXTENDED_ALL, (connection, binary, mode, port) -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("create table test (id long, val int, ts timestamp) timestamp(ts) partition by day");
+            }
+
+            final int rowCount = 10_000;
+            try (PreparedStatement batchInsert = connection.prepareStatement("insert into test(id,val,ts) values(?,?,?)")) {
+                for (int i = 0; i < rowCount; i++) {
+                    batchInsert.setLong(1, i);
+                    batchInsert.setInt(2, i % 10);
+                    batchInsert.setTimestamp(3, new Timestamp(i * 1000L));
+                    batchInsert.addBatch();
+                }
+                final int[] counts = batchInsert.executeBatch();
+                Assert.assertEquals(rowCount, counts.length);
+                for (int i = 0; i < rowCount; i++) {
+                    Assert.assertEquals(1, counts[i]);
+                }
+            }
+
+            try (TableReader reader = getReader("test")) {
+                Assert.assertEquals(rowCount, reader.size());
+                // the driver syncs every few hundred statements to avoid a deadlock,
+                // every Sync commits once instead of every Execute
+                Assert.assertTrue(reader.getTxn() < rowCount / 10);
+            }
+
+            final StringSink sink = new StringSink();
+            try (
+                    Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery("select count(), sum(id) s1, sum(val) s2 from test")
+            ) {
+                assertResultSet(
+                        "count[BIGINT],s1[BIGINT],s2[BIGINT]\n" +
+                                "10000,49995000,45000\n",
+                        sink,
+                        rs
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testBatchInsertRolledBackOnError() throws Exception {
+        assertWithPgServer(CONN_AWARE_EXTENDED_ALL, (connection, binary, mode, port) -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("create table test (id long, ts timestamp) timestamp(ts) partition by day");
+            }
+
+            try (PreparedStatement batchInsert = connection.prepareStatement("insert into test(id,ts) values(?,?)")) {
+                for (int i = 0; i < 3; i++) {
+                    batchInsert.setLong(1, i);
+                    batchInsert.setLong(2, i);
+                    batchInsert.addBatch();
+                }
+                batchInsert.setLong(1, 3);
+                batchInsert.setLong(2, -100);
+                batchInsert.addBatch();
+                try {
+                    batchInsert.executeBatch();
+                    Assert.fail();
+                } catch (SQLException e) {
+                    TestUtils.assertContains(e.getMessage(), "before 1970-01-01");
+                }
+
+                // the pipeline is an implicit transaction, rows before the failed one are discarded
+                for (int i = 0; i < 2; i++) {
+                    batchInsert.setLong(1, i);
+                    batchInsert.setLong(2, i);
+                    batchInsert.addBatch();
+                }
+                batchInsert.executeBatch();
+            }
+
+            mayDrainWalQueue();
+            final StringSink sink = new StringSink();
+            try (
+                    Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery("select id from test")
+            ) {
+                assertResultSet(
+                        "id[BIGINT]\n" +
+                                "0\n" +
+                                "1\n",
+                        sink,
+                        rs
+                );
+            }
+        });
+    }
+
     @Test
     public void testBatchInsertWithTransaction() throws Exception {
         skipOnWalRun(); // Non-partitioned
@@ -2627,29 +2725,189 @@ if __name__ == "__main__":
     }
 
     @Test
-    @Ignore
-    public void testCopyIn() throws SQLException, SqlException {
-        try (
-                final PGWireServer server = createPGServer(2);
-                final WorkerPool workerPool = server.getWorkerPool()
-        ) {
-            workerPool.start(LOG);
-            try (final Connection connection = getConnection(server.getPort(), false, true)) {
-                PreparedStatement stmt = connection.prepareStatement("create table tab (a int, b int)");
-                stmt.execute();
+    public void testCopyIn() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            connection.prepareStatement("create table tab (i int, s varchar, sym symbol, d double, ts timestamp) timestamp(ts) partition by day").execute();
+
+            final CopyManager copyManager = new CopyManager((BaseConnection) connection);
+            final CopyIn copyIn = copyManager.copyIn("copy tab from STDIN");
+            final byte[] bytes = ("1\tfoo\tA\t1.5\t2024-01-01 10:00:00\n" +
+                    "2\t\\N\tB\t\\N\t2024-01-01 11:00:00.123456\n" +
+                    "\\N\tback\\\\slash\tA\t-3\t2024-01-02T00:00:00.000000Z\n").getBytes(StandardCharsets.UTF_8);
+            // rows span CopyData messages
+            copyIn.writeToCopy(bytes, 0, 10);
+            copyIn.writeToCopy(bytes, 10, bytes.length - 10);
+            Assert.assertEquals(3, copyIn.endCopy());
+
+            mayDrainWalQueue();
+            assertSql(
+                    "i\ts\tsym\td\tts\n" +
+                            "1\tfoo\tA\t1.5\t2024-01-01T10:00:00.000000Z\n" +
+                            "2\t\tB\tnull\t2024-01-01T11:00:00.123456Z\n" +
+                            "null\tback\\slash\tA\t-3.0\t2024-01-02T00:00:00.000000Z\n",
+                    "tab"
+            );
+        });
+    }
 
-                CopyManager copyManager = new CopyManager((BaseConnection) connection);
+    @Test
+    public void testCopyInBinary() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            connection.prepareStatement("create table tab (b boolean, i int, l long, d double, s string, u uuid, ts timestamp) timestamp(ts) partition by day").execute();
+
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bos);
+            out.write(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0});
+            out.writeInt(0); // flags
+            out.writeInt(0); // header extension length
+            for (int r = 0; r < 3; r++) {
+                out.writeShort(7);
+                out.writeInt(1);
+                out.writeByte(r % 2);
+                out.writeInt(4);
+                out.writeInt(r);
+                if (r == 1) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(8);
+                    out.writeLong(100L * r);
+                }
+                out.writeInt(8);
+                out.writeDouble(r + 0.5);
+                final byte[] str = ("row" + r).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(str.length);
+                out.write(str);
+                out.writeInt(16);
+                out.writeLong(0x0102030405060708L);
+                out.writeLong(r);
+                out.writeInt(8);
+                // micros since 2000-01-01
+                out.writeLong(Timestamps.DAY_MICROS * r);
+            }
+            out.writeShort(-1);
+            final byte[] bytes = bos.toByteArray();
+
+            final CopyManager copyManager = new CopyManager((BaseConnection) connection);
+            final CopyIn copyIn = copyManager.copyIn("copy tab from stdin with (format binary)");
+            // tiny messages to make sure header and tuples are reassembled
+            for (int lo = 0; lo < bytes.length; lo += 7) {
+                copyIn.writeToCopy(bytes, lo, Math.min(7, bytes.length - lo));
+            }
+            Assert.assertEquals(3, copyIn.endCopy());
 
-                CopyIn copyIn = copyManager.copyIn("copy tab from STDIN");
+            mayDrainWalQueue();
+            assertSql(
+                    "b\ti\tl\td\ts\tu\tts\n" +
+                            "false\t0\t0\t0.5\trow0\t01020304-0506-0708-0000-000000000000\t2000-01-01T00:00:00.000000Z\n" +
+                            "true\t1\tnull\t1.5\trow1\t01020304-0506-0708-0000-000000000001\t2000-01-02T00:00:00.000000Z\n" +
+                            "false\t2\t200\t2.5\trow2\t01020304-0506-0708-0000-000000000002\t2000-01-03T00:00:00.000000Z\n",
+                    "tab"
+            );
+        });
+    }
 
-                String text = "a,b\r\n" +
-                        "10,20";
+    @Test
+    public void testCopyInCsv() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            connection.prepareStatement("create table tab (i long, s symbol, v varchar, ts timestamp) timestamp(ts) partition by hour with maxUncommittedRows=1000").execute();
 
-                byte[] bytes = text.getBytes();
-                copyIn.writeToCopy(bytes, 0, bytes.length);
-                copyIn.endCopy();
+            final int rowCount = 10_000;
+            final StringBuilder csv = new StringBuilder("i,s,v,ts\n");
+            for (int i = 0; i < rowCount; i++) {
+                csv.append(i).append(',')
+                        .append(i % 3 == 0 ? "" : "s" + (i % 3)).append(',')
+                        .append("\"a,").append(i).append("\",")
+                        .append(i * 1_000_000L).append('\n');
             }
-        }
+
+            final CopyManager copyManager = new CopyManager((BaseConnection) connection);
+            Assert.assertEquals(rowCount, copyManager.copyIn("copy tab from stdin with (format csv, header true)", new StringReader(csv.toString())));
+
+            mayDrainWalQueue();
+            assertSql(
+                    "count\tsum\tcount_distinct\tmin\tmax\n" +
+                            "10000\t49995000\t2\t1970-01-01T00:00:00.000000Z\t1970-01-01T02:46:39.000000Z\n",
+                    "select count(), sum(i), count_distinct(s), min(ts), max(ts) from tab"
+            );
+            assertSql(
+                    "i\ts\tv\n" +
+                            "0\t\ta,0\n" +
+                            "1\ts1\ta,1\n" +
+                            "2\ts2\ta,2\n",
+                    "select i, s, v from tab limit 3"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyInErrors() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            connection.prepareStatement("create table tab (i int, ts timestamp) timestamp(ts) partition by day").execute();
+            final CopyManager copyManager = new CopyManager((BaseConnection) connection);
+
+            try {
+                copyManager.copyIn("copy tab from stdin with (format json)", new StringReader(""));
+                Assert.fail();
+            } catch (PSQLException e) {
+                TestUtils.assertContains(e.getMessage(), "'text', 'csv' or 'binary' expected");
+            }
+
+            try {
+                copyManager.copyIn("copy missing from stdin", new StringReader(""));
+                Assert.fail();
+            } catch (PSQLException e) {
+                TestUtils.assertContains(e.getMessage(), "table does not exist [table=missing]");
+            }
+
+            try {
+                copyManager.copyIn("copy tab from stdin with csv", new StringReader("1,2024-01-01\nabc,2024-01-02\n"));
+                Assert.fail();
+            } catch (PSQLException e) {
+                TestUtils.assertContains(e.getMessage(), "inconvertible value [row=2, column=i, type=INT, value=`abc`]");
+            }
+
+            final CopyIn copyIn = copyManager.copyIn("copy tab from stdin with csv");
+            final byte[] bytes = "3,2024-01-03\n".getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            try {
+                copyIn.cancelCopy();
+            } catch (SQLException e) {
+                TestUtils.assertContains(e.getMessage(), "COPY from stdin failed");
+            }
+
+            // the connection is usable and nothing has been written
+            mayDrainWalQueue();
+            try (ResultSet rs = connection.prepareStatement("select count() from tab").executeQuery()) {
+                Assert.assertTrue(rs.next());
+                Assert.assertEquals(0, rs.getLong(1));
+            }
+        });
+    }
+
+    @Test
+    public void testCopyInExtended() throws Exception {
+        // copy started by Execute: CopyDone and errors are followed by ReadyForQuery only after Sync,
+        // the second copy fails on a bad value, the third one on a Query message sent in copy-in mode
+        assertHexScript(">0000003600030000757365720061646d696e0064617461626173650071646200636c69656e745f656e636f64696e6700555446380000\n" +
+                "<520000000800000003\n" +
+                ">700000000a717565737400\n" +
+                "<520000000800000000530000001154696d655a6f6e6500474d5400530000001d6170706c69636174696f6e5f6e616d6500517565737444420053000000187365727665725f76657273696f6e0031312e33005300000019696e74656765725f6461746574696d6573006f6e005300000019636c69656e745f656e636f64696e670055544638004b0000000c0000003fbb8b96505a0000000549\n" +
+                ">510000004a637265617465207461626c652074616220286920696e742c2074732074696d657374616d70292074696d657374616d702874732920706172746974696f6e2062792064617900\n" +
+                "<43000000074f4b005a0000000549\n" +
+                ">500000001b00636f7079207461622066726f6d20737464696e000000420000000c0000000000000000450000000900000000005300000004\n" +
+                "<31000000043200000004470000000b00000200000000\n" +
+                ">64000000223109323032342d30312d30315430303a30303a30302e3030303030305a0a63000000045300000004\n" +
+                "<430000000b434f50592031005a0000000549\n" +
+                ">500000001b00636f7079207461622066726f6d20737464696e000000420000000c0000000000000000450000000900000000005300000004\n" +
+                "<31000000043200000004470000000b00000200000000\n" +
+                ">640000002461626309323032342d30312d30325430303a30303a30302e3030303030305a0a63000000045300000004\n" +
+                "<4500000051433030303030004d696e636f6e7665727469626c652076616c7565205b726f773d312c20636f6c756d6e3d692c20747970653d494e542c2076616c75653d60616263605d00534552524f5200005a0000000549\n" +
+                ">500000001b00636f7079207461622066726f6d20737464696e000000420000000c0000000000000000450000000900000000005300000004\n" +
+                "<31000000043200000004470000000b00000200000000\n" +
+                ">510000000d73656c65637420310064000000223309323032342d30312d30335430303a30303a30302e3030303030305a0a63000000045300000004\n" +
+                "<4500000038433030303030004d756e6578706563746564206d657373616765207479706520647572696e6720434f505900534552524f5200005a0000000549\n" +
+                ">510000001673656c65637420692066726f6d2074616200\n" +
+                "<540000001a00016900000000000001000000170004ffffffff0000440000000b00010000000131430000000d53454c4543542031005a0000000549\n");
     }
 
     @Test
@@ -3301,7 +3559,7 @@ if __name__ == "__main__":
                     try (ResultSet rs = statement.getResultSet()) {
                         assertResultSet(
                                 "QUERY PLAN[VARCHAR]\n" +
-                                        "Async Filter workers: 2\n" +
+                                        "Async JIT Filter workers: 2\n" +
                                         "  limit: 10\n" +
                                         "  filter: ($0::long<x and x<$1::double)\n" +
                                         "    DataFrame\n" +
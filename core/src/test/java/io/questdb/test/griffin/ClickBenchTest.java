@@ -393,7 +393,7 @@ public class ClickBenchTest extends AbstractCairoTest {
                     "SELECT SearchPhrase, MIN(URL), COUNT(*) AS c FROM hits WHERE URL LIKE '%google%' AND SearchPhrase IS NOT NULL GROUP BY SearchPhrase ORDER BY c DESC LIMIT 10;",
                     "Sort light lo: 10\n" +
                             "  keys: [c desc]\n" +
-                            "    Async Group By workers: 1\n" +
+                            "    Async JIT Group By workers: 1\n" +
                             "      keys: [SearchPhrase]\n" +
                             "      values: [min(URL),count(*)]\n" +
                             "      filter: (URL like %google% and SearchPhrase is not null)\n" +
@@ -406,7 +406,7 @@ public class ClickBenchTest extends AbstractCairoTest {
                     "SELECT SearchPhrase, MIN(URL), MIN(Title), COUNT(*) AS c, count_distinct(UserID) FROM hits WHERE Title LIKE '%Google%' AND URL NOT LIKE '%.google.%' AND SearchPhrase IS NOT NULL GROUP BY SearchPhrase ORDER BY c DESC LIMIT 10;",
                     "Sort light lo: 10\n" +
                             "  keys: [c desc]\n" +
-                            "    Async Group By workers: 1\n" +
+                            "    Async JIT Group By workers: 1\n" +
                             "      keys: [SearchPhrase]\n" +
                             "      values: [min(URL),min(Title),count(*),count_distinct(UserID)]\n" +
                             "      filter: (Title like %Google% and not (URL like %.google.%) and SearchPhrase is not null)\n" +
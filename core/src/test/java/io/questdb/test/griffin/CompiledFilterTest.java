@@ -285,6 +285,69 @@ public class CompiledFilterTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testPartialFilter() throws Exception {
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, 100);
+        assertMemoryLeak(() -> {
+            ddl("create table x as (select" +
+                    " x l," +
+                    " rnd_varchar('foo', 'foobar', 'barbazquxquux', 'barbazquxcorge', null) v," +
+                    " rnd_str('foo', 'foobar', 'baz', null) s," +
+                    " timestamp_sequence(400000000000, 500000000) ts" +
+                    " from long_sequence(1000)) timestamp(ts) partition by day");
+
+            final String[] filters = {
+                    "l > 500 and v = 'foobar'",
+                    "v = 'barbazquxcorge' and l >= 3",
+                    "l < 300 and v like 'barbaz%'",
+                    "l > 100 and v in ('foo', 'barbazquxquux') and l < 900",
+                    "l > 100 and s = 'baz'",
+                    "l > 800 and (v = 'foo' or v is null)",
+            };
+            for (String filter : filters) {
+                final String query = "select * from x where " + filter;
+                sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+                printSql(query);
+                final String expected = sink.toString();
+
+                sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_ENABLED);
+                assertSql(expected, query);
+                assertSqlRunWithJit(query);
+
+                final String countQuery = "select count(), sum(l) from x where " + filter;
+                sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+                printSql(countQuery);
+                final String expectedCount = sink.toString();
+
+                sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_ENABLED);
+                assertSql(expectedCount, countQuery);
+                assertSql(expectedCount, "select count(), sum(l) from (" + query + ")");
+            }
+        });
+    }
+
+    @Test
+    public void testPartialFilterWithColTops() throws Exception {
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, 100);
+        assertMemoryLeak(() -> {
+            ddl("create table x as (select" +
+                    " x l," +
+                    " timestamp_sequence(400000000000, 500000000) ts" +
+                    " from long_sequence(500)) timestamp(ts) partition by day");
+            ddl("alter table x add column v varchar");
+            insert("insert into x select x + 500, timestamp_sequence(650000000000, 500000000), rnd_varchar('foo', 'foobarbazqux', null) from long_sequence(500)");
+
+            final String query = "select count(), sum(l) from x where l > 300 and v = 'foobarbazqux'";
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+            printSql(query);
+            final String expected = sink.toString();
+
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_ENABLED);
+            assertSql(expected, query);
+            assertSqlRunWithJit("select * from x where l > 300 and v = 'foobarbazqux'");
+        });
+    }
+
     @Test
     public void testRandomAccessAfterToTop() throws Exception {
         assertMemoryLeak(() -> {
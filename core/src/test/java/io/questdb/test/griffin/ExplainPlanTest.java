@@ -51,7 +51,10 @@ import io.questdb.griffin.engine.functions.lt.LtIPv4StrFunctionFactory;
 import io.questdb.griffin.engine.functions.lt.LtStrIPv4FunctionFactory;
 import io.questdb.griffin.engine.functions.rnd.LongSequenceFunctionFactory;
 import io.questdb.griffin.engine.functions.rnd.RndIPv4CCFunctionFactory;
+import io.questdb.griffin.engine.functions.table.ReadParquetFunctionFactory;
 import io.questdb.griffin.engine.functions.test.TestSumXDoubleGroupByFunctionFactory;
+import io.questdb.griffin.engine.functions.window.LagDoubleWindowFunctionFactory;
+import io.questdb.griffin.engine.functions.window.LeadDoubleWindowFunctionFactory;
 import io.questdb.griffin.engine.table.DataFrameRecordCursorFactory;
 import io.questdb.griffin.model.WindowColumn;
 import io.questdb.jit.JitUtil;
@@ -2324,6 +2327,8 @@ public class ExplainPlanTest extends AbstractCairoTest {
                                         sigArgType = ColumnType.DOUBLE;
                                     } else if (factory instanceof LevelTwoPriceFunctionFactory) {
                                         sigArgType = ColumnType.DOUBLE;
+                                    } else if (factory instanceof LagDoubleWindowFunctionFactory || factory instanceof LeadDoubleWindowFunctionFactory) {
+                                        sigArgType = ColumnType.INT;
                                     } else {
                                         sigArgType = ColumnType.STRING;
                                     }
@@ -2389,6 +2394,9 @@ public class ExplainPlanTest extends AbstractCairoTest {
                                 } else if (factory instanceof WalTransactionsFunctionFactory && sigArgType == ColumnType.STRING) {
                                     // Skip it, it requires a WAL table to exist
                                     break FUNCTIONS;
+                                } else if (factory instanceof ReadParquetFunctionFactory) {
+                                    // Skip it, it requires a Parquet file to exist
+                                    break FUNCTIONS;
                                 } else {
                                     args.add(getConst(constFuncs, sigArgType, p, no));
                                 }
@@ -6325,7 +6333,7 @@ public class ExplainPlanTest extends AbstractCairoTest {
             // with where clause, distinct column
             assertPlanNoLeakCheck("SELECT count_distinct(s) FROM test where s like '%abc%'",
                     "Count\n" +
-                            "    Async Group By workers: 1\n" +
+                            "    Async JIT Group By workers: 1\n" +
                             "      keys: [s]\n" +
                             "      filter: (s like %abc% and s is not null)\n" +
                             "        DataFrame\n" +
@@ -6355,7 +6363,7 @@ public class ExplainPlanTest extends AbstractCairoTest {
             // where clause, distinct expression 3, function name clash with column name
             assertPlanNoLeakCheck("SELECT count_distinct(substring(s,1,1)) FROM test where s like '%abc%' and substring != null",
                     "Count\n" +
-                            "    Async Group By workers: 1\n" +
+                            "    Async JIT Group By workers: 1\n" +
                             "      keys: [substring]\n" +
                             "      filter: (s like %abc% and substring is not null and substring(s,1,1) is not null)\n" +
                             "        DataFrame\n" +
@@ -9307,7 +9315,7 @@ public class ExplainPlanTest extends AbstractCairoTest {
                         "  keys: [k]\n" +
                         "  values: [max(ts)]\n" +
                         "    SelectedRecord\n" +
-                        "        Async Filter workers: 1\n" +
+                        "        Async JIT Filter workers: 1\n" +
                         "          filter: (l::short<i and l<0)\n" +
                         "            DataFrame\n" +
                         "                Row forward scan\n" +
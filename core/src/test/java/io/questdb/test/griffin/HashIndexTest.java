@@ -0,0 +1,213 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin;
+
+import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableReaderMetadata;
+import io.questdb.cairo.TableUtils;
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HashIndexTest extends AbstractCairoTest {
+
+    @Test
+    public void testAddIndex() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", "");
+            ddl("alter table x alter column i add index");
+            ddl("alter table x alter column l add index");
+            assertIndexed("x", "i", "l");
+
+            assertMatchesUnindexed("x", "i = 7");
+            assertMatchesUnindexed("x", "l = 1030");
+            assertMatchesUnindexed("x", "l = 6 and i > 3");
+            assertMatchesUnindexed("x", "i in (1, 5, 9)");
+            assertMatchesUnindexed("x", "l in (3, 1027)");
+            assertSql("i\tl\n7\t7\n", "select i, l from x where i = 7");
+        });
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", "");
+            ddl("alter table x add column k long");
+            insert("insert into x select x, x, timestamp_sequence('2024-01-03T12', 60 * 60 * 1000000L), 1000 + x from long_sequence(24)");
+            ddl("alter table x alter column k add index");
+
+            assertSql("i\tk\n", "select i, k from x where k = 1");
+            assertSql("i\tk\n5\t1005\n", "select i, k from x where k = 1005");
+            assertMatchesUnindexed("x", "k in (1001, 1024)");
+        });
+    }
+
+    @Test
+    public void testCreateTableWithIndex() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", ", index(i), index(l)");
+            assertIndexed("x", "i", "l");
+            assertMatchesUnindexed("x", "i = 1000");
+            assertMatchesUnindexed("x", "l = 1000 or l = 1001");
+
+            ddl("create table y (i int, l long, ts timestamp), index(i), index(l) timestamp(ts) partition by day");
+            assertIndexed("y", "i", "l");
+            insert("insert into y values (1, null, '2024-01-01'), (null, 2, '2024-01-02')");
+            assertSql("i\tl\n1\tnull\n", "select i, l from y where i = 1");
+            assertSql("i\tl\nnull\t2\n", "select i, l from y where l = 2");
+            assertSql("i\tl\n1\tnull\n", "select i, l from y where l = null");
+        });
+    }
+
+    @Test
+    public void testDescending() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", ", index(l)");
+            assertSql("i\n1030\n6\n", "select i from x where l in (6, 1030) order by ts desc");
+            assertSql("i\n1030\n", "select i from x where l = 1030 order by ts desc");
+            assertMatchesUnindexed("x", "l = 30 order by ts desc");
+        });
+    }
+
+    @Test
+    public void testIndexCapacity() throws Exception {
+        assertMemoryLeak(() -> {
+            // index capacity is the number of hash keys, it is set per column
+            createTable("x", ", index(l capacity 4)");
+            ddl("alter table x alter column i add index capacity 4096");
+            assertIndexed("x", "i", "l");
+
+            try (TableReader reader = engine.getReader("x")) {
+                final TableReaderMetadata metadata = reader.getMetadata();
+                Assert.assertEquals(4, metadata.getIndexValueBlockCapacity(metadata.getColumnIndex("l")));
+                Assert.assertEquals(4096, metadata.getIndexValueBlockCapacity(metadata.getColumnIndex("i")));
+                reader.openPartition(0);
+                // value blocks are sized independently of the key count
+                Assert.assertEquals(
+                        TableUtils.HASH_INDEX_VALUE_BLOCK_CAPACITY,
+                        reader.getBitmapIndexReader(0, metadata.getColumnIndex("i"), BitmapIndexReader.DIR_FORWARD).getValueBlockCapacity() + 1
+                );
+            }
+
+            assertMatchesUnindexed("x", "l = 5");
+            assertMatchesUnindexed("x", "l in (1, 2, 1030)");
+            assertMatchesUnindexed("x", "i = 1030");
+            assertMatchesUnindexed("x", "i in (6, 1030, 4097)");
+
+            insert("insert into x select x::int, x, timestamp_sequence('2024-01-01T00:30', 60 * 60 * 1000000L) from long_sequence(100)");
+            assertMatchesUnindexed("x", "l in (7, 1000)");
+            assertMatchesUnindexed("x", "i = 50");
+        });
+    }
+
+    @Test
+    public void testO3() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", ", index(i), index(l)");
+            insert("insert into x values (5, 5, '2024-01-01T00:30:00'), (-5, 5, '2024-01-02T00:30:00'), (7, 7000, '2024-01-03T00:30:00')");
+            insert("insert into x select x, x, timestamp_sequence('2024-01-02', 60 * 1000000L) from long_sequence(100)");
+
+            assertMatchesUnindexed("x", "i = 5");
+            assertMatchesUnindexed("x", "l = 5");
+            assertMatchesUnindexed("x", "l in (7, 7000, 100)");
+            assertSql("i\tl\tts\n7\t7000\t2024-01-03T00:30:00.000000Z\n", "select i, l, ts from x where l = 7000");
+        });
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", ", index(l)");
+            assertPlanNoLeakCheck(
+                    "select * from x where l = 42 and i > 0",
+                    "DataFrame\n" +
+                            "    Hash index forward scan on: l\n" +
+                            "      keys: 1\n" +
+                            "      filter: (l=42 and 0<i)\n" +
+                            "    Frame forward scan on: x\n"
+            );
+            assertPlanNoLeakCheck(
+                    "select * from x where l in (1, 2, 3)",
+                    "DataFrame\n" +
+                            "    Hash index forward scan on: l\n" +
+                            "      keys: 3\n" +
+                            "      filter: l in [1,2,3]\n" +
+                            "    Frame forward scan on: x\n"
+            );
+        });
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", ", index(l)");
+            compile("update x set l = 5000 where i = 3");
+            assertSql("i\tl\n3\t5000\n", "select i, l from x where l = 5000");
+            assertSql("i\tl\n", "select i, l from x where l = 3");
+            assertMatchesUnindexed("x", "l in (4, 5000)");
+        });
+    }
+
+    @Test
+    public void testWal() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table w (i int, l long, ts timestamp), index(l) timestamp(ts) partition by day wal");
+            insert("insert into w select x, x % 10, timestamp_sequence('2024-01-01', 60 * 60 * 1000000L) from long_sequence(100)");
+            insert("insert into w values (11, 3, '2024-01-01T00:30:00')");
+            drainWalQueue();
+
+            assertIndexed("w", "l");
+            assertMatchesUnindexed("w", "l = 3");
+            assertMatchesUnindexed("w", "l in (0, 9)");
+            assertSql("count\n11\n", "select count() from w where l = 3");
+        });
+    }
+
+    private static void assertIndexed(String tableName, String... columnNames) {
+        try (TableReader reader = engine.getReader(tableName)) {
+            final TableReaderMetadata metadata = reader.getMetadata();
+            for (String columnName : columnNames) {
+                Assert.assertTrue(columnName, metadata.isColumnIndexed(metadata.getColumnIndex(columnName)));
+            }
+        }
+    }
+
+    private void assertMatchesUnindexed(String tableName, String filter) throws Exception {
+        // arithmetic on the column keeps the index out of the query
+        final String unindexed = filter.replaceAll("\\b([ilk])\\b", "($1 + 0)");
+        assertSqlCursors("select * from " + tableName + " where " + unindexed, "select * from " + tableName + " where " + filter);
+    }
+
+    private void createTable(String tableName, String indexes) throws Exception {
+        // there are more values than index keys, so some values share a key
+        ddl(
+                "create table " + tableName + " as (" +
+                        "select x::int i, x l, timestamp_sequence('2024-01-01', 60 * 60 * 1000000L) ts" +
+                        " from long_sequence(1100)" +
+                        ")" + indexes + " timestamp(ts) partition by day"
+        );
+    }
+}
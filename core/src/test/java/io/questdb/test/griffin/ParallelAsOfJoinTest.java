@@ -0,0 +1,213 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CursorPrinter;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelAsOfJoinTest extends AbstractCairoTest {
+    private static final int PAGE_FRAME_COUNT = 4; // also used to set queue size, so must be a power of 2
+    private static final int PAGE_FRAME_MAX_ROWS = 100;
+    private static final int ROW_COUNT = 10 * PAGE_FRAME_COUNT * PAGE_FRAME_MAX_ROWS;
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, PAGE_FRAME_MAX_ROWS);
+        // We intentionally use small values for shard count and reduce
+        // queue capacity to exhibit various edge cases.
+        setProperty(PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT, 2);
+        setProperty(PropertyKey.CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY, PAGE_FRAME_COUNT);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD, 1);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_ASOF_JOIN_ENABLED, "true");
+        super.setUp();
+    }
+
+    @Test
+    public void testAsOfJoin() throws Exception {
+        testJoin("select x.*, y.* from x asof join y");
+    }
+
+    @Test
+    public void testAsOfJoinDuplicateSlaveTimestamps() throws Exception {
+        testJoin("select x.*, z.* from x asof join z");
+    }
+
+    @Test
+    public void testAsOfJoinEmptySlave() throws Exception {
+        testJoin("select x.*, e.* from x asof join e");
+    }
+
+    @Test
+    public void testAsOfJoinSlaveSymbols() throws Exception {
+        testJoin("select x.s, y.sym, y.l from x asof join y where y.sym = 'a' or x.s = 'b'");
+    }
+
+    @Test
+    public void testLtJoin() throws Exception {
+        testJoin("select x.*, y.* from x lt join y");
+    }
+
+    @Test
+    public void testLtJoinDuplicateSlaveTimestamps() throws Exception {
+        testJoin("select x.*, z.* from x lt join z");
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTables(engine, sqlExecutionContext);
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "explain select x.*, y.* from x asof join y",
+                            sink,
+                            "QUERY PLAN\n" +
+                                    "SelectedRecord\n" +
+                                    "    Async AsOf Join workers: 4\n" +
+                                    "        DataFrame\n" +
+                                    "            Row forward scan\n" +
+                                    "            Frame forward scan on: x\n" +
+                                    "        DataFrame\n" +
+                                    "            Row forward scan\n" +
+                                    "            Frame forward scan on: y\n"
+                    );
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "explain select x.*, y.* from x lt join y",
+                            sink,
+                            "QUERY PLAN\n" +
+                                    "SelectedRecord\n" +
+                                    "    Async Lt Join workers: 4\n" +
+                                    "        DataFrame\n" +
+                                    "            Row forward scan\n" +
+                                    "            Frame forward scan on: x\n" +
+                                    "        DataFrame\n" +
+                                    "            Row forward scan\n" +
+                                    "            Frame forward scan on: y\n"
+                    );
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testRepeatedExecution() throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTables(engine, sqlExecutionContext);
+                    final StringSink expected = new StringSink();
+                    final StringSink actual = new StringSink();
+                    printSql(compiler, sqlExecutionContext, "select x.*, y.* from (x limit " + ROW_COUNT + ") x asof join y", expected);
+                    try (RecordCursorFactory factory = compiler.compile("select x.*, y.* from x asof join y", sqlExecutionContext).getRecordCursorFactory()) {
+                        for (int i = 0; i < 3; i++) {
+                            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                                for (int j = 0; j < 2; j++) {
+                                    actual.clear();
+                                    CursorPrinter.println(cursor, factory.getMetadata(), actual, true, false);
+                                    TestUtils.assertEquals(expected, actual);
+                                    cursor.toTop();
+                                }
+                            }
+                        }
+                    }
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    private static void createTables(CairoEngine engine, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        engine.ddl("create table e (v int, ts timestamp) timestamp(ts) partition by hour", sqlExecutionContext);
+        engine.ddl(
+                "create table x as (" +
+                        "select rnd_int(0, 50, 2) i, rnd_long(0, 100, 2) l, timestamp_sequence(0, 1000000) ts, rnd_symbol('a','b','c',null) s" +
+                        " from long_sequence(" + ROW_COUNT + ")" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+        // sparse slave that starts after the first master rows
+        engine.ddl(
+                "create table y as (" +
+                        "select rnd_long(0, 100, 2) l, rnd_symbol('a','b','c',null) sym, timestamp_sequence(30000000, 7000000) ts" +
+                        " from long_sequence(500)" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+        // each slave timestamp is repeated three times and matches a master timestamp
+        engine.ddl(
+                "create table z as (" +
+                        "select x v, cast((x / 3) * 3000000 as timestamp) ts" +
+                        " from long_sequence(" + ROW_COUNT + ")" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private static void printSql(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext, String sql, StringSink sink) throws SqlException {
+        sink.clear();
+        try (
+                RecordCursorFactory factory = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            CursorPrinter.println(cursor, factory.getMetadata(), sink, true, false);
+        }
+    }
+
+    private void testJoin(String query) throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTables(engine, sqlExecutionContext);
+                    // LIMIT in the sub-query hides page frames from the join,
+                    // so the expected result is produced by the serial join
+                    TestUtils.assertSqlCursors(
+                            compiler,
+                            sqlExecutionContext,
+                            query.replace("from x ", "from (x limit " + ROW_COUNT + ") x "),
+                            query,
+                            LOG
+                    );
+                },
+                configuration,
+                LOG
+        );
+    }
+}
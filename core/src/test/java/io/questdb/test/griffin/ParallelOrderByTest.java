@@ -0,0 +1,275 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CursorPrinter;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelOrderByTest extends AbstractCairoTest {
+    private static final int PAGE_FRAME_COUNT = 4; // also used to set queue size, so must be a power of 2
+    private static final int PAGE_FRAME_MAX_ROWS = 100;
+    private static final int ROW_COUNT = 10 * PAGE_FRAME_COUNT * PAGE_FRAME_MAX_ROWS;
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, PAGE_FRAME_MAX_ROWS);
+        // We intentionally use small values for shard count and reduce
+        // queue capacity to exhibit various edge cases.
+        setProperty(PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT, 2);
+        setProperty(PropertyKey.CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY, PAGE_FRAME_COUNT);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD, 1);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_SORT_ENABLED, "true");
+        super.setUp();
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    engine.ddl("create table x (v long, ts timestamp) timestamp(ts) partition by day", sqlExecutionContext);
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "select * from x order by v",
+                            sink,
+                            "v\tts\n"
+                    );
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testOrderByDoubleAsc() throws Exception {
+        testOrderBy("d");
+    }
+
+    @Test
+    public void testOrderByLongDesc() throws Exception {
+        testOrderBy("l desc");
+    }
+
+    @Test
+    public void testOrderByMultipleColumns() throws Exception {
+        testOrderBy("s, i desc, d");
+    }
+
+    @Test
+    public void testOrderByStringDesc() throws Exception {
+        testOrderBy("str desc");
+    }
+
+    @Test
+    public void testOrderBySymbol() throws Exception {
+        testOrderBy("s");
+    }
+
+    @Test
+    public void testOrderBySymbolHighCardinality() throws Exception {
+        // workers compare symbol values concurrently, each of them must use own symbol tables
+        WorkerPool pool = new WorkerPool(() -> 8);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    engine.ddl("create table x (s symbol capacity 65536, l long, ts timestamp) timestamp(ts) partition by hour", sqlExecutionContext);
+                    engine.insert(
+                            "insert into x select" +
+                                    " cast('sym' || rnd_int(0, 50000, 0) as symbol) s," +
+                                    " rnd_long() l," +
+                                    " timestamp_sequence(0, 10000) ts" +
+                                    " from long_sequence(200000)",
+                            sqlExecutionContext
+                    );
+                    for (int i = 0; i < 3; i++) {
+                        TestUtils.assertSqlCursors(
+                                compiler,
+                                sqlExecutionContext,
+                                "select * from (x limit 200000) order by s desc, ts",
+                                "select * from x order by s desc, ts",
+                                LOG
+                        );
+                    }
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testOrderByTimestampDesc() throws Exception {
+        testOrderBy("ts desc");
+    }
+
+    @Test
+    public void testOrderByVarchar() throws Exception {
+        testOrderBy("vch");
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "explain select * from x order by s, l desc",
+                            sink,
+                            "QUERY PLAN\n" +
+                                    "Async Sort light workers: 4\n" +
+                                    "  keys: [s, l desc]\n" +
+                                    "    DataFrame\n" +
+                                    "        Row forward scan\n" +
+                                    "        Frame forward scan on: x\n"
+                    );
+                    // filtered and limited queries keep using the existing factories
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "explain select * from x order by l limit 10",
+                            sink,
+                            "QUERY PLAN\n" +
+                                    "Sort light lo: 10\n" +
+                                    "  keys: [l]\n" +
+                                    "    DataFrame\n" +
+                                    "        Row forward scan\n" +
+                                    "        Frame forward scan on: x\n"
+                    );
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testRepeatedExecution() throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    final StringSink expected = new StringSink();
+                    final StringSink actual = new StringSink();
+                    printSql(compiler, sqlExecutionContext, "select * from (x limit " + ROW_COUNT + ") order by i, l", expected);
+                    try (RecordCursorFactory factory = compiler.compile("select * from x order by i, l", sqlExecutionContext).getRecordCursorFactory()) {
+                        Assert.assertTrue(factory.recordCursorSupportsRandomAccess());
+                        for (int i = 0; i < 3; i++) {
+                            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                                for (int j = 0; j < 2; j++) {
+                                    actual.clear();
+                                    CursorPrinter.println(cursor, factory.getMetadata(), actual, true, false);
+                                    TestUtils.assertEquals(expected, actual);
+                                    Assert.assertEquals(ROW_COUNT, cursor.size());
+                                    cursor.toTop();
+                                }
+                            }
+                        }
+                    }
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testSingleWorkerSerialFallback() throws Exception {
+        // with no shared workers the owner thread sorts all frames on its own
+        WorkerPool pool = new WorkerPool(() -> 1);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    TestUtils.assertSqlCursors(
+                            compiler,
+                            sqlExecutionContext,
+                            "select * from (x limit " + ROW_COUNT + ") order by l desc, i",
+                            "select * from x order by l desc, i",
+                            LOG
+                    );
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    private static void createTable(CairoEngine engine, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        engine.ddl(
+                "create table x (i int, l long, d double, s symbol, str string, vch varchar, ts timestamp) timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+        // low cardinality values to produce plenty of ties across page frames
+        engine.insert(
+                "insert into x select" +
+                        " rnd_int(0, 20, 1) i," +
+                        " rnd_long(0, 50, 1) l," +
+                        " rnd_double(2) d," +
+                        " rnd_symbol('a','b','c','d',null) s," +
+                        " rnd_str('foo','bar','baz',null) str," +
+                        " rnd_varchar('ганьба','foo','bar',null) vch," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(" + ROW_COUNT + ")",
+                sqlExecutionContext
+        );
+    }
+
+    private static void printSql(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext, String sql, StringSink sink) throws SqlException {
+        sink.clear();
+        try (
+                RecordCursorFactory factory = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            CursorPrinter.println(cursor, factory.getMetadata(), sink, true, false);
+        }
+    }
+
+    private void testOrderBy(String orderBy) throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    // LIMIT in the sub-query hides page frames from the ORDER BY,
+                    // so the expected result is produced by the serial sort
+                    TestUtils.assertSqlCursors(
+                            compiler,
+                            sqlExecutionContext,
+                            "select * from (x limit " + ROW_COUNT + ") order by " + orderBy,
+                            "select * from x order by " + orderBy,
+                            LOG
+                    );
+                },
+                configuration,
+                LOG
+        );
+    }
+}
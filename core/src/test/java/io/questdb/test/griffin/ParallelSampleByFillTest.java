@@ -0,0 +1,337 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+
+package io.questdb.test.griffin;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CursorPrinter;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelSampleByFillTest extends AbstractCairoTest {
+    private static final int PAGE_FRAME_COUNT = 4; // also used to set queue size, so must be a power of 2
+    private static final int PAGE_FRAME_MAX_ROWS = 100;
+    private static final int ROW_COUNT = 10 * PAGE_FRAME_COUNT * PAGE_FRAME_MAX_ROWS;
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, PAGE_FRAME_MAX_ROWS);
+        // We intentionally use small values for shard count and reduce
+        // queue capacity to exhibit various edge cases.
+        setProperty(PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT, 2);
+        setProperty(PropertyKey.CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY, PAGE_FRAME_COUNT);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD, 1);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_ENABLED, "true");
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_SAMPLE_BY_FILL_ENABLED, "true");
+        super.setUp();
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "select ts, sym, avg(d) from (x where i < 0) sample by 10m fill(prev) align to calendar",
+                            sink,
+                            "ts\tsym\tavg\n"
+                    );
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testFillLinearKeyed() throws Exception {
+        testFill("select ts, sym, avg(d), sum(d) from x where d != null sample by 10m fill(linear) align to calendar", "ts, sym");
+    }
+
+    @Test
+    public void testFillLinearMixedNotKeyed() throws Exception {
+        testFill("select ts, avg(d), sum(l), max(d) from x where d != null and l != null sample by 10m fill(linear, prev, linear) align to calendar", null);
+    }
+
+    @Test
+    public void testFillLinearNotKeyed() throws Exception {
+        testFill("select ts, avg(d), max(d) from x where d != null sample by 10m fill(linear) align to calendar", null);
+    }
+
+    @Test
+    public void testFillLinearSingleRowKey() throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    engine.ddl("create table y (sym symbol, v int, ts timestamp) timestamp(ts) partition by day", sqlExecutionContext);
+                    engine.insert(
+                            "insert into y values ('a', 10, '2024-01-01T00:00:00.000000Z'), ('b', 1, '2024-01-01T01:00:00.000000Z')," +
+                                    " ('a', 40, '2024-01-01T03:00:00.000000Z'), ('a', 50, '2024-01-01T04:00:00.000000Z')",
+                            sqlExecutionContext
+                    );
+                    // the single row of 'b' leaves nothing to interpolate from
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "select * from (select ts, sym, sum(v) from y sample by 1h fill(linear) align to calendar) order by ts, sym",
+                            sink,
+                            "ts\tsym\tsum\n" +
+                                    "2024-01-01T00:00:00.000000Z\ta\t10\n" +
+                                    "2024-01-01T00:00:00.000000Z\tb\tnull\n" +
+                                    "2024-01-01T01:00:00.000000Z\ta\t20\n" +
+                                    "2024-01-01T01:00:00.000000Z\tb\t1\n" +
+                                    "2024-01-01T02:00:00.000000Z\ta\t30\n" +
+                                    "2024-01-01T02:00:00.000000Z\tb\tnull\n" +
+                                    "2024-01-01T03:00:00.000000Z\ta\t40\n" +
+                                    "2024-01-01T03:00:00.000000Z\tb\tnull\n" +
+                                    "2024-01-01T04:00:00.000000Z\ta\t50\n" +
+                                    "2024-01-01T04:00:00.000000Z\tb\tnull\n"
+                    );
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testFillNullKeyed() throws Exception {
+        testFill("select ts, sym, avg(d), sum(l), max(i) from x sample by 10m fill(null) align to calendar", "ts, sym");
+    }
+
+    @Test
+    public void testFillPrevKeyed() throws Exception {
+        testFill("select ts, sym, avg(d), sum(l), max(i) from x sample by 10m fill(prev) align to calendar", "ts, sym");
+    }
+
+    @Test
+    public void testFillPrevMultipleKeys() throws Exception {
+        testFill("select sym, ts, i, count(), last(d) from x where i < 10 sample by 1h fill(prev) align to calendar", "ts, sym, i");
+    }
+
+    @Test
+    public void testFillPrevNotKeyed() throws Exception {
+        testFill("select ts, avg(d), sum(l), max(i) from x sample by 10m fill(prev) align to calendar", null);
+    }
+
+    @Test
+    public void testFillValuesKeyed() throws Exception {
+        testFill("select ts, sym, avg(d), sum(l), max(i) from x sample by 10m fill(null, 42, prev) align to calendar", "ts, sym");
+    }
+
+    @Test
+    public void testFillValuesNotKeyed() throws Exception {
+        testFill("select ts, avg(d), sum(l), max(i) from x sample by 10m fill(1.5, prev, 7) align to calendar", null);
+    }
+
+    @Test
+    public void testFillWithFilter() throws Exception {
+        testFill("select ts, sym, avg(d) from x where l > 500 sample by 30m fill(prev) align to calendar", "ts, sym");
+    }
+
+    @Test
+    public void testFillWithMonthStride() throws Exception {
+        testFill("select ts, sym, count() from x where i < 5 sample by 1M fill(prev) align to calendar", "ts, sym");
+    }
+
+    @Test
+    public void testNotEnoughFillValues() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table x (sym symbol, d double, l long, ts timestamp) timestamp(ts) partition by day");
+            assertExceptionNoLeakCheck(
+                    "select ts, sym, avg(d), sum(l) from x sample by 10m fill(1.5) align to calendar",
+                    0,
+                    "not enough values"
+            );
+        });
+    }
+
+    @Test
+    public void testOuterFilterOnKey() throws Exception {
+        // filter must not be pushed down into the group-by, otherwise
+        // the time range of the filled buckets would change
+        testFill("select * from (select ts, sym, avg(d) from x sample by 10m fill(prev) align to calendar) where sym = 'a'", "ts");
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "explain select ts, sym, avg(d), max(i) from x sample by 10m fill(null, 42) align to calendar",
+                            sink,
+                            "QUERY PLAN\n" +
+                                    "Fill\n" +
+                                    "  stride: '10m'\n" +
+                                    "  fill: [null,42]\n" +
+                                    "    Sort light\n" +
+                                    "      keys: [ts]\n" +
+                                    "        Async Group By workers: 4\n" +
+                                    "          keys: [ts,sym]\n" +
+                                    "          values: [avg(d),max(i)]\n" +
+                                    "          filter: null\n" +
+                                    "            DataFrame\n" +
+                                    "                Row forward scan\n" +
+                                    "                Frame forward scan on: x\n"
+                    );
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "explain select ts, sym, avg(d) from x sample by 10m fill(linear) align to calendar",
+                            sink,
+                            "QUERY PLAN\n" +
+                                    "Fill\n" +
+                                    "  stride: '10m'\n" +
+                                    "  fill: [linear]\n" +
+                                    "    Sort light\n" +
+                                    "      keys: [ts]\n" +
+                                    "        Async Group By workers: 4\n" +
+                                    "          keys: [ts,sym]\n" +
+                                    "          values: [avg(d)]\n" +
+                                    "          filter: null\n" +
+                                    "            DataFrame\n" +
+                                    "                Row forward scan\n" +
+                                    "                Frame forward scan on: x\n"
+                    );
+                    // haversine_dist_deg() interpolates the buckets around the gaps,
+                    // so it stays on the sample by factories
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "explain select ts, haversine_dist_deg(d, d, ts) from x sample by 10m fill(linear) align to calendar",
+                            sink,
+                            "QUERY PLAN\n" +
+                                    "SampleBy\n" +
+                                    "  fill: linear\n" +
+                                    "  keys: [ts]\n" +
+                                    "  values: [haversine_dist_deg(d,d,ts)]\n" +
+                                    "    DataFrame\n" +
+                                    "        Row forward scan\n" +
+                                    "        Frame forward scan on: x\n"
+                    );
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testRepeatedExecution() throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    final String query = "select ts, avg(d), last(sym) from x sample by 10m fill(prev) align to calendar";
+                    final StringSink expected = new StringSink();
+                    final StringSink actual = new StringSink();
+                    setProperty(PropertyKey.CAIRO_SQL_PARALLEL_SAMPLE_BY_FILL_ENABLED, "false");
+                    printSql(compiler, sqlExecutionContext, query, expected);
+                    setProperty(PropertyKey.CAIRO_SQL_PARALLEL_SAMPLE_BY_FILL_ENABLED, "true");
+                    try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                        for (int i = 0; i < 3; i++) {
+                            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                                for (int j = 0; j < 2; j++) {
+                                    actual.clear();
+                                    CursorPrinter.println(cursor, factory.getMetadata(), actual, true, false);
+                                    TestUtils.assertEquals(expected, actual);
+                                    cursor.toTop();
+                                }
+                            }
+                        }
+                    }
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testTimestampAliased() throws Exception {
+        testFill("select ts k, sym, sum(l) from x sample by 10m fill(prev) align to calendar", "k, sym");
+    }
+
+    @Test
+    public void testTimestampNotSelected() throws Exception {
+        testFill("select sym, sum(l), min(d) from x sample by 10m fill(null) align to calendar", null);
+    }
+
+    private static void createTable(CairoEngine engine, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        // sparse timestamps to leave plenty of buckets empty
+        engine.ddl(
+                "create table x as (" +
+                        "select rnd_symbol('a','b','c',null) sym, rnd_int(0, 100, 2) i, rnd_double(2) d, rnd_long(0, 1000, 2) l," +
+                        " timestamp_sequence(0, 1020000000) ts" +
+                        " from long_sequence(" + ROW_COUNT + ")" +
+                        ") timestamp(ts) partition by day",
+                sqlExecutionContext
+        );
+    }
+
+    private static void printSql(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext, String sql, StringSink sink) throws SqlException {
+        sink.clear();
+        try (
+                RecordCursorFactory factory = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            CursorPrinter.println(cursor, factory.getMetadata(), sink, true, false);
+        }
+    }
+
+    private void testFill(String query, String orderBy) throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    // keys within a bucket may come in a different order,
+                    // so the results are compared in a fixed order
+                    final String sql = orderBy != null ? "select * from (" + query + ") order by " + orderBy : query;
+                    final StringSink expected = new StringSink();
+                    final StringSink actual = new StringSink();
+                    setProperty(PropertyKey.CAIRO_SQL_PARALLEL_SAMPLE_BY_FILL_ENABLED, "false");
+                    printSql(compiler, sqlExecutionContext, sql, expected);
+                    setProperty(PropertyKey.CAIRO_SQL_PARALLEL_SAMPLE_BY_FILL_ENABLED, "true");
+                    printSql(compiler, sqlExecutionContext, sql, actual);
+                    TestUtils.assertEquals(expected, actual);
+
+                    printSql(compiler, sqlExecutionContext, "explain " + query, actual);
+                    TestUtils.assertContains(actual, "Fill\n");
+                },
+                configuration,
+                LOG
+        );
+    }
+}
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CursorPrinter;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelWindowFunctionTest extends AbstractCairoTest {
+    private static final int ROW_COUNT = 10_000;
+
+    @Override
+    @Before
+    public void setUp() {
+        // small queue to make the owner thread steal some of the shards
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_MERGE_QUEUE_CAPACITY, 2);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD, 1);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WINDOW_ENABLED, "true");
+        super.setUp();
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    engine.ddl("create table x (i int, d double, ts timestamp) timestamp(ts) partition by day", sqlExecutionContext);
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "select i, avg(d) over (partition by i) from x",
+                            sink,
+                            "i\tavg\n"
+                    );
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testLagLeadOrderedByNonTimestamp() throws Exception {
+        testWindow(
+                "select i, l, lag(d) over (partition by i order by l), lead(d, 2, 0) over (partition by i order by l) from x"
+        );
+    }
+
+    @Test
+    public void testPartitionByMultipleColumns() throws Exception {
+        testWindow(
+                "select i, s, d, sum(d) over (partition by i, s), count(*) over (partition by i, s) from x"
+        );
+    }
+
+    @Test
+    public void testPartitionBySymbolOrderedByNonTimestamp() throws Exception {
+        testWindow(
+                "select s, l, row_number() over (partition by s order by l desc), rank() over (partition by s order by l desc) from x"
+        );
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "explain select i, avg(d) over (partition by i) from x",
+                            sink,
+                            "QUERY PLAN\n" +
+                                    "CachedWindow workers: 4\n" +
+                                    "  unorderedFunctions: [avg(d) over (partition by [i])]\n" +
+                                    "    DataFrame\n" +
+                                    "        Row forward scan\n" +
+                                    "        Frame forward scan on: x\n"
+                    );
+                    // string columns can't be read by parallel shards
+                    TestUtils.assertSql(
+                            compiler,
+                            sqlExecutionContext,
+                            "explain select i, first_value(str) over (partition by i order by l) from x",
+                            sink,
+                            "QUERY PLAN\n" +
+                                    "CachedWindow\n" +
+                                    "  orderedFunctions: [[l] => [first_value(str) over (partition by [i] rows between unbounded preceding and current row )]]\n" +
+                                    "    DataFrame\n" +
+                                    "        Row forward scan\n" +
+                                    "        Frame forward scan on: x\n"
+                    );
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testRepeatedExecution() throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    final StringSink expected = new StringSink();
+                    final StringSink actual = new StringSink();
+                    final String query = "select i, d, avg(d) over (partition by i), max(d) over (partition by i order by l) from x";
+                    node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WINDOW_ENABLED, "false");
+                    TestUtils.printSql(engine, sqlExecutionContext, query, expected);
+                    node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WINDOW_ENABLED, "true");
+                    try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                        for (int i = 0; i < 3; i++) {
+                            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                                for (int j = 0; j < 2; j++) {
+                                    actual.clear();
+                                    CursorPrinter.println(cursor, factory.getMetadata(), actual, true, false);
+                                    TestUtils.assertEquals(expected, actual);
+                                    cursor.toTop();
+                                }
+                            }
+                        }
+                    }
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testRowsFrameOrderedByTimestamp() throws Exception {
+        testWindow(
+                "select i, ts, d, " +
+                        "sum(d) over (partition by i order by ts rows between 3 preceding and current row), " +
+                        "max(d) over (partition by i order by l) " +
+                        "from x"
+        );
+    }
+
+    @Test
+    public void testUnorderedTwoPassFunctions() throws Exception {
+        testWindow(
+                "select i, d, avg(d) over (partition by i), sum(l) over (partition by i), count(d) over (partition by i) from x"
+        );
+    }
+
+    private static void createTable(CairoEngine engine, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        engine.ddl(
+                "create table x as (" +
+                        "select rnd_int(0, 200, 2) i, rnd_long(0, 1000, 2) l, rnd_double(2) d, rnd_symbol('a','b','c',null) s, " +
+                        "rnd_str(3, 5, 2) str, timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(" + ROW_COUNT + ")" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private void testWindow(String query) throws Exception {
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(pool, (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+
+                    // Run with single-threaded window functions.
+                    node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WINDOW_ENABLED, "false");
+                    TestUtils.printSql(engine, sqlExecutionContext, query, sink);
+
+                    // Run with parallel window functions.
+                    node1.setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WINDOW_ENABLED, "true");
+                    final StringSink sinkB = new StringSink();
+                    TestUtils.printSql(engine, sqlExecutionContext, query, sinkB);
+
+                    TestUtils.assertEquals(sink, sinkB);
+
+                    // make sure the query was evaluated in parallel
+                    TestUtils.printSql(engine, sqlExecutionContext, "explain " + query, sinkB);
+                    TestUtils.assertContains(sinkB, "CachedWindow workers: 4");
+                },
+                configuration,
+                LOG
+        );
+    }
+}
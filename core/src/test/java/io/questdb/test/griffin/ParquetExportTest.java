@@ -0,0 +1,201 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.parquet.ParquetWriter;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+public class ParquetExportTest extends AbstractCairoTest {
+
+    @BeforeClass
+    public static void setUpStatic() throws Exception {
+        inputRoot = TestUtils.unchecked(() -> temp.newFolder("parquet" + System.nanoTime()).getAbsolutePath());
+        AbstractCairoTest.setUpStatic();
+    }
+
+    @Test
+    public void testCopyToParquet() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "file\trows\n" +
+                            "x.parquet\t72\n",
+                    "copy x to 'x.parquet'"
+            );
+            assertParquetFile(new File(inputRoot, "x.parquet"));
+        });
+    }
+
+    @Test
+    public void testCopyToParquetEmptyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table y (i int, ts timestamp) timestamp(ts) partition by day");
+            assertSql(
+                    "file\trows\n" +
+                            "y.parquet\t0\n",
+                    "copy y to 'y.parquet'"
+            );
+            assertParquetFile(new File(inputRoot, "y.parquet"));
+        });
+    }
+
+    @Test
+    public void testCopyToParquetFileNameWithDots() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertExceptionNoLeakCheck("copy x to '../x.parquet'", 10, "'.' is not allowed");
+        });
+    }
+
+    @Test
+    public void testCopyToParquetOverwritesFile() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            insert("insert into x (i, ts) select x::int, '2024-01-04' from long_sequence(1000)");
+            assertSql("file\trows\nx.parquet\t1072\n", "copy x to 'x.parquet'");
+            final long largeSize = new File(inputRoot, "x.parquet").length();
+
+            ddl("alter table x drop partition list '2024-01-04'");
+            assertSql("file\trows\nx.parquet\t72\n", "copy x to 'x.parquet'");
+            final File file = new File(inputRoot, "x.parquet");
+            assertParquetFile(file);
+            Assert.assertTrue(file.length() < largeSize);
+        });
+    }
+
+    @Test
+    public void testCopyToParquetSyntax() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertExceptionNoLeakCheck("copy x to", 9, "Expression expected");
+            assertExceptionNoLeakCheck("copy x to 'x.parquet' with header true", 22, "unexpected token [with]");
+            assertExceptionNoLeakCheck("copy x into 'x.parquet'", 7, "'from' or 'to' expected");
+        });
+    }
+
+    @Test
+    public void testCopyToParquetTableDoesNotExist() throws Exception {
+        assertMemoryLeak(() -> assertExceptionNoLeakCheck("copy y to 'y.parquet'", 5, "table does not exist [table=y]"));
+    }
+
+    @Test
+    public void testCopyToParquetUnsupportedType() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table y as (select rnd_geohash(10) g, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts)");
+            assertExceptionNoLeakCheck(
+                    "copy y to 'y.parquet'",
+                    5,
+                    "column type is not supported by parquet [column=g, type=GEOHASH(2c)]"
+            );
+        });
+    }
+
+    @Test
+    public void testSmallDataPages() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (
+                    TableReader reader = engine.getReader("x");
+                    ParquetWriter writer = new ParquetWriter(configuration.getFilesFacade(), 64);
+                    Path path = new Path()
+            ) {
+                path.of(inputRoot).concat("small.parquet").$();
+                writer.of(path, reader);
+                long rows = 0;
+                for (int i = 0, n = reader.getPartitionCount(); i < n; i++) {
+                    rows += writer.writePartition(i);
+                }
+                Assert.assertEquals(72, rows);
+                Assert.assertEquals(72, writer.finish());
+            }
+            assertParquetFile(new File(inputRoot, "small.parquet"));
+        });
+    }
+
+    @Test
+    public void testUnsupportedTypeValidation() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table y (a ipv4, ts timestamp) timestamp(ts)");
+            try (TableReader reader = engine.getReader("y")) {
+                ParquetWriter.validate(reader.getMetadata());
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "column type is not supported by parquet [column=a, type=IPv4]");
+            }
+        });
+    }
+
+    private static void assertParquetFile(File file) throws IOException {
+        Assert.assertNotNull(file);
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        Assert.assertTrue(bytes.length > 12);
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals("PAR1", new String(bytes, 0, 4));
+        Assert.assertEquals("PAR1", new String(bytes, bytes.length - 4, 4));
+        final int footerSize = buffer.getInt(bytes.length - 8);
+        Assert.assertTrue(footerSize > 0 && footerSize <= bytes.length - 12);
+    }
+
+    private static void createTable() throws Exception {
+        ddl(
+                "create table x as (" +
+                        "select" +
+                        " rnd_boolean() b," +
+                        " rnd_byte() bt," +
+                        " rnd_short() sh," +
+                        " rnd_char() ch," +
+                        " rnd_int(0, 1000, 2) i," +
+                        " rnd_long(0, 1000, 2) l," +
+                        " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) dt," +
+                        " rnd_float(2) f," +
+                        " rnd_double(2) d," +
+                        " rnd_symbol('a', 'b', 'c', null) sym," +
+                        " rnd_str('foo', 'bar', 'ляля', null) s," +
+                        " rnd_varchar('x', 'yy', 'ззз', null) v," +
+                        " rnd_bin(2, 4, 1) bin," +
+                        " rnd_uuid4() u," +
+                        " timestamp_sequence('2024-01-01', 3600000000) ts" +
+                        " from long_sequence(60)" +
+                        ") timestamp(ts) partition by day"
+        );
+        // rows of the last partition have a column top in the new column
+        ddl("alter table x add column extra long");
+        insert("insert into x (i, extra, ts) select x::int, x, '2024-01-03T12' from long_sequence(12)");
+    }
+}
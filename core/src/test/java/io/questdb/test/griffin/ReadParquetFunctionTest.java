@@ -0,0 +1,255 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.SqlJitMode;
+import io.questdb.cairo.parquet.ParquetReader;
+import io.questdb.griffin.engine.functions.constants.IntConstant;
+import io.questdb.griffin.engine.functions.constants.TimestampConstant;
+import io.questdb.griffin.engine.table.ParquetRowGroupFilter;
+import io.questdb.std.Numbers;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+public class ReadParquetFunctionTest extends AbstractCairoTest {
+    private static final String TABLE_COLUMNS = "b, bt, sh, ch, i, l, dt, f, d, sym::varchar sym, s::varchar s, v, bin, u, ts, extra";
+
+    @BeforeClass
+    public static void setUpStatic() throws Exception {
+        inputRoot = TestUtils.unchecked(() -> temp.newFolder("parquet" + System.nanoTime()).getAbsolutePath());
+        AbstractCairoTest.setUpStatic();
+    }
+
+    @Test
+    public void testBindVariableRowGroupFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createParquetFile("x1.parquet");
+            bindVariableService.clear();
+            bindVariableService.setTimestamp(0, 1704196800000000L); // 2024-01-02T12
+            assertSqlCursors(
+                    "select i, ts from x where ts > '2024-01-02T12'",
+                    "select i, ts from read_parquet('x1.parquet') where ts > $1"
+            );
+            bindVariableService.setTimestamp(0, Numbers.LONG_NULL);
+            assertSql("count\n0\n", "select count() from read_parquet('x1.parquet') where ts > $1");
+        });
+    }
+
+    @Test
+    public void testColumnPruning() throws Exception {
+        assertMemoryLeak(() -> {
+            createParquetFile("x2.parquet");
+            assertPlanNoLeakCheck(
+                    "select l, i from read_parquet('x2.parquet') where d > 0.5",
+                    "SelectedRecord\n" +
+                            "    Async JIT Filter workers: 1\n" +
+                            "      filter: 0.5<d\n" +
+                            "        read_parquet file: x2.parquet\n" +
+                            "          columns: l,i,d\n" +
+                            "          row group filter: d>0.5\n"
+            );
+            assertSqlCursors(
+                    "select l, i from x where d > 0.5",
+                    "select l, i from read_parquet('x2.parquet') where d > 0.5"
+            );
+        });
+    }
+
+    @Test
+    public void testFileNameMustBeConstant() throws Exception {
+        assertMemoryLeak(() -> assertExceptionNoLeakCheck(
+                "select * from read_parquet(rnd_str('a', 'b'))",
+                14,
+                "unexpected argument for function: read_parquet"
+        ));
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createParquetFile("x3.parquet");
+            final String filter = " where i > 500 and (v = 'yy' or l < 300)";
+            assertSqlCursors(
+                    "select " + TABLE_COLUMNS + " from x" + filter,
+                    "read_parquet('x3.parquet')" + filter
+            );
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+            try {
+                assertPlanNoLeakCheck(
+                        "read_parquet('x3.parquet') where i > 500",
+                        "Async Filter workers: 1\n" +
+                                "  filter: 500<i\n" +
+                                "    read_parquet file: x3.parquet\n" +
+                                "      columns: b,bt,sh,ch,i,l,dt,f,d,sym,s,v,bin,u,ts,extra\n" +
+                                "      row group filter: i>500\n"
+                );
+                assertSqlCursors(
+                        "select " + TABLE_COLUMNS + " from x" + filter,
+                        "read_parquet('x3.parquet')" + filter
+                );
+            } finally {
+                sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_ENABLED);
+            }
+        });
+    }
+
+    @Test
+    public void testMissingFile() throws Exception {
+        assertMemoryLeak(() -> assertExceptionNoLeakCheck(
+                "select * from read_parquet('missing.parquet')",
+                27,
+                "could not open"
+        ));
+    }
+
+    @Test
+    public void testNotParquetFile() throws Exception {
+        assertMemoryLeak(() -> {
+            try (FileOutputStream out = new FileOutputStream(new File(inputRoot, "text.parquet"))) {
+                out.write("hello, this is not a parquet file".getBytes());
+            }
+            assertExceptionNoLeakCheck(
+                    "select * from read_parquet('text.parquet')",
+                    27,
+                    "not a parquet file"
+            );
+        });
+    }
+
+    @Test
+    public void testPathTraversal() throws Exception {
+        assertMemoryLeak(() -> assertExceptionNoLeakCheck(
+                "select * from read_parquet('../x.parquet')",
+                27,
+                "'.' is not allowed"
+        ));
+    }
+
+    @Test
+    public void testRandomAccess() throws Exception {
+        assertMemoryLeak(() -> {
+            createParquetFile("x4.parquet");
+            assertSqlCursors(
+                    "select " + TABLE_COLUMNS + " from x order by l, ts",
+                    "read_parquet('x4.parquet') order by l, ts"
+            );
+        });
+    }
+
+    @Test
+    public void testReadAllTypes() throws Exception {
+        assertMemoryLeak(() -> {
+            createParquetFile("x5.parquet");
+            assertSqlCursors("select " + TABLE_COLUMNS + " from x", "read_parquet('x5.parquet')");
+        });
+    }
+
+    @Test
+    public void testRowGroupFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createParquetFile("x6.parquet");
+            assertPlanNoLeakCheck(
+                    "select i, ts from read_parquet('x6.parquet') where ts >= '2024-01-03' and 100 > i",
+                    "Async JIT Filter workers: 1\n" +
+                            "  filter: (ts>=1704240000000000 and i<100)\n" +
+                            "    read_parquet file: x6.parquet\n" +
+                            "      columns: i,ts\n" +
+                            "      row group filter: ts>='2024-01-03' and i<100\n"
+            );
+            assertSqlCursors(
+                    "select i, ts from x where ts >= '2024-01-03' and 100 > i",
+                    "select i, ts from read_parquet('x6.parquet') where ts >= '2024-01-03' and 100 > i"
+            );
+            // every row group is skipped
+            assertSql("count\n0\n", "select count() from read_parquet('x6.parquet') where l > 1000");
+            assertSql("count\n0\n", "select count() from read_parquet('x6.parquet') where ts < '2023-01-01'");
+        });
+    }
+
+    @Test
+    public void testRowGroupStatistics() throws Exception {
+        assertMemoryLeak(() -> {
+            createParquetFile("x7.parquet");
+            try (
+                    Path path = new Path();
+                    ParquetReader reader = new ParquetReader(configuration.getFilesFacade());
+                    ParquetRowGroupFilter filter = new ParquetRowGroupFilter()
+            ) {
+                reader.of(path.of(inputRoot).concat("x7.parquet").$());
+                Assert.assertEquals(3, reader.getRowGroupCount());
+                Assert.assertEquals("ts", reader.getColumnName(14));
+
+                // 2024-01-02T00:00
+                filter.add(14, "ts", ColumnType.TIMESTAMP, ParquetRowGroupFilter.OP_GE, new TimestampConstant(1704153600000000L));
+                filter.init(null, sqlExecutionContext);
+                Assert.assertTrue(filter.canSkip(reader, 0));
+                Assert.assertFalse(filter.canSkip(reader, 1));
+                Assert.assertFalse(filter.canSkip(reader, 2));
+
+                filter.add(4, "i", ColumnType.INT, ParquetRowGroupFilter.OP_LT, new IntConstant(0));
+                filter.init(null, sqlExecutionContext);
+                Assert.assertTrue(filter.canSkip(reader, 1));
+                Assert.assertTrue(filter.canSkip(reader, 2));
+            }
+        });
+    }
+
+    private void createParquetFile(String fileName) throws Exception {
+        ddl(
+                "create table x as (" +
+                        "select" +
+                        " rnd_boolean() b," +
+                        " rnd_byte() bt," +
+                        " rnd_short() sh," +
+                        " rnd_char() ch," +
+                        " rnd_int(0, 1000, 2) i," +
+                        " rnd_long(0, 1000, 2) l," +
+                        " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) dt," +
+                        " rnd_float(2) f," +
+                        " rnd_double(2) d," +
+                        " rnd_symbol('a', 'b', 'c', null) sym," +
+                        " rnd_str('foo', 'bar', 'ляля', null) s," +
+                        " rnd_varchar('x', 'yy', 'ззз', 'long enough to not be inlined', null) v," +
+                        " rnd_bin(2, 4, 1) bin," +
+                        " rnd_uuid4() u," +
+                        " timestamp_sequence('2024-01-01', 1800000000) ts" +
+                        " from long_sequence(120)" +
+                        ") timestamp(ts) partition by day"
+        );
+        // rows of the last partition have a column top in the new column
+        ddl("alter table x add column extra long");
+        insert("insert into x (i, extra, ts) select x::int, x, '2024-01-03T12' from long_sequence(12)");
+        assertSql("file\trows\n" + fileName + "\t132\n", "copy x to '" + fileName + "'");
+    }
+}
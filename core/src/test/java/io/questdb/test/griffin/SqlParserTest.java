@@ -2498,11 +2498,11 @@ public class SqlParserTest extends AbstractSqlParserTest {
                         "b BYTE, " +
                         "c CHAR, " +
                         "t TIMESTAMP), " +
-                        "INDEX (b) " + // INDEX is not supported for non-SYMBOL columns
+                        "INDEX (b) " + // INDEX is not supported for BYTE columns
                         "TIMESTAMP(t) " +
                         "PARTITION BY YEAR",
                 60,
-                "indexes are supported only for SYMBOL columns: b"
+                "indexes are supported only for SYMBOL, INT and LONG columns: b"
         );
     }
 
@@ -6305,7 +6305,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
     @Test
     public void testNonWindowFunctionInWindowContext() throws Exception {
         assertException(
-                "select max(price) over (partition by symbol) from trades",
+                "select ksum(price) over (partition by symbol) from trades",
                 "create table trades " +
                         "(" +
                         " price double," +
@@ -9495,7 +9495,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
     @Test
     public void testTooManyArgumentsInWindowFunction() throws Exception {
         assertException(
-                "select row_number(1,2,3) over (partition by symbol) from trades",
+                "select row_number(1,2,3,4) over (partition by symbol) from trades",
                 "create table trades " +
                         "(" +
                         " price double," +
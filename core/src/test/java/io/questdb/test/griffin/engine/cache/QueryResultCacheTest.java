@@ -0,0 +1,268 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine.cache;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.engine.cache.QueryResultCacheEntry;
+import io.questdb.griffin.engine.cache.QueryResultCacheMetrics;
+import io.questdb.griffin.engine.cache.QueryResultCacheRecordCursorFactory;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryResultCacheTest extends AbstractCairoTest {
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_RESULT_CACHE_CAPACITY, 1024 * 1024);
+        super.setUp();
+    }
+
+    @Test
+    public void testBindVariablesArePartOfKey() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String query = "select sym, sum(v) from x where v > $1 order by sym";
+
+            bindVariableService.clear();
+            bindVariableService.setLong(0, 5);
+            assertMiss("sym\tsum\na\t7\nb\t8\nc\t15\n", query);
+
+            bindVariableService.setLong(0, 7);
+            assertMiss("sym\tsum\nb\t8\nc\t9\n", query);
+
+            bindVariableService.setLong(0, 5);
+            assertHit("sym\tsum\na\t7\nb\t8\nc\t15\n", query);
+        });
+    }
+
+    @Test
+    public void testCommitInvalidatesEntry() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String query = "select sym, count() from x order by sym";
+            final String expected = "sym\tcount\n" +
+                    "a\t3\n" +
+                    "b\t3\n" +
+                    "c\t3\n";
+            assertMiss(expected, query);
+            assertHit(expected, query);
+            assertHit(expected, query);
+
+            compile("insert into x values ('d', 10, '1970-01-01T10:00:00.000000Z')");
+            final String expectedAfterInsert = expected + "d\t1\n";
+            assertMiss(expectedAfterInsert, query);
+            assertHit(expectedAfterInsert, query);
+        });
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        setProperty(PropertyKey.CAIRO_SQL_RESULT_CACHE_CAPACITY, 2048);
+        assertMemoryLeak(() -> {
+            compile("create table y as (select x, rnd_str(100, 100, 0) s from long_sequence(10))");
+            assertMiss("count\n10\n", "select count() from y");
+            // each of the two results below takes more than half of the capacity
+            printSql("select s from y limit 5");
+            Assert.assertEquals(2, engine.getQueryResultCache().size());
+            printSql("select s from y limit 5, 10");
+            Assert.assertEquals(1, engine.getQueryResultCache().size());
+            // least recently used entries were evicted
+            assertMiss("count\n10\n", "select count() from y");
+        });
+    }
+
+    @Test
+    public void testLargeResultIsNotCached() throws Exception {
+        setProperty(PropertyKey.CAIRO_SQL_RESULT_CACHE_MAX_ENTRY_SIZE, 64);
+        assertMemoryLeak(() -> {
+            createTable();
+            final String query = "select * from x";
+            final String expected = "sym\tv\tts\n" +
+                    "a\t1\t1970-01-01T00:00:00.000000Z\n" +
+                    "b\t2\t1970-01-01T01:00:00.000000Z\n" +
+                    "c\t3\t1970-01-01T02:00:00.000000Z\n" +
+                    "a\t4\t1970-01-01T03:00:00.000000Z\n" +
+                    "b\t5\t1970-01-01T04:00:00.000000Z\n" +
+                    "c\t6\t1970-01-01T05:00:00.000000Z\n" +
+                    "a\t7\t1970-01-01T06:00:00.000000Z\n" +
+                    "b\t8\t1970-01-01T07:00:00.000000Z\n" +
+                    "c\t9\t1970-01-01T08:00:00.000000Z\n";
+            assertMiss(expected, query);
+            assertMiss(expected, query);
+            // only the marker of the oversized result is kept
+            Assert.assertEquals(1, engine.getQueryResultCache().size());
+            try (QueryResultCacheEntry entry = engine.getQueryResultCache().poll(query)) {
+                Assert.assertNotNull(entry);
+                Assert.assertTrue(entry.isOversized());
+            }
+
+            // the marker goes stale with the table
+            compile("truncate table x");
+            assertMiss("sym\tv\tts\n", query);
+            assertHit("sym\tv\tts\n", query);
+        });
+    }
+
+    @Test
+    public void testNonDeterministicQueryIsNotCached() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertNotCached("select sym, rnd_int() from x");
+            assertNotCached("select sym, v from x where ts < now()");
+            assertNotCached("select * from long_sequence(10)");
+        });
+    }
+
+    @Test
+    public void testPartiallyReadResultIsNotCached() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String query = "select sym, v from x";
+            try (RecordCursorFactory factory = select(query)) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    Assert.assertTrue(cursor.hasNext());
+                    Assert.assertTrue(cursor.hasNext());
+                }
+                Assert.assertEquals(0, engine.getQueryResultCache().size());
+
+                // rewinding before the end drops the copy as well
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    Assert.assertTrue(cursor.hasNext());
+                    cursor.toTop();
+                    long rows = 0;
+                    while (cursor.hasNext()) {
+                        rows++;
+                    }
+                    Assert.assertEquals(9, rows);
+                }
+                Assert.assertEquals(0, engine.getQueryResultCache().size());
+            }
+            final String expected = "sym\tv\n" +
+                    "a\t1\n" +
+                    "b\t2\n" +
+                    "c\t3\n" +
+                    "a\t4\n" +
+                    "b\t5\n" +
+                    "c\t6\n" +
+                    "a\t7\n" +
+                    "b\t8\n" +
+                    "c\t9\n";
+            assertMiss(expected, query);
+            assertHit(expected, query);
+        });
+    }
+
+    @Test
+    public void testSymbolTablesAreServedFromCache() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compile("insert into x values (null, 10, '1970-01-01T10:00:00.000000Z')");
+            final String query = "select sym, v from x where v > 4";
+            final String expected = "b:5,c:6,a:7,b:8,c:9,null:10,";
+            try (RecordCursorFactory factory = select(query)) {
+                Assert.assertTrue(factory instanceof QueryResultCacheRecordCursorFactory);
+                Assert.assertTrue(factory.getMetadata().isSymbolTableStatic(0));
+                // miss, then hit
+                Assert.assertEquals(expected, readSymbolsByKey(factory));
+                final long hits = AbstractCairoTest.metrics.queryResultCache().hitCounter().getValue();
+                Assert.assertEquals(expected, readSymbolsByKey(factory));
+                Assert.assertEquals(hits + 1, AbstractCairoTest.metrics.queryResultCache().hitCounter().getValue());
+            }
+            // the standard symbol API checks, including concurrent access to symbol table copies
+            assertQueryNoLeakCheck("sym\tv\nb\t5\nc\t6\na\t7\nb\t8\nc\t9\n\t10\n", query, null, null, true, true);
+        });
+    }
+
+    @Test
+    public void testSymbolsAreServedFromCache() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String query = "select sym, v from x where sym = 'b'";
+            final String expected = "sym\tv\n" +
+                    "b\t2\n" +
+                    "b\t5\n" +
+                    "b\t8\n";
+            assertMiss(expected, query);
+            assertHit(expected, query);
+        });
+    }
+
+    private static void assertNotCached(String query) throws Exception {
+        try (RecordCursorFactory factory = select(query)) {
+            Assert.assertFalse(factory instanceof QueryResultCacheRecordCursorFactory);
+        }
+    }
+
+    private static void createTable() throws Exception {
+        compile("create table x (sym symbol, v long, ts timestamp) timestamp(ts) partition by day");
+        compile(
+                "insert into x select case when x % 3 = 1 then 'a' when x % 3 = 2 then 'b' else 'c' end, x, ((x - 1) * 3600000000L)::timestamp " +
+                        "from long_sequence(9)"
+        );
+    }
+
+    private static String readSymbolsByKey(RecordCursorFactory factory) throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            final SymbolTable symbolTable = cursor.getSymbolTable(0);
+            final SymbolTable clone = cursor.newSymbolTable(0);
+            final Record record = cursor.getRecord();
+            while (cursor.hasNext()) {
+                final int key = record.getInt(0);
+                TestUtils.assertEquals(symbolTable.valueOf(key), clone.valueBOf(key));
+                TestUtils.assertEquals(symbolTable.valueOf(key), record.getSymA(0));
+                sb.append(symbolTable.valueOf(key)).append(':').append(record.getLong(1)).append(',');
+            }
+        }
+        return sb.toString();
+    }
+
+    private void assertHit(String expected, String query) throws Exception {
+        final QueryResultCacheMetrics metrics = AbstractCairoTest.metrics.queryResultCache();
+        final long hits = metrics.hitCounter().getValue();
+        final long misses = metrics.missCounter().getValue();
+        assertSql(expected, query);
+        Assert.assertEquals(hits + 1, metrics.hitCounter().getValue());
+        Assert.assertEquals(misses, metrics.missCounter().getValue());
+    }
+
+    private void assertMiss(String expected, String query) throws Exception {
+        final QueryResultCacheMetrics metrics = AbstractCairoTest.metrics.queryResultCache();
+        final long hits = metrics.hitCounter().getValue();
+        final long misses = metrics.missCounter().getValue();
+        assertSql(expected, query);
+        Assert.assertEquals(hits, metrics.hitCounter().getValue());
+        Assert.assertEquals(misses + 1, metrics.missCounter().getValue());
+    }
+}
@@ -48,6 +48,14 @@ public class InVarcharFunctionFactoryTest extends AbstractFunctionFactoryTest {
         call(utf8("xp"), utf8("aq"), null).andAssert(false);
     }
 
+    @Test
+    public void testSharedPrefix() throws SqlException {
+        call(utf8("abcdefgh2"), utf8("abcdefgh1"), utf8("abcdefgh2")).andAssert(true);
+        call(utf8("abcdefgh3"), utf8("abcdefgh1"), utf8("abcdef")).andAssert(false);
+        call(utf8("abcdef"), utf8("abcdefgh1"), utf8("abcdef")).andAssert(true);
+        call(utf8("abc"), utf8("abcdefgh1"), utf8("abc\u0000")).andAssert(false);
+    }
+
     @Test
     public void testTwoArgs() throws SqlException {
         call(utf8("xy"), utf8("xy"), utf8("yz")).andAssert(true);
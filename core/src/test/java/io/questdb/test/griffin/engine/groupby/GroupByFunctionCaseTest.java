@@ -207,7 +207,7 @@ public class GroupByFunctionCaseTest extends AbstractCairoTest {
                             "  keys: [candle_st]\n" +
                             "    VirtualRecord\n" +
                             "      functions: [candle_st,venue,num_ticks,quote_volume,quote_volume/SUM]\n" +
-                            "        Async Group By workers: 1\n" +
+                            "        Async JIT Group By workers: 1\n" +
                             "          keys: [candle_st,venue]\n" +
                             "          values: [count(*),sum(qty*price),sum(qty)]\n" +
                             "          filter: (instrument_key ~ ETH.USD.S..*? and venue in [CBS,FUS,LMX,BTS])\n" +
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin.engine.groupby;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ListColumnFilter;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.columns.DoubleColumn;
+import io.questdb.griffin.engine.functions.columns.IntColumn;
+import io.questdb.griffin.engine.functions.groupby.CountLongConstGroupByFunction;
+import io.questdb.griffin.engine.functions.groupby.FirstDoubleGroupByFunction;
+import io.questdb.griffin.engine.functions.groupby.SumDoubleGroupByFunction;
+import io.questdb.griffin.engine.groupby.GroupByFusedAggregator;
+import io.questdb.std.ObjList;
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GroupByFusedAggregatorTest extends AbstractCairoTest {
+    private static final String AGGREGATES = "count(), count(i) ci, count(l) cl, count(d) cd, sum(i) si, sum(l) sl, sum(d) sd, avg(d) ad, " +
+            "min(i) mini, max(i) maxi, min(l) minl, max(l) maxl, min(d) mind, max(d) maxd";
+    // arithmetic on the arguments keeps the fused loop out of the query
+    private static final String UNFUSED_AGGREGATES = "count(), count(i + 0) ci, count(l + 0) cl, count(d + 0) cd, sum(i + 0) si, sum(l + 0) sl, sum(d + 0) sd, avg(d + 0) ad, " +
+            "min(i + 0) mini, max(i + 0) maxi, min(l + 0) minl, max(l + 0) maxl, min(d + 0) mind, max(d + 0) maxd";
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, 100);
+        super.setUp();
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            ddl("alter table x add column k2 int");
+            ddl("alter table x add column d2 double");
+            insert(
+                    "insert into x select rnd_int(0, 5, 2), rnd_long(0, 1000, 2), rnd_double(2), rnd_symbol('a','b',null), " +
+                            "timestamp_sequence('2024-01-03', 60 * 1000000L), rnd_int(0, 3, 2), rnd_double(2) from long_sequence(500)"
+            );
+            assertSqlCursors(
+                    "select k2 + 0 k2, count(), sum(d2 + 0) sd, min(d2 + 0) mind from x where l > 10 order by k2",
+                    "select k2, count(), sum(d2) sd, min(d2) mind from x where l > 10 order by k2"
+            );
+        });
+    }
+
+    @Test
+    public void testFilteredIntKey() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSqlCursors(
+                    "select i + 0 i, " + UNFUSED_AGGREGATES + " from x where l > 100 and d < 0.7 order by i",
+                    "select i, " + AGGREGATES + " from x where l > 100 and d < 0.7 order by i"
+            );
+        });
+    }
+
+    @Test
+    public void testLongKey() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSqlCursors(
+                    "select l + 0 l, " + UNFUSED_AGGREGATES + " from x order by l",
+                    "select l, " + AGGREGATES + " from x order by l"
+            );
+            assertSqlCursors(
+                    "select l + 0 l, " + UNFUSED_AGGREGATES + " from x where s = 'a' order by l",
+                    "select l, " + AGGREGATES + " from x where s = 'a' order by l"
+            );
+        });
+    }
+
+    @Test
+    public void testNewInstance() {
+        final ArrayColumnTypes columnTypes = new ArrayColumnTypes();
+        columnTypes.add(ColumnType.INT);
+        columnTypes.add(ColumnType.DOUBLE);
+        columnTypes.add(ColumnType.STRING);
+        final ListColumnFilter listColumnFilter = new ListColumnFilter();
+        listColumnFilter.add(1);
+
+        final ObjList<GroupByFunction> functions = new ObjList<>();
+        functions.add(new CountLongConstGroupByFunction());
+        functions.add(new SumDoubleGroupByFunction(DoubleColumn.newInstance(1)));
+        Assert.assertNotNull(GroupByFusedAggregator.newInstance(columnTypes, listColumnFilter, null, functions));
+
+        // key functions
+        final ObjList<Function> keyFunctions = new ObjList<>();
+        keyFunctions.add(IntColumn.newInstance(0));
+        Assert.assertNull(GroupByFusedAggregator.newInstance(columnTypes, listColumnFilter, keyFunctions, functions));
+
+        // unsupported key type
+        listColumnFilter.setQuick(0, 3);
+        Assert.assertNull(GroupByFusedAggregator.newInstance(columnTypes, listColumnFilter, null, functions));
+        listColumnFilter.setQuick(0, 1);
+
+        // unsupported function
+        functions.add(new FirstDoubleGroupByFunction(DoubleColumn.newInstance(1)));
+        Assert.assertNull(GroupByFusedAggregator.newInstance(columnTypes, listColumnFilter, null, functions));
+    }
+
+    @Test
+    public void testSymbolKey() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSqlCursors(
+                    "select s, " + UNFUSED_AGGREGATES + " from x where i != 3 order by s",
+                    "select s, " + AGGREGATES + " from x where i != 3 order by s"
+            );
+        });
+    }
+
+    private void createTable() throws Exception {
+        ddl(
+                "create table x as (" +
+                        "select rnd_int(0, 20, 2) i, rnd_long(0, 1000, 2) l, rnd_double(2) d, rnd_symbol('a','b','c',null) s," +
+                        " timestamp_sequence('2024-01-01', 60 * 1000000L) ts" +
+                        " from long_sequence(2000)" +
+                        ") timestamp(ts) partition by day"
+        );
+    }
+}
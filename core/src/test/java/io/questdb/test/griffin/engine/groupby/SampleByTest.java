@@ -3151,7 +3151,7 @@ public class SampleByTest extends AbstractCairoTest {
                     "SelectedRecord\n" +
                             "    Sort light\n" +
                             "      keys: [ts1]\n" +
-                            "        Async Group By workers: 1\n" +
+                            "        Async JIT Group By workers: 1\n" +
                             "          keys: [tstmp,sym,ts1]\n" +
                             "          values: [first(val),avg(val),last(val),max(val)]\n" +
                             "          filter: (ts2>=1669852800000000 and sym='B' and 0<length(sym)*ts2::long)\n" +
@@ -40,12 +40,14 @@ import io.questdb.griffin.engine.table.FilteredRecordCursorFactory;
 import io.questdb.griffin.engine.window.WindowContext;
 import io.questdb.jit.JitUtil;
 import io.questdb.mp.*;
+import io.questdb.std.Files;
 import io.questdb.std.Misc;
 import io.questdb.std.Numbers;
 import io.questdb.std.Rnd;
 import io.questdb.std.str.StringSink;
 import io.questdb.test.AbstractCairoTest;
 import io.questdb.test.griffin.CustomisableRunnable;
+import io.questdb.test.std.TestFilesFacadeImpl;
 import io.questdb.test.mp.TestWorkerPool;
 import io.questdb.test.tools.TestUtils;
 import org.jetbrains.annotations.NotNull;
@@ -307,6 +309,65 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractCairoTest {
         testFullQueue("x where a > 0.42 limit 3");
     }
 
+    @Test
+    public void testIOURingReadAhead() throws Exception {
+        Assume.assumeTrue(configuration.getIOURingFacade().isAvailable());
+        final AtomicInteger willNeedCount = new AtomicInteger();
+        final AtomicInteger coldCount = new AtomicInteger();
+        ff = new TestFilesFacadeImpl() {
+            @Override
+            public int fadvise(int fd, long offset, long len, int advise) {
+                if (advise == Files.POSIX_FADV_WILLNEED) {
+                    willNeedCount.incrementAndGet();
+                }
+                return super.fadvise(fd, offset, len, advise);
+            }
+
+            @Override
+            public int madvise(long address, long len, int advise) {
+                if (advise == Files.MADV_COLD) {
+                    coldCount.incrementAndGet();
+                }
+                return super.madvise(address, len, advise);
+            }
+        };
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+            compiler.compile("create table x as (select rnd_double() a, rnd_varchar(1, 40, 1) v, rnd_str(5, 16, 2) s, timestamp_sequence(20000000, 100000) t from long_sequence(500000)) timestamp(t) partition by hour", sqlExecutionContext);
+            ddl("alter table x add column l long", sqlExecutionContext);
+            compiler.compile("insert into x select rnd_double(), rnd_varchar(1, 40, 1), rnd_str(5, 16, 2), timestamp_sequence(50020000000, 100000), rnd_long() from long_sequence(100000)", sqlExecutionContext);
+
+            final String[] queries = {
+                    "select count(), min(a), max(a), sum(length(v)), sum(length(s)), sum(l) from (x where a > 0.1)",
+                    "select * from x where a > 0.345747032 and a < 0.34575",
+                    "select * from x where a > 0.42 limit 3",
+                    "select * from x where a > 0.42 order by t desc limit 3"
+            };
+            final StringSink expected = new StringSink();
+            for (String sql : queries) {
+                node1.setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_READ_AHEAD_ENABLED, false);
+                TestUtils.printSql(compiler, sqlExecutionContext, sql, expected);
+
+                node1.setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_READ_AHEAD_ENABLED, true);
+                node1.setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_READ_AHEAD_FRAMES, 2);
+                node1.setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_IOURING_CAPACITY, 32);
+                TestUtils.assertSql(compiler, sqlExecutionContext, sql, sink, expected);
+
+                // frames that need more ops than the ring holds are advised with syscalls
+                node1.setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_IOURING_CAPACITY, 1);
+                TestUtils.assertSql(compiler, sqlExecutionContext, sql, sink, expected);
+            }
+            Assert.assertTrue(willNeedCount.get() > 0);
+            Assert.assertTrue(coldCount.get() > 0);
+
+            // frames fit into the ring, so they are advised with io_uring ops rather than syscalls
+            final int willNeedBefore = willNeedCount.get();
+            node1.setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_IOURING_CAPACITY, 32);
+            TestUtils.printSql(compiler, sqlExecutionContext, queries[0], expected);
+            Assert.assertEquals(willNeedBefore, willNeedCount.get());
+        });
+    }
+
     @Test
     public void testJitFullFwdCursorBwdSwitch() throws Exception {
         assertQuery("a\tb\tk\n" +
@@ -466,6 +527,104 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractCairoTest {
         testNoLimit(true, SqlJitMode.JIT_MODE_ENABLED, AsyncJitFilteredRecordCursorFactory.class);
     }
 
+    @Test
+    public void testPageFrameReadAhead() throws Exception {
+        final AtomicInteger willNeedCount = new AtomicInteger();
+        final AtomicInteger coldCount = new AtomicInteger();
+        ff = new TestFilesFacadeImpl() {
+            @Override
+            public int fadvise(int fd, long offset, long len, int advise) {
+                if (advise == Files.POSIX_FADV_WILLNEED) {
+                    willNeedCount.incrementAndGet();
+                }
+                return super.fadvise(fd, offset, len, advise);
+            }
+
+            @Override
+            public int madvise(long address, long len, int advise) {
+                if (advise == Files.MADV_COLD) {
+                    coldCount.incrementAndGet();
+                }
+                return super.madvise(address, len, advise);
+            }
+        };
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            // advice is sent with syscalls rather than io_uring ops
+            node1.setProperty(PropertyKey.CAIRO_IO_URING_ENABLED, false);
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+            compiler.compile("create table x as (select rnd_double() a, rnd_varchar(1, 40, 1) v, rnd_str(5, 16, 2) s, timestamp_sequence(20000000, 100000) t from long_sequence(500000)) timestamp(t) partition by hour", sqlExecutionContext);
+            ddl("alter table x add column l long", sqlExecutionContext);
+            compiler.compile("insert into x select rnd_double(), rnd_varchar(1, 40, 1), rnd_str(5, 16, 2), timestamp_sequence(50020000000, 100000), rnd_long() from long_sequence(100000)", sqlExecutionContext);
+
+            final String[] queries = {
+                    "select count(), min(a), max(a), sum(length(v)), sum(length(s)), sum(l) from (x where a > 0.1)",
+                    "select * from x where a > 0.345747032 and a < 0.34575",
+                    "select * from x where a > 0.42 limit 3",
+                    "select * from x where a > 0.42 order by t desc limit 3"
+            };
+            final StringSink expected = new StringSink();
+            for (String sql : queries) {
+                node1.setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_READ_AHEAD_ENABLED, false);
+                TestUtils.printSql(compiler, sqlExecutionContext, sql, expected);
+
+                node1.setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_READ_AHEAD_ENABLED, true);
+                node1.setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_READ_AHEAD_FRAMES, 2);
+                TestUtils.assertSql(compiler, sqlExecutionContext, sql, sink, expected);
+            }
+            Assert.assertTrue(willNeedCount.get() > 0);
+            Assert.assertTrue(coldCount.get() > 0);
+        });
+    }
+
+    @Test
+    public void testPageFrameReadAheadDisabledOnError() throws Exception {
+        final AtomicInteger willNeedCount = new AtomicInteger();
+        final AtomicInteger coldCount = new AtomicInteger();
+        ff = new TestFilesFacadeImpl() {
+            @Override
+            public int fadvise(int fd, long offset, long len, int advise) {
+                if (advise == Files.POSIX_FADV_WILLNEED) {
+                    willNeedCount.incrementAndGet();
+                }
+                return super.fadvise(fd, offset, len, advise);
+            }
+
+            @Override
+            public int madvise(long address, long len, int advise) {
+                if (advise == Files.MADV_COLD) {
+                    // kernels before 5.4 reject MADV_COLD
+                    coldCount.incrementAndGet();
+                    return 22;
+                }
+                return super.madvise(address, len, advise);
+            }
+        };
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            // advice is sent with syscalls rather than io_uring ops
+            node1.setProperty(PropertyKey.CAIRO_IO_URING_ENABLED, false);
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+            compiler.compile("create table x as (select rnd_double() a, rnd_varchar(1, 40, 1) v, timestamp_sequence(20000000, 100000) t from long_sequence(500000)) timestamp(t) partition by hour", sqlExecutionContext);
+
+            final String sql = "select count(), min(a), max(a), sum(length(v)) from (x where a > 0.1)";
+            final StringSink expected = new StringSink();
+            node1.setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_READ_AHEAD_ENABLED, false);
+            TestUtils.printSql(compiler, sqlExecutionContext, sql, expected);
+
+            node1.setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_READ_AHEAD_ENABLED, true);
+            node1.setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_READ_AHEAD_FRAMES, 2);
+            TestUtils.assertSql(compiler, sqlExecutionContext, sql, sink, expected);
+            // the first rejected advice disables the scheduler for the rest of the query
+            Assert.assertEquals(1, coldCount.get());
+            final int willNeedAfterFirstQuery = willNeedCount.get();
+            Assert.assertTrue(willNeedAfterFirstQuery > 0);
+
+            // the next query tries again
+            TestUtils.assertSql(compiler, sqlExecutionContext, sql, sink, expected);
+            Assert.assertEquals(2, coldCount.get());
+            Assert.assertTrue(willNeedCount.get() > willNeedAfterFirstQuery);
+        });
+    }
+
     @Test
     public void testPageFrameSequenceJit() throws Exception {
         // Disable the test on ARM64.
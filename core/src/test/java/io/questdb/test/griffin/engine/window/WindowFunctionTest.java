@@ -161,6 +161,35 @@ public class WindowFunctionTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testFrameFunctionMinMaxOverRowsMatchesRange() throws Exception {
+        assertMemoryLeak(() -> {
+            // one row per microsecond, so a rows frame has the same bounds as the range frame of equal size
+            ddl("create table tab (ts timestamp, k long, d double) timestamp(ts)");
+            insert("insert into tab select x::timestamp, x % 3, case when rnd_int(0, 9, 0) = 0 then null else rnd_int(0, 20, 0)::double end from long_sequence(10000)");
+
+            for (String func : new String[]{"max", "min"}) {
+                assertSqlCursors(
+                        "select ts, " + func + "(d) over (order by ts range between 7 preceding and 2 preceding) from tab",
+                        "select ts, " + func + "(d) over (order by ts rows between 7 preceding and 2 preceding) from tab"
+                );
+                assertSqlCursors(
+                        "select ts, " + func + "(d) over (order by ts range between 50 preceding and current row) from tab",
+                        "select ts, " + func + "(d) over (order by ts rows between 50 preceding and current row) from tab"
+                );
+                // rows of each partition are 3 microseconds apart
+                assertSqlCursors(
+                        "select ts, " + func + "(d) over (partition by k order by ts range between 21 preceding and 6 preceding) from tab",
+                        "select ts, " + func + "(d) over (partition by k order by ts rows between 7 preceding and 2 preceding) from tab"
+                );
+                assertSqlCursors(
+                        "select ts, " + func + "(d) over (partition by k order by ts range between 150 preceding and current row) from tab",
+                        "select ts, " + func + "(d) over (partition by k order by ts rows between 50 preceding and current row) from tab"
+                );
+            }
+        });
+    }
+
     @Test
     public void testFrameFunctionOverNonPartitionedRangeWithLargeFrame() throws Exception {
         assertMemoryLeak(() -> {
@@ -1536,6 +1565,222 @@ public class WindowFunctionTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testFrameFunctionsMinMaxCountLastValue() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table tab (ts timestamp, i long, j double) timestamp(ts)");
+            insert("insert into tab select x::timestamp, x%3, case when x%5 = 0 then null else x::double end from long_sequence(12)");
+
+            assertQueryNoLeakCheck(
+                    "ts\ti\tj\tmax\tmin\tcount\tcount1\tlast_value\n" +
+                            "1970-01-01T00:00:00.000001Z\t1\t1.0\t1.0\t1.0\t1\t1\t1.0\n" +
+                            "1970-01-01T00:00:00.000002Z\t2\t2.0\t2.0\t2.0\t1\t1\t2.0\n" +
+                            "1970-01-01T00:00:00.000003Z\t0\t3.0\t3.0\t3.0\t1\t1\t3.0\n" +
+                            "1970-01-01T00:00:00.000004Z\t1\t4.0\t4.0\t1.0\t2\t2\t4.0\n" +
+                            "1970-01-01T00:00:00.000005Z\t2\tnull\t2.0\t2.0\t1\t2\tnull\n" +
+                            "1970-01-01T00:00:00.000006Z\t0\t6.0\t6.0\t3.0\t2\t2\t6.0\n" +
+                            "1970-01-01T00:00:00.000007Z\t1\t7.0\t7.0\t1.0\t3\t3\t7.0\n" +
+                            "1970-01-01T00:00:00.000008Z\t2\t8.0\t8.0\t2.0\t2\t3\t8.0\n" +
+                            "1970-01-01T00:00:00.000009Z\t0\t9.0\t9.0\t3.0\t3\t3\t9.0\n" +
+                            "1970-01-01T00:00:00.000010Z\t1\tnull\t7.0\t4.0\t2\t3\tnull\n" +
+                            "1970-01-01T00:00:00.000011Z\t2\t11.0\t11.0\t8.0\t2\t3\t11.0\n" +
+                            "1970-01-01T00:00:00.000012Z\t0\t12.0\t12.0\t6.0\t3\t3\t12.0\n",
+                    "select ts, i, j, " +
+                            "max(j) over (partition by i order by ts rows between 2 preceding and current row), " +
+                            "min(j) over (partition by i order by ts rows between 2 preceding and current row), " +
+                            "count(j) over (partition by i order by ts rows between 2 preceding and current row), " +
+                            "count(*) over (partition by i order by ts rows between 2 preceding and current row) count1, " +
+                            "last_value(j) over (partition by i order by ts rows between 2 preceding and current row) " +
+                            "from tab",
+                    "ts",
+                    false,
+                    true
+            );
+
+            assertQueryNoLeakCheck(
+                    "ts\ti\tj\tmax\tmin\tcount\tcount1\tlast_value\n" +
+                            "1970-01-01T00:00:00.000001Z\t1\t1.0\tnull\tnull\t0\t0\tnull\n" +
+                            "1970-01-01T00:00:00.000002Z\t2\t2.0\tnull\tnull\t0\t0\tnull\n" +
+                            "1970-01-01T00:00:00.000003Z\t0\t3.0\tnull\tnull\t0\t0\tnull\n" +
+                            "1970-01-01T00:00:00.000004Z\t1\t4.0\t1.0\t1.0\t1\t1\t1.0\n" +
+                            "1970-01-01T00:00:00.000005Z\t2\tnull\t2.0\t2.0\t1\t1\t2.0\n" +
+                            "1970-01-01T00:00:00.000006Z\t0\t6.0\t3.0\t3.0\t1\t1\t3.0\n" +
+                            "1970-01-01T00:00:00.000007Z\t1\t7.0\t4.0\t1.0\t2\t2\t4.0\n" +
+                            "1970-01-01T00:00:00.000008Z\t2\t8.0\t2.0\t2.0\t1\t2\tnull\n" +
+                            "1970-01-01T00:00:00.000009Z\t0\t9.0\t6.0\t3.0\t2\t2\t6.0\n" +
+                            "1970-01-01T00:00:00.000010Z\t1\tnull\t7.0\t1.0\t3\t3\t7.0\n" +
+                            "1970-01-01T00:00:00.000011Z\t2\t11.0\t8.0\t2.0\t2\t3\t8.0\n" +
+                            "1970-01-01T00:00:00.000012Z\t0\t12.0\t9.0\t3.0\t3\t3\t9.0\n",
+                    "select ts, i, j, " +
+                            "max(j) over (partition by i order by ts rows between 3 preceding and 1 preceding), " +
+                            "min(j) over (partition by i order by ts rows between 3 preceding and 1 preceding), " +
+                            "count(j) over (partition by i order by ts rows between 3 preceding and 1 preceding), " +
+                            "count(*) over (partition by i order by ts rows between 3 preceding and 1 preceding) count1, " +
+                            "last_value(j) over (partition by i order by ts rows between 3 preceding and 1 preceding) " +
+                            "from tab",
+                    "ts",
+                    false,
+                    true
+            );
+
+            assertQueryNoLeakCheck(
+                    "ts\ti\tj\tmax\tmin\tcount\tcount1\tlast_value\n" +
+                            "1970-01-01T00:00:00.000001Z\t1\t1.0\tnull\tnull\t0\t0\tnull\n" +
+                            "1970-01-01T00:00:00.000002Z\t2\t2.0\tnull\tnull\t0\t0\tnull\n" +
+                            "1970-01-01T00:00:00.000003Z\t0\t3.0\t1.0\t1.0\t1\t1\t1.0\n" +
+                            "1970-01-01T00:00:00.000004Z\t1\t4.0\t2.0\t1.0\t2\t2\t2.0\n" +
+                            "1970-01-01T00:00:00.000005Z\t2\tnull\t3.0\t1.0\t3\t3\t3.0\n" +
+                            "1970-01-01T00:00:00.000006Z\t0\t6.0\t4.0\t1.0\t4\t4\t4.0\n" +
+                            "1970-01-01T00:00:00.000007Z\t1\t7.0\t4.0\t1.0\t4\t5\tnull\n" +
+                            "1970-01-01T00:00:00.000008Z\t2\t8.0\t6.0\t1.0\t5\t6\t6.0\n" +
+                            "1970-01-01T00:00:00.000009Z\t0\t9.0\t7.0\t1.0\t6\t7\t7.0\n" +
+                            "1970-01-01T00:00:00.000010Z\t1\tnull\t8.0\t1.0\t7\t8\t8.0\n" +
+                            "1970-01-01T00:00:00.000011Z\t2\t11.0\t9.0\t1.0\t8\t9\t9.0\n" +
+                            "1970-01-01T00:00:00.000012Z\t0\t12.0\t9.0\t1.0\t8\t10\tnull\n",
+                    "select ts, i, j, " +
+                            "max(j) over (order by ts rows between unbounded preceding and 2 preceding), " +
+                            "min(j) over (order by ts rows between unbounded preceding and 2 preceding), " +
+                            "count(j) over (order by ts rows between unbounded preceding and 2 preceding), " +
+                            "count(*) over (order by ts rows between unbounded preceding and 2 preceding) count1, " +
+                            "last_value(j) over (order by ts rows between unbounded preceding and 2 preceding) " +
+                            "from tab",
+                    "ts",
+                    false,
+                    true
+            );
+
+            assertQueryNoLeakCheck(
+                    "ts\ti\tj\tmax\tmin\tcount\tcount1\tlast_value\n" +
+                            "1970-01-01T00:00:00.000001Z\t1\t1.0\tnull\tnull\t0\t0\tnull\n" +
+                            "1970-01-01T00:00:00.000002Z\t2\t2.0\t1.0\t1.0\t1\t1\t1.0\n" +
+                            "1970-01-01T00:00:00.000003Z\t0\t3.0\t2.0\t1.0\t2\t2\t2.0\n" +
+                            "1970-01-01T00:00:00.000004Z\t1\t4.0\t3.0\t1.0\t3\t3\t3.0\n" +
+                            "1970-01-01T00:00:00.000005Z\t2\tnull\t4.0\t1.0\t4\t4\t4.0\n" +
+                            "1970-01-01T00:00:00.000006Z\t0\t6.0\t4.0\t2.0\t3\t4\tnull\n" +
+                            "1970-01-01T00:00:00.000007Z\t1\t7.0\t6.0\t3.0\t3\t4\t6.0\n" +
+                            "1970-01-01T00:00:00.000008Z\t2\t8.0\t7.0\t4.0\t3\t4\t7.0\n" +
+                            "1970-01-01T00:00:00.000009Z\t0\t9.0\t8.0\t6.0\t3\t4\t8.0\n" +
+                            "1970-01-01T00:00:00.000010Z\t1\tnull\t9.0\t6.0\t4\t4\t9.0\n" +
+                            "1970-01-01T00:00:00.000011Z\t2\t11.0\t9.0\t7.0\t3\t4\tnull\n" +
+                            "1970-01-01T00:00:00.000012Z\t0\t12.0\t11.0\t8.0\t3\t4\t11.0\n",
+                    "select ts, i, j, " +
+                            "max(j) over (order by ts range between 4 preceding and 1 preceding), " +
+                            "min(j) over (order by ts range between 4 preceding and 1 preceding), " +
+                            "count(j) over (order by ts range between 4 preceding and 1 preceding), " +
+                            "count(*) over (order by ts range between 4 preceding and 1 preceding) count1, " +
+                            "last_value(j) over (order by ts range between 4 preceding and 1 preceding) " +
+                            "from tab",
+                    "ts",
+                    false,
+                    true
+            );
+
+            assertQueryNoLeakCheck(
+                    "ts\ti\tj\tmax\tmin\tcount\tcount1\tlast_value\n" +
+                            "1970-01-01T00:00:00.000001Z\t1\t1.0\tnull\tnull\t0\t0\tnull\n" +
+                            "1970-01-01T00:00:00.000002Z\t2\t2.0\tnull\tnull\t0\t0\tnull\n" +
+                            "1970-01-01T00:00:00.000003Z\t0\t3.0\tnull\tnull\t0\t0\tnull\n" +
+                            "1970-01-01T00:00:00.000004Z\t1\t4.0\t1.0\t1.0\t1\t1\t1.0\n" +
+                            "1970-01-01T00:00:00.000005Z\t2\tnull\t2.0\t2.0\t1\t1\t2.0\n" +
+                            "1970-01-01T00:00:00.000006Z\t0\t6.0\t3.0\t3.0\t1\t1\t3.0\n" +
+                            "1970-01-01T00:00:00.000007Z\t1\t7.0\t4.0\t1.0\t2\t2\t4.0\n" +
+                            "1970-01-01T00:00:00.000008Z\t2\t8.0\t2.0\t2.0\t1\t2\tnull\n" +
+                            "1970-01-01T00:00:00.000009Z\t0\t9.0\t6.0\t3.0\t2\t2\t6.0\n" +
+                            "1970-01-01T00:00:00.000010Z\t1\tnull\t7.0\t1.0\t3\t3\t7.0\n" +
+                            "1970-01-01T00:00:00.000011Z\t2\t11.0\t8.0\t2.0\t2\t3\t8.0\n" +
+                            "1970-01-01T00:00:00.000012Z\t0\t12.0\t9.0\t3.0\t3\t3\t9.0\n",
+                    "select ts, i, j, " +
+                            "max(j) over (partition by i order by ts range between unbounded preceding and 3 preceding), " +
+                            "min(j) over (partition by i order by ts range between unbounded preceding and 3 preceding), " +
+                            "count(j) over (partition by i order by ts range between unbounded preceding and 3 preceding), " +
+                            "count(*) over (partition by i order by ts range between unbounded preceding and 3 preceding) count1, " +
+                            "last_value(j) over (partition by i order by ts range between unbounded preceding and 3 preceding) " +
+                            "from tab",
+                    "ts",
+                    false,
+                    true
+            );
+
+            assertQueryNoLeakCheck(
+                    "ts\ti\tj\tmax\tmin\tcount\tcount1\tlast_value\n" +
+                            "1970-01-01T00:00:00.000001Z\t1\t1.0\t1.0\t1.0\t1\t1\t1.0\n" +
+                            "1970-01-01T00:00:00.000002Z\t2\t2.0\t2.0\t2.0\t1\t1\t2.0\n" +
+                            "1970-01-01T00:00:00.000003Z\t0\t3.0\t3.0\t3.0\t1\t1\t3.0\n" +
+                            "1970-01-01T00:00:00.000004Z\t1\t4.0\t4.0\t1.0\t2\t2\t4.0\n" +
+                            "1970-01-01T00:00:00.000005Z\t2\tnull\t2.0\t2.0\t1\t2\tnull\n" +
+                            "1970-01-01T00:00:00.000006Z\t0\t6.0\t6.0\t3.0\t2\t2\t6.0\n" +
+                            "1970-01-01T00:00:00.000007Z\t1\t7.0\t7.0\t4.0\t2\t2\t7.0\n" +
+                            "1970-01-01T00:00:00.000008Z\t2\t8.0\t8.0\t8.0\t1\t2\t8.0\n" +
+                            "1970-01-01T00:00:00.000009Z\t0\t9.0\t9.0\t6.0\t2\t2\t9.0\n" +
+                            "1970-01-01T00:00:00.000010Z\t1\tnull\t7.0\t7.0\t1\t2\tnull\n" +
+                            "1970-01-01T00:00:00.000011Z\t2\t11.0\t11.0\t8.0\t2\t2\t11.0\n" +
+                            "1970-01-01T00:00:00.000012Z\t0\t12.0\t12.0\t9.0\t2\t2\t12.0\n",
+                    "select ts, i, j, " +
+                            "max(j) over (partition by i order by ts range between 3 preceding and current row), " +
+                            "min(j) over (partition by i order by ts range between 3 preceding and current row), " +
+                            "count(j) over (partition by i order by ts range between 3 preceding and current row), " +
+                            "count(*) over (partition by i order by ts range between 3 preceding and current row) count1, " +
+                            "last_value(j) over (partition by i order by ts range between 3 preceding and current row) " +
+                            "from tab",
+                    "ts",
+                    false,
+                    true
+            );
+
+            assertQueryNoLeakCheck(
+                    "ts\ti\tj\tmax\tmin\tcount\tcount1\tlast_value\n" +
+                            "1970-01-01T00:00:00.000001Z\t1\t1.0\t1.0\t1.0\t1\t1\t1.0\n" +
+                            "1970-01-01T00:00:00.000002Z\t2\t2.0\t2.0\t1.0\t2\t2\t2.0\n" +
+                            "1970-01-01T00:00:00.000003Z\t0\t3.0\t3.0\t1.0\t3\t3\t3.0\n" +
+                            "1970-01-01T00:00:00.000004Z\t1\t4.0\t4.0\t1.0\t4\t4\t4.0\n" +
+                            "1970-01-01T00:00:00.000005Z\t2\tnull\t4.0\t2.0\t3\t4\tnull\n" +
+                            "1970-01-01T00:00:00.000006Z\t0\t6.0\t6.0\t3.0\t3\t4\t6.0\n" +
+                            "1970-01-01T00:00:00.000007Z\t1\t7.0\t7.0\t4.0\t3\t4\t7.0\n" +
+                            "1970-01-01T00:00:00.000008Z\t2\t8.0\t8.0\t6.0\t3\t4\t8.0\n" +
+                            "1970-01-01T00:00:00.000009Z\t0\t9.0\t9.0\t6.0\t4\t4\t9.0\n" +
+                            "1970-01-01T00:00:00.000010Z\t1\tnull\t9.0\t7.0\t3\t4\tnull\n" +
+                            "1970-01-01T00:00:00.000011Z\t2\t11.0\t11.0\t8.0\t3\t4\t11.0\n" +
+                            "1970-01-01T00:00:00.000012Z\t0\t12.0\t12.0\t9.0\t3\t4\t12.0\n",
+                    "select ts, i, j, " +
+                            "max(j) over (order by ts rows between 3 preceding and current row), " +
+                            "min(j) over (order by ts rows between 3 preceding and current row), " +
+                            "count(j) over (order by ts rows between 3 preceding and current row), " +
+                            "count(*) over (order by ts rows between 3 preceding and current row) count1, " +
+                            "last_value(j) over (order by ts rows between 3 preceding and current row) " +
+                            "from tab",
+                    "ts",
+                    false,
+                    true
+            );
+
+            assertQueryNoLeakCheck(
+                    "ts\ti\tj\tmax\tmin\tcount\tcount1\tlast_value\n" +
+                            "1970-01-01T00:00:00.000001Z\t1\t1.0\t7.0\t1.0\t3\t4\tnull\n" +
+                            "1970-01-01T00:00:00.000002Z\t2\t2.0\t11.0\t2.0\t3\t4\t11.0\n" +
+                            "1970-01-01T00:00:00.000003Z\t0\t3.0\t12.0\t3.0\t4\t4\t12.0\n" +
+                            "1970-01-01T00:00:00.000004Z\t1\t4.0\t7.0\t1.0\t3\t4\tnull\n" +
+                            "1970-01-01T00:00:00.000005Z\t2\tnull\t11.0\t2.0\t3\t4\t11.0\n" +
+                            "1970-01-01T00:00:00.000006Z\t0\t6.0\t12.0\t3.0\t4\t4\t12.0\n" +
+                            "1970-01-01T00:00:00.000007Z\t1\t7.0\t7.0\t1.0\t3\t4\tnull\n" +
+                            "1970-01-01T00:00:00.000008Z\t2\t8.0\t11.0\t2.0\t3\t4\t11.0\n" +
+                            "1970-01-01T00:00:00.000009Z\t0\t9.0\t12.0\t3.0\t4\t4\t12.0\n" +
+                            "1970-01-01T00:00:00.000010Z\t1\tnull\t7.0\t1.0\t3\t4\tnull\n" +
+                            "1970-01-01T00:00:00.000011Z\t2\t11.0\t11.0\t2.0\t3\t4\t11.0\n" +
+                            "1970-01-01T00:00:00.000012Z\t0\t12.0\t12.0\t3.0\t4\t4\t12.0\n",
+                    "select ts, i, j, " +
+                            "max(j) over (partition by i), " +
+                            "min(j) over (partition by i), " +
+                            "count(j) over (partition by i), " +
+                            "count(*) over (partition by i) count1, " +
+                            "last_value(j) over (partition by i) " +
+                            "from tab",
+                    "ts",
+                    true,
+                    false
+            );
+        });
+    }
+
     @Test
     public void testFrameFunctionsOverRowsFrame() throws Exception {
         assertMemoryLeak(() -> {
@@ -2047,6 +2292,84 @@ public class WindowFunctionTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testLagAndLead() throws Exception {
+        assertMemoryLeak(() -> {
+            ddl("create table tab (ts timestamp, i long, j double) timestamp(ts)");
+            insert("insert into tab select x::timestamp, x%3, case when x%5 = 0 then null else x::double end from long_sequence(12)");
+
+            assertQueryNoLeakCheck(
+                    "ts\ti\tj\tlag\tlag1\tlead\tlead1\n" +
+                            "1970-01-01T00:00:00.000001Z\t1\t1.0\tnull\t-1.0\t4.0\t3.0\n" +
+                            "1970-01-01T00:00:00.000002Z\t2\t2.0\tnull\t-1.0\tnull\t4.0\n" +
+                            "1970-01-01T00:00:00.000003Z\t0\t3.0\tnull\t1.0\t6.0\tnull\n" +
+                            "1970-01-01T00:00:00.000004Z\t1\t4.0\t1.0\t2.0\t7.0\t6.0\n" +
+                            "1970-01-01T00:00:00.000005Z\t2\tnull\t2.0\t3.0\t8.0\t7.0\n" +
+                            "1970-01-01T00:00:00.000006Z\t0\t6.0\t3.0\t4.0\t9.0\t8.0\n" +
+                            "1970-01-01T00:00:00.000007Z\t1\t7.0\t4.0\tnull\tnull\t9.0\n" +
+                            "1970-01-01T00:00:00.000008Z\t2\t8.0\tnull\t6.0\t11.0\tnull\n" +
+                            "1970-01-01T00:00:00.000009Z\t0\t9.0\t6.0\t7.0\t12.0\t11.0\n" +
+                            "1970-01-01T00:00:00.000010Z\t1\tnull\t7.0\t8.0\tnull\t12.0\n" +
+                            "1970-01-01T00:00:00.000011Z\t2\t11.0\t8.0\t9.0\tnull\t-1.0\n" +
+                            "1970-01-01T00:00:00.000012Z\t0\t12.0\t9.0\tnull\tnull\t-1.0\n",
+                    "select ts, i, j, " +
+                            "lag(j) over (partition by i order by ts), " +
+                            "lag(j, 2, -1) over (order by ts) lag1, " +
+                            "lead(j) over (partition by i order by ts), " +
+                            "lead(j, 2, -1) over (order by ts) lead1 " +
+                            "from tab",
+                    "ts",
+                    true,//cached window factory
+                    false
+            );
+
+            assertPlanNoLeakCheck(
+                    "select ts, i, j, lag(j) over (partition by i order by ts), lag(j, 2, -1) over (order by ts) lag1 from tab",
+                    "Window\n" +
+                            "  functions: [lag(j, 1) over (partition by [i]),lag(j, 2, -1.0) over ()]\n" +
+                            "    DataFrame\n" +
+                            "        Row forward scan\n" +
+                            "        Frame forward scan on: tab\n"
+            );
+
+            assertQueryNoLeakCheck(
+                    "ts\ti\tj\tlag\tlead\n" +
+                            "1970-01-01T00:00:00.000001Z\t1\t1.0\t1.0\t1.0\n" +
+                            "1970-01-01T00:00:00.000002Z\t2\t2.0\t2.0\t2.0\n",
+                    "select ts, i, j, lag(j, 0) over (order by ts), lead(j, 0) over (order by ts) from tab limit 2",
+                    "ts",
+                    false,
+                    false
+            );
+
+            assertExceptionNoLeakCheck(
+                    "select lag(j, -1) over (order by ts) from tab",
+                    14,
+                    "offset must be a non-negative integer"
+            );
+            assertExceptionNoLeakCheck(
+                    "select lead(j, i) over (order by ts) from tab",
+                    15,
+                    "offset must be a constant"
+            );
+            assertExceptionNoLeakCheck(
+                    "select lag(j, 1.5) over (order by ts) from tab",
+                    14,
+                    "integer offset expected"
+            );
+            assertExceptionNoLeakCheck(
+                    "select lead(j, 1, 'a') over (order by ts) from tab",
+                    18,
+                    "numeric default value expected"
+            );
+            assertExceptionNoLeakCheck(
+                    "select lag(j, 1, 2, 3) over (order by ts) from tab",
+                    7,
+                    "too many arguments"
+            );
+        });
+    }
+
     @Test
     public void testPartitionByAndOrderByColumnPushdown() throws Exception {
         assertMemoryLeak(() -> {
@@ -3187,9 +3510,9 @@ public class WindowFunctionTest extends AbstractCairoTest {
                 //TODO: inspect
                 assertPlanNoLeakCheck(
                         "select ts, i, j, #FUNCT_NAME(1) over (partition by i order by ts asc rows between 1 preceding and current row) from tab where sym in ( 'A', 'B') ".replace("#FUNCT_NAME", func),
-                        "first_value".equals(func) ?
+                        "first_value".equals(func.trim()) || "last_value".equals(func.trim()) ?
                                 "Window\n" +
-                                        "  functions: [first_value(1) over (partition by [i] rows between 1 preceding and current row)]\n" +
+                                        "  functions: [#FUNCT_NAME(1) over (partition by [i] rows between 1 preceding and current row)]\n".replace("#FUNCT_NAME", func.trim()) +
                                         "    FilterOnValues\n" +
                                         "        Table-order scan\n" +
                                         "            Index forward scan on: sym deferred: true\n" +
@@ -3460,7 +3783,7 @@ public class WindowFunctionTest extends AbstractCairoTest {
     }
 
     static {
-        FRAME_FUNCTIONS = Arrays.asList("avg", "sum", "first_value");
+        FRAME_FUNCTIONS = Arrays.asList("avg", "sum", "first_value", "last_value", "max", "min", "count");
 
         WINDOW_ONLY_FUNCTIONS = Arrays.asList("rank()", "row_number()", "first_value(1.0)");
 
@@ -1359,6 +1359,54 @@ public class WalTableSqlTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testRemapSymbolsInManyColumns() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = testName.getMethodName();
+            ddl("create table " + tableName + " (" +
+                    "s1 symbol," +
+                    "s2 symbol," +
+                    "s3 symbol," +
+                    "ts timestamp" +
+                    ") timestamp(ts) partition by DAY WAL");
+
+            TableToken tableToken = engine.verifyTableName(tableName);
+            try (
+                    WalWriter walWriter1 = engine.getWalWriter(tableToken);
+                    WalWriter walWriter2 = engine.getWalWriter(tableToken)
+            ) {
+                // both writers start from empty symbol tables, the second writer
+                // sees the same symbols in the reverse order and has to be remapped
+                for (int i = 0; i < 3; i++) {
+                    TableWriter.Row row = walWriter1.newRow(IntervalUtils.parseFloorPartialTimestamp("2022-02-24T0" + i));
+                    row.putSym(0, "a" + i);
+                    row.putSym(1, "b" + i);
+                    row.putSym(2, "c" + i);
+                    row.append();
+                }
+                for (int i = 0; i < 3; i++) {
+                    TableWriter.Row row = walWriter2.newRow(IntervalUtils.parseFloorPartialTimestamp("2022-02-24T0" + (i + 3)));
+                    row.putSym(0, "a" + (2 - i));
+                    row.putSym(1, "b" + (2 - i));
+                    row.putSym(2, "c" + (2 - i));
+                    row.append();
+                }
+                walWriter1.commit();
+                walWriter2.commit();
+            }
+
+            drainWalQueue();
+            assertSql("s1\ts2\ts3\tts\n" +
+                    "a0\tb0\tc0\t2022-02-24T00:00:00.000000Z\n" +
+                    "a1\tb1\tc1\t2022-02-24T01:00:00.000000Z\n" +
+                    "a2\tb2\tc2\t2022-02-24T02:00:00.000000Z\n" +
+                    "a2\tb2\tc2\t2022-02-24T03:00:00.000000Z\n" +
+                    "a1\tb1\tc1\t2022-02-24T04:00:00.000000Z\n" +
+                    "a0\tb0\tc0\t2022-02-24T05:00:00.000000Z\n", tableName);
+            assertSql("count\n3\n", "select count() from (select distinct s1 from " + tableName + ")");
+        });
+    }
+
     @Test
     public void testRemoveColumnWalRollsWalSegment() throws Exception {
         assertMemoryLeak(() -> {
@@ -54,6 +54,50 @@ public class IOURingImplTest extends AbstractTest {
         }
     }
 
+    @Test
+    public void testFadvise() throws Exception {
+        Assume.assumeTrue(rf.isAvailable());
+
+        TestUtils.assertMemoryLeak(() -> {
+            File file = temp.newFile();
+            TestUtils.writeStringToFile(file, "abcdefghijklmnopqrstuvwxyz");
+
+            try (Path path = new Path()) {
+                int fd = Files.openRO(path.of(file.getAbsolutePath()).$());
+                Assert.assertTrue(fd > -1);
+                try (IOURing ring = rf.newInstance(4)) {
+                    long id = ring.enqueueFadvise(fd, 0, 26, Files.POSIX_FADV_WILLNEED);
+                    Assert.assertTrue(id > -1);
+                    Assert.assertEquals(1, ring.submit());
+                    while (!ring.nextCqe()) {
+                        Os.pause();
+                    }
+                    Assert.assertEquals(id, ring.getCqeId());
+                    Assert.assertEquals(0, ring.getCqeRes());
+
+                    // advice must not leak into flags of a read that reuses the sqe
+                    final long buf = Unsafe.malloc(26, MemoryTag.NATIVE_DEFAULT);
+                    try {
+                        for (int i = 0; i < 4; i++) {
+                            id = ring.enqueueRead(fd, 0, buf, 26);
+                            Assert.assertTrue(id > -1);
+                            Assert.assertEquals(1, ring.submit());
+                            while (!ring.nextCqe()) {
+                                Os.pause();
+                            }
+                            Assert.assertEquals(id, ring.getCqeId());
+                            Assert.assertEquals(26, ring.getCqeRes());
+                        }
+                    } finally {
+                        Unsafe.free(buf, 26, MemoryTag.NATIVE_DEFAULT);
+                    }
+                } finally {
+                    Files.close(fd);
+                }
+            }
+        });
+    }
+
     @Test
     public void testIsAvailableOn() {
         Assert.assertFalse(IOURingFacadeImpl.isAvailableOn("6.1"));